@@ -25,6 +25,7 @@ public class Certificate {
     X509Certificate certificate;
     int tenantId;
     String tenantDomain;
+    String username;
 
     public int getTenantId() {
         return tenantId;
@@ -57,4 +58,12 @@ public class Certificate {
     public void setTenantDomain(String tenantDomain) {
         this.tenantDomain = tenantDomain;
     }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
 }
@@ -85,4 +85,16 @@ public class CertificateConfigurationManager {
         }
         return certificateManagementConfig.getCertificateKeystoreConfig();
     }
+
+    /**
+     * @return the certificate generation configuration, or the defaults if it is not configured.
+     */
+    public CertificateGenerationConfig getCertificateGenerationConfig() throws CertificateManagementException {
+        if (certificateManagementConfig == null) {
+            initConfig();
+        }
+        CertificateGenerationConfig certificateGenerationConfig =
+                certificateManagementConfig.getCertificateGenerationConfig();
+        return (certificateGenerationConfig != null) ? certificateGenerationConfig : new CertificateGenerationConfig();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.config;
+
+import org.wso2.carbon.certificate.mgt.core.util.CertificateManagementConstants;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Class for holding the configuration of certificate generation.
+ */
+@XmlRootElement(name = "CertificateGeneration")
+public class CertificateGenerationConfig {
+
+    private int keyLength = CertificateManagementConstants.RSA_KEY_LENGTH;
+    private int maxConcurrentIssuance;
+    private int persistenceBatchSize = CertificateManagementConstants.DEFAULT_PERSISTENCE_BATCH_SIZE;
+
+    /**
+     * @return length of the RSA keys generated for certificates.
+     */
+    @XmlElement(name = "KeyLength")
+    public int getKeyLength() {
+        return keyLength;
+    }
+
+    public void setKeyLength(int keyLength) {
+        this.keyLength = keyLength;
+    }
+
+    /**
+     * @return maximum number of certificates issued at the same time, 0 or less for the number of processors.
+     */
+    @XmlElement(name = "MaxConcurrentIssuance")
+    public int getMaxConcurrentIssuance() {
+        return maxConcurrentIssuance;
+    }
+
+    public void setMaxConcurrentIssuance(int maxConcurrentIssuance) {
+        this.maxConcurrentIssuance = maxConcurrentIssuance;
+    }
+
+    /**
+     * @return maximum number of issued certificates saved in a single batch.
+     */
+    @XmlElement(name = "PersistenceBatchSize")
+    public int getPersistenceBatchSize() {
+        return persistenceBatchSize;
+    }
+
+    public void setPersistenceBatchSize(int persistenceBatchSize) {
+        this.persistenceBatchSize = persistenceBatchSize;
+    }
+
+}
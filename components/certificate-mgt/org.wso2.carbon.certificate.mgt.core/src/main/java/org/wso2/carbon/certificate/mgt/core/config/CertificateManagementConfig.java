@@ -29,6 +29,7 @@ public final class CertificateManagementConfig {
 
     private CertificateManagementRepository certificateManagementRepository;
     private CertificateKeystoreConfig certificateKeystoreConfig;
+    private CertificateGenerationConfig certificateGenerationConfig;
     private int defaultPageSize;
 
     public void setCertificateManagementRepository(CertificateManagementRepository certificateManagementRepository) {
@@ -49,6 +50,15 @@ public final class CertificateManagementConfig {
         this.certificateKeystoreConfig = certificateKeystoreConfig;
     }
 
+    @XmlElement(name = "CertificateGeneration")
+    public CertificateGenerationConfig getCertificateGenerationConfig() {
+        return certificateGenerationConfig;
+    }
+
+    public void setCertificateGenerationConfig(CertificateGenerationConfig certificateGenerationConfig) {
+        this.certificateGenerationConfig = certificateGenerationConfig;
+    }
+
     @XmlElement(name = "DefaultPageSize", required = true)
     public int getDefaultPageSize() {
         return defaultPageSize;
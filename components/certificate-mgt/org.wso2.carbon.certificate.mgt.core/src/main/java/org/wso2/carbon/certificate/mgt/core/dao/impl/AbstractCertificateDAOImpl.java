@@ -69,7 +69,7 @@ public abstract class AbstractCertificateDAOImpl implements CertificateDAO{
                 stmt.setString(1, serialNumber);
                 stmt.setBytes(2, bytes);
                 stmt.setInt(3, certificate.getTenantId());
-                stmt.setString(4, username);
+                stmt.setString(4, (certificate.getUsername() != null) ? certificate.getUsername() : username);
                 stmt.addBatch();
             }
             stmt.executeBatch();
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.certificate.mgt.core.bean.Certificate;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateConfigurationManager;
+import org.wso2.carbon.certificate.mgt.core.dao.CertificateDAO;
+import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOException;
+import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOFactory;
+import org.wso2.carbon.certificate.mgt.core.exception.CertificateManagementException;
+import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
+import org.wso2.carbon.certificate.mgt.core.exception.TransactionManagementException;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Saves issued certificates in DM_DEVICE_CERTIFICATE in batches. The certificates of the threads saving them at the
+ * same time are saved in a single transaction by one of the threads, while the others wait for their certificates to
+ * be saved, so that a thread returns only once its certificates are committed, as when they were saved one by one.
+ * If a batch fails, the certificates of each thread in it are saved on their own, so that only the threads whose
+ * certificates could not be saved fail.
+ */
+class CertificateBatchWriter {
+
+    private static final Log log = LogFactory.getLog(CertificateBatchWriter.class);
+
+    private static volatile CertificateBatchWriter instance;
+
+    private final int batchSize;
+    private final CertificateStore store;
+    private final Queue<PendingSave> pendingSaves = new ArrayDeque<>();
+    private boolean writing;
+
+    /**
+     * Saves the certificates, the transaction of which is managed by the writer.
+     */
+    interface CertificateStore {
+
+        void addCertificates(List<Certificate> certificates) throws KeystoreException;
+
+    }
+
+    /**
+     * @param batchSize maximum number of certificates saved in a batch, although the certificates saved by a single
+     *                  thread are never divided among batches.
+     * @param store     store the certificates are saved in.
+     */
+    CertificateBatchWriter(int batchSize, CertificateStore store) {
+        this.batchSize = Math.max(batchSize, 1);
+        this.store = store;
+    }
+
+    static CertificateBatchWriter getInstance() throws KeystoreException {
+        if (instance == null) {
+            synchronized (CertificateBatchWriter.class) {
+                if (instance == null) {
+                    try {
+                        instance = new CertificateBatchWriter(CertificateConfigurationManager.getInstance().
+                                getCertificateGenerationConfig().getPersistenceBatchSize(), new DAOCertificateStore());
+                    } catch (CertificateManagementException e) {
+                        String errorMsg = "Unable to find certificate generation configuration in " +
+                                          "certificate-mgt.config file.";
+                        throw new KeystoreException(errorMsg, e);
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Saves the certificates along with those being saved by other threads, and returns once they are saved.
+     */
+    void save(List<Certificate> certificates) throws KeystoreException {
+        String username = PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername();
+        for (Certificate certificate : certificates) {
+            if (certificate.getUsername() == null) {
+                certificate.setUsername(username);
+            }
+        }
+
+        PendingSave save = new PendingSave(certificates);
+        boolean interrupted = false;
+        try {
+            synchronized (pendingSaves) {
+                pendingSaves.add(save);
+                while (writing && !save.done) {
+                    try {
+                        pendingSaves.wait();
+                    } catch (InterruptedException e) {
+                        // Waits regardless, as the certificates may be being saved.
+                        interrupted = true;
+                    }
+                }
+                if (!save.done) {
+                    writing = true;
+                }
+            }
+            if (!save.done) {
+                try {
+                    this.writeUntilSaved(save);
+                } finally {
+                    synchronized (pendingSaves) {
+                        writing = false;
+                        pendingSaves.notifyAll();
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (save.error != null) {
+            throw save.error;
+        }
+    }
+
+    /**
+     * Writes batches of the pending saves until the given save is done, after which waiting threads take over.
+     */
+    private void writeUntilSaved(PendingSave save) {
+        while (!save.done) {
+            List<PendingSave> batch = new ArrayList<>();
+            List<Certificate> certificates = new ArrayList<>();
+            synchronized (pendingSaves) {
+                PendingSave next;
+                while ((next = pendingSaves.peek()) != null && (batch.isEmpty() ||
+                        certificates.size() + next.certificates.size() <= batchSize)) {
+                    batch.add(pendingSaves.poll());
+                    certificates.addAll(next.certificates);
+                }
+            }
+            try {
+                store.addCertificates(certificates);
+                if (log.isDebugEnabled()) {
+                    log.debug("Saved " + certificates.size() + " certificates of " + batch.size() + " requests");
+                }
+            } catch (KeystoreException e) {
+                if (batch.size() == 1) {
+                    batch.get(0).error = e;
+                } else {
+                    log.warn("Error occurred when saving a batch of " + certificates.size() + " certificates, " +
+                             "saving the certificates of each request separately", e);
+                    for (PendingSave pendingSave : batch) {
+                        try {
+                            store.addCertificates(pendingSave.certificates);
+                        } catch (KeystoreException ex) {
+                            pendingSave.error = ex;
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                for (PendingSave pendingSave : batch) {
+                    pendingSave.error = new KeystoreException("Error occurred when saving the generated certificate",
+                                                              e);
+                }
+            }
+            synchronized (pendingSaves) {
+                for (PendingSave pendingSave : batch) {
+                    pendingSave.done = true;
+                }
+                pendingSaves.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Certificates of a thread to be saved, which are guarded by the queue of pending saves.
+     */
+    private static class PendingSave {
+
+        private final List<Certificate> certificates;
+        private boolean done;
+        private KeystoreException error;
+
+        PendingSave(List<Certificate> certificates) {
+            this.certificates = certificates;
+        }
+
+    }
+
+    /**
+     * Saves the certificates in the certificate management database.
+     */
+    private static class DAOCertificateStore implements CertificateStore {
+
+        @Override
+        public void addCertificates(List<Certificate> certificates) throws KeystoreException {
+            try {
+                CertificateDAO certificateDAO = CertificateManagementDAOFactory.getCertificateDAO();
+                CertificateManagementDAOFactory.beginTransaction();
+                certificateDAO.addCertificate(certificates);
+                CertificateManagementDAOFactory.commitTransaction();
+            } catch (CertificateManagementDAOException e) {
+                String errorMsg = "Error occurred when saving the generated certificate";
+                CertificateManagementDAOFactory.rollbackTransaction();
+                throw new KeystoreException(errorMsg, e);
+            } catch (TransactionManagementException e) {
+                String errorMsg = "Error occurred when saving the generated certificate";
+                throw new KeystoreException(errorMsg, e);
+            }
+        }
+
+    }
+
+}
@@ -40,7 +40,6 @@ import org.bouncycastle.cms.CMSAbsentContent;
 import org.bouncycastle.cms.CMSException;
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.cms.CMSSignedDataGenerator;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
@@ -50,14 +49,14 @@ import org.jscep.message.*;
 import org.jscep.transaction.FailInfo;
 import org.jscep.transaction.Nonce;
 import org.jscep.transaction.TransactionId;
-import org.wso2.carbon.certificate.mgt.core.dao.CertificateDAO;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateConfigurationManager;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateGenerationConfig;
 import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOException;
-import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOFactory;
 import org.wso2.carbon.certificate.mgt.core.dto.CAStatus;
 import org.wso2.carbon.certificate.mgt.core.dto.CertificateResponse;
 import org.wso2.carbon.certificate.mgt.core.dto.SCEPResponse;
+import org.wso2.carbon.certificate.mgt.core.exception.CertificateManagementException;
 import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
-import org.wso2.carbon.certificate.mgt.core.exception.TransactionManagementException;
 import org.wso2.carbon.certificate.mgt.core.util.CertificateManagementConstants;
 import org.wso2.carbon.certificate.mgt.core.util.CommonUtil;
 import org.wso2.carbon.certificate.mgt.core.util.Serializer;
@@ -76,11 +75,35 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 
 public class CertificateGenerator {
 
     private static final Log log = LogFactory.getLog(CertificateGenerator.class);
 
+    /* Bounds the certificates issued at the same time by the generators using the server configuration. */
+    private static volatile Semaphore sharedIssuancePermits;
+
+    private KeyStoreHolder keyStoreHolder;
+    private CertificateGenerationConfig generationConfig;
+    private CertificateBatchWriter batchWriter;
+    private Semaphore issuancePermits;
+
+    public CertificateGenerator() {
+    }
+
+    /**
+     * Creates a generator which uses the given KeyStore, configuration and certificate writer instead of those of the
+     * server, and bounds the certificates issued at the same time on its own.
+     */
+    CertificateGenerator(KeyStoreHolder keyStoreHolder, CertificateGenerationConfig generationConfig,
+                         CertificateBatchWriter batchWriter) {
+        this.keyStoreHolder = keyStoreHolder;
+        this.generationConfig = generationConfig;
+        this.batchWriter = batchWriter;
+        this.issuancePermits = createIssuancePermits(generationConfig);
+    }
+
     public static String getCommonName(X509Certificate requestCertificate) {
         String distinguishedName = requestCertificate.getSubjectDN().getName();
         if (distinguishedName != null && !distinguishedName.isEmpty()) {
@@ -174,12 +197,10 @@ public class CertificateGenerator {
         Date validityBeginDate = commonUtil.getValidityStartDate();
         Date validityEndDate = commonUtil.getValidityEndDate();
 
-        Security.addProvider(new BouncyCastleProvider());
-
         try {
             KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(
-                    CertificateManagementConstants.RSA, CertificateManagementConstants.PROVIDER);
-            keyPairGenerator.initialize(CertificateManagementConstants.RSA_KEY_LENGTH, new SecureRandom());
+                    CertificateManagementConstants.RSA, SigningContext.getProvider());
+            keyPairGenerator.initialize(this.getGenerationConfig().getKeyLength(), new SecureRandom());
             KeyPair pair = keyPairGenerator.generateKeyPair();
             X500Principal principal = new X500Principal(CertificateManagementConstants.DEFAULT_PRINCIPAL);
 
@@ -187,10 +208,10 @@ public class CertificateGenerator {
                     principal, CommonUtil.generateSerialNumber(), validityBeginDate, validityEndDate,
                     principal, pair.getPublic());
             ContentSigner contentSigner = new JcaContentSignerBuilder(CertificateManagementConstants.SHA256_RSA)
-                    .setProvider(CertificateManagementConstants.PROVIDER).build(
+                    .setProvider(SigningContext.getProvider()).build(
                             pair.getPrivate());
             X509Certificate certificate = new JcaX509CertificateConverter()
-                    .setProvider(CertificateManagementConstants.PROVIDER).getCertificate(
+                    .setProvider(SigningContext.getProvider()).getCertificate(
                             certificateBuilder.build(contentSigner));
 
             // cert.checkValidity();
@@ -209,9 +230,6 @@ public class CertificateGenerator {
         } catch (NoSuchAlgorithmException e) {
             String errorMsg = "No such algorithm found when generating certificate";
             throw new KeystoreException(errorMsg, e);
-        } catch (NoSuchProviderException e) {
-            String errorMsg = "No such provider found when generating certificate";
-            throw new KeystoreException(errorMsg, e);
         } catch (OperatorCreationException e) {
             String errorMsg = "Issue in operator creation when generating certificate";
             throw new KeystoreException(errorMsg, e);
@@ -241,44 +259,59 @@ public class CertificateGenerator {
             @SuppressWarnings("unchecked")
             Collection<X509CertificateHolder> reqCerts = reqStore.getMatches(null);
 
-            KeyStoreReader keyStoreReader = new KeyStoreReader();
-            PrivateKey privateKeyRA = keyStoreReader.getRAPrivateKey();
-            PrivateKey privateKeyCA = keyStoreReader.getCAPrivateKey();
-            X509Certificate certRA = (X509Certificate) keyStoreReader.getRACertificate();
-            X509Certificate certCA = (X509Certificate) keyStoreReader.getCACertificate();
+            SigningContext signingContext = this.getKeyStoreHolder().getSigningContext();
+            PrivateKey privateKeyRA = signingContext.getRAPrivateKey();
+            X509Certificate certRA = signingContext.getRACertificate();
 
             CertificateFactory certificateFactory = CertificateFactory.getInstance(CertificateManagementConstants.X_509);
             X509CertificateHolder holder = reqCerts.iterator().next();
             ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(holder.getEncoded());
             X509Certificate reqCert = (X509Certificate) certificateFactory.generateCertificate(byteArrayInputStream);
 
-            PkcsPkiEnvelopeDecoder envelopeDecoder = new PkcsPkiEnvelopeDecoder(certRA, privateKeyRA);
-            PkiMessageDecoder messageDecoder = new PkiMessageDecoder(reqCert, envelopeDecoder);
-            PkiMessage<?> pkiMessage = messageDecoder.decode(signedData);
-            Object msgData = pkiMessage.getMessageData();
-
-            Nonce senderNonce = Nonce.nextNonce();
-            TransactionId transId = pkiMessage.getTransactionId();
-            Nonce recipientNonce = pkiMessage.getSenderNonce();
-            CertRep certRep;
-
-            PKCS10CertificationRequest certRequest = (PKCS10CertificationRequest) msgData;
-            X509Certificate generatedCert = generateCertificateFromCSR(
-                    privateKeyCA, certRequest, certCA.getIssuerX500Principal().getName());
-
-            List<X509Certificate> issued = new ArrayList<X509Certificate>();
-            issued.add(generatedCert);
-
-            if (issued.size() == 0) {
-                certRep = new CertRep(transId, senderNonce, recipientNonce, FailInfo.badCertId);
-            } else {
-                CMSSignedData messageData = getMessageData(issued);
-                certRep = new CertRep(transId, senderNonce, recipientNonce, messageData);
+            X509Certificate generatedCert;
+            CMSSignedData cmsSignedData;
+            // Decrypting the request, signing the certificate and signing the response are bound by the permits,
+            // while saving the certificate, which mostly waits for the database, is not.
+            Semaphore permits = this.getIssuancePermits();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new KeystoreException("Interrupted while waiting to issue certificate", e);
             }
+            try {
+                PkcsPkiEnvelopeDecoder envelopeDecoder = new PkcsPkiEnvelopeDecoder(certRA, privateKeyRA);
+                PkiMessageDecoder messageDecoder = new PkiMessageDecoder(reqCert, envelopeDecoder);
+                PkiMessage<?> pkiMessage = messageDecoder.decode(signedData);
+                Object msgData = pkiMessage.getMessageData();
+
+                Nonce senderNonce = Nonce.nextNonce();
+                TransactionId transId = pkiMessage.getTransactionId();
+                Nonce recipientNonce = pkiMessage.getSenderNonce();
+                CertRep certRep;
+
+                PKCS10CertificationRequest certRequest = (PKCS10CertificationRequest) msgData;
+                generatedCert = this.buildCertificate(signingContext.getCAPrivateKey(), certRequest,
+                                                      signingContext.getIssuerName());
+
+                List<X509Certificate> issued = new ArrayList<X509Certificate>();
+                issued.add(generatedCert);
+
+                if (issued.size() == 0) {
+                    certRep = new CertRep(transId, senderNonce, recipientNonce, FailInfo.badCertId);
+                } else {
+                    CMSSignedData messageData = getMessageData(issued);
+                    certRep = new CertRep(transId, senderNonce, recipientNonce, messageData);
+                }
 
-            PkcsPkiEnvelopeEncoder envEncoder = new PkcsPkiEnvelopeEncoder(reqCert, CertificateManagementConstants.DES_EDE);
-            PkiMessageEncoder encoder = new PkiMessageEncoder(privateKeyRA, certRA, envEncoder);
-            CMSSignedData cmsSignedData = encoder.encode(certRep);
+                PkcsPkiEnvelopeEncoder envEncoder = new PkcsPkiEnvelopeEncoder(reqCert,
+                                                                               CertificateManagementConstants.DES_EDE);
+                PkiMessageEncoder encoder = new PkiMessageEncoder(privateKeyRA, certRA, envEncoder);
+                cmsSignedData = encoder.encode(certRep);
+            } finally {
+                permits.release();
+            }
+            this.saveCertificate(generatedCert);
 
             return cmsSignedData.getEncoded();
 
@@ -405,6 +438,13 @@ public class CertificateGenerator {
                                                       PKCS10CertificationRequest request,
                                                       String issueSubject)
             throws KeystoreException {
+        X509Certificate issuedCert = this.buildCertificate(privateKey, request, issueSubject);
+        this.saveCertificate(issuedCert);
+        return issuedCert;
+    }
+
+    private X509Certificate buildCertificate(PrivateKey privateKey, PKCS10CertificationRequest request,
+                                             String issueSubject) throws KeystoreException {
 
         CommonUtil commonUtil = new CommonUtil();
         Date validityBeginDate = commonUtil.getValidityStartDate();
@@ -470,17 +510,10 @@ public class CertificateGenerator {
             }
 
             sigGen = new JcaContentSignerBuilder(CertificateManagementConstants.SHA256_RSA)
-                    .setProvider(CertificateManagementConstants.PROVIDER).build(privateKey);
+                    .setProvider(SigningContext.getProvider()).build(privateKey);
             issuedCert = new JcaX509CertificateConverter().setProvider(
-                    CertificateManagementConstants.PROVIDER).getCertificate(
+                    SigningContext.getProvider()).getCertificate(
                     certificateBuilder.build(sigGen));
-            org.wso2.carbon.certificate.mgt.core.bean.Certificate certificate =
-                    new org.wso2.carbon.certificate.mgt.core.bean.Certificate();
-            List<org.wso2.carbon.certificate.mgt.core.bean.Certificate> certificates = new ArrayList<>();
-            certificate.setTenantId(PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
-            certificate.setCertificate(issuedCert);
-            certificates.add(certificate);
-            saveCertInKeyStore(certificates);
         } catch (CertIOException e) {
             String errorMsg = "Certificate Input output issue occurred when generating generateCertificateFromCSR";
             throw new KeystoreException(errorMsg, e);
@@ -630,19 +663,17 @@ public class CertificateGenerator {
             return;
         }
 
-        try {
-            CertificateDAO certificateDAO = CertificateManagementDAOFactory.getCertificateDAO();
-            CertificateManagementDAOFactory.beginTransaction();
-            certificateDAO.addCertificate(certificate);
-            CertificateManagementDAOFactory.commitTransaction();
-        } catch (CertificateManagementDAOException e) {
-            String errorMsg = "Error occurred when saving the generated certificate";
-            CertificateManagementDAOFactory.rollbackTransaction();
-            throw new KeystoreException(errorMsg, e);
-        } catch (TransactionManagementException e) {
-            String errorMsg = "Error occurred when saving the generated certificate";
-            throw new KeystoreException(errorMsg, e);
-        }
+        this.getBatchWriter().save(certificate);
+    }
+
+    private void saveCertificate(X509Certificate issuedCert) throws KeystoreException {
+        org.wso2.carbon.certificate.mgt.core.bean.Certificate certificate =
+                new org.wso2.carbon.certificate.mgt.core.bean.Certificate();
+        List<org.wso2.carbon.certificate.mgt.core.bean.Certificate> certificates = new ArrayList<>();
+        certificate.setTenantId(PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
+        certificate.setCertificate(issuedCert);
+        certificates.add(certificate);
+        saveCertInKeyStore(certificates);
     }
 
     public String extractChallengeToken(X509Certificate certificate) {
@@ -692,16 +723,56 @@ public class CertificateGenerator {
             throws KeystoreException {
         byte[] byteArrayBst = DatatypeConverter.parseBase64Binary(binarySecurityToken);
         PKCS10CertificationRequest certificationRequest;
-        KeyStoreReader keyStoreReader = new KeyStoreReader();
-        PrivateKey privateKeyCA = keyStoreReader.getCAPrivateKey();
-        X509Certificate certCA = (X509Certificate) keyStoreReader.getCACertificate();
+        SigningContext signingContext = this.getKeyStoreHolder().getSigningContext();
 
         try {
             certificationRequest = new PKCS10CertificationRequest(byteArrayBst);
         } catch (IOException e) {
             throw new KeystoreException("CSR cannot be recovered.", e);
         }
-        return generateCertificateFromCSR(privateKeyCA, certificationRequest,
-                certCA.getIssuerX500Principal().getName());
+        return generateCertificateFromCSR(signingContext.getCAPrivateKey(), certificationRequest,
+                signingContext.getIssuerName());
+    }
+
+    private KeyStoreHolder getKeyStoreHolder() throws KeystoreException {
+        return (keyStoreHolder != null) ? keyStoreHolder : KeyStoreHolder.getInstance();
+    }
+
+    private CertificateGenerationConfig getGenerationConfig() throws KeystoreException {
+        if (generationConfig != null) {
+            return generationConfig;
+        }
+        try {
+            return CertificateConfigurationManager.getInstance().getCertificateGenerationConfig();
+        } catch (CertificateManagementException e) {
+            String errorMsg = "Unable to find certificate generation configuration in certificate-mgt.config file.";
+            throw new KeystoreException(errorMsg, e);
+        }
+    }
+
+    private CertificateBatchWriter getBatchWriter() throws KeystoreException {
+        return (batchWriter != null) ? batchWriter : CertificateBatchWriter.getInstance();
+    }
+
+    private Semaphore getIssuancePermits() throws KeystoreException {
+        if (issuancePermits != null) {
+            return issuancePermits;
+        }
+        if (sharedIssuancePermits == null) {
+            synchronized (CertificateGenerator.class) {
+                if (sharedIssuancePermits == null) {
+                    sharedIssuancePermits = createIssuancePermits(this.getGenerationConfig());
+                }
+            }
+        }
+        return sharedIssuancePermits;
+    }
+
+    private static Semaphore createIssuancePermits(CertificateGenerationConfig generationConfig) {
+        int permits = generationConfig.getMaxConcurrentIssuance();
+        if (permits <= 0) {
+            permits = Runtime.getRuntime().availableProcessors();
+        }
+        return new Semaphore(permits, true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateConfigurationManager;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateKeystoreConfig;
+import org.wso2.carbon.certificate.mgt.core.exception.CertificateManagementException;
+import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+
+/**
+ * Keeps the certificate KeyStore in memory along with its decoded CA and RA certificates and private keys, so that
+ * they are not read from the disk and decoded on every use. The KeyStore file is checked for changes at most once
+ * per check interval, by its last modified time and length, and is loaded again only if its checksum differs from
+ * that of the loaded content. KeyStores handed out are copies, and an update is applied to a copy of the current
+ * content which then replaces the file and the in-memory snapshot as a whole, so that readers never see a KeyStore
+ * being modified.
+ */
+class KeyStoreHolder {
+
+    private static final Log log = LogFactory.getLog(KeyStoreHolder.class);
+
+    private static final long CHANGE_CHECK_INTERVAL = 1000;
+    private static final String CHECKSUM_ALGORITHM = "SHA-256";
+    private static volatile KeyStoreHolder instance;
+
+    private final CertificateKeystoreConfig config;
+    private final long changeCheckInterval;
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+    private volatile long lastCheckTime;
+
+    /**
+     * @param config              configuration of the KeyStore.
+     * @param changeCheckInterval milliseconds between checks of the KeyStore file for changes, 0 to check on every
+     *                            use.
+     */
+    KeyStoreHolder(CertificateKeystoreConfig config, long changeCheckInterval) {
+        this.config = config;
+        this.changeCheckInterval = changeCheckInterval;
+    }
+
+    static KeyStoreHolder getInstance() throws KeystoreException {
+        if (instance == null) {
+            synchronized (KeyStoreHolder.class) {
+                if (instance == null) {
+                    try {
+                        instance = new KeyStoreHolder(CertificateConfigurationManager.getInstance().
+                                getCertificateKeyStoreConfig(), CHANGE_CHECK_INTERVAL);
+                    } catch (CertificateManagementException e) {
+                        String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
+                        throw new KeystoreException(errorMsg, e);
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return a copy of the KeyStore, which may be modified without affecting the other users of it. Changes to the
+     * KeyStore are made with updateKeyStore instead, so that they are not lost to concurrent changes.
+     */
+    KeyStore getKeyStore() throws KeystoreException {
+        return this.loadKeyStore(this.getSnapshot().content);
+    }
+
+    Certificate getCACertificate() throws KeystoreException {
+        return this.getSnapshot().caCertificate.get();
+    }
+
+    PrivateKey getCAPrivateKey() throws KeystoreException {
+        return this.getSnapshot().caPrivateKey.get();
+    }
+
+    Certificate getRACertificate() throws KeystoreException {
+        return this.getSnapshot().raCertificate.get();
+    }
+
+    PrivateKey getRAPrivateKey() throws KeystoreException {
+        return this.getSnapshot().raPrivateKey.get();
+    }
+
+    /**
+     * @return the context of the CA and RA certificates and private keys, which is the same until the KeyStore
+     * changes.
+     */
+    SigningContext getSigningContext() throws KeystoreException {
+        return this.getSnapshot().signingContext.get();
+    }
+
+    /**
+     * Applies the update to a copy of the current KeyStore and stores it. Updates are applied one after the other
+     * while holding the lock of the KeyStore, so that each of them applies to the KeyStore stored by the previous
+     * one, instead of concurrent updates storing their own copies over each other.
+     */
+    void updateKeyStore(KeyStoreUpdate update) throws KeystoreException {
+        synchronized (lock) {
+            // The file is checked for changes regardless of the check interval, so that they are not overwritten.
+            KeyStore keyStore = this.loadKeyStore(this.checkForChanges().content);
+            update.update(keyStore);
+            this.storeKeyStore(keyStore);
+        }
+    }
+
+    /**
+     * Writes the KeyStore to a temporary file which then replaces the KeyStore file, and makes it the in-memory
+     * snapshot.
+     */
+    private void storeKeyStore(KeyStore keyStore) throws KeystoreException {
+        synchronized (lock) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try {
+                keyStore.store(os, config.getCertificateKeystorePassword().toCharArray());
+            } catch (KeyStoreException e) {
+                String errorMsg = "KeyStore issue occurred when saving KeyStore";
+                throw new KeystoreException(errorMsg, e);
+            } catch (NoSuchAlgorithmException e) {
+                String errorMsg = "Algorithm not found when saving KeyStore";
+                throw new KeystoreException(errorMsg, e);
+            } catch (CertificateException e) {
+                String errorMsg = "CertificateException when saving KeyStore";
+                throw new KeystoreException(errorMsg, e);
+            } catch (IOException e) {
+                String errorMsg = "Input output issue occurred when saving KeyStore";
+                throw new KeystoreException(errorMsg, e);
+            }
+            byte[] content = os.toByteArray();
+
+            File file = new File(config.getCertificateKeystoreLocation());
+            Path target = file.toPath();
+            Path temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp").toPath();
+            try {
+                Files.write(temp, content);
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                String errorMsg = "Input output issue occurred when saving KeyStore";
+                throw new KeystoreException(errorMsg, e);
+            }
+            snapshot = new Snapshot(content, file.lastModified(), file.length());
+            lastCheckTime = System.currentTimeMillis();
+        }
+    }
+
+    private Snapshot getSnapshot() throws KeystoreException {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - lastCheckTime < changeCheckInterval) {
+            return current;
+        }
+        synchronized (lock) {
+            current = snapshot;
+            if (current != null && System.currentTimeMillis() - lastCheckTime < changeCheckInterval) {
+                return current;
+            }
+            return this.checkForChanges();
+        }
+    }
+
+    /**
+     * Reloads the snapshot if the KeyStore file has changed. The lock must be held by the caller.
+     */
+    private Snapshot checkForChanges() throws KeystoreException {
+        Snapshot current = snapshot;
+        File file = new File(config.getCertificateKeystoreLocation());
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (current == null || lastModified != current.lastModified || length != current.length) {
+            byte[] content = this.readKeyStoreFile(file);
+            if (current == null) {
+                current = new Snapshot(content, lastModified, length);
+            } else if (!Arrays.equals(checksum(content), current.checksum)) {
+                current = new Snapshot(content, lastModified, length);
+                log.info("Reloaded the certificate KeyStore as '" + file.getPath() + "' has changed");
+            } else {
+                current = new Snapshot(current, lastModified, length);
+            }
+            snapshot = current;
+        }
+        lastCheckTime = System.currentTimeMillis();
+        return current;
+    }
+
+    private byte[] readKeyStoreFile(File file) throws KeystoreException {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (NoSuchFileException e) {
+            String errorMsg = "KeyStore file not found when loading KeyStore";
+            throw new KeystoreException(errorMsg, e);
+        } catch (IOException e) {
+            String errorMsg = "Input output issue occurred when loading KeyStore";
+            throw new KeystoreException(errorMsg, e);
+        }
+    }
+
+    private KeyStore loadKeyStore(byte[] content) throws KeystoreException {
+        try {
+            KeyStore keyStore = KeyStore.getInstance(config.getCertificateKeystoreType());
+            keyStore.load(new ByteArrayInputStream(content), config.getCertificateKeystorePassword().toCharArray());
+            return keyStore;
+        } catch (KeyStoreException e) {
+            String errorMsg = "KeyStore issue occurred when loading KeyStore";
+            throw new KeystoreException(errorMsg, e);
+        } catch (NoSuchAlgorithmException e) {
+            String errorMsg = "Algorithm not found when loading KeyStore";
+            throw new KeystoreException(errorMsg, e);
+        } catch (CertificateException e) {
+            String errorMsg = "CertificateException when loading KeyStore";
+            throw new KeystoreException(errorMsg, e);
+        } catch (IOException e) {
+            String errorMsg = "Input output issue occurred when loading KeyStore";
+            throw new KeystoreException(errorMsg, e);
+        }
+    }
+
+    private static byte[] checksum(byte[] content) throws KeystoreException {
+        try {
+            return MessageDigest.getInstance(CHECKSUM_ALGORITHM).digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            String errorMsg = "Algorithm not found when computing KeyStore checksum";
+            throw new KeystoreException(errorMsg, e);
+        }
+    }
+
+    private static Entry<Certificate> getCertificate(KeyStore keyStore, String alias, String name) {
+        try {
+            Certificate certificate = keyStore.getCertificate(alias);
+            if (certificate == null) {
+                return new Entry<>(null, new KeystoreException(name + " certificate not found in KeyStore"));
+            }
+            return new Entry<>(certificate, null);
+        } catch (KeyStoreException e) {
+            String errorMsg = "KeyStore issue occurred when retrieving " + name + " certificate";
+            return new Entry<>(null, new KeystoreException(errorMsg, e));
+        }
+    }
+
+    private static Entry<PrivateKey> getPrivateKey(KeyStore keyStore, String alias, String password, String name) {
+        try {
+            PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, password.toCharArray());
+            if (privateKey == null) {
+                return new Entry<>(null, new KeystoreException(name + " private key not found in KeyStore"));
+            }
+            return new Entry<>(privateKey, null);
+        } catch (UnrecoverableKeyException e) {
+            String errorMsg = "Key is unrecoverable when retrieving " + name + " private key";
+            return new Entry<>(null, new KeystoreException(errorMsg, e));
+        } catch (KeyStoreException e) {
+            String errorMsg = "KeyStore issue occurred when retrieving " + name + " private key";
+            return new Entry<>(null, new KeystoreException(errorMsg, e));
+        } catch (NoSuchAlgorithmException e) {
+            String errorMsg = "Algorithm not found when retrieving " + name + " private key";
+            return new Entry<>(null, new KeystoreException(errorMsg, e));
+        }
+    }
+
+    private static Entry<SigningContext> getSigningContext(Entry<Certificate> caCertificate,
+                                                           Entry<PrivateKey> caPrivateKey,
+                                                           Entry<Certificate> raCertificate,
+                                                           Entry<PrivateKey> raPrivateKey) {
+        try {
+            return new Entry<>(new SigningContext((X509Certificate) caCertificate.get(), caPrivateKey.get(),
+                                                  (X509Certificate) raCertificate.get(), raPrivateKey.get()), null);
+        } catch (KeystoreException e) {
+            return new Entry<>(null, e);
+        } catch (ClassCastException e) {
+            String errorMsg = "CA or RA certificate in KeyStore is not an X.509 certificate";
+            return new Entry<>(null, new KeystoreException(errorMsg, e));
+        }
+    }
+
+    /**
+     * A change made to the KeyStore by updateKeyStore.
+     */
+    interface KeyStoreUpdate {
+
+        /**
+         * @param keyStore a copy of the current KeyStore, which is stored once updated.
+         */
+        void update(KeyStore keyStore) throws KeystoreException;
+
+    }
+
+    /**
+     * The content of the KeyStore file along with its decoded entries, which is never modified once created.
+     */
+    private class Snapshot {
+
+        private final byte[] content;
+        private final byte[] checksum;
+        private final long lastModified;
+        private final long length;
+        private final Entry<Certificate> caCertificate;
+        private final Entry<PrivateKey> caPrivateKey;
+        private final Entry<Certificate> raCertificate;
+        private final Entry<PrivateKey> raPrivateKey;
+        private final Entry<SigningContext> signingContext;
+
+        Snapshot(byte[] content, long lastModified, long length) throws KeystoreException {
+            KeyStore keyStore = loadKeyStore(content);
+            this.content = content;
+            this.checksum = checksum(content);
+            this.lastModified = lastModified;
+            this.length = length;
+            this.caCertificate = getCertificate(keyStore, config.getCACertAlias(), "CA");
+            this.caPrivateKey = getPrivateKey(keyStore, config.getCACertAlias(), config.getCAPrivateKeyPassword(),
+                                              "CA");
+            this.raCertificate = getCertificate(keyStore, config.getRACertAlias(), "RA");
+            this.raPrivateKey = getPrivateKey(keyStore, config.getRACertAlias(), config.getRAPrivateKeyPassword(),
+                                              "RA");
+            this.signingContext = getSigningContext(caCertificate, caPrivateKey, raCertificate, raPrivateKey);
+        }
+
+        /**
+         * Creates a snapshot of the same content for a file which has been modified without changing it.
+         */
+        Snapshot(Snapshot snapshot, long lastModified, long length) {
+            this.content = snapshot.content;
+            this.checksum = snapshot.checksum;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.caCertificate = snapshot.caCertificate;
+            this.caPrivateKey = snapshot.caPrivateKey;
+            this.raCertificate = snapshot.raCertificate;
+            this.raPrivateKey = snapshot.raPrivateKey;
+            this.signingContext = snapshot.signingContext;
+        }
+
+    }
+
+    /**
+     * A decoded KeyStore entry, or the error which occurred while decoding it, thrown on every use of the entry.
+     */
+    private static class Entry<T> {
+
+        private final T value;
+        private final KeystoreException error;
+
+        Entry(T value, KeystoreException error) {
+            this.value = value;
+            this.error = error;
+        }
+
+        T get() throws KeystoreException {
+            if (error != null) {
+                throw error;
+            }
+            return value;
+        }
+
+    }
+
+}
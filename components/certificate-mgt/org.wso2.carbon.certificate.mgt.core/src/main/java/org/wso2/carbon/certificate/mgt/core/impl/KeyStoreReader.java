@@ -19,24 +19,17 @@ package org.wso2.carbon.certificate.mgt.core.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.certificate.mgt.core.config.CertificateConfigurationManager;
-import org.wso2.carbon.certificate.mgt.core.config.CertificateKeystoreConfig;
 import org.wso2.carbon.certificate.mgt.core.dao.CertificateDAO;
 import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOException;
 import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOFactory;
 import org.wso2.carbon.certificate.mgt.core.dto.CertificateResponse;
-import org.wso2.carbon.certificate.mgt.core.exception.CertificateManagementException;
 import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
 import org.wso2.carbon.certificate.mgt.core.util.Serializer;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.*;
+import java.security.KeyStore;
+import java.security.PrivateKey;
 import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.sql.SQLException;
 
@@ -50,175 +43,28 @@ public class KeyStoreReader {
         this.certDao = CertificateManagementDAOFactory.getCertificateDAO();
     }
 
-    private KeyStore loadKeyStore(
-            String configEntryKeyStoreType, String configEntryKeyStorePath,
-            String configEntryKeyStorePassword) throws KeystoreException {
-        InputStream is = null;
-        KeyStore keystore;
-        try {
-            keystore = KeyStore.getInstance(configEntryKeyStoreType);
-            is = new FileInputStream(configEntryKeyStorePath);
-            keystore.load(is, configEntryKeyStorePassword.toCharArray());
-        } catch (KeyStoreException e) {
-            String errorMsg = "KeyStore issue occurred when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } catch (FileNotFoundException e) {
-            String errorMsg = "KeyStore file not found when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } catch (NoSuchAlgorithmException e) {
-            String errorMsg = "Algorithm not found when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } catch (CertificateException e) {
-            String errorMsg = "CertificateException when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } catch (IOException e) {
-            String errorMsg = "Input output issue occurred when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } finally {
-            try {
-                if (is != null) {
-                    is.close();
-                }
-            } catch (IOException e) {
-                log.error("Error closing KeyStore input stream", e);
-            }
-        }
-
-        return keystore;
-    }
-
-    private synchronized void saveKeyStore(KeyStore keyStore, String configEntryKeyStorePath,
-                                           String configEntryKeyStorePassword) throws KeystoreException {
-        FileOutputStream os = null;
-        try {
-            os = new FileOutputStream(configEntryKeyStorePath);
-            keyStore.store(os, configEntryKeyStorePassword.toCharArray());
-        } catch (KeyStoreException e) {
-            String errorMsg = "KeyStore issue occurred when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } catch (FileNotFoundException e) {
-            String errorMsg = "KeyStore file not found when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } catch (NoSuchAlgorithmException e) {
-            String errorMsg = "Algorithm not found when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } catch (CertificateException e) {
-            String errorMsg = "CertificateException when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } catch (IOException e) {
-            String errorMsg = "Input output issue occurred when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } finally {
-            try {
-                if (os != null) {
-                    os.close();
-                }
-            } catch (IOException e) {
-                log.error("Error closing KeyStore output stream", e);
-            }
-        }
-    }
-
-
     KeyStore loadCertificateKeyStore() throws KeystoreException {
-        KeyStore keyStore = null;
-        try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
-            keyStore = loadKeyStore(certificateKeystoreConfig.getCertificateKeystoreType(),
-                                    certificateKeystoreConfig.getCertificateKeystoreLocation(),
-                                    certificateKeystoreConfig.getCertificateKeystorePassword());
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
-        }
-        return keyStore;
+        return KeyStoreHolder.getInstance().getKeyStore();
     }
 
-    void saveCertificateKeyStore(KeyStore keyStore) throws KeystoreException {
-        try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
-            saveKeyStore(keyStore, certificateKeystoreConfig.getCertificateKeystoreLocation(),
-                         certificateKeystoreConfig.getCertificateKeystorePassword());
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
-        }
+    /**
+     * Applies the update to the current certificate KeyStore and saves it. The KeyStore is updated this way, rather
+     * than by saving a KeyStore loaded earlier, so that entries saved in between by others are not lost.
+     */
+    void updateCertificateKeyStore(KeyStoreHolder.KeyStoreUpdate update) throws KeystoreException {
+        KeyStoreHolder.getInstance().updateKeyStore(update);
     }
 
     public Certificate getCACertificate() throws KeystoreException {
-        KeyStore keystore = loadCertificateKeyStore();
-        Certificate caCertificate;
-        try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
-            caCertificate = keystore.getCertificate(certificateKeystoreConfig.getCACertAlias());
-        } catch (KeyStoreException e) {
-            String errorMsg = "KeyStore issue occurred when loading KeyStore";
-            throw new KeystoreException(errorMsg, e);
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
-        }
-
-        if (caCertificate == null) {
-            throw new KeystoreException("CA certificate not found in KeyStore");
-        }
-
-        return caCertificate;
+        return KeyStoreHolder.getInstance().getCACertificate();
     }
 
     PrivateKey getCAPrivateKey() throws KeystoreException {
-        KeyStore keyStore = loadCertificateKeyStore();
-        PrivateKey caPrivateKey;
-        try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
-            caPrivateKey = (PrivateKey) keyStore.getKey(certificateKeystoreConfig.getCACertAlias(), certificateKeystoreConfig
-                    .
-                            getCAPrivateKeyPassword().toCharArray());
-        } catch (UnrecoverableKeyException e) {
-            String errorMsg = "Key is unrecoverable when retrieving CA private key";
-            throw new KeystoreException(errorMsg, e);
-        } catch (KeyStoreException e) {
-            String errorMsg = "KeyStore issue occurred when retrieving CA private key";
-            throw new KeystoreException(errorMsg, e);
-        } catch (NoSuchAlgorithmException e) {
-            String errorMsg = "Algorithm not found when retrieving CA private key";
-            throw new KeystoreException(errorMsg, e);
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
-        }
-
-        if (caPrivateKey == null) {
-            throw new KeystoreException("CA private key not found in KeyStore");
-        }
-
-        return caPrivateKey;
+        return KeyStoreHolder.getInstance().getCAPrivateKey();
     }
 
     public Certificate getRACertificate() throws KeystoreException {
-        KeyStore keystore = loadCertificateKeyStore();
-        Certificate raCertificate;
-        try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
-            raCertificate = keystore.getCertificate(certificateKeystoreConfig.getRACertAlias());
-        } catch (KeyStoreException e) {
-            String errorMsg = "KeyStore issue occurred when retrieving RA private key";
-            throw new KeystoreException(errorMsg, e);
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
-        }
-
-        if (raCertificate == null) {
-            throw new KeystoreException("RA certificate not found in KeyStore");
-        }
-
-        return raCertificate;
+        return KeyStoreHolder.getInstance().getRACertificate();
     }
 
     public Certificate getCertificateByAlias(String alias) throws KeystoreException {
@@ -245,32 +91,7 @@ public class KeyStoreReader {
     }
 
     public PrivateKey getRAPrivateKey() throws KeystoreException {
-        KeyStore keystore = loadCertificateKeyStore();
-        PrivateKey raPrivateKey;
-        try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
-            raPrivateKey = (PrivateKey) keystore.getKey(certificateKeystoreConfig.getRACertAlias(),
-                                                        certificateKeystoreConfig.getRAPrivateKeyPassword().toCharArray());
-        } catch (UnrecoverableKeyException e) {
-            String errorMsg = "Key is unrecoverable when retrieving RA private key";
-            throw new KeystoreException(errorMsg, e);
-        } catch (KeyStoreException e) {
-            String errorMsg = "KeyStore issue occurred when retrieving RA private key";
-            throw new KeystoreException(errorMsg, e);
-        } catch (NoSuchAlgorithmException e) {
-            String errorMsg = "Algorithm not found when retrieving RA private key";
-            throw new KeystoreException(errorMsg, e);
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
-        }
-
-        if (raPrivateKey == null) {
-            throw new KeystoreException("RA private key not found in KeyStore");
-        }
-
-        return raPrivateKey;
+        return KeyStoreHolder.getInstance().getRAPrivateKey();
     }
 
     public CertificateResponse getCertificateBySerial(String serialNumber) throws KeystoreException {
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.impl;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+
+/**
+ * The CA and RA certificates and private keys used to issue certificates and to sign and decrypt SCEP messages,
+ * along with the provider they are used with. A context is created once for each KeyStore loaded, so that issuing a
+ * certificate neither looks up the keys nor creates a provider.
+ */
+class SigningContext {
+
+    private static final Provider provider = new BouncyCastleProvider();
+
+    static {
+        // Also registered, as it was when certificates were generated, for the code looking it up by its name.
+        Security.addProvider(provider);
+    }
+
+    private final X509Certificate caCertificate;
+    private final PrivateKey caPrivateKey;
+    private final X509Certificate raCertificate;
+    private final PrivateKey raPrivateKey;
+    private final String issuerName;
+
+    SigningContext(X509Certificate caCertificate, PrivateKey caPrivateKey, X509Certificate raCertificate,
+                   PrivateKey raPrivateKey) {
+        this.caCertificate = caCertificate;
+        this.caPrivateKey = caPrivateKey;
+        this.raCertificate = raCertificate;
+        this.raPrivateKey = raPrivateKey;
+        this.issuerName = caCertificate.getIssuerX500Principal().getName();
+    }
+
+    static Provider getProvider() {
+        return provider;
+    }
+
+    X509Certificate getCACertificate() {
+        return caCertificate;
+    }
+
+    PrivateKey getCAPrivateKey() {
+        return caPrivateKey;
+    }
+
+    X509Certificate getRACertificate() {
+        return raCertificate;
+    }
+
+    PrivateKey getRAPrivateKey() {
+        return raPrivateKey;
+    }
+
+    /**
+     * @return name of the issuer of the certificates issued.
+     */
+    String getIssuerName() {
+        return issuerName;
+    }
+
+}
@@ -23,6 +23,8 @@ import java.util.Date;
 
 public class CommonUtil {
 
+    private static long lastSerialNumber;
+
     public Date getValidityStartDate() {
         Date targetDate = new Date();
         Calendar calendar = Calendar.getInstance();
@@ -39,8 +41,13 @@ public class CommonUtil {
         return calendar.getTime();
     }
 
+    /**
+     * @return the current time in milliseconds, or the serial number last generated incremented by one if it is not
+     * before it, so that certificates generated within the same millisecond do not have the same serial number.
+     */
     public static synchronized BigInteger generateSerialNumber() {
-        return BigInteger.valueOf(System.currentTimeMillis());
+        lastSerialNumber = Math.max(System.currentTimeMillis(), lastSerialNumber + 1);
+        return BigInteger.valueOf(lastSerialNumber);
     }
 
 }
@@ -0,0 +1,159 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.certificate.mgt.core.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.certificate.mgt.core.bean.Certificate;
+import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class CertificateBatchWriterTest {
+
+    private static final int THREADS = 16;
+    private static final int SAVES = 400;
+    private static final int BATCH_SIZE = 50;
+    private static final long STORE_LATENCY = 5;
+
+    @Test
+    public void testConcurrentSavesAreBatched() throws Exception {
+        RecordingStore store = new RecordingStore(null);
+        CertificateBatchWriter writer = new CertificateBatchWriter(BATCH_SIZE, store);
+        List<Future<Certificate>> futures = this.saveConcurrently(writer, null);
+
+        Set<Certificate> saved = new HashSet<>(store.getCertificates());
+        for (Future<Certificate> future : futures) {
+            Assert.assertTrue(saved.contains(future.get()), "Certificate was not saved before returning");
+        }
+        Assert.assertEquals(saved.size(), SAVES);
+        Assert.assertTrue(store.getBatches() < SAVES, "Concurrently saved certificates were not batched");
+        Assert.assertTrue(store.getLargestBatch() <= BATCH_SIZE, "Batch was larger than the batch size");
+    }
+
+    @Test
+    public void testFailedSaveDoesNotFailBatch() throws Exception {
+        Certificate failing = new Certificate();
+        RecordingStore store = new RecordingStore(failing);
+        CertificateBatchWriter writer = new CertificateBatchWriter(BATCH_SIZE, store);
+        List<Future<Certificate>> futures = this.saveConcurrently(writer, failing);
+
+        int failures = 0;
+        for (Future<Certificate> future : futures) {
+            try {
+                Assert.assertNotSame(future.get(), failing, "Failed certificate was saved");
+            } catch (ExecutionException e) {
+                Assert.assertEquals(e.getCause().getMessage(), "Store failure");
+                failures++;
+            }
+        }
+        Assert.assertEquals(failures, 1, "Certificates saved along with the failed one were not saved");
+        Assert.assertEquals(store.getCertificates().size(), SAVES - 1);
+    }
+
+    @Test
+    public void testSaveWithoutContention() throws Exception {
+        RecordingStore store = new RecordingStore(null);
+        CertificateBatchWriter writer = new CertificateBatchWriter(BATCH_SIZE, store);
+        for (int i = 0; i < 10; i++) {
+            writer.save(Collections.singletonList(new Certificate()));
+        }
+        Assert.assertEquals(store.getBatches(), 10);
+        Assert.assertEquals(store.getCertificates().size(), 10);
+    }
+
+    /**
+     * Saves the certificates from several threads, one of which is the given certificate if it is not null.
+     */
+    private List<Future<Certificate>> saveConcurrently(final CertificateBatchWriter writer, Certificate failing)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Certificate>> futures = new ArrayList<>();
+        for (int i = 0; i < SAVES; i++) {
+            final Certificate certificate = (failing != null && i == SAVES / 2) ? failing : new Certificate();
+            futures.add(executor.submit(new Callable<Certificate>() {
+                @Override
+                public Certificate call() throws Exception {
+                    writer.save(Collections.singletonList(certificate));
+                    return certificate;
+                }
+            }));
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Certificates were not saved in time");
+        return futures;
+    }
+
+    /**
+     * Records the certificates saved in it, taking a while for each batch, and fails the batches containing the given
+     * certificate.
+     */
+    private static class RecordingStore implements CertificateBatchWriter.CertificateStore {
+
+        private final Certificate failing;
+        private final List<Certificate> certificates = new ArrayList<>();
+        private int batches;
+        private int largestBatch;
+
+        RecordingStore(Certificate failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public void addCertificates(List<Certificate> batch) throws KeystoreException {
+            try {
+                Thread.sleep(STORE_LATENCY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                if (batch.contains(failing)) {
+                    throw new KeystoreException("Store failure");
+                }
+                certificates.addAll(batch);
+                batches++;
+                largestBatch = Math.max(largestBatch, batch.size());
+            }
+        }
+
+        synchronized List<Certificate> getCertificates() {
+            return new ArrayList<>(certificates);
+        }
+
+        synchronized int getBatches() {
+            return batches;
+        }
+
+        synchronized int getLargestBatch() {
+            return largestBatch;
+        }
+
+    }
+
+}
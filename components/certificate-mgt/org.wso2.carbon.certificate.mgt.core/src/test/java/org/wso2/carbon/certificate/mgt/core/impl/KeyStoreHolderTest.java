@@ -0,0 +1,270 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.certificate.mgt.core.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateKeystoreConfig;
+import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class KeyStoreHolderTest {
+
+    private static final Log log = LogFactory.getLog(KeyStoreHolderTest.class);
+    private static final String KEYSTORE_PATH = "src/test/resources/wso2certs.jks";
+    private static final String KEYSTORE_TYPE = "JKS";
+    private static final String KEYSTORE_PASSWORD = "wso2carbon";
+    private static final String CA_ALIAS = "cacert";
+    private static final String RA_ALIAS = "racert";
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    private static final int BENCHMARK_ROUNDS = 200;
+    private static final int UPDATES = 40;
+    private static final int UPDATE_THREADS = 8;
+
+    private File keyStoreFile;
+    private CertificateKeystoreConfig config;
+
+    @BeforeMethod
+    public void init() throws Exception {
+        keyStoreFile = File.createTempFile("wso2certs", ".jks");
+        FileUtils.copyFile(new File(KEYSTORE_PATH), keyStoreFile);
+
+        config = new CertificateKeystoreConfig();
+        config.setCertificateKeystoreType(KEYSTORE_TYPE);
+        config.setCertificateKeystoreLocation(keyStoreFile.getPath());
+        config.setCertificateKeystorePassword(KEYSTORE_PASSWORD);
+        config.setCACertAlias(CA_ALIAS);
+        config.setCAPrivateKeyPassword(CA_ALIAS);
+        config.setRACertAlias(RA_ALIAS);
+        config.setRAPrivateKeyPassword(RA_ALIAS);
+    }
+
+    @AfterMethod
+    public void cleanup() {
+        FileUtils.deleteQuietly(keyStoreFile);
+    }
+
+    @Test
+    public void testEntries() throws Exception {
+        KeyStoreHolder holder = new KeyStoreHolder(config, 0);
+        KeyStore keyStore = this.loadKeyStore();
+        Assert.assertEquals(holder.getCACertificate(), keyStore.getCertificate(CA_ALIAS));
+        Assert.assertEquals(holder.getRACertificate(), keyStore.getCertificate(RA_ALIAS));
+        Assert.assertEquals(holder.getCAPrivateKey(), keyStore.getKey(CA_ALIAS, CA_ALIAS.toCharArray()));
+        Assert.assertEquals(holder.getRAPrivateKey(), keyStore.getKey(RA_ALIAS, RA_ALIAS.toCharArray()));
+        Assert.assertSame(holder.getCACertificate(), holder.getCACertificate(), "CA certificate was decoded again");
+    }
+
+    @Test
+    public void testMissingEntry() throws Exception {
+        config.setRACertAlias("missing");
+        KeyStoreHolder holder = new KeyStoreHolder(config, 0);
+        Assert.assertNotNull(holder.getCACertificate());
+        try {
+            holder.getRACertificate();
+            Assert.fail("Missing RA certificate was found");
+        } catch (KeystoreException e) {
+            Assert.assertEquals(e.getMessage(), "RA certificate not found in KeyStore");
+        }
+    }
+
+    @Test
+    public void testReloadOnChange() throws Exception {
+        KeyStoreHolder holder = new KeyStoreHolder(config, 0);
+        Certificate raCertificate = holder.getRACertificate();
+        Assert.assertNotEquals(holder.getCACertificate(), raCertificate);
+
+        KeyStore keyStore = this.loadKeyStore();
+        Key raKey = keyStore.getKey(RA_ALIAS, RA_ALIAS.toCharArray());
+        keyStore.setKeyEntry(CA_ALIAS, raKey, CA_ALIAS.toCharArray(), new Certificate[]{raCertificate});
+        this.writeKeyStore(keyStore, keyStoreFile.lastModified() + 2000);
+
+        Assert.assertEquals(holder.getCACertificate(), raCertificate, "Changed KeyStore was not reloaded");
+        Assert.assertEquals(holder.getCAPrivateKey(), raKey);
+    }
+
+    @Test
+    public void testNoReloadOnSameContent() throws Exception {
+        KeyStoreHolder holder = new KeyStoreHolder(config, 0);
+        Certificate caCertificate = holder.getCACertificate();
+        Assert.assertTrue(keyStoreFile.setLastModified(keyStoreFile.lastModified() + 2000));
+        Assert.assertSame(holder.getCACertificate(), caCertificate, "KeyStore of the same content was reloaded");
+    }
+
+    @Test
+    public void testChangeCheckInterval() throws Exception {
+        KeyStoreHolder holder = new KeyStoreHolder(config, 60000);
+        Certificate caCertificate = holder.getCACertificate();
+        KeyStore keyStore = this.loadKeyStore();
+        keyStore.deleteEntry(CA_ALIAS);
+        this.writeKeyStore(keyStore, keyStoreFile.lastModified() + 2000);
+        Assert.assertSame(holder.getCACertificate(), caCertificate,
+                          "KeyStore was checked for changes within the check interval");
+    }
+
+    @Test
+    public void testCopyOnWrite() throws Exception {
+        KeyStoreHolder holder = new KeyStoreHolder(config, 0);
+        KeyStore keyStore = holder.getKeyStore();
+        keyStore.deleteEntry(RA_ALIAS);
+        Assert.assertNotNull(holder.getRACertificate(), "Modifying a copy of the KeyStore changed the snapshot");
+        Assert.assertTrue(holder.getKeyStore().containsAlias(RA_ALIAS));
+
+        holder.updateKeyStore(new KeyStoreHolder.KeyStoreUpdate() {
+            @Override
+            public void update(KeyStore current) throws KeystoreException {
+                try {
+                    current.deleteEntry(RA_ALIAS);
+                } catch (KeyStoreException e) {
+                    throw new KeystoreException("Unable to delete RA certificate", e);
+                }
+            }
+        });
+        try {
+            holder.getRACertificate();
+            Assert.fail("Stored KeyStore was not used");
+        } catch (KeystoreException e) {
+            Assert.assertEquals(e.getMessage(), "RA certificate not found in KeyStore");
+        }
+        Assert.assertFalse(this.loadKeyStore().containsAlias(RA_ALIAS), "Stored KeyStore was not written");
+        Assert.assertNotNull(holder.getCACertificate());
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final KeyStoreHolder holder = new KeyStoreHolder(config, 0);
+        final Certificate caCertificate = holder.getCACertificate();
+        ExecutorService executor = Executors.newFixedThreadPool(UPDATE_THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < UPDATES; i++) {
+                final String alias = "update-" + i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws KeystoreException {
+                        holder.updateKeyStore(new KeyStoreHolder.KeyStoreUpdate() {
+                            @Override
+                            public void update(KeyStore keyStore) throws KeystoreException {
+                                try {
+                                    keyStore.setCertificateEntry(alias, caCertificate);
+                                } catch (KeyStoreException e) {
+                                    throw new KeystoreException("Unable to add certificate " + alias, e);
+                                }
+                            }
+                        });
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        KeyStore keyStore = this.loadKeyStore();
+        for (int i = 0; i < UPDATES; i++) {
+            Assert.assertTrue(keyStore.containsAlias("update-" + i), "Concurrent update " + i + " was lost");
+            Assert.assertTrue(holder.getKeyStore().containsAlias("update-" + i));
+        }
+        Assert.assertNotNull(holder.getRACertificate());
+    }
+
+    /**
+     * Compares the throughput of verifying signatures with the CA certificate when the KeyStore is loaded for every
+     * verification, as was done before the KeyStore was held in memory, with that of using the held certificate.
+     */
+    @Test
+    public void testSignatureVerificationThroughput() throws Exception {
+        KeyStoreHolder holder = new KeyStoreHolder(config, 0);
+        byte[] data = "signed content".getBytes("UTF-8");
+        Signature signer = Signature.getInstance(SIGNATURE_ALGORITHM);
+        signer.initSign(holder.getCAPrivateKey());
+        signer.update(data);
+        byte[] signature = signer.sign();
+
+        long loadingStart = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            Assert.assertTrue(this.verify(this.loadKeyStore().getCertificate(CA_ALIAS), data, signature));
+        }
+        long loadingTime = System.nanoTime() - loadingStart;
+
+        long heldStart = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            Assert.assertTrue(this.verify(holder.getCACertificate(), data, signature));
+        }
+        long heldTime = System.nanoTime() - heldStart;
+
+        log.info("Verified " + BENCHMARK_ROUNDS + " signatures in " + loadingTime / 1000000 + " ms loading the " +
+                 "KeyStore each time, and in " + heldTime / 1000000 + " ms with the held KeyStore");
+        Assert.assertTrue(heldTime < loadingTime, "Verifying with the held KeyStore was slower than loading it");
+    }
+
+    private boolean verify(Certificate certificate, byte[] data, byte[] signature) throws Exception {
+        Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+        verifier.initVerify(certificate);
+        verifier.update(data);
+        return verifier.verify(signature);
+    }
+
+    private KeyStore loadKeyStore() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+        InputStream is = new FileInputStream(keyStoreFile);
+        try {
+            keyStore.load(is, KEYSTORE_PASSWORD.toCharArray());
+        } finally {
+            is.close();
+        }
+        return keyStore;
+    }
+
+    private void writeKeyStore(KeyStore keyStore, long lastModified) throws Exception {
+        OutputStream os = new FileOutputStream(keyStoreFile);
+        try {
+            keyStore.store(os, KEYSTORE_PASSWORD.toCharArray());
+        } finally {
+            os.close();
+        }
+        Assert.assertTrue(keyStoreFile.setLastModified(lastModified));
+    }
+
+}
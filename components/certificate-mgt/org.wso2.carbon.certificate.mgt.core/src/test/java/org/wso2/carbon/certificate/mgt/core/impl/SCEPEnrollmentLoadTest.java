@@ -0,0 +1,277 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.certificate.mgt.core.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bouncycastle.asn1.DERPrintableString;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.jscep.message.CertRep;
+import org.jscep.message.PkcsPkiEnvelopeDecoder;
+import org.jscep.message.PkcsPkiEnvelopeEncoder;
+import org.jscep.message.PkcsReq;
+import org.jscep.message.PkiMessageDecoder;
+import org.jscep.message.PkiMessageEncoder;
+import org.jscep.transaction.Nonce;
+import org.jscep.transaction.PkiStatus;
+import org.jscep.transaction.TransactionId;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.certificate.mgt.core.bean.Certificate;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateGenerationConfig;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateKeystoreConfig;
+import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
+import org.wso2.carbon.certificate.mgt.core.util.CertificateManagementConstants;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline SCEP enrolment harness. Devices build and encode their PKCSReq messages with the jscep client message
+ * classes, as the jscep client does before posting them, and the messages are processed by the certificate generator
+ * in process, as they are by the SCEP endpoint, the responses of which are then decoded and verified as the client
+ * does. Issued certificates are saved in memory, taking a while for each batch as the database does.
+ */
+public class SCEPEnrollmentLoadTest {
+
+    private static final Log log = LogFactory.getLog(SCEPEnrollmentLoadTest.class);
+    private static final String KEYSTORE_PATH = "src/test/resources/wso2certs.jks";
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    private static final String CHALLENGE_PASSWORD = "enrollment-challenge";
+    private static final int DEVICES = 8;
+    private static final int DEVICE_KEY_LENGTH = 1024;
+    private static final int ENROLLMENTS = 200;
+    private static final int CLIENT_THREADS = 16;
+    private static final int BATCH_SIZE = 50;
+    private static final long STORE_LATENCY = 10;
+
+    private File keyStoreFile;
+    private KeyStoreHolder keyStoreHolder;
+    private X509Certificate caCertificate;
+    private X509Certificate raCertificate;
+    private List<Device> devices = new ArrayList<>();
+
+    @BeforeClass
+    public void init() throws Exception {
+        keyStoreFile = File.createTempFile("wso2certs", ".jks");
+        FileUtils.copyFile(new File(KEYSTORE_PATH), keyStoreFile);
+        CertificateKeystoreConfig keystoreConfig = new CertificateKeystoreConfig();
+        keystoreConfig.setCertificateKeystoreType("JKS");
+        keystoreConfig.setCertificateKeystoreLocation(keyStoreFile.getPath());
+        keystoreConfig.setCertificateKeystorePassword("wso2carbon");
+        keystoreConfig.setCACertAlias("cacert");
+        keystoreConfig.setCAPrivateKeyPassword("cacert");
+        keystoreConfig.setRACertAlias("racert");
+        keystoreConfig.setRAPrivateKeyPassword("racert");
+        keyStoreHolder = new KeyStoreHolder(keystoreConfig, 1000);
+        caCertificate = (X509Certificate) keyStoreHolder.getCACertificate();
+        raCertificate = (X509Certificate) keyStoreHolder.getRACertificate();
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(CertificateManagementConstants.RSA);
+        keyPairGenerator.initialize(DEVICE_KEY_LENGTH);
+        for (int i = 0; i < DEVICES; i++) {
+            devices.add(new Device("device-" + i, keyPairGenerator.generateKeyPair()));
+        }
+    }
+
+    @AfterClass
+    public void cleanup() {
+        FileUtils.deleteQuietly(keyStoreFile);
+    }
+
+    @Test
+    public void testEnrollment() throws Exception {
+        RecordingStore store = new RecordingStore();
+        CertificateGenerator generator = this.createGenerator(store);
+        Device device = devices.get(0);
+
+        X509Certificate issued = device.decode(generator.getPKIMessage(
+                new ByteArrayInputStream(device.encodeRequest())));
+        issued.verify(caCertificate.getPublicKey());
+        Assert.assertEquals(issued.getPublicKey(), device.keyPair.getPublic());
+        Assert.assertNotNull(generator.extractChallengeToken(issued), "Challenge password was not added");
+        Assert.assertEquals(store.getSerialNumbers(), 1);
+    }
+
+    /**
+     * Enrols devices from several client threads, and compares the throughput with that of a single client thread.
+     */
+    @Test
+    public void testConcurrentEnrollment() throws Exception {
+        RecordingStore sequentialStore = new RecordingStore();
+        long sequentialTime = this.enroll(this.createGenerator(sequentialStore), 1);
+
+        RecordingStore concurrentStore = new RecordingStore();
+        long concurrentTime = this.enroll(this.createGenerator(concurrentStore), CLIENT_THREADS);
+
+        Assert.assertEquals(concurrentStore.getSerialNumbers(), ENROLLMENTS,
+                            "Serial numbers of the issued certificates were not unique");
+        Assert.assertTrue(concurrentStore.getBatches() < ENROLLMENTS,
+                          "Certificates issued concurrently were not saved in batches");
+        log.info("Enrolled " + ENROLLMENTS + " devices in " + sequentialTime + " ms with a single client, saving " +
+                 sequentialStore.getBatches() + " batches, and in " + concurrentTime + " ms with " + CLIENT_THREADS +
+                 " clients, saving " + concurrentStore.getBatches() + " batches, on " +
+                 Runtime.getRuntime().availableProcessors() + " processors");
+    }
+
+    private CertificateGenerator createGenerator(RecordingStore store) {
+        return new CertificateGenerator(keyStoreHolder, new CertificateGenerationConfig(),
+                                        new CertificateBatchWriter(BATCH_SIZE, store));
+    }
+
+    /**
+     * @return milliseconds taken to process the enrolment requests, excluding the time taken by the devices to encode
+     * them and to decode the responses, which are verified afterwards.
+     */
+    private long enroll(final CertificateGenerator generator, int clientThreads) throws Exception {
+        List<byte[]> requests = new ArrayList<>(ENROLLMENTS);
+        for (int i = 0; i < ENROLLMENTS; i++) {
+            requests.add(devices.get(i % DEVICES).encodeRequest());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(clientThreads);
+        List<Future<byte[]>> responses = new ArrayList<>(ENROLLMENTS);
+        long start = System.nanoTime();
+        for (final byte[] request : requests) {
+            responses.add(executor.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws KeystoreException {
+                    return generator.getPKIMessage(new ByteArrayInputStream(request));
+                }
+            }));
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES), "Enrolments did not complete in time");
+        long time = (System.nanoTime() - start) / 1000000;
+
+        for (int i = 0; i < ENROLLMENTS; i++) {
+            X509Certificate issued = devices.get(i % DEVICES).decode(responses.get(i).get());
+            issued.verify(caCertificate.getPublicKey());
+        }
+        return time;
+    }
+
+    /**
+     * A device enrolling with its own key pair and a self-signed certificate of it, as SCEP clients do.
+     */
+    private class Device {
+
+        private final KeyPair keyPair;
+        private final X509Certificate certificate;
+        private final X500Name name;
+
+        Device(String name, KeyPair keyPair) throws Exception {
+            this.name = new X500Name("CN=" + name);
+            this.keyPair = keyPair;
+            long now = System.currentTimeMillis();
+            ContentSigner signer = new JcaContentSignerBuilder(SIGNATURE_ALGORITHM).build(keyPair.getPrivate());
+            this.certificate = new JcaX509CertificateConverter().getCertificate(new JcaX509v3CertificateBuilder(
+                    this.name, BigInteger.valueOf(now), new Date(now - 60000), new Date(now + 3600000), this.name,
+                    keyPair.getPublic()).build(signer));
+        }
+
+        byte[] encodeRequest() throws Exception {
+            ContentSigner signer = new JcaContentSignerBuilder(SIGNATURE_ALGORITHM).build(keyPair.getPrivate());
+            PKCS10CertificationRequest csr = new JcaPKCS10CertificationRequestBuilder(name, keyPair.getPublic())
+                    .addAttribute(PKCSObjectIdentifiers.pkcs_9_at_challengePassword,
+                                  new DERPrintableString(CHALLENGE_PASSWORD))
+                    .build(signer);
+            PkcsReq request = new PkcsReq(TransactionId.createTransactionId(keyPair.getPublic(), "SHA-1"),
+                                          Nonce.nextNonce(), csr);
+            PkcsPkiEnvelopeEncoder envelopeEncoder = new PkcsPkiEnvelopeEncoder(raCertificate,
+                                                                                CertificateManagementConstants.DES_EDE);
+            PkiMessageEncoder encoder = new PkiMessageEncoder(keyPair.getPrivate(), certificate, envelopeEncoder);
+            return encoder.encode(request).getEncoded();
+        }
+
+        X509Certificate decode(byte[] response) throws Exception {
+            PkcsPkiEnvelopeDecoder envelopeDecoder = new PkcsPkiEnvelopeDecoder(certificate, keyPair.getPrivate());
+            PkiMessageDecoder decoder = new PkiMessageDecoder(raCertificate, envelopeDecoder);
+            CertRep certRep = (CertRep) decoder.decode(new CMSSignedData(response));
+            Assert.assertEquals(certRep.getPkiStatus(), PkiStatus.SUCCESS);
+
+            @SuppressWarnings("unchecked")
+            Collection<X509CertificateHolder> issued = certRep.getMessageData().getCertificates().getMatches(null);
+            Assert.assertEquals(issued.size(), 1);
+            return new JcaX509CertificateConverter().getCertificate(issued.iterator().next());
+        }
+
+    }
+
+    /**
+     * Records the serial numbers of the certificates saved in it, taking a while for each batch.
+     */
+    private static class RecordingStore implements CertificateBatchWriter.CertificateStore {
+
+        private final Set<BigInteger> serialNumbers = new HashSet<>();
+        private int batches;
+
+        @Override
+        public void addCertificates(List<Certificate> certificates) throws KeystoreException {
+            try {
+                Thread.sleep(STORE_LATENCY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                for (Certificate certificate : certificates) {
+                    serialNumbers.add(certificate.getCertificate().getSerialNumber());
+                }
+                batches++;
+            }
+        }
+
+        synchronized int getSerialNumbers() {
+            return serialNumbers.size();
+        }
+
+        synchronized int getBatches() {
+            return batches;
+        }
+
+    }
+
+}
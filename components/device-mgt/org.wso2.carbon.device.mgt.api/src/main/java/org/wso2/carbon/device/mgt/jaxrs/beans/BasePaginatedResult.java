@@ -30,6 +30,14 @@ public class BasePaginatedResult {
     @JsonProperty("count")
     private int count;
 
+    /**
+     * Token to be sent along with the request for the next page, if any.
+     */
+    @ApiModelProperty(value = "Opaque token to be passed as the continuationToken parameter to fetch the next page. " +
+            "This is not returned with the last page.")
+    @JsonProperty("continuationToken")
+    private String continuationToken;
+
     public int getCount() {
         return count;
     }
@@ -37,4 +45,12 @@ public class BasePaginatedResult {
     public void setCount(int count) {
         this.count = count;
     }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
 }
\ No newline at end of file
@@ -174,6 +174,12 @@ public interface ActivityInfoProviderService {
                     required = false,
                     defaultValue = "5")
             @QueryParam("limit") int limit,
+            @ApiParam(
+                    name = "continuationToken",
+                    value = "The token returned with the previous page. When provided, the page starting right after " +
+                            "the previous page is returned and the offset is ignored.",
+                    required = false)
+            @QueryParam("continuationToken") String continuationToken,
             @ApiParam(
                     name = "If-Modified-Since",
                     value = "Checks if the requested variant was modified, since the specified date-time\n." +
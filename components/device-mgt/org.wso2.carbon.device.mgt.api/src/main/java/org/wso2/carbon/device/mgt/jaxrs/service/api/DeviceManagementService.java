@@ -647,7 +647,14 @@ public interface DeviceManagementService {
                     required = false,
                     defaultValue = "5")
             @QueryParam("limit")
-            int limit);
+            int limit,
+            @ApiParam(
+                    name = "continuationToken",
+                    value = "The token returned with the previous page. When provided, the page starting right after " +
+                            "the previous page is returned and the offset is ignored.",
+                    required = false)
+            @QueryParam("continuationToken")
+            String continuationToken);
 
     @GET
     @Path("/{type}/{id}/effective-policy")
@@ -20,6 +20,8 @@ package org.wso2.carbon.device.mgt.jaxrs.service.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.PaginationRequest;
+import org.wso2.carbon.device.mgt.common.PaginationResult;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
@@ -76,6 +78,7 @@ public class ActivityProviderServiceImpl implements ActivityInfoProviderService
     @Override
     public Response getActivities(@QueryParam("since") String since, @QueryParam("offset") int offset,
                                   @QueryParam("limit") int limit,
+                                  @QueryParam("continuationToken") String continuationToken,
                                   @HeaderParam("If-Modified-Since") String ifModifiedSince) {
 
         long ifModifiedSinceTimestamp;
@@ -84,6 +87,7 @@ public class ActivityProviderServiceImpl implements ActivityInfoProviderService
         boolean isIfModifiedSinceSet = false;
         boolean isSinceSet = false;
         RequestValidationUtil.validatePaginationParameters(offset, limit);
+        RequestValidationUtil.validateContinuationToken(continuationToken);
         if (ifModifiedSince != null && !ifModifiedSince.isEmpty()) {
             Date ifSinceDate;
             SimpleDateFormat format = new SimpleDateFormat("EEE, d MMM yyyy HH:mm:ss Z");
@@ -117,7 +121,16 @@ public class ActivityProviderServiceImpl implements ActivityInfoProviderService
         DeviceManagementProviderService dmService;
         try {
             dmService = DeviceMgtAPIUtils.getDeviceManagementService();
-            activities = dmService.getActivitiesUpdatedAfter(timestamp, limit, offset);
+            // The first page is fetched by seeking as well, so that clients are handed a token to walk further pages.
+            if ((continuationToken != null && !continuationToken.isEmpty()) || offset == 0) {
+                PaginationRequest request = new PaginationRequest(0, limit);
+                request.setContinuationToken(continuationToken);
+                PaginationResult result = dmService.getActivitiesUpdatedAfter(timestamp, request);
+                activities = (List<Activity>) result.getData();
+                activityList.setContinuationToken(result.getContinuationToken());
+            } else {
+                activities = dmService.getActivitiesUpdatedAfter(timestamp, limit, offset);
+            }
             activityList.setList(activities);
             int count = dmService.getActivityCountUpdatedAfter(timestamp);
             activityList.setCount(count);
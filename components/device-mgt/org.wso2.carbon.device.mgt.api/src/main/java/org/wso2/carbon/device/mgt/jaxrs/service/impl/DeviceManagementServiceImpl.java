@@ -380,10 +380,13 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
             @PathParam("id") @Size(max = 45) String id,
             @HeaderParam("If-Modified-Since") String ifModifiedSince,
             @QueryParam("offset") int offset,
-            @QueryParam("limit") int limit) {
+            @QueryParam("limit") int limit,
+            @QueryParam("continuationToken") String continuationToken) {
         OperationList operationsList = new OperationList();
         RequestValidationUtil.validatePaginationParameters(offset, limit);
+        RequestValidationUtil.validateContinuationToken(continuationToken);
         PaginationRequest request = new PaginationRequest(offset, limit);
+        request.setContinuationToken(continuationToken);
         PaginationResult result;
         DeviceManagementProviderService dms;
         try {
@@ -394,6 +397,7 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
 
             operationsList.setList((List<? extends Operation>) result.getData());
             operationsList.setCount(result.getRecordsTotal());
+            operationsList.setContinuationToken(result.getContinuationToken());
             return Response.status(Response.Status.OK).entity(operationsList).build();
         } catch (OperationManagementException e) {
             String msg = "Error occurred while fetching the operations for the '" + type + "' device, which " +
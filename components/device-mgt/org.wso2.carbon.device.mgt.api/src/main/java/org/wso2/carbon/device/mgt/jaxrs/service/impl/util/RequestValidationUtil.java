@@ -22,6 +22,7 @@ import org.wso2.carbon.device.mgt.jaxrs.beans.Scope;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.configuration.mgt.PlatformConfiguration;
 import org.wso2.carbon.device.mgt.common.notification.mgt.Notification;
+import org.wso2.carbon.device.mgt.core.operation.mgt.util.ContinuationToken;
 import org.wso2.carbon.device.mgt.jaxrs.beans.*;
 
 import java.util.ArrayList;
@@ -345,4 +346,17 @@ public class RequestValidationUtil {
 
     }
 
+    public static void validateContinuationToken(String continuationToken) {
+        if (continuationToken == null || continuationToken.isEmpty()) {
+            return;
+        }
+        try {
+            ContinuationToken.decode(continuationToken);
+        } catch (IllegalArgumentException e) {
+            throw new InputValidationException(
+                    new ErrorResponse.ErrorResponseBuilder().setCode(400l).setMessage("Request parameter " +
+                            "continuationToken is not a token returned with a previous page.").build());
+        }
+    }
+
 }
@@ -0,0 +1,42 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.common;
+
+/**
+ * Parts of a device, on top of its enrolment, that can be requested when listing devices. Each facet costs extra
+ * lookups, so list views should request only the facets they display.
+ */
+public enum DeviceFacet {
+
+    /**
+     * Device information reported by the device, along with its last known location.
+     */
+    INFO,
+
+    /**
+     * Applications installed on the device.
+     */
+    APPLICATIONS,
+
+    /**
+     * Features and properties maintained by the device type plugin.
+     */
+    PLUGIN_PROPERTIES
+
+}
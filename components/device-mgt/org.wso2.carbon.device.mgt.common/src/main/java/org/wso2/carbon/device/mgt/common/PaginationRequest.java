@@ -19,6 +19,7 @@
 package org.wso2.carbon.device.mgt.common;
 
 import java.util.Date;
+import java.util.Set;
 
 /**
  * This class holds required parameters for a querying a paginated response.
@@ -33,6 +34,8 @@ public class PaginationRequest {
     private String deviceName;
     private String ownership;
     private Date since;
+    private String continuationToken;
+    private Set<DeviceFacet> facets;
 
     public PaginationRequest(int start, int rowCount) {
         this.startIndex = start;
@@ -103,4 +106,27 @@ public class PaginationRequest {
         this.since = since;
     }
 
+    /**
+     * Returns the opaque token handed out with the previous page, if any. When a token is present the page starts
+     * right after the last record of the previous page and the start index is ignored.
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * Returns the facets to be populated in each listed device, or null if all of them are required.
+     */
+    public Set<DeviceFacet> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Set<DeviceFacet> facets) {
+        this.facets = facets;
+    }
+
 }
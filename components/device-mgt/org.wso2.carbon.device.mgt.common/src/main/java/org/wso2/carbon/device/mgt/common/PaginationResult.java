@@ -44,6 +44,10 @@ public class PaginationResult implements Serializable {
     @ApiModelProperty(name = "data", value = "This holds the database records that matches given criteria", required = true)
     private List<?> data;
 
+    @ApiModelProperty(name = "continuationToken", value = "Opaque token to be sent with the request for the next page. " +
+            "This is not set once the last page has been reached", required = false)
+    private String continuationToken;
+
     public int getRecordsTotal() {
         return recordsTotal;
     }
@@ -76,4 +80,13 @@ public class PaginationResult implements Serializable {
     public void setDraw(int draw) {
         this.draw = draw;
     }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
 }
@@ -91,6 +91,18 @@ public interface OperationManager {
 
     List<Activity> getActivitiesUpdatedAfter(long timestamp, int limit, int offset) throws OperationManagementException;
 
+    /**
+     * Method to retrieve a page of activities updated after the given time. Pages are walked using the continuation
+     * token returned with the previous page, so that every page costs the same regardless of its depth.
+     *
+     * @param timestamp Time, in seconds, after which the activities have been updated
+     * @param request   PaginationRequest carrying the page size and the continuation token, if any
+     * @return PaginationResult holding the activities and the continuation token of the next page
+     * @throws OperationManagementException If some unusual behaviour is observed while fetching the activities.
+     */
+    PaginationResult getActivitiesUpdatedAfter(long timestamp, PaginationRequest request)
+            throws OperationManagementException;
+
     int getActivityCountUpdatedAfter(long timestamp) throws OperationManagementException;
 
 }
\ No newline at end of file
@@ -63,12 +63,12 @@ public class Condition {
                                                  "condition:\n" +
                                                  "= : Searches for devices where the key is equal to the value " +
                                                  "provided.\n" +
-                                                 "=! : Searches for devices where the key is not equal to the " +
+                                                 "!= : Searches for devices where the key is not equal to the " +
                                                  "value provided.\n" +
-                                                 "<= : Searches for devices where the key is greater than or equal" +
-                                                 " to the value provide.\n" +
-                                                 ">= : Searches for devices where the key is less than or equal to" +
-                                                 " the value provided.\n" +
+                                                 "<= or =< : Searches for devices where the key is less than or " +
+                                                 "equal to the value provided.\n" +
+                                                 ">= : Searches for devices where the key is greater than or equal" +
+                                                 " to the value provided.\n" +
                                                  "> : Searches for devices where the key is greater than the value" +
                                                  " provided.\n" +
                                                  "< : Searches for devices where the key is less than the value " +
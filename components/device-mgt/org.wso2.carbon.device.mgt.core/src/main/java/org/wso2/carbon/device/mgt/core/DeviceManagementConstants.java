@@ -82,4 +82,11 @@ public final class DeviceManagementConstants {
         public static final String ACTIVITY = "ACTIVITY_";
     }
 
+    public static final class BulkOperations {
+        private BulkOperations() {throw new AssertionError(); }
+        // Oracle limits an IN list to 1000 expressions, which keeps every supported vendor within its bounds.
+        public static final int MAX_IN_CLAUSE_SIZE = 1000;
+        public static final int BATCH_SIZE = 1000;
+    }
+
 }
@@ -33,11 +33,13 @@ import org.wso2.carbon.device.mgt.core.internal.DeviceManagementServiceComponent
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagerStartupListener;
 import org.wso2.carbon.device.mgt.core.operation.mgt.OperationManagerImpl;
 import org.wso2.carbon.device.mgt.core.operation.mgt.OperationManagerRepository;
+import org.wso2.carbon.device.mgt.core.push.notification.mgt.PushNotificationDispatcher;
 import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DeviceManagementPluginRepository implements DeviceManagerStartupListener {
 
@@ -45,9 +47,11 @@ public class DeviceManagementPluginRepository implements DeviceManagerStartupLis
     private boolean isInited;
     private static final Log log = LogFactory.getLog(DeviceManagementPluginRepository.class);
     private OperationManagerRepository operationManagerRepository;
+    private Map<DeviceTypeIdentifier, PushNotificationDispatcher> notificationDispatchers;
 
     public DeviceManagementPluginRepository() {
         this.operationManagerRepository = new OperationManagerRepository();
+        this.notificationDispatchers = new ConcurrentHashMap<>();
         providers = Collections.synchronizedMap(new HashMap<DeviceTypeIdentifier, DeviceManagementService>());
         DeviceManagementServiceComponent.registerStartupListener(this);
     }
@@ -100,6 +104,7 @@ public class DeviceManagementPluginRepository implements DeviceManagerStartupLis
             providers.remove(deviceTypeIdentifier);
         }
         operationManagerRepository.removeOperationManager(deviceTypeIdentifier);
+        this.replaceNotificationDispatcher(deviceTypeIdentifier, null);
     }
 
     public DeviceManagementService getDeviceManagementService(String type, int tenantId) {
@@ -148,16 +153,34 @@ public class DeviceManagementPluginRepository implements DeviceManagerStartupLis
                                     pushNoteConfig.getType() + "'.");
                 }
                 NotificationStrategy notificationStrategy = provider.getNotificationStrategy(pushNoteConfig);
+                PushNotificationDispatcher notificationDispatcher = new PushNotificationDispatcher(
+                        notificationStrategy, deviceTypeIdentifier.getDeviceType());
                 operationManagerRepository.addOperationManager(deviceTypeIdentifier, new OperationManagerImpl(
-                        notificationStrategy));
+                        notificationDispatcher));
+                this.replaceNotificationDispatcher(deviceTypeIdentifier, notificationDispatcher);
             } else {
                 operationManagerRepository.addOperationManager(deviceTypeIdentifier, new OperationManagerImpl());
+                this.replaceNotificationDispatcher(deviceTypeIdentifier, null);
             }
         } finally {
             PrivilegedCarbonContext.endTenantFlow();
         }
     }
 
+    /**
+     * Shuts down the dispatcher of the operation manager being replaced or removed, once it has delivered the
+     * notifications it has already accepted.
+     */
+    private void replaceNotificationDispatcher(DeviceTypeIdentifier deviceTypeIdentifier,
+                                               PushNotificationDispatcher notificationDispatcher) {
+        PushNotificationDispatcher previousDispatcher = (notificationDispatcher != null) ?
+                notificationDispatchers.put(deviceTypeIdentifier, notificationDispatcher) :
+                notificationDispatchers.remove(deviceTypeIdentifier);
+        if (previousDispatcher != null) {
+            previousDispatcher.shutdown();
+        }
+    }
+
     public OperationManager getOperationManager(String deviceType, int tenantId) {
         //Priority need to be given to the tenant before public.
         DeviceTypeIdentifier deviceTypeIdentifier = new DeviceTypeIdentifier(deviceType.toLowerCase(), tenantId);
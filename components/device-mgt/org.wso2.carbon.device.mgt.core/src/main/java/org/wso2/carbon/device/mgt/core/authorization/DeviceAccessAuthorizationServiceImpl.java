@@ -23,7 +23,6 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
-import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.common.authorization.DeviceAccessAuthorizationException;
 import org.wso2.carbon.device.mgt.common.authorization.DeviceAccessAuthorizationService;
@@ -32,15 +31,23 @@ import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
 import org.wso2.carbon.device.mgt.common.group.mgt.GroupManagementException;
 import org.wso2.carbon.device.mgt.common.permission.mgt.Permission;
 import org.wso2.carbon.device.mgt.common.permission.mgt.PermissionManagementException;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOException;
+import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
 import org.wso2.carbon.device.mgt.core.permission.mgt.PermissionUtils;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of DeviceAccessAuthorization service.
@@ -49,6 +56,7 @@ public class DeviceAccessAuthorizationServiceImpl implements DeviceAccessAuthori
 
     private final static String CDM_ADMIN_PERMISSION = "/device-mgt/devices/any-device/permitted-actions-under-owning-device";
     private final static String CDM_ADMIN = "Device Management Administrator";
+    private static final DeviceAccessDecisionCache UNCACHED_DECISIONS = new DeviceAccessDecisionCache(0, 0);
     private static Log log = LogFactory.getLog(DeviceAccessAuthorizationServiceImpl.class);
 
     public DeviceAccessAuthorizationServiceImpl() {
@@ -62,31 +70,12 @@ public class DeviceAccessAuthorizationServiceImpl implements DeviceAccessAuthori
     @Override
     public boolean isUserAuthorized(DeviceIdentifier deviceIdentifier, String username, String[] groupPermissions)
             throws DeviceAccessAuthorizationException {
-        int tenantId = this.getTenantId();
         if (username == null || username.isEmpty()) {
             return !DeviceManagementDataHolder.getInstance().requireDeviceAuthorization(deviceIdentifier.getType());
         }
-        //check for admin and ownership permissions
-        if (isAdminOrDeviceOwner(username, tenantId, deviceIdentifier)) {
-            return true;
-        }
-        //check for group permissions
-        try {
-            if (groupPermissions == null || groupPermissions.length == 0) {
-                return false;
-            }
-            for (String groupPermission : groupPermissions) {
-                if (!isAuthorizedViaGroup(username, deviceIdentifier, groupPermission)) {
-                    //if at least one fails, authorization fails
-                    return false;
-                }
-            }
-            return true;
-        } catch (GroupManagementException | UserStoreException e) {
-            throw new DeviceAccessAuthorizationException("Unable to authorize the access to device : " +
-                                                         deviceIdentifier.getId() + " for the user : " +
-                                                         username, e);
-        }
+        DeviceAuthorizationResult deviceAuthorizationResult =
+                isUserAuthorized(Collections.singletonList(deviceIdentifier), username, groupPermissions);
+        return deviceAuthorizationResult != null && !deviceAuthorizationResult.getAuthorizedDevices().isEmpty();
     }
 
     @Override
@@ -127,35 +116,98 @@ public class DeviceAccessAuthorizationServiceImpl implements DeviceAccessAuthori
             return null;
         }
         DeviceAuthorizationResult deviceAuthorizationResult = new DeviceAuthorizationResult();
+        //check for admin permissions once, as admin users are authorized to access all the devices
+        try {
+            if (isAdminUser(username, tenantId)) {
+                deviceAuthorizationResult.setAuthorizedDevices(new ArrayList<>(deviceIdentifiers));
+                return deviceAuthorizationResult;
+            }
+        } catch (UserStoreException e) {
+            throw new DeviceAccessAuthorizationException("Unable to check the admin permissions of user : " +
+                                                         username + " in tenant : " + tenantId, e);
+        }
+        DeviceAccessDecisionCache decisionCache = this.getDecisionCache();
+        long generation = decisionCache.getGeneration(tenantId);
+        Map<String, Device> devices = new HashMap<>();
+
+        //check for ownership, looking up the devices without cached decisions all at once
+        List<DeviceIdentifier> notOwnedDevices = new ArrayList<>();
+        List<DeviceIdentifier> undecidedDevices = new ArrayList<>();
         for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
-            //check for admin and ownership permissions
-            if (isAdminOrDeviceOwner(username, tenantId, deviceIdentifier)) {
+            Boolean isOwner = decisionCache.get(tenantId, username, deviceIdentifier, null);
+            if (isOwner == null) {
+                undecidedDevices.add(deviceIdentifier);
+            } else if (isOwner) {
                 deviceAuthorizationResult.addAuthorizedDevice(deviceIdentifier);
             } else {
-                try {
-                    if (groupPermissions == null || groupPermissions.length == 0) {
-                        return null;
-                    }
-                    //check for group permissions
-                    boolean isAuthorized = true;
-                    for (String groupPermission : groupPermissions) {
-                        if (!isAuthorizedViaGroup(username, deviceIdentifier, groupPermission)) {
-                            //if at least one failed, authorizations fails and break the loop
-                            isAuthorized = false;
-                            break;
+                notOwnedDevices.add(deviceIdentifier);
+            }
+        }
+        if (!undecidedDevices.isEmpty()) {
+            this.loadDevices(undecidedDevices, username, tenantId, devices);
+            for (DeviceIdentifier deviceIdentifier : undecidedDevices) {
+                Device device = devices.get(getDeviceKey(deviceIdentifier.getType(), deviceIdentifier.getId()));
+                boolean isOwner = device != null && username.equals(device.getEnrolmentInfo().getOwner());
+                decisionCache.put(tenantId, username, deviceIdentifier, null, isOwner, generation);
+                if (isOwner) {
+                    deviceAuthorizationResult.addAuthorizedDevice(deviceIdentifier);
+                } else {
+                    notOwnedDevices.add(deviceIdentifier);
+                }
+            }
+        }
+        if (notOwnedDevices.isEmpty()) {
+            return deviceAuthorizationResult;
+        }
+        if (groupPermissions == null || groupPermissions.length == 0) {
+            return null;
+        }
+
+        //check for group permissions, a device is authorized only if all of them are granted through its groups
+        Map<Integer, List<Integer>> groupsOfDevices = null;
+        List<DeviceIdentifier> grantedDevices = notOwnedDevices;
+        for (String groupPermission : groupPermissions) {
+            List<DeviceIdentifier> stillGrantedDevices = new ArrayList<>();
+            undecidedDevices = new ArrayList<>();
+            for (DeviceIdentifier deviceIdentifier : grantedDevices) {
+                Boolean isGranted = decisionCache.get(tenantId, username, deviceIdentifier, groupPermission);
+                if (isGranted == null) {
+                    undecidedDevices.add(deviceIdentifier);
+                } else if (isGranted) {
+                    stillGrantedDevices.add(deviceIdentifier);
+                } else {
+                    deviceAuthorizationResult.addUnauthorizedDevice(deviceIdentifier);
+                }
+            }
+            if (!undecidedDevices.isEmpty()) {
+                if (groupsOfDevices == null) {
+                    groupsOfDevices = this.getGroupsOfDevices(notOwnedDevices, username, tenantId, devices);
+                }
+                Set<Integer> authorizedGroupIds = this.getAuthorizedGroupIds(username, groupPermission);
+                for (DeviceIdentifier deviceIdentifier : undecidedDevices) {
+                    Device device = devices.get(getDeviceKey(deviceIdentifier.getType(), deviceIdentifier.getId()));
+                    boolean isGranted = false;
+                    List<Integer> groupIds = (device != null) ? groupsOfDevices.get(device.getId()) : null;
+                    if (groupIds != null) {
+                        for (int groupId : groupIds) {
+                            if (authorizedGroupIds.contains(groupId)) {
+                                isGranted = true;
+                                break;
+                            }
                         }
                     }
-                    if (isAuthorized) {
-                        deviceAuthorizationResult.addAuthorizedDevice(deviceIdentifier);
+                    decisionCache.put(tenantId, username, deviceIdentifier, groupPermission, isGranted, generation);
+                    if (isGranted) {
+                        stillGrantedDevices.add(deviceIdentifier);
                     } else {
                         deviceAuthorizationResult.addUnauthorizedDevice(deviceIdentifier);
                     }
-                } catch (GroupManagementException | UserStoreException e) {
-                    throw new DeviceAccessAuthorizationException("Unable to authorize the access to device : " +
-                                                                 deviceIdentifier.getId() + " for the user : " +
-                                                                 username, e);
                 }
             }
+            grantedDevices = stillGrantedDevices;
+        }
+        for (DeviceIdentifier deviceIdentifier : grantedDevices) {
+            deviceAuthorizationResult.addAuthorizedDevice(deviceIdentifier);
         }
         return deviceAuthorizationResult;
     }
@@ -178,50 +230,81 @@ public class DeviceAccessAuthorizationServiceImpl implements DeviceAccessAuthori
         return isUserAuthorized(deviceIdentifiers, this.getUserName(), groupPermissions);
     }
 
-    private boolean isAdminOrDeviceOwner(String username, int tenantId, DeviceIdentifier deviceIdentifier)
-            throws DeviceAccessAuthorizationException {
+    private void loadDevices(List<DeviceIdentifier> deviceIdentifiers, String username, int tenantId,
+                             Map<String, Device> devices) throws DeviceAccessAuthorizationException {
         try {
-            //First Check for admin users. If the user is an admin user we authorize the access to that device.
-            //Secondly Check for device ownership. If the user is the owner of the device we allow the access.
-            return (isAdminUser(username, tenantId) || isDeviceOwner(deviceIdentifier, username));
-        } catch (UserStoreException e) {
-            throw new DeviceAccessAuthorizationException("Unable to authorize the access to device : " +
-                                                                 deviceIdentifier.getId() + " for the user : " +
-                                                                 username, e);
+            DeviceManagementDAOFactory.openConnection();
+            for (Device device : DeviceManagementDAOFactory.getDeviceDAO().getDevices(deviceIdentifiers, tenantId)) {
+                devices.put(getDeviceKey(device.getType(), device.getDeviceIdentifier()), device);
+            }
+        } catch (DeviceManagementDAOException e) {
+            throw new DeviceAccessAuthorizationException("Unable to authorize the access to " +
+                                                         deviceIdentifiers.size() + " devices for the user : " +
+                                                         username, e);
+        } catch (SQLException e) {
+            throw new DeviceAccessAuthorizationException("Error occurred while opening a connection to the data " +
+                                                         "source", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
         }
     }
 
-    private boolean isAuthorizedViaGroup(String username, DeviceIdentifier deviceIdentifier, String groupPermission)
-            throws GroupManagementException, UserStoreException {
-        List<DeviceGroup> authorizedGroups =
-                DeviceManagementDataHolder.getInstance().getGroupManagementProviderService()
-                        .getGroups(username, groupPermission);
-        List<DeviceGroup> groupsWithDevice =
-                DeviceManagementDataHolder.getInstance().getGroupManagementProviderService()
-                        .getGroups(deviceIdentifier);
-        for (DeviceGroup group : authorizedGroups) {
-            Iterator<DeviceGroup> groupsWithDeviceIterator = groupsWithDevice.iterator();
-            while (groupsWithDeviceIterator.hasNext()) {
-                DeviceGroup deviceGroup = groupsWithDeviceIterator.next();
-                if (deviceGroup.getId() == group.getId()) {
-                    return true;
-                }
+    private Map<Integer, List<Integer>> getGroupsOfDevices(List<DeviceIdentifier> deviceIdentifiers, String username,
+                                                           int tenantId, Map<String, Device> devices)
+            throws DeviceAccessAuthorizationException {
+        List<DeviceIdentifier> unloadedDevices = new ArrayList<>();
+        for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
+            if (!devices.containsKey(getDeviceKey(deviceIdentifier.getType(), deviceIdentifier.getId()))) {
+                unloadedDevices.add(deviceIdentifier);
             }
         }
-        return false;
+        if (!unloadedDevices.isEmpty()) {
+            this.loadDevices(unloadedDevices, username, tenantId, devices);
+        }
+        List<Integer> deviceIds = new ArrayList<>(deviceIdentifiers.size());
+        for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
+            Device device = devices.get(getDeviceKey(deviceIdentifier.getType(), deviceIdentifier.getId()));
+            if (device != null) {
+                deviceIds.add(device.getId());
+            }
+        }
+        try {
+            GroupManagementDAOFactory.openConnection();
+            return GroupManagementDAOFactory.getGroupDAO().getGroupIds(deviceIds, tenantId);
+        } catch (GroupManagementDAOException e) {
+            throw new DeviceAccessAuthorizationException("Unable to retrieve the groups of " + deviceIds.size() +
+                                                         " devices for the user : " + username, e);
+        } catch (SQLException e) {
+            throw new DeviceAccessAuthorizationException("Error occurred while opening a connection to the data " +
+                                                         "source", e);
+        } finally {
+            GroupManagementDAOFactory.closeConnection();
+        }
     }
 
-    private boolean isDeviceOwner(DeviceIdentifier deviceIdentifier, String username)
+    private Set<Integer> getAuthorizedGroupIds(String username, String groupPermission)
             throws DeviceAccessAuthorizationException {
-        //Check for device ownership. If the user is the owner of the device we allow the access.
+        Set<Integer> groupIds = new HashSet<>();
         try {
-            return DeviceManagementDataHolder.getInstance().getDeviceManagementProvider().
-                    isEnrolled(deviceIdentifier, username);
-        } catch (DeviceManagementException e) {
-            throw new DeviceAccessAuthorizationException("Unable to authorize the access to device : " +
-                                                                 deviceIdentifier.getId() + " for the user : " +
-                                                                 username, e);
+            for (DeviceGroup group : DeviceManagementDataHolder.getInstance().getGroupManagementProviderService()
+                    .getGroups(username, groupPermission)) {
+                groupIds.add(group.getId());
+            }
+        } catch (GroupManagementException e) {
+            throw new DeviceAccessAuthorizationException("Unable to retrieve the groups in which the user : " +
+                                                         username + " is granted " + groupPermission, e);
         }
+        return groupIds;
+    }
+
+    private DeviceAccessDecisionCache getDecisionCache() {
+        DeviceAccessDecisionCache decisionCache =
+                DeviceManagementDataHolder.getInstance().getDeviceAccessDecisionCache();
+        return (decisionCache != null) ? decisionCache : UNCACHED_DECISIONS;
+    }
+
+    private static String getDeviceKey(String type, String id) {
+        return type + '\n' + id;
     }
 
     private boolean isAdminUser(String username, int tenantId) throws UserStoreException {
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.core.authorization;
+
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.authorization.DeviceAccessDecisionCacheConfiguration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the device access decisions of each tenant for a short time, keyed by the user, the device and the
+ * permission. The decision of a null permission is whether the user owns the device, and the decision of any other
+ * permission is whether the user is granted it through a group of the device. The decisions of a tenant are dropped
+ * whenever the ownership of its devices, their groups or the group memberships of its users change.
+ */
+public class DeviceAccessDecisionCache {
+
+    private static final long DEFAULT_EXPIRY_TIME = 30000;
+    private static final int DEFAULT_CAPACITY = 10000;
+
+    private final long expiryTime;
+    private final int capacity;
+    private final ConcurrentMap<Integer, TenantDecisions> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache as configured in the device management configuration.
+     *
+     * @return the cache, which does not retain decisions if it is not enabled.
+     */
+    public static DeviceAccessDecisionCache fromConfiguration() {
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        DeviceAccessDecisionCacheConfiguration cacheConfig =
+                (config != null) ? config.getDeviceAccessDecisionCacheConfiguration() : null;
+        if (cacheConfig == null || !cacheConfig.isEnabled()) {
+            return new DeviceAccessDecisionCache(0, 0);
+        }
+        return new DeviceAccessDecisionCache(
+                (cacheConfig.getExpiryTime() > 0) ? cacheConfig.getExpiryTime() : DEFAULT_EXPIRY_TIME,
+                (cacheConfig.getCapacity() > 0) ? cacheConfig.getCapacity() : DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expiryTime time in milliseconds a decision is used for, 0 to not retain decisions.
+     * @param capacity   number of decisions retained per tenant, beyond which the decisions of the tenant are dropped.
+     */
+    public DeviceAccessDecisionCache(long expiryTime, int capacity) {
+        this.expiryTime = expiryTime;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the current generation of the decisions of the tenant, to be passed to put along with decisions made
+     * from data read after this call.
+     */
+    public long getGeneration(int tenantId) {
+        return this.getDecisions(tenantId).generation.get();
+    }
+
+    /**
+     * @return the cached decision, or null if there is none.
+     */
+    public Boolean get(int tenantId, String username, DeviceIdentifier deviceId, String permission) {
+        TenantDecisions decisions = this.getDecisions(tenantId);
+        Decision decision = decisions.decisions.get(getKey(username, deviceId, permission));
+        if (decision == null || decision.generation != decisions.generation.get() ||
+                System.currentTimeMillis() - decision.decidedTime >= expiryTime) {
+            return null;
+        }
+        return decision.authorized;
+    }
+
+    /**
+     * Caches a decision, unless the decisions of the tenant have been invalidated since the given generation.
+     */
+    public void put(int tenantId, String username, DeviceIdentifier deviceId, String permission, boolean authorized,
+                    long generation) {
+        if (expiryTime <= 0) {
+            return;
+        }
+        TenantDecisions decisions = this.getDecisions(tenantId);
+        if (generation != decisions.generation.get()) {
+            return;
+        }
+        if (decisions.decisions.size() >= capacity) {
+            decisions.decisions.clear();
+        }
+        decisions.decisions.put(getKey(username, deviceId, permission), new Decision(authorized, generation));
+    }
+
+    /**
+     * Drops the decisions of the tenant, to be called after the ownership of devices, the devices of groups or the
+     * group roles of users change.
+     */
+    public void invalidate(int tenantId) {
+        TenantDecisions decisions = this.getDecisions(tenantId);
+        decisions.generation.incrementAndGet();
+        decisions.decisions.clear();
+    }
+
+    private TenantDecisions getDecisions(int tenantId) {
+        TenantDecisions decisions = tenants.get(tenantId);
+        if (decisions == null) {
+            TenantDecisions newDecisions = new TenantDecisions();
+            decisions = tenants.putIfAbsent(tenantId, newDecisions);
+            if (decisions == null) {
+                decisions = newDecisions;
+            }
+        }
+        return decisions;
+    }
+
+    private static String getKey(String username, DeviceIdentifier deviceId, String permission) {
+        return username + '\n' + deviceId.getType() + '\n' + deviceId.getId() + '\n' +
+                ((permission != null) ? permission : "");
+    }
+
+    private static class TenantDecisions {
+
+        /* Incremented on every invalidation, so that decisions made before it are not used even if put after it. */
+        private final AtomicLong generation = new AtomicLong();
+        private final ConcurrentMap<String, Decision> decisions = new ConcurrentHashMap<>();
+
+    }
+
+    private static class Decision {
+
+        private final boolean authorized;
+        private final long generation;
+        private final long decidedTime = System.currentTimeMillis();
+
+        Decision(boolean authorized, long generation) {
+            this.authorized = authorized;
+            this.generation = generation;
+        }
+
+    }
+
+}
@@ -17,9 +17,14 @@
  */
 package org.wso2.carbon.device.mgt.core.config;
 
+import org.wso2.carbon.device.mgt.core.config.authorization.DeviceAccessDecisionCacheConfiguration;
+import org.wso2.carbon.device.mgt.core.config.device.details.DeviceDetailsBufferConfiguration;
+import org.wso2.carbon.device.mgt.core.config.group.GroupMembershipCacheConfiguration;
 import org.wso2.carbon.device.mgt.core.config.identity.IdentityConfigurations;
 import org.wso2.carbon.device.mgt.core.config.pagination.PaginationConfiguration;
 import org.wso2.carbon.device.mgt.core.config.policy.PolicyConfiguration;
+import org.wso2.carbon.device.mgt.core.config.push.notification.PushNotificationConfiguration;
+import org.wso2.carbon.device.mgt.core.config.search.SearchIndexConfiguration;
 import org.wso2.carbon.device.mgt.core.config.task.TaskConfiguration;
 
 import javax.xml.bind.annotation.XmlElement;
@@ -40,6 +45,12 @@ public final class DeviceManagementConfig {
     private PolicyConfiguration policyConfiguration;
     private PaginationConfiguration paginationConfiguration;
     private List<String> pushNotificationProviders;
+    private String operationPayloadCodec;
+    private PushNotificationConfiguration pushNotificationConfiguration;
+    private DeviceDetailsBufferConfiguration deviceDetailsBufferConfiguration;
+    private SearchIndexConfiguration searchIndexConfiguration;
+    private GroupMembershipCacheConfiguration groupMembershipCacheConfiguration;
+    private DeviceAccessDecisionCacheConfiguration deviceAccessDecisionCacheConfiguration;
 
 
     @XmlElement(name = "ManagementRepository", required = true)
@@ -89,6 +100,15 @@ public final class DeviceManagementConfig {
         this.pushNotificationProviders = pushNotificationProviders;
     }
 
+    @XmlElement(name = "OperationPayloadCodec")
+    public String getOperationPayloadCodec() {
+        return operationPayloadCodec;
+    }
+
+    public void setOperationPayloadCodec(String operationPayloadCodec) {
+        this.operationPayloadCodec = operationPayloadCodec;
+    }
+
     @XmlElement(name = "PaginationConfiguration", required = true)
     public PaginationConfiguration getPaginationConfiguration() {
         return paginationConfiguration;
@@ -98,5 +118,51 @@ public final class DeviceManagementConfig {
         this.paginationConfiguration = paginationConfiguration;
     }
 
-}
+    @XmlElement(name = "PushNotificationConfiguration")
+    public PushNotificationConfiguration getPushNotificationConfiguration() {
+        return pushNotificationConfiguration;
+    }
 
+    public void setPushNotificationConfiguration(PushNotificationConfiguration pushNotificationConfiguration) {
+        this.pushNotificationConfiguration = pushNotificationConfiguration;
+    }
+
+    @XmlElement(name = "DeviceDetailsBufferConfiguration")
+    public DeviceDetailsBufferConfiguration getDeviceDetailsBufferConfiguration() {
+        return deviceDetailsBufferConfiguration;
+    }
+
+    public void setDeviceDetailsBufferConfiguration(DeviceDetailsBufferConfiguration deviceDetailsBufferConfiguration) {
+        this.deviceDetailsBufferConfiguration = deviceDetailsBufferConfiguration;
+    }
+
+    @XmlElement(name = "SearchIndexConfiguration")
+    public SearchIndexConfiguration getSearchIndexConfiguration() {
+        return searchIndexConfiguration;
+    }
+
+    public void setSearchIndexConfiguration(SearchIndexConfiguration searchIndexConfiguration) {
+        this.searchIndexConfiguration = searchIndexConfiguration;
+    }
+
+    @XmlElement(name = "GroupMembershipCacheConfiguration")
+    public GroupMembershipCacheConfiguration getGroupMembershipCacheConfiguration() {
+        return groupMembershipCacheConfiguration;
+    }
+
+    public void setGroupMembershipCacheConfiguration(
+            GroupMembershipCacheConfiguration groupMembershipCacheConfiguration) {
+        this.groupMembershipCacheConfiguration = groupMembershipCacheConfiguration;
+    }
+
+    @XmlElement(name = "DeviceAccessDecisionCacheConfiguration")
+    public DeviceAccessDecisionCacheConfiguration getDeviceAccessDecisionCacheConfiguration() {
+        return deviceAccessDecisionCacheConfiguration;
+    }
+
+    public void setDeviceAccessDecisionCacheConfiguration(
+            DeviceAccessDecisionCacheConfiguration deviceAccessDecisionCacheConfiguration) {
+        this.deviceAccessDecisionCacheConfiguration = deviceAccessDecisionCacheConfiguration;
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.config.authorization;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * This class represents the information related to the cache of device access decisions, i.e. whether a user owns a
+ * device or is granted a permission on it through a group.
+ */
+@XmlRootElement(name = "DeviceAccessDecisionCacheConfiguration")
+public class DeviceAccessDecisionCacheConfiguration {
+
+    private boolean enabled;
+    private long expiryTime;
+    private int capacity;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @XmlElement(name = "Enabled", required = true)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getExpiryTime() {
+        return expiryTime;
+    }
+
+    @XmlElement(name = "ExpiryTime", required = true)
+    public void setExpiryTime(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @XmlElement(name = "Capacity")
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.config.device.details;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * This class represents the information related to buffering the device information and location reports before
+ * they are written to the database.
+ */
+@XmlRootElement(name = "DeviceDetailsBufferConfiguration")
+public class DeviceDetailsBufferConfiguration {
+
+    private boolean enabled;
+    private long flushInterval;
+    private int flushBatchSize;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @XmlElement(name = "Enabled", required = true)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    @XmlElement(name = "FlushInterval", required = true)
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    @XmlElement(name = "FlushBatchSize", required = true)
+    public void setFlushBatchSize(int flushBatchSize) {
+        this.flushBatchSize = flushBatchSize;
+    }
+
+}
@@ -32,6 +32,16 @@ public class PolicyConfiguration {
     private int maxRetries;
     private int minRetriesToMarkUnreachable;
     private int minRetriesToMarkInactive;
+    private int delegationPartitionSize;
+    private int delegationThreadPoolSize;
+    private boolean incrementalMonitoring;
+    private int monitoringBuckets;
+    private int monitoringPageSize;
+    private int monitoringThreadPoolSize;
+    private long complianceRecheckInterval;
+    private boolean effectivePolicyStoreEnabled;
+    private long effectivePolicyStoreExpiryTime;
+    private int effectivePolicyStoreCapacity;
     private List<String> platforms;
 
     @XmlElement(name = "MonitoringClass", required = true)
@@ -88,6 +98,96 @@ public class PolicyConfiguration {
         this.monitoringFrequency = monitoringFrequency;
     }
 
+    @XmlElement(name = "DelegationPartitionSize")
+    public int getDelegationPartitionSize() {
+        return delegationPartitionSize;
+    }
+
+    public void setDelegationPartitionSize(int delegationPartitionSize) {
+        this.delegationPartitionSize = delegationPartitionSize;
+    }
+
+    @XmlElement(name = "DelegationThreadPoolSize")
+    public int getDelegationThreadPoolSize() {
+        return delegationThreadPoolSize;
+    }
+
+    public void setDelegationThreadPoolSize(int delegationThreadPoolSize) {
+        this.delegationThreadPoolSize = delegationThreadPoolSize;
+    }
+
+    @XmlElement(name = "IncrementalMonitoring")
+    public boolean getIncrementalMonitoring() {
+        return incrementalMonitoring;
+    }
+
+    public void setIncrementalMonitoring(boolean incrementalMonitoring) {
+        this.incrementalMonitoring = incrementalMonitoring;
+    }
+
+    @XmlElement(name = "MonitoringBuckets")
+    public int getMonitoringBuckets() {
+        return monitoringBuckets;
+    }
+
+    public void setMonitoringBuckets(int monitoringBuckets) {
+        this.monitoringBuckets = monitoringBuckets;
+    }
+
+    @XmlElement(name = "MonitoringPageSize")
+    public int getMonitoringPageSize() {
+        return monitoringPageSize;
+    }
+
+    public void setMonitoringPageSize(int monitoringPageSize) {
+        this.monitoringPageSize = monitoringPageSize;
+    }
+
+    @XmlElement(name = "MonitoringThreadPoolSize")
+    public int getMonitoringThreadPoolSize() {
+        return monitoringThreadPoolSize;
+    }
+
+    public void setMonitoringThreadPoolSize(int monitoringThreadPoolSize) {
+        this.monitoringThreadPoolSize = monitoringThreadPoolSize;
+    }
+
+    @XmlElement(name = "ComplianceRecheckInterval")
+    public long getComplianceRecheckInterval() {
+        return complianceRecheckInterval;
+    }
+
+    public void setComplianceRecheckInterval(long complianceRecheckInterval) {
+        this.complianceRecheckInterval = complianceRecheckInterval;
+    }
+
+    @XmlElement(name = "EffectivePolicyStoreEnabled")
+    public boolean getEffectivePolicyStoreEnabled() {
+        return effectivePolicyStoreEnabled;
+    }
+
+    public void setEffectivePolicyStoreEnabled(boolean effectivePolicyStoreEnabled) {
+        this.effectivePolicyStoreEnabled = effectivePolicyStoreEnabled;
+    }
+
+    @XmlElement(name = "EffectivePolicyStoreExpiryTime")
+    public long getEffectivePolicyStoreExpiryTime() {
+        return effectivePolicyStoreExpiryTime;
+    }
+
+    public void setEffectivePolicyStoreExpiryTime(long effectivePolicyStoreExpiryTime) {
+        this.effectivePolicyStoreExpiryTime = effectivePolicyStoreExpiryTime;
+    }
+
+    @XmlElement(name = "EffectivePolicyStoreCapacity")
+    public int getEffectivePolicyStoreCapacity() {
+        return effectivePolicyStoreCapacity;
+    }
+
+    public void setEffectivePolicyStoreCapacity(int effectivePolicyStoreCapacity) {
+        this.effectivePolicyStoreCapacity = effectivePolicyStoreCapacity;
+    }
+
     @XmlElementWrapper(name = "Platforms", required = true)
     @XmlElement(name = "Platform", required = true)
     public List<String> getPlatforms() {
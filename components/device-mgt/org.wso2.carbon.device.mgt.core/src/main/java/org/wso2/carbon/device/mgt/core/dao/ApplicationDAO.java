@@ -21,6 +21,7 @@ package org.wso2.carbon.device.mgt.core.dao;
 import org.wso2.carbon.device.mgt.common.app.mgt.Application;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ApplicationDAO {
 
@@ -35,4 +36,7 @@ public interface ApplicationDAO {
     Application getApplication(String identifier, String version,int tenantId) throws DeviceManagementDAOException;
 
     List<Application> getInstalledApplications(int deviceId) throws DeviceManagementDAOException;
+
+    Map<Integer, List<Application>> getInstalledApplications(List<Integer> deviceIds)
+            throws DeviceManagementDAOException;
 }
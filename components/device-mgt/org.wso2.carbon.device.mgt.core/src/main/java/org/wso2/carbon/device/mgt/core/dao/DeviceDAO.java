@@ -409,5 +409,27 @@ public interface DeviceDAO {
      */
     List<EnrolmentInfo> getEnrolmentsByStatus(List<DeviceIdentifier> deviceIds, Status status,
                                               int tenantId) throws DeviceManagementDAOException;
-}
 
+    /**
+     * This method is used to retrieve the enrollment ids of a given list of devices using set-based lookups
+     * rather than one query per device. When a device carries more than one enrollment the latest is returned.
+     *
+     * @param deviceIds A list of device identifiers.
+     * @param tenantId  tenant id.
+     * @return returns a list of enrollment ids. Devices which could not be found are skipped.
+     * @throws DeviceManagementDAOException
+     */
+    List<Integer> getEnrolmentIds(List<DeviceIdentifier> deviceIds, int tenantId) throws DeviceManagementDAOException;
+
+    /**
+     * This method is used to retrieve a given list of devices using set-based lookups rather than one query per
+     * device. When a device carries more than one enrollment, the enrollment chosen is the one getDevice would choose,
+     * i.e. an active enrollment if there is one.
+     *
+     * @param deviceIds A list of device identifiers.
+     * @param tenantId  tenant id.
+     * @return returns a list of devices. Devices which could not be found are skipped.
+     * @throws DeviceManagementDAOException
+     */
+    List<Device> getDevices(List<DeviceIdentifier> deviceIds, int tenantId) throws DeviceManagementDAOException;
+}
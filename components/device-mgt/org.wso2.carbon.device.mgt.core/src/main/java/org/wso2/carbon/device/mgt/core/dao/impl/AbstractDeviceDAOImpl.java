@@ -23,6 +23,7 @@ import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.common.EnrolmentInfo.Status;
 import org.wso2.carbon.device.mgt.common.PaginationRequest;
+import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
@@ -40,6 +41,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public abstract class AbstractDeviceDAOImpl implements DeviceDAO {
 
@@ -932,6 +934,142 @@ public abstract class AbstractDeviceDAOImpl implements DeviceDAO {
         }
     }
 
+    @Override
+    public List<Integer> getEnrolmentIds(List<DeviceIdentifier> deviceIds,
+                                         int tenantId) throws DeviceManagementDAOException {
+        Map<String, List<String>> identifiersByType = new HashMap<>();
+        for (DeviceIdentifier deviceId : deviceIds) {
+            List<String> identifiers = identifiersByType.get(deviceId.getType());
+            if (identifiers == null) {
+                identifiers = new ArrayList<>();
+                identifiersByType.put(deviceId.getType(), identifiers);
+            }
+            identifiers.add(deviceId.getId());
+        }
+        // A device may carry several enrolments, hence only the latest one is retained per device.
+        Map<Integer, Integer> enrolmentIdsByDevice = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : identifiersByType.entrySet()) {
+            List<String> identifiers = entry.getValue();
+            for (int from = 0; from < identifiers.size();
+                 from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+                int to = Math.min(from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE,
+                                  identifiers.size());
+                this.loadEnrolmentIds(entry.getKey(), identifiers.subList(from, to), tenantId,
+                                      enrolmentIdsByDevice);
+            }
+        }
+        return new ArrayList<>(enrolmentIdsByDevice.values());
+    }
+
+    private void loadEnrolmentIds(String type, List<String> identifiers, int tenantId,
+                                  Map<Integer, Integer> enrolmentIdsByDevice) throws DeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getConnection();
+            StringBuilder sql = new StringBuilder();
+            sql.append("SELECT e.ID AS ENROLMENT_ID, e.DEVICE_ID FROM DM_ENROLMENT e, DM_DEVICE d, " +
+                    "DM_DEVICE_TYPE t WHERE e.DEVICE_ID = d.ID AND d.DEVICE_TYPE_ID = t.ID AND t.NAME = ? " +
+                    "AND d.TENANT_ID = ? AND e.TENANT_ID = ? AND d.DEVICE_IDENTIFICATION IN (");
+            for (int i = 0; i < identifiers.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+
+            stmt = conn.prepareStatement(sql.toString());
+            int index = 1;
+            stmt.setString(index++, type);
+            stmt.setInt(index++, tenantId);
+            stmt.setInt(index++, tenantId);
+            for (String identifier : identifiers) {
+                stmt.setString(index++, identifier);
+            }
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                int deviceId = rs.getInt("DEVICE_ID");
+                int enrolmentId = rs.getInt("ENROLMENT_ID");
+                Integer current = enrolmentIdsByDevice.get(deviceId);
+                if (current == null || current < enrolmentId) {
+                    enrolmentIdsByDevice.put(deviceId, enrolmentId);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while retrieving the enrolment ids of '" + type +
+                    "' devices", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+    }
+
+    @Override
+    public List<Device> getDevices(List<DeviceIdentifier> deviceIds, int tenantId)
+            throws DeviceManagementDAOException {
+        Map<String, List<String>> identifiersByType = new HashMap<>();
+        for (DeviceIdentifier deviceId : deviceIds) {
+            List<String> identifiers = identifiersByType.get(deviceId.getType());
+            if (identifiers == null) {
+                identifiers = new ArrayList<>();
+                identifiersByType.put(deviceId.getType(), identifiers);
+            }
+            identifiers.add(deviceId.getId());
+        }
+        Map<Integer, Device> devices = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : identifiersByType.entrySet()) {
+            List<String> identifiers = entry.getValue();
+            for (int from = 0; from < identifiers.size();
+                 from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+                int to = Math.min(from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE,
+                                  identifiers.size());
+                this.loadDevices(entry.getKey(), identifiers.subList(from, to), tenantId, devices);
+            }
+        }
+        return new ArrayList<>(devices.values());
+    }
+
+    private void loadDevices(String type, List<String> identifiers, int tenantId,
+                             Map<Integer, Device> devices) throws DeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getConnection();
+            StringBuilder sql = new StringBuilder();
+            sql.append("SELECT d.ID AS DEVICE_ID, d.DESCRIPTION, d.NAME AS DEVICE_NAME, t.NAME AS DEVICE_TYPE, " +
+                    "d.DEVICE_IDENTIFICATION, e.OWNER, e.OWNERSHIP, e.STATUS, e.DATE_OF_LAST_UPDATE, " +
+                    "e.DATE_OF_ENROLMENT, e.ID AS ENROLMENT_ID FROM DM_ENROLMENT e, DM_DEVICE d, DM_DEVICE_TYPE t " +
+                    "WHERE e.DEVICE_ID = d.ID AND d.DEVICE_TYPE_ID = t.ID AND t.NAME = ? AND d.TENANT_ID = ? " +
+                    "AND e.TENANT_ID = ? AND d.DEVICE_IDENTIFICATION IN (");
+            for (int i = 0; i < identifiers.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+
+            stmt = conn.prepareStatement(sql.toString());
+            int index = 1;
+            stmt.setString(index++, type);
+            stmt.setInt(index++, tenantId);
+            stmt.setInt(index++, tenantId);
+            for (String identifier : identifiers) {
+                stmt.setString(index++, identifier);
+            }
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                Device device = DeviceManagementDAOUtil.loadDevice(rs);
+                Device current = devices.get(device.getId());
+                // A device may carry several enrolments, hence the one getDevice would match is retained per device.
+                if (current == null || DeviceManagementDAOUtil.isPreferredEnrolment(device.getEnrolmentInfo(),
+                                                                                    current.getEnrolmentInfo())) {
+                    devices.put(device.getId(), device);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while retrieving '" + type + "' devices", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+    }
+
     public List<Device> getDevicesByStatus(EnrolmentInfo.Status status, int tenantId)
             throws DeviceManagementDAOException {
         Connection conn;
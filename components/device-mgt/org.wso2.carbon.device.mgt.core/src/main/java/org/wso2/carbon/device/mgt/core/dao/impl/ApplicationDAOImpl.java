@@ -21,6 +21,7 @@ package org.wso2.carbon.device.mgt.core.dao.impl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.app.mgt.Application;
+import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.core.dao.ApplicationDAO;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
@@ -29,7 +30,9 @@ import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
 import java.io.*;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class ApplicationDAOImpl implements ApplicationDAO {
@@ -292,6 +295,48 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         return applications;
     }
 
+    @Override
+    public Map<Integer, List<Application>> getInstalledApplications(List<Integer> deviceIds)
+            throws DeviceManagementDAOException {
+        Map<Integer, List<Application>> applications = new HashMap<>();
+        for (int from = 0; from < deviceIds.size();
+             from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+            List<Integer> ids = deviceIds.subList(from, Math.min(
+                    from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE, deviceIds.size()));
+            Connection conn;
+            PreparedStatement stmt = null;
+            ResultSet rs = null;
+            try {
+                conn = this.getConnection();
+                stmt = conn.prepareStatement("SELECT APPMAP.DEVICE_ID, app.ID, app.NAME, app.APP_IDENTIFIER, " +
+                        "app.PLATFORM, app.CATEGORY, app.VERSION, app.TYPE, app.LOCATION_URL, app.IMAGE_URL, " +
+                        "app.APP_PROPERTIES, app.MEMORY_USAGE, app.IS_ACTIVE, app.TENANT_ID FROM DM_APPLICATION app " +
+                        "INNER JOIN DM_DEVICE_APPLICATION_MAPPING APPMAP ON app.ID = APPMAP.APPLICATION_ID " +
+                        "WHERE APPMAP.DEVICE_ID IN (" + DeviceManagementDAOUtil.getInClause(ids.size()) + ")");
+                int index = 1;
+                for (int deviceId : ids) {
+                    stmt.setInt(index++, deviceId);
+                }
+                rs = stmt.executeQuery();
+                while (rs.next()) {
+                    int deviceId = rs.getInt("DEVICE_ID");
+                    List<Application> deviceApplications = applications.get(deviceId);
+                    if (deviceApplications == null) {
+                        deviceApplications = new ArrayList<>();
+                        applications.put(deviceId, deviceApplications);
+                    }
+                    deviceApplications.add(loadApplication(rs));
+                }
+            } catch (SQLException e) {
+                throw new DeviceManagementDAOException("SQL Error occurred while retrieving the list of Applications " +
+                        "installed in " + deviceIds.size() + " devices", e);
+            } finally {
+                DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+            }
+        }
+        return applications;
+    }
+
     private Application loadApplication(ResultSet rs) throws DeviceManagementDAOException {
         ByteArrayInputStream bais;
         ObjectInputStream ois;
@@ -36,13 +36,19 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 
 public final class DeviceManagementDAOUtil {
 
     private static final Log log = LogFactory.getLog(DeviceManagementDAOUtil.class);
+    private static final List<EnrolmentInfo.Status> ENROLMENT_PREFERENCE = Arrays.asList(
+            EnrolmentInfo.Status.ACTIVE, EnrolmentInfo.Status.UNREACHABLE, EnrolmentInfo.Status.INACTIVE,
+            EnrolmentInfo.Status.DISENROLLMENT_REQUESTED, EnrolmentInfo.Status.CREATED, EnrolmentInfo.Status.REMOVED,
+            EnrolmentInfo.Status.UNCLAIMED, EnrolmentInfo.Status.SUSPENDED, EnrolmentInfo.Status.BLOCKED);
 
     public static void cleanupResources(Connection conn, PreparedStatement stmt, ResultSet rs) {
         if (rs != null) {
@@ -273,6 +279,20 @@ public final class DeviceManagementDAOUtil {
         return device;
     }
 
+    /**
+     * Tells whether an enrolment of a device is to be chosen over another enrolment of the same device, in the order
+     * of preference of loadMatchingDevice: an active enrolment, then an unreachable, inactive, disenrollment
+     * requested, created, removed, unclaimed, suspended and blocked one.
+     */
+    public static boolean isPreferredEnrolment(EnrolmentInfo enrolmentInfo, EnrolmentInfo current) {
+        return getEnrolmentPreference(enrolmentInfo) < getEnrolmentPreference(current);
+    }
+
+    private static int getEnrolmentPreference(EnrolmentInfo enrolmentInfo) {
+        int preference = ENROLMENT_PREFERENCE.indexOf(enrolmentInfo.getStatus());
+        return (preference < 0) ? ENROLMENT_PREFERENCE.size() : preference;
+    }
+
     public static DeviceType loadDeviceType(ResultSet rs) throws SQLException {
         DeviceType deviceType = new DeviceType();
         deviceType.setId(rs.getInt("ID"));
@@ -280,6 +300,17 @@ public final class DeviceManagementDAOUtil {
         return deviceType;
     }
 
+    /**
+     * Builds the placeholder list of an IN clause, e.g. "?, ?, ?" for three values.
+     */
+    public static String getInClause(int size) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        return placeholders.toString();
+    }
+
     public static DeviceInfo loadDeviceInfo(ResultSet rs) throws SQLException {
         DeviceInfo deviceInfo = new DeviceInfo();
 //                deviceInfo.setIMEI(rs.getString("IMEI"));
@@ -22,6 +22,7 @@ package org.wso2.carbon.device.mgt.core.device.details.mgt.dao;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -47,6 +48,24 @@ public interface DeviceDetailsDAO {
      */
     void addDeviceProperties(Map<String, String> propertyMap, int deviceId) throws DeviceDetailsMgtDAOException;
 
+    /**
+     * This method will store the device information reported by a device. Stored information is written only if
+     * the reported information differs from it, hence a repeated report does not write anything.
+     * @param deviceId - id of the device.
+     * @param deviceInfo - Device information object.
+     * @throws DeviceDetailsMgtDAOException
+     */
+    void updateDeviceInformation(int deviceId, DeviceInfo deviceInfo) throws DeviceDetailsMgtDAOException;
+
+    /**
+     * This method will store the device properties reported by a device. Only the properties that have been added,
+     * changed or removed since the stored report are written.
+     * @param propertyMap - device properties.
+     * @param deviceId - id of the device.
+     * @throws DeviceDetailsMgtDAOException
+     */
+    void updateDeviceProperties(Map<String, String> propertyMap, int deviceId) throws DeviceDetailsMgtDAOException;
+
     /**
      * This method will return the device information when device id is provided.
      * @param deviceId - device Id
@@ -55,6 +74,14 @@ public interface DeviceDetailsDAO {
      */
     DeviceInfo getDeviceInformation(int deviceId) throws DeviceDetailsMgtDAOException;
 
+    /**
+     * This method will return the device information of several devices at once.
+     * @param deviceIds - ids of the devices.
+     * @return - device information keyed by device id. Devices without information are not included.
+     * @throws DeviceDetailsMgtDAOException
+     */
+    Map<Integer, DeviceInfo> getDeviceInformation(List<Integer> deviceIds) throws DeviceDetailsMgtDAOException;
+
     /**
      * This method will return the device properties from database.
      * @param deviceId
@@ -84,6 +111,14 @@ public interface DeviceDetailsDAO {
      */
     void addDeviceLocation(DeviceLocation deviceLocation) throws DeviceDetailsMgtDAOException;
 
+    /**
+     * This method will store the location reported by a device. The stored location is written only if the reported
+     * location differs from it.
+     * @param deviceLocation  - Device location with latitude and longitude.
+     * @throws DeviceDetailsMgtDAOException
+     */
+    void updateDeviceLocation(DeviceLocation deviceLocation) throws DeviceDetailsMgtDAOException;
+
     /**
      * This method will return the device location object when the device id is provided.
      * @param deviceId - id of the device.
@@ -92,6 +127,14 @@ public interface DeviceDetailsDAO {
      */
     DeviceLocation getDeviceLocation(int deviceId) throws DeviceDetailsMgtDAOException;
 
+    /**
+     * This method will return the locations of several devices at once.
+     * @param deviceIds - ids of the devices.
+     * @return - device locations keyed by device id. Devices without a location are not included.
+     * @throws DeviceDetailsMgtDAOException
+     */
+    Map<Integer, DeviceLocation> getDeviceLocations(List<Integer> deviceIds) throws DeviceDetailsMgtDAOException;
+
     /**
      * This method will delete the device location from the database.
      * @param deviceId
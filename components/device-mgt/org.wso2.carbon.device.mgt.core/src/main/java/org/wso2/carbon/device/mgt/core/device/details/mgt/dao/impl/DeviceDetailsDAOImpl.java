@@ -23,22 +23,42 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsMgtDAOException;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
 
     private static Log log = LogFactory.getLog(DeviceDetailsDAOImpl.class);
 
+    private static final String[] DETAIL_COLUMNS = {"DEVICE_MODEL", "VENDOR", "OS_VERSION", "OS_BUILD_DATE",
+            "BATTERY_LEVEL", "INTERNAL_TOTAL_MEMORY", "INTERNAL_AVAILABLE_MEMORY", "EXTERNAL_TOTAL_MEMORY",
+            "EXTERNAL_AVAILABLE_MEMORY", "CONNECTION_TYPE", "SSID", "CPU_USAGE", "TOTAL_RAM_MEMORY",
+            "AVAILABLE_RAM_MEMORY", "PLUGGED_IN"};
+    // SQL types of the columns above, in the same order, used when binding a value which has not been reported.
+    private static final int[] DETAIL_COLUMN_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.DECIMAL, Types.DECIMAL, Types.DECIMAL, Types.DECIMAL, Types.DECIMAL, Types.VARCHAR, Types.VARCHAR,
+            Types.DECIMAL, Types.DECIMAL, Types.DECIMAL, Types.BOOLEAN};
+    private static final String[] LOCATION_COLUMNS = {"LATITUDE", "LONGITUDE", "STREET1", "STREET2", "CITY", "ZIP",
+            "STATE", "COUNTRY"};
+    private static final int[] LOCATION_COLUMN_TYPES = {Types.DOUBLE, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+
     @Override
     public void addDeviceInformation(int deviceId, DeviceInfo deviceInfo) throws DeviceDetailsMgtDAOException {
 
@@ -111,6 +131,88 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
 
     }
 
+    @Override
+    public void updateDeviceInformation(int deviceId, DeviceInfo deviceInfo) throws DeviceDetailsMgtDAOException {
+        Object[] values = {deviceInfo.getDeviceModel(), deviceInfo.getVendor(), deviceInfo.getOsVersion(),
+                deviceInfo.getOsBuildDate(), deviceInfo.getBatteryLevel(), deviceInfo.getInternalTotalMemory(),
+                deviceInfo.getInternalAvailableMemory(), deviceInfo.getExternalTotalMemory(),
+                deviceInfo.getExternalAvailableMemory(), deviceInfo.getConnectionType(), deviceInfo.getSsid(),
+                deviceInfo.getCpuUsage(), deviceInfo.getTotalRAMMemory(), deviceInfo.getAvailableRAMMemory(),
+                deviceInfo.isPluggedIn()};
+        try {
+            if (!this.writeIfChanged("DM_DEVICE_DETAIL", DETAIL_COLUMNS, DETAIL_COLUMN_TYPES, deviceId,
+                    values) && log.isDebugEnabled()) {
+                log.debug("Details of device id :" + deviceId + " are unchanged.");
+            }
+        } catch (SQLException e) {
+            throw new DeviceDetailsMgtDAOException("Error occurred while updating device details in database.", e);
+        }
+    }
+
+    @Override
+    public void updateDeviceProperties(Map<String, String> propertyMap, int deviceId)
+            throws DeviceDetailsMgtDAOException {
+        Map<String, String> storedProperties = this.getDeviceProperties(deviceId);
+        Map<String, String> addedProperties = new HashMap<>();
+        Map<String, String> changedProperties = new HashMap<>();
+        if (propertyMap != null) {
+            for (Map.Entry<String, String> entry : propertyMap.entrySet()) {
+                if (!storedProperties.containsKey(entry.getKey())) {
+                    addedProperties.put(entry.getKey(), entry.getValue());
+                } else if (!isEqual(storedProperties.remove(entry.getKey()), entry.getValue())) {
+                    changedProperties.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        // Whatever is left of the stored properties has not been reported this time.
+        List<String> removedKeys = new ArrayList<>(storedProperties.keySet());
+
+        Connection conn;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getConnection();
+            if (!changedProperties.isEmpty()) {
+                stmt = conn.prepareStatement("UPDATE DM_DEVICE_INFO SET VALUE_FIELD = ? WHERE DEVICE_ID = ? AND " +
+                        "KEY_FIELD = ?");
+                for (Map.Entry<String, String> entry : changedProperties.entrySet()) {
+                    stmt.setString(1, entry.getValue());
+                    stmt.setInt(2, deviceId);
+                    stmt.setString(3, entry.getKey());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                DeviceManagementDAOUtil.cleanupResources(stmt, null);
+                stmt = null;
+            }
+            if (!addedProperties.isEmpty()) {
+                stmt = conn.prepareStatement("INSERT INTO DM_DEVICE_INFO (DEVICE_ID, KEY_FIELD, VALUE_FIELD) " +
+                        "VALUES (?, ?, ?)");
+                for (Map.Entry<String, String> entry : addedProperties.entrySet()) {
+                    stmt.setInt(1, deviceId);
+                    stmt.setString(2, entry.getKey());
+                    stmt.setString(3, entry.getValue());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                DeviceManagementDAOUtil.cleanupResources(stmt, null);
+                stmt = null;
+            }
+            if (!removedKeys.isEmpty()) {
+                stmt = conn.prepareStatement("DELETE FROM DM_DEVICE_INFO WHERE DEVICE_ID = ? AND KEY_FIELD = ?");
+                for (String key : removedKeys) {
+                    stmt.setInt(1, deviceId);
+                    stmt.setString(2, key);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new DeviceDetailsMgtDAOException("Error occurred while updating device properties in database.", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
     @Override
     public DeviceInfo getDeviceInformation(int deviceId) throws DeviceDetailsMgtDAOException {
         Connection conn;
@@ -157,6 +259,42 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
         }
     }
 
+    @Override
+    public Map<Integer, DeviceInfo> getDeviceInformation(List<Integer> deviceIds) throws DeviceDetailsMgtDAOException {
+        Map<Integer, DeviceInfo> deviceInfos = new HashMap<>();
+        for (int from = 0; from < deviceIds.size();
+             from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+            List<Integer> ids = deviceIds.subList(from, Math.min(
+                    from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE, deviceIds.size()));
+            Connection conn;
+            PreparedStatement stmt = null;
+            ResultSet rs = null;
+            try {
+                conn = this.getConnection();
+                stmt = conn.prepareStatement("SELECT * FROM DM_DEVICE_DETAIL WHERE DEVICE_ID IN (" +
+                        DeviceManagementDAOUtil.getInClause(ids.size()) + ")");
+                int index = 1;
+                for (int deviceId : ids) {
+                    stmt.setInt(index++, deviceId);
+                }
+                rs = stmt.executeQuery();
+                while (rs.next()) {
+                    int deviceId = rs.getInt("DEVICE_ID");
+                    // Matches the single device lookup, which picks the first row of a device.
+                    if (!deviceInfos.containsKey(deviceId)) {
+                        deviceInfos.put(deviceId, DeviceManagementDAOUtil.loadDeviceInfo(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DeviceDetailsMgtDAOException("Error occurred while fetching the details of the registered " +
+                        "devices.", e);
+            } finally {
+                DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+            }
+        }
+        return deviceInfos;
+    }
+
     @Override
     public Map<String, String> getDeviceProperties(int deviceId) throws DeviceDetailsMgtDAOException {
 
@@ -247,6 +385,22 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
         }
     }
 
+    @Override
+    public void updateDeviceLocation(DeviceLocation deviceLocation) throws DeviceDetailsMgtDAOException {
+        Object[] values = {deviceLocation.getLatitude(), deviceLocation.getLongitude(), deviceLocation.getStreet1(),
+                deviceLocation.getStreet2(), deviceLocation.getCity(), deviceLocation.getZip(),
+                deviceLocation.getState(), deviceLocation.getCountry()};
+        try {
+            if (!this.writeIfChanged("DM_DEVICE_LOCATION", LOCATION_COLUMNS, LOCATION_COLUMN_TYPES,
+                    deviceLocation.getDeviceId(), values) && log.isDebugEnabled()) {
+                log.debug("Location of device id :" + deviceLocation.getDeviceId() + " is unchanged.");
+            }
+        } catch (SQLException e) {
+            throw new DeviceDetailsMgtDAOException("Error occurred while updating the device location in database.",
+                    e);
+        }
+    }
+
     @Override
     public DeviceLocation getDeviceLocation(int deviceId) throws DeviceDetailsMgtDAOException {
 
@@ -283,6 +437,51 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
         }
     }
 
+    @Override
+    public Map<Integer, DeviceLocation> getDeviceLocations(List<Integer> deviceIds)
+            throws DeviceDetailsMgtDAOException {
+        Map<Integer, DeviceLocation> locations = new HashMap<>();
+        for (int from = 0; from < deviceIds.size();
+             from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+            List<Integer> ids = deviceIds.subList(from, Math.min(
+                    from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE, deviceIds.size()));
+            Connection conn;
+            PreparedStatement stmt = null;
+            ResultSet rs = null;
+            try {
+                conn = this.getConnection();
+                stmt = conn.prepareStatement("SELECT * FROM DM_DEVICE_LOCATION WHERE DEVICE_ID IN (" +
+                        DeviceManagementDAOUtil.getInClause(ids.size()) + ")");
+                int index = 1;
+                for (int deviceId : ids) {
+                    stmt.setInt(index++, deviceId);
+                }
+                rs = stmt.executeQuery();
+                while (rs.next()) {
+                    DeviceLocation location = new DeviceLocation();
+                    location.setDeviceId(rs.getInt("DEVICE_ID"));
+                    location.setLatitude(rs.getDouble("LATITUDE"));
+                    location.setLongitude(rs.getDouble("LONGITUDE"));
+                    location.setStreet1(rs.getString("STREET1"));
+                    location.setStreet2(rs.getString("STREET2"));
+                    location.setCity(rs.getString("CITY"));
+                    location.setZip(rs.getString("ZIP"));
+                    location.setState(rs.getString("STATE"));
+                    location.setCountry(rs.getString("COUNTRY"));
+                    location.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
+                    // Matches the single device lookup, which keeps the last row of a device.
+                    locations.put(location.getDeviceId(), location);
+                }
+            } catch (SQLException e) {
+                throw new DeviceDetailsMgtDAOException("Error occurred while fetching the locations of the registered " +
+                        "devices.", e);
+            } finally {
+                DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+            }
+        }
+        return locations;
+    }
+
     @Override
     public void deleteDeviceLocation(int deviceId) throws DeviceDetailsMgtDAOException {
 
@@ -302,6 +501,113 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
         }
     }
 
+    /**
+     * Writes the given column values of a device to a table holding a single row per device, unless the stored row
+     * already holds the same values. The update timestamp of the row is therefore the time it last changed.
+     *
+     * @return true if the row has been inserted or updated, false if it was left as it is.
+     */
+    private boolean writeIfChanged(String table, String[] columns, int[] columnTypes, int deviceId, Object[] values)
+            throws SQLException {
+        Connection conn = this.getConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        boolean exists;
+        StringBuilder columnList = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            columnList.append(columns[i]).append(", ");
+            assignments.append(columns[i]).append(" = ?, ");
+        }
+        try {
+            stmt = conn.prepareStatement("SELECT " + columnList + "UPDATE_TIMESTAMP FROM " + table +
+                    " WHERE DEVICE_ID = ?");
+            stmt.setInt(1, deviceId);
+            rs = stmt.executeQuery();
+            exists = rs.next();
+            if (exists && this.isUnchanged(rs, values)) {
+                return false;
+            }
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+
+        stmt = null;
+        try {
+            int index = 1;
+            if (exists) {
+                stmt = conn.prepareStatement("UPDATE " + table + " SET " + assignments +
+                        "UPDATE_TIMESTAMP = ? WHERE DEVICE_ID = ?");
+            } else {
+                stmt = conn.prepareStatement("INSERT INTO " + table + " (DEVICE_ID, " + columnList +
+                        "UPDATE_TIMESTAMP) VALUES (?, " + DeviceManagementDAOUtil.getInClause(columns.length) +
+                        ", ?)");
+                stmt.setInt(index++, deviceId);
+            }
+            for (int i = 0; i < values.length; i++) {
+                this.setValue(stmt, index++, values[i], columnTypes[i]);
+            }
+            stmt.setLong(index++, System.currentTimeMillis());
+            if (exists) {
+                stmt.setInt(index, deviceId);
+            }
+            stmt.executeUpdate();
+            return true;
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    private boolean isUnchanged(ResultSet rs, Object[] values) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        for (int i = 0; i < values.length; i++) {
+            int column = i + 1;
+            Object value = values[i];
+            if (value instanceof Double) {
+                int type = metaData.getColumnType(column);
+                if ((type == Types.DECIMAL || type == Types.NUMERIC) && metaData.getPrecision(column) > 0 &&
+                        metaData.getScale(column) >= 0) {
+                    // Decimal columns round the reported value to their scale, hence it is compared the same way.
+                    BigDecimal stored = rs.getBigDecimal(column);
+                    BigDecimal reported = BigDecimal.valueOf((Double) value).setScale(metaData.getScale(column),
+                            RoundingMode.HALF_UP);
+                    if (stored == null || stored.compareTo(reported) != 0) {
+                        return false;
+                    }
+                } else {
+                    double stored = rs.getDouble(column);
+                    if (rs.wasNull() || Double.compare(stored, (Double) value) != 0) {
+                        return false;
+                    }
+                }
+            } else if (value instanceof Boolean) {
+                boolean stored = rs.getBoolean(column);
+                if (rs.wasNull() || stored != (Boolean) value) {
+                    return false;
+                }
+            } else if (!isEqual(rs.getString(column), (String) value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setValue(PreparedStatement stmt, int index, Object value, int sqlType) throws SQLException {
+        if (value instanceof Double) {
+            stmt.setDouble(index, (Double) value);
+        } else if (value instanceof Boolean) {
+            stmt.setBoolean(index, (Boolean) value);
+        } else if (value != null) {
+            stmt.setString(index, (String) value);
+        } else {
+            stmt.setNull(index, sqlType);
+        }
+    }
+
+    private static boolean isEqual(String stored, String reported) {
+        return (stored == null) ? reported == null : stored.equals(reported);
+    }
+
     private Connection getConnection() throws SQLException {
         return DeviceManagementDAOFactory.getConnection();
     }
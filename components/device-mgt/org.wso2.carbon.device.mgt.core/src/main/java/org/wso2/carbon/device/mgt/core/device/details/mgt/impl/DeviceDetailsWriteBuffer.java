@@ -0,0 +1,382 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.device.details.mgt.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.TransactionManagementException;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.device.details.DeviceDetailsBufferConfiguration;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsMgtDAOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds device information and location reports in memory and writes them to the database in batches, so that
+ * devices reporting at a high rate do not cause a write per report. Only the latest information and the latest
+ * location reported by a device within a flush window are kept, and the device is touched once per flush.
+ * <p>
+ * Buffered reports are served by {@link #getDeviceInfo(int)} and {@link #getDeviceLocation(int)} until they are
+ * written, and whatever is buffered is written on {@link #shutdown()}.
+ */
+public class DeviceDetailsWriteBuffer {
+
+    private static final Log log = LogFactory.getLog(DeviceDetailsWriteBuffer.class);
+
+    private static final long DEFAULT_FLUSH_INTERVAL = 5000;
+    private static final int DEFAULT_FLUSH_BATCH_SIZE = 500;
+    private static final long SHUTDOWN_TIMEOUT = 60;
+
+    private final DeviceDAO deviceDAO;
+    private final DeviceDetailsDAO deviceDetailsDAO;
+    private final int flushBatchSize;
+    private final ScheduledExecutorService flushExecutor;
+    private final Runnable flushTask = new FlushTask();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Object lock = new Object();
+    private final Object flushLock = new Object();
+    private Map<Integer, BufferedReport> pendingReports = new LinkedHashMap<>();
+    private Map<Integer, BufferedReport> flushingReports = Collections.emptyMap();
+    private boolean shutdown;
+
+    private final AtomicLong reportedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * Creates a buffer as configured in the device management configuration.
+     *
+     * @return the buffer, or null if buffering is not enabled.
+     */
+    public static DeviceDetailsWriteBuffer fromConfiguration() {
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        DeviceDetailsBufferConfiguration bufferConfig = (config != null) ?
+                config.getDeviceDetailsBufferConfiguration() : null;
+        if (bufferConfig == null || !bufferConfig.isEnabled()) {
+            return null;
+        }
+        return new DeviceDetailsWriteBuffer(
+                (bufferConfig.getFlushInterval() > 0) ? bufferConfig.getFlushInterval() : DEFAULT_FLUSH_INTERVAL,
+                (bufferConfig.getFlushBatchSize() > 0) ? bufferConfig.getFlushBatchSize() :
+                        DEFAULT_FLUSH_BATCH_SIZE);
+    }
+
+    public DeviceDetailsWriteBuffer(long flushInterval, int flushBatchSize) {
+        this.deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        this.deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+        this.flushBatchSize = flushBatchSize;
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "device-details-write-buffer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.flushExecutor.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers the information reported by a device, replacing any information it reported earlier in the current
+     * flush window.
+     *
+     * @return false if the buffer has been shut down, in which case the caller has to write the report itself.
+     */
+    public boolean addDeviceInfo(Device device, int tenantId, DeviceInfo deviceInfo) {
+        return this.add(device, tenantId, deviceInfo, null);
+    }
+
+    /**
+     * Buffers the location reported by a device, replacing any location it reported earlier in the current flush
+     * window.
+     *
+     * @return false if the buffer has been shut down, in which case the caller has to write the report itself.
+     */
+    public boolean addDeviceLocation(Device device, int tenantId, DeviceLocation deviceLocation) {
+        return this.add(device, tenantId, null, deviceLocation);
+    }
+
+    /**
+     * @return the latest information reported by the device that has not been written yet, or null if there is none.
+     */
+    public DeviceInfo getDeviceInfo(int deviceId) {
+        synchronized (lock) {
+            BufferedReport report = pendingReports.get(deviceId);
+            if (report != null && report.deviceInfo != null) {
+                return report.deviceInfo;
+            }
+            report = flushingReports.get(deviceId);
+            return (report != null) ? report.deviceInfo : null;
+        }
+    }
+
+    /**
+     * @return the latest location reported by the device that has not been written yet, or null if there is none.
+     */
+    public DeviceLocation getDeviceLocation(int deviceId) {
+        synchronized (lock) {
+            BufferedReport report = pendingReports.get(deviceId);
+            if (report != null && report.deviceLocation != null) {
+                return report.deviceLocation;
+            }
+            report = flushingReports.get(deviceId);
+            return (report != null) ? report.deviceLocation : null;
+        }
+    }
+
+    /**
+     * Writes all buffered reports, a batch of devices per transaction.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Integer, BufferedReport> reports;
+            synchronized (lock) {
+                if (pendingReports.isEmpty()) {
+                    return;
+                }
+                reports = pendingReports;
+                pendingReports = new LinkedHashMap<>();
+                // Kept visible to readers until written, so that reads never fall back to stale stored details.
+                flushingReports = reports;
+            }
+            try {
+                List<BufferedReport> batch = new ArrayList<>(Math.min(flushBatchSize, reports.size()));
+                for (BufferedReport report : reports.values()) {
+                    batch.add(report);
+                    if (batch.size() == flushBatchSize) {
+                        this.write(batch);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    this.write(batch);
+                }
+            } finally {
+                synchronized (lock) {
+                    flushingReports = Collections.emptyMap();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting reports and writes whatever is buffered.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+        }
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                log.warn("Device details write buffer did not finish its scheduled flush in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.flush();
+        int remaining;
+        synchronized (lock) {
+            remaining = pendingReports.size();
+        }
+        if (remaining > 0) {
+            log.error("Device details write buffer was shut down while " + remaining + " device reports could " +
+                    "not be written");
+        }
+    }
+
+    public long getReportedCount() {
+        return reportedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pendingReports.size();
+        }
+    }
+
+    private boolean add(Device device, int tenantId, DeviceInfo deviceInfo, DeviceLocation deviceLocation) {
+        int pendingCount;
+        synchronized (lock) {
+            if (shutdown) {
+                return false;
+            }
+            BufferedReport report = pendingReports.get(device.getId());
+            if (report == null) {
+                pendingReports.put(device.getId(), new BufferedReport(device, tenantId, deviceInfo, deviceLocation));
+            } else {
+                report.merge(new BufferedReport(device, tenantId, deviceInfo, deviceLocation));
+                coalescedCount.incrementAndGet();
+            }
+            pendingCount = pendingReports.size();
+        }
+        reportedCount.incrementAndGet();
+        if (pendingCount >= flushBatchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(flushTask);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, hence the final flush will pick the report up.
+                flushRequested.set(false);
+            }
+        }
+        return true;
+    }
+
+    private void write(List<BufferedReport> reports) {
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+        } catch (TransactionManagementException e) {
+            log.error("Error occurred while initiating the transaction to write " + reports.size() + " buffered " +
+                    "device reports. They will be retried on the next flush", e);
+            this.requeue(reports);
+            return;
+        }
+        boolean written = false;
+        try {
+            for (BufferedReport report : reports) {
+                this.write(report);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+            written = true;
+        } catch (TransactionManagementException | DeviceManagementDAOException | DeviceDetailsMgtDAOException e) {
+            DeviceManagementDAOFactory.rollbackTransaction();
+            if (reports.size() == 1) {
+                failedCount.incrementAndGet();
+                log.error("Error occurred while writing the buffered report of device '" +
+                        reports.get(0).device.getDeviceIdentifier() + "', hence it is discarded", e);
+            } else if (log.isDebugEnabled()) {
+                log.debug("Error occurred while writing a batch of " + reports.size() + " buffered device " +
+                        "reports, hence writing them one by one", e);
+            }
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        if (written) {
+            writtenCount.addAndGet(reports.size());
+        } else if (reports.size() > 1) {
+            // Isolates the reports that cannot be written, so that they do not hold back the rest of the batch.
+            for (BufferedReport report : reports) {
+                this.write(Collections.singletonList(report));
+            }
+        }
+    }
+
+    private void write(BufferedReport report) throws DeviceManagementDAOException, DeviceDetailsMgtDAOException {
+        deviceDAO.updateDevice(report.device, report.tenantId);
+        if (report.deviceInfo != null) {
+            deviceDetailsDAO.updateDeviceInformation(report.device.getId(), report.deviceInfo);
+            deviceDetailsDAO.updateDeviceProperties(report.deviceInfo.getDeviceDetailsMap(), report.device.getId());
+        }
+        if (report.deviceLocation != null) {
+            deviceDetailsDAO.updateDeviceLocation(report.deviceLocation);
+        }
+    }
+
+    private void requeue(List<BufferedReport> reports) {
+        synchronized (lock) {
+            for (BufferedReport report : reports) {
+                BufferedReport newerReport = pendingReports.get(report.device.getId());
+                if (newerReport == null) {
+                    pendingReports.put(report.device.getId(), report);
+                } else {
+                    report.merge(newerReport);
+                    pendingReports.put(report.device.getId(), report);
+                }
+            }
+        }
+    }
+
+    private class FlushTask implements Runnable {
+
+        @Override
+        public void run() {
+            flushRequested.set(false);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Unexpected error occurred while flushing buffered device reports", e);
+            }
+        }
+
+    }
+
+    private static class BufferedReport {
+
+        private Device device;
+        private int tenantId;
+        private DeviceInfo deviceInfo;
+        private DeviceLocation deviceLocation;
+
+        BufferedReport(Device device, int tenantId, DeviceInfo deviceInfo, DeviceLocation deviceLocation) {
+            this.device = device;
+            this.tenantId = tenantId;
+            this.deviceInfo = deviceInfo;
+            this.deviceLocation = deviceLocation;
+        }
+
+        /**
+         * Applies a later report of the same device on top of this one.
+         */
+        void merge(BufferedReport laterReport) {
+            this.device = laterReport.device;
+            this.tenantId = laterReport.tenantId;
+            if (laterReport.deviceInfo != null) {
+                this.deviceInfo = laterReport.deviceInfo;
+            }
+            if (laterReport.deviceLocation != null) {
+                this.deviceLocation = laterReport.deviceLocation;
+            }
+        }
+
+    }
+
+}
@@ -33,6 +33,7 @@ import org.wso2.carbon.device.mgt.core.device.details.mgt.DeviceInformationManag
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsMgtDAOException;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
+import org.wso2.carbon.device.mgt.core.search.mgt.index.DeviceSearchIndexManager;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -44,26 +45,43 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
 
     private DeviceDetailsDAO deviceDetailsDAO;
     private DeviceDAO deviceDAO;
+    private DeviceDetailsWriteBuffer writeBuffer;
     private static final Log log = LogFactory.getLog(DeviceInformationManagerImpl.class);
 
     public DeviceInformationManagerImpl() {
+        this(null);
+    }
+
+    /**
+     * @param writeBuffer Buffer through which reported device details are written, or null to write them as they
+     *                    are reported.
+     */
+    public DeviceInformationManagerImpl(DeviceDetailsWriteBuffer writeBuffer) {
         this.deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
         this.deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+        this.writeBuffer = writeBuffer;
     }
 
     @Override
     public void addDeviceInfo(DeviceIdentifier deviceId, DeviceInfo deviceInfo) throws DeviceDetailsMgtException {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        if (writeBuffer != null) {
+            Device device = this.getReportingDevice(deviceId);
+            if (writeBuffer.addDeviceInfo(device, tenantId, deviceInfo)) {
+                this.indexDeviceInfo(tenantId, device.getId(), deviceInfo);
+                return;
+            }
+        }
         try {
             Device device = DeviceManagementDataHolder.getInstance().
                     getDeviceManagementProvider().getDevice(deviceId);
 
             DeviceManagementDAOFactory.beginTransaction();
-            deviceDAO.updateDevice(device, CarbonContext.getThreadLocalCarbonContext().getTenantId());
-            deviceDetailsDAO.deleteDeviceInformation(device.getId());
-            deviceDetailsDAO.deleteDeviceProperties(device.getId());
-            deviceDetailsDAO.addDeviceInformation(device.getId(), deviceInfo);
-            deviceDetailsDAO.addDeviceProperties(deviceInfo.getDeviceDetailsMap(), device.getId());
+            deviceDAO.updateDevice(device, tenantId);
+            deviceDetailsDAO.updateDeviceInformation(device.getId(), deviceInfo);
+            deviceDetailsDAO.updateDeviceProperties(deviceInfo.getDeviceDetailsMap(), device.getId());
             DeviceManagementDAOFactory.commitTransaction();
+            this.indexDeviceInfo(tenantId, device.getId(), deviceInfo);
         } catch (TransactionManagementException e) {
             DeviceManagementDAOFactory.rollbackTransaction();
             throw new DeviceDetailsMgtException("Transactional error occurred while adding the device information.", e);
@@ -98,6 +116,12 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
         } catch (DeviceManagementException e) {
             throw new DeviceDetailsMgtException("Exception occurred while retrieving the device.", e);
         }
+        if (writeBuffer != null) {
+            DeviceInfo deviceInfo = writeBuffer.getDeviceInfo(device.getId());
+            if (deviceInfo != null) {
+                return deviceInfo;
+            }
+        }
         try {
             DeviceManagementDAOFactory.openConnection();
             DeviceInfo deviceInfo = deviceDetailsDAO.getDeviceInformation(device.getId());
@@ -133,7 +157,12 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
             }
             DeviceManagementDAOFactory.openConnection();
             for (Integer id : deviceIds) {
-                DeviceInfo deviceInfo = deviceDetailsDAO.getDeviceInformation(id);
+                DeviceInfo deviceInfo = (writeBuffer != null) ? writeBuffer.getDeviceInfo(id) : null;
+                if (deviceInfo != null) {
+                    deviceInfos.add(deviceInfo);
+                    continue;
+                }
+                deviceInfo = deviceDetailsDAO.getDeviceInformation(id);
                 deviceInfo.setDeviceDetailsMap(deviceDetailsDAO.getDeviceProperties(id));
                 deviceInfos.add(deviceInfo);
             }
@@ -151,16 +180,24 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
 
     @Override
     public void addDeviceLocation(DeviceLocation deviceLocation) throws DeviceDetailsMgtException {
-
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        if (writeBuffer != null) {
+            Device device = this.getReportingDevice(deviceLocation.getDeviceIdentifier());
+            deviceLocation.setDeviceId(device.getId());
+            if (writeBuffer.addDeviceLocation(device, tenantId, deviceLocation)) {
+                this.indexDeviceLocation(tenantId, deviceLocation);
+                return;
+            }
+        }
         try {
             Device device = DeviceManagementDataHolder.getInstance().
                     getDeviceManagementProvider().getDevice(deviceLocation.getDeviceIdentifier());
             deviceLocation.setDeviceId(device.getId());
             DeviceManagementDAOFactory.beginTransaction();
-            deviceDAO.updateDevice(device, CarbonContext.getThreadLocalCarbonContext().getTenantId());
-            deviceDetailsDAO.deleteDeviceLocation(deviceLocation.getDeviceId());
-            deviceDetailsDAO.addDeviceLocation(deviceLocation);
+            deviceDAO.updateDevice(device, tenantId);
+            deviceDetailsDAO.updateDeviceLocation(deviceLocation);
             DeviceManagementDAOFactory.commitTransaction();
+            this.indexDeviceLocation(tenantId, deviceLocation);
         } catch (TransactionManagementException e) {
             throw new DeviceDetailsMgtException("Transactional error occurred while adding the device location " +
                     "information.", e);
@@ -194,6 +231,12 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
         } catch (DeviceManagementException e) {
             throw new DeviceDetailsMgtException("Exception occurred while retrieving the device.", e);
         }
+        if (writeBuffer != null) {
+            DeviceLocation deviceLocation = writeBuffer.getDeviceLocation(device.getId());
+            if (deviceLocation != null) {
+                return deviceLocation;
+            }
+        }
         try {
             DeviceManagementDAOFactory.openConnection();
             return deviceDetailsDAO.getDeviceLocation(device.getId());
@@ -216,7 +259,10 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
             List<DeviceLocation> deviceLocations = new ArrayList<>();
             DeviceManagementDAOFactory.openConnection();
             for (Device device : devices) {
-                deviceLocations.add(deviceDetailsDAO.getDeviceLocation(device.getId()));
+                DeviceLocation deviceLocation = (writeBuffer != null) ?
+                        writeBuffer.getDeviceLocation(device.getId()) : null;
+                deviceLocations.add((deviceLocation != null) ? deviceLocation :
+                        deviceDetailsDAO.getDeviceLocation(device.getId()));
             }
             return deviceLocations;
         } catch (DeviceManagementException e) {
@@ -230,5 +276,34 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
         }
     }
 
+    private void indexDeviceInfo(int tenantId, int deviceId, DeviceInfo deviceInfo) {
+        DeviceSearchIndexManager searchIndexManager =
+                DeviceManagementDataHolder.getInstance().getDeviceSearchIndexManager();
+        if (searchIndexManager != null) {
+            searchIndexManager.getIndex(tenantId).updateProperties(deviceId, deviceInfo.getDeviceDetailsMap());
+        }
+    }
+
+    private void indexDeviceLocation(int tenantId, DeviceLocation deviceLocation) {
+        DeviceSearchIndexManager searchIndexManager =
+                DeviceManagementDataHolder.getInstance().getDeviceSearchIndexManager();
+        if (searchIndexManager != null) {
+            searchIndexManager.getIndex(tenantId).updateLocation(deviceLocation.getDeviceId(), deviceLocation);
+        }
+    }
+
+    private Device getReportingDevice(DeviceIdentifier deviceId) throws DeviceDetailsMgtException {
+        try {
+            Device device = DeviceManagementDataHolder.getInstance().getDeviceManagementProvider().getDevice(deviceId);
+            if (device == null) {
+                throw new DeviceDetailsMgtException("No device is found upon the device identifier '" +
+                        deviceId.getId() + "' and type '" + deviceId.getType() + "'");
+            }
+            return device;
+        } catch (DeviceManagementException e) {
+            throw new DeviceDetailsMgtException("Error occurred while retrieving the device information.", e);
+        }
+    }
+
 }
 
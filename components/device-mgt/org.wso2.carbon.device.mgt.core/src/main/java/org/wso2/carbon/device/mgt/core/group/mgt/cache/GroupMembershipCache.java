@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.core.group.mgt.cache;
+
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.group.GroupMembershipCacheConfiguration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the group membership index of each tenant. Indexes are created empty on first use.
+ */
+public class GroupMembershipCache {
+
+    private static final long DEFAULT_EXPIRY_TIME = 300000;
+
+    private final long expiryTime;
+    private final ConcurrentMap<Integer, GroupMembershipIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache as configured in the device management configuration.
+     *
+     * @return the cache, which does not retain entries if it is not enabled.
+     */
+    public static GroupMembershipCache fromConfiguration() {
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        GroupMembershipCacheConfiguration cacheConfig =
+                (config != null) ? config.getGroupMembershipCacheConfiguration() : null;
+        if (cacheConfig == null || !cacheConfig.isEnabled()) {
+            return new GroupMembershipCache(0);
+        }
+        return new GroupMembershipCache((cacheConfig.getExpiryTime() > 0) ?
+                cacheConfig.getExpiryTime() : DEFAULT_EXPIRY_TIME);
+    }
+
+    /**
+     * @param expiryTime time in milliseconds an entry of an index is used for, 0 to load the entries on every use.
+     */
+    public GroupMembershipCache(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+
+    public GroupMembershipIndex getIndex(int tenantId) {
+        GroupMembershipIndex index = indexes.get(tenantId);
+        if (index == null) {
+            GroupMembershipIndex newIndex = new GroupMembershipIndex(expiryTime);
+            index = indexes.putIfAbsent(tenantId, newIndex);
+            if (index == null) {
+                index = newIndex;
+            }
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.core.group.mgt.cache;
+
+import org.wso2.carbon.device.mgt.common.group.mgt.GroupUser;
+import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.api.UserStoreManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indexes the group roles of a tenant, i.e. the user store roles named Internal/group-{group id}-{role name}, by
+ * their groups, and the users of the groups by their groups and the groups of users by their users. Entries are
+ * loaded from the user store on first use, and are loaded again once they are older than the expiry time or after
+ * the index is invalidated, which is done whenever group roles or their users change.
+ */
+public class GroupMembershipIndex {
+
+    public static final String GROUP_ROLE_PREFIX = "Internal/group-";
+
+    private final long expiryTime;
+    /* Incremented on every invalidation, so that entries loaded before it are not used even if put after it. */
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Entry<Map<Integer, List<String>>> rolesOfGroups;
+    private final ConcurrentMap<String, Entry<Map<Integer, List<String>>>> groupRolesOfUsers =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Entry<Map<String, List<String>>>> usersOfGroups = new ConcurrentHashMap<>();
+
+    /**
+     * @param expiryTime time in milliseconds an entry is used for, 0 to load the entries on every use.
+     */
+    public GroupMembershipIndex(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * @return the names of the roles of the group, without the group role prefix.
+     */
+    public List<String> getRolesOfGroup(int groupId, UserStoreManager userStoreManager) throws UserStoreException {
+        Entry<Map<Integer, List<String>>> entry = rolesOfGroups;
+        if (!this.isValid(entry)) {
+            long loadedGeneration = generation.get();
+            Map<Integer, List<String>> roles = new HashMap<>();
+            for (String role : userStoreManager.getRoleNames()) {
+                GroupRole groupRole = GroupRole.parse(role);
+                if (groupRole != null) {
+                    getValues(roles, groupRole.groupId).add(groupRole.roleName);
+                }
+            }
+            entry = new Entry<>(roles, loadedGeneration);
+            rolesOfGroups = entry;
+        }
+        List<String> roles = entry.value.get(groupId);
+        return (roles != null) ? new ArrayList<>(roles) : new ArrayList<String>();
+    }
+
+    /**
+     * @return the names of the roles the user has in each group the user belongs to, keyed by the group ids.
+     */
+    public Map<Integer, List<String>> getGroupRolesOfUser(String username, UserStoreManager userStoreManager)
+            throws UserStoreException {
+        Entry<Map<Integer, List<String>>> entry = groupRolesOfUsers.get(username);
+        if (!this.isValid(entry)) {
+            long loadedGeneration = generation.get();
+            Map<Integer, List<String>> groupRoles = new LinkedHashMap<>();
+            String[] roles = userStoreManager.getRoleListOfUser(username);
+            if (roles != null) {
+                for (String role : roles) {
+                    GroupRole groupRole = GroupRole.parse(role);
+                    if (groupRole != null) {
+                        getValues(groupRoles, groupRole.groupId).add(groupRole.roleName);
+                    }
+                }
+            }
+            entry = new Entry<>(groupRoles, loadedGeneration);
+            groupRolesOfUsers.put(username, entry);
+        }
+        Map<Integer, List<String>> groupRoles = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<String>> roles : entry.value.entrySet()) {
+            groupRoles.put(roles.getKey(), new ArrayList<>(roles.getValue()));
+        }
+        return groupRoles;
+    }
+
+    /**
+     * @return whether the user has been loaded into the index, i.e. whether the user is known to exist.
+     */
+    public boolean containsUser(String username) {
+        return this.isValid(groupRolesOfUsers.get(username));
+    }
+
+    /**
+     * @return the users of the group along with their roles in the group.
+     */
+    public List<GroupUser> getUsersOfGroup(int groupId, UserStoreManager userStoreManager) throws UserStoreException {
+        Entry<Map<String, List<String>>> entry = usersOfGroups.get(groupId);
+        if (!this.isValid(entry)) {
+            long loadedGeneration = generation.get();
+            Map<String, List<String>> rolesOfUsers = new LinkedHashMap<>();
+            for (String role : this.getRolesOfGroup(groupId, userStoreManager)) {
+                String[] users = userStoreManager.getUserListOfRole(GROUP_ROLE_PREFIX + groupId + "-" + role);
+                if (users != null) {
+                    for (String user : users) {
+                        getValues(rolesOfUsers, user).add(role);
+                    }
+                }
+            }
+            entry = new Entry<>(rolesOfUsers, loadedGeneration);
+            usersOfGroups.put(groupId, entry);
+        }
+        List<GroupUser> groupUsers = new ArrayList<>(entry.value.size());
+        for (Map.Entry<String, List<String>> rolesOfUser : entry.value.entrySet()) {
+            GroupUser groupUser = new GroupUser();
+            groupUser.setUsername(rolesOfUser.getKey());
+            groupUser.setGroupRoles(new ArrayList<>(rolesOfUser.getValue()));
+            groupUsers.add(groupUser);
+        }
+        return groupUsers;
+    }
+
+    /**
+     * Drops all the entries, to be called after group roles are added or removed, or users are added to or removed
+     * from them.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        rolesOfGroups = null;
+        groupRolesOfUsers.clear();
+        usersOfGroups.clear();
+    }
+
+    private boolean isValid(Entry<?> entry) {
+        return entry != null && entry.generation == generation.get() &&
+                System.currentTimeMillis() - entry.loadedTime < expiryTime;
+    }
+
+    private static <K> List<String> getValues(Map<K, List<String>> map, K key) {
+        List<String> values = map.get(key);
+        if (values == null) {
+            values = new ArrayList<>();
+            map.put(key, values);
+        }
+        return values;
+    }
+
+    private static class Entry<T> {
+
+        private final T value;
+        private final long generation;
+        private final long loadedTime = System.currentTimeMillis();
+
+        Entry(T value, long generation) {
+            this.value = value;
+            this.generation = generation;
+        }
+
+    }
+
+    /**
+     * A role of the form Internal/group-{group id}-{role name}.
+     */
+    private static class GroupRole {
+
+        private final int groupId;
+        private final String roleName;
+
+        private GroupRole(int groupId, String roleName) {
+            this.groupId = groupId;
+            this.roleName = roleName;
+        }
+
+        static GroupRole parse(String role) {
+            if (role == null) {
+                return null;
+            }
+            int prefix = role.indexOf(GROUP_ROLE_PREFIX);
+            if (prefix < 0) {
+                return null;
+            }
+            int idStart = prefix + GROUP_ROLE_PREFIX.length();
+            int separator = role.indexOf('-', idStart);
+            if (separator < 0) {
+                return null;
+            }
+            try {
+                return new GroupRole(Integer.parseInt(role.substring(idStart, separator)),
+                                     role.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+    }
+
+}
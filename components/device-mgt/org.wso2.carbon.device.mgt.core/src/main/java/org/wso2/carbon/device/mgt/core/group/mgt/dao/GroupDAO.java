@@ -23,6 +23,7 @@ import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
 import org.wso2.carbon.device.mgt.core.group.mgt.DeviceGroupBuilder;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * This interface represents the key operations associated with persisting group related information.
@@ -90,6 +91,16 @@ public interface GroupDAO {
      */
     List<DeviceGroupBuilder> getGroups(int deviceId, int tenantId) throws GroupManagementDAOException;
 
+    /**
+     * Get the ids of the groups of each of the given devices, using set-based lookups.
+     *
+     * @param deviceIds ids of the devices.
+     * @param tenantId  of the devices.
+     * @return the group ids keyed by the device ids. Devices without groups are not included.
+     * @throws GroupManagementDAOException
+     */
+    Map<Integer, List<Integer>> getGroupIds(List<Integer> deviceIds, int tenantId) throws GroupManagementDAOException;
+
     /**
      * Get the list of Device Groups in tenant.
      *
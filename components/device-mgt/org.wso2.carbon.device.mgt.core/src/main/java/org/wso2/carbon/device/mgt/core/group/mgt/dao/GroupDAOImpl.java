@@ -20,6 +20,7 @@ package org.wso2.carbon.device.mgt.core.group.mgt.dao;
 
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
+import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
 import org.wso2.carbon.device.mgt.core.group.mgt.DeviceGroupBuilder;
 
@@ -29,7 +30,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class represents implementation of GroupDAO
@@ -204,6 +207,53 @@ public class GroupDAOImpl implements GroupDAO {
         return deviceGroupBuilders;
     }
 
+    @Override
+    public Map<Integer, List<Integer>> getGroupIds(List<Integer> deviceIds, int tenantId)
+            throws GroupManagementDAOException {
+        Map<Integer, List<Integer>> groupIds = new HashMap<>();
+        for (int from = 0; from < deviceIds.size();
+             from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+            int to = Math.min(from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE, deviceIds.size());
+            this.loadGroupIds(deviceIds.subList(from, to), tenantId, groupIds);
+        }
+        return groupIds;
+    }
+
+    private void loadGroupIds(List<Integer> deviceIds, int tenantId, Map<Integer, List<Integer>> groupIds)
+            throws GroupManagementDAOException {
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        try {
+            Connection conn = GroupManagementDAOFactory.getConnection();
+            StringBuilder sql = new StringBuilder();
+            sql.append("SELECT DEVICE_ID, GROUP_ID FROM DM_DEVICE_GROUP_MAP WHERE TENANT_ID = ? AND DEVICE_ID IN (");
+            for (int i = 0; i < deviceIds.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+            stmt = conn.prepareStatement(sql.toString());
+            int index = 1;
+            stmt.setInt(index++, tenantId);
+            for (int deviceId : deviceIds) {
+                stmt.setInt(index++, deviceId);
+            }
+            resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                int deviceId = resultSet.getInt("DEVICE_ID");
+                List<Integer> groupsOfDevice = groupIds.get(deviceId);
+                if (groupsOfDevice == null) {
+                    groupsOfDevice = new ArrayList<>();
+                    groupIds.put(deviceId, groupsOfDevice);
+                }
+                groupsOfDevice.add(resultSet.getInt("GROUP_ID"));
+            }
+        } catch (SQLException e) {
+            throw new GroupManagementDAOException("Error occurred while obtaining the groups of devices", e);
+        } finally {
+            GroupManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
     @Override
     public List<DeviceGroupBuilder> getGroups(int startIndex, int rowCount, int tenantId)
             throws GroupManagementDAOException {
@@ -82,6 +82,7 @@ public final class GroupManagementDAOUtil {
 
     public static DeviceGroupBuilder loadGroup(ResultSet resultSet) throws SQLException {
         DeviceGroupBuilder group = new DeviceGroupBuilder(new DeviceGroup());
+        group.setId(resultSet.getInt("ID"));
         group.setGroupId(resultSet.getInt("ID"));
         group.setDescription(resultSet.getString("DESCRIPTION"));
         group.setName(resultSet.getString("GROUP_NAME"));
@@ -24,8 +24,12 @@ import org.wso2.carbon.device.mgt.common.authorization.DeviceAccessAuthorization
 import org.wso2.carbon.device.mgt.common.license.mgt.LicenseManager;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManager;
 import org.wso2.carbon.device.mgt.core.app.mgt.config.AppManagementConfig;
+import org.wso2.carbon.device.mgt.core.authorization.DeviceAccessDecisionCache;
 import org.wso2.carbon.device.mgt.core.config.license.LicenseConfig;
 import org.wso2.carbon.device.mgt.core.push.notification.mgt.PushNotificationProviderRepository;
+import org.wso2.carbon.device.mgt.core.group.mgt.cache.GroupMembershipCache;
+import org.wso2.carbon.device.mgt.core.search.mgt.index.DeviceSearchIndexManager;
+import org.wso2.carbon.device.mgt.core.service.DeviceChangeListener;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
 import org.wso2.carbon.email.sender.core.service.EmailSenderService;
@@ -36,6 +40,8 @@ import org.wso2.carbon.user.core.tenant.TenantManager;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DeviceManagementDataHolder {
 
@@ -56,6 +62,10 @@ public class DeviceManagementDataHolder {
     private TaskService taskService;
     private EmailSenderService emailSenderService;
     private PushNotificationProviderRepository pushNotificationProviderRepository;
+    private DeviceSearchIndexManager deviceSearchIndexManager;
+    private GroupMembershipCache groupMembershipCache;
+    private DeviceAccessDecisionCache deviceAccessDecisionCache;
+    private List<DeviceChangeListener> deviceChangeListeners = new CopyOnWriteArrayList<>();
 
     private APIManagerConfiguration apiManagerConfiguration;
 
@@ -210,4 +220,40 @@ public class DeviceManagementDataHolder {
         return pushNotificationProviderRepository;
     }
 
+    public DeviceSearchIndexManager getDeviceSearchIndexManager() {
+        return deviceSearchIndexManager;
+    }
+
+    public void setDeviceSearchIndexManager(DeviceSearchIndexManager deviceSearchIndexManager) {
+        this.deviceSearchIndexManager = deviceSearchIndexManager;
+    }
+
+    public GroupMembershipCache getGroupMembershipCache() {
+        return groupMembershipCache;
+    }
+
+    public void setGroupMembershipCache(GroupMembershipCache groupMembershipCache) {
+        this.groupMembershipCache = groupMembershipCache;
+    }
+
+    public DeviceAccessDecisionCache getDeviceAccessDecisionCache() {
+        return deviceAccessDecisionCache;
+    }
+
+    public void setDeviceAccessDecisionCache(DeviceAccessDecisionCache deviceAccessDecisionCache) {
+        this.deviceAccessDecisionCache = deviceAccessDecisionCache;
+    }
+
+    public List<DeviceChangeListener> getDeviceChangeListeners() {
+        return deviceChangeListeners;
+    }
+
+    public void addDeviceChangeListener(DeviceChangeListener deviceChangeListener) {
+        this.deviceChangeListeners.add(deviceChangeListener);
+    }
+
+    public void removeDeviceChangeListener(DeviceChangeListener deviceChangeListener) {
+        this.deviceChangeListeners.remove(deviceChangeListener);
+    }
+
 }
@@ -37,6 +37,7 @@ import org.wso2.carbon.device.mgt.core.app.mgt.ApplicationManagerProviderService
 import org.wso2.carbon.device.mgt.core.app.mgt.config.AppManagementConfig;
 import org.wso2.carbon.device.mgt.core.app.mgt.config.AppManagementConfigurationManager;
 import org.wso2.carbon.device.mgt.core.authorization.DeviceAccessAuthorizationServiceImpl;
+import org.wso2.carbon.device.mgt.core.authorization.DeviceAccessDecisionCache;
 import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
 import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
 import org.wso2.carbon.device.mgt.core.config.datasource.DataSourceConfig;
@@ -48,7 +49,9 @@ import org.wso2.carbon.device.mgt.core.notification.mgt.dao.NotificationManageme
 import org.wso2.carbon.device.mgt.core.operation.mgt.OperationManagerImpl;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.permission.mgt.PermissionManagerServiceImpl;
+import org.wso2.carbon.device.mgt.core.group.mgt.cache.GroupMembershipCache;
 import org.wso2.carbon.device.mgt.core.push.notification.mgt.PushNotificationProviderRepository;
+import org.wso2.carbon.device.mgt.core.service.DeviceChangeListener;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderServiceImpl;
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
@@ -107,6 +110,12 @@ import java.util.List;
  * policy="dynamic"
  * bind="setEmailSenderService"
  * unbind="unsetEmailSenderService"
+ * @scr.reference name="device.change.listener"
+ * interface="org.wso2.carbon.device.mgt.core.service.DeviceChangeListener"
+ * cardinality="0..n"
+ * policy="dynamic"
+ * bind="setDeviceChangeListener"
+ * unbind="unsetDeviceChangeListener"
  */
 public class DeviceManagementServiceComponent {
 
@@ -152,6 +161,7 @@ public class DeviceManagementServiceComponent {
             GroupManagementDAOFactory.init(dsConfig);
             NotificationManagementDAOFactory.init(dsConfig);
             OperationManagementDAOFactory.init(dsConfig);
+            OperationManagementDAOFactory.initOperationPayloadCodec(config.getOperationPayloadCodec());
 
             /* Initialize Operation Manager */
             this.initOperationsManager();
@@ -206,11 +216,14 @@ public class DeviceManagementServiceComponent {
         }
         /* Registering Device Management Service */
         BundleContext bundleContext = componentContext.getBundleContext();
+        DeviceManagementDataHolder.getInstance().setDeviceAccessDecisionCache(
+                DeviceAccessDecisionCache.fromConfiguration());
         DeviceManagementProviderService deviceManagementProvider = new DeviceManagementProviderServiceImpl();
         DeviceManagementDataHolder.getInstance().setDeviceManagementProvider(deviceManagementProvider);
         bundleContext.registerService(DeviceManagementProviderService.class.getName(), deviceManagementProvider, null);
 
         /* Registering Group Management Service */
+        DeviceManagementDataHolder.getInstance().setGroupMembershipCache(GroupMembershipCache.fromConfiguration());
         GroupManagementProviderService groupManagementProvider = new GroupManagementProviderServiceImpl();
         DeviceManagementDataHolder.getInstance().setGroupManagementProviderService(groupManagementProvider);
         bundleContext.registerService(GroupManagementProviderService.class.getName(), groupManagementProvider, null);
@@ -395,4 +408,18 @@ public class DeviceManagementServiceComponent {
         DeviceManagementDataHolder.getInstance().setEmailSenderService(null);
     }
 
+    protected void setDeviceChangeListener(DeviceChangeListener deviceChangeListener) {
+        if (log.isDebugEnabled()) {
+            log.debug("Adding Device Change Listener " + deviceChangeListener.getClass().getName());
+        }
+        DeviceManagementDataHolder.getInstance().addDeviceChangeListener(deviceChangeListener);
+    }
+
+    protected void unsetDeviceChangeListener(DeviceChangeListener deviceChangeListener) {
+        if (log.isDebugEnabled()) {
+            log.debug("Removing Device Change Listener " + deviceChangeListener.getClass().getName());
+        }
+        DeviceManagementDataHolder.getInstance().removeDeviceChangeListener(deviceChangeListener);
+    }
+
 }
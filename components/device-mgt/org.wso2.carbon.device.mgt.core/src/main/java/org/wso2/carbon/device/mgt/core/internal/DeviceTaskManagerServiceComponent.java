@@ -24,9 +24,11 @@ import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.DeviceInformationManager;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.impl.DeviceDetailsWriteBuffer;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.impl.DeviceInformationManagerImpl;
 import org.wso2.carbon.device.mgt.core.search.mgt.SearchManagerService;
 import org.wso2.carbon.device.mgt.core.search.mgt.impl.SearchManagerServiceImpl;
+import org.wso2.carbon.device.mgt.core.search.mgt.index.DeviceSearchIndexManager;
 import org.wso2.carbon.device.mgt.core.task.DeviceTaskManagerService;
 import org.wso2.carbon.device.mgt.core.task.impl.DeviceTaskManagerServiceImpl;
 import org.wso2.carbon.ntask.core.service.TaskService;
@@ -44,6 +46,7 @@ import org.wso2.carbon.ntask.core.service.TaskService;
 public class DeviceTaskManagerServiceComponent {
 
     private static Log log = LogFactory.getLog(DeviceManagementServiceComponent.class);
+    private DeviceDetailsWriteBuffer deviceDetailsWriteBuffer;
 
     @SuppressWarnings("unused")
     protected void activate(ComponentContext componentContext) {
@@ -59,8 +62,11 @@ public class DeviceTaskManagerServiceComponent {
                 DeviceTaskManagerService taskManagerService = new DeviceTaskManagerServiceImpl();
                 taskManagerService.startTask();
             }
+            deviceDetailsWriteBuffer = DeviceDetailsWriteBuffer.fromConfiguration();
+            DeviceManagementDataHolder.getInstance().setDeviceSearchIndexManager(
+                    DeviceSearchIndexManager.fromConfiguration());
             componentContext.getBundleContext().registerService(DeviceInformationManager.class,
-                    new DeviceInformationManagerImpl(), null);
+                    new DeviceInformationManagerImpl(deviceDetailsWriteBuffer), null);
 
             componentContext.getBundleContext().registerService(SearchManagerService.class,
                     new SearchManagerServiceImpl(), null);
@@ -74,6 +80,9 @@ public class DeviceTaskManagerServiceComponent {
         try {
 //            DeviceTaskManagerService taskManagerService = new DeviceTaskManagerServiceImpl();
 //            taskManagerService.stopTask();
+            if (deviceDetailsWriteBuffer != null) {
+                deviceDetailsWriteBuffer.shutdown();
+            }
         } catch (Throwable e) {
             log.error("Error occurred while destroying the device details retrieving task manager service.", e);
         }
@@ -41,8 +41,10 @@ import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOE
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationMappingDAO;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.util.OperationDAOUtil;
+import org.wso2.carbon.device.mgt.core.operation.mgt.util.ContinuationToken;
 import org.wso2.carbon.device.mgt.core.operation.mgt.util.DeviceIDHolder;
 import org.wso2.carbon.device.mgt.core.operation.mgt.util.OperationCreateTimeComparator;
+import org.wso2.carbon.device.mgt.core.push.notification.mgt.PushNotificationDispatcher;
 import org.wso2.carbon.device.mgt.core.task.DeviceTaskManager;
 import org.wso2.carbon.device.mgt.core.task.impl.DeviceTaskManagerImpl;
 import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
@@ -51,6 +53,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -71,6 +74,7 @@ public class OperationManagerImpl implements OperationManager {
     private DeviceDAO deviceDAO;
     private EnrollmentDAO enrollmentDAO;
     private NotificationStrategy notificationStrategy;
+    private PushNotificationDispatcher notificationDispatcher;
 
     public OperationManagerImpl() {
         commandOperationDAO = OperationManagementDAOFactory.getCommandOperationDAO();
@@ -83,11 +87,24 @@ public class OperationManagerImpl implements OperationManager {
         enrollmentDAO = DeviceManagementDAOFactory.getEnrollmentDAO();
     }
 
+    /**
+     * Devices are notified on the thread adding the operation. Use a {@link PushNotificationDispatcher} owned by the
+     * caller to notify them asynchronously.
+     */
     public OperationManagerImpl(NotificationStrategy notificationStrategy) {
         this();
         this.notificationStrategy = notificationStrategy;
     }
 
+    /**
+     * @param notificationDispatcher dispatcher delivering the notifications, which the caller must shut down once the
+     *                               operation manager is no longer used.
+     */
+    public OperationManagerImpl(PushNotificationDispatcher notificationDispatcher) {
+        this();
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
     @Override
     public Activity addOperation(Operation operation,
                                  List<DeviceIdentifier> deviceIds)
@@ -121,35 +138,35 @@ public class OperationManagerImpl implements OperationManager {
                 int operationId = this.lookupOperationDAO(operation).addOperation(operationDto);
                 boolean isScheduledOperation = this.isTaskScheduledOperation(operation);
                 boolean isNotRepeated = false;
-                boolean hasExistingTaskOperation;
-                int enrolmentId;
                 if (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Control.NO_REPEAT == operationDto.
                                                                                                          getControl()) {
                     isNotRepeated = true;
                 }
 
-                //TODO have to create a sql to load device details from deviceDAO using single query.
                 String operationCode = operationDto.getCode();
-                for (DeviceIdentifier deviceId : authorizedDeviceList) {
-                    Device device = getDevice(deviceId);
-                    enrolmentId = device.getEnrolmentInfo().getId();
-                    //Do not repeat the task operations
-                    if (isScheduledOperation) {
-                        hasExistingTaskOperation = operationDAO.updateTaskOperation(enrolmentId, operationCode);
-                        if (!hasExistingTaskOperation) {
-                            operationMappingDAO.addOperationMapping(operationId, enrolmentId);
-                        }
-                    } else if (isNotRepeated) {
-                        operationDAO.updateEnrollmentOperationsStatus(enrolmentId, operationCode,
-                                                                      org.wso2.carbon.device.mgt.core.dto.operation.mgt.
-                                                                              Operation.Status.PENDING,
-                                                                      org.wso2.carbon.device.mgt.core.dto.operation.mgt.
-                                                                              Operation.Status.REPEATED);
-                        operationMappingDAO.addOperationMapping(operationId, enrolmentId);
-                    } else {
-                        operationMappingDAO.addOperationMapping(operationId, enrolmentId);
+                List<Integer> enrolmentIds = this.getEnrolmentIds(authorizedDeviceList);
+                //Do not repeat the task operations
+                if (isScheduledOperation) {
+                    List<Integer> existingTaskEnrolmentIds = operationDAO.updateTaskOperation(enrolmentIds,
+                                                                                              operationCode);
+                    enrolmentIds.removeAll(new HashSet<>(existingTaskEnrolmentIds));
+                } else if (isNotRepeated) {
+                    operationDAO.updateEnrollmentOperationsStatus(enrolmentIds, operationCode,
+                                                                  org.wso2.carbon.device.mgt.core.dto.operation.mgt.
+                                                                          Operation.Status.PENDING,
+                                                                  org.wso2.carbon.device.mgt.core.dto.operation.mgt.
+                                                                          Operation.Status.REPEATED);
+                }
+                operationMappingDAO.addOperationMapping(operationId, enrolmentIds);
+                OperationManagementDAOFactory.commitTransaction();
+
+                //Devices are notified only once the operation is visible to them, without holding the transaction.
+                if (notificationDispatcher != null) {
+                    for (DeviceIdentifier deviceId : authorizedDeviceList) {
+                        notificationDispatcher.dispatch(new NotificationContext(deviceId, operation));
                     }
-                    if (notificationStrategy != null) {
+                } else if (notificationStrategy != null) {
+                    for (DeviceIdentifier deviceId : authorizedDeviceList) {
                         try {
                             notificationStrategy.execute(new NotificationContext(deviceId, operation));
                         } catch (PushNotificationExecutionFailedException e) {
@@ -159,8 +176,6 @@ public class OperationManagerImpl implements OperationManager {
                         }
                     }
                 }
-
-                OperationManagementDAOFactory.commitTransaction();
                 Activity activity = new Activity();
                 activity.setActivityId(DeviceManagementConstants.OperationAttributes.ACTIVITY + operationId);
                 activity.setCode(operationCode);
@@ -247,18 +262,18 @@ public class OperationManagerImpl implements OperationManager {
         return deviceIDHolder;
     }
 
-    private Device getDevice(DeviceIdentifier deviceId) throws OperationManagementException {
+    private List<Integer> getEnrolmentIds(List<DeviceIdentifier> deviceIds) throws OperationManagementException {
         int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
         try {
             DeviceManagementDAOFactory.openConnection();
-            return deviceDAO.getDevice(deviceId, tenantId);
+            return deviceDAO.getEnrolmentIds(deviceIds, tenantId);
         } catch (SQLException e) {
             throw new OperationManagementException("Error occurred while opening a connection the data " +
                                                    "source", e);
         } catch (DeviceManagementDAOException e) {
             OperationManagementDAOFactory.rollbackTransaction();
             throw new OperationManagementException(
-                    "Error occurred while retrieving device info", e);
+                    "Error occurred while retrieving enrolment info of the devices", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
@@ -321,17 +336,28 @@ public class OperationManagerImpl implements OperationManager {
                                                    deviceId.getType());
         }
         int enrolmentId = enrolmentInfo.getId();
+        ContinuationToken token = this.getContinuationToken(request);
         try {
             OperationManagementDAOFactory.openConnection();
-            List<? extends org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation> operationList =
-                    operationDAO.getOperationsForDevice(enrolmentId, request);
-            for (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation dtoOperation : operationList) {
-                Operation operation = OperationDAOUtil.convertOperation(dtoOperation);
+            List<?> operationList;
+            String nextToken = null;
+            // The first page is fetched by seeking as well, so that clients are handed a token to walk further pages.
+            if (token != null || request.getStartIndex() == 0) {
+                PaginationResult page = operationDAO.getOperationsForDevice(enrolmentId, token, request.getRowCount());
+                operationList = page.getData();
+                nextToken = page.getContinuationToken();
+            } else {
+                operationList = operationDAO.getOperationsForDevice(enrolmentId, request);
+            }
+            for (Object dtoOperation : operationList) {
+                Operation operation = OperationDAOUtil.convertOperation(
+                        (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation) dtoOperation);
                 operations.add(operation);
             }
             paginationResult = new PaginationResult();
             int count = operationDAO.getOperationCountForDevice(enrolmentId);
             paginationResult.setData(operations);
+            paginationResult.setContinuationToken(nextToken);
             paginationResult.setRecordsTotal(count);
             paginationResult.setRecordsFiltered(count);
         } catch (OperationManagementDAOException e) {
@@ -355,7 +381,7 @@ public class OperationManagerImpl implements OperationManager {
             log.debug("Device identifier id:[" + deviceId.getId() + "] type:[" + deviceId.getType() + "]");
         }
         List<Operation> operations = new ArrayList<>();
-        List<org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation> dtoOperationList = new ArrayList<>();
+        List<? extends org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation> dtoOperationList;
 
         if (!isActionAuthorized(deviceId)) {
             throw new OperationManagementException("User '" + getUser() + "' is not authorized to access the '" +
@@ -371,44 +397,31 @@ public class OperationManagerImpl implements OperationManager {
                                                    deviceId.getType());
         }
         int enrolmentId = enrolmentInfo.getId();
-        //Changing the enrollment status & attempt count if the device is marked as inactive or unreachable
-        switch (enrolmentInfo.getStatus()) {
-            case ACTIVE:
-                this.resetAttemptCount(enrolmentId);
-                break;
-            case INACTIVE:
-            case UNREACHABLE:
-                this.resetAttemptCount(enrolmentId);
-                this.setEnrolmentStatus(enrolmentId, EnrolmentInfo.Status.ACTIVE);
-                break;
-        }
-
         try {
-            OperationManagementDAOFactory.openConnection();
-            dtoOperationList.addAll(commandOperationDAO.getOperationsByDeviceAndStatus(
-                    enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
-            dtoOperationList.addAll(configOperationDAO.getOperationsByDeviceAndStatus(
-                    enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
-            dtoOperationList.addAll(profileOperationDAO.getOperationsByDeviceAndStatus(
-                    enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
-            dtoOperationList.addAll(policyOperationDAO.getOperationsByDeviceAndStatus(
-                    enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
-            Operation operation;
-            for (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation dtoOperation : dtoOperationList) {
-                operation = OperationDAOUtil.convertOperation(dtoOperation);
-                operations.add(operation);
+            OperationManagementDAOFactory.beginTransaction();
+            if (this.isAttemptCountResettable(enrolmentInfo)) {
+                operationDAO.resetAttemptCount(enrolmentId);
             }
-            Collections.sort(operations, new OperationCreateTimeComparator());
+            dtoOperationList = operationDAO.getPendingOperations(enrolmentId);
+            OperationManagementDAOFactory.commitTransaction();
         } catch (OperationManagementDAOException e) {
+            OperationManagementDAOFactory.rollbackTransaction();
             throw new OperationManagementException("Error occurred while retrieving the list of " +
                                                    "pending operations assigned for '" + deviceId.getType() +
                                                    "' device '" + deviceId.getId() + "'", e);
-        } catch (SQLException e) {
-            throw new OperationManagementException(
-                    "Error occurred while opening a connection to the data source", e);
+        } catch (TransactionManagementException e) {
+            throw new OperationManagementException("Error occurred while initiating a transaction", e);
         } finally {
             OperationManagementDAOFactory.closeConnection();
         }
+        this.activateEnrolment(enrolmentInfo);
+
+        Operation operation;
+        for (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation dtoOperation : dtoOperationList) {
+            operation = OperationDAOUtil.convertOperation(dtoOperation);
+            operations.add(operation);
+        }
+        Collections.sort(operations, new OperationCreateTimeComparator());
         return operations;
     }
 
@@ -432,50 +445,27 @@ public class OperationManagerImpl implements OperationManager {
                                                    deviceId.getType());
         }
         int enrolmentId = enrolmentInfo.getId();
-        //Changing the enrollment status & attempt count if the device is marked as inactive or unreachable
-        switch (enrolmentInfo.getStatus()) {
-            case ACTIVE:
-                this.resetAttemptCount(enrolmentId);
-                break;
-            case INACTIVE:
-            case UNREACHABLE:
-                this.resetAttemptCount(enrolmentId);
-                this.setEnrolmentStatus(enrolmentId, EnrolmentInfo.Status.ACTIVE);
-                break;
-        }
-
+        org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation dtoOperation;
         try {
-            OperationManagementDAOFactory.openConnection();
-            org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation dtoOperation = operationDAO.getNextOperation(
-                                                                                                    enrolmentInfo.getId());
-            if (dtoOperation != null) {
-                if (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Type.COMMAND.equals(dtoOperation.getType()
-                )) {
-                    org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation commandOperation;
-                    commandOperation =
-                            (org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation) commandOperationDAO.
-                                                                                     getOperation(dtoOperation.getId());
-                    dtoOperation.setEnabled(commandOperation.isEnabled());
-                } else if (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Type.CONFIG.equals(dtoOperation.
-                                                                                                           getType())) {
-                    dtoOperation = configOperationDAO.getOperation(dtoOperation.getId());
-                } else if (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Type.PROFILE.equals(dtoOperation.
-                                                                                                           getType())) {
-                    dtoOperation = profileOperationDAO.getOperation(dtoOperation.getId());
-                } else if (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Type.POLICY.equals(dtoOperation.
-                                                                                                           getType())) {
-                    dtoOperation = policyOperationDAO.getOperation(dtoOperation.getId());
-                }
-                operation = OperationDAOUtil.convertOperation(dtoOperation);
+            OperationManagementDAOFactory.beginTransaction();
+            if (this.isAttemptCountResettable(enrolmentInfo)) {
+                operationDAO.resetAttemptCount(enrolmentId);
             }
+            dtoOperation = operationDAO.getNextPendingOperation(enrolmentId);
+            OperationManagementDAOFactory.commitTransaction();
         } catch (OperationManagementDAOException e) {
+            OperationManagementDAOFactory.rollbackTransaction();
             throw new OperationManagementException("Error occurred while retrieving next pending operation", e);
-        } catch (SQLException e) {
-            throw new OperationManagementException(
-                    "Error occurred while opening a connection to the data source", e);
+        } catch (TransactionManagementException e) {
+            throw new OperationManagementException("Error occurred while initiating a transaction", e);
         } finally {
             OperationManagementDAOFactory.closeConnection();
         }
+        this.activateEnrolment(enrolmentInfo);
+
+        if (dtoOperation != null) {
+            operation = OperationDAOUtil.convertOperation(dtoOperation);
+        }
         return operation;
     }
 
@@ -818,6 +808,23 @@ public class OperationManagerImpl implements OperationManager {
         }
     }
 
+    @Override
+    public PaginationResult getActivitiesUpdatedAfter(long timestamp, PaginationRequest request)
+            throws OperationManagementException {
+        ContinuationToken token = this.getContinuationToken(request);
+        try {
+            OperationManagementDAOFactory.openConnection();
+            return operationDAO.getActivitiesUpdatedAfter(timestamp, token, request.getRowCount());
+        } catch (SQLException e) {
+            throw new OperationManagementException("Error occurred while opening a connection to the data source.", e);
+        } catch (OperationManagementDAOException e) {
+            throw new OperationManagementException("Error occurred while getting a page of the activity list " +
+                                                   "changed after a given time.", e);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+    }
+
     @Override
     public int getActivityCountUpdatedAfter(long timestamp) throws OperationManagementException {
         try {
@@ -833,6 +840,18 @@ public class OperationManagerImpl implements OperationManager {
         }
     }
 
+    private ContinuationToken getContinuationToken(PaginationRequest request) throws OperationManagementException {
+        String token = request.getContinuationToken();
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            return ContinuationToken.decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new OperationManagementException("Invalid continuation token '" + token + "' is provided", e);
+        }
+    }
+
     private OperationDAO lookupOperationDAO(Operation operation) {
 
         if (operation instanceof CommandOperation) {
@@ -993,22 +1012,25 @@ public class OperationManagerImpl implements OperationManager {
         return updateStatus;
     }
 
-    private boolean resetAttemptCount(int enrolmentId) throws OperationManagementException {
-        boolean resetStatus;
-        try {
-            OperationManagementDAOFactory.beginTransaction();
-            resetStatus = operationDAO.resetAttemptCount(enrolmentId);
-            OperationManagementDAOFactory.commitTransaction();
-        } catch (OperationManagementDAOException e) {
-            OperationManagementDAOFactory.rollbackTransaction();
-            throw new OperationManagementException("Error occurred while resetting attempt count of device id : '" +
-                                                   enrolmentId + "'", e);
-        } catch (TransactionManagementException e) {
-            throw new OperationManagementException("Error occurred while initiating a transaction", e);
-        } finally {
-            OperationManagementDAOFactory.closeConnection();
+    private boolean isAttemptCountResettable(EnrolmentInfo enrolmentInfo) {
+        switch (enrolmentInfo.getStatus()) {
+            case ACTIVE:
+            case INACTIVE:
+            case UNREACHABLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    //Changing the enrollment status if the polling device is marked as inactive or unreachable
+    private void activateEnrolment(EnrolmentInfo enrolmentInfo) throws OperationManagementException {
+        switch (enrolmentInfo.getStatus()) {
+            case INACTIVE:
+            case UNREACHABLE:
+                this.setEnrolmentStatus(enrolmentInfo.getId(), EnrolmentInfo.Status.ACTIVE);
+                break;
         }
-        return resetStatus;
     }
 
     private boolean isTaskScheduledOperation(Operation operation) {
@@ -19,10 +19,12 @@
 package org.wso2.carbon.device.mgt.core.operation.mgt.dao;
 
 import org.wso2.carbon.device.mgt.common.PaginationRequest;
+import org.wso2.carbon.device.mgt.common.PaginationResult;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
 import org.wso2.carbon.device.mgt.common.operation.mgt.ActivityStatus;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationResponse;
 import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.operation.mgt.util.ContinuationToken;
 
 import java.util.List;
 
@@ -52,16 +54,49 @@ public interface OperationDAO {
 
     List<? extends Operation> getOperationsForDevice(int enrolmentId, PaginationRequest request) throws OperationManagementDAOException;
 
+    /**
+     * Retrieves a page of operations of an enrolment, latest first, seeking past the given position instead of
+     * skipping preceding operations with an offset.
+     *
+     * @param token position of the last operation of the previous page, or null to fetch the first page.
+     * @param limit maximum number of operations to fetch.
+     * @return the operations along with the continuation token of the next page, which is not set on the last page.
+     */
+    PaginationResult getOperationsForDevice(int enrolmentId, ContinuationToken token, int limit)
+            throws OperationManagementDAOException;
+
     Operation getNextOperation(int enrolmentId) throws OperationManagementDAOException;
 
+    /**
+     * Retrieves all pending operations of an enrolment, oldest first, together with their type specific payloads.
+     */
+    List<? extends Operation> getPendingOperations(int enrolmentId) throws OperationManagementDAOException;
+
+    /**
+     * Retrieves the oldest pending operation of an enrolment together with its type specific payload.
+     */
+    Operation getNextPendingOperation(int enrolmentId) throws OperationManagementDAOException;
+
     boolean updateOperationStatus(int enrolmentId, int operationId,Operation.Status status)
             throws OperationManagementDAOException;
 
     void updateEnrollmentOperationsStatus(int enrolmentId, String operationCode, Operation.Status existingStatus,
                                           Operation.Status newStatus) throws OperationManagementDAOException;
 
+    void updateEnrollmentOperationsStatus(List<Integer> enrolmentIds, String operationCode,
+                                          Operation.Status existingStatus, Operation.Status newStatus)
+            throws OperationManagementDAOException;
+
     boolean updateTaskOperation(int enrolmentId, String operationCode) throws OperationManagementDAOException;
 
+    /**
+     * Refreshes the pending task operations carrying the given code for a set of enrolments.
+     *
+     * @return ids of the enrolments which already had such a pending operation.
+     */
+    List<Integer> updateTaskOperation(List<Integer> enrolmentIds, String operationCode)
+            throws OperationManagementDAOException;
+
     void addOperationResponse(int enrolmentId, int operationId, Object operationResponse)
             throws OperationManagementDAOException;
 
@@ -77,6 +112,17 @@ public interface OperationDAO {
 
     List<Activity> getActivitiesUpdatedAfter(long timestamp, int limit, int offset) throws OperationManagementDAOException;
 
+    /**
+     * Retrieves a page of activities updated after the given time, ordered by the update time of the enrolment
+     * operation mappings, seeking past the given position instead of skipping preceding mappings with an offset.
+     *
+     * @param token position of the last mapping of the previous page, or null to fetch the first page.
+     * @param limit maximum number of enrolment operation mappings to fetch.
+     * @return the activities along with the continuation token of the next page, which is not set on the last page.
+     */
+    PaginationResult getActivitiesUpdatedAfter(long timestamp, ContinuationToken token, int limit)
+            throws OperationManagementDAOException;
+
     int getActivityCountUpdatedAfter(long timestamp) throws OperationManagementDAOException;
 
     boolean resetAttemptCount(int enrolmentId) throws OperationManagementDAOException;
@@ -27,6 +27,8 @@ import org.wso2.carbon.device.mgt.common.UnsupportedDatabaseEngineException;
 import org.wso2.carbon.device.mgt.core.config.datasource.DataSourceConfig;
 import org.wso2.carbon.device.mgt.core.config.datasource.JNDILookupDefinition;
 import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec.CompactOperationPayloadCodec;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec.OperationPayloadCodec;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.*;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.operation.MySQLOperationDAOImpl;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.operation.OracleOperationDAOImpl;
@@ -45,6 +47,7 @@ public class OperationManagementDAOFactory {
     private static DataSource dataSource;
     private static String databaseEngine;
     private static ThreadLocal<Connection> currentConnection = new ThreadLocal<Connection>();
+    private static volatile OperationPayloadCodec operationPayloadCodec = new CompactOperationPayloadCodec();
 
     public static OperationDAO getCommandOperationDAO() {
         return new CommandOperationDAOImpl();
@@ -66,6 +69,10 @@ public class OperationManagementDAOFactory {
         return new OperationMappingDAOImpl();
     }
 
+    public static OperationPayloadCodec getOperationPayloadCodec() {
+        return operationPayloadCodec;
+    }
+
     public static OperationDAO getOperationDAO() {
         if(databaseEngine != null) {
             switch (databaseEngine) {
@@ -172,6 +179,39 @@ public class OperationManagementDAOFactory {
         }
     }
 
+    /**
+     * Sets the codec used to persist operation payloads and responses. The compact codec is used when no codec is
+     * configured, or the configured one cannot be instantiated.
+     *
+     * @param className name of the {@link OperationPayloadCodec} implementation, or null to use the default.
+     */
+    public static void initOperationPayloadCodec(String className) {
+        OperationPayloadCodec codec = null;
+        if (className != null && !className.trim().isEmpty()) {
+            try {
+                Class<?> clz = Class.forName(className.trim());
+                codec = (OperationPayloadCodec) clz.newInstance();
+            } catch (ClassNotFoundException e) {
+                log.error("Provided operation payload codec implementation '" + className + "' cannot be found", e);
+            } catch (InstantiationException e) {
+                log.error("Error occurred while instantiating operation payload codec implementation '" +
+                        className + "'", e);
+            } catch (IllegalAccessException e) {
+                log.error("Error occurred while instantiating operation payload codec implementation '" +
+                        className + "'", e);
+            } catch (ClassCastException e) {
+                log.error("Provided class '" + className + "' is not an operation payload codec implementation", e);
+            }
+        }
+        if (codec == null) {
+            codec = new CompactOperationPayloadCodec();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Operation payloads are persisted using '" + codec.getClass().getName() + "'");
+        }
+        operationPayloadCodec = codec;
+    }
+
     /**
      * Resolve data source from the data source definition
      *
@@ -0,0 +1,446 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec;
+
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ConfigOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.PolicyOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ProfileOperation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Versioned binary codec for operation payloads. Operations are written field by field rather than as Java
+ * serialization streams, which avoids the class descriptors that dominate the size of a serialized operation and
+ * the reflective overhead of reading them back. Values that do not map onto one of the built-in tags are embedded
+ * as Java serialization streams.
+ * <p/>
+ * Payloads written before this codec was introduced are recognised by the Java serialization stream header and are
+ * read through {@link JavaSerializationPayloadCodec}.
+ * <pre>
+ * payload   := 'D' 'M' version value
+ * operation := kind id code type status control receivedTimeStamp createdTimeStamp activityId enabled properties
+ *              payLoad operationResponse [configProperties | profileOperations]
+ * </pre>
+ */
+public class CompactOperationPayloadCodec implements OperationPayloadCodec {
+
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final byte MAGIC_0 = 'D';
+    private static final byte MAGIC_1 = 'M';
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_INTEGER = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_BOOLEAN = 4;
+    private static final byte TAG_DOUBLE = 5;
+    private static final byte TAG_LIST = 6;
+    private static final byte TAG_MAP = 7;
+    private static final byte TAG_OPERATION = 8;
+    private static final byte TAG_SERIALIZED = 9;
+
+    private static final byte KIND_OPERATION = 0;
+    private static final byte KIND_COMMAND = 1;
+    private static final byte KIND_CONFIG = 2;
+    private static final byte KIND_PROFILE = 3;
+    private static final byte KIND_POLICY = 4;
+
+    private static final int NULL_LENGTH = -1;
+
+    private final JavaSerializationPayloadCodec legacyCodec = new JavaSerializationPayloadCodec();
+
+    @Override
+    public byte[] encodeOperation(Operation operation) throws OperationPayloadCodecException {
+        return this.encode(operation);
+    }
+
+    @Override
+    public Operation decodeOperation(byte[] payload) throws OperationPayloadCodecException {
+        if (JavaSerializationPayloadCodec.isJavaSerialized(payload)) {
+            return legacyCodec.decodeOperation(payload);
+        }
+        Object operation = this.decode(payload);
+        if (operation != null && !(operation instanceof Operation)) {
+            throw new OperationPayloadCodecException("Payload does not carry an operation but an instance of '" +
+                    operation.getClass().getName() + "'");
+        }
+        return (Operation) operation;
+    }
+
+    @Override
+    public byte[] encodeResponse(Object response) throws OperationPayloadCodecException {
+        return this.encode(response);
+    }
+
+    @Override
+    public Object decodeResponse(byte[] payload) throws OperationPayloadCodecException {
+        if (JavaSerializationPayloadCodec.isJavaSerialized(payload)) {
+            return legacyCodec.decodeResponse(payload);
+        }
+        return this.decode(payload);
+    }
+
+    private byte[] encode(Object value) throws OperationPayloadCodecException {
+        ByteArrayOutputStream bao = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bao);
+        try {
+            out.writeByte(MAGIC_0);
+            out.writeByte(MAGIC_1);
+            out.writeByte(FORMAT_VERSION);
+            this.writeValue(out, value);
+            out.flush();
+        } catch (IOException e) {
+            throw new OperationPayloadCodecException("Error occurred while encoding the operation payload", e);
+        }
+        return bao.toByteArray();
+    }
+
+    private Object decode(byte[] payload) throws OperationPayloadCodecException {
+        if (payload == null) {
+            return null;
+        }
+        if (payload.length < 3 || payload[0] != MAGIC_0 || payload[1] != MAGIC_1) {
+            throw new OperationPayloadCodecException("Payload is neither in the compact operation format nor a " +
+                    "Java serialization stream");
+        }
+        if (payload[2] != FORMAT_VERSION) {
+            throw new OperationPayloadCodecException("Unsupported operation payload format version '" +
+                    payload[2] + "'");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 3, payload.length - 3));
+        try {
+            return this.readValue(in);
+        } catch (EOFException e) {
+            throw new OperationPayloadCodecException("Operation payload is truncated", e);
+        } catch (IOException e) {
+            throw new OperationPayloadCodecException("Error occurred while decoding the operation payload", e);
+        }
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException, OperationPayloadCodecException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            this.writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TAG_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value.getClass() == ArrayList.class) {
+            List<?> list = (List<?>) value;
+            out.writeByte(TAG_LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                this.writeValue(out, element);
+            }
+        } else if (value.getClass() == HashMap.class) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(TAG_MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                this.writeValue(out, entry.getKey());
+                this.writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof Operation && this.getKind((Operation) value) >= 0) {
+            out.writeByte(TAG_OPERATION);
+            this.writeOperation(out, (Operation) value);
+        } else {
+            // Subclasses of the built-in types are embedded as is, so that they are restored with their own class.
+            byte[] serialized = legacyCodec.serialize(value);
+            out.writeByte(TAG_SERIALIZED);
+            out.writeInt(serialized.length);
+            out.write(serialized);
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException, OperationPayloadCodecException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return this.readString(in);
+            case TAG_INTEGER:
+                return in.readInt();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_LIST: {
+                int size = this.readLength(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(this.readValue(in));
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                int size = this.readLength(in);
+                Map<Object, Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(this.readValue(in), this.readValue(in));
+                }
+                return map;
+            }
+            case TAG_OPERATION:
+                return this.readOperation(in);
+            case TAG_SERIALIZED: {
+                byte[] serialized = new byte[this.readLength(in)];
+                in.readFully(serialized);
+                return legacyCodec.deserialize(serialized);
+            }
+            default:
+                throw new OperationPayloadCodecException("Unknown value tag '" + tag + "' in operation payload");
+        }
+    }
+
+    private void writeOperation(DataOutputStream out, Operation operation)
+            throws IOException, OperationPayloadCodecException {
+        byte kind = this.getKind(operation);
+        out.writeByte(kind);
+        out.writeInt(operation.getId());
+        this.writeString(out, operation.getCode());
+        this.writeString(out, (operation.getType() != null) ? operation.getType().name() : null);
+        this.writeString(out, (operation.getStatus() != null) ? operation.getStatus().name() : null);
+        this.writeString(out, (operation.getControl() != null) ? operation.getControl().name() : null);
+        this.writeString(out, operation.getReceivedTimeStamp());
+        this.writeString(out, operation.getCreatedTimeStamp());
+        this.writeString(out, operation.getActivityId());
+        out.writeBoolean(operation.isEnabled());
+
+        Properties properties = operation.getProperties();
+        if (properties == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            out.writeInt(properties.size());
+            for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+                this.writeValue(out, entry.getKey());
+                this.writeValue(out, entry.getValue());
+            }
+        }
+        this.writeValue(out, operation.getPayLoad());
+        this.writeValue(out, operation.getOperationResponse());
+
+        if (kind == KIND_CONFIG || kind == KIND_PROFILE) {
+            List<ConfigOperation.Property> configProperties = ((ConfigOperation) operation).getConfigProperties();
+            out.writeInt(configProperties.size());
+            for (ConfigOperation.Property property : configProperties) {
+                this.writeString(out, property.getName());
+                this.writeValue(out, property.getValue());
+                this.writeString(out, (property.getType() != null) ? property.getType().getName() : null);
+            }
+        } else if (kind == KIND_POLICY) {
+            List<ProfileOperation> profileOperations = ((PolicyOperation) operation).getProfileOperations();
+            if (profileOperations == null) {
+                out.writeInt(NULL_LENGTH);
+            } else {
+                out.writeInt(profileOperations.size());
+                for (ProfileOperation profileOperation : profileOperations) {
+                    this.writeValue(out, profileOperation);
+                }
+            }
+        }
+    }
+
+    private Operation readOperation(DataInputStream in) throws IOException, OperationPayloadCodecException {
+        byte kind = in.readByte();
+        Operation operation;
+        switch (kind) {
+            case KIND_OPERATION:
+                operation = new Operation();
+                break;
+            case KIND_COMMAND:
+                operation = new CommandOperation();
+                break;
+            case KIND_CONFIG:
+                operation = new ConfigOperation();
+                break;
+            case KIND_PROFILE:
+                operation = new ProfileOperation();
+                break;
+            case KIND_POLICY:
+                operation = new PolicyOperation();
+                break;
+            default:
+                throw new OperationPayloadCodecException("Unknown operation kind '" + kind + "' in operation payload");
+        }
+        operation.setId(in.readInt());
+        operation.setCode(this.readString(in));
+        String type = this.readString(in);
+        operation.setType((type != null) ? Operation.Type.valueOf(type) : null);
+        String status = this.readString(in);
+        operation.setStatus((status != null) ? Operation.Status.valueOf(status) : null);
+        String control = this.readString(in);
+        operation.setControl((control != null) ? Operation.Control.valueOf(control) : null);
+        operation.setReceivedTimeStamp(this.readString(in));
+        operation.setCreatedTimeStamp(this.readString(in));
+        operation.setActivityId(this.readString(in));
+        operation.setEnabled(in.readBoolean());
+
+        int propertyCount = in.readInt();
+        if (propertyCount != NULL_LENGTH) {
+            Properties properties = new Properties();
+            for (int i = 0; i < propertyCount; i++) {
+                properties.put(this.readValue(in), this.readValue(in));
+            }
+            operation.setProperties(properties);
+        }
+        operation.setPayLoad(this.readValue(in));
+        operation.setOperationResponse(this.readValue(in));
+
+        if (kind == KIND_CONFIG || kind == KIND_PROFILE) {
+            ConfigOperation configOperation = (ConfigOperation) operation;
+            int configPropertyCount = this.readLength(in);
+            for (int i = 0; i < configPropertyCount; i++) {
+                String name = this.readString(in);
+                Object value = this.readValue(in);
+                configOperation.addConfigProperty(name, value, this.resolveClass(this.readString(in)));
+            }
+        } else if (kind == KIND_POLICY) {
+            int profileOperationCount = in.readInt();
+            if (profileOperationCount != NULL_LENGTH) {
+                List<ProfileOperation> profileOperations = new ArrayList<>(profileOperationCount);
+                for (int i = 0; i < profileOperationCount; i++) {
+                    profileOperations.add((ProfileOperation) this.readValue(in));
+                }
+                ((PolicyOperation) operation).setProfileOperations(profileOperations);
+            }
+        }
+        return operation;
+    }
+
+    /**
+     * Returns the kind of the given operation, or -1 if it is an instance of a class the compact format does not
+     * describe, in which case it has to be embedded as a Java serialization stream.
+     */
+    private byte getKind(Operation operation) {
+        Class<?> operationClass = operation.getClass();
+        if (operationClass == Operation.class) {
+            return KIND_OPERATION;
+        } else if (operationClass == CommandOperation.class) {
+            return KIND_COMMAND;
+        } else if (operationClass == ConfigOperation.class) {
+            return KIND_CONFIG;
+        } else if (operationClass == ProfileOperation.class) {
+            return KIND_PROFILE;
+        } else if (operationClass == PolicyOperation.class) {
+            return KIND_POLICY;
+        }
+        return -1;
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        // DataOutputStream#writeUTF is not used as it cannot write strings longer than 64KB.
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException, OperationPayloadCodecException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new OperationPayloadCodecException("Invalid string length '" + length + "' in operation payload");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private int readLength(DataInputStream in) throws IOException, OperationPayloadCodecException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new OperationPayloadCodecException("Invalid length '" + length + "' in operation payload");
+        }
+        return length;
+    }
+
+    private Class<?> resolveClass(String className) throws OperationPayloadCodecException {
+        if (className == null) {
+            return null;
+        }
+        switch (className) {
+            case "boolean":
+                return boolean.class;
+            case "byte":
+                return byte.class;
+            case "char":
+                return char.class;
+            case "short":
+                return short.class;
+            case "int":
+                return int.class;
+            case "long":
+                return long.class;
+            case "float":
+                return float.class;
+            case "double":
+                return double.class;
+            default:
+                break;
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = CompactOperationPayloadCodec.class.getClassLoader();
+        }
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            try {
+                return Class.forName(className, false, CompactOperationPayloadCodec.class.getClassLoader());
+            } catch (ClassNotFoundException ex) {
+                throw new OperationPayloadCodecException("Unable to resolve the type '" + className + "' of a " +
+                        "configuration property", ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Codec based on Java serialization, which is how operation payloads were persisted before the introduction of
+ * {@link CompactOperationPayloadCodec}. It is retained so that rows written in that form remain readable.
+ */
+public class JavaSerializationPayloadCodec implements OperationPayloadCodec {
+
+    private static final Log log = LogFactory.getLog(JavaSerializationPayloadCodec.class);
+
+    private static final byte STREAM_MAGIC_0 = (byte) 0xAC;
+    private static final byte STREAM_MAGIC_1 = (byte) 0xED;
+
+    /**
+     * Checks whether the given payload carries the Java serialization stream header.
+     */
+    public static boolean isJavaSerialized(byte[] payload) {
+        return payload != null && payload.length > 1 && payload[0] == STREAM_MAGIC_0 && payload[1] == STREAM_MAGIC_1;
+    }
+
+    @Override
+    public byte[] encodeOperation(Operation operation) throws OperationPayloadCodecException {
+        return this.serialize(operation);
+    }
+
+    @Override
+    public Operation decodeOperation(byte[] payload) throws OperationPayloadCodecException {
+        Object operation = this.deserialize(payload);
+        if (operation != null && !(operation instanceof Operation)) {
+            throw new OperationPayloadCodecException("Payload does not carry an operation but an instance of '" +
+                    operation.getClass().getName() + "'");
+        }
+        return (Operation) operation;
+    }
+
+    @Override
+    public byte[] encodeResponse(Object response) throws OperationPayloadCodecException {
+        return this.serialize(response);
+    }
+
+    @Override
+    public Object decodeResponse(byte[] payload) throws OperationPayloadCodecException {
+        return this.deserialize(payload);
+    }
+
+    byte[] serialize(Object object) throws OperationPayloadCodecException {
+        ByteArrayOutputStream bao = new ByteArrayOutputStream();
+        ObjectOutputStream oos = null;
+        try {
+            oos = new ObjectOutputStream(bao);
+            oos.writeObject(object);
+            oos.flush();
+            return bao.toByteArray();
+        } catch (IOException e) {
+            throw new OperationPayloadCodecException("Error occurred while serializing the operation payload", e);
+        } finally {
+            if (oos != null) {
+                try {
+                    oos.close();
+                } catch (IOException e) {
+                    log.warn("Error occurred while closing ObjectOutputStream", e);
+                }
+            }
+        }
+    }
+
+    Object deserialize(byte[] payload) throws OperationPayloadCodecException {
+        if (payload == null) {
+            return null;
+        }
+        ObjectInputStream ois = null;
+        try {
+            ois = new ObjectInputStream(new ByteArrayInputStream(payload));
+            return ois.readObject();
+        } catch (IOException e) {
+            throw new OperationPayloadCodecException("IO Error occurred while de serialize the operation payload", e);
+        } catch (ClassNotFoundException e) {
+            throw new OperationPayloadCodecException("Class not found error occurred while de serialize the " +
+                    "operation payload", e);
+        } finally {
+            if (ois != null) {
+                try {
+                    ois.close();
+                } catch (IOException e) {
+                    log.warn("Error occurred while closing ObjectInputStream", e);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec;
+
+public class OperationPayloadCodecException extends Exception {
+
+    private static final long serialVersionUID = 2218612538405390743L;
+
+    public OperationPayloadCodecException(String msg, Exception nestedEx) {
+        super(msg, nestedEx);
+    }
+
+    public OperationPayloadCodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public OperationPayloadCodecException(String msg) {
+        super(msg);
+    }
+
+    public OperationPayloadCodecException() {
+        super();
+    }
+
+    public OperationPayloadCodecException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -19,15 +19,14 @@
 package org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl;
 
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ConfigOperation;
 import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOUtil;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec.OperationPayloadCodec;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec.OperationPayloadCodecException;
 
-import java.io.*;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -37,8 +36,6 @@ import java.util.List;
 
 public class ConfigOperationDAOImpl extends GenericOperationDAOImpl {
 
-    private static final Log log = LogFactory.getLog(ConfigOperationDAOImpl.class);
-
     @Override
     public int addOperation(Operation operation) throws OperationManagementDAOException {
         int operationId;
@@ -48,10 +45,13 @@ public class ConfigOperationDAOImpl extends GenericOperationDAOImpl {
             Connection conn = OperationManagementDAOFactory.getConnection();
             stmt = conn.prepareStatement("INSERT INTO DM_CONFIG_OPERATION(OPERATION_ID, OPERATION_CONFIG) VALUES(?, ?)");
             stmt.setInt(1, operationId);
-            stmt.setObject(2, operation);
+            stmt.setBytes(2, OperationManagementDAOFactory.getOperationPayloadCodec().encodeOperation(operation));
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new OperationManagementDAOException("Error occurred while adding command operation", e);
+        } catch (OperationPayloadCodecException e) {
+            throw new OperationManagementDAOException("Error occurred while serializing configuration operation " +
+                    "object", e);
         } finally {
             OperationManagementDAOUtil.cleanupResources(stmt);
         }
@@ -77,39 +77,19 @@ public class ConfigOperationDAOImpl extends GenericOperationDAOImpl {
     @Override
     public void updateOperation(Operation operation) throws OperationManagementDAOException {
         PreparedStatement stmt = null;
-        ByteArrayOutputStream bao = null;
-        ObjectOutputStream oos = null;
         try {
             super.updateOperation(operation);
             Connection connection = OperationManagementDAOFactory.getConnection();
             stmt = connection.prepareStatement("UPDATE DM_CONFIG_OPERATION SET OPERATION_CONFIG = ? " +
                     "WHERE OPERATION_ID = ?");
-            bao = new ByteArrayOutputStream();
-            oos = new ObjectOutputStream(bao);
-            oos.writeObject(operation);
-
-            stmt.setBytes(1, bao.toByteArray());
+            stmt.setBytes(1, OperationManagementDAOFactory.getOperationPayloadCodec().encodeOperation(operation));
             stmt.setInt(2, operation.getId());
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new OperationManagementDAOException("Error occurred while update policy operation metadata", e);
-        } catch (IOException e) {
+        } catch (OperationPayloadCodecException e) {
             throw new OperationManagementDAOException("Error occurred while serializing policy operation object", e);
         } finally {
-            if (bao != null) {
-                try {
-                    bao.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                }
-            }
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ObjectOutputStream", e);
-                }
-            }
             OperationManagementDAOUtil.cleanupResources(stmt);
         }
     }
@@ -119,27 +99,20 @@ public class ConfigOperationDAOImpl extends GenericOperationDAOImpl {
         PreparedStatement stmt = null;
         ResultSet rs = null;
         ConfigOperation configOperation = null;
-
-        ByteArrayInputStream bais;
-        ObjectInputStream ois;
         try {
             Connection conn = OperationManagementDAOFactory.getConnection();
-            String sql = "SELECT OPERATION_ID, ENABLED, OPERATION_CONFIG FROM DM_CONFIG_OPERATION WHERE OPERATION_ID = ?";
+            String sql = "SELECT OPERATION_ID, OPERATION_CONFIG FROM DM_CONFIG_OPERATION WHERE OPERATION_ID = ?";
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, operationId);
             rs = stmt.executeQuery();
 
             if (rs.next()) {
-                byte[] operationDetails = rs.getBytes("OPERATION_DETAILS");
-                bais = new ByteArrayInputStream(operationDetails);
-                ois = new ObjectInputStream(bais);
-                configOperation = (ConfigOperation) ois.readObject();
+                byte[] operationDetails = rs.getBytes("OPERATION_CONFIG");
+                configOperation = (ConfigOperation) OperationManagementDAOFactory.getOperationPayloadCodec().
+                        decodeOperation(operationDetails);
             }
-        } catch (IOException e) {
-            throw new OperationManagementDAOException("IO Error occurred while de serialize the policy operation " +
-                    "object", e);
-        } catch (ClassNotFoundException e) {
-            throw new OperationManagementDAOException("Class not found error occurred while de serialize the policy " +
+        } catch (OperationPayloadCodecException e) {
+            throw new OperationManagementDAOException("Error occurred while de serialize the configuration " +
                     "operation object", e);
         } catch (SQLException e) {
             throw new OperationManagementDAOException("SQL Error occurred while retrieving the policy operation " +
@@ -158,9 +131,6 @@ public class ConfigOperationDAOImpl extends GenericOperationDAOImpl {
         ResultSet rs = null;
         ConfigOperation configOperation;
         List<Operation> operations = new ArrayList<>();
-
-        ByteArrayInputStream bais = null;
-        ObjectInputStream ois = null;
         try {
             Connection conn = OperationManagementDAOFactory.getConnection();
             String sql = "SELECT co.OPERATION_ID, co.OPERATION_CONFIG FROM DM_CONFIG_OPERATION co " +
@@ -172,38 +142,20 @@ public class ConfigOperationDAOImpl extends GenericOperationDAOImpl {
             stmt.setString(2, status.toString());
             rs = stmt.executeQuery();
 
+            OperationPayloadCodec codec = OperationManagementDAOFactory.getOperationPayloadCodec();
             while (rs.next()) {
                 byte[] operationDetails = rs.getBytes("OPERATION_CONFIG");
-                bais = new ByteArrayInputStream(operationDetails);
-                ois = new ObjectInputStream(bais);
-                configOperation = (ConfigOperation) ois.readObject();
+                configOperation = (ConfigOperation) codec.decodeOperation(operationDetails);
                 configOperation.setStatus(status);
                 operations.add(configOperation);
             }
-        } catch (IOException e) {
-            throw new OperationManagementDAOException("IO Error occurred while de serialize the configuration " +
+        } catch (OperationPayloadCodecException e) {
+            throw new OperationManagementDAOException("Error occurred while de serialize the configuration " +
                     "operation object", e);
-        } catch (ClassNotFoundException e) {
-            throw new OperationManagementDAOException("Class not found error occurred while de serialize the " +
-                    "configuration operation object", e);
         } catch (SQLException e) {
             throw new OperationManagementDAOException("SQL error occurred while retrieving the operation available " +
                     "for the device'" + enrolmentId + "' with status '" + status.toString(), e);
         } finally {
-            if (bais != null) {
-                try {
-                    bais.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                }
-            }
-            if (ois != null) {
-                try {
-                    ois.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ObjectOutputStream", e);
-                }
-            }
             OperationManagementDAOUtil.cleanupResources(stmt, rs);
         }
         return operations;
@@ -17,24 +17,26 @@
  */
 package org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl;
 
-import org.apache.axis2.databinding.types.soapencoding.Integer;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.PaginationRequest;
+import org.wso2.carbon.device.mgt.common.PaginationResult;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
 import org.wso2.carbon.device.mgt.common.operation.mgt.ActivityStatus;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationResponse;
 import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation;
 import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationDAO;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOUtil;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec.OperationPayloadCodecException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.util.OperationDAOUtil;
+import org.wso2.carbon.device.mgt.core.operation.mgt.util.ContinuationToken;
 
-import java.io.*;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -193,44 +195,126 @@ public class GenericOperationDAOImpl implements OperationDAO {
         return result;
     }
 
+    @Override
+    public void updateEnrollmentOperationsStatus(List<Integer> enrolmentIds, String operationCode,
+                                                 Operation.Status existingStatus, Operation.Status newStatus)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        try {
+            Connection connection = OperationManagementDAOFactory.getConnection();
+            long time = System.currentTimeMillis() / 1000;
+            for (int from = 0; from < enrolmentIds.size();
+                 from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+                List<Integer> chunk = enrolmentIds.subList(from, Math.min(enrolmentIds.size(),
+                        from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE));
+                stmt = connection.prepareStatement("UPDATE DM_ENROLMENT_OP_MAPPING SET STATUS = ?, " +
+                        "UPDATED_TIMESTAMP = ? WHERE STATUS = ? AND OPERATION_ID IN (SELECT ID FROM DM_OPERATION " +
+                        "WHERE OPERATION_CODE = ?) AND ENROLMENT_ID IN (" + this.getInClause(chunk.size()) + ")");
+                int index = 1;
+                stmt.setString(index++, newStatus.toString());
+                stmt.setLong(index++, time);
+                stmt.setString(index++, existingStatus.toString());
+                stmt.setString(index++, operationCode);
+                for (Integer enrolmentId : chunk) {
+                    stmt.setInt(index++, enrolmentId);
+                }
+                stmt.executeUpdate();
+                OperationManagementDAOUtil.cleanupResources(stmt);
+                stmt = null;
+            }
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Error occurred while update device mapping operation status " +
+                    "metadata", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt);
+        }
+    }
+
+    @Override
+    public List<Integer> updateTaskOperation(List<Integer> enrolmentIds, String operationCode)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        List<Integer> updatedEnrolmentIds = new ArrayList<>();
+        try {
+            Connection connection = OperationManagementDAOFactory.getConnection();
+            long time = System.currentTimeMillis() / 1000;
+            for (int from = 0; from < enrolmentIds.size();
+                 from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+                List<Integer> chunk = enrolmentIds.subList(from, Math.min(enrolmentIds.size(),
+                        from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE));
+                String inClause = this.getInClause(chunk.size());
+                stmt = connection.prepareStatement("SELECT DISTINCT EOM.ENROLMENT_ID FROM DM_ENROLMENT_OP_MAPPING EOM " +
+                        "INNER JOIN DM_OPERATION DM ON DM.ID = EOM.OPERATION_ID WHERE DM.OPERATION_CODE = ? " +
+                        "AND EOM.STATUS = ? AND EOM.ENROLMENT_ID IN (" + inClause + ")");
+                int index = 1;
+                stmt.setString(index++, operationCode);
+                stmt.setString(index++, Operation.Status.PENDING.toString());
+                for (Integer enrolmentId : chunk) {
+                    stmt.setInt(index++, enrolmentId);
+                }
+                rs = stmt.executeQuery();
+                boolean hasExistingOperations = false;
+                while (rs.next()) {
+                    updatedEnrolmentIds.add(rs.getInt("ENROLMENT_ID"));
+                    hasExistingOperations = true;
+                }
+                OperationManagementDAOUtil.cleanupResources(stmt, rs);
+                stmt = null;
+                rs = null;
+
+                if (hasExistingOperations) {
+                    stmt = connection.prepareStatement("UPDATE DM_ENROLMENT_OP_MAPPING SET UPDATED_TIMESTAMP = ? " +
+                            "WHERE STATUS = ? AND OPERATION_ID IN (SELECT ID FROM DM_OPERATION WHERE " +
+                            "OPERATION_CODE = ?) AND ENROLMENT_ID IN (" + inClause + ")");
+                    index = 1;
+                    stmt.setLong(index++, time);
+                    stmt.setString(index++, Operation.Status.PENDING.toString());
+                    stmt.setString(index++, operationCode);
+                    for (Integer enrolmentId : chunk) {
+                        stmt.setInt(index++, enrolmentId);
+                    }
+                    stmt.executeUpdate();
+                    OperationManagementDAOUtil.cleanupResources(stmt);
+                    stmt = null;
+                }
+            }
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Error occurred while update device mapping operation status " +
+                    "metadata", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+        return updatedEnrolmentIds;
+    }
+
+    private String getInClause(int size) {
+        StringBuilder inClause = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            inClause.append(i == 0 ? "?" : ", ?");
+        }
+        return inClause.toString();
+    }
+
     @Override
     public void addOperationResponse(int enrolmentId, int operationId, Object operationResponse)
             throws OperationManagementDAOException {
         PreparedStatement stmt = null;
-        ByteArrayOutputStream bao = null;
-        ObjectOutputStream oos = null;
         try {
             Connection connection = OperationManagementDAOFactory.getConnection();
             stmt = connection.prepareStatement("INSERT INTO DM_DEVICE_OPERATION_RESPONSE(OPERATION_ID,ENROLMENT_ID," +
                     "OPERATION_RESPONSE, RECEIVED_TIMESTAMP) VALUES(?, ?, ?, ?)");
-            bao = new ByteArrayOutputStream();
-            oos = new ObjectOutputStream(bao);
-            oos.writeObject(operationResponse);
 
             stmt.setInt(1, operationId);
             stmt.setInt(2, enrolmentId);
-            stmt.setBytes(3, bao.toByteArray());
+            stmt.setBytes(3, OperationManagementDAOFactory.getOperationPayloadCodec().encodeResponse(operationResponse));
             stmt.setTimestamp(4, new Timestamp(new Date().getTime()));
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new OperationManagementDAOException("Error occurred while inserting operation response", e);
-        } catch (IOException e) {
-            throw new OperationManagementDAOException("Error occurred while serializing policy operation object", e);
+        } catch (OperationPayloadCodecException e) {
+            throw new OperationManagementDAOException("Error occurred while serializing operation response object", e);
         } finally {
-            if (bao != null) {
-                try {
-                    bao.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                }
-            }
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ObjectOutputStream", e);
-                }
-            }
             OperationManagementDAOUtil.cleanupResources(stmt);
         }
     }
@@ -253,30 +337,10 @@ public class GenericOperationDAOImpl implements OperationDAO {
             while (rs.next()) {
                 OperationResponse response = new OperationResponse();
                 response.setReceivedTimeStamp(rs.getTimestamp("RECEIVED_TIMESTAMP").toString());
-                ByteArrayInputStream bais = null;
-                ObjectInputStream ois = null;
-                byte[] contentBytes;
-                try {
-                    contentBytes = (byte[]) rs.getBytes("OPERATION_RESPONSE");
-                    bais = new ByteArrayInputStream(contentBytes);
-                    ois = new ObjectInputStream(bais);
-                    response.setResponse(ois.readObject().toString());
-
-                } finally {
-                    if (bais != null) {
-                        try {
-                            bais.close();
-                        } catch (IOException e) {
-                            log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                        }
-                    }
-                    if (ois != null) {
-                        try {
-                            ois.close();
-                        } catch (IOException e) {
-                            log.warn("Error occurred while closing ObjectOutputStream", e);
-                        }
-                    }
+                byte[] contentBytes = rs.getBytes("OPERATION_RESPONSE");
+                Object content = OperationManagementDAOFactory.getOperationPayloadCodec().decodeResponse(contentBytes);
+                if (content != null) {
+                    response.setResponse(content.toString());
                 }
                 responces.add(response);
             }
@@ -284,10 +348,7 @@ public class GenericOperationDAOImpl implements OperationDAO {
         } catch (SQLException e) {
             throw new OperationManagementDAOException("SQL Error occurred while retrieving the operation responses for " +
                     "operation id " + operationId + " and enrolment id " + enrolmentId, e);
-        } catch (ClassNotFoundException e) {
-            throw new OperationManagementDAOException("Error occurred while converting the operation responses to string" +
-                    " for operation id " + operationId + " and enrolment id " + enrolmentId, e);
-        } catch (IOException e) {
+        } catch (OperationPayloadCodecException e) {
             throw new OperationManagementDAOException("Error occurred while converting the operation responses to string" +
                     " for operation id " + operationId + " and enrolment id " + enrolmentId, e);
         } finally {
@@ -364,10 +425,8 @@ public class GenericOperationDAOImpl implements OperationDAO {
         } catch (SQLException e) {
             throw new OperationManagementDAOException("Error occurred while getting the operation details from " +
                     "the database.", e);
-        } catch (ClassNotFoundException e) {
+        } catch (OperationPayloadCodecException e) {
             throw new OperationManagementDAOException("Error occurred while converting the operation response to string.", e);
-        } catch (IOException e) {
-            throw new OperationManagementDAOException("IO exception occurred while converting the operations responses.", e);
         } finally {
             OperationManagementDAOUtil.cleanupResources(stmt, rs);
         }
@@ -425,7 +484,7 @@ public class GenericOperationDAOImpl implements OperationDAO {
             if(timestamp == 0){
                 sql += "ORDER BY opm.OPERATION_ID LIMIT ? OFFSET ?;";
             }else{
-                sql += "ORDER BY opm.UPDATED_TIMESTAMP asc LIMIT ? OFFSET ?";
+                sql += "ORDER BY opm.UPDATED_TIMESTAMP asc, opm.ID asc LIMIT ? OFFSET ?";
             }
 
 
@@ -523,16 +582,110 @@ public class GenericOperationDAOImpl implements OperationDAO {
         } catch (SQLException e) {
             throw new OperationManagementDAOException("Error occurred while getting the operation details from " +
                     "the database.", e);
-        } catch (ClassNotFoundException e) {
+        } catch (OperationPayloadCodecException e) {
             throw new OperationManagementDAOException("Error occurred while converting the operation response to string.", e);
-        } catch (IOException e) {
-            throw new OperationManagementDAOException("IO exception occurred while converting the operations responses.", e);
         } finally {
             OperationManagementDAOUtil.cleanupResources(stmt, rs);
         }
         return activities;
     }
 
+    @Override
+    public PaginationResult getActivitiesUpdatedAfter(long timestamp, ContinuationToken token, int limit)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        List<Activity> activities = new ArrayList<>();
+        PaginationResult result = new PaginationResult();
+        // A page resumes after the last mapping of the previous page, or at the given time for the first page.
+        long seekTimestamp = timestamp;
+        int seekId = Integer.MAX_VALUE;
+        if (token != null && token.getTimestamp() >= timestamp) {
+            seekTimestamp = token.getTimestamp();
+            seekId = token.getId();
+        }
+        try {
+            Connection conn = OperationManagementDAOFactory.getConnection();
+            String sql = "SELECT opm.ID AS MAPPING_ID, opm.ENROLMENT_ID, opm.CREATED_TIMESTAMP, " +
+                    "opm.UPDATED_TIMESTAMP, opm.OPERATION_ID, op.OPERATION_CODE, op.TYPE AS OPERATION_TYPE, " +
+                    "opm.STATUS, en.DEVICE_ID, ops.RECEIVED_TIMESTAMP, ops.ID AS OP_RES_ID, " +
+                    "ops.OPERATION_RESPONSE, de.DEVICE_IDENTIFICATION, dt.NAME AS DEVICE_TYPE FROM " +
+                    "(SELECT m.ID, m.ENROLMENT_ID, m.OPERATION_ID, m.STATUS, m.CREATED_TIMESTAMP, " +
+                    "m.UPDATED_TIMESTAMP FROM DM_ENROLMENT_OP_MAPPING m " +
+                    "INNER JOIN DM_ENROLMENT e ON m.ENROLMENT_ID = e.ID " +
+                    "WHERE m.UPDATED_TIMESTAMP >= ? AND (m.UPDATED_TIMESTAMP > ? OR " +
+                    "(m.UPDATED_TIMESTAMP = ? AND m.ID > ?)) AND e.TENANT_ID = ? " +
+                    "ORDER BY m.UPDATED_TIMESTAMP, m.ID " + this.getRowLimitClause() + ") opm " +
+                    "INNER JOIN DM_OPERATION op ON opm.OPERATION_ID = op.ID " +
+                    "INNER JOIN DM_ENROLMENT en ON opm.ENROLMENT_ID = en.ID " +
+                    "INNER JOIN DM_DEVICE de ON en.DEVICE_ID = de.ID " +
+                    "INNER JOIN DM_DEVICE_TYPE dt ON dt.ID = de.DEVICE_TYPE_ID " +
+                    "LEFT JOIN DM_DEVICE_OPERATION_RESPONSE ops ON opm.ENROLMENT_ID = ops.ENROLMENT_ID " +
+                    "AND opm.OPERATION_ID = ops.OPERATION_ID " +
+                    "ORDER BY opm.UPDATED_TIMESTAMP, opm.ID, ops.ID";
+            stmt = conn.prepareStatement(sql);
+            stmt.setLong(1, seekTimestamp);
+            stmt.setLong(2, seekTimestamp);
+            stmt.setLong(3, seekTimestamp);
+            stmt.setInt(4, seekId);
+            stmt.setInt(5, PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
+            stmt.setInt(6, limit);
+            rs = stmt.executeQuery();
+
+            int mappingCount = 0;
+            int mappingId = 0;
+            int operationId = 0;
+            long updatedTimestamp = 0;
+            Activity activity = null;
+            ActivityStatus activityStatus = null;
+            while (rs.next()) {
+                if (mappingId != rs.getInt("MAPPING_ID")) {
+                    mappingCount++;
+                    mappingId = rs.getInt("MAPPING_ID");
+                    updatedTimestamp = rs.getLong("UPDATED_TIMESTAMP");
+                    // Consecutive mappings of the same operation are reported as a single activity.
+                    if (operationId != rs.getInt("OPERATION_ID")) {
+                        operationId = rs.getInt("OPERATION_ID");
+                        activity = new Activity();
+                        activity.setActivityId(OperationDAOUtil.getActivityId(operationId));
+                        activity.setType(Activity.Type.valueOf(rs.getString("OPERATION_TYPE")));
+                        activity.setCreatedTimeStamp(
+                                new java.util.Date(rs.getLong("CREATED_TIMESTAMP") * 1000).toString());
+                        activity.setCode(rs.getString("OPERATION_CODE"));
+                        activity.setActivityStatus(new ArrayList<ActivityStatus>());
+                        activities.add(activity);
+                    }
+                    activityStatus = new ActivityStatus();
+                    DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
+                    deviceIdentifier.setId(rs.getString("DEVICE_IDENTIFICATION"));
+                    deviceIdentifier.setType(rs.getString("DEVICE_TYPE"));
+                    activityStatus.setDeviceIdentifier(deviceIdentifier);
+                    activityStatus.setStatus(ActivityStatus.Status.valueOf(rs.getString("STATUS")));
+                    if (updatedTimestamp != 0) {
+                        activityStatus.setUpdatedTimestamp(new java.util.Date(updatedTimestamp * 1000).toString());
+                    }
+                    activityStatus.setResponses(new ArrayList<OperationResponse>());
+                    activity.getActivityStatus().add(activityStatus);
+                }
+                if (rs.getTimestamp("RECEIVED_TIMESTAMP") != null) {
+                    activityStatus.getResponses().add(OperationDAOUtil.getOperationResponse(rs));
+                }
+            }
+            if (limit > 0 && mappingCount == limit) {
+                result.setContinuationToken(new ContinuationToken(updatedTimestamp, mappingId).encode());
+            }
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Error occurred while getting a page of the activities " +
+                    "updated after '" + timestamp + "' from the database.", e);
+        } catch (OperationPayloadCodecException e) {
+            throw new OperationManagementDAOException("Error occurred while converting the operation response to string.", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+        result.setData(activities);
+        return result;
+    }
+
     @Override
     public int getActivityCountUpdatedAfter(long timestamp) throws OperationManagementDAOException {
         PreparedStatement stmt = null;
@@ -919,7 +1072,8 @@ public class GenericOperationDAOImpl implements OperationDAO {
             String sql = "SELECT o.ID, TYPE, o.CREATED_TIMESTAMP, o.RECEIVED_TIMESTAMP, " +
                     "OPERATION_CODE, om.STATUS, om.ID AS OM_MAPPING_ID, om.UPDATED_TIMESTAMP FROM DM_OPERATION o " +
                     "INNER JOIN (SELECT * FROM DM_ENROLMENT_OP_MAPPING dm " +
-                    "WHERE dm.ENROLMENT_ID = ?) om ON o.ID = om.OPERATION_ID ORDER BY o.CREATED_TIMESTAMP DESC LIMIT ?,?";
+                    "WHERE dm.ENROLMENT_ID = ?) om ON o.ID = om.OPERATION_ID ORDER BY o.CREATED_TIMESTAMP DESC, " +
+                    "om.ID DESC LIMIT ?,?";
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, enrolmentId);
             stmt.setInt(2, request.getStartIndex());
@@ -927,25 +1081,7 @@ public class GenericOperationDAOImpl implements OperationDAO {
             rs = stmt.executeQuery();
 
             while (rs.next()) {
-                operation = new Operation();
-                operation.setId(rs.getInt("ID"));
-                operation.setType(Operation.Type.valueOf(rs.getString("TYPE")));
-                operation.setCreatedTimeStamp(rs.getTimestamp("CREATED_TIMESTAMP").toString());
-//                if (rs.getTimestamp("RECEIVED_TIMESTAMP") == null) {
-//                    operation.setReceivedTimeStamp("");
-//                } else {
-//                    operation.setReceivedTimeStamp(rs.getTimestamp("RECEIVED_TIMESTAMP").toString());
-//                }
-                if (rs.getLong("UPDATED_TIMESTAMP") == 0) {
-                    operation.setReceivedTimeStamp("");
-                } else {
-                    operation.setReceivedTimeStamp(
-                            new java.sql.Timestamp((rs.getLong("UPDATED_TIMESTAMP") * 1000)).toString());
-                }
-                operation.setCode(rs.getString("OPERATION_CODE"));
-                operation.setStatus(Operation.Status.valueOf(rs.getString("STATUS")));
-                OperationDAOUtil.setActivityId(operation, rs.getInt("ID"));
-                operations.add(operation);
+                operations.add(this.getDeviceOperation(rs));
             }
         } catch (SQLException e) {
             throw new OperationManagementDAOException("SQL error occurred while retrieving the operation " +
@@ -956,6 +1092,79 @@ public class GenericOperationDAOImpl implements OperationDAO {
         return operations;
     }
 
+    @Override
+    public PaginationResult getOperationsForDevice(int enrolmentId, ContinuationToken token, int limit)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        List<Operation> operations = new ArrayList<>();
+        PaginationResult result = new PaginationResult();
+        try {
+            Connection conn = OperationManagementDAOFactory.getConnection();
+            String sql = "SELECT o.ID, o.TYPE, o.CREATED_TIMESTAMP, o.RECEIVED_TIMESTAMP, o.OPERATION_CODE, " +
+                    "om.STATUS, om.ID AS OM_MAPPING_ID, om.UPDATED_TIMESTAMP FROM DM_ENROLMENT_OP_MAPPING om " +
+                    "INNER JOIN DM_OPERATION o ON om.OPERATION_ID = o.ID WHERE om.ENROLMENT_ID = ? ";
+            if (token != null) {
+                sql += "AND (o.CREATED_TIMESTAMP < ? OR (o.CREATED_TIMESTAMP = ? AND om.ID < ?)) ";
+            }
+            sql += "ORDER BY o.CREATED_TIMESTAMP DESC, om.ID DESC " + this.getRowLimitClause();
+            stmt = conn.prepareStatement(sql);
+            int paramIndex = 1;
+            stmt.setInt(paramIndex++, enrolmentId);
+            if (token != null) {
+                Timestamp createdTimestamp = new Timestamp(token.getTimestamp());
+                stmt.setTimestamp(paramIndex++, createdTimestamp);
+                stmt.setTimestamp(paramIndex++, createdTimestamp);
+                stmt.setInt(paramIndex++, token.getId());
+            }
+            stmt.setInt(paramIndex, limit);
+            rs = stmt.executeQuery();
+
+            long lastCreatedTimestamp = 0;
+            int lastMappingId = 0;
+            while (rs.next()) {
+                operations.add(this.getDeviceOperation(rs));
+                lastCreatedTimestamp = rs.getTimestamp("CREATED_TIMESTAMP").getTime();
+                lastMappingId = rs.getInt("OM_MAPPING_ID");
+            }
+            if (limit > 0 && operations.size() == limit) {
+                result.setContinuationToken(new ContinuationToken(lastCreatedTimestamp, lastMappingId).encode());
+            }
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("SQL error occurred while retrieving a page of the operations " +
+                    "available for the device '" + enrolmentId + "'", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+        result.setData(operations);
+        return result;
+    }
+
+    private Operation getDeviceOperation(ResultSet rs) throws SQLException {
+        Operation operation = new Operation();
+        operation.setId(rs.getInt("ID"));
+        operation.setType(Operation.Type.valueOf(rs.getString("TYPE")));
+        operation.setCreatedTimeStamp(rs.getTimestamp("CREATED_TIMESTAMP").toString());
+        if (rs.getLong("UPDATED_TIMESTAMP") == 0) {
+            operation.setReceivedTimeStamp("");
+        } else {
+            operation.setReceivedTimeStamp(
+                    new java.sql.Timestamp((rs.getLong("UPDATED_TIMESTAMP") * 1000)).toString());
+        }
+        operation.setCode(rs.getString("OPERATION_CODE"));
+        operation.setStatus(Operation.Status.valueOf(rs.getString("STATUS")));
+        OperationDAOUtil.setActivityId(operation, rs.getInt("ID"));
+        return operation;
+    }
+
+    /**
+     * Returns the clause restricting a query to the number of rows given by its last parameter. Vendors which do not
+     * support LIMIT override this.
+     */
+    protected String getRowLimitClause() {
+        return "LIMIT ?";
+    }
+
     @Override
     public int getOperationCountForDevice(int enrolmentId) throws OperationManagementDAOException {
         Connection conn;
@@ -1074,6 +1283,116 @@ public class GenericOperationDAOImpl implements OperationDAO {
         return operations;
     }
 
+    @Override
+    public List<? extends Operation> getPendingOperations(int enrolmentId) throws OperationManagementDAOException {
+        return this.getPendingOperations(enrolmentId, false);
+    }
+
+    @Override
+    public Operation getNextPendingOperation(int enrolmentId) throws OperationManagementDAOException {
+        List<? extends Operation> operations = this.getPendingOperations(enrolmentId, true);
+        return operations.isEmpty() ? null : operations.get(0);
+    }
+
+    /**
+     * Loads pending operations of an enrolment, oldest first, joining in the type specific tables so that payloads of
+     * all operation types are fetched by a single query. The row limit is applied through the driver rather than
+     * vendor specific SQL.
+     * <p>
+     * Command operations without their command rows are not loaded, and are filtered out by the query rather than
+     * while reading its rows, so that the row limit of the next pending operation does not fall on one of them.
+     * <p>
+     * The time stamps of command operations are read as they were when each type was queried separately: the list of
+     * pending operations reports when the operation was received, while the next pending operation reports when its
+     * mapping to the enrolment was last updated.
+     *
+     * @param nextOnly whether to load only the oldest pending operation.
+     */
+    protected List<? extends Operation> getPendingOperations(int enrolmentId, boolean nextOnly)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        List<Operation> operations = new ArrayList<>();
+        try {
+            Connection conn = OperationManagementDAOFactory.getConnection();
+            String sql = "SELECT o.ID, o.TYPE, o.CREATED_TIMESTAMP, o.RECEIVED_TIMESTAMP, o.OPERATION_CODE, " +
+                    "om.UPDATED_TIMESTAMP, co.ENABLED AS COMMAND_ENABLED, " +
+                    "cfo.OPERATION_CONFIG, pro.OPERATION_DETAILS AS PROFILE_DETAILS, " +
+                    "plo.OPERATION_DETAILS AS POLICY_DETAILS FROM DM_ENROLMENT_OP_MAPPING om " +
+                    "INNER JOIN DM_OPERATION o ON om.OPERATION_ID = o.ID " +
+                    "LEFT OUTER JOIN DM_COMMAND_OPERATION co ON co.OPERATION_ID = o.ID " +
+                    "LEFT OUTER JOIN DM_CONFIG_OPERATION cfo ON cfo.OPERATION_ID = o.ID " +
+                    "LEFT OUTER JOIN DM_PROFILE_OPERATION pro ON pro.OPERATION_ID = o.ID " +
+                    "LEFT OUTER JOIN DM_POLICY_OPERATION plo ON plo.OPERATION_ID = o.ID " +
+                    "WHERE om.ENROLMENT_ID = ? AND om.STATUS = ? AND (o.TYPE <> ? OR co.OPERATION_ID IS NOT NULL) " +
+                    "ORDER BY o.CREATED_TIMESTAMP ASC, o.ID ASC";
+            stmt = conn.prepareStatement(sql);
+            if (nextOnly) {
+                stmt.setMaxRows(1);
+            }
+            stmt.setInt(1, enrolmentId);
+            stmt.setString(2, Operation.Status.PENDING.toString());
+            stmt.setString(3, Operation.Type.COMMAND.toString());
+            rs = stmt.executeQuery();
+
+            Operation operation;
+            while (rs.next()) {
+                Operation.Type type = Operation.Type.valueOf(rs.getString("TYPE"));
+                switch (type) {
+                    case COMMAND:
+                        operation = new CommandOperation();
+                        operation.setId(rs.getInt("ID"));
+                        operation.setType(type);
+                        operation.setEnabled(rs.getBoolean("COMMAND_ENABLED"));
+                        if (nextOnly) {
+                            operation.setCreatedTimeStamp(rs.getTimestamp("CREATED_TIMESTAMP").toString());
+                            if (rs.getLong("UPDATED_TIMESTAMP") == 0) {
+                                operation.setReceivedTimeStamp("");
+                            } else {
+                                operation.setReceivedTimeStamp(
+                                        new java.sql.Timestamp((rs.getLong("UPDATED_TIMESTAMP") * 1000)).toString());
+                            }
+                        } else {
+                            operation.setCreatedTimeStamp(rs.getString("CREATED_TIMESTAMP"));
+                            operation.setReceivedTimeStamp(rs.getString("RECEIVED_TIMESTAMP"));
+                        }
+                        operation.setCode(rs.getString("OPERATION_CODE"));
+                        OperationDAOUtil.setActivityId(operation, rs.getInt("ID"));
+                        break;
+                    case CONFIG:
+                        operation = this.readOperationPayload(rs.getBytes("OPERATION_CONFIG"));
+                        break;
+                    case PROFILE:
+                        operation = this.readOperationPayload(rs.getBytes("PROFILE_DETAILS"));
+                        break;
+                    case POLICY:
+                        operation = this.readOperationPayload(rs.getBytes("POLICY_DETAILS"));
+                        break;
+                    default:
+                        operation = null;
+                }
+                if (operation != null) {
+                    operation.setStatus(Operation.Status.PENDING);
+                    operations.add(operation);
+                }
+            }
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("SQL error occurred while retrieving the pending operations " +
+                    "available for the device '" + enrolmentId + "'", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+        return operations;
+    }
+
+    private Operation readOperationPayload(byte[] payload) throws OperationManagementDAOException {
+        try {
+            return OperationManagementDAOFactory.getOperationPayloadCodec().decodeOperation(payload);
+        } catch (OperationPayloadCodecException e) {
+            throw new OperationManagementDAOException("Error occurred while de serialize the operation object", e);
+        }
+    }
+
     @Override
     public boolean resetAttemptCount(int enrolmentId) throws OperationManagementDAOException {
         boolean status = false;
@@ -1083,8 +1402,9 @@ public class GenericOperationDAOImpl implements OperationDAO {
         int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
         try {
             conn = OperationManagementDAOFactory.getConnection();
+            //Devices poll frequently, hence the row is only rewritten when there is an attempt count to reset.
             String query = "UPDATE DM_POLICY_COMPLIANCE_STATUS SET ATTEMPTS = 0, LAST_REQUESTED_TIME = ? " +
-                        "WHERE ENROLMENT_ID = ? AND TENANT_ID = ?";
+                        "WHERE ENROLMENT_ID = ? AND TENANT_ID = ? AND ATTEMPTS > 0";
             stmt = conn.prepareStatement(query);
             stmt.setTimestamp(1, currentTimestamp);
             stmt.setInt(2, enrolmentId);
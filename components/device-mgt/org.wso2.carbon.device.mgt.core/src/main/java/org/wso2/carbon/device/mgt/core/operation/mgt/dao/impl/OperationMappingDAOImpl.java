@@ -18,6 +18,7 @@
  */
 package org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl;
 
+import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
@@ -27,6 +28,7 @@ import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationMappingDAO;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 
 public class OperationMappingDAOImpl implements OperationMappingDAO {
 
@@ -52,6 +54,38 @@ public class OperationMappingDAOImpl implements OperationMappingDAO {
         }
     }
 
+    @Override
+    public void addOperationMapping(int operationId, List<Integer> enrolmentIds)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        try {
+            long time = System.currentTimeMillis() / 1000;
+            Connection conn = OperationManagementDAOFactory.getConnection();
+            String sql = "INSERT INTO DM_ENROLMENT_OP_MAPPING(ENROLMENT_ID, OPERATION_ID, STATUS, CREATED_TIMESTAMP, " +
+                    "UPDATED_TIMESTAMP) VALUES (?, ?, ?, ?, ?)";
+            stmt = conn.prepareStatement(sql);
+            int batchCount = 0;
+            for (Integer enrolmentId : enrolmentIds) {
+                stmt.setInt(1, enrolmentId);
+                stmt.setInt(2, operationId);
+                stmt.setString(3, Operation.Status.PENDING.toString());
+                stmt.setLong(4, time);
+                stmt.setLong(5, time);
+                stmt.addBatch();
+                if (++batchCount % DeviceManagementConstants.BulkOperations.BATCH_SIZE == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            if (batchCount % DeviceManagementConstants.BulkOperations.BATCH_SIZE != 0) {
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Error occurred while persisting device operation mappings", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
     @Override
     public void removeOperationMapping(int operationId,
                                        Integer deviceIds) throws OperationManagementDAOException {
@@ -18,27 +18,21 @@
  */
 package org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ProfileOperation;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOUtil;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec.OperationPayloadCodecException;
 
-import java.io.*;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class ProfileOperationDAOImpl extends GenericOperationDAOImpl {
 
-    private static final Log log = LogFactory.getLog(ProfileOperationDAOImpl.class);
-
     public int addOperation(Operation operation) throws OperationManagementDAOException {
         PreparedStatement stmt = null;
-        ByteArrayOutputStream bao = null;
-        ObjectOutputStream oos = null;
 
         int operationId;
         try {
@@ -51,32 +45,14 @@ public class ProfileOperationDAOImpl extends GenericOperationDAOImpl {
             stmt = conn.prepareStatement("INSERT INTO DM_PROFILE_OPERATION(OPERATION_ID, OPERATION_DETAILS) " +
                     "VALUES(?, ?)");
 
-            bao = new ByteArrayOutputStream();
-            oos = new ObjectOutputStream(bao);
-            oos.writeObject(operation);
-
             stmt.setInt(1, operationId);
-            stmt.setBytes(2, bao.toByteArray());
+            stmt.setBytes(2, OperationManagementDAOFactory.getOperationPayloadCodec().encodeOperation(operation));
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new OperationManagementDAOException("Error occurred while adding profile operation", e);
-        } catch (IOException e) {
+        } catch (OperationPayloadCodecException e) {
             throw new OperationManagementDAOException("Error occurred while serializing profile operation object", e);
         } finally {
-            if (bao != null) {
-                try {
-                    bao.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                }
-            }
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ObjectOutputStream", e);
-                }
-            }
             OperationManagementDAOUtil.cleanupResources(stmt);
         }
         return operationId;
@@ -85,40 +61,20 @@ public class ProfileOperationDAOImpl extends GenericOperationDAOImpl {
     @Override
     public void updateOperation(Operation operation) throws OperationManagementDAOException {
         PreparedStatement stmt = null;
-        ByteArrayOutputStream bao = null;
-        ObjectOutputStream oos = null;
         try {
             super.updateOperation(operation);
             Connection connection = OperationManagementDAOFactory.getConnection();
             stmt = connection.prepareStatement("UPDATE DM_PROFILE_OPERATION SET OPERATION_DETAILS=? " +
                     "WHERE OPERATION_ID=?");
 
-            bao = new ByteArrayOutputStream();
-            oos = new ObjectOutputStream(bao);
-            oos.writeObject(operation);
-
-            stmt.setBytes(1, bao.toByteArray());
+            stmt.setBytes(1, OperationManagementDAOFactory.getOperationPayloadCodec().encodeOperation(operation));
             stmt.setInt(2, operation.getId());
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new OperationManagementDAOException("Error occurred while update operation metadata", e);
-        } catch (IOException e) {
+        } catch (OperationPayloadCodecException e) {
             throw new OperationManagementDAOException("Error occurred while serializing profile operation object", e);
         } finally {
-            if (bao != null) {
-                try {
-                    bao.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                }
-            }
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ObjectOutputStream", e);
-                }
-            }
             OperationManagementDAOUtil.cleanupResources(stmt);
         }
     }
@@ -143,9 +99,6 @@ public class ProfileOperationDAOImpl extends GenericOperationDAOImpl {
         PreparedStatement stmt = null;
         ResultSet rs = null;
         ProfileOperation profileOperation = null;
-
-        ByteArrayInputStream bais;
-        ObjectInputStream ois;
         try {
             Connection conn = OperationManagementDAOFactory.getConnection();
             String sql = "SELECT OPERATION_ID, ENABLED, OPERATION_DETAILS FROM DM_PROFILE_OPERATION WHERE OPERATION_ID=?";
@@ -156,16 +109,12 @@ public class ProfileOperationDAOImpl extends GenericOperationDAOImpl {
 
             if (rs.next()) {
                 byte[] operationDetails = rs.getBytes("OPERATION_DETAILS");
-                bais = new ByteArrayInputStream(operationDetails);
-                ois = new ObjectInputStream(bais);
-                profileOperation = (ProfileOperation) ois.readObject();
+                profileOperation = (ProfileOperation) OperationManagementDAOFactory.getOperationPayloadCodec().
+                        decodeOperation(operationDetails);
             }
-        } catch (IOException e) {
-            throw new OperationManagementDAOException("IO Error occurred while de serialize the profile " +
+        } catch (OperationPayloadCodecException e) {
+            throw new OperationManagementDAOException("Error occurred while de serialize the profile " +
                     "operation object", e);
-        } catch (ClassNotFoundException e) {
-            throw new OperationManagementDAOException("Class not found error occurred while de serialize the " +
-                    "profile operation object", e);
         } catch (SQLException e) {
             throw new OperationManagementDAOException("SQL Error occurred while retrieving the command " +
                     "operation object " + "available for the id '" + id, e);
@@ -184,9 +133,6 @@ public class ProfileOperationDAOImpl extends GenericOperationDAOImpl {
 
         List<Operation> operationList = new ArrayList<Operation>();
 
-        ByteArrayInputStream bais = null;
-        ObjectInputStream ois = null;
-
         try {
             Connection conn = OperationManagementDAOFactory.getConnection();
             String sql = "Select po.OPERATION_ID, ENABLED, OPERATION_DETAILS from DM_PROFILE_OPERATION po " +
@@ -202,37 +148,19 @@ public class ProfileOperationDAOImpl extends GenericOperationDAOImpl {
 
             while (rs.next()) {
                 byte[] operationDetails = rs.getBytes("OPERATION_DETAILS");
-                bais = new ByteArrayInputStream(operationDetails);
-                ois = new ObjectInputStream(bais);
-                profileOperation = (ProfileOperation) ois.readObject();
+                profileOperation = (ProfileOperation) OperationManagementDAOFactory.getOperationPayloadCodec().
+                        decodeOperation(operationDetails);
                 profileOperation.setStatus(status);
                 operationList.add(profileOperation);
             }
 
-        } catch (IOException e) {
-            throw new OperationManagementDAOException("IO Error occurred while de serialize the profile " +
+        } catch (OperationPayloadCodecException e) {
+            throw new OperationManagementDAOException("Error occurred while de serialize the profile " +
                     "operation object", e);
-        } catch (ClassNotFoundException e) {
-            throw new OperationManagementDAOException("Class not found error occurred while de serialize the " +
-                    "profile operation object", e);
         } catch (SQLException e) {
             throw new OperationManagementDAOException("SQL error occurred while retrieving the operation " +
                     "available for the device'" + enrolmentId + "' with status '" + status.toString(), e);
         } finally {
-            if (bais != null) {
-                try {
-                    bais.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                }
-            }
-            if (ois != null) {
-                try {
-                    ois.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ObjectOutputStream", e);
-                }
-            }
             OperationManagementDAOUtil.cleanupResources(stmt, rs);
         }
         return operationList;
@@ -25,12 +25,15 @@ import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOF
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOUtil;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.GenericOperationDAOImpl;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This class holds the implementation of OperationDAO which can be used to support PostgreSQL db syntax.
@@ -49,7 +52,8 @@ public class PostgreSQLOperationDAOImpl extends GenericOperationDAOImpl {
             String sql = "SELECT o.ID, o.TYPE, o.CREATED_TIMESTAMP, o.RECEIVED_TIMESTAMP, " +
                          "o.OPERATION_CODE, om.STATUS FROM DM_OPERATION o " +
                          "INNER JOIN (SELECT * FROM DM_ENROLMENT_OP_MAPPING dm " +
-                         "WHERE dm.ENROLMENT_ID = ?) om ON o.ID = om.OPERATION_ID ORDER BY o.CREATED_TIMESTAMP DESC LIMIT ? OFFSET ?";
+                         "WHERE dm.ENROLMENT_ID = ?) om ON o.ID = om.OPERATION_ID ORDER BY o.CREATED_TIMESTAMP DESC, om.ID DESC " +
+                         "LIMIT ? OFFSET ?";
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, enrolmentId);
             stmt.setInt(2, request.getRowCount());
@@ -123,4 +127,57 @@ public class PostgreSQLOperationDAOImpl extends GenericOperationDAOImpl {
         }
         return operations;
     }
+
+    @Override
+    public void updateEnrollmentOperationsStatus(List<Integer> enrolmentIds, String operationCode,
+                                                 Operation.Status existingStatus, Operation.Status newStatus)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        try {
+            Connection conn = OperationManagementDAOFactory.getConnection();
+            stmt = conn.prepareStatement("UPDATE DM_ENROLMENT_OP_MAPPING SET STATUS = ?, UPDATED_TIMESTAMP = ? " +
+                                         "WHERE STATUS = ? AND OPERATION_ID IN (SELECT ID FROM DM_OPERATION " +
+                                         "WHERE OPERATION_CODE = ?) AND ENROLMENT_ID = ANY (?)");
+            stmt.setString(1, newStatus.toString());
+            stmt.setLong(2, System.currentTimeMillis() / 1000);
+            stmt.setString(3, existingStatus.toString());
+            stmt.setString(4, operationCode);
+            stmt.setArray(5, conn.createArrayOf("integer", enrolmentIds.toArray()));
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Error occurred while update device mapping operation status " +
+                                                      "metadata", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt);
+        }
+    }
+
+    @Override
+    public List<Integer> updateTaskOperation(List<Integer> enrolmentIds, String operationCode)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        Set<Integer> updatedEnrolmentIds = new HashSet<>();
+        try {
+            Connection conn = OperationManagementDAOFactory.getConnection();
+            Array enrolmentIdArray = conn.createArrayOf("integer", enrolmentIds.toArray());
+            stmt = conn.prepareStatement("UPDATE DM_ENROLMENT_OP_MAPPING SET UPDATED_TIMESTAMP = ? WHERE STATUS = ? " +
+                                         "AND OPERATION_ID IN (SELECT ID FROM DM_OPERATION WHERE OPERATION_CODE = ?) " +
+                                         "AND ENROLMENT_ID = ANY (?) RETURNING ENROLMENT_ID");
+            stmt.setLong(1, System.currentTimeMillis() / 1000);
+            stmt.setString(2, Operation.Status.PENDING.toString());
+            stmt.setString(3, operationCode);
+            stmt.setArray(4, enrolmentIdArray);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                updatedEnrolmentIds.add(rs.getInt("ENROLMENT_ID"));
+            }
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Error occurred while update device mapping operation status " +
+                                                      "metadata", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+        return new ArrayList<>(updatedEnrolmentIds);
+    }
 }
@@ -28,10 +28,10 @@ import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOUtil;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec.OperationPayloadCodecException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.GenericOperationDAOImpl;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.util.OperationDAOUtil;
 
-import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -56,8 +56,8 @@ public class SQLServerOperationDAOImpl extends GenericOperationDAOImpl {
             String sql = "SELECT o.ID, TYPE, o.CREATED_TIMESTAMP, o.RECEIVED_TIMESTAMP, " +
                          "o.OPERATION_CODE, om.STATUS, om.ID AS OM_MAPPING_ID, om.UPDATED_TIMESTAMP FROM DM_OPERATION o " +
                          "INNER JOIN (SELECT dm.OPERATION_ID, dm.ID, dm.STATUS, dm.UPDATED_TIMESTAMP FROM DM_ENROLMENT_OP_MAPPING dm " +
-                         "WHERE dm.ENROLMENT_ID = ?) om ON o.ID = om.OPERATION_ID ORDER BY o.CREATED_TIMESTAMP DESC " +
-                         "OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+                         "WHERE dm.ENROLMENT_ID = ?) om ON o.ID = om.OPERATION_ID ORDER BY o.CREATED_TIMESTAMP DESC, " +
+                         "om.ID DESC OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
             stmt = conn.prepareStatement(sql);
             stmt.setInt(1, enrolmentId);
             stmt.setInt(2, request.getStartIndex());
@@ -156,7 +156,7 @@ public class SQLServerOperationDAOImpl extends GenericOperationDAOImpl {
             if (timestamp == 0) {
                 sql += "ORDER BY opm.OPERATION_ID OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
             } else {
-                sql += "ORDER BY opm.UPDATED_TIMESTAMP asc OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+                sql += "ORDER BY opm.UPDATED_TIMESTAMP asc, opm.ID asc OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
             }
             stmt = conn.prepareStatement(sql);
             stmt.setLong(1, timestamp);
@@ -252,16 +252,18 @@ public class SQLServerOperationDAOImpl extends GenericOperationDAOImpl {
         } catch (SQLException e) {
             throw new OperationManagementDAOException(
                     "Error occurred while getting the operation details from " + "the database.", e);
-        } catch (ClassNotFoundException e) {
+        } catch (OperationPayloadCodecException e) {
             throw new OperationManagementDAOException(
                     "Error occurred while converting the operation response to string.", e);
-        } catch (IOException e) {
-            throw new OperationManagementDAOException(
-                    "IO exception occurred while converting the operations responses.", e);
         } finally {
             OperationManagementDAOUtil.cleanupResources(stmt, rs);
         }
         return activities;
     }
 
+    @Override
+    protected String getRowLimitClause() {
+        return "OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+    }
+
 }
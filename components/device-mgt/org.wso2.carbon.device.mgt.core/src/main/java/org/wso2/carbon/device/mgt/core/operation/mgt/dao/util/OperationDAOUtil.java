@@ -23,10 +23,9 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationResponse;
 import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.core.dto.operation.mgt.*;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec.OperationPayloadCodecException;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
@@ -111,35 +110,16 @@ public class OperationDAOUtil {
     }
 
     public static OperationResponse getOperationResponse(ResultSet rs) throws
-            ClassNotFoundException, IOException, SQLException {
+            OperationPayloadCodecException, SQLException {
         OperationResponse response = new OperationResponse();
         if (rs.getTimestamp("RECEIVED_TIMESTAMP") != (null)) {
             response.setReceivedTimeStamp(rs.getTimestamp("RECEIVED_TIMESTAMP").toString());
         }
-        ByteArrayInputStream bais = null;
-        ObjectInputStream ois = null;
-        byte[] contentBytes;
-        try {
-            if (rs.getBytes("OPERATION_RESPONSE") != null) {
-                contentBytes = (byte[]) rs.getBytes("OPERATION_RESPONSE");
-                bais = new ByteArrayInputStream(contentBytes);
-                ois = new ObjectInputStream(bais);
-                response.setResponse(ois.readObject().toString());
-            }
-        } finally {
-            if (bais != null) {
-                try {
-                    bais.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                }
-            }
-            if (ois != null) {
-                try {
-                    ois.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ObjectOutputStream", e);
-                }
+        byte[] contentBytes = rs.getBytes("OPERATION_RESPONSE");
+        if (contentBytes != null) {
+            Object content = OperationManagementDAOFactory.getOperationPayloadCodec().decodeResponse(contentBytes);
+            if (content != null) {
+                response.setResponse(content.toString());
             }
         }
         return response;
@@ -0,0 +1,95 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.util;
+
+import javax.xml.bind.DatatypeConverter;
+import java.nio.charset.Charset;
+
+/**
+ * Position of the last record of a page, handed to clients as an opaque, URL safe string so that the next page can
+ * be fetched by seeking past that record instead of skipping all preceding records with an offset. The position is
+ * made of the sort key of the record (a timestamp) and its id, which breaks ties between records sharing the same
+ * sort key.
+ */
+public class ContinuationToken {
+
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = ".";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final long timestamp;
+    private final int id;
+
+    public ContinuationToken(long timestamp, int id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String encode() {
+        String token = VERSION + SEPARATOR + timestamp + SEPARATOR + id;
+        return DatatypeConverter.printBase64Binary(token.getBytes(UTF_8)).replace('+', '-').replace('/', '_').
+                replace("=", "");
+    }
+
+    /**
+     * Restores a token produced by {@link #encode()}.
+     *
+     * @param token Token received from a client.
+     * @return the decoded token.
+     * @throws IllegalArgumentException if the token has not been produced by {@link #encode()}.
+     */
+    public static ContinuationToken decode(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Continuation token is empty");
+        }
+        String decoded;
+        try {
+            StringBuilder base64 = new StringBuilder(token.replace('-', '+').replace('_', '/'));
+            while (base64.length() % 4 != 0) {
+                base64.append('=');
+            }
+            decoded = new String(DatatypeConverter.parseBase64Binary(base64.toString()), UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Continuation token '" + token + "' is malformed", e);
+        }
+        String[] parts = decoded.split("\\" + SEPARATOR);
+        if (parts.length != 3 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Continuation token '" + token + "' is malformed");
+        }
+        try {
+            return new ContinuationToken(Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Continuation token '" + token + "' is malformed", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.encode();
+    }
+
+}
@@ -23,6 +23,7 @@ import org.wso2.carbon.device.mgt.common.permission.mgt.PermissionManagementExce
 import org.wso2.carbon.device.mgt.common.permission.mgt.PermissionManagerService;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
@@ -70,4 +71,11 @@ public class PermissionManagerServiceImpl implements PermissionManagerService {
         }
         return permissionTree.getPermission(url, httpMethod);
     }
+
+    /**
+     * @return the permissions of all the request paths of all the web apps.
+     */
+    public List<Permission> getPermissions() {
+        return permissionTree.getPermissions();
+    }
 }
@@ -22,6 +22,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.permission.mgt.Permission;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringTokenizer;
 
 /**
@@ -45,7 +47,7 @@ public class PermissionTree {
      *
      * @param permission Permission object.
      */
-    public void addPermission(Permission permission) {
+    public synchronized void addPermission(Permission permission) {
         StringTokenizer st = new StringTokenizer(permission.getUrl(), ROOT);
         PermissionNode tempRoot = rootNode;
         PermissionNode tempChild;
@@ -73,6 +75,23 @@ public class PermissionTree {
         return existChild;
     }
 
+    /**
+     * This method is used to retrieve all the permissions in the tree, e.g. to compile the routes of a web app from.
+     *
+     * @return returns the permissions of all the request paths.
+     */
+    public synchronized List<Permission> getPermissions() {
+        List<Permission> permissions = new ArrayList<>();
+        List<PermissionNode> nodes = new ArrayList<>();
+        nodes.add(rootNode);
+        for (int i = 0; i < nodes.size(); i++) {
+            PermissionNode node = nodes.get(i);
+            permissions.addAll(node.getPermissions());
+            nodes.addAll(node.getChildren());
+        }
+        return permissions;
+    }
+
     /**
      * This method is used to retrieve the permission for a given url and http method.
      * Breath First Search (BFS) is used to traverse the tree.
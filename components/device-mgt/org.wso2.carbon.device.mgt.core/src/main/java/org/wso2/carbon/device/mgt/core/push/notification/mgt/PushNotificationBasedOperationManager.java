@@ -131,6 +131,12 @@ public class PushNotificationBasedOperationManager implements OperationManager {
         return this.operationManager.getActivitiesUpdatedAfter(timestamp, limit, offset);
     }
 
+    @Override
+    public PaginationResult getActivitiesUpdatedAfter(long timestamp, PaginationRequest request)
+            throws OperationManagementException {
+        return this.operationManager.getActivitiesUpdatedAfter(timestamp, request);
+    }
+
     @Override
     public int getActivityCountUpdatedAfter(long timestamp) throws OperationManagementException {
         return this.operationManager.getActivityCountUpdatedAfter(timestamp);
@@ -0,0 +1,352 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.push.notification.mgt;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.push.notification.NotificationContext;
+import org.wso2.carbon.device.mgt.common.push.notification.NotificationStrategy;
+import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.push.notification.PushNotificationConfiguration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers push notifications of a single device type on a bounded pool of worker threads per tenant, so that callers
+ * never wait on the underlying push notification provider and a tenant flooding its queue does not delay the
+ * notifications of other tenants sharing the device type. Notifications that do not fit in the queue of their tenant
+ * are dropped rather than blocking the caller, since devices fetch their pending operations on their next poll
+ * regardless. Failed deliveries are retried after a delay without holding a worker thread in the meantime.
+ */
+public class PushNotificationDispatcher {
+
+    private static final Log log = LogFactory.getLog(PushNotificationDispatcher.class);
+
+    private static final int DEFAULT_WORKER_POOL_SIZE = 10;
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFAULT_MAX_RETRIES = 3;
+    private static final long DEFAULT_RETRY_INTERVAL = 1000;
+    private static final long WORKER_KEEP_ALIVE_TIME = 60;
+
+    private final NotificationStrategy notificationStrategy;
+    private final String name;
+    private final int workerPoolSize;
+    private final int queueCapacity;
+    private final int maxRetries;
+    private final long retryInterval;
+    private final ConcurrentMap<Integer, TenantQueue> tenantQueues = new ConcurrentHashMap<>();
+
+    // Notifications accepted and neither delivered nor abandoned yet, including those waiting to be retried.
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+    private final AtomicBoolean terminated = new AtomicBoolean();
+    private final CountDownLatch terminationLatch = new CountDownLatch(1);
+    private volatile boolean shutdown;
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public PushNotificationDispatcher(NotificationStrategy notificationStrategy, String name) {
+        this(notificationStrategy, name, getPushNotificationConfiguration());
+    }
+
+    private PushNotificationDispatcher(NotificationStrategy notificationStrategy, String name,
+                                       PushNotificationConfiguration config) {
+        this(notificationStrategy, name,
+             (config != null && config.getWorkerPoolSize() > 0) ? config.getWorkerPoolSize() :
+                     DEFAULT_WORKER_POOL_SIZE,
+             (config != null && config.getQueueCapacity() > 0) ? config.getQueueCapacity() : DEFAULT_QUEUE_CAPACITY,
+             (config != null && config.getMaxRetries() >= 0) ? config.getMaxRetries() : DEFAULT_MAX_RETRIES,
+             (config != null && config.getRetryInterval() > 0) ? config.getRetryInterval() :
+                     DEFAULT_RETRY_INTERVAL);
+    }
+
+    /**
+     * @param workerPoolSize Number of threads delivering the notifications of each tenant.
+     * @param queueCapacity  Number of notifications of each tenant that may wait for a worker thread, besides those
+     *                       being delivered.
+     */
+    public PushNotificationDispatcher(NotificationStrategy notificationStrategy, String name, int workerPoolSize,
+                                      int queueCapacity, int maxRetries, long retryInterval) {
+        this.notificationStrategy = notificationStrategy;
+        this.name = name;
+        this.workerPoolSize = workerPoolSize;
+        this.queueCapacity = queueCapacity;
+        this.maxRetries = maxRetries;
+        this.retryInterval = retryInterval;
+    }
+
+    /**
+     * Queues the given notification for delivery in the tenant of the caller and returns immediately. Must only be
+     * called once the operation the notification refers to has been committed, as the device may fetch it as soon as
+     * it is notified.
+     *
+     * @param ctx Notification to be delivered.
+     * @return false if the notification was dropped as the dispatch queue of the tenant is full, or the dispatcher
+     * has been shut down.
+     */
+    public boolean dispatch(NotificationContext ctx) {
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        // Counted in flight before checking for shutdown, so that the workers are not stopped under this notification.
+        inFlightCount.incrementAndGet();
+        if (shutdown) {
+            this.complete(null);
+            droppedCount.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Push notification dispatcher '" + name + "' has been shut down, hence dropping the " +
+                          "notification to device '" + ctx.getDeviceId() + "'");
+            }
+            return false;
+        }
+        TenantQueue tenantQueue = this.getTenantQueue(carbonContext.getTenantId());
+        if (tenantQueue.pendingCount.incrementAndGet() > workerPoolSize + queueCapacity) {
+            this.complete(tenantQueue);
+            long dropped = droppedCount.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Push notification queue of tenant '" + carbonContext.getTenantId() + "' is full, hence " +
+                          "dropping the notification to device '" + ctx.getDeviceId() + "'. Total dropped " +
+                          "notifications: " + dropped);
+            }
+            return false;
+        }
+        tenantQueue.executor.execute(new NotificationTask(ctx, tenantQueue, carbonContext.getTenantId(),
+                                                          carbonContext.getTenantDomain()));
+        acceptedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stops accepting notifications and stops the worker threads once the notifications already accepted, including
+     * their retries, are delivered or abandoned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        if (inFlightCount.get() == 0) {
+            this.terminate();
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!terminationLatch.await(timeout, unit)) {
+            return false;
+        }
+        for (TenantQueue tenantQueue : tenantQueues.values()) {
+            if (!tenantQueue.executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getQueuedCount() {
+        int queued = 0;
+        for (TenantQueue tenantQueue : tenantQueues.values()) {
+            queued += tenantQueue.executor.getQueue().size();
+        }
+        return queued;
+    }
+
+    private TenantQueue getTenantQueue(int tenantId) {
+        TenantQueue tenantQueue = tenantQueues.get(tenantId);
+        if (tenantQueue == null) {
+            TenantQueue newTenantQueue = new TenantQueue(tenantId);
+            tenantQueue = tenantQueues.putIfAbsent(tenantId, newTenantQueue);
+            if (tenantQueue == null) {
+                tenantQueue = newTenantQueue;
+            } else {
+                newTenantQueue.executor.shutdown();
+            }
+        }
+        return tenantQueue;
+    }
+
+    /**
+     * Marks a notification as no longer in flight, stopping the workers if it was the last one after a shutdown.
+     */
+    private void complete(TenantQueue tenantQueue) {
+        if (tenantQueue != null) {
+            tenantQueue.pendingCount.decrementAndGet();
+        }
+        if (inFlightCount.decrementAndGet() == 0 && shutdown) {
+            this.terminate();
+        }
+    }
+
+    private void terminate() {
+        if (terminated.compareAndSet(false, true)) {
+            for (TenantQueue tenantQueue : tenantQueues.values()) {
+                tenantQueue.executor.shutdown();
+            }
+            terminationLatch.countDown();
+        }
+    }
+
+    private static PushNotificationConfiguration getPushNotificationConfiguration() {
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        return (config != null) ? config.getPushNotificationConfiguration() : null;
+    }
+
+    /**
+     * Worker threads of a tenant and the number of its notifications waiting, being delivered or being retried.
+     */
+    private class TenantQueue {
+
+        private final ScheduledThreadPoolExecutor executor;
+        private final AtomicInteger pendingCount = new AtomicInteger();
+
+        TenantQueue(int tenantId) {
+            executor = new ScheduledThreadPoolExecutor(workerPoolSize, new DispatcherThreadFactory(name + "-" +
+                                                                                                   tenantId));
+            // Dispatchers are replaced whenever a device type is re-registered, hence idle workers must not linger.
+            executor.setKeepAliveTime(WORKER_KEEP_ALIVE_TIME, TimeUnit.SECONDS);
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+    }
+
+    private class NotificationTask implements Runnable {
+
+        private NotificationContext ctx;
+        private TenantQueue tenantQueue;
+        private int tenantId;
+        private String tenantDomain;
+        private int attempt;
+
+        NotificationTask(NotificationContext ctx, TenantQueue tenantQueue, int tenantId, String tenantDomain) {
+            this.ctx = ctx;
+            this.tenantQueue = tenantQueue;
+            this.tenantId = tenantId;
+            this.tenantDomain = tenantDomain;
+        }
+
+        @Override
+        public void run() {
+            PrivilegedCarbonContext.startTenantFlow();
+            try {
+                PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                carbonContext.setTenantId(tenantId);
+                carbonContext.setTenantDomain(tenantDomain);
+                if (this.deliver()) {
+                    return;
+                }
+            } finally {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+            this.retry();
+        }
+
+        /**
+         * @return false if the delivery failed and is to be retried.
+         */
+        private boolean deliver() {
+            try {
+                notificationStrategy.execute(ctx);
+                deliveredCount.incrementAndGet();
+                complete(tenantQueue);
+                return true;
+            } catch (PushNotificationExecutionFailedException e) {
+                if (attempt >= maxRetries) {
+                    failedCount.incrementAndGet();
+                    complete(tenantQueue);
+                    log.error("Error occurred while sending push notification to " + ctx.getDeviceId().getType() +
+                              " device carrying id '" + ctx.getDeviceId().getId() + "' after " + (attempt + 1) +
+                              " attempt(s)", e);
+                    return true;
+                }
+                return false;
+            } catch (RuntimeException e) {
+                failedCount.incrementAndGet();
+                complete(tenantQueue);
+                log.error("Unexpected error occurred while sending push notification to device '" +
+                          ctx.getDeviceId().getId() + "'", e);
+                return true;
+            }
+        }
+
+        private void retry() {
+            attempt++;
+            retriedCount.incrementAndGet();
+            try {
+                // The workers are only stopped once no notification is in flight, hence this one can be scheduled.
+                tenantQueue.executor.schedule(this, retryInterval * attempt, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                failedCount.incrementAndGet();
+                complete(tenantQueue);
+                log.warn("Push notification dispatcher '" + name + "' could not retry the notification to device '" +
+                         ctx.getDeviceId().getId() + "'");
+            }
+        }
+
+    }
+
+    private static class DispatcherThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        DispatcherThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "push-notification-dispatcher-" + name + "-" +
+                                                 threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
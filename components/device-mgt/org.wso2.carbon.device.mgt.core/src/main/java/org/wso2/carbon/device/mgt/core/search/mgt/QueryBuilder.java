@@ -22,22 +22,25 @@ package org.wso2.carbon.device.mgt.core.search.mgt;
 import org.wso2.carbon.device.mgt.common.search.Condition;
 
 import java.util.List;
-import java.util.Map;
 
 public interface QueryBuilder {
 
-    Map<String, List<String>> buildQueries(List<Condition> conditions) throws InvalidOperatorException;
-
-    String processAND(List<Condition> conditions) throws InvalidOperatorException;
-
-    String processOR(List<Condition> conditions) throws InvalidOperatorException;
-
-    List<String>  processLocation(Condition condition) throws InvalidOperatorException;
-
-    List<String> processANDProperties(List<Condition> conditions) throws InvalidOperatorException;
-
-    List<String> processORProperties(List<Condition> conditions) throws InvalidOperatorException;
-
-    String processUpdatedDevices(long epochTime) throws InvalidOperatorException;
+    /**
+     * Compiles the search conditions into a single parameterized query. A device matches if it satisfies all the
+     * conditions having the state AND, or any of the conditions having the state OR.
+     *
+     * @param conditions Search conditions.
+     * @return the compiled query.
+     * @throws InvalidOperatorException if a condition has an operator, state or value that cannot be searched.
+     */
+    SearchQuery buildQuery(List<Condition> conditions) throws InvalidOperatorException;
+
+    SearchQuery processUpdatedDevices(long epochTime) throws InvalidOperatorException;
+
+    /**
+     * @param deviceIds Ids of the devices to be fetched, no more than an IN clause can hold.
+     * @return a query fetching the given devices along with their details and locations.
+     */
+    SearchQuery processDevices(List<Integer> deviceIds);
 
 }
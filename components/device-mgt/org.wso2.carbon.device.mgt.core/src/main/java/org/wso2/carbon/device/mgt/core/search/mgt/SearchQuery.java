@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.search.mgt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A search compiled into a single SQL statement, along with the values to be bound to its parameters in order.
+ * Searched values are never part of the statement itself.
+ */
+public class SearchQuery {
+
+    private final StringBuilder sql = new StringBuilder();
+    private final List<Object> parameters = new ArrayList<>();
+
+    public SearchQuery append(String sqlPart) {
+        sql.append(sqlPart);
+        return this;
+    }
+
+    public SearchQuery append(String sqlPart, Object... parameters) {
+        sql.append(sqlPart);
+        Collections.addAll(this.parameters, parameters);
+        return this;
+    }
+
+    public String getSql() {
+        return sql.toString();
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + parameters;
+    }
+
+}
@@ -20,13 +20,19 @@
 package org.wso2.carbon.device.mgt.core.search.mgt.dao;
 
 import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchQuery;
 
 import java.util.List;
 
 public interface SearchDAO {
 
-    List<Device> searchDeviceDetailsTable(String query) throws SearchDAOException;
-
-    List<Device> searchDevicePropertyTable(String query) throws SearchDAOException;
+    /**
+     * Runs a search query and returns the matching devices along with their details, location and properties.
+     *
+     * @param query Query compiled from the search conditions.
+     * @return the matching devices, in the order returned by the query.
+     * @throws SearchDAOException if the query fails.
+     */
+    List<Device> searchDevices(SearchQuery query) throws SearchDAOException;
 
 }
@@ -22,18 +22,21 @@ package org.wso2.carbon.device.mgt.core.search.mgt.dao.impl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.Device;
-import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchQuery;
 import org.wso2.carbon.device.mgt.core.search.mgt.dao.SearchDAO;
 import org.wso2.carbon.device.mgt.core.search.mgt.dao.SearchDAOException;
-import org.wso2.carbon.device.mgt.core.search.mgt.impl.Utils;
 
-import java.sql.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -42,151 +45,37 @@ public class SearchDAOImpl implements SearchDAO {
     private static final Log log = LogFactory.getLog(SearchDAOImpl.class);
 
     @Override
-    public List<Device> searchDeviceDetailsTable(String query) throws SearchDAOException {
+    public List<Device> searchDevices(SearchQuery query) throws SearchDAOException {
         if (log.isDebugEnabled()) {
             log.debug("Query : " + query);
         }
         Connection conn;
         PreparedStatement stmt = null;
-        ResultSet rs;
-        List<Device> devices = new ArrayList<>();
-        Map<Integer, Integer> devs = new HashMap<>();
+        ResultSet rs = null;
+        Map<Integer, Device> devices = new LinkedHashMap<>();
         try {
             conn = this.getConnection();
-            stmt = conn.prepareStatement(query);
-            rs = stmt.executeQuery();
-            while (rs.next()) {
-                if (!devs.containsKey(rs.getInt("ID"))) {
-                    Device device = new Device();
-                    device.setId(rs.getInt("ID"));
-                    device.setDescription(rs.getString("DESCRIPTION"));
-                    device.setName("NAME");
-                    device.setType(rs.getString("DEVICE_TYPE_NAME"));
-                    device.setDeviceIdentifier(rs.getString("DEVICE_IDENTIFICATION"));
-
-                    DeviceIdentifier identifier = new DeviceIdentifier();
-                    identifier.setType(rs.getString("DEVICE_TYPE_NAME"));
-                    identifier.setId(rs.getString("DEVICE_IDENTIFICATION"));
-
-                    DeviceInfo deviceInfo = new DeviceInfo();
-                    deviceInfo.setAvailableRAMMemory(rs.getDouble("AVAILABLE_RAM_MEMORY"));
-                    deviceInfo.setBatteryLevel(rs.getDouble("BATTERY_LEVEL"));
-                    deviceInfo.setConnectionType(rs.getString("CONNECTION_TYPE"));
-                    deviceInfo.setCpuUsage(rs.getDouble("CPU_USAGE"));
-                    deviceInfo.setDeviceModel(rs.getString("DEVICE_MODEL"));
-                    deviceInfo.setExternalAvailableMemory(rs.getDouble("EXTERNAL_AVAILABLE_MEMORY"));
-                    deviceInfo.setExternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
-                    deviceInfo.setInternalAvailableMemory(rs.getDouble("INTERNAL_AVAILABLE_MEMORY"));
-                    deviceInfo.setInternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
-                    deviceInfo.setOsVersion(rs.getString("OS_VERSION"));
-                    deviceInfo.setOsBuildDate(rs.getString("OS_BUILD_DATE"));
-                    deviceInfo.setPluggedIn(rs.getBoolean("PLUGGED_IN"));
-                    deviceInfo.setSsid(rs.getString("SSID"));
-                    deviceInfo.setTotalRAMMemory(rs.getDouble("TOTAL_RAM_MEMORY"));
-                    deviceInfo.setVendor(rs.getString("VENDOR"));
-                    deviceInfo.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
-
-                    DeviceLocation deviceLocation = new DeviceLocation();
-                    deviceLocation.setLatitude(rs.getDouble("LATITUDE"));
-                    deviceLocation.setLongitude(rs.getDouble("LONGITUDE"));
-                    deviceLocation.setStreet1(rs.getString("STREET1"));
-                    deviceLocation.setStreet2(rs.getString("STREET2"));
-                    deviceLocation.setCity(rs.getString("CITY"));
-                    deviceLocation.setState(rs.getString("STATE"));
-                    deviceLocation.setZip(rs.getString("ZIP"));
-                    deviceLocation.setCountry(rs.getString("COUNTRY"));
-                    deviceLocation.setDeviceId(rs.getInt("ID"));
-                    deviceLocation.setUpdatedTime(new java.util.Date(rs.getLong("DL_UPDATED_TIMESTAMP")));
-
-                    deviceInfo.setLocation(deviceLocation);
-                    device.setDeviceInfo(deviceInfo);
-                    devices.add(device);
-                    devs.put(device.getId(), device.getId());
+            stmt = conn.prepareStatement(query.getSql());
+            int index = 1;
+            for (Object parameter : query.getParameters()) {
+                if (parameter instanceof Boolean) {
+                    // PLUGGED_IN is a BOOLEAN column on some databases and a numeric one on others.
+                    stmt.setBoolean(index++, (Boolean) parameter);
+                } else {
+                    stmt.setObject(index++, parameter);
                 }
             }
-        } catch (SQLException e) {
-            throw new SearchDAOException("Error occurred while acquiring the device details.", e);
-        } finally {
-            DeviceManagementDAOUtil.cleanupResources(stmt, null);
-        }
-
-        this.fillPropertiesOfDevices(devices);
-
-        if (log.isDebugEnabled()) {
-            log.debug("Number of the device returned from the query : " + devices.size());
-        }
-        return devices;
-    }
-
-    @Override
-    public List<Device> searchDevicePropertyTable(String query) throws SearchDAOException {
-        if (log.isDebugEnabled()) {
-            log.debug("Query : " + query);
-        }
-
-        Connection conn;
-        PreparedStatement stmt = null;
-        ResultSet rs;
-        List<Device> devices = new ArrayList<>();
-        Map<Integer, Integer> devs = new HashMap<>();
-        try {
-            conn = this.getConnection();
-            stmt = conn.prepareStatement(query);
             rs = stmt.executeQuery();
             while (rs.next()) {
-                if (!devs.containsKey(rs.getInt("ID"))) {
-                    Device device = new Device();
-                    device.setId(rs.getInt("ID"));
-                    device.setDescription(rs.getString("DESCRIPTION"));
-                    device.setName(rs.getString("NAME"));
-                    device.setType(rs.getString("DEVICE_TYPE_NAME"));
-                    device.setDeviceIdentifier(rs.getString("DEVICE_IDENTIFICATION"));
-
-                    DeviceIdentifier identifier = new DeviceIdentifier();
-                    identifier.setType(rs.getString("DEVICE_TYPE_NAME"));
-                    identifier.setId(rs.getString("DEVICE_IDENTIFICATION"));
-
-                    DeviceInfo deviceInfo = new DeviceInfo();
-                    deviceInfo.setAvailableRAMMemory(rs.getDouble("AVAILABLE_RAM_MEMORY"));
-                    deviceInfo.setBatteryLevel(rs.getDouble("BATTERY_LEVEL"));
-                    deviceInfo.setConnectionType(rs.getString("CONNECTION_TYPE"));
-                    deviceInfo.setCpuUsage(rs.getDouble("CPU_USAGE"));
-                    deviceInfo.setDeviceModel(rs.getString("DEVICE_MODEL"));
-                    deviceInfo.setExternalAvailableMemory(rs.getDouble("EXTERNAL_AVAILABLE_MEMORY"));
-                    deviceInfo.setExternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
-                    deviceInfo.setInternalAvailableMemory(rs.getDouble("INTERNAL_AVAILABLE_MEMORY"));
-                    deviceInfo.setInternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
-                    deviceInfo.setOsVersion(rs.getString("OS_VERSION"));
-                    deviceInfo.setOsBuildDate(rs.getString("OS_BUILD_DATE"));
-                    deviceInfo.setPluggedIn(rs.getBoolean("PLUGGED_IN"));
-                    deviceInfo.setSsid(rs.getString("SSID"));
-                    deviceInfo.setTotalRAMMemory(rs.getDouble("TOTAL_RAM_MEMORY"));
-                    deviceInfo.setVendor(rs.getString("VENDOR"));
-                    deviceInfo.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
-
-                    DeviceLocation deviceLocation = new DeviceLocation();
-                    deviceLocation.setLatitude(rs.getDouble("LATITUDE"));
-                    deviceLocation.setLongitude(rs.getDouble("LONGITUDE"));
-                    deviceLocation.setStreet1(rs.getString("STREET1"));
-                    deviceLocation.setStreet2(rs.getString("STREET2"));
-                    deviceLocation.setCity(rs.getString("CITY"));
-                    deviceLocation.setState(rs.getString("STATE"));
-                    deviceLocation.setZip(rs.getString("ZIP"));
-                    deviceLocation.setCountry(rs.getString("COUNTRY"));
-                    deviceLocation.setDeviceId(rs.getInt("ID"));
-                    deviceLocation.setUpdatedTime(new java.util.Date(rs.getLong("DL_UPDATED_TIMESTAMP")));
-
-                    deviceInfo.setLocation(deviceLocation);
-                    device.setDeviceInfo(deviceInfo);
-                    devices.add(device);
-                    devs.put(device.getId(), device.getId());
+                if (!devices.containsKey(rs.getInt("ID"))) {
+                    Device device = this.loadDevice(rs);
+                    devices.put(device.getId(), device);
                 }
-
             }
         } catch (SQLException e) {
-            throw new SearchDAOException("Error occurred while aquiring the device details.", e);
+            throw new SearchDAOException("Error occurred while acquiring the device details.", e);
         } finally {
-            DeviceManagementDAOUtil.cleanupResources(stmt, null);
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
         }
 
         this.fillPropertiesOfDevices(devices);
@@ -194,60 +83,83 @@ public class SearchDAOImpl implements SearchDAO {
         if (log.isDebugEnabled()) {
             log.debug("Number of the device returned from the query : " + devices.size());
         }
-
-        return devices;
+        return new ArrayList<>(devices.values());
     }
 
+    private Device loadDevice(ResultSet rs) throws SQLException {
+        Device device = new Device();
+        device.setId(rs.getInt("ID"));
+        device.setDescription(rs.getString("DESCRIPTION"));
+        device.setName(rs.getString("NAME"));
+        device.setType(rs.getString("DEVICE_TYPE_NAME"));
+        device.setDeviceIdentifier(rs.getString("DEVICE_IDENTIFICATION"));
+
+        DeviceInfo deviceInfo = new DeviceInfo();
+        deviceInfo.setAvailableRAMMemory(rs.getDouble("AVAILABLE_RAM_MEMORY"));
+        deviceInfo.setBatteryLevel(rs.getDouble("BATTERY_LEVEL"));
+        deviceInfo.setConnectionType(rs.getString("CONNECTION_TYPE"));
+        deviceInfo.setCpuUsage(rs.getDouble("CPU_USAGE"));
+        deviceInfo.setDeviceModel(rs.getString("DEVICE_MODEL"));
+        deviceInfo.setExternalAvailableMemory(rs.getDouble("EXTERNAL_AVAILABLE_MEMORY"));
+        deviceInfo.setExternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
+        deviceInfo.setInternalAvailableMemory(rs.getDouble("INTERNAL_AVAILABLE_MEMORY"));
+        deviceInfo.setInternalTotalMemory(rs.getDouble("INTERNAL_TOTAL_MEMORY"));
+        deviceInfo.setOsVersion(rs.getString("OS_VERSION"));
+        deviceInfo.setOsBuildDate(rs.getString("OS_BUILD_DATE"));
+        deviceInfo.setPluggedIn(rs.getBoolean("PLUGGED_IN"));
+        deviceInfo.setSsid(rs.getString("SSID"));
+        deviceInfo.setTotalRAMMemory(rs.getDouble("TOTAL_RAM_MEMORY"));
+        deviceInfo.setVendor(rs.getString("VENDOR"));
+        deviceInfo.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
+
+        DeviceLocation deviceLocation = new DeviceLocation();
+        deviceLocation.setLatitude(rs.getDouble("LATITUDE"));
+        deviceLocation.setLongitude(rs.getDouble("LONGITUDE"));
+        deviceLocation.setStreet1(rs.getString("STREET1"));
+        deviceLocation.setStreet2(rs.getString("STREET2"));
+        deviceLocation.setCity(rs.getString("CITY"));
+        deviceLocation.setState(rs.getString("STATE"));
+        deviceLocation.setZip(rs.getString("ZIP"));
+        deviceLocation.setCountry(rs.getString("COUNTRY"));
+        deviceLocation.setDeviceId(rs.getInt("ID"));
+        deviceLocation.setUpdatedTime(new java.util.Date(rs.getLong("DL_UPDATED_TIMESTAMP")));
+
+        deviceInfo.setLocation(deviceLocation);
+        device.setDeviceInfo(deviceInfo);
+        return device;
+    }
 
     private Connection getConnection() throws SQLException {
         return DeviceManagementDAOFactory.getConnection();
     }
 
-    private List<Device> fillPropertiesOfDevices(List<Device> devices) throws SearchDAOException {
-        if (devices.isEmpty()) {
-            return null;
-        }
-
-        Connection conn;
-        PreparedStatement stmt;
-        ResultSet rs;
-
-        try {
-            conn = this.getConnection();
-            String query = "SELECT * FROM DM_DEVICE_INFO WHERE DEVICE_ID IN (?) ORDER BY DEVICE_ID ;";
-            stmt = conn.prepareStatement(query);
-            if (conn.getMetaData().getDatabaseProductName().contains("H2") ||
-                    conn.getMetaData().getDatabaseProductName().contains("MySQL")) {
-                String inData = Utils.getDeviceIdsAsString(devices);
-                stmt.setString(1, inData);
-            } else {
-                Array array = conn.createArrayOf("INT", Utils.getArrayOfDeviceIds(devices));
-                stmt.setArray(1, array);
-            }
-            rs = stmt.executeQuery();
-
-            DeviceInfo dInfo;
-            while (rs.next()) {
-                dInfo = this.getDeviceInfo(devices, rs.getInt("DEVICE_ID"));
-                dInfo.getDeviceDetailsMap().put(rs.getString("KEY_FIELD"), rs.getString("VALUE_FIELD"));
-            }
-        } catch (SQLException e) {
-            throw new SearchDAOException("Error occurred while retrieving the device properties.", e);
-        }
-        return devices;
-    }
-
-    private DeviceInfo getDeviceInfo(List<Device> devices, int deviceId) {
-        for (Device device : devices) {
-            if (device.getId() == deviceId) {
-                if (device.getDeviceInfo() == null) {
-                    device.setDeviceInfo(new DeviceInfo());
+    private void fillPropertiesOfDevices(Map<Integer, Device> devices) throws SearchDAOException {
+        List<Integer> deviceIds = new ArrayList<>(devices.keySet());
+        for (int from = 0; from < deviceIds.size();
+             from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+            List<Integer> ids = deviceIds.subList(from, Math.min(
+                    from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE, deviceIds.size()));
+            PreparedStatement stmt = null;
+            ResultSet rs = null;
+            try {
+                Connection conn = this.getConnection();
+                stmt = conn.prepareStatement("SELECT DEVICE_ID, KEY_FIELD, VALUE_FIELD FROM DM_DEVICE_INFO " +
+                        "WHERE DEVICE_ID IN (" + DeviceManagementDAOUtil.getInClause(ids.size()) + ")");
+                int index = 1;
+                for (int deviceId : ids) {
+                    stmt.setInt(index++, deviceId);
                 }
-                return device.getDeviceInfo();
+                rs = stmt.executeQuery();
+                while (rs.next()) {
+                    devices.get(rs.getInt("DEVICE_ID")).getDeviceInfo().getDeviceDetailsMap().put(
+                            rs.getString("KEY_FIELD"), rs.getString("VALUE_FIELD"));
+                }
+            } catch (SQLException e) {
+                throw new SearchDAOException("Error occurred while retrieving the device properties.", e);
+            } finally {
+                DeviceManagementDAOUtil.cleanupResources(stmt, rs);
             }
         }
-        return null;
     }
 
 }
-
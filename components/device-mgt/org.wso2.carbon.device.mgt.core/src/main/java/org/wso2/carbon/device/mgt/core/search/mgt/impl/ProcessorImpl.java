@@ -19,23 +19,35 @@
 
 package org.wso2.carbon.device.mgt.core.search.mgt.impl;
 
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.app.mgt.Application;
+import org.wso2.carbon.device.mgt.common.search.Condition;
 import org.wso2.carbon.device.mgt.common.search.SearchContext;
+import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.core.dao.ApplicationDAO;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
 import org.wso2.carbon.device.mgt.core.search.mgt.*;
 import org.wso2.carbon.device.mgt.core.search.mgt.dao.SearchDAO;
 import org.wso2.carbon.device.mgt.core.search.mgt.dao.SearchDAOException;
+import org.wso2.carbon.device.mgt.core.search.mgt.index.DeviceSearchIndex;
+import org.wso2.carbon.device.mgt.core.search.mgt.index.DeviceSearchIndexManager;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
 
 public class ProcessorImpl implements Processor {
 
+    private static final long INDEX_REFRESH_OVERLAP = 60000;
+
     private SearchDAO searchDAO;
     private ApplicationDAO applicationDAO;
 
@@ -46,57 +58,47 @@ public class ProcessorImpl implements Processor {
 
     @Override
     public List<Device> execute(SearchContext searchContext) throws SearchMgtException {
-
+        if (searchContext.getConditions() == null || searchContext.getConditions().isEmpty()) {
+            return new ArrayList<>();
+        }
         QueryBuilder queryBuilder = new QueryBuilderImpl();
-        List<Device> generalDevices = new ArrayList<>();
-        List<List<Device>> allANDDevices = new ArrayList<>();
-        List<List<Device>> allORDevices = new ArrayList<>();
-        List<Device> locationDevices = new ArrayList<>();
-        try {
-            Map<String, List<String>> queries = queryBuilder.buildQueries(searchContext.getConditions());
-            DeviceManagementDAOFactory.openConnection();
-
-            if (queries.containsKey(Constants.GENERAL)) {
-                generalDevices = searchDAO.searchDeviceDetailsTable(queries.get(Constants.GENERAL).get(0));
+        List<SearchQuery> queries = new ArrayList<>();
+        Set<Integer> indexedDeviceIds = this.searchIndex(searchContext.getConditions());
+        if (indexedDeviceIds != null) {
+            List<Integer> deviceIds = new ArrayList<>(new TreeSet<>(indexedDeviceIds));
+            for (int from = 0; from < deviceIds.size();
+                 from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+                queries.add(queryBuilder.processDevices(deviceIds.subList(from, Math.min(
+                        from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE, deviceIds.size()))));
             }
-            if (queries.containsKey(Constants.PROP_AND)) {
-                for (String query : queries.get(Constants.PROP_AND)) {
-                    List<Device> andDevices = searchDAO.searchDevicePropertyTable(query);
-                    allANDDevices.add(andDevices);
-                }
+            if (queries.isEmpty()) {
+                return new ArrayList<>();
             }
-            if (queries.containsKey(Constants.PROP_OR)) {
-                for (String query : queries.get(Constants.PROP_OR)) {
-                    List<Device> orDevices = searchDAO.searchDevicePropertyTable(query);
-                    allORDevices.add(orDevices);
-                }
+        } else {
+            try {
+                queries.add(queryBuilder.buildQuery(searchContext.getConditions()));
+            } catch (InvalidOperatorException e) {
+                throw new SearchMgtException("Invalid search condition was provided, so cannot execute the search.",
+                        e);
             }
-            if (queries.containsKey(Constants.LOCATION)) {
-                locationDevices = searchDAO.searchDevicePropertyTable(
-                        queries.get(Constants.LOCATION).get(0));
+        }
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            List<Device> devices = new ArrayList<>();
+            for (SearchQuery query : queries) {
+                devices.addAll(searchDAO.searchDevices(query));
             }
-        } catch (InvalidOperatorException e) {
-            throw new SearchMgtException("Invalid operator was provided, so cannot execute the search.", e);
+            this.setApplicationListOfDevices(devices);
+            return devices;
         } catch (SQLException e) {
             throw new SearchMgtException("Error occurred while managing database transactions.", e);
         } catch (SearchDAOException e) {
             throw new SearchMgtException("Error occurred while running the search operations.", e);
+        } catch (DeviceManagementDAOException e) {
+            throw new SearchMgtException("Error occurred while fetching the Application List of devices ", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-
-        ResultSetAggregator aggregator = new ResultSetAggregatorImpl();
-
-        Map<String, List<Device>> devices = new HashMap<>();
-
-        devices.put(Constants.GENERAL, generalDevices);
-        devices.put(Constants.PROP_AND, this.processANDSearch(allANDDevices));
-        devices.put(Constants.PROP_OR, this.processORSearch(allORDevices));
-        devices.put(Constants.LOCATION, locationDevices);
-
-        List<Device> finalDevices = aggregator.aggregate(devices);
-        this.setApplicationListOfDevices(finalDevices);
-        return finalDevices;
     }
 
     @Override
@@ -107,9 +109,9 @@ public class ProcessorImpl implements Processor {
         }
         QueryBuilder queryBuilder = new QueryBuilderImpl();
         try {
-           String query =  queryBuilder.processUpdatedDevices(epochTime);
+            SearchQuery query = queryBuilder.processUpdatedDevices(epochTime);
             DeviceManagementDAOFactory.openConnection();
-            return searchDAO.searchDeviceDetailsTable(query);
+            return searchDAO.searchDevices(query);
         } catch (InvalidOperatorException e) {
             throw new SearchMgtException("Invalid operator was provided, so cannot execute the search.", e);
         } catch (SQLException e) {
@@ -121,86 +123,103 @@ public class ProcessorImpl implements Processor {
         }
     }
 
-
-    private List<Device> processANDSearch(List<List<Device>> deLists) {
-        List<Device> deviceList = new ArrayList<>();
-        List<Device> smallestDeviceList = this.findListWithLowestItems(deLists);
-        List<Map<Integer, Device>> maps = this.convertDeviceListToMap(deLists);
-        boolean valueExist = false;
-        for (Device device : smallestDeviceList) {
-            for (Map<Integer, Device> devices : maps) {
-                if (devices.containsKey(device.getId())) {
-                    valueExist = true;
-                } else {
-                    valueExist = false;
-                    break;
-                }
-            }
-            if (valueExist) {
-                deviceList.add(device);
+    /**
+     * Evaluates the search conditions on the search index of the tenant, if the index is enabled and all the
+     * conditions are on device properties or locations.
+     *
+     * @return ids of the matching devices, or null if the search has to be evaluated by the database.
+     */
+    private Set<Integer> searchIndex(List<Condition> conditions) throws SearchMgtException {
+        DeviceSearchIndexManager searchIndexManager =
+                DeviceManagementDataHolder.getInstance().getDeviceSearchIndexManager();
+        if (searchIndexManager == null) {
+            return null;
+        }
+        for (Condition con : conditions) {
+            if (!this.isIndexed(con) || (conditions.size() > 1 && con.getState() == null)) {
+                return null;
             }
         }
-        return deviceList;
-    }
-
-    private List<Device> processORSearch(List<List<Device>> deLists) {
-        List<Device> devices = new ArrayList<>();
-        Map<Integer, Device> map = new HashMap<>();
-
-        for (List<Device> list : deLists) {
-            for (Device device : list) {
-                if (!map.containsKey(device.getId())) {
-                    map.put(device.getId(), device);
-                    devices.add(device);
+        DeviceSearchIndex index = this.getSearchIndex(searchIndexManager);
+
+        Set<Integer> andDeviceIds = null;
+        Set<Integer> deviceIds = new HashSet<>();
+        for (Condition con : conditions) {
+            Set<Integer> matches = Constants.LOCATION.equalsIgnoreCase(con.getKey()) ?
+                    index.findByLocation(con.getValue()) : index.findByProperty(con.getKey(), con.getValue());
+            if (conditions.size() == 1 || Condition.State.AND.equals(con.getState())) {
+                if (andDeviceIds == null) {
+                    andDeviceIds = matches;
+                } else {
+                    andDeviceIds.retainAll(matches);
                 }
+            } else {
+                deviceIds.addAll(matches);
             }
         }
-        return devices;
+        if (andDeviceIds != null) {
+            deviceIds.addAll(andDeviceIds);
+        }
+        return deviceIds;
     }
 
-    private List<Device> findListWithLowestItems(List<List<Device>> deLists) {
-        int size = 0;
-        List<Device> devices = new ArrayList<>();
-        for (List<Device> list : deLists) {
-            if (size == 0) {
-                size = list.size();
-                devices = list;
-            } else {
-                if (list.size() < size) {
-                    devices = list;
-                }
-            }
+    private boolean isIndexed(Condition con) {
+        if (con.getKey() == null || con.getValue() == null) {
+            return false;
+        }
+        if (Constants.LOCATION.equalsIgnoreCase(con.getKey())) {
+            return true;
         }
-        return devices;
+        return con.getOperator() != null && "=".equals(con.getOperator().trim()) &&
+                Utils.getColumnName(Utils.getDeviceDetailsColumnNames(), con.getKey()) == null &&
+                Utils.getColumnName(Utils.getDeviceLocationColumnNames(), con.getKey()) == null;
     }
 
-    private List<Map<Integer, Device>> convertDeviceListToMap(List<List<Device>> deLists) {
-        List<Map<Integer, Device>> maps = new ArrayList<>();
-        for (List<Device> devices : deLists) {
-            Map<Integer, Device> deviceMap = new HashMap<>();
-
-            for (Device device: devices) {
-                deviceMap.put(device.getId(), device);
+    /**
+     * Returns the search index of the current tenant after loading the devices updated since it was last loaded, if
+     * it is due. Searches wait for the first load of an index, but not for later loads run by other searches.
+     */
+    private DeviceSearchIndex getSearchIndex(DeviceSearchIndexManager searchIndexManager)
+            throws SearchMgtException {
+        DeviceSearchIndex index = searchIndexManager.getIndex(
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
+        if (!index.isRefreshDue()) {
+            return index;
+        }
+        Lock refreshLock = index.getRefreshLock();
+        if (index.isBuilt()) {
+            if (!refreshLock.tryLock()) {
+                return index;
             }
-            maps.add(deviceMap);
+        } else {
+            refreshLock.lock();
         }
-        return maps;
-    }
-
-    private void setApplicationListOfDevices(List<Device> devices) throws SearchMgtException {
         try {
-            DeviceManagementDAOFactory.openConnection();
-            for (Device device : devices) {
-                device.setApplications(applicationDAO.getInstalledApplications(device.getId()));
+            if (index.isRefreshDue()) {
+                long refreshTime = System.currentTimeMillis();
+                // Overlaps the previous load, so that updates committed while it ran are not missed.
+                long since = index.isBuilt() ? index.getLastRefreshTime() - INDEX_REFRESH_OVERLAP : 0;
+                index.refresh(this.getUpdatedDevices(since), refreshTime);
             }
-        } catch (DeviceManagementDAOException e) {
-            throw new SearchMgtException("Error occurred while fetching the Application List of devices ", e);
-        } catch (SQLException e) {
-            throw new SearchMgtException("Error occurred while opening a connection to the data source", e);
         } finally {
-            DeviceManagementDAOFactory.closeConnection();
+            refreshLock.unlock();
         }
+        return index;
     }
 
-}
+    private void setApplicationListOfDevices(List<Device> devices) throws DeviceManagementDAOException {
+        if (devices.isEmpty()) {
+            return;
+        }
+        List<Integer> deviceIds = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            deviceIds.add(device.getId());
+        }
+        Map<Integer, List<Application>> applications = applicationDAO.getInstalledApplications(deviceIds);
+        for (Device device : devices) {
+            List<Application> deviceApplications = applications.get(device.getId());
+            device.setApplications(deviceApplications != null ? deviceApplications : new ArrayList<Application>());
+        }
+    }
 
+}
@@ -23,172 +23,123 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.search.Condition;
+import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
 import org.wso2.carbon.device.mgt.core.search.mgt.Constants;
 import org.wso2.carbon.device.mgt.core.search.mgt.InvalidOperatorException;
 import org.wso2.carbon.device.mgt.core.search.mgt.QueryBuilder;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchQuery;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Compiles search conditions into a single parameterized query. Conditions on device details and location columns
+ * become column predicates, conditions on other keys become EXISTS sub-queries on the device properties and location
+ * conditions match any part of the address, so that both AND and OR are evaluated by the database.
+ */
 public class QueryBuilderImpl implements QueryBuilder {
 
-
     private static final Log log = LogFactory.getLog(QueryBuilderImpl.class);
 
+    private static final String LIKE_ESCAPE_CHARACTER = "!";
+    private static final String[] ADDRESS_COLUMNS = {"STREET1", "STREET2", "CITY", "STATE", "COUNTRY", "ZIP"};
+
     @Override
-    public Map<String, List<String>> buildQueries(List<Condition> conditions) throws InvalidOperatorException {
-
-        List<Condition> andColumns = new ArrayList<>();
-        List<Condition> orColumns = new ArrayList<>();
-        List<Condition> otherANDColumns = new ArrayList<>();
-        List<Condition> otherORColumns = new ArrayList<>();
-        Condition locCondition = new Condition();
-
-        if (conditions.size() == 1) {
-            if (Constants.LOCATION.equalsIgnoreCase(conditions.get(0).getKey())) {
-                locCondition = conditions.get(0);
-            } else if (Utils.checkDeviceDetailsColumns(conditions.get(0).getKey()) ||
-                    Utils.checkDeviceLocationColumns(conditions.get(0).getKey())) {
-                andColumns.add(conditions.get(0));
+    public SearchQuery buildQuery(List<Condition> conditions) throws InvalidOperatorException {
+        List<Condition> andConditions = new ArrayList<>();
+        List<Condition> orConditions = new ArrayList<>();
+        for (Condition con : conditions) {
+            if (conditions.size() == 1 || Condition.State.AND.equals(con.getState())) {
+                andConditions.add(con);
+            } else if (Condition.State.OR.equals(con.getState())) {
+                orConditions.add(con);
             } else {
-                otherANDColumns.add(conditions.get(0));
+                throw new InvalidOperatorException(con.getState() + " is not a valid operator.");
             }
-        } else {
-            for (Condition con : conditions) {
-                if (Constants.LOCATION.equalsIgnoreCase(con.getKey())) {
-                    locCondition = con;
-                } else if (Utils.checkDeviceDetailsColumns(con.getKey()) ||
-                        Utils.checkDeviceLocationColumns(con.getKey())) {
-                    if (con.getState().equals(Condition.State.AND)) {
-                        andColumns.add(con);
-                    } else if (con.getState().equals(Condition.State.OR)) {
-                        orColumns.add(con);
-                    } else {
-                        throw new InvalidOperatorException(con.getState() + " is not a valid operator.");
-                    }
-                } else {
-                    if (con.getState().equals(Condition.State.AND)) {
-                        otherANDColumns.add(con);
-                    } else if (con.getState().equals(Condition.State.OR)) {
-                        otherORColumns.add(con);
-                    } else {
-                        throw new InvalidOperatorException(con.getState() + " is not a valid operator.");
-                    }
-                }
-            }
-        }
-
-        Map<String, List<String>> queries = new HashMap<>();
-        if ((!andColumns.isEmpty()) || (!orColumns.isEmpty())) {
-            queries.put(Constants.GENERAL, Utils.convertStringToList(this.getGenericQueryPart() + this.processAND(andColumns) +
-                    this.processOR(orColumns)));
         }
-        if (!otherANDColumns.isEmpty()) {
-            queries.put(Constants.PROP_AND, this.processANDProperties(otherANDColumns));
-        }
-        if (!otherORColumns.isEmpty()) {
-            queries.put(Constants.PROP_OR, this.processORProperties(otherORColumns));
-        }
-        if (locCondition != null && locCondition.getValue() != null) {
-            queries.put(Constants.LOCATION, this.processLocation(locCondition));
-        }
-
-        if (log.isDebugEnabled()) {
-            log.debug("General Query : " + queries.get(Constants.GENERAL));
-            log.debug("Property with AND Query : " + queries.get(Constants.PROP_AND));
-            log.debug("Property with OR Query : " + queries.get(Constants.PROP_OR));
-            log.debug("Location related Query : " + queries.get(Constants.LOCATION));
-        }
-
-        return queries;
-    }
-
-    @Override
-    public String processAND(List<Condition> conditions) throws InvalidOperatorException {
-
-        String querySuffix = "";
 
-        for (Condition con : conditions) {
-            if (Utils.checkDeviceDetailsColumns(con.getKey().toLowerCase())) {
-                querySuffix = querySuffix + " AND DD." + Utils.getDeviceDetailsColumnNames().get(con.getKey().toLowerCase()) +
-                        con.getOperator() + Utils.getConvertedValue(con.getKey().toLowerCase(), con.getValue());
-            } else if (Utils.checkDeviceLocationColumns(con.getKey().toLowerCase())) {
-                querySuffix = querySuffix + " AND DL." + Utils.getDeviceLocationColumnNames().get(con.getKey().toLowerCase()) +
-                        con.getOperator() + con.getValue();
+        SearchQuery query = this.getGenericQueryPart();
+        query.append(" AND (");
+        boolean first = true;
+        if (!andConditions.isEmpty()) {
+            query.append("(");
+            for (int i = 0; i < andConditions.size(); i++) {
+                if (i > 0) {
+                    query.append(" AND ");
+                }
+                this.appendPredicate(query, andConditions.get(i));
             }
+            query.append(")");
+            first = false;
         }
-
-        return querySuffix;
-    }
-
-    @Override
-    public String processOR(List<Condition> conditions) throws InvalidOperatorException {
-
-        String querySuffix = "";
-
-        for (Condition con : conditions) {
-            if (Utils.checkDeviceDetailsColumns(con.getKey().toLowerCase())) {
-                querySuffix = querySuffix + " OR DD." + Utils.getDeviceDetailsColumnNames().get(con.getKey().toLowerCase()) +
-                        con.getOperator() + Utils.getConvertedValue(con.getKey(), con.getValue());
-            } else if (Utils.checkDeviceLocationColumns(con.getKey().toLowerCase())) {
-                querySuffix = querySuffix + " OR DL." + Utils.getDeviceLocationColumnNames().get(con.getKey().toLowerCase()) +
-                        con.getOperator() + con.getValue();
+        for (Condition con : orConditions) {
+            if (!first) {
+                query.append(" OR ");
             }
+            this.appendPredicate(query, con);
+            first = false;
         }
-        return querySuffix;
-    }
-
-    @Override
-    public List<String> processLocation(Condition condition) throws InvalidOperatorException {
-        List<String> queryList = new ArrayList<>();
-        queryList.add(this.buildLocationQuery(condition.getValue()));
-        return queryList;
-    }
+        query.append(") ORDER BY D.ID");
 
-    @Override
-    public List<String> processANDProperties(List<Condition> conditions) throws InvalidOperatorException {
-        return this.getQueryList(conditions);
+        if (log.isDebugEnabled()) {
+            log.debug("Search query : " + query);
+        }
+        return query;
     }
 
     @Override
-    public List<String> processORProperties(List<Condition> conditions) throws InvalidOperatorException {
-        return this.getQueryList(conditions);
+    public SearchQuery processUpdatedDevices(long epochTime) throws InvalidOperatorException {
+        return this.getGenericQueryPart().append(" AND (DD.UPDATE_TIMESTAMP > ? OR DL.UPDATE_TIMESTAMP > ?)",
+                epochTime, epochTime);
     }
 
     @Override
-    public String processUpdatedDevices(long epochTime) throws InvalidOperatorException {
-        return this.getGenericQueryPart() + " AND ( DD.UPDATE_TIMESTAMP > " + epochTime +
-                " OR DL.UPDATE_TIMESTAMP > " + epochTime + " )";
+    public SearchQuery processDevices(List<Integer> deviceIds) {
+        return this.getGenericQueryPart().append(" AND D.ID IN (" +
+                DeviceManagementDAOUtil.getInClause(deviceIds.size()) + ") ORDER BY D.ID", deviceIds.toArray());
     }
 
-    private List<String> getQueryList(List<Condition> conditions) {
-        List<String> queryList = new ArrayList<>();
-        for (Condition con : conditions) {
-
-            String querySuffix = this.getPropertyQueryPart() + " AND DI.KEY_FIELD = " + "\'" + con.getKey() + "\'" +
-                    " AND DI.VALUE_FIELD " + con.getOperator() + "\'" + con.getValue() + "\'";
-            queryList.add(querySuffix);
+    private void appendPredicate(SearchQuery query, Condition con) throws InvalidOperatorException {
+        if (con.getKey() == null) {
+            throw new InvalidOperatorException("A key is required to search by");
         }
-        return queryList;
+        if (Constants.LOCATION.equalsIgnoreCase(con.getKey())) {
+            this.appendLocationPredicate(query, con.getValue());
+            return;
+        }
+        String operator = Utils.getOperator(con.getOperator());
+        String column = Utils.getColumnName(Utils.getDeviceDetailsColumnNames(), con.getKey());
+        if (column != null) {
+            query.append("DD." + column + " " + operator + " ?", Utils.getConvertedValue(column, con.getValue()));
+            return;
+        }
+        column = Utils.getColumnName(Utils.getDeviceLocationColumnNames(), con.getKey());
+        if (column != null) {
+            query.append("DL." + column + " " + operator + " ?", Utils.getConvertedValue(column, con.getValue()));
+            return;
+        }
+        query.append("EXISTS (SELECT 1 FROM DM_DEVICE_INFO DI WHERE DI.DEVICE_ID = D.ID AND DI.KEY_FIELD = ? " +
+                "AND DI.VALUE_FIELD " + operator + " ?)", con.getKey(), con.getValue());
     }
 
-    private String buildLocationQuery(String location) {
-
-        String query = this.getGenericQueryPart();
-        query = query + " AND DL.STREET1 LIKE \'%" + location + "%\'";
-        query = query + " OR DL.STREET2 LIKE \'%" + location + "%\'";
-        query = query + " OR DL.CITY LIKE \'%" + location + "%\'";
-        query = query + " OR DL.STATE LIKE \'%" + location + "%\'";
-        query = query + " OR DL.COUNTRY LIKE \'%" + location + "%\'";
-        query = query + " OR DL.ZIP LIKE \'%" + location + "%\'";
-        return query;
+    private void appendLocationPredicate(SearchQuery query, String location) throws InvalidOperatorException {
+        if (location == null) {
+            throw new InvalidOperatorException("A value is required to search by location");
+        }
+        String pattern = "%" + location.replace(LIKE_ESCAPE_CHARACTER, LIKE_ESCAPE_CHARACTER + LIKE_ESCAPE_CHARACTER).
+                replace("%", LIKE_ESCAPE_CHARACTER + "%").replace("_", LIKE_ESCAPE_CHARACTER + "_") + "%";
+        query.append("(");
+        for (int i = 0; i < ADDRESS_COLUMNS.length; i++) {
+            if (i > 0) {
+                query.append(" OR ");
+            }
+            query.append("DL." + ADDRESS_COLUMNS[i] + " LIKE ? ESCAPE '" + LIKE_ESCAPE_CHARACTER + "'", pattern);
+        }
+        query.append(")");
     }
 
-    private String getGenericQueryPart() {
-
-        return "SELECT D.ID, D.DESCRIPTION, D.NAME,  \n" +
+    private SearchQuery getGenericQueryPart() {
+        return new SearchQuery().append("SELECT D.ID, D.DESCRIPTION, D.NAME,  \n" +
                 "D.DEVICE_TYPE_ID, D.DEVICE_IDENTIFICATION,  DT.ID AS DEVICE_TYPE_ID, \n" +
                 "DT.NAME AS DEVICE_TYPE_NAME, DD.DEVICE_ID, DD.DEVICE_MODEL, DD.VENDOR, \n" +
                 "DD.OS_VERSION, DD.OS_BUILD_DATE, DD.BATTERY_LEVEL, DD.INTERNAL_TOTAL_MEMORY, DD.INTERNAL_AVAILABLE_MEMORY,\n" +
@@ -199,28 +150,7 @@ public class QueryBuilderImpl implements QueryBuilder {
                 "FROM DM_DEVICE_DETAIL AS DD INNER JOIN DM_DEVICE AS D ON  D.ID=DD.DEVICE_ID\n" +
                 "LEFT JOIN DM_DEVICE_LOCATION AS DL ON DL.DEVICE_ID=D.ID \n" +
                 "INNER JOIN  DM_DEVICE_TYPE AS DT ON DT.ID=D.DEVICE_TYPE_ID\n" +
-                "WHERE D.TENANT_ID = " +
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
-
-
+                "WHERE D.TENANT_ID = ?", PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
     }
 
-    private String getPropertyQueryPart() {
-
-        return "SELECT D.ID, D.DESCRIPTION, D.NAME,  \n" +
-                "D.DEVICE_TYPE_ID, D.DEVICE_IDENTIFICATION,  DT.ID AS DEVICE_TYPE_ID, \n" +
-                "DT.NAME AS DEVICE_TYPE_NAME, DD.DEVICE_ID, DD.DEVICE_MODEL, DD.VENDOR, \n" +
-                "DD.OS_VERSION, DD.OS_BUILD_DATE, DD.BATTERY_LEVEL, DD.INTERNAL_TOTAL_MEMORY, DD.INTERNAL_AVAILABLE_MEMORY,\n" +
-                "DD.EXTERNAL_TOTAL_MEMORY, DD.EXTERNAL_AVAILABLE_MEMORY, DD.CONNECTION_TYPE, \n" +
-                "DD.SSID, DD.CPU_USAGE, DD.TOTAL_RAM_MEMORY, DD.AVAILABLE_RAM_MEMORY, \n" +
-                "DD.PLUGGED_IN, DD.UPDATE_TIMESTAMP, DL.LATITUDE, DL.LONGITUDE, DL.STREET1, DL.STREET2, DL.CITY, DL.ZIP, \n" +
-                "DL.STATE, DL.COUNTRY, DL.UPDATE_TIMESTAMP AS DL_UPDATED_TIMESTAMP, DI.KEY_FIELD, DI.VALUE_FIELD \n" +
-                "FROM DM_DEVICE_DETAIL AS DD INNER JOIN DM_DEVICE AS D ON  D.ID=DD.DEVICE_ID\n" +
-                "LEFT JOIN DM_DEVICE_LOCATION AS DL ON DL.DEVICE_ID=D.ID  \n" +
-                "INNER JOIN  DM_DEVICE_TYPE AS DT ON DT.ID=D.DEVICE_TYPE_ID\n" +
-                "LEFT JOIN DM_DEVICE_INFO AS DI ON DI.DEVICE_ID=D.ID\n" +
-                "WHERE D.TENANT_ID = " +
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
-
-    }
 }
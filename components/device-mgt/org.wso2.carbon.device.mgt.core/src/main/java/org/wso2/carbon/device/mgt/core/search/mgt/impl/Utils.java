@@ -19,17 +19,21 @@
 
 package org.wso2.carbon.device.mgt.core.search.mgt.impl;
 
-import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.core.search.mgt.InvalidOperatorException;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class Utils {
 
     private static Map<String, String> genericColumnsMap = new HashMap<>();
     private static Map<String, String> locationColumnsMap = new HashMap<>();
+    private static Map<String, String> operatorsMap = new HashMap<>();
+    private static Set<String> textColumns = new HashSet<>(Arrays.asList("DEVICE_MODEL", "VENDOR", "OS_VERSION",
+            "OS_BUILD_DATE", "CONNECTION_TYPE", "SSID", "STREET1", "STREET2", "CITY", "ZIP", "STATE", "COUNTRY"));
 
     static {
         genericColumnsMap.put("deviceModel", "DEVICE_MODEL");
@@ -54,46 +58,64 @@ public class Utils {
         locationColumnsMap.put("street1", "STREET1");
         locationColumnsMap.put("street2", "STREET2");
         locationColumnsMap.put("city", "CITY");
-        locationColumnsMap.put("state", "ZIP");
-        locationColumnsMap.put("zip", "STATE");
+        locationColumnsMap.put("state", "STATE");
+        locationColumnsMap.put("zip", "ZIP");
         locationColumnsMap.put("country", "COUNTRY");
 
+        operatorsMap.put("=", "=");
+        operatorsMap.put("!=", "<>");
+        operatorsMap.put("<>", "<>");
+        operatorsMap.put("<", "<");
+        operatorsMap.put(">", ">");
+        operatorsMap.put("<=", "<=");
+        operatorsMap.put("=<", "<=");
+        operatorsMap.put(">=", ">=");
     }
 
+    /**
+     * @return true if the given column holds text, rather than numbers.
+     */
     public static boolean checkColumnType(String column) {
-
-        boolean bool = false;
-
-        switch (column) {
-            case "deviceModel":
-                bool = true;
-                break;
-            case "vendor":
-                bool = true;
-                break;
-            case "osVersion":
-                bool = true;
-                break;
-            case "connectionType":
-                bool = true;
-                break;
-            case "ssid":
-                bool = true;
-                break;
-            default:
-                bool = false;
-                break;
-        }
-
-        return bool;
+        return textColumns.contains(column);
     }
 
-    public static String getConvertedValue(String column, String value) {
-
+    /**
+     * Converts a searched value to the type of the column it is searched in, so that it can be bound to a query.
+     *
+     * @throws InvalidOperatorException if the value cannot be converted.
+     */
+    public static Object getConvertedValue(String column, String value) throws InvalidOperatorException {
         if (checkColumnType(column)) {
-            return "\'" + value + "\'";
-        } else return value;
+            return value;
+        }
+        if (value == null) {
+            throw new InvalidOperatorException("A value is required to search by " + column);
+        }
+        String trimmedValue = value.trim();
+        if ("PLUGGED_IN".equals(column)) {
+            if ("true".equalsIgnoreCase(trimmedValue)) {
+                return Boolean.TRUE;
+            } else if ("false".equalsIgnoreCase(trimmedValue)) {
+                return Boolean.FALSE;
+            }
+        }
+        try {
+            return Double.valueOf(trimmedValue);
+        } catch (NumberFormatException e) {
+            throw new InvalidOperatorException("'" + value + "' is not a valid value to search by " + column, e);
+        }
+    }
 
+    /**
+     * @return the SQL comparison operator for the given search operator.
+     * @throws InvalidOperatorException if the operator is not supported.
+     */
+    public static String getOperator(String operator) throws InvalidOperatorException {
+        String sqlOperator = (operator != null) ? operatorsMap.get(operator.trim()) : null;
+        if (sqlOperator == null) {
+            throw new InvalidOperatorException(operator + " is not a valid operator.");
+        }
+        return sqlOperator;
     }
 
     public static Map<String, String> getDeviceDetailsColumnNames() {
@@ -112,35 +134,15 @@ public class Utils {
         return locationColumnsMap.containsKey(str) || locationColumnsMap.containsValue(str);
     }
 
-    public static List<String> convertStringToList(String str) {
-
-        List<String> stList = new ArrayList<>();
-        stList.add(str);
-        return stList;
-    }
-
-    public static Integer[] getArrayOfDeviceIds(List<Device> devices) {
-        Integer[] arr = new Integer[devices.size()];
-        int x = 0;
-        for (Device device : devices) {
-            arr[x] = device.getId();
-            x++;
-        }
-        return arr;
-    }
-
-
-    public static String getDeviceIdsAsString(List<Device> devices) {
-
-        String str = "";
-        for (Device device : devices) {
-            str += device.getId() + ",";
+    /**
+     * @return the column searched by the given key, which may either be a field name or a column name, or null if
+     * the key is not a column of the given columns.
+     */
+    public static String getColumnName(Map<String, String> columns, String key) {
+        if (columns.containsKey(key)) {
+            return columns.get(key);
         }
-        if (devices.isEmpty()) {
-            return null;
-        }
-        return str.substring(0, str.length() - 1);
+        return columns.containsValue(key) ? key : null;
     }
 
 }
-
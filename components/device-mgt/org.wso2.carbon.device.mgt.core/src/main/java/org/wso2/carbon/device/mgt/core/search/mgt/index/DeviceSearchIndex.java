@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.search.mgt.index;
+
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the properties and locations of the devices of a tenant.
+ * <p>
+ * Properties are indexed by key and value for exact matches. Address fields of locations are split into lower case
+ * tokens held in a sorted dictionary, so that a location search only has to look at the distinct tokens, and at the
+ * devices having matching tokens, instead of at every device. Location searches are case insensitive substring
+ * matches on any single address field, as a location search in the database is.
+ */
+public class DeviceSearchIndex {
+
+    private final long refreshInterval;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock refreshLock = new ReentrantLock();
+    private volatile long lastRefreshTime = -1;
+
+    private final Map<Integer, Map<String, String>> deviceProperties = new HashMap<>();
+    private final Map<String, Map<String, Set<Integer>>> propertyPostings = new HashMap<>();
+    private final Map<Integer, String[]> deviceAddresses = new HashMap<>();
+    private final TreeMap<String, Set<Integer>> addressTokens = new TreeMap<>();
+    // Times at which the indexed properties and locations were updated, so that rows read from the database which
+    // are older than what is indexed, e.g. rows read again due to the refresh overlap or rows older than a report
+    // still buffered, do not replace newer values.
+    private final Map<Integer, Long> propertiesUpdateTimes = new HashMap<>();
+    private final Map<Integer, Long> locationUpdateTimes = new HashMap<>();
+
+    public DeviceSearchIndex(long refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * @return true once the index has been loaded from the database.
+     */
+    public boolean isBuilt() {
+        return lastRefreshTime >= 0;
+    }
+
+    public boolean isRefreshDue() {
+        return !this.isBuilt() || System.currentTimeMillis() - lastRefreshTime >= refreshInterval;
+    }
+
+    /**
+     * @return the time of the last refresh, or -1 if the index has not been built yet.
+     */
+    public long getLastRefreshTime() {
+        return lastRefreshTime;
+    }
+
+    /**
+     * @return the lock to be held while loading updated devices into the index, so that only one caller does it.
+     */
+    public Lock getRefreshLock() {
+        return refreshLock;
+    }
+
+    /**
+     * Indexes devices loaded from the database, which carry their properties and location in their device
+     * information. Properties and locations which are not newer than the indexed ones, by their update timestamps,
+     * are skipped.
+     *
+     * @param devices     Devices updated since the last refresh.
+     * @param refreshTime Time at which loading the devices began.
+     */
+    public void refresh(List<Device> devices, long refreshTime) {
+        lock.writeLock().lock();
+        try {
+            for (Device device : devices) {
+                DeviceInfo deviceInfo = device.getDeviceInfo();
+                if (deviceInfo == null) {
+                    continue;
+                }
+                if (this.isNewer(propertiesUpdateTimes, device.getId(), deviceInfo.getUpdatedTime().getTime())) {
+                    this.indexProperties(device.getId(), deviceInfo.getDeviceDetailsMap());
+                }
+                DeviceLocation location = deviceInfo.getLocation();
+                if (location != null &&
+                        this.isNewer(locationUpdateTimes, device.getId(), location.getUpdatedTime().getTime())) {
+                    this.indexLocation(device.getId(), location);
+                }
+            }
+            lastRefreshTime = refreshTime;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the properties reported by a device, which are newer than any stored in the database.
+     */
+    public void updateProperties(int deviceId, Map<String, String> properties) {
+        lock.writeLock().lock();
+        try {
+            propertiesUpdateTimes.put(deviceId, System.currentTimeMillis());
+            this.indexProperties(deviceId, properties);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the location reported by a device, which is newer than any stored in the database.
+     */
+    public void updateLocation(int deviceId, DeviceLocation location) {
+        lock.writeLock().lock();
+        try {
+            locationUpdateTimes.put(deviceId, System.currentTimeMillis());
+            this.indexLocation(deviceId, location);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of the devices having the given value for the given property.
+     */
+    public Set<Integer> findByProperty(String key, String value) {
+        lock.readLock().lock();
+        try {
+            Map<String, Set<Integer>> values = propertyPostings.get(key);
+            Set<Integer> deviceIds = (values != null) ? values.get(value) : null;
+            return (deviceIds != null) ? new HashSet<>(deviceIds) : new HashSet<Integer>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of the devices having an address field that contains the given text, ignoring case.
+     */
+    public Set<Integer> findByLocation(String text) {
+        String searched = text.toLowerCase(Locale.ENGLISH);
+        List<String> tokens = tokenize(searched);
+        lock.readLock().lock();
+        try {
+            Collection<Integer> candidates;
+            if (tokens.isEmpty()) {
+                candidates = deviceAddresses.keySet();
+            } else if (tokens.size() == 1) {
+                candidates = this.getDevicesOfTokensContaining(tokens.get(0));
+            } else {
+                // A searched token followed by another must end a token of the address, one preceded by another
+                // must start a token and one surrounded by others must be a whole token.
+                Set<Integer> devices = this.getDevicesOfTokensEndingWith(tokens.get(0));
+                for (int i = 1; i < tokens.size() - 1 && !devices.isEmpty(); i++) {
+                    Set<Integer> tokenDevices = addressTokens.get(tokens.get(i));
+                    devices.retainAll(tokenDevices != null ? tokenDevices : Collections.<Integer>emptySet());
+                }
+                if (!devices.isEmpty()) {
+                    devices.retainAll(this.getDevicesOfTokensStartingWith(tokens.get(tokens.size() - 1)));
+                }
+                candidates = devices;
+            }
+
+            Set<Integer> deviceIds = new HashSet<>();
+            for (Integer deviceId : candidates) {
+                for (String field : deviceAddresses.get(deviceId)) {
+                    if (field != null && field.contains(searched)) {
+                        deviceIds.add(deviceId);
+                        break;
+                    }
+                }
+            }
+            return deviceIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of indexed devices having properties or a location.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            Set<Integer> deviceIds = new HashSet<>(deviceProperties.keySet());
+            deviceIds.addAll(deviceAddresses.keySet());
+            return deviceIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Integer> getDevicesOfTokensContaining(String searched) {
+        Set<Integer> deviceIds = new HashSet<>();
+        for (Map.Entry<String, Set<Integer>> token : addressTokens.entrySet()) {
+            if (token.getKey().contains(searched)) {
+                deviceIds.addAll(token.getValue());
+            }
+        }
+        return deviceIds;
+    }
+
+    private Set<Integer> getDevicesOfTokensEndingWith(String suffix) {
+        Set<Integer> deviceIds = new HashSet<>();
+        for (Map.Entry<String, Set<Integer>> token : addressTokens.entrySet()) {
+            if (token.getKey().endsWith(suffix)) {
+                deviceIds.addAll(token.getValue());
+            }
+        }
+        return deviceIds;
+    }
+
+    private Set<Integer> getDevicesOfTokensStartingWith(String prefix) {
+        Set<Integer> deviceIds = new HashSet<>();
+        SortedMap<String, Set<Integer>> tokens = addressTokens.subMap(prefix, prefix + Character.MAX_VALUE);
+        for (Set<Integer> tokenDevices : tokens.values()) {
+            deviceIds.addAll(tokenDevices);
+        }
+        return deviceIds;
+    }
+
+    /**
+     * Records the update time of a row read from the database if it is newer than the indexed one.
+     *
+     * @return true if the row is to be indexed.
+     */
+    private boolean isNewer(Map<Integer, Long> updateTimes, int deviceId, long updateTime) {
+        Long indexedTime = updateTimes.get(deviceId);
+        if (indexedTime != null && updateTime <= indexedTime) {
+            return false;
+        }
+        updateTimes.put(deviceId, updateTime);
+        return true;
+    }
+
+    private void indexProperties(int deviceId, Map<String, String> properties) {
+        Map<String, String> indexedProperties = deviceProperties.remove(deviceId);
+        if (indexedProperties != null) {
+            for (Map.Entry<String, String> property : indexedProperties.entrySet()) {
+                Map<String, Set<Integer>> values = propertyPostings.get(property.getKey());
+                removePosting(values, property.getValue(), deviceId);
+                if (values.isEmpty()) {
+                    propertyPostings.remove(property.getKey());
+                }
+            }
+        }
+        if (properties == null || properties.isEmpty()) {
+            return;
+        }
+        deviceProperties.put(deviceId, new HashMap<>(properties));
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            Map<String, Set<Integer>> values = propertyPostings.get(property.getKey());
+            if (values == null) {
+                values = new HashMap<>();
+                propertyPostings.put(property.getKey(), values);
+            }
+            addPosting(values, property.getValue(), deviceId);
+        }
+    }
+
+    private void indexLocation(int deviceId, DeviceLocation location) {
+        String[] indexedAddress = deviceAddresses.remove(deviceId);
+        if (indexedAddress != null) {
+            for (String field : indexedAddress) {
+                for (String token : tokenize(field)) {
+                    removePosting(addressTokens, token, deviceId);
+                }
+            }
+        }
+        String[] address = {toLowerCase(location.getStreet1()), toLowerCase(location.getStreet2()),
+                toLowerCase(location.getCity()), toLowerCase(location.getState()), toLowerCase(location.getCountry()),
+                toLowerCase(location.getZip())};
+        deviceAddresses.put(deviceId, address);
+        for (String field : address) {
+            for (String token : tokenize(field)) {
+                addPosting(addressTokens, token, deviceId);
+            }
+        }
+    }
+
+    private static void addPosting(Map<String, Set<Integer>> postings, String term, int deviceId) {
+        Set<Integer> deviceIds = postings.get(term);
+        if (deviceIds == null) {
+            deviceIds = new HashSet<>();
+            postings.put(term, deviceIds);
+        }
+        deviceIds.add(deviceId);
+    }
+
+    private static void removePosting(Map<String, Set<Integer>> postings, String term, int deviceId) {
+        Set<Integer> deviceIds = postings.get(term);
+        if (deviceIds != null) {
+            deviceIds.remove(deviceId);
+            if (deviceIds.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static String toLowerCase(String value) {
+        return (value != null) ? value.toLowerCase(Locale.ENGLISH) : null;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenCharacter && start < 0) {
+                start = i;
+            } else if (!tokenCharacter && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+}
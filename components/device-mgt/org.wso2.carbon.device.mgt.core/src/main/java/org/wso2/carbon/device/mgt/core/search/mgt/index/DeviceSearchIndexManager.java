@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.search.mgt.index;
+
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.search.SearchIndexConfiguration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the device search index of each tenant. Indexes are created empty on first use and loaded by the search
+ * processor.
+ */
+public class DeviceSearchIndexManager {
+
+    private static final long DEFAULT_REFRESH_INTERVAL = 60000;
+
+    private final long refreshInterval;
+    private final ConcurrentMap<Integer, DeviceSearchIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an index manager as configured in the device management configuration.
+     *
+     * @return the index manager, or null if the search index is not enabled.
+     */
+    public static DeviceSearchIndexManager fromConfiguration() {
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        SearchIndexConfiguration indexConfig = (config != null) ? config.getSearchIndexConfiguration() : null;
+        if (indexConfig == null || !indexConfig.isEnabled()) {
+            return null;
+        }
+        return new DeviceSearchIndexManager((indexConfig.getRefreshInterval() > 0) ?
+                indexConfig.getRefreshInterval() : DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * @param refreshInterval Minimum time in milliseconds between two loads of updated devices into an index.
+     */
+    public DeviceSearchIndexManager(long refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public DeviceSearchIndex getIndex(int tenantId) {
+        DeviceSearchIndex index = indexes.get(tenantId);
+        if (index == null) {
+            DeviceSearchIndex newIndex = new DeviceSearchIndex(refreshInterval);
+            index = indexes.putIfAbsent(tenantId, newIndex);
+            if (index == null) {
+                index = newIndex;
+            }
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.service;
+
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+
+import java.util.List;
+
+/**
+ * Listens to the changes of devices which affect what applies to them, i.e. their enrolments, owners, ownership and
+ * statuses, and the groups they belong to. Listeners are registered as OSGi services, and are notified after the
+ * changes are committed, on the thread which made them.
+ */
+public interface DeviceChangeListener {
+
+    /**
+     * Called after the enrolment, owner, ownership or status of the devices, or the groups they belong to, changed.
+     *
+     * @param tenantId  tenant of the devices.
+     * @param deviceIds identifiers of the changed devices.
+     */
+    void devicesChanged(int tenantId, List<DeviceIdentifier> deviceIds);
+
+    /**
+     * Called after a change which may affect any device of the tenant, such as a group being removed or the users
+     * or roles of a group changing.
+     *
+     * @param tenantId tenant of the devices.
+     */
+    void allDevicesChanged(int tenantId);
+
+}
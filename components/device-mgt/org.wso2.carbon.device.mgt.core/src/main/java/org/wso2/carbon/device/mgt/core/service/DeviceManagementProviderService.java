@@ -27,6 +27,7 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementExcept
 import java.util.HashMap;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Proxy class for all Device Management related operations that take the corresponding plugin type in
@@ -44,6 +45,17 @@ public interface DeviceManagementProviderService {
      */
     List<Device> getAllDevices(String deviceType) throws DeviceManagementException;
 
+    /**
+     * Method to retrieve all the devices of a given device type, populating only the requested parts of each device.
+     *
+     * @param deviceType Device-type of the required devices
+     * @param facets     Parts of the devices to be populated, on top of their enrolment details.
+     * @return List of devices of given device-type.
+     * @throws DeviceManagementException If some unusual behaviour is observed while fetching the
+     *                                   devices.
+     */
+    List<Device> getAllDevices(String deviceType, Set<DeviceFacet> facets) throws DeviceManagementException;
+
     /**
      * Method to retrieve all the devices registered in the system.
      *
@@ -223,6 +235,17 @@ public interface DeviceManagementProviderService {
 
     Device getDevice(DeviceIdentifier deviceId, Date since) throws DeviceManagementException;
 
+    /**
+     * Method to retrieve a list of devices along with their enrolment information with set-based lookups, rather
+     * than one lookup per device. Unlike getDevice, the device information, installed applications and plugin
+     * specific properties of the devices are not retrieved.
+     *
+     * @param deviceIds identifiers of the devices.
+     * @return the devices which were found.
+     * @throws DeviceManagementException If some unusual behaviour is observed while fetching the devices
+     */
+    List<Device> getDevices(List<DeviceIdentifier> deviceIds) throws DeviceManagementException;
+
     HashMap<Integer, Device> getTenantedDevice(DeviceIdentifier deviceIdentifier) throws DeviceManagementException;
 
     Device getDevice(DeviceIdentifier deviceId, EnrolmentInfo.Status status) throws DeviceManagementException;
@@ -273,6 +296,13 @@ public interface DeviceManagementProviderService {
 
     List<Activity> getActivitiesUpdatedAfter(long timestamp, int limit, int offset) throws OperationManagementException;
 
+    /**
+     * Returns a page of activities updated after the given time. The page following the returned one is fetched by
+     * passing the continuation token of the result along with the next request.
+     */
+    PaginationResult getActivitiesUpdatedAfter(long timestamp, PaginationRequest request)
+            throws OperationManagementException;
+
     int getActivityCountUpdatedAfter(long timestamp) throws OperationManagementException;
 
 }
@@ -32,6 +32,7 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
 import org.wso2.carbon.device.mgt.common.spi.DeviceManagementService;
 import org.wso2.carbon.device.mgt.core.DeviceManagementPluginRepository;
+import org.wso2.carbon.device.mgt.core.authorization.DeviceAccessDecisionCache;
 import org.wso2.carbon.device.mgt.core.dao.*;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsMgtDAOException;
@@ -172,6 +173,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
                             enrolmentId = enrollmentDAO.
                                     addEnrollment(existingDevice.getId(), newEnrolmentInfo, tenantId);
                             DeviceManagementDAOFactory.commitTransaction();
+                            this.deviceChanged(tenantId, deviceIdentifier);
                             if (log.isDebugEnabled()) {
                                 log.debug("An enrolment is successfully added with the id '" + enrolmentId +
                                         "' associated with " + "the device identified by key '" +
@@ -202,6 +204,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
                 int deviceId = deviceDAO.addDevice(type.getId(), device, tenantId);
                 enrolmentId = enrollmentDAO.addEnrollment(deviceId, device.getEnrolmentInfo(), tenantId);
                 DeviceManagementDAOFactory.commitTransaction();
+                this.deviceChanged(tenantId, deviceIdentifier);
             } catch (DeviceManagementDAOException e) {
                 DeviceManagementDAOFactory.rollbackTransaction();
                 throw new DeviceManagementException("Error occurred while adding metadata of '" + device.getType() +
@@ -247,6 +250,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             deviceDAO.updateDevice(device, tenantId);
             enrollmentDAO.updateEnrollment(device.getEnrolmentInfo());
             DeviceManagementDAOFactory.commitTransaction();
+            this.deviceChanged(tenantId, deviceIdentifier);
         } catch (DeviceManagementDAOException e) {
             DeviceManagementDAOFactory.rollbackTransaction();
             throw new DeviceManagementException("Error occurred while modifying the device " +
@@ -312,6 +316,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             deviceDAO.updateDevice(device, tenantId);
 
             DeviceManagementDAOFactory.commitTransaction();
+            this.deviceChanged(tenantId, deviceId);
         } catch (DeviceManagementDAOException e) {
             DeviceManagementDAOFactory.rollbackTransaction();
             throw new DeviceManagementException("Error occurred while dis-enrolling '" + deviceId.getType() +
@@ -365,7 +370,6 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
 
     @Override
     public List<Device> getAllDevices() throws DeviceManagementException {
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices;
         try {
             DeviceManagementDAOFactory.openConnection();
@@ -379,60 +383,11 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             DeviceManagementDAOFactory.closeConnection();
         }
 
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            DeviceManager deviceManager = this.getDeviceManager(device.getType());
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + device.getType() + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        return devices;
+        this.populateDevices(allDevices, EnumSet.allOf(DeviceFacet.class));
+        return allDevices;
     }
 
     public List<Device> getDevices(Date since) throws DeviceManagementException {
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices;
         try {
             DeviceManagementDAOFactory.openConnection();
@@ -446,62 +401,13 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             DeviceManagementDAOFactory.closeConnection();
         }
 
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            DeviceManager deviceManager = this.getDeviceManager(device.getType());
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + device.getType() + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        return devices;
+        this.populateDevices(allDevices, EnumSet.allOf(DeviceFacet.class));
+        return allDevices;
     }
 
     @Override
     public PaginationResult getDevicesByType(PaginationRequest request) throws DeviceManagementException {
         PaginationResult paginationResult = new PaginationResult();
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices = new ArrayList<>();
         int count = 0;
         int tenantId = this.getTenantId();
@@ -519,43 +425,13 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-                device.setDeviceInfo(info);
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-            DeviceManager deviceManager = this.getDeviceManager(device.getType());
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + device.getType() + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
+        Set<DeviceFacet> facets = request.getFacets();
+        if (facets == null) {
+            // Installed applications have never been part of this listing.
+            facets = EnumSet.of(DeviceFacet.INFO, DeviceFacet.PLUGIN_PROPERTIES);
         }
-        paginationResult.setData(devices);
+        this.populateDevices(allDevices, facets);
+        paginationResult.setData(allDevices);
         paginationResult.setRecordsFiltered(count);
         paginationResult.setRecordsTotal(count);
         return paginationResult;
@@ -564,7 +440,6 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
     @Override
     public PaginationResult getAllDevices(PaginationRequest request) throws DeviceManagementException {
         PaginationResult paginationResult = new PaginationResult();
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices = new ArrayList<>();
         int count = 0;
         int tenantId = this.getTenantId();
@@ -581,57 +456,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-                device.setDeviceInfo(info);
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            DeviceManager deviceManager = this.getDeviceManager(device.getType());
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + device.getType() + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        paginationResult.setData(devices);
+        this.populateDevices(allDevices, request.getFacets());
+        paginationResult.setData(allDevices);
         paginationResult.setRecordsFiltered(count);
         paginationResult.setRecordsTotal(count);
         return paginationResult;
@@ -639,7 +465,11 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
 
     @Override
     public List<Device> getAllDevices(String deviceType) throws DeviceManagementException {
-        List<Device> devices = new ArrayList<>();
+        return this.getAllDevices(deviceType, EnumSet.allOf(DeviceFacet.class));
+    }
+
+    @Override
+    public List<Device> getAllDevices(String deviceType, Set<DeviceFacet> facets) throws DeviceManagementException {
         List<Device> allDevices;
         try {
             DeviceManagementDAOFactory.openConnection();
@@ -659,56 +489,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             DeviceManagementDAOFactory.closeConnection();
         }
 
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            DeviceManager deviceManager = this.getDeviceManager(deviceType);
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + deviceType + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        return devices;
+        this.populateDevices(allDevices, facets);
+        return allDevices;
     }
 
     @Override
@@ -829,6 +611,20 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         return device;
     }
 
+    @Override
+    public List<Device> getDevices(List<DeviceIdentifier> deviceIds) throws DeviceManagementException {
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            return deviceDAO.getDevices(deviceIds, this.getTenantId());
+        } catch (DeviceManagementDAOException e) {
+            throw new DeviceManagementException("Error occurred while obtaining " + deviceIds.size() + " devices", e);
+        } catch (SQLException e) {
+            throw new DeviceManagementException("Error occurred while opening a connection to the data source", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
     @Override
     public Device getDevice(DeviceIdentifier deviceId, Date since) throws DeviceManagementException {
         Device device;
@@ -1026,6 +822,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
                 success = enrollmentDAO.setStatus(enrolmentInfo.getId(), currentOwner, status, tenantId);
             }
             DeviceManagementDAOFactory.commitTransaction();
+            this.deviceChanged(tenantId, deviceId);
             return success;
         } catch (DeviceManagementDAOException e) {
             DeviceManagementDAOFactory.rollbackTransaction();
@@ -1173,6 +970,14 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         return DeviceManagementDataHolder.getInstance().getOperationManager().getActivitiesUpdatedAfter(timestamp, limit, offset);
     }
 
+    @Override
+    public PaginationResult getActivitiesUpdatedAfter(long timestamp, PaginationRequest request)
+            throws OperationManagementException {
+        request.setRowCount(DeviceManagerUtil.validateActivityListPageSize(request.getRowCount()));
+        return DeviceManagementDataHolder.getInstance().getOperationManager().getActivitiesUpdatedAfter(timestamp,
+                                                                                                     request);
+    }
+
     @Override
     public int getActivityCountUpdatedAfter(long timestamp) throws OperationManagementException {
         return DeviceManagementDataHolder.getInstance().getOperationManager().getActivityCountUpdatedAfter(timestamp);
@@ -1180,7 +985,6 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
 
     @Override
     public List<Device> getDevicesOfUser(String username) throws DeviceManagementException {
-        List<Device> devices = new ArrayList<>();
         List<Device> userDevices;
         try {
             DeviceManagementDAOFactory.openConnection();
@@ -1194,56 +998,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             DeviceManagementDAOFactory.closeConnection();
         }
 
-        for (Device device : userDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            DeviceManager deviceManager = this.getDeviceManager(device.getType());
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + device.getType() + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        return devices;
+        this.populateDevices(userDevices, EnumSet.allOf(DeviceFacet.class));
+        return userDevices;
     }
 
     @Override
@@ -1253,7 +1009,6 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         int deviceCount = 0;
         int tenantId = this.getTenantId();
         String username = request.getOwner();
-        List<Device> devices = new ArrayList<>();
         List<Device> userDevices = new ArrayList<>();
         request = DeviceManagerUtil.validateDeviceListPageSize(request);
         try {
@@ -1269,56 +1024,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             DeviceManagementDAOFactory.closeConnection();
         }
 
-        for (Device device : userDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            DeviceManager deviceManager = this.getDeviceManager(device.getType());
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + device.getType() + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        result.setData(devices);
+        this.populateDevices(userDevices, request.getFacets());
+        result.setData(userDevices);
         result.setRecordsTotal(deviceCount);
         result.setRecordsFiltered(deviceCount);
         return result;
@@ -1328,7 +1035,6 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
     public PaginationResult getDevicesByOwnership(PaginationRequest request)
             throws DeviceManagementException {
         PaginationResult result = new PaginationResult();
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices;
         int deviceCount = 0;
         int tenantId = this.getTenantId();
@@ -1346,47 +1052,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            Device dmsDevice = this.getDeviceManager(device.getType()).
-                    getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        result.setData(devices);
+        this.populateDevices(allDevices, request.getFacets());
+        result.setData(allDevices);
         result.setRecordsTotal(deviceCount);
         result.setRecordsFiltered(deviceCount);
         return result;
@@ -1405,58 +1072,17 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
                     "with the role '" + role + "'", e);
         }
 
-        List<Device> userDevices;
         for (String user : users) {
-            userDevices = new ArrayList<>();
             try {
                 DeviceManagementDAOFactory.openConnection();
-                userDevices = deviceDAO.getDevicesOfUser(user, tenantId);
+                devices.addAll(deviceDAO.getDevicesOfUser(user, tenantId));
             } catch (DeviceManagementDAOException | SQLException e) {
                 log.error("Error occurred while obtaining the devices of user '" + user + "'", e);
             } finally {
                 DeviceManagementDAOFactory.closeConnection();
             }
-            for (Device device : userDevices) {
-                DeviceInfo info = null;
-                try {
-                    DeviceManagementDAOFactory.openConnection();
-                    info = deviceInfoDAO.getDeviceInformation(device.getId());
-                    DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                    if (info != null) {
-                        info.setLocation(location);
-                    }
-                } catch (DeviceDetailsMgtDAOException e) {
-                    log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                            "' that carries the id '" + device.getDeviceIdentifier() + "'");
-                } catch (SQLException e) {
-                    log.error("Error occurred while opening a connection to the data source", e);
-                } finally {
-                    DeviceManagementDAOFactory.closeConnection();
-                }
-                device.setDeviceInfo(info);
-
-                try {
-                    DeviceManagementDAOFactory.openConnection();
-                    List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                    device.setApplications(applications);
-                } catch (DeviceManagementDAOException e) {
-                    log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                            "which carries the id '" + device.getId() + "'", e);
-                } catch (SQLException e) {
-                    log.error("Error occurred while opening a connection to the data source", e);
-                } finally {
-                    DeviceManagementDAOFactory.closeConnection();
-                }
-
-                Device dmsDevice = this.getDeviceManager(device.getType()).
-                        getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-                if (dmsDevice != null) {
-                    device.setFeatures(dmsDevice.getFeatures());
-                    device.setProperties(dmsDevice.getProperties());
-                }
-                devices.add(device);
-            }
         }
+        this.populateDevices(devices, EnumSet.allOf(DeviceFacet.class));
         return devices;
     }
 
@@ -1491,7 +1117,6 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
 
     @Override
     public List<Device> getDevicesByNameAndType(String deviceName, String type, int offset, int limit) throws DeviceManagementException {
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices;
         limit = DeviceManagerUtil.validateDeviceListPageSize(limit);
         try {
@@ -1505,47 +1130,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            Device dmsDevice = this.getDeviceManager(device.getType()).
-                    getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        return devices;
+        this.populateDevices(allDevices, EnumSet.allOf(DeviceFacet.class));
+        return allDevices;
     }
 
     @Override
@@ -1553,7 +1139,6 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             throws DeviceManagementException {
         PaginationResult result = new PaginationResult();
         int tenantId = this.getTenantId();
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices = new ArrayList<>();
         String deviceName = request.getDeviceName();
         request = DeviceManagerUtil.validateDeviceListPageSize(request);
@@ -1571,47 +1156,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            Device dmsDevice = this.getDeviceManager(device.getType()).
-                    getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        result.setData(devices);
+        this.populateDevices(allDevices, request.getFacets());
+        result.setData(allDevices);
         return result;
     }
 
@@ -1623,6 +1169,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             device.getEnrolmentInfo().setStatus(status);
             deviceDAO.updateDevice(device, this.getTenantId());
             DeviceManagementDAOFactory.commitTransaction();
+            this.deviceChanged(this.getTenantId(),
+                               new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
         } catch (DeviceManagementDAOException e) {
             DeviceManagementDAOFactory.rollbackTransaction();
             throw new DeviceManagementException("Error occurred update device enrolment status : '" +
@@ -1655,7 +1203,6 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
     }
 
     public List<Device> getDevicesByStatus(EnrolmentInfo.Status status) throws DeviceManagementException {
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices;
         try {
             DeviceManagementDAOFactory.openConnection();
@@ -1668,54 +1215,14 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            Device dmsDevice = this.getDeviceManager(device.getType()).
-                    getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        return devices;
+        this.populateDevices(allDevices, EnumSet.allOf(DeviceFacet.class));
+        return allDevices;
     }
 
     @Override
     public PaginationResult getDevicesByStatus(PaginationRequest request)
             throws DeviceManagementException {
         PaginationResult result = new PaginationResult();
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices = new ArrayList<>();
         int tenantId = this.getTenantId();
         String status = request.getStatus();
@@ -1734,47 +1241,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            Device dmsDevice = this.getDeviceManager(device.getType()).
-                    getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        result.setData(devices);
+        this.populateDevices(allDevices, request.getFacets());
+        result.setData(allDevices);
         return result;
     }
 
@@ -1801,6 +1269,22 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         return CarbonContext.getThreadLocalCarbonContext().getTenantId();
     }
 
+    private void deviceChanged(int tenantId, DeviceIdentifier deviceId) {
+        DeviceAccessDecisionCache decisionCache =
+                DeviceManagementDataHolder.getInstance().getDeviceAccessDecisionCache();
+        if (decisionCache != null) {
+            decisionCache.invalidate(tenantId);
+        }
+        for (DeviceChangeListener listener : DeviceManagementDataHolder.getInstance().getDeviceChangeListeners()) {
+            try {
+                listener.devicesChanged(tenantId, Collections.singletonList(deviceId));
+            } catch (RuntimeException e) {
+                log.error("Error occurred while notifying the change of device '" + deviceId.getId() + "' of type '" +
+                        deviceId.getType() + "'", e);
+            }
+        }
+    }
+
 //    private int getTenantId(String tenantDomain) throws DeviceManagementException {
 //        RealmService realmService =
 //                (RealmService) PrivilegedCarbonContext.getThreadLocalCarbonContext().getOSGiService(RealmService.class, null);
@@ -1814,6 +1298,102 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
 //        }
 //    }
 
+    /**
+     * Populates the requested facets of the given devices. Device information and installed applications of all the
+     * devices are fetched using a constant number of queries over a single connection, rather than a few queries per
+     * device, while plugin properties are still resolved device by device as the plugins can only serve them so.
+     *
+     * @param devices Devices to be populated.
+     * @param facets  Facets to be populated, or null if all of them are required.
+     * @throws DeviceManagementException If a plugin fails to retrieve the properties of a device.
+     */
+    private void populateDevices(List<Device> devices, Set<DeviceFacet> facets) throws DeviceManagementException {
+        if (devices.isEmpty()) {
+            return;
+        }
+        if (facets == null) {
+            facets = EnumSet.allOf(DeviceFacet.class);
+        }
+        boolean infoRequired = facets.contains(DeviceFacet.INFO);
+        boolean applicationsRequired = facets.contains(DeviceFacet.APPLICATIONS);
+        if (infoRequired || applicationsRequired) {
+            List<Integer> deviceIds = new ArrayList<>(devices.size());
+            for (Device device : devices) {
+                deviceIds.add(device.getId());
+            }
+            Map<Integer, DeviceInfo> deviceInfos = new HashMap<>();
+            Map<Integer, DeviceLocation> locations = new HashMap<>();
+            Map<Integer, List<Application>> applications = new HashMap<>();
+            try {
+                DeviceManagementDAOFactory.openConnection();
+                if (infoRequired) {
+                    try {
+                        deviceInfos = deviceInfoDAO.getDeviceInformation(deviceIds);
+                        locations = deviceInfoDAO.getDeviceLocations(deviceIds);
+                    } catch (DeviceDetailsMgtDAOException e) {
+                        log.error("Error occurred while retrieving advance info of " + deviceIds.size() +
+                                " devices", e);
+                    }
+                }
+                if (applicationsRequired) {
+                    try {
+                        applications = applicationDAO.getInstalledApplications(deviceIds);
+                    } catch (DeviceManagementDAOException e) {
+                        log.error("Error occurred while retrieving the application lists of " + deviceIds.size() +
+                                " devices", e);
+                    }
+                }
+            } catch (SQLException e) {
+                log.error("Error occurred while opening a connection to the data source", e);
+            } finally {
+                DeviceManagementDAOFactory.closeConnection();
+            }
+
+            for (Device device : devices) {
+                if (infoRequired) {
+                    DeviceInfo info = deviceInfos.get(device.getId());
+                    if (info != null) {
+                        DeviceLocation location = locations.get(device.getId());
+                        if (location == null) {
+                            location = new DeviceLocation();
+                            location.setDeviceId(device.getId());
+                        }
+                        info.setLocation(location);
+                    }
+                    device.setDeviceInfo(info);
+                }
+                if (applicationsRequired) {
+                    List<Application> deviceApplications = applications.get(device.getId());
+                    device.setApplications(deviceApplications != null ? deviceApplications :
+                                           new ArrayList<Application>());
+                }
+            }
+        }
+
+        if (facets.contains(DeviceFacet.PLUGIN_PROPERTIES)) {
+            Map<String, DeviceManager> deviceManagers = new HashMap<>();
+            for (Device device : devices) {
+                if (!deviceManagers.containsKey(device.getType())) {
+                    deviceManagers.put(device.getType(), this.getDeviceManager(device.getType()));
+                }
+                DeviceManager deviceManager = deviceManagers.get(device.getType());
+                if (deviceManager == null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Device Manager associated with the device type '" + device.getType() +
+                                "' is null. Therefore, not attempting method 'getDevice'");
+                    }
+                    continue;
+                }
+                Device dmsDevice =
+                        deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
+                if (dmsDevice != null) {
+                    device.setFeatures(dmsDevice.getFeatures());
+                    device.setProperties(dmsDevice.getProperties());
+                }
+            }
+        }
+    }
+
     private DeviceManager getDeviceManager(String deviceType) {
 
         DeviceManagementService deviceManagementService =
@@ -28,6 +28,7 @@ import org.wso2.carbon.device.mgt.common.group.mgt.GroupUser;
 import org.wso2.carbon.user.core.multiplecredentials.UserDoesNotExistException;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for Group Management Services
@@ -310,4 +311,13 @@ public interface GroupManagementProviderService {
      */
     List<DeviceGroup> getGroups(DeviceIdentifier deviceIdentifier) throws GroupManagementException;
 
+    /**
+     * Get the groups of each of the given devices, with set-based lookups rather than one lookup per device.
+     *
+     * @param deviceIds ids of the devices.
+     * @return the groups keyed by the device ids. Devices without groups are not included.
+     * @throws GroupManagementException
+     */
+    Map<Integer, List<DeviceGroup>> getGroupsOfDevices(List<Integer> deviceIds) throws GroupManagementException;
+
 }
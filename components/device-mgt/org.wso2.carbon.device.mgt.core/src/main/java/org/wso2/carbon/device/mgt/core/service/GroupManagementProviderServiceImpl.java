@@ -28,7 +28,10 @@ import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
 import org.wso2.carbon.device.mgt.common.group.mgt.GroupAlreadyExistException;
 import org.wso2.carbon.device.mgt.common.group.mgt.GroupManagementException;
 import org.wso2.carbon.device.mgt.common.group.mgt.GroupUser;
+import org.wso2.carbon.device.mgt.core.authorization.DeviceAccessDecisionCache;
 import org.wso2.carbon.device.mgt.core.group.mgt.DeviceGroupBuilder;
+import org.wso2.carbon.device.mgt.core.group.mgt.cache.GroupMembershipCache;
+import org.wso2.carbon.device.mgt.core.group.mgt.cache.GroupMembershipIndex;
 import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupDAO;
 import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOException;
 import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOFactory;
@@ -46,6 +49,7 @@ import java.util.*;
 public class GroupManagementProviderServiceImpl implements GroupManagementProviderService {
 
     private static Log log = LogFactory.getLog(GroupManagementProviderServiceImpl.class);
+    private static final GroupMembershipCache UNCACHED_MEMBERSHIPS = new GroupMembershipCache(0);
 
     private GroupDAO groupDAO;
 
@@ -138,8 +142,10 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
         }
         try {
             GroupManagementDAOFactory.beginTransaction();
-            this.groupDAO.deleteGroup(groupName, owner, CarbonContext.getThreadLocalCarbonContext().getTenantId());
+            int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+            this.groupDAO.deleteGroup(groupName, owner, tenantId);
             GroupManagementDAOFactory.commitTransaction();
+            this.invalidateMemberships(tenantId);
             if (log.isDebugEnabled()) {
                 log.debug("DeviceGroup " + deviceGroup.getName() + " removed.");
             }
@@ -278,14 +284,13 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
             int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
             userStoreManager = DeviceManagementDataHolder.getInstance().getRealmService().getTenantUserRealm(tenantId)
                     .getUserStoreManager();
-            String[] roleList = userStoreManager.getRoleListOfUser(username);
+            Set<Integer> groupIds =
+                    this.getMembershipIndex(tenantId).getGroupRolesOfUser(username, userStoreManager).keySet();
             int index = 0;
-            for (String role : roleList) {
-                if (role != null && role.contains("Internal/group-")) {
-                    DeviceGroupBuilder deviceGroupBuilder = extractNewGroupFromRole(groups, role);
-                    if (deviceGroupBuilder != null && startIndex <= index++ && index <= rowCount) {
-                        groups.put(deviceGroupBuilder.getGroupId(), deviceGroupBuilder.getGroup());
-                    }
+            for (int groupId : groupIds) {
+                DeviceGroupBuilder deviceGroupBuilder = getGroupBuilder(groupId);
+                if (deviceGroupBuilder != null && startIndex <= index++ && index <= rowCount) {
+                    groups.put(deviceGroupBuilder.getGroupId(), deviceGroupBuilder.getGroup());
                 }
             }
         } catch (UserStoreException e) {
@@ -323,17 +328,16 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
             int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
             userStoreManager = DeviceManagementDataHolder.getInstance().getRealmService().getTenantUserRealm(tenantId)
                     .getUserStoreManager();
-            String[] roleList = userStoreManager.getRoleListOfUser(username);
-            Map<Integer, DeviceGroup> groups = new HashMap<>();
-            for (String role : roleList) {
-                if (role != null && role.contains("Internal/group-")) {
-                    DeviceGroupBuilder deviceGroupBuilder = extractNewGroupFromRole(groups, role);
-                    if (deviceGroupBuilder != null) {
-                        groups.put(deviceGroupBuilder.getGroupId(), deviceGroupBuilder.getGroup());
-                    }
+            Set<Integer> groupIds =
+                    this.getMembershipIndex(tenantId).getGroupRolesOfUser(username, userStoreManager).keySet();
+            List<DeviceGroup> groups = new ArrayList<>(groupIds.size());
+            for (int groupId : groupIds) {
+                DeviceGroupBuilder deviceGroupBuilder = getGroupBuilder(groupId);
+                if (deviceGroupBuilder != null) {
+                    groups.add(deviceGroupBuilder.getGroup());
                 }
             }
-            return new ArrayList<>(groups.values());
+            return groups;
         } catch (UserStoreException e) {
             throw new GroupManagementException("Error occurred while getting user store manager.", e);
         }
@@ -345,23 +349,11 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
     @Override
     public int getGroupCount(String username) throws GroupManagementException {
         UserStoreManager userStoreManager;
-        int count = 0;
         try {
             int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
             userStoreManager = DeviceManagementDataHolder.getInstance().getRealmService().getTenantUserRealm(tenantId)
                     .getUserStoreManager();
-            String[] roleList = userStoreManager.getRoleListOfUser(username);
-            List<Integer> groupIds = new ArrayList<>();
-            for (String role : roleList) {
-                if (role != null && role.contains("Internal/group-")) {
-                    int groupId = Integer.parseInt(role.split("-")[1]);
-                    if (!groupIds.contains(groupId)) {
-                        groupIds.add(groupId);
-                        count++;
-                    }
-                }
-            }
-            return count;
+            return this.getMembershipIndex(tenantId).getGroupRolesOfUser(username, userStoreManager).size();
         } catch (UserStoreException e) {
             throw new GroupManagementException("Error occurred while getting user store manager.", e);
         }
@@ -407,8 +399,10 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
             List<String> currentRoles = getRoles(username, groupId);
             if (isAddNew && !currentRoles.contains(sharingRole)) {
                 userStoreManager.updateRoleListOfUser(username, null, roles);
+                this.invalidateMemberships(tenantId);
             } else if (!isAddNew && currentRoles.contains(sharingRole)) {
                 userStoreManager.updateRoleListOfUser(username, roles, null);
+                this.invalidateMemberships(tenantId);
             }
             return true;
         } catch (UserStoreException e) {
@@ -458,6 +452,7 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
                 carbonPermissions[i] = new Permission(permissions[i], CarbonConstants.UI_PERMISSION_ACTION);
             }
             userStoreManager.addRole(role, userNames, carbonPermissions);
+            this.invalidateMemberships(tenantId);
             return true;
         } catch (UserStoreException e) {
             String errorMsg = "User store error in adding role to group id:" + groupId;
@@ -488,6 +483,7 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
                     .getUserStoreManager();
             role = "Internal/group-" + groupId + "-" + roleName;
             userStoreManager.deleteRole(role);
+            this.invalidateMemberships(tenantId);
             return true;
         } catch (UserStoreException userStoreEx) {
             String errorMsg = "User store error in adding role to group id:" + groupId;
@@ -507,20 +503,11 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
 
     private List<String> getRoles(int groupId) throws GroupManagementException {
         UserStoreManager userStoreManager;
-        String[] roles;
-        List<String> groupRoles;
         try {
             int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
             userStoreManager = DeviceManagementDataHolder.getInstance().getRealmService().getTenantUserRealm(tenantId)
                     .getUserStoreManager();
-            roles = userStoreManager.getRoleNames();
-            groupRoles = new ArrayList<>();
-            for (String r : roles) {
-                if (r != null && r.contains("Internal/group-" + groupId + "-")) {
-                    groupRoles.add(r.replace("Internal/group-" + groupId + "-", ""));
-                }
-            }
-            return groupRoles;
+            return this.getMembershipIndex(tenantId).getRolesOfGroup(groupId, userStoreManager);
         } catch (UserStoreException userStoreEx) {
             String errorMsg = "User store error in adding role to group id:" + groupId;
             log.error(errorMsg, userStoreEx);
@@ -541,22 +528,17 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
     private List<String> getRoles(String username, int groupId)
             throws GroupManagementException, UserDoesNotExistException {
         UserStoreManager userStoreManager;
-        List<String> groupRoleList = new ArrayList<>();
         try {
             int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
             userStoreManager = DeviceManagementDataHolder.getInstance().getRealmService().getTenantUserRealm(tenantId)
                     .getUserStoreManager();
-            if (!userStoreManager.isExistingUser(username)) {
+            GroupMembershipIndex membershipIndex = this.getMembershipIndex(tenantId);
+            // A user already in the index is known to exist.
+            if (!membershipIndex.containsUser(username) && !userStoreManager.isExistingUser(username)) {
                 throw new UserDoesNotExistException("User not exists with name " + username);
             }
-            String[] roleList = userStoreManager.getRoleListOfUser(username);
-            for (String role : roleList) {
-                if (role != null && role.contains("Internal/group-" + groupId)) {
-                    String roleName = role.replace("Internal/group-" + groupId + "-", "");
-                    groupRoleList.add(roleName);
-                }
-            }
-            return groupRoleList;
+            List<String> groupRoleList = membershipIndex.getGroupRolesOfUser(username, userStoreManager).get(groupId);
+            return (groupRoleList != null) ? groupRoleList : new ArrayList<String>();
         } catch (UserStoreException e) {
             if (e instanceof UserDoesNotExistException) {
                 throw (UserDoesNotExistException) e;
@@ -576,29 +558,11 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
 
     public List<GroupUser> getUsers(int groupId) throws GroupManagementException {
         UserStoreManager userStoreManager;
-        Map<String, GroupUser> groupUserHashMap = new HashMap<>();
         try {
             int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
             userStoreManager = DeviceManagementDataHolder.getInstance().getRealmService().getTenantUserRealm(tenantId)
                     .getUserStoreManager();
-            List<String> rolesForGroup = this.getRoles(groupId);
-            for (String role : rolesForGroup) {
-                String[] users = userStoreManager.getUserListOfRole("Internal/group-" + groupId + "-" + role);
-                for (String user : users) {
-                    GroupUser groupUser;
-                    if (groupUserHashMap.containsKey(user)) {
-                        groupUser = groupUserHashMap.get(user);
-                        groupUser.getGroupRoles().add(role);
-                    } else {
-                        groupUser = new GroupUser();
-                        groupUser.setUsername(user);
-                        groupUser.setGroupRoles(new ArrayList<String>());
-                        groupUser.getGroupRoles().add(role);
-                        groupUserHashMap.put(user, groupUser);
-                    }
-                }
-            }
-            return new ArrayList<>(groupUserHashMap.values());
+            return this.getMembershipIndex(tenantId).getUsersOfGroup(groupId, userStoreManager);
         } catch (UserStoreException e) {
             String errorMsg = "User store error in fetching user list for group id:" + groupId;
             log.error(errorMsg, e);
@@ -685,6 +649,7 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
             GroupManagementDAOFactory.beginTransaction();
             this.groupDAO.addDevice(groupName, owner, device.getId(), tenantId);
             GroupManagementDAOFactory.commitTransaction();
+            this.devicesChanged(tenantId, deviceIdentifier);
         } catch (DeviceManagementException e) {
             throw new GroupManagementException("Error occurred while retrieving device.", e);
         } catch (GroupManagementDAOException e) {
@@ -714,6 +679,7 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
             GroupManagementDAOFactory.beginTransaction();
             this.groupDAO.removeDevice(groupName, owner, device.getId(), tenantId);
             GroupManagementDAOFactory.commitTransaction();
+            this.devicesChanged(tenantId, deviceIdentifier);
         } catch (DeviceManagementException e) {
             throw new GroupManagementException("Error occurred while retrieving device.", e);
         } catch (TransactionManagementException e) {
@@ -767,20 +733,26 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
             throws GroupManagementException {
         UserRealm userRealm;
         int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
-        Map<Integer, DeviceGroup> groups = new HashMap<>();
+        List<DeviceGroup> groups = new ArrayList<>();
         try {
             userRealm = DeviceManagementDataHolder.getInstance().getRealmService().getTenantUserRealm(tenantId);
-            String[] roles = userRealm.getUserStoreManager().getRoleListOfUser(username);
-            for (String role : roles) {
-                if (role != null && role.contains("Internal/group-") && userRealm.getAuthorizationManager()
-                        .isRoleAuthorized(role, permission, CarbonConstants.UI_PERMISSION_ACTION)) {
-                    DeviceGroupBuilder deviceGroupBuilder = extractNewGroupFromRole(groups, role);
-                    if (deviceGroupBuilder != null) {
-                        groups.put(deviceGroupBuilder.getGroupId(), deviceGroupBuilder.getGroup());
+            Map<Integer, List<String>> groupRoles = this.getMembershipIndex(tenantId)
+                    .getGroupRolesOfUser(username, userRealm.getUserStoreManager());
+            for (Map.Entry<Integer, List<String>> rolesOfGroup : groupRoles.entrySet()) {
+                int groupId = rolesOfGroup.getKey();
+                for (String role : rolesOfGroup.getValue()) {
+                    if (userRealm.getAuthorizationManager().isRoleAuthorized(
+                            GroupMembershipIndex.GROUP_ROLE_PREFIX + groupId + "-" + role, permission,
+                            CarbonConstants.UI_PERMISSION_ACTION)) {
+                        DeviceGroupBuilder deviceGroupBuilder = getGroupBuilder(groupId);
+                        if (deviceGroupBuilder != null) {
+                            groups.add(deviceGroupBuilder.getGroup());
+                        }
+                        break;
                     }
                 }
             }
-            return new ArrayList<>(groups.values());
+            return groups;
         } catch (UserStoreException e) {
             throw new GroupManagementException("Error occurred while getting user realm.", e);
         }
@@ -810,17 +782,79 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
         return deviceGroups;
     }
 
-    private DeviceGroupBuilder extractNewGroupFromRole(Map<Integer, DeviceGroup> groups, String role)
+    @Override
+    public Map<Integer, List<DeviceGroup>> getGroupsOfDevices(List<Integer> deviceIds)
             throws GroupManagementException {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        Map<Integer, List<DeviceGroup>> groupsOfDevices = new HashMap<>();
         try {
-            int groupId = Integer.parseInt(role.split("-")[1]);
-            if (!groups.containsKey(groupId)) {
-                return getGroupBuilder(groupId);
+            GroupManagementDAOFactory.openConnection();
+            Map<Integer, DeviceGroup> groups = new HashMap<>();
+            for (Map.Entry<Integer, List<Integer>> groupIds : groupDAO.getGroupIds(deviceIds, tenantId).entrySet()) {
+                List<DeviceGroup> deviceGroups = new ArrayList<>(groupIds.getValue().size());
+                for (int groupId : groupIds.getValue()) {
+                    // Devices share groups, hence each group is read only once.
+                    DeviceGroup group = groups.get(groupId);
+                    if (group == null) {
+                        DeviceGroupBuilder builder = groupDAO.getGroup(groupId, tenantId);
+                        if (builder == null) {
+                            continue;
+                        }
+                        group = builder.getGroup();
+                        groups.put(groupId, group);
+                    }
+                    deviceGroups.add(group);
+                }
+                groupsOfDevices.put(groupIds.getKey(), deviceGroups);
+            }
+        } catch (GroupManagementDAOException e) {
+            throw new GroupManagementException("Error occurred while retrieving the groups of devices.", e);
+        } catch (SQLException e) {
+            throw new GroupManagementException("Error occurred while opening database connection.", e);
+        } finally {
+            GroupManagementDAOFactory.closeConnection();
+        }
+        return groupsOfDevices;
+    }
+
+    private void invalidateMemberships(int tenantId) {
+        this.getMembershipIndex(tenantId).invalidate();
+        this.invalidateAccessDecisions(tenantId);
+        for (DeviceChangeListener listener : DeviceManagementDataHolder.getInstance().getDeviceChangeListeners()) {
+            try {
+                listener.allDevicesChanged(tenantId);
+            } catch (RuntimeException e) {
+                log.error("Error occurred while notifying the change of group memberships", e);
+            }
+        }
+    }
+
+    private void devicesChanged(int tenantId, DeviceIdentifier deviceIdentifier) {
+        this.invalidateAccessDecisions(tenantId);
+        for (DeviceChangeListener listener : DeviceManagementDataHolder.getInstance().getDeviceChangeListeners()) {
+            try {
+                listener.devicesChanged(tenantId, Collections.singletonList(deviceIdentifier));
+            } catch (RuntimeException e) {
+                log.error("Error occurred while notifying the change of the groups of device '" +
+                        deviceIdentifier.getId() + "'", e);
             }
-        } catch (NumberFormatException e) {
-            log.error("Unable to extract groupId from role " + role, e);
         }
-        return null;
+    }
+
+    private void invalidateAccessDecisions(int tenantId) {
+        DeviceAccessDecisionCache decisionCache =
+                DeviceManagementDataHolder.getInstance().getDeviceAccessDecisionCache();
+        if (decisionCache != null) {
+            decisionCache.invalidate(tenantId);
+        }
+    }
+
+    private GroupMembershipIndex getMembershipIndex(int tenantId) {
+        GroupMembershipCache membershipCache = DeviceManagementDataHolder.getInstance().getGroupMembershipCache();
+        if (membershipCache == null) {
+            membershipCache = UNCACHED_MEMBERSHIPS;
+        }
+        return membershipCache.getIndex(tenantId);
     }
 
 }
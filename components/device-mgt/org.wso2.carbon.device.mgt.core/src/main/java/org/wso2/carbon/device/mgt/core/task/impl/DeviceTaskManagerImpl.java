@@ -22,6 +22,7 @@ package org.wso2.carbon.device.mgt.core.task.impl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceFacet;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.InvalidDeviceException;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
@@ -109,7 +110,9 @@ public class DeviceTaskManagerImpl implements DeviceTaskManager {
             for (String taskOperation : operations) {
                 deviceTypes = getPlatformsForOperations(taskOperation);
                  for (String deviceType : deviceTypes) {
-                     devices = deviceManagementProviderService.getAllDevices(deviceType);
+                     // Only the identifiers and enrolment status of the devices are needed here.
+                     devices = deviceManagementProviderService.getAllDevices(deviceType,
+                             EnumSet.noneOf(DeviceFacet.class));
                      if (!devices.isEmpty()) {
                          for (String str : operations) {
                              CommandOperation operation = new CommandOperation();
@@ -0,0 +1,209 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.search;
+
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.search.mgt.index.DeviceSearchIndex;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares location and property searches answered by the search index against the equivalent queries on an
+ * in-memory H2 database, over a configurable number of devices (-Ddevices, 100000 by default).
+ * This is not part of the test suite; run it on demand with the test classpath, e.g.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.wso2.carbon.device.mgt.core.search.SearchIndexBenchmark -Ddevices=100000
+ * </pre>
+ */
+public class SearchIndexBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] CITIES = {"Colombo", "Kandy", "Galle", "Jaffna", "Negombo", "Matara", "Karanadeniya"};
+
+    private static final String LOCATION_QUERY = "SELECT DEVICE_ID FROM BENCHMARK_DEVICE_LOCATION WHERE " +
+            "STREET1 LIKE ? OR STREET2 LIKE ? OR CITY LIKE ? OR STATE LIKE ? OR COUNTRY LIKE ? OR ZIP LIKE ?";
+    private static final String PROPERTY_QUERY = "SELECT DEVICE_ID FROM BENCHMARK_DEVICE_INFO WHERE " +
+            "KEY_FIELD = ? AND VALUE_FIELD = ?";
+
+    private static volatile int sink;
+
+    public static void main(String[] args) throws Exception {
+        int deviceCount = Integer.getInteger("devices", 100000);
+        Class.forName("org.h2.Driver");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:search-index-benchmark")) {
+            List<Device> devices = createDevices(deviceCount);
+            populate(conn, devices);
+
+            long start = System.nanoTime();
+            DeviceSearchIndex index = new DeviceSearchIndex(Long.MAX_VALUE);
+            index.refresh(devices, System.currentTimeMillis());
+            System.out.println(String.format("Indexed %d devices in %d ms", index.size(),
+                                             (System.nanoTime() - start) / 1000000));
+
+            System.out.println(String.format("%-28s %8s %15s %15s", "search", "matches", "index us/op",
+                                             "database us/op"));
+            runLocation(conn, index, "substring 'andy'", "andy");
+            runLocation(conn, index, "prefix 'Karan'", "Karan");
+            runLocation(conn, index, "multi-word 'Street 42'", "Street 42");
+            runLocation(conn, index, "no match 'Atlantis'", "Atlantis");
+            runProperty(conn, index, "property IMEI", "IMEI", "35000000" + (deviceCount / 2));
+            runProperty(conn, index, "property CARRIER", "CARRIER", "carrier-3");
+        }
+    }
+
+    private static void runLocation(Connection conn, DeviceSearchIndex index, String name, String text)
+            throws SQLException {
+        String pattern = "%" + text + "%";
+        try (PreparedStatement stmt = conn.prepareStatement(LOCATION_QUERY)) {
+            for (int i = 1; i <= 6; i++) {
+                stmt.setString(i, pattern);
+            }
+            run(name, stmt, index, null, text);
+        }
+    }
+
+    private static void runProperty(Connection conn, DeviceSearchIndex index, String name, String key, String value)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(PROPERTY_QUERY)) {
+            stmt.setString(1, key);
+            stmt.setString(2, value);
+            run(name, stmt, index, key, value);
+        }
+    }
+
+    private static void run(String name, PreparedStatement stmt, DeviceSearchIndex index, String key, String value)
+            throws SQLException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            search(index, key, value);
+            query(stmt);
+        }
+        long indexTime = 0;
+        long databaseTime = 0;
+        int matches = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            matches = search(index, key, value);
+            indexTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            sink = query(stmt);
+            databaseTime += System.nanoTime() - start;
+        }
+        System.out.println(String.format("%-28s %8d %15d %15d", name, matches,
+                                         indexTime / MEASUREMENT_ITERATIONS / 1000,
+                                         databaseTime / MEASUREMENT_ITERATIONS / 1000));
+    }
+
+    private static int search(DeviceSearchIndex index, String key, String value) {
+        return (key == null) ? index.findByLocation(value).size() : index.findByProperty(key, value).size();
+    }
+
+    private static int query(PreparedStatement stmt) throws SQLException {
+        int count = 0;
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<Device> createDevices(int deviceCount) {
+        List<Device> devices = new ArrayList<>(deviceCount);
+        for (int i = 0; i < deviceCount; i++) {
+            Device device = new Device();
+            device.setId(i + 1);
+            DeviceInfo info = new DeviceInfo();
+            Map<String, String> properties = new HashMap<>();
+            properties.put("IMEI", "35000000" + i);
+            properties.put("CARRIER", "carrier-" + (i % 10));
+            info.setDeviceDetailsMap(properties);
+
+            DeviceLocation location = new DeviceLocation();
+            location.setDeviceId(device.getId());
+            location.setStreet1((i % 100) + " Main Street " + (i % 1000));
+            location.setStreet2("Block " + (i % 50));
+            location.setCity(CITIES[i % CITIES.length]);
+            location.setState("Province " + (i % 9));
+            location.setCountry("Sri Lanka");
+            location.setZip(String.valueOf(10000 + (i % 5000)));
+            info.setLocation(location);
+            device.setDeviceInfo(info);
+            devices.add(device);
+        }
+        return devices;
+    }
+
+    private static void populate(Connection conn, List<Device> devices) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE BENCHMARK_DEVICE_LOCATION (DEVICE_ID INT NOT NULL, " +
+                    "STREET1 VARCHAR(45), STREET2 VARCHAR(45), CITY VARCHAR(45), STATE VARCHAR(45), " +
+                    "COUNTRY VARCHAR(45), ZIP VARCHAR(10))");
+            stmt.executeUpdate("CREATE TABLE BENCHMARK_DEVICE_INFO (DEVICE_ID INT NOT NULL, " +
+                    "KEY_FIELD VARCHAR(45), VALUE_FIELD VARCHAR(100))");
+            // As on DM_DEVICE_INFO, the best case for the database.
+            stmt.executeUpdate("CREATE INDEX BENCHMARK_DEVICE_INFO_KEY_VALUE ON " +
+                    "BENCHMARK_DEVICE_INFO (KEY_FIELD, VALUE_FIELD)");
+        }
+        try (PreparedStatement locationStmt = conn.prepareStatement(
+                "INSERT INTO BENCHMARK_DEVICE_LOCATION VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement infoStmt = conn.prepareStatement(
+                     "INSERT INTO BENCHMARK_DEVICE_INFO VALUES (?, ?, ?)")) {
+            int batched = 0;
+            for (Device device : devices) {
+                DeviceLocation location = device.getDeviceInfo().getLocation();
+                locationStmt.setInt(1, device.getId());
+                locationStmt.setString(2, location.getStreet1());
+                locationStmt.setString(3, location.getStreet2());
+                locationStmt.setString(4, location.getCity());
+                locationStmt.setString(5, location.getState());
+                locationStmt.setString(6, location.getCountry());
+                locationStmt.setString(7, location.getZip());
+                locationStmt.addBatch();
+                for (Map.Entry<String, String> property : device.getDeviceInfo().getDeviceDetailsMap().entrySet()) {
+                    infoStmt.setInt(1, device.getId());
+                    infoStmt.setString(2, property.getKey());
+                    infoStmt.setString(3, property.getValue());
+                    infoStmt.addBatch();
+                }
+                if (++batched == BATCH_SIZE) {
+                    locationStmt.executeBatch();
+                    infoStmt.executeBatch();
+                    batched = 0;
+                }
+            }
+            locationStmt.executeBatch();
+            infoStmt.executeBatch();
+        }
+    }
+
+}
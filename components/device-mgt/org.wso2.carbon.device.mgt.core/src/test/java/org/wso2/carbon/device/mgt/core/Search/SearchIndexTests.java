@@ -0,0 +1,246 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.search;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.common.search.Condition;
+import org.wso2.carbon.device.mgt.common.search.SearchContext;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
+import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchManagerService;
+import org.wso2.carbon.device.mgt.core.search.mgt.impl.SearchManagerServiceImpl;
+import org.wso2.carbon.device.mgt.core.search.mgt.index.DeviceSearchIndex;
+import org.wso2.carbon.device.mgt.core.search.mgt.index.DeviceSearchIndexManager;
+import org.wso2.carbon.device.mgt.core.search.util.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Verifies that device property and location searches answered from the search index match the ones evaluated by
+ * the database, that the index picks up updated devices, and that it does not pick up values older than indexed ones.
+ */
+public class SearchIndexTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "SearchIndexTest";
+    private static final String GROUP_PROPERTY = "SEARCH_INDEX_TEST_GROUP";
+    private static final int DEVICE_COUNT = 6;
+
+    private SearchManagerService searchManagerService;
+    private List<Device> devices = new ArrayList<>();
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        searchManagerService = new SearchManagerServiceImpl();
+        this.addDevices();
+    }
+
+    @AfterClass
+    public void disableSearchIndex() {
+        DeviceManagementDataHolder.getInstance().setDeviceSearchIndexManager(null);
+    }
+
+    @Test
+    public void testIndexMatchesDatabase() throws Exception {
+        List<SearchContext> contexts = Arrays.asList(
+                this.getContext(this.getCondition("LOCATION", DEVICE_TYPE + " City 1", Condition.State.AND)),
+                this.getContext(this.getCondition("LOCATION", "ndexTest Main Str", Condition.State.AND)),
+                this.getContext(this.getCondition("LOCATION", "Main", Condition.State.AND)),
+                this.getContext(this.getCondition(GROUP_PROPERTY, "even", Condition.State.AND),
+                                this.getCondition("LOCATION", DEVICE_TYPE + " City", Condition.State.AND)),
+                this.getContext(this.getCondition(GROUP_PROPERTY, "odd", Condition.State.AND),
+                                this.getCondition("LOCATION", DEVICE_TYPE + " City 2", Condition.State.OR)),
+                this.getContext(this.getCondition(GROUP_PROPERTY, "none", Condition.State.AND)));
+
+        for (SearchContext context : contexts) {
+            DeviceManagementDataHolder.getInstance().setDeviceSearchIndexManager(null);
+            List<Integer> expected = this.getIndexes(searchManagerService.search(context));
+            DeviceManagementDataHolder.getInstance().setDeviceSearchIndexManager(
+                    new DeviceSearchIndexManager(60000));
+            Assert.assertEquals(this.getIndexes(searchManagerService.search(context)), expected,
+                                "Index and database disagree on " + context.getConditions().get(0).getValue());
+        }
+    }
+
+    @Test
+    public void testIndexIsConsulted() throws Exception {
+        DeviceSearchIndexManager searchIndexManager = new DeviceSearchIndexManager(60000);
+        DeviceManagementDataHolder.getInstance().setDeviceSearchIndexManager(searchIndexManager);
+        SearchContext context = this.getContext(
+                this.getCondition("LOCATION", DEVICE_TYPE + " Indexed City", Condition.State.AND));
+        Assert.assertTrue(searchManagerService.search(context).isEmpty());
+
+        // Known to the index only, so that it is found only if the search is answered from the index.
+        DeviceLocation location = this.getLocation(devices.get(3), DEVICE_TYPE + " Indexed City");
+        searchIndexManager.getIndex(TestDataHolder.SUPER_TENANT_ID).updateLocation(devices.get(3).getId(), location);
+        Assert.assertEquals(this.getIndexes(searchManagerService.search(context)), Arrays.asList(3));
+    }
+
+    @Test(dependsOnMethods = "testIndexIsConsulted")
+    public void testUpdatedDevicesAreIndexed() throws Exception {
+        // Refreshed by every search.
+        DeviceSearchIndexManager searchIndexManager = new DeviceSearchIndexManager(0);
+        DeviceManagementDataHolder.getInstance().setDeviceSearchIndexManager(searchIndexManager);
+        SearchContext context = this.getContext(
+                this.getCondition("LOCATION", DEVICE_TYPE + " Moved City", Condition.State.AND));
+        Assert.assertTrue(searchManagerService.search(context).isEmpty());
+
+        DeviceDetailsDAO deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceDetailsDAO.updateDeviceLocation(this.getLocation(devices.get(4), DEVICE_TYPE + " Moved City"));
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(this.getIndexes(searchManagerService.search(context)), Arrays.asList(4));
+    }
+
+    @Test
+    public void testStaleRowsDoNotReplaceReportedValues() throws Exception {
+        DeviceSearchIndex index = new DeviceSearchIndex(60000);
+        Device device = devices.get(5);
+        Set<Integer> deviceIds = Collections.singleton(device.getId());
+        long storedTime = System.currentTimeMillis() - 1000;
+        index.refresh(Collections.singletonList(this.getStoredDevice(device, "stored", storedTime)), storedTime);
+
+        index.updateProperties(device.getId(), Collections.singletonMap(GROUP_PROPERTY, "reported"));
+        index.updateLocation(device.getId(), this.getLocation(device, DEVICE_TYPE + " reported"));
+        // Read again by a refresh overlapping the previous one, while the reported values are not stored yet.
+        index.refresh(Collections.singletonList(this.getStoredDevice(device, "stored", storedTime)),
+                      System.currentTimeMillis());
+        Assert.assertEquals(index.findByProperty(GROUP_PROPERTY, "reported"), deviceIds);
+        Assert.assertEquals(index.findByLocation(DEVICE_TYPE + " reported"), deviceIds);
+        Assert.assertTrue(index.findByLocation(DEVICE_TYPE + " stored").isEmpty(), "Stale location was indexed");
+
+        // Stored after the values were reported, e.g. by another node.
+        long updatedTime = System.currentTimeMillis() + 1000;
+        index.refresh(Collections.singletonList(this.getStoredDevice(device, "updated", updatedTime)), updatedTime);
+        Assert.assertEquals(index.findByProperty(GROUP_PROPERTY, "updated"), deviceIds);
+        Assert.assertEquals(index.findByLocation(DEVICE_TYPE + " updated"), deviceIds);
+    }
+
+    @Test
+    public void testUnindexedConditionsFallBackToDatabase() throws Exception {
+        DeviceManagementDataHolder.getInstance().setDeviceSearchIndexManager(new DeviceSearchIndexManager(60000));
+        List<Device> result = searchManagerService.search(this.getContext(
+                this.getCondition("deviceModel", DEVICE_TYPE + "-model-2", Condition.State.AND)));
+        Assert.assertEquals(this.getIndexes(result), Arrays.asList(2));
+    }
+
+    private List<Integer> getIndexes(List<Device> devices) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Device device : devices) {
+            if (DEVICE_TYPE.equals(device.getType())) {
+                indexes.add(Integer.parseInt(device.getDeviceIdentifier().substring(DEVICE_TYPE.length())));
+            }
+        }
+        return new ArrayList<>(indexes);
+    }
+
+    private SearchContext getContext(Condition... conditions) {
+        SearchContext context = new SearchContext();
+        context.setConditions(new ArrayList<>(Arrays.asList(conditions)));
+        return context;
+    }
+
+    private Condition getCondition(String key, String value, Condition.State state) {
+        Condition condition = new Condition();
+        condition.setKey(key);
+        condition.setOperator("=");
+        condition.setValue(value);
+        condition.setState(state);
+        return condition;
+    }
+
+    private DeviceLocation getLocation(Device device, String city) {
+        DeviceLocation location = Utils.getSampleDeviceLocation();
+        location.setDeviceId(device.getId());
+        location.setStreet1(DEVICE_TYPE + " Main Street");
+        location.setCity(city);
+        return location;
+    }
+
+    /**
+     * @return the device as read from the database by a refresh of the index, having the given property and city
+     * updated at the given time.
+     */
+    private Device getStoredDevice(Device device, String value, long updatedTime) {
+        DeviceLocation location = this.getLocation(device, DEVICE_TYPE + " " + value);
+        location.setUpdatedTime(new Date(updatedTime));
+        DeviceInfo info = new DeviceInfo();
+        info.setDeviceDetailsMap(new HashMap<>(Collections.singletonMap(GROUP_PROPERTY, value)));
+        info.setLocation(location);
+        info.setUpdatedTime(new Date(updatedTime));
+        Device storedDevice = new Device();
+        storedDevice.setId(device.getId());
+        storedDevice.setDeviceInfo(info);
+        return storedDevice;
+    }
+
+    private void addDevices() throws Exception {
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        DeviceDetailsDAO deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(DEVICE_TYPE),
+                                        TestDataHolder.SUPER_TENANT_ID, true);
+            int typeId = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TestDataHolder.SUPER_TENANT_ID).getId();
+            for (int i = 0; i < DEVICE_COUNT; i++) {
+                Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+                device.setDeviceIdentifier(DEVICE_TYPE + i);
+                device.setId(deviceDAO.addDevice(typeId, device, TestDataHolder.SUPER_TENANT_ID));
+                devices.add(device);
+
+                DeviceInfo info = Utils.getDeviceInfo();
+                info.setDeviceModel(DEVICE_TYPE + "-model-" + i);
+                deviceDetailsDAO.addDeviceInformation(device.getId(), info);
+                Map<String, String> properties = info.getDeviceDetailsMap();
+                properties.put(GROUP_PROPERTY, (i % 2 == 0) ? "even" : "odd");
+                deviceDetailsDAO.addDeviceProperties(properties, device.getId());
+                deviceDetailsDAO.addDeviceLocation(this.getLocation(device, DEVICE_TYPE + " City " + i));
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+}
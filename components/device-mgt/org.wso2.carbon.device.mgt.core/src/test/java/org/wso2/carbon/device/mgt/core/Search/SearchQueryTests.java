@@ -0,0 +1,215 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.search;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.common.search.Condition;
+import org.wso2.carbon.device.mgt.common.search.SearchContext;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.StatementCounter;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchManagerService;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchMgtException;
+import org.wso2.carbon.device.mgt.core.search.mgt.impl.SearchManagerServiceImpl;
+import org.wso2.carbon.device.mgt.core.search.util.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Verifies that searches are evaluated by a single parameterized query, with AND and OR conditions over device
+ * details, properties and locations, and that searched values cannot alter the query.
+ */
+public class SearchQueryTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "SearchQueryTest";
+    private static final String VENDOR = DEVICE_TYPE + "-vendor";
+    private static final String GROUP_PROPERTY = "SEARCH_QUERY_TEST_GROUP";
+    private static final int DEVICE_COUNT = 6;
+
+    private StatementCounter statementCounter;
+    private SearchManagerService searchManagerService;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        statementCounter = new StatementCounter();
+        DeviceManagementDAOFactory.init(statementCounter.wrap(this.getDataSource()));
+        searchManagerService = new SearchManagerServiceImpl();
+        this.addDevices();
+    }
+
+    @AfterClass
+    public void restoreDataSource() throws Exception {
+        this.initDataSource();
+    }
+
+    @Test
+    public void testAndConditions() throws Exception {
+        statementCounter.reset();
+        List<Device> devices = searchManagerService.search(this.getContext(
+                this.getCondition("vendor", "=", VENDOR, Condition.State.AND),
+                this.getCondition("batteryLevel", ">=", "30", Condition.State.AND),
+                this.getCondition(GROUP_PROPERTY, "=", "even", Condition.State.AND)));
+        // The search, the properties and the applications of the matching devices.
+        Assert.assertEquals(statementCounter.getCount(), 3, "Search was not evaluated by a single query");
+        Assert.assertEquals(this.getIndexes(devices), Arrays.asList(4));
+
+        Device device = devices.get(0);
+        Assert.assertEquals(device.getDeviceInfo().getDeviceDetailsMap().get(GROUP_PROPERTY), "even");
+        Assert.assertNotNull(device.getApplications());
+    }
+
+    @Test
+    public void testOrConditions() throws Exception {
+        List<Device> devices = searchManagerService.search(this.getContext(
+                this.getCondition("VENDOR", "=", VENDOR, Condition.State.AND),
+                this.getCondition(GROUP_PROPERTY, "=", "odd", Condition.State.AND),
+                this.getCondition("deviceModel", "=", DEVICE_TYPE + "-model-0", Condition.State.OR)));
+        Assert.assertEquals(this.getIndexes(devices), Arrays.asList(0, 1, 3, 5));
+    }
+
+    @Test
+    public void testLocationCondition() throws Exception {
+        List<Device> devices = searchManagerService.search(this.getContext(
+                this.getCondition("LOCATION", "=", DEVICE_TYPE + "-city-1", Condition.State.AND)));
+        Assert.assertEquals(this.getIndexes(devices), Arrays.asList(1));
+
+        devices = searchManagerService.search(this.getContext(
+                this.getCondition("LOCATION", "=", DEVICE_TYPE + "-city-%", Condition.State.AND)));
+        Assert.assertTrue(devices.isEmpty(), "Wildcards in the searched location have not been escaped");
+    }
+
+    @Test
+    public void testValuesCannotAlterQuery() throws Exception {
+        Assert.assertTrue(searchManagerService.search(this.getContext(
+                this.getCondition("deviceModel", "=", "x' OR '1'='1", Condition.State.AND))).isEmpty());
+        Assert.assertTrue(searchManagerService.search(this.getContext(
+                this.getCondition("' OR '1'='1", "=", "' OR '1'='1", Condition.State.AND))).isEmpty());
+    }
+
+    @Test
+    public void testPluggedInCondition() throws Exception {
+        List<Device> devices = searchManagerService.search(this.getContext(
+                this.getCondition("vendor", "=", VENDOR, Condition.State.AND),
+                this.getCondition("pluggedIn", "=", "true", Condition.State.AND)));
+        Assert.assertEquals(this.getIndexes(devices), Arrays.asList(0, 3));
+
+        devices = searchManagerService.search(this.getContext(
+                this.getCondition("vendor", "=", VENDOR, Condition.State.AND),
+                this.getCondition("pluggedIn", "=", "false", Condition.State.AND)));
+        Assert.assertEquals(this.getIndexes(devices), Arrays.asList(1, 2, 4, 5));
+    }
+
+    @Test
+    public void testReversedLessThanOrEqualOperator() throws Exception {
+        List<Device> devices = searchManagerService.search(this.getContext(
+                this.getCondition("vendor", "=", VENDOR, Condition.State.AND),
+                this.getCondition("batteryLevel", "=<", "20", Condition.State.AND)));
+        Assert.assertEquals(this.getIndexes(devices), Arrays.asList(0, 1, 2));
+    }
+
+    @Test(expectedExceptions = SearchMgtException.class)
+    public void testInvalidOperator() throws Exception {
+        searchManagerService.search(this.getContext(
+                this.getCondition("deviceModel", "= '' OR 1=1 OR DD.VENDOR =", "x", Condition.State.AND)));
+    }
+
+    @Test(expectedExceptions = SearchMgtException.class)
+    public void testInvalidNumericValue() throws Exception {
+        searchManagerService.search(this.getContext(
+                this.getCondition("batteryLevel", ">", "0 OR 1=1", Condition.State.AND)));
+    }
+
+    private List<Integer> getIndexes(List<Device> devices) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Device device : devices) {
+            if (DEVICE_TYPE.equals(device.getType())) {
+                indexes.add(Integer.parseInt(device.getDeviceIdentifier().substring(DEVICE_TYPE.length())));
+            }
+        }
+        return new ArrayList<>(indexes);
+    }
+
+    private SearchContext getContext(Condition... conditions) {
+        SearchContext context = new SearchContext();
+        context.setConditions(new ArrayList<>(Arrays.asList(conditions)));
+        return context;
+    }
+
+    private Condition getCondition(String key, String operator, String value, Condition.State state) {
+        Condition condition = new Condition();
+        condition.setKey(key);
+        condition.setOperator(operator);
+        condition.setValue(value);
+        condition.setState(state);
+        return condition;
+    }
+
+    private void addDevices() throws Exception {
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        DeviceDetailsDAO deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(DEVICE_TYPE),
+                                        TestDataHolder.SUPER_TENANT_ID, true);
+            int typeId = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TestDataHolder.SUPER_TENANT_ID).getId();
+            for (int i = 0; i < DEVICE_COUNT; i++) {
+                Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+                device.setDeviceIdentifier(DEVICE_TYPE + i);
+                int deviceId = deviceDAO.addDevice(typeId, device, TestDataHolder.SUPER_TENANT_ID);
+
+                DeviceInfo info = Utils.getDeviceInfo();
+                info.setDeviceModel(DEVICE_TYPE + "-model-" + i);
+                info.setVendor(VENDOR);
+                info.setBatteryLevel(i * 10.0);
+                info.setPluggedIn(i % 3 == 0);
+                deviceDetailsDAO.addDeviceInformation(deviceId, info);
+                Map<String, String> properties = info.getDeviceDetailsMap();
+                properties.put(GROUP_PROPERTY, (i % 2 == 0) ? "even" : "odd");
+                deviceDetailsDAO.addDeviceProperties(properties, deviceId);
+                if (i < DEVICE_COUNT / 2) {
+                    DeviceLocation location = Utils.getSampleDeviceLocation();
+                    location.setDeviceId(deviceId);
+                    location.setCity(DEVICE_TYPE + "-city-" + i);
+                    deviceDetailsDAO.addDeviceLocation(location);
+                }
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.core.authorization;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.StatementCounter;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupDAO;
+import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies the lookups the bulk device access authorization is made of: the devices and their owners are resolved
+ * with one statement, the groups of the devices are resolved with one statement, and the decisions are cached until
+ * they expire or are invalidated.
+ */
+public class DeviceAccessLookupTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "AccessLookupTest";
+    private static final String PERMISSION = "/permission/device-mgt/user/groups/device_operation";
+
+    private StatementCounter statementCounter;
+    private DeviceDAO deviceDAO;
+    private GroupDAO groupDAO;
+    private int deviceTypeId;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        statementCounter = new StatementCounter();
+        DataSource countingDataSource = statementCounter.wrap(this.getDataSource());
+        DeviceManagementDAOFactory.init(countingDataSource);
+        GroupManagementDAOFactory.init(countingDataSource);
+        deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        groupDAO = GroupManagementDAOFactory.getGroupDAO();
+
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(DEVICE_TYPE),
+                                        TestDataHolder.SUPER_TENANT_ID, true);
+            DeviceManagementDAOFactory.commitTransaction();
+            DeviceType deviceType = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TestDataHolder.SUPER_TENANT_ID);
+            deviceTypeId = deviceType.getId();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @AfterClass
+    public void restoreDataSource() throws Exception {
+        this.initDataSource();
+    }
+
+    @Test
+    public void testOwnersResolvedWithOneStatement() throws Exception {
+        List<Device> devices = this.addDevices("owned-", 150);
+        List<DeviceIdentifier> deviceIds = new ArrayList<>();
+        for (Device device : devices) {
+            deviceIds.add(new DeviceIdentifier(device.getDeviceIdentifier(), DEVICE_TYPE));
+        }
+        deviceIds.add(new DeviceIdentifier("unknown-device", DEVICE_TYPE));
+
+        statementCounter.reset();
+        Map<String, Device> loadedDevices = this.getDevices(deviceIds);
+        Assert.assertEquals(statementCounter.getCount(), 1, "Devices were not resolved with one statement");
+        Assert.assertEquals(loadedDevices.size(), devices.size(), "Unknown devices were not skipped");
+        for (Device device : devices) {
+            Device loadedDevice = loadedDevices.get(device.getDeviceIdentifier());
+            Assert.assertNotNull(loadedDevice, "Device " + device.getDeviceIdentifier() + " was not resolved");
+            Assert.assertEquals(loadedDevice.getId(), device.getId());
+            Assert.assertEquals(loadedDevice.getEnrolmentInfo().getOwner(), device.getEnrolmentInfo().getOwner());
+        }
+    }
+
+    @Test
+    public void testActiveEnrolmentPreferred() throws Exception {
+        Device device = this.addDevices("re-enrolled-", 1).get(0);
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            EnrolmentInfo activeEnrolment = new EnrolmentInfo();
+            activeEnrolment.setOwner("new-owner");
+            activeEnrolment.setOwnership(EnrolmentInfo.OwnerShip.BYOD);
+            activeEnrolment.setStatus(EnrolmentInfo.Status.ACTIVE);
+            DeviceManagementDAOFactory.getEnrollmentDAO().addEnrollment(device.getId(), activeEnrolment,
+                                                                         TestDataHolder.SUPER_TENANT_ID);
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+
+        List<DeviceIdentifier> deviceIds = new ArrayList<>();
+        deviceIds.add(new DeviceIdentifier(device.getDeviceIdentifier(), DEVICE_TYPE));
+        Device loadedDevice = this.getDevices(deviceIds).get(device.getDeviceIdentifier());
+        Assert.assertEquals(loadedDevice.getEnrolmentInfo().getStatus(), EnrolmentInfo.Status.ACTIVE);
+        Assert.assertEquals(loadedDevice.getEnrolmentInfo().getOwner(), "new-owner");
+    }
+
+    @Test
+    public void testGroupsResolvedWithOneStatement() throws Exception {
+        List<Device> devices = this.addDevices("grouped-", 40);
+        int firstGroupId = this.addGroup("Access lookup group 1");
+        int secondGroupId = this.addGroup("Access lookup group 2");
+        List<Integer> deviceIds = new ArrayList<>();
+        try {
+            GroupManagementDAOFactory.beginTransaction();
+            for (int i = 0; i < devices.size(); i++) {
+                Device device = devices.get(i);
+                deviceIds.add(device.getId());
+                if (i % 2 == 0) {
+                    groupDAO.addDevice("Access lookup group 1", TestDataHolder.OWNER, device.getId(),
+                                       TestDataHolder.SUPER_TENANT_ID);
+                }
+                if (i % 4 == 0) {
+                    groupDAO.addDevice("Access lookup group 2", TestDataHolder.OWNER, device.getId(),
+                                       TestDataHolder.SUPER_TENANT_ID);
+                }
+            }
+            GroupManagementDAOFactory.commitTransaction();
+        } finally {
+            GroupManagementDAOFactory.closeConnection();
+        }
+
+        Map<Integer, List<Integer>> groupIds;
+        statementCounter.reset();
+        try {
+            GroupManagementDAOFactory.openConnection();
+            groupIds = groupDAO.getGroupIds(deviceIds, TestDataHolder.SUPER_TENANT_ID);
+        } finally {
+            GroupManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(statementCounter.getCount(), 1, "Groups were not resolved with one statement");
+        Assert.assertEquals(groupIds.size(), devices.size() / 2, "Devices without groups were included");
+        for (int i = 0; i < devices.size(); i++) {
+            List<Integer> groupsOfDevice = groupIds.get(devices.get(i).getId());
+            if (i % 4 == 0) {
+                Assert.assertEquals(groupsOfDevice.size(), 2);
+                Assert.assertTrue(groupsOfDevice.contains(firstGroupId) && groupsOfDevice.contains(secondGroupId));
+            } else if (i % 2 == 0) {
+                Assert.assertEquals(groupsOfDevice.size(), 1);
+                Assert.assertTrue(groupsOfDevice.contains(firstGroupId));
+            } else {
+                Assert.assertNull(groupsOfDevice);
+            }
+        }
+    }
+
+    @Test
+    public void testDecisionsCachedUntilInvalidated() {
+        DeviceAccessDecisionCache decisionCache = new DeviceAccessDecisionCache(60000, 100);
+        DeviceIdentifier deviceId = new DeviceIdentifier("cached-device", DEVICE_TYPE);
+        int tenantId = TestDataHolder.SUPER_TENANT_ID;
+
+        Assert.assertNull(decisionCache.get(tenantId, "user", deviceId, null));
+        long generation = decisionCache.getGeneration(tenantId);
+        decisionCache.put(tenantId, "user", deviceId, null, false, generation);
+        decisionCache.put(tenantId, "user", deviceId, PERMISSION, true, generation);
+        Assert.assertEquals(decisionCache.get(tenantId, "user", deviceId, null), Boolean.FALSE);
+        Assert.assertEquals(decisionCache.get(tenantId, "user", deviceId, PERMISSION), Boolean.TRUE);
+        Assert.assertNull(decisionCache.get(tenantId, "other-user", deviceId, PERMISSION));
+        Assert.assertNull(decisionCache.get(1, "user", deviceId, PERMISSION), "Decisions leaked across tenants");
+
+        decisionCache.invalidate(tenantId);
+        Assert.assertNull(decisionCache.get(tenantId, "user", deviceId, PERMISSION));
+        // A decision made from data read before the invalidation is not cached.
+        decisionCache.put(tenantId, "user", deviceId, PERMISSION, true, generation);
+        Assert.assertNull(decisionCache.get(tenantId, "user", deviceId, PERMISSION));
+    }
+
+    @Test
+    public void testDecisionsNotRetainedWhenDisabled() {
+        DeviceAccessDecisionCache decisionCache = new DeviceAccessDecisionCache(0, 0);
+        DeviceIdentifier deviceId = new DeviceIdentifier("uncached-device", DEVICE_TYPE);
+        int tenantId = TestDataHolder.SUPER_TENANT_ID;
+        decisionCache.put(tenantId, "user", deviceId, null, true, decisionCache.getGeneration(tenantId));
+        Assert.assertNull(decisionCache.get(tenantId, "user", deviceId, null));
+    }
+
+    @Test
+    public void testDecisionsBoundedByCapacity() {
+        DeviceAccessDecisionCache decisionCache = new DeviceAccessDecisionCache(60000, 10);
+        int tenantId = TestDataHolder.SUPER_TENANT_ID;
+        long generation = decisionCache.getGeneration(tenantId);
+        for (int i = 0; i < 25; i++) {
+            decisionCache.put(tenantId, "user", new DeviceIdentifier("bounded-" + i, DEVICE_TYPE), null, true,
+                              generation);
+        }
+        int cached = 0;
+        for (int i = 0; i < 25; i++) {
+            if (decisionCache.get(tenantId, "user", new DeviceIdentifier("bounded-" + i, DEVICE_TYPE), null) != null) {
+                cached++;
+            }
+        }
+        Assert.assertTrue(cached > 0 && cached <= 10, cached + " decisions were retained");
+    }
+
+    private Map<String, Device> getDevices(List<DeviceIdentifier> deviceIds) throws Exception {
+        Map<String, Device> devices = new HashMap<>();
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            for (Device device : deviceDAO.getDevices(deviceIds, TestDataHolder.SUPER_TENANT_ID)) {
+                devices.put(device.getDeviceIdentifier(), device);
+            }
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        return devices;
+    }
+
+    private List<Device> addDevices(String prefix, int count) throws Exception {
+        List<Device> devices = new ArrayList<>();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            for (int i = 0; i < count; i++) {
+                Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+                device.setDeviceIdentifier(prefix + i);
+                device.getEnrolmentInfo().setOwner("owner-" + (i % 7));
+                device.setId(deviceDAO.addDevice(deviceTypeId, device, TestDataHolder.SUPER_TENANT_ID));
+                deviceDAO.addEnrollment(device, TestDataHolder.SUPER_TENANT_ID);
+                devices.add(device);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        return devices;
+    }
+
+    private int addGroup(String name) throws Exception {
+        DeviceGroup deviceGroup = TestDataHolder.generateDummyGroupData();
+        deviceGroup.setName(name);
+        try {
+            GroupManagementDAOFactory.beginTransaction();
+            int groupId = groupDAO.addGroup(deviceGroup, TestDataHolder.SUPER_TENANT_ID);
+            GroupManagementDAOFactory.commitTransaction();
+            return groupId;
+        } finally {
+            GroupManagementDAOFactory.closeConnection();
+        }
+    }
+
+}
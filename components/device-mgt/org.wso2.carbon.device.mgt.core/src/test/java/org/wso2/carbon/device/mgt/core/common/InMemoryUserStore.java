@@ -0,0 +1,129 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.common;
+
+import org.wso2.carbon.user.api.UserStoreManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps roles and their users in memory, behind a user store manager which implements the role lookups and
+ * mutations used by the group management service. Every call to the user store manager is counted, and any other
+ * method throws an UnsupportedOperationException.
+ */
+public class InMemoryUserStore {
+
+    private final Map<String, Set<String>> usersOfRoles = new LinkedHashMap<>();
+    private final Set<String> users = new LinkedHashSet<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public synchronized void addUser(String username) {
+        users.add(username);
+    }
+
+    public synchronized void addRole(String role, String... usernames) {
+        Set<String> roleUsers = new LinkedHashSet<>();
+        for (String username : usernames) {
+            users.add(username);
+            roleUsers.add(username);
+        }
+        usersOfRoles.put(role, roleUsers);
+    }
+
+    public int getCalls() {
+        return calls.get();
+    }
+
+    public void resetCalls() {
+        calls.set(0);
+    }
+
+    public UserStoreManager getUserStoreManager() {
+        return (UserStoreManager) Proxy.newProxyInstance(UserStoreManager.class.getClassLoader(),
+                new Class[]{UserStoreManager.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        calls.incrementAndGet();
+                        synchronized (InMemoryUserStore.this) {
+                            return handle(method.getName(), args);
+                        }
+                    }
+                });
+    }
+
+    private Object handle(String methodName, Object[] args) {
+        switch (methodName) {
+            case "getRoleNames":
+                return usersOfRoles.keySet().toArray(new String[usersOfRoles.size()]);
+            case "getRoleListOfUser": {
+                List<String> roles = new ArrayList<>();
+                for (Map.Entry<String, Set<String>> role : usersOfRoles.entrySet()) {
+                    if (role.getValue().contains((String) args[0])) {
+                        roles.add(role.getKey());
+                    }
+                }
+                return roles.toArray(new String[roles.size()]);
+            }
+            case "getUserListOfRole": {
+                Set<String> roleUsers = usersOfRoles.get((String) args[0]);
+                return (roleUsers != null) ? roleUsers.toArray(new String[roleUsers.size()]) : new String[0];
+            }
+            case "isExistingUser":
+                return users.contains((String) args[0]);
+            case "addRole":
+                this.addRole((String) args[0], (String[]) args[1]);
+                return null;
+            case "deleteRole":
+                usersOfRoles.remove((String) args[0]);
+                return null;
+            case "updateRoleListOfUser": {
+                String username = (String) args[0];
+                if (args[1] != null) {
+                    for (String role : (String[]) args[1]) {
+                        Set<String> roleUsers = usersOfRoles.get(role);
+                        if (roleUsers != null) {
+                            roleUsers.remove(username);
+                        }
+                    }
+                }
+                if (args[2] != null) {
+                    for (String role : (String[]) args[2]) {
+                        Set<String> roleUsers = usersOfRoles.get(role);
+                        if (roleUsers != null) {
+                            roleUsers.add(username);
+                        }
+                    }
+                }
+                return null;
+            }
+            default:
+                throw new UnsupportedOperationException(methodName + " is not supported by the in-memory user store");
+        }
+    }
+
+}
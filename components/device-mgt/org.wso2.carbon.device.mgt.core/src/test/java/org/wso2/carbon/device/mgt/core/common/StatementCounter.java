@@ -0,0 +1,116 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.common;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps a data source so that every statement execution (including a JDBC batch, which is a single round trip)
+ * issued through it is counted. Executions of anything but a query are also counted separately as writes.
+ */
+public class StatementCounter {
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicInteger writeCount = new AtomicInteger();
+
+    public DataSource wrap(final DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class[]{DataSource.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        Object result = invokeTarget(dataSource, method, args);
+                        if (result instanceof Connection) {
+                            return wrapConnection((Connection) result);
+                        }
+                        return result;
+                    }
+                });
+    }
+
+    public int getCount() {
+        return count.get();
+    }
+
+    public int getWriteCount() {
+        return writeCount.get();
+    }
+
+    public void reset() {
+        count.set(0);
+        writeCount.set(0);
+    }
+
+    private Connection wrapConnection(final Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class[]{Connection.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        Object result = invokeTarget(connection, method, args);
+                        if (result instanceof Statement) {
+                            String sql = (args != null && args.length > 0 && args[0] instanceof String) ?
+                                    (String) args[0] : null;
+                            return wrapStatement((Statement) result, sql);
+                        }
+                        return result;
+                    }
+                });
+    }
+
+    private Statement wrapStatement(final Statement statement, final String preparedSql) {
+        Class<?> type = Statement.class;
+        if (statement instanceof CallableStatement) {
+            type = CallableStatement.class;
+        } else if (statement instanceof PreparedStatement) {
+            type = PreparedStatement.class;
+        }
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[]{type},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().startsWith("execute")) {
+                            count.incrementAndGet();
+                            String sql = (args != null && args.length > 0 && args[0] instanceof String) ?
+                                    (String) args[0] : preparedSql;
+                            if (sql == null || !sql.trim().toUpperCase().startsWith("SELECT")) {
+                                writeCount.incrementAndGet();
+                            }
+                        }
+                        return invokeTarget(statement, method, args);
+                    }
+                });
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.device.details.mgt.dao;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.StatementCounter;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.search.util.Utils;
+
+import java.util.Map;
+
+/**
+ * Verifies that device detail reports only write what differs from the stored report.
+ */
+public class DeviceDetailsUpdateTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "DeviceDetailsUpdateTest";
+
+    private StatementCounter statementCounter;
+    private DeviceDetailsDAO deviceDetailsDAO;
+    private int deviceId;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        statementCounter = new StatementCounter();
+        DeviceManagementDAOFactory.init(statementCounter.wrap(this.getDataSource()));
+        deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+        device.setDeviceIdentifier("device-details-update-device");
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(DEVICE_TYPE),
+                                        TestDataHolder.SUPER_TENANT_ID, true);
+            int typeId = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TestDataHolder.SUPER_TENANT_ID).getId();
+            deviceId = DeviceManagementDAOFactory.getDeviceDAO().addDevice(typeId, device,
+                                                                           TestDataHolder.SUPER_TENANT_ID);
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @AfterClass
+    public void restoreDataSource() throws Exception {
+        this.initDataSource();
+    }
+
+    @Test
+    public void testFirstReportIsStored() throws Exception {
+        statementCounter.reset();
+        this.report(Utils.getDeviceInfo(), this.getLocation());
+        // Device details, a batch of properties and the location.
+        Assert.assertEquals(statementCounter.getWriteCount(), 3);
+
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            DeviceInfo info = deviceDetailsDAO.getDeviceInformation(deviceId);
+            Assert.assertEquals(info.getDeviceModel(), Utils.getDeviceInfo().getDeviceModel());
+            Assert.assertEquals(deviceDetailsDAO.getDeviceProperties(deviceId),
+                                Utils.getDeviceInfo().getDeviceDetailsMap());
+            Assert.assertEquals(deviceDetailsDAO.getDeviceLocation(deviceId).getCity(), this.getLocation().getCity());
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Test(dependsOnMethods = "testFirstReportIsStored")
+    public void testIdenticalReportWritesNothing() throws Exception {
+        statementCounter.reset();
+        this.report(Utils.getDeviceInfo(), this.getLocation());
+        Assert.assertEquals(statementCounter.getWriteCount(), 0, "An identical report has been written");
+    }
+
+    @Test(dependsOnMethods = "testIdenticalReportWritesNothing")
+    public void testChangedReportWritesOnlyDifferences() throws Exception {
+        DeviceInfo info = Utils.getDeviceInfo();
+        info.setBatteryLevel(55.0);
+        Map<String, String> properties = info.getDeviceDetailsMap();
+        properties.put("BATTERY_HEALTH", "Poor");
+        properties.put("BATTERY_TEMPERATURE", "35");
+        properties.remove("CPU_IRQ");
+
+        statementCounter.reset();
+        this.report(info, this.getLocation());
+        // The device details, and a batch each of changed, added and removed properties. The location is unchanged.
+        Assert.assertEquals(statementCounter.getWriteCount(), 4);
+
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            Assert.assertEquals(deviceDetailsDAO.getDeviceInformation(deviceId).getBatteryLevel(), Double.valueOf(55.0));
+            Assert.assertEquals(deviceDetailsDAO.getDeviceProperties(deviceId), properties);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Test(dependsOnMethods = "testChangedReportWritesOnlyDifferences")
+    public void testUnreportedValuesAreStoredAsNull() throws Exception {
+        DeviceInfo info = Utils.getDeviceInfo();
+        info.setBatteryLevel(55.0);
+        info.setSsid(null);
+        DeviceLocation location = this.getLocation();
+        location.setStreet2(null);
+
+        this.report(info, location);
+
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            Assert.assertNull(deviceDetailsDAO.getDeviceInformation(deviceId).getSsid());
+            Assert.assertNull(deviceDetailsDAO.getDeviceLocation(deviceId).getStreet2());
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private void report(DeviceInfo info, DeviceLocation location) throws Exception {
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceDetailsDAO.updateDeviceInformation(deviceId, info);
+            deviceDetailsDAO.updateDeviceProperties(info.getDeviceDetailsMap(), deviceId);
+            deviceDetailsDAO.updateDeviceLocation(location);
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private DeviceLocation getLocation() {
+        DeviceLocation location = Utils.getSampleDeviceLocation();
+        location.setDeviceId(deviceId);
+        return location;
+    }
+
+}
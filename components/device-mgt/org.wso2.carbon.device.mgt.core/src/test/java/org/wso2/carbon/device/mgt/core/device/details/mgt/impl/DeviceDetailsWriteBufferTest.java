@@ -0,0 +1,201 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.device.details.mgt.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.StatementCounter;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
+import org.wso2.carbon.device.mgt.core.search.util.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies that device detail reports arriving at a high rate are coalesced by the write buffer, so that the number
+ * of writes depends on the number of reporting devices rather than on the number of reports.
+ */
+public class DeviceDetailsWriteBufferTest extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "DeviceDetailsWriteBufferTest";
+    private static final int DEVICE_COUNT = 20;
+    private static final int REPORTS_PER_DEVICE = 25;
+    private static final int REPORTING_THREADS = 4;
+    // Long enough for the scheduled flush not to run while a test is reporting.
+    private static final long FLUSH_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private StatementCounter statementCounter;
+    private DeviceDetailsDAO deviceDetailsDAO;
+    private List<Device> devices = new ArrayList<>();
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        statementCounter = new StatementCounter();
+        DeviceManagementDAOFactory.init(statementCounter.wrap(this.getDataSource()));
+        deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+        this.addDevices();
+    }
+
+    @AfterClass
+    public void restoreDataSource() throws Exception {
+        this.initDataSource();
+    }
+
+    @Test
+    public void testReportsAreCoalescedPerDevice() throws Exception {
+        final DeviceDetailsWriteBuffer buffer = new DeviceDetailsWriteBuffer(FLUSH_INTERVAL, DEVICE_COUNT + 1);
+        statementCounter.reset();
+
+        ExecutorService reporters = Executors.newFixedThreadPool(REPORTING_THREADS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < REPORTING_THREADS; thread++) {
+            final int offset = thread;
+            results.add(reporters.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // Each device reports from a single thread, so that its last report is known.
+                    for (int report = 0; report < REPORTS_PER_DEVICE; report++) {
+                        for (int i = offset; i < DEVICE_COUNT; i += REPORTING_THREADS) {
+                            Device device = devices.get(i);
+                            Assert.assertTrue(buffer.addDeviceInfo(device, TestDataHolder.SUPER_TENANT_ID,
+                                                                   getDeviceInfo(report)));
+                            Assert.assertTrue(buffer.addDeviceLocation(device, TestDataHolder.SUPER_TENANT_ID,
+                                                                       getLocation(device, report)));
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        reporters.shutdown();
+
+        Assert.assertEquals(statementCounter.getCount(), 0, "Reports have been written before being flushed");
+        Assert.assertEquals(buffer.getReportedCount(), 2L * DEVICE_COUNT * REPORTS_PER_DEVICE);
+        Assert.assertEquals(buffer.getPendingCount(), DEVICE_COUNT);
+        // Buffered reports are served until they are written.
+        Device lastDevice = devices.get(DEVICE_COUNT - 1);
+        Assert.assertEquals(buffer.getDeviceInfo(lastDevice.getId()).getBatteryLevel(),
+                            Double.valueOf(REPORTS_PER_DEVICE - 1));
+        Assert.assertEquals(buffer.getDeviceLocation(lastDevice.getId()).getCity(),
+                            "city-" + (REPORTS_PER_DEVICE - 1));
+
+        buffer.shutdown();
+
+        // The device, its details, a batch of properties and its location, once per device.
+        Assert.assertTrue(statementCounter.getWriteCount() <= 4 * DEVICE_COUNT,
+                          statementCounter.getWriteCount() + " writes for " + DEVICE_COUNT + " devices");
+        Assert.assertEquals(buffer.getWrittenCount(), DEVICE_COUNT);
+        Assert.assertEquals(buffer.getFailedCount(), 0);
+        Assert.assertEquals(buffer.getPendingCount(), 0);
+        Assert.assertNull(buffer.getDeviceInfo(lastDevice.getId()));
+        Assert.assertFalse(buffer.addDeviceInfo(lastDevice, TestDataHolder.SUPER_TENANT_ID, this.getDeviceInfo(0)),
+                           "A report has been accepted after the buffer has been shut down");
+
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            for (Device device : devices) {
+                Assert.assertEquals(deviceDetailsDAO.getDeviceInformation(device.getId()).getBatteryLevel(),
+                                    Double.valueOf(REPORTS_PER_DEVICE - 1));
+                Assert.assertEquals(deviceDetailsDAO.getDeviceLocation(device.getId()).getCity(),
+                                    "city-" + (REPORTS_PER_DEVICE - 1));
+            }
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Test(dependsOnMethods = "testReportsAreCoalescedPerDevice")
+    public void testFullBufferIsFlushed() throws Exception {
+        int batchSize = DEVICE_COUNT / 2;
+        DeviceDetailsWriteBuffer buffer = new DeviceDetailsWriteBuffer(FLUSH_INTERVAL, batchSize);
+        try {
+            for (int i = 0; i < batchSize; i++) {
+                Assert.assertTrue(buffer.addDeviceLocation(devices.get(i), TestDataHolder.SUPER_TENANT_ID,
+                                                           this.getLocation(devices.get(i), REPORTS_PER_DEVICE)));
+            }
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (buffer.getWrittenCount() < batchSize && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(buffer.getWrittenCount(), batchSize, "A full buffer has not been flushed");
+        } finally {
+            buffer.shutdown();
+        }
+
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            Assert.assertEquals(deviceDetailsDAO.getDeviceLocation(devices.get(0).getId()).getCity(),
+                                "city-" + REPORTS_PER_DEVICE);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private DeviceInfo getDeviceInfo(int report) {
+        DeviceInfo info = Utils.getDeviceInfo();
+        info.setBatteryLevel((double) report);
+        return info;
+    }
+
+    private DeviceLocation getLocation(Device device, int report) {
+        DeviceLocation location = Utils.getSampleDeviceLocation();
+        location.setDeviceId(device.getId());
+        location.setCity("city-" + report);
+        return location;
+    }
+
+    private void addDevices() throws Exception {
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(DEVICE_TYPE),
+                                        TestDataHolder.SUPER_TENANT_ID, true);
+            int typeId = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TestDataHolder.SUPER_TENANT_ID).getId();
+            for (int i = 0; i < DEVICE_COUNT; i++) {
+                Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+                device.setDeviceIdentifier(DEVICE_TYPE + i);
+                device.setId(deviceDAO.addDevice(typeId, device, TestDataHolder.SUPER_TENANT_ID));
+                devices.add(device);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.group.mgt.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.group.mgt.GroupUser;
+import org.wso2.carbon.device.mgt.core.common.InMemoryUserStore;
+import org.wso2.carbon.user.api.UserStoreManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class GroupMembershipIndexTests {
+
+    private static final int GROUPS = 1000;
+    private static final long EXPIRY_TIME = 60000;
+
+    private InMemoryUserStore userStore;
+    private UserStoreManager userStoreManager;
+
+    @BeforeMethod
+    public void init() {
+        userStore = new InMemoryUserStore();
+        userStore.addRole("Internal/everyone", "alice", "bob");
+        for (int i = 0; i < GROUPS; i++) {
+            userStore.addRole(role(i, "admin"), "owner-" + i);
+            // Alice is a member of the even groups and Bob of every tenth group.
+            if (i % 2 == 0 && i % 10 == 0) {
+                userStore.addRole(role(i, "member"), "alice", "bob");
+            } else if (i % 2 == 0) {
+                userStore.addRole(role(i, "member"), "alice");
+            } else {
+                userStore.addRole(role(i, "member"));
+            }
+        }
+        userStoreManager = userStore.getUserStoreManager();
+    }
+
+    @Test
+    public void testLookupsAreServedFromIndex() throws Exception {
+        GroupMembershipIndex index = new GroupMembershipIndex(EXPIRY_TIME);
+        userStore.resetCalls();
+        for (int i = 0; i < 10; i++) {
+            Map<Integer, List<String>> groupRoles = index.getGroupRolesOfUser("alice", userStoreManager);
+            Assert.assertEquals(groupRoles.size(), GROUPS / 2);
+            Assert.assertEquals(groupRoles.get(10), Arrays.asList("member"));
+            Assert.assertNull(groupRoles.get(11));
+            Assert.assertEquals(index.getGroupRolesOfUser("bob", userStoreManager).size(), GROUPS / 10);
+        }
+        Assert.assertEquals(userStore.getCalls(), 2, "Roles of users were read from the user store repeatedly");
+
+        userStore.resetCalls();
+        for (int i = 0; i < GROUPS; i++) {
+            Assert.assertEquals(index.getRolesOfGroup(i, userStoreManager), Arrays.asList("admin", "member"));
+        }
+        Assert.assertEquals(userStore.getCalls(), 1, "Role names were read from the user store repeatedly");
+
+        userStore.resetCalls();
+        for (int i = 0; i < 10; i++) {
+            List<GroupUser> users = index.getUsersOfGroup(20, userStoreManager);
+            Assert.assertEquals(users.size(), 3);
+            Assert.assertEquals(users.get(0).getUsername(), "owner-20");
+            Assert.assertEquals(users.get(0).getGroupRoles(), Arrays.asList("admin"));
+        }
+        Assert.assertEquals(userStore.getCalls(), 2, "Users of the group were read from the user store repeatedly");
+        Assert.assertTrue(index.containsUser("alice"));
+        Assert.assertFalse(index.containsUser("owner-20"));
+    }
+
+    @Test
+    public void testGroupRolesAreParsed() throws Exception {
+        userStore.addRole(role(1, "read-only"), "carol");
+        userStore.addRole(role(12, "member"), "carol");
+        GroupMembershipIndex index = new GroupMembershipIndex(EXPIRY_TIME);
+
+        Map<Integer, List<String>> groupRoles = index.getGroupRolesOfUser("carol", userStoreManager);
+        Assert.assertEquals(groupRoles.get(1), Arrays.asList("read-only"));
+        Assert.assertEquals(groupRoles.get(12), Arrays.asList("member"));
+        Assert.assertEquals(groupRoles.size(), 2, "Roles which are not group roles were indexed");
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        GroupMembershipIndex index = new GroupMembershipIndex(EXPIRY_TIME);
+        Assert.assertEquals(index.getGroupRolesOfUser("bob", userStoreManager).size(), GROUPS / 10);
+        Assert.assertEquals(index.getUsersOfGroup(1, userStoreManager).size(), 1);
+
+        userStoreManager.updateRoleListOfUser("bob", null, new String[]{role(1, "member")});
+        // Entries are kept until the index is invalidated.
+        Assert.assertEquals(index.getGroupRolesOfUser("bob", userStoreManager).size(), GROUPS / 10);
+
+        index.invalidate();
+        Assert.assertEquals(index.getGroupRolesOfUser("bob", userStoreManager).size(), GROUPS / 10 + 1);
+        Assert.assertEquals(index.getUsersOfGroup(1, userStoreManager).size(), 2);
+
+        userStoreManager.deleteRole(role(1, "member"));
+        index.invalidate();
+        Assert.assertEquals(index.getRolesOfGroup(1, userStoreManager), Arrays.asList("admin"));
+        Assert.assertNull(index.getGroupRolesOfUser("bob", userStoreManager).get(1));
+    }
+
+    @Test
+    public void testEntriesExpire() throws Exception {
+        GroupMembershipIndex index = new GroupMembershipIndex(50);
+        index.getGroupRolesOfUser("alice", userStoreManager);
+        userStore.resetCalls();
+        index.getGroupRolesOfUser("alice", userStoreManager);
+        Assert.assertEquals(userStore.getCalls(), 0);
+
+        Thread.sleep(100);
+        index.getGroupRolesOfUser("alice", userStoreManager);
+        Assert.assertEquals(userStore.getCalls(), 1, "Expired entry was not read again from the user store");
+    }
+
+    @Test
+    public void testUncachedIndex() throws Exception {
+        GroupMembershipIndex index = new GroupMembershipCache(0).getIndex(-1234);
+        userStore.resetCalls();
+        index.getGroupRolesOfUser("alice", userStoreManager);
+        index.getGroupRolesOfUser("alice", userStoreManager);
+        Assert.assertEquals(userStore.getCalls(), 2);
+        Assert.assertFalse(index.containsUser("alice"));
+    }
+
+    private static String role(int groupId, String roleName) {
+        return GroupMembershipIndex.GROUP_ROLE_PREFIX + groupId + "-" + roleName;
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.core.TestUtils;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.StatementCounter;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies that pushing an operation to a set of devices costs a fixed number of statements, independent of the
+ * number of devices targeted.
+ */
+public class BulkOperationMappingTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "BulkOperationTest";
+    private static final String OPERATION_CODE = "BULK_TEST";
+
+    private StatementCounter statementCounter;
+    private DeviceDAO deviceDAO;
+    private OperationDAO operationDAO;
+    private OperationMappingDAO operationMappingDAO;
+    private int deviceTypeId;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        statementCounter = new StatementCounter();
+        DataSource countingDataSource = statementCounter.wrap(this.getDataSource());
+        DeviceManagementDAOFactory.init(countingDataSource);
+        OperationManagementDAOFactory.init(countingDataSource);
+        deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        operationDAO = OperationManagementDAOFactory.getOperationDAO();
+        operationMappingDAO = OperationManagementDAOFactory.getOperationMappingDAO();
+
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(DEVICE_TYPE),
+                                        TestDataHolder.SUPER_TENANT_ID, true);
+            DeviceManagementDAOFactory.commitTransaction();
+            DeviceType deviceType = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TestDataHolder.SUPER_TENANT_ID);
+            deviceTypeId = deviceType.getId();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @AfterClass
+    public void restoreDataSource() throws Exception {
+        this.initDataSource();
+    }
+
+    @Test
+    public void testStatementCountIsIndependentOfDeviceCount() throws Exception {
+        List<DeviceIdentifier> smallFleet = this.addDevices("small-", 10);
+        List<DeviceIdentifier> largeFleet = this.addDevices("large-", 250);
+
+        int smallFleetStatements = this.dispatchOperation(smallFleet);
+        int largeFleetStatements = this.dispatchOperation(largeFleet);
+
+        Assert.assertEquals(largeFleetStatements, smallFleetStatements, "Number of statements issued while " +
+                "dispatching an operation grows with the number of devices");
+    }
+
+    @Test
+    public void testMappingsArePersistedForEveryDevice() throws Exception {
+        List<DeviceIdentifier> fleet = this.addDevices("mapped-", 120);
+        int operationId = this.addOperation();
+        this.mapOperation(operationId, fleet);
+        Assert.assertEquals(this.getMappingCount(operationId), fleet.size(), "Operation has not been mapped to " +
+                "every device");
+    }
+
+    @Test(dependsOnMethods = "testMappingsArePersistedForEveryDevice")
+    public void testNoRepeatMarksPreviousOperationsRepeated() throws Exception {
+        List<DeviceIdentifier> fleet = this.addDevices("repeated-", 30);
+        int firstOperationId = this.addOperation();
+        this.mapOperation(firstOperationId, fleet);
+        int secondOperationId = this.addOperation();
+        this.mapOperation(secondOperationId, fleet);
+
+        Assert.assertEquals(this.getMappingCount(firstOperationId, Operation.Status.REPEATED), fleet.size());
+        Assert.assertEquals(this.getMappingCount(secondOperationId, Operation.Status.PENDING), fleet.size());
+    }
+
+    private int dispatchOperation(List<DeviceIdentifier> deviceIds) throws Exception {
+        int operationId = this.addOperation();
+        statementCounter.reset();
+        this.mapOperation(operationId, deviceIds);
+        return statementCounter.getCount();
+    }
+
+    private void mapOperation(int operationId, List<DeviceIdentifier> deviceIds) throws Exception {
+        List<Integer> enrolmentIds;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            enrolmentIds = deviceDAO.getEnrolmentIds(deviceIds, TestDataHolder.SUPER_TENANT_ID);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(enrolmentIds.size(), deviceIds.size(), "Enrolments of all devices were not resolved");
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            operationDAO.updateEnrollmentOperationsStatus(enrolmentIds, OPERATION_CODE, Operation.Status.PENDING,
+                                                          Operation.Status.REPEATED);
+            operationMappingDAO.addOperationMapping(operationId, enrolmentIds);
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private int addOperation() throws Exception {
+        Operation operation = new Operation();
+        operation.setType(Operation.Type.COMMAND);
+        operation.setCode(OPERATION_CODE);
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            int operationId = operationDAO.addOperation(operation);
+            OperationManagementDAOFactory.commitTransaction();
+            return operationId;
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private List<DeviceIdentifier> addDevices(String prefix, int count) throws Exception {
+        List<DeviceIdentifier> deviceIds = new ArrayList<>();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            for (int i = 0; i < count; i++) {
+                Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+                device.setDeviceIdentifier(prefix + i);
+                device.setId(deviceDAO.addDevice(deviceTypeId, device, TestDataHolder.SUPER_TENANT_ID));
+                deviceDAO.addEnrollment(device, TestDataHolder.SUPER_TENANT_ID);
+                deviceIds.add(new DeviceIdentifier(device.getDeviceIdentifier(), DEVICE_TYPE));
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        return deviceIds;
+    }
+
+    private int getMappingCount(int operationId) throws Exception {
+        return this.getMappingCount(operationId, null);
+    }
+
+    private int getMappingCount(int operationId, Operation.Status status) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = getDataSource().getConnection();
+            String sql = "SELECT COUNT(*) AS MAPPING_COUNT FROM DM_ENROLMENT_OP_MAPPING WHERE OPERATION_ID = ?";
+            if (status != null) {
+                sql += " AND STATUS = ?";
+            }
+            stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, operationId);
+            if (status != null) {
+                stmt.setString(2, status.toString());
+            }
+            rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt("MAPPING_COUNT") : 0;
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+    }
+
+}
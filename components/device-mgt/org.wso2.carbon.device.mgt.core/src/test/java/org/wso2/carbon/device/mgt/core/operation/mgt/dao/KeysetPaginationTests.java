@@ -0,0 +1,276 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.PaginationRequest;
+import org.wso2.carbon.device.mgt.common.PaginationResult;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
+import org.wso2.carbon.device.mgt.common.operation.mgt.ActivityStatus;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.operation.mgt.util.ContinuationToken;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies that walking activities and device operations with continuation tokens yields the same records, in the
+ * same order, as walking them with offsets.
+ */
+public class KeysetPaginationTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "KeysetPaginationTest";
+    private static final int DEVICE_COUNT = 3;
+    private static final int OPERATION_COUNT = 5;
+    // Later than the update time of mappings added by other tests, so that only the mappings added here qualify.
+    private static final long UPDATED_TIMESTAMP_BASE = 2000000000L;
+    private static final long CREATED_TIMESTAMP_BASE = 1400000000000L;
+
+    private OperationDAO operationDAO;
+    private List<Integer> enrolmentIds = new ArrayList<>();
+    private List<Integer> operationIds = new ArrayList<>();
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        OperationManagementDAOFactory.init(this.getDataSource());
+        operationDAO = OperationManagementDAOFactory.getOperationDAO();
+
+        this.addEnrolments();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            CommandOperation operation = new CommandOperation();
+            operation.setCode("KEYSET_" + i);
+            operation.setEnabled(true);
+            operationIds.add(this.addOperation(operation));
+        }
+
+        // Spread mappings over a few update times and operations over a few creation times, so that pages have to
+        // break ties by id.
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            int mappingIndex = 0;
+            for (int operationId : operationIds) {
+                for (int enrolmentId : enrolmentIds) {
+                    this.setUpdatedTimestamp(enrolmentId, operationId, UPDATED_TIMESTAMP_BASE + mappingIndex % 3);
+                    mappingIndex++;
+                }
+                this.setCreatedTimestamp(operationId, CREATED_TIMESTAMP_BASE + (operationId % 2) * 1000);
+            }
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Test
+    public void testContinuationTokenRoundTrip() {
+        ContinuationToken token = new ContinuationToken(1487054356123L, 42);
+        ContinuationToken decoded = ContinuationToken.decode(token.encode());
+        Assert.assertEquals(decoded.getTimestamp(), 1487054356123L);
+        Assert.assertEquals(decoded.getId(), 42);
+        Assert.assertTrue(token.encode().matches("[A-Za-z0-9_-]+"), "Token is not URL safe");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMalformedContinuationToken() {
+        ContinuationToken.decode("not-a-token");
+    }
+
+    @Test
+    public void testActivityPagesMatchOffsetPages() throws Exception {
+        long since = UPDATED_TIMESTAMP_BASE - 1;
+        int limit = 5;
+        List<String> offsetStatuses = new ArrayList<>();
+        List<String> keysetStatuses = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        try {
+            OperationManagementDAOFactory.openConnection();
+            for (int offset = 0; ; offset += limit) {
+                List<Activity> activities = operationDAO.getActivitiesUpdatedAfter(since, limit, offset);
+                if (activities.isEmpty()) {
+                    break;
+                }
+                offsetStatuses.addAll(this.flatten(activities));
+            }
+
+            ContinuationToken token = null;
+            do {
+                PaginationResult page = operationDAO.getActivitiesUpdatedAfter(since, token, limit);
+                @SuppressWarnings("unchecked")
+                List<String> statuses = this.flatten((List<Activity>) page.getData());
+                pageSizes.add(statuses.size());
+                keysetStatuses.addAll(statuses);
+                token = (page.getContinuationToken() == null) ? null :
+                        ContinuationToken.decode(page.getContinuationToken());
+            } while (token != null);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        Assert.assertEquals(offsetStatuses.size(), DEVICE_COUNT * OPERATION_COUNT);
+        Assert.assertEquals(keysetStatuses, offsetStatuses);
+        Assert.assertEquals(pageSizes.get(0), Integer.valueOf(limit));
+        Assert.assertEquals(pageSizes.get(pageSizes.size() - 1),
+                            Integer.valueOf(DEVICE_COUNT * OPERATION_COUNT % limit));
+    }
+
+    @Test
+    public void testDeviceOperationPagesMatchOffsetPages() throws Exception {
+        int enrolmentId = enrolmentIds.get(0);
+        int limit = 2;
+        List<Integer> offsetOperations = new ArrayList<>();
+        List<Integer> keysetOperations = new ArrayList<>();
+        int pageCount = 0;
+        try {
+            OperationManagementDAOFactory.openConnection();
+            for (int offset = 0; ; offset += limit) {
+                List<? extends Operation> operations =
+                        operationDAO.getOperationsForDevice(enrolmentId, new PaginationRequest(offset, limit));
+                if (operations.isEmpty()) {
+                    break;
+                }
+                for (Operation operation : operations) {
+                    offsetOperations.add(operation.getId());
+                }
+            }
+
+            ContinuationToken token = null;
+            do {
+                PaginationResult page = operationDAO.getOperationsForDevice(enrolmentId, token, limit);
+                pageCount++;
+                for (Object operation : page.getData()) {
+                    keysetOperations.add(((Operation) operation).getId());
+                }
+                token = (page.getContinuationToken() == null) ? null :
+                        ContinuationToken.decode(page.getContinuationToken());
+            } while (token != null);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        Assert.assertEquals(offsetOperations.size(), OPERATION_COUNT);
+        Assert.assertEquals(keysetOperations, offsetOperations);
+        Assert.assertEquals(pageCount, (OPERATION_COUNT + limit - 1) / limit);
+    }
+
+    @Test(dependsOnMethods = "testActivityPagesMatchOffsetPages")
+    public void testActivityPageIsLimitedByMappings() throws Exception {
+        int enrolmentId = enrolmentIds.get(0);
+        int operationId = operationIds.get(0);
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            operationDAO.addOperationResponse(enrolmentId, operationId, "first response");
+            operationDAO.addOperationResponse(enrolmentId, operationId, "second response");
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        PaginationResult page;
+        try {
+            OperationManagementDAOFactory.openConnection();
+            page = operationDAO.getActivitiesUpdatedAfter(UPDATED_TIMESTAMP_BASE - 1, null, 1);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+        @SuppressWarnings("unchecked")
+        List<Activity> activities = (List<Activity>) page.getData();
+        Assert.assertEquals(activities.size(), 1);
+        Assert.assertEquals(activities.get(0).getActivityStatus().size(), 1);
+        Assert.assertEquals(activities.get(0).getActivityStatus().get(0).getResponses().size(), 2);
+        Assert.assertNotNull(page.getContinuationToken());
+    }
+
+    private List<String> flatten(List<Activity> activities) {
+        List<String> statuses = new ArrayList<>();
+        for (Activity activity : activities) {
+            for (ActivityStatus status : activity.getActivityStatus()) {
+                statuses.add(activity.getActivityId() + "/" + status.getDeviceIdentifier().getId() + "/" +
+                             status.getStatus());
+            }
+        }
+        return statuses;
+    }
+
+    private void addEnrolments() throws Exception {
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(DEVICE_TYPE),
+                                        TestDataHolder.SUPER_TENANT_ID, true);
+            int typeId = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TestDataHolder.SUPER_TENANT_ID).getId();
+            for (int i = 0; i < DEVICE_COUNT; i++) {
+                Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+                device.setDeviceIdentifier("keyset-pagination-device-" + i);
+                device.setId(deviceDAO.addDevice(typeId, device, TestDataHolder.SUPER_TENANT_ID));
+                enrolmentIds.add(deviceDAO.addEnrollment(device, TestDataHolder.SUPER_TENANT_ID));
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private int addOperation(Operation operation) throws Exception {
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            int operationId = OperationManagementDAOFactory.getCommandOperationDAO().addOperation(operation);
+            OperationManagementDAOFactory.getOperationMappingDAO().addOperationMapping(operationId, enrolmentIds);
+            OperationManagementDAOFactory.commitTransaction();
+            return operationId;
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private void setUpdatedTimestamp(int enrolmentId, int operationId, long timestamp) throws SQLException {
+        try (PreparedStatement stmt = OperationManagementDAOFactory.getConnection().prepareStatement(
+                "UPDATE DM_ENROLMENT_OP_MAPPING SET UPDATED_TIMESTAMP = ? WHERE ENROLMENT_ID = ? AND " +
+                "OPERATION_ID = ?")) {
+            stmt.setLong(1, timestamp);
+            stmt.setInt(2, enrolmentId);
+            stmt.setInt(3, operationId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void setCreatedTimestamp(int operationId, long timestamp) throws SQLException {
+        try (PreparedStatement stmt = OperationManagementDAOFactory.getConnection().prepareStatement(
+                "UPDATE DM_OPERATION SET CREATED_TIMESTAMP = ? WHERE ID = ?")) {
+            stmt.setTimestamp(1, new Timestamp(timestamp));
+            stmt.setInt(2, operationId);
+            stmt.executeUpdate();
+        }
+    }
+
+}
@@ -0,0 +1,307 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.PaginationRequest;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.GenericOperationDAOImpl;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.operation.MySQLOperationDAOImpl;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.operation.OracleOperationDAOImpl;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.operation.PostgreSQLOperationDAOImpl;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.operation.SQLServerOperationDAOImpl;
+import org.wso2.carbon.device.mgt.core.operation.mgt.util.ContinuationToken;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the SQL each vendor specific operation DAO generates for paginated listings, without needing the vendor's
+ * database. Statements are recorded instead of being executed, and each is checked for well formed ORDER BY lists,
+ * balanced parentheses and a bound value for every parameter.
+ */
+public class OperationDAOSqlTests extends BaseDeviceManagementTest {
+
+    private static final int ENROLMENT_ID = 1;
+    private static final Pattern ORDER_BY = Pattern.compile(
+            "ORDER\\s+BY\\s+(.+?)(?=\\s+LIMIT\\b|\\s+OFFSET\\b|\\)|;|$)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ORDER_BY_ITEM = Pattern.compile(
+            "[A-Za-z_]\\w*(\\.[A-Za-z_]\\w*)?(\\s+(ASC|DESC))?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LIMIT = Pattern.compile("\\bLIMIT\\b", Pattern.CASE_INSENSITIVE);
+
+    private final List<RecordedStatement> statements = new ArrayList<>();
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        OperationManagementDAOFactory.init(new RecordingDataSource());
+    }
+
+    @AfterClass
+    public void restoreDataSource() {
+        OperationManagementDAOFactory.init(this.getDataSource());
+    }
+
+    @Test
+    public void testGenericOperationDAO() throws Exception {
+        this.checkPaginatedQueries(new GenericOperationDAOImpl(), true);
+    }
+
+    @Test
+    public void testMySQLOperationDAO() throws Exception {
+        this.checkPaginatedQueries(new MySQLOperationDAOImpl(), true);
+    }
+
+    @Test
+    public void testPostgreSQLOperationDAO() throws Exception {
+        this.checkPaginatedQueries(new PostgreSQLOperationDAOImpl(), true);
+    }
+
+    @Test
+    public void testOracleOperationDAO() throws Exception {
+        this.checkPaginatedQueries(new OracleOperationDAOImpl(), false);
+    }
+
+    @Test
+    public void testSQLServerOperationDAO() throws Exception {
+        this.checkPaginatedQueries(new SQLServerOperationDAOImpl(), false);
+    }
+
+    private void checkPaginatedQueries(OperationDAO operationDAO, boolean limitSupported) throws Exception {
+        statements.clear();
+        try {
+            OperationManagementDAOFactory.openConnection();
+            operationDAO.getOperationsForDevice(ENROLMENT_ID, new PaginationRequest(0, 10));
+            operationDAO.getOperationsByDeviceAndStatus(ENROLMENT_ID, new PaginationRequest(0, 10),
+                                                        Operation.Status.PENDING);
+            operationDAO.getActivitiesUpdatedAfter(0, 10, 0);
+            operationDAO.getActivitiesUpdatedAfter(1000, 10, 0);
+            operationDAO.getOperationsForDevice(ENROLMENT_ID, null, 10);
+            operationDAO.getOperationsForDevice(ENROLMENT_ID, new ContinuationToken(1000, 1), 10);
+            operationDAO.getActivitiesUpdatedAfter(1000, null, 10);
+            operationDAO.getActivitiesUpdatedAfter(1000, new ContinuationToken(2000, 1), 10);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        String dao = operationDAO.getClass().getSimpleName();
+        Assert.assertFalse(statements.isEmpty(), dao + " did not prepare any statement.");
+        for (RecordedStatement statement : statements) {
+            String sql = statement.sql;
+            Assert.assertTrue(this.isBalanced(sql), dao + " generated unbalanced parentheses: " + sql);
+            Matcher orderBy = ORDER_BY.matcher(sql);
+            while (orderBy.find()) {
+                for (String item : orderBy.group(1).split(",")) {
+                    Assert.assertTrue(ORDER_BY_ITEM.matcher(item.trim()).matches(),
+                                      dao + " generated a malformed ORDER BY item '" + item.trim() + "': " + sql);
+                }
+            }
+            if (!limitSupported) {
+                Assert.assertFalse(LIMIT.matcher(sql).find(), dao + " generated a LIMIT clause: " + sql);
+            }
+            Set<Integer> expectedIndexes = new TreeSet<>();
+            for (int i = 1; i <= this.countParameters(sql); i++) {
+                expectedIndexes.add(i);
+            }
+            Assert.assertEquals(statement.parameterIndexes, expectedIndexes,
+                                dao + " did not bind every parameter of: " + sql);
+        }
+    }
+
+    private boolean isBalanced(String sql) {
+        int depth = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth < 0) {
+                return false;
+            }
+        }
+        return depth == 0;
+    }
+
+    private int countParameters(String sql) {
+        int count = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == double.class) {
+            return 0d;
+        } else if (type == float.class) {
+            return 0f;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(OperationDAOSqlTests.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static class RecordedStatement {
+
+        private final String sql;
+        private final Set<Integer> parameterIndexes = new TreeSet<>();
+
+        private RecordedStatement(String sql) {
+            this.sql = sql;
+        }
+
+    }
+
+    /**
+     * Hands out connections which record the statements prepared on them and answer every query with no rows.
+     */
+    private class RecordingDataSource implements DataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            final DatabaseMetaData metaData = proxy(DatabaseMetaData.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("getDatabaseProductName".equals(method.getName())) {
+                        return "H2";
+                    }
+                    return defaultValue(method.getReturnType());
+                }
+            });
+            return proxy(Connection.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("prepareStatement".equals(method.getName())) {
+                        RecordedStatement statement = new RecordedStatement((String) args[0]);
+                        statements.add(statement);
+                        return proxy(PreparedStatement.class, new StatementHandler(statement));
+                    } else if ("createStatement".equals(method.getName())) {
+                        return proxy(Statement.class, new StatementHandler(null));
+                    } else if ("getMetaData".equals(method.getName())) {
+                        return metaData;
+                    }
+                    return defaultValue(method.getReturnType());
+                }
+            });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return this.getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            throw new SQLException("Not a wrapper of " + iface.getName());
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return false;
+        }
+
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final RecordedStatement statement;
+
+        private StatementHandler(RecordedStatement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (statement != null && name.startsWith("set") && args != null && args.length >= 2 &&
+                    args[0] instanceof Integer) {
+                statement.parameterIndexes.add((Integer) args[0]);
+            } else if (ResultSet.class.equals(method.getReturnType())) {
+                return proxy(ResultSet.class, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return defaultValue(method.getReturnType());
+                    }
+                });
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+    }
+
+}
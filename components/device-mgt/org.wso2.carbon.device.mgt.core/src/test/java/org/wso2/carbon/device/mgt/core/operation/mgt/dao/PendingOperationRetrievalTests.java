@@ -0,0 +1,303 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.core.TestUtils;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.StatementCounter;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.PolicyOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ProfileOperation;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Verifies that the pending operations of a device are fetched, along with their payloads, using a single statement.
+ */
+public class PendingOperationRetrievalTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "PendingOperationTest";
+    private static final long MAPPING_UPDATED_TIMESTAMP = 1000;
+
+    private StatementCounter statementCounter;
+    private OperationDAO operationDAO;
+    private int enrolmentId;
+    private int commandOperationId;
+    private int profileOperationId;
+    private int policyOperationId;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        statementCounter = new StatementCounter();
+        DataSource countingDataSource = statementCounter.wrap(this.getDataSource());
+        DeviceManagementDAOFactory.init(countingDataSource);
+        OperationManagementDAOFactory.init(countingDataSource);
+        operationDAO = OperationManagementDAOFactory.getOperationDAO();
+
+        enrolmentId = this.addEnrolment();
+
+        CommandOperation commandOperation = new CommandOperation();
+        commandOperation.setCode("DEVICE_LOCK");
+        commandOperation.setEnabled(true);
+        commandOperationId = this.addOperation(OperationManagementDAOFactory.getCommandOperationDAO(),
+                                               commandOperation);
+
+        ProfileOperation profileOperation = new ProfileOperation();
+        profileOperation.setCode("WIFI");
+        profileOperation.setPayLoad("{\"ssid\":\"test\"}");
+        profileOperationId = this.addOperation(OperationManagementDAOFactory.getProfileOperationDAO(),
+                                               profileOperation);
+
+        PolicyOperation policyOperation = new PolicyOperation();
+        policyOperation.setType(Operation.Type.POLICY);
+        policyOperation.setCode("POLICY_BUNDLE");
+        policyOperation.setProfileOperations(Collections.singletonList(profileOperation));
+        policyOperationId = this.addOperation(OperationManagementDAOFactory.getPolicyOperationDAO(),
+                                              policyOperation);
+    }
+
+    @AfterClass
+    public void restoreDataSource() throws Exception {
+        this.initDataSource();
+    }
+
+    @Test
+    public void testPendingOperationsAreLoadedWithPayloads() throws Exception {
+        List<? extends Operation> operations;
+        try {
+            OperationManagementDAOFactory.openConnection();
+            statementCounter.reset();
+            operations = operationDAO.getPendingOperations(enrolmentId);
+            Assert.assertEquals(statementCounter.getCount(), 1, "Pending operations were not fetched by a single " +
+                    "statement");
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        Assert.assertEquals(operations.size(), 3);
+        Operation command = operations.get(0);
+        Assert.assertEquals(command.getId(), commandOperationId);
+        Assert.assertEquals(command.getType(), Operation.Type.COMMAND);
+        Assert.assertEquals(command.getCode(), "DEVICE_LOCK");
+        Assert.assertTrue(command.isEnabled());
+
+        Operation profile = operations.get(1);
+        Assert.assertEquals(profile.getId(), profileOperationId);
+        Assert.assertEquals(profile.getType(), Operation.Type.PROFILE);
+        Assert.assertEquals(profile.getPayLoad(), "{\"ssid\":\"test\"}");
+
+        Operation policy = operations.get(2);
+        Assert.assertEquals(policy.getId(), policyOperationId);
+        Assert.assertTrue(policy instanceof PolicyOperation);
+        Assert.assertEquals(((PolicyOperation) policy).getProfileOperations().size(), 1);
+
+        for (Operation operation : operations) {
+            Assert.assertEquals(operation.getStatus(), Operation.Status.PENDING);
+        }
+    }
+
+    @Test(dependsOnMethods = "testPendingOperationsAreLoadedWithPayloads")
+    public void testNextPendingOperation() throws Exception {
+        Operation operation;
+        try {
+            OperationManagementDAOFactory.openConnection();
+            operation = operationDAO.getNextPendingOperation(enrolmentId);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+        Assert.assertNotNull(operation);
+        Assert.assertEquals(operation.getId(), commandOperationId);
+        Assert.assertTrue(operation.isEnabled());
+    }
+
+    @Test(dependsOnMethods = "testNextPendingOperation")
+    public void testCommandOperationTimeStamps() throws Exception {
+        CommandOperation commandOperation = new CommandOperation();
+        commandOperation.setId(commandOperationId);
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            operationDAO.updateOperation(commandOperation);
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        this.updateMappingTimeStamp(commandOperationId, MAPPING_UPDATED_TIMESTAMP);
+        String receivedTimeStamp = this.getReceivedTimeStamp(commandOperationId);
+        Assert.assertNotNull(receivedTimeStamp);
+
+        List<? extends Operation> operations;
+        Operation nextOperation;
+        try {
+            OperationManagementDAOFactory.openConnection();
+            operations = operationDAO.getPendingOperations(enrolmentId);
+            nextOperation = operationDAO.getNextPendingOperation(enrolmentId);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(operations.get(0).getId(), commandOperationId);
+        Assert.assertEquals(operations.get(0).getReceivedTimeStamp(), receivedTimeStamp,
+                            "Pending command operation does not report when the operation was received");
+        Assert.assertEquals(nextOperation.getId(), commandOperationId);
+        Assert.assertEquals(nextOperation.getReceivedTimeStamp(),
+                            new Timestamp(MAPPING_UPDATED_TIMESTAMP * 1000).toString(),
+                            "Next pending command operation does not report when its mapping was updated");
+    }
+
+    @Test(dependsOnMethods = "testCommandOperationTimeStamps")
+    public void testCompletedOperationsAreExcluded() throws Exception {
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            operationDAO.updateOperationStatus(enrolmentId, commandOperationId, Operation.Status.COMPLETED);
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        List<? extends Operation> operations;
+        Operation nextOperation;
+        try {
+            OperationManagementDAOFactory.openConnection();
+            operations = operationDAO.getPendingOperations(enrolmentId);
+            nextOperation = operationDAO.getNextPendingOperation(enrolmentId);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(operations.size(), 2);
+        Assert.assertEquals(nextOperation.getId(), profileOperationId);
+    }
+
+    @Test(dependsOnMethods = "testCompletedOperationsAreExcluded")
+    public void testCommandOperationsWithoutCommandRowsAreSkipped() throws Exception {
+        CommandOperation commandOperation = new CommandOperation();
+        commandOperation.setCode("DEVICE_RING");
+        int operationId = this.addOperation(operationDAO, commandOperation);
+        this.updateCreatedTimeStamp(operationId, new Timestamp(0));
+
+        List<? extends Operation> operations;
+        Operation nextOperation;
+        try {
+            OperationManagementDAOFactory.openConnection();
+            operations = operationDAO.getPendingOperations(enrolmentId);
+            nextOperation = operationDAO.getNextPendingOperation(enrolmentId);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(operations.size(), 2);
+        Assert.assertNotNull(nextOperation, "Next pending operation was hidden by a command operation without " +
+                "its command row");
+        Assert.assertEquals(nextOperation.getId(), profileOperationId);
+    }
+
+    private void updateMappingTimeStamp(int operationId, long updatedTimeStamp) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("UPDATE DM_ENROLMENT_OP_MAPPING SET UPDATED_TIMESTAMP = ? " +
+                    "WHERE ENROLMENT_ID = ? AND OPERATION_ID = ?");
+            stmt.setLong(1, updatedTimeStamp);
+            stmt.setInt(2, enrolmentId);
+            stmt.setInt(3, operationId);
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+    private void updateCreatedTimeStamp(int operationId, Timestamp createdTimeStamp) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("UPDATE DM_OPERATION SET CREATED_TIMESTAMP = ? WHERE ID = ?");
+            stmt.setTimestamp(1, createdTimeStamp);
+            stmt.setInt(2, operationId);
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+    private String getReceivedTimeStamp(int operationId) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT RECEIVED_TIMESTAMP FROM DM_OPERATION WHERE ID = ?");
+            stmt.setInt(1, operationId);
+            rs = stmt.executeQuery();
+            return rs.next() ? rs.getString("RECEIVED_TIMESTAMP") : null;
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+    }
+
+    private int addEnrolment() throws Exception {
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+        device.setDeviceIdentifier("pending-operation-device");
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(DEVICE_TYPE),
+                                        TestDataHolder.SUPER_TENANT_ID, true);
+            int typeId = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TestDataHolder.SUPER_TENANT_ID).getId();
+            device.setId(deviceDAO.addDevice(typeId, device, TestDataHolder.SUPER_TENANT_ID));
+            int enrolmentId = deviceDAO.addEnrollment(device, TestDataHolder.SUPER_TENANT_ID);
+            DeviceManagementDAOFactory.commitTransaction();
+            return enrolmentId;
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private int addOperation(OperationDAO dao, Operation operation) throws Exception {
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            int operationId = dao.addOperation(operation);
+            OperationManagementDAOFactory.getOperationMappingDAO().addOperationMapping(
+                    operationId, Collections.singletonList(enrolmentId));
+            OperationManagementDAOFactory.commitTransaction();
+            return operationId;
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+    }
+
+}
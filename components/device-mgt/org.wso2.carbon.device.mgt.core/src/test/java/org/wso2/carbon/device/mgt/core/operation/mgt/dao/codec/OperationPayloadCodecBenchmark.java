@@ -0,0 +1,120 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec;
+
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.PolicyOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ProfileOperation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the payload size and the encode/decode throughput of the compact codec against Java serialization.
+ * This is not part of the test suite; run it on demand with the test classpath, e.g.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec.OperationPayloadCodecBenchmark
+ * </pre>
+ */
+public class OperationPayloadCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final int OPERATIONS_PER_ITERATION = 10000;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        OperationPayloadCodec legacyCodec = new JavaSerializationPayloadCodec();
+        OperationPayloadCodec compactCodec = new CompactOperationPayloadCodec();
+
+        Map<String, Operation> operations = new HashMap<>();
+        CommandOperation commandOperation = new CommandOperation();
+        commandOperation.setCode("DEVICE_LOCK");
+        commandOperation.setEnabled(true);
+        operations.put("command", commandOperation);
+        operations.put("profile", createProfileOperation("WIFI"));
+        PolicyOperation policyOperation = new PolicyOperation();
+        policyOperation.setCode("POLICY_BUNDLE");
+        List<ProfileOperation> profileOperations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            profileOperations.add(createProfileOperation("PROFILE_" + i));
+        }
+        policyOperation.setProfileOperations(profileOperations);
+        operations.put("policy", policyOperation);
+
+        System.out.println(String.format("%-10s %-8s %10s %15s %15s", "operation", "codec", "bytes", "encode ns/op",
+                                         "decode ns/op"));
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            run(entry.getKey(), "java", legacyCodec, entry.getValue());
+            run(entry.getKey(), "compact", compactCodec, entry.getValue());
+        }
+    }
+
+    private static void run(String name, String codecName, OperationPayloadCodec codec, Operation operation)
+            throws OperationPayloadCodecException {
+        byte[] payload = codec.encodeOperation(operation);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            encode(codec, operation);
+            decode(codec, payload);
+        }
+        long encodeTime = 0;
+        long decodeTime = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            encodeTime += encode(codec, operation);
+            decodeTime += decode(codec, payload);
+        }
+        long operationCount = (long) MEASUREMENT_ITERATIONS * OPERATIONS_PER_ITERATION;
+        System.out.println(String.format("%-10s %-8s %10d %15d %15d", name, codecName, payload.length,
+                                         encodeTime / operationCount, decodeTime / operationCount));
+    }
+
+    private static long encode(OperationPayloadCodec codec, Operation operation)
+            throws OperationPayloadCodecException {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS_PER_ITERATION; i++) {
+            sink = codec.encodeOperation(operation);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long decode(OperationPayloadCodec codec, byte[] payload) throws OperationPayloadCodecException {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS_PER_ITERATION; i++) {
+            sink = codec.decodeOperation(payload);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static ProfileOperation createProfileOperation(String code) {
+        // Configuration properties are not set as they cannot be written through Java serialization.
+        ProfileOperation operation = new ProfileOperation();
+        operation.setCode(code);
+        operation.setStatus(Operation.Status.PENDING);
+        operation.setCreatedTimeStamp("2016-08-10 10:15:30.0");
+        operation.setEnabled(true);
+        operation.setPayLoad("{\"ssid\":\"corporate\",\"encryptionType\":\"WPA\",\"password\":\"secret\"}");
+        return operation;
+    }
+
+}
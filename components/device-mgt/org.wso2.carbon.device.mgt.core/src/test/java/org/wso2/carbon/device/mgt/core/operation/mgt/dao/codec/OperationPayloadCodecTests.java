@@ -0,0 +1,265 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao.codec;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ConfigOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.PolicyOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ProfileOperation;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public class OperationPayloadCodecTests {
+
+    private final OperationPayloadCodec codec = new CompactOperationPayloadCodec();
+    private final OperationPayloadCodec legacyCodec = new JavaSerializationPayloadCodec();
+
+    @Test
+    public void testOperationRoundTrip() throws Exception {
+        Operation operation = new Operation();
+        this.populate(operation, Operation.Type.INFO, "DEVICE_INFO");
+        operation.setControl(Operation.Control.PAUSE_SEQUENCE);
+
+        Operation decoded = codec.decodeOperation(codec.encodeOperation(operation));
+        Assert.assertEquals(decoded.getClass(), Operation.class);
+        this.assertOperationEquals(decoded, operation);
+    }
+
+    @Test
+    public void testCommandOperationRoundTrip() throws Exception {
+        CommandOperation operation = new CommandOperation();
+        this.populate(operation, Operation.Type.COMMAND, "DEVICE_LOCK");
+        operation.setEnabled(false);
+
+        Operation decoded = codec.decodeOperation(codec.encodeOperation(operation));
+        Assert.assertEquals(decoded.getClass(), CommandOperation.class);
+        Assert.assertFalse(decoded.isEnabled());
+        this.assertOperationEquals(decoded, operation);
+    }
+
+    @Test
+    public void testConfigOperationRoundTrip() throws Exception {
+        ConfigOperation operation = new ConfigOperation();
+        this.populate(operation, Operation.Type.CONFIG, "PASSCODE_POLICY");
+        operation.addConfigProperty("maxFailedAttempts", 5, int.class);
+        operation.addConfigProperty("allowSimple", Boolean.TRUE, Boolean.class);
+        operation.addConfigProperty("message", null, String.class);
+
+        Operation decoded = codec.decodeOperation(codec.encodeOperation(operation));
+        Assert.assertEquals(decoded.getClass(), ConfigOperation.class);
+        this.assertOperationEquals(decoded, operation);
+        this.assertConfigPropertiesEqual((ConfigOperation) decoded, operation);
+    }
+
+    @Test
+    public void testProfileOperationRoundTrip() throws Exception {
+        ProfileOperation operation = this.createProfileOperation("WIFI");
+
+        Operation decoded = codec.decodeOperation(codec.encodeOperation(operation));
+        Assert.assertEquals(decoded.getClass(), ProfileOperation.class);
+        Assert.assertEquals(decoded.getType(), Operation.Type.PROFILE);
+        this.assertOperationEquals(decoded, operation);
+        this.assertConfigPropertiesEqual((ConfigOperation) decoded, operation);
+    }
+
+    @Test
+    public void testPolicyOperationRoundTrip() throws Exception {
+        PolicyOperation operation = new PolicyOperation();
+        this.populate(operation, Operation.Type.POLICY, "POLICY_BUNDLE");
+        List<ProfileOperation> profileOperations = new ArrayList<>();
+        profileOperations.add(this.createProfileOperation("WIFI"));
+        profileOperations.add(this.createProfileOperation("CAMERA"));
+        operation.setProfileOperations(profileOperations);
+
+        Operation decoded = codec.decodeOperation(codec.encodeOperation(operation));
+        Assert.assertEquals(decoded.getClass(), PolicyOperation.class);
+        this.assertOperationEquals(decoded, operation);
+        List<ProfileOperation> decodedProfileOperations = ((PolicyOperation) decoded).getProfileOperations();
+        Assert.assertEquals(decodedProfileOperations.size(), profileOperations.size());
+        for (int i = 0; i < profileOperations.size(); i++) {
+            this.assertOperationEquals(decodedProfileOperations.get(i), profileOperations.get(i));
+            this.assertConfigPropertiesEqual(decodedProfileOperations.get(i), profileOperations.get(i));
+        }
+    }
+
+    @Test
+    public void testPolicyOperationWithoutProfilesRoundTrip() throws Exception {
+        PolicyOperation operation = new PolicyOperation();
+        operation.setCode("POLICY_BUNDLE");
+
+        PolicyOperation decoded = (PolicyOperation) codec.decodeOperation(codec.encodeOperation(operation));
+        Assert.assertNull(decoded.getProfileOperations());
+        Assert.assertNull(decoded.getProperties());
+        Assert.assertNull(decoded.getPayLoad());
+    }
+
+    @Test
+    public void testUnknownValuesAreEmbedded() throws Exception {
+        Operation operation = new Operation();
+        operation.setCode("CUSTOM");
+        Date date = new Date();
+        operation.setPayLoad(date);
+        operation.setOperationResponse(Arrays.asList("a", "b"));
+
+        Operation decoded = codec.decodeOperation(codec.encodeOperation(operation));
+        Assert.assertEquals(decoded.getPayLoad(), date);
+        Assert.assertEquals(decoded.getOperationResponse(), Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void testLegacyOperationIsDecoded() throws Exception {
+        ProfileOperation operation = new ProfileOperation();
+        this.populate(operation, Operation.Type.PROFILE, "WIFI");
+
+        byte[] legacyPayload = legacyCodec.encodeOperation(operation);
+        Operation decoded = codec.decodeOperation(legacyPayload);
+        Assert.assertEquals(decoded.getClass(), ProfileOperation.class);
+        this.assertOperationEquals(decoded, operation);
+    }
+
+    @Test
+    public void testResponseRoundTrip() throws Exception {
+        String response = "{\"battery\":\"87\",\"imei\":\"356938035643809\"}";
+        Assert.assertEquals(codec.decodeResponse(codec.encodeResponse(response)), response);
+        Assert.assertEquals(codec.decodeResponse(legacyCodec.encodeResponse(response)), response);
+        Assert.assertNull(codec.decodeResponse(codec.encodeResponse(null)));
+        Assert.assertNull(codec.decodeResponse(null));
+    }
+
+    @Test
+    public void testLargeStringRoundTrip() throws Exception {
+        StringBuilder response = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            response.append((char) ('a' + (i % 26)));
+        }
+        Assert.assertEquals(codec.decodeResponse(codec.encodeResponse(response.toString())), response.toString());
+    }
+
+    @Test
+    public void testCompactPayloadIsSmaller() throws Exception {
+        // Configuration properties are left out as they cannot be written through Java serialization.
+        ProfileOperation operation = new ProfileOperation();
+        this.populate(operation, Operation.Type.PROFILE, "WIFI");
+        Assert.assertTrue(codec.encodeOperation(operation).length < legacyCodec.encodeOperation(operation).length);
+    }
+
+    @Test(expectedExceptions = OperationPayloadCodecException.class)
+    public void testTruncatedPayloadIsRejected() throws Exception {
+        byte[] payload = codec.encodeOperation(this.createProfileOperation("WIFI"));
+        codec.decodeOperation(Arrays.copyOf(payload, payload.length / 2));
+    }
+
+    @Test(expectedExceptions = OperationPayloadCodecException.class)
+    public void testUnknownFormatIsRejected() throws Exception {
+        codec.decodeOperation(new byte[]{'X', 'Y', 1, 0});
+    }
+
+    @Test
+    public void testConfiguredCodecIsUsed() throws Exception {
+        try {
+            OperationManagementDAOFactory.initOperationPayloadCodec(JavaSerializationPayloadCodec.class.getName());
+            Assert.assertEquals(OperationManagementDAOFactory.getOperationPayloadCodec().getClass(),
+                                JavaSerializationPayloadCodec.class);
+        } finally {
+            OperationManagementDAOFactory.initOperationPayloadCodec(null);
+        }
+        Assert.assertEquals(OperationManagementDAOFactory.getOperationPayloadCodec().getClass(),
+                            CompactOperationPayloadCodec.class);
+    }
+
+    @Test
+    public void testInvalidCodecFallsBackToDefault() throws Exception {
+        try {
+            OperationManagementDAOFactory.initOperationPayloadCodec(String.class.getName());
+            Assert.assertEquals(OperationManagementDAOFactory.getOperationPayloadCodec().getClass(),
+                                CompactOperationPayloadCodec.class);
+            OperationManagementDAOFactory.initOperationPayloadCodec("org.wso2.carbon.NonExistentCodec");
+            Assert.assertEquals(OperationManagementDAOFactory.getOperationPayloadCodec().getClass(),
+                                CompactOperationPayloadCodec.class);
+        } finally {
+            OperationManagementDAOFactory.initOperationPayloadCodec(null);
+        }
+    }
+
+    private ProfileOperation createProfileOperation(String code) {
+        ProfileOperation operation = new ProfileOperation();
+        this.populate(operation, Operation.Type.PROFILE, code);
+        operation.addConfigProperty("ssid", "corporate", String.class);
+        operation.addConfigProperty("hidden", false, boolean.class);
+        return operation;
+    }
+
+    private void populate(Operation operation, Operation.Type type, String code) {
+        operation.setId(42);
+        operation.setCode(code);
+        operation.setType(type);
+        operation.setStatus(Operation.Status.PENDING);
+        operation.setCreatedTimeStamp("2016-08-10 10:15:30.0");
+        operation.setReceivedTimeStamp("2016-08-10 10:16:30.0");
+        operation.setActivityId("ACTIVITY_42");
+        operation.setEnabled(true);
+        Properties properties = new Properties();
+        properties.setProperty("locale", "en_US");
+        operation.setProperties(properties);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("ssid", "corporate");
+        payload.put("channel", 11);
+        payload.put("frequency", 2.4d);
+        payload.put("timeout", 3600000L);
+        operation.setPayLoad(payload);
+        operation.setOperationResponse("OK");
+    }
+
+    private void assertOperationEquals(Operation actual, Operation expected) {
+        Assert.assertEquals(actual.getId(), expected.getId());
+        Assert.assertEquals(actual.getCode(), expected.getCode());
+        Assert.assertEquals(actual.getType(), expected.getType());
+        Assert.assertEquals(actual.getStatus(), expected.getStatus());
+        Assert.assertEquals(actual.getControl(), expected.getControl());
+        Assert.assertEquals(actual.getCreatedTimeStamp(), expected.getCreatedTimeStamp());
+        Assert.assertEquals(actual.getReceivedTimeStamp(), expected.getReceivedTimeStamp());
+        Assert.assertEquals(actual.getActivityId(), expected.getActivityId());
+        Assert.assertEquals(actual.isEnabled(), expected.isEnabled());
+        Assert.assertEquals(actual.getProperties(), expected.getProperties());
+        Assert.assertEquals(actual.getPayLoad(), expected.getPayLoad());
+        Assert.assertEquals(actual.getOperationResponse(), expected.getOperationResponse());
+    }
+
+    private void assertConfigPropertiesEqual(ConfigOperation actual, ConfigOperation expected) {
+        Assert.assertEquals(actual.getConfigProperties().size(), expected.getConfigProperties().size());
+        for (int i = 0; i < expected.getConfigProperties().size(); i++) {
+            ConfigOperation.Property actualProperty = actual.getConfigProperties().get(i);
+            ConfigOperation.Property expectedProperty = expected.getConfigProperties().get(i);
+            Assert.assertEquals(actualProperty.getName(), expectedProperty.getName());
+            Assert.assertEquals(actualProperty.getValue(), expectedProperty.getValue());
+            Assert.assertEquals(actualProperty.getType(), expectedProperty.getType());
+        }
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.push.notification.mgt;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.push.notification.NotificationContext;
+import org.wso2.carbon.device.mgt.common.push.notification.NotificationStrategy;
+import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PushNotificationDispatcherTest extends BaseDeviceManagementTest {
+
+    private static final long PROVIDER_LATENCY = 200;
+    private static final int OTHER_TENANT_ID = 1;
+    private static final String OTHER_TENANT_DOMAIN = "other.tenant.com";
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+    }
+
+    @Test
+    public void testDispatchDoesNotWaitForProvider() throws Exception {
+        LatencyInjectingNotificationStrategy strategy = new LatencyInjectingNotificationStrategy(PROVIDER_LATENCY, 0);
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(strategy, "latency", 4, 100, 0, 10);
+        int notificationCount = 20;
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < notificationCount; i++) {
+            Assert.assertTrue(dispatcher.dispatch(this.createContext("device-" + i)));
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        Assert.assertTrue(elapsed < PROVIDER_LATENCY, "Dispatching took " + elapsed + "ms, which indicates that " +
+                "the caller waited on the push notification provider");
+
+        this.drain(dispatcher);
+        Assert.assertEquals(strategy.getExecutionCount(), notificationCount);
+        Assert.assertEquals(dispatcher.getDeliveredCount(), notificationCount);
+        Assert.assertEquals(dispatcher.getDroppedCount(), 0);
+        Assert.assertEquals(strategy.getTenantDomain(), MultitenantConstants.SUPER_TENANT_DOMAIN_NAME,
+                            "Tenant of the caller was not propagated to the dispatcher");
+    }
+
+    @Test
+    public void testNotificationsAreDroppedWhenQueueIsFull() throws Exception {
+        LatencyInjectingNotificationStrategy strategy = new LatencyInjectingNotificationStrategy(PROVIDER_LATENCY, 0);
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(strategy, "overflow", 1, 5, 0, 10);
+        int notificationCount = 50;
+
+        long start = System.currentTimeMillis();
+        int accepted = 0;
+        for (int i = 0; i < notificationCount; i++) {
+            if (dispatcher.dispatch(this.createContext("device-" + i))) {
+                accepted++;
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        Assert.assertTrue(elapsed < PROVIDER_LATENCY, "Dispatching blocked for " + elapsed + "ms on a full queue");
+
+        this.drain(dispatcher);
+        Assert.assertTrue(dispatcher.getDroppedCount() > 0, "No notification was dropped on a full queue");
+        Assert.assertEquals(dispatcher.getAcceptedCount() + dispatcher.getDroppedCount(), notificationCount);
+        Assert.assertEquals(dispatcher.getAcceptedCount(), accepted);
+        Assert.assertEquals(strategy.getExecutionCount(), accepted);
+    }
+
+    @Test
+    public void testFailedNotificationsAreRetried() throws Exception {
+        LatencyInjectingNotificationStrategy strategy = new LatencyInjectingNotificationStrategy(0, 2);
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(strategy, "retry", 2, 10, 2, 10);
+        dispatcher.dispatch(this.createContext("device-retry"));
+
+        this.drain(dispatcher);
+        Assert.assertEquals(dispatcher.getDeliveredCount(), 1);
+        Assert.assertEquals(dispatcher.getRetriedCount(), 2);
+        Assert.assertEquals(dispatcher.getFailedCount(), 0);
+    }
+
+    @Test
+    public void testNotificationIsAbandonedAfterMaxRetries() throws Exception {
+        LatencyInjectingNotificationStrategy strategy = new LatencyInjectingNotificationStrategy(0, 5);
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(strategy, "failure", 2, 10, 1, 10);
+        dispatcher.dispatch(this.createContext("device-failure"));
+
+        this.drain(dispatcher);
+        Assert.assertEquals(strategy.getExecutionCount(), 2);
+        Assert.assertEquals(dispatcher.getDeliveredCount(), 0);
+        Assert.assertEquals(dispatcher.getFailedCount(), 1);
+    }
+
+    @Test
+    public void testTenantsAreQueuedSeparately() throws Exception {
+        LatencyInjectingNotificationStrategy strategy = new LatencyInjectingNotificationStrategy(PROVIDER_LATENCY, 0);
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(strategy, "tenants", 1, 5, 0, 10);
+        for (int i = 0; i < 50; i++) {
+            dispatcher.dispatch(this.createContext("device-" + i));
+        }
+        Assert.assertTrue(dispatcher.getDroppedCount() > 0, "No notification was dropped on a full queue");
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantId(OTHER_TENANT_ID);
+            carbonContext.setTenantDomain(OTHER_TENANT_DOMAIN);
+            Assert.assertTrue(dispatcher.dispatch(this.createContext("device-other-tenant")),
+                              "Notification was dropped as the queue of another tenant is full");
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        this.drain(dispatcher);
+        Assert.assertTrue(strategy.getTenantDomains().contains(OTHER_TENANT_DOMAIN),
+                          "Notification was not delivered in its tenant");
+    }
+
+    @Test
+    public void testRetryDoesNotHoldWorker() throws Exception {
+        LatencyInjectingNotificationStrategy strategy = new LatencyInjectingNotificationStrategy(0, 1);
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(strategy, "backoff", 1, 10, 1,
+                                                                               PROVIDER_LATENCY * 5);
+        dispatcher.dispatch(this.createContext("device-backoff"));
+        dispatcher.dispatch(this.createContext("device-waiting"));
+
+        long start = System.currentTimeMillis();
+        while (strategy.getExecutionCount() < 2 && System.currentTimeMillis() - start < PROVIDER_LATENCY * 5) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(strategy.getExecutionCount(), 2, "Notification waited for another to be retried");
+        this.drain(dispatcher);
+        Assert.assertEquals(dispatcher.getDeliveredCount(), 2);
+        Assert.assertEquals(dispatcher.getRetriedCount(), 2);
+    }
+
+    @Test
+    public void testNotificationsAreDroppedAfterShutdown() throws Exception {
+        LatencyInjectingNotificationStrategy strategy = new LatencyInjectingNotificationStrategy(0, 0);
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(strategy, "shutdown", 1, 10, 0, 10);
+        dispatcher.dispatch(this.createContext("device-before-shutdown"));
+        this.drain(dispatcher);
+
+        Assert.assertFalse(dispatcher.dispatch(this.createContext("device-after-shutdown")));
+        Assert.assertEquals(strategy.getExecutionCount(), 1);
+        Assert.assertEquals(dispatcher.getDroppedCount(), 1);
+    }
+
+    private NotificationContext createContext(String deviceId) {
+        return new NotificationContext(new DeviceIdentifier(deviceId, TestDataHolder.TEST_DEVICE_TYPE));
+    }
+
+    private void drain(PushNotificationDispatcher dispatcher) throws InterruptedException {
+        dispatcher.shutdown();
+        Assert.assertTrue(dispatcher.awaitTermination(30, TimeUnit.SECONDS), "Notifications were not drained");
+    }
+
+    /**
+     * Stands in for a slow or flaky push notification provider.
+     */
+    private static class LatencyInjectingNotificationStrategy implements NotificationStrategy {
+
+        private final long latency;
+        private final int failuresPerDevice;
+        private final AtomicInteger executionCount = new AtomicInteger();
+        private final ConcurrentMap<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+        private volatile String tenantDomain;
+        private final Set<String> tenantDomains = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        LatencyInjectingNotificationStrategy(long latency, int failuresPerDevice) {
+            this.latency = latency;
+            this.failuresPerDevice = failuresPerDevice;
+        }
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public void execute(NotificationContext ctx) throws PushNotificationExecutionFailedException {
+            executionCount.incrementAndGet();
+            tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+            tenantDomains.add(tenantDomain);
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String deviceId = ctx.getDeviceId().getId();
+            failures.putIfAbsent(deviceId, new AtomicInteger());
+            AtomicInteger deviceFailures = failures.get(deviceId);
+            if (deviceFailures.incrementAndGet() <= failuresPerDevice) {
+                throw new PushNotificationExecutionFailedException("Simulated failure of device '" + deviceId + "'");
+            }
+        }
+
+        @Override
+        public NotificationContext buildContext() {
+            return null;
+        }
+
+        int getExecutionCount() {
+            return executionCount.get();
+        }
+
+        String getTenantDomain() {
+            return tenantDomain;
+        }
+
+        Set<String> getTenantDomains() {
+            return tenantDomains;
+        }
+
+    }
+
+}
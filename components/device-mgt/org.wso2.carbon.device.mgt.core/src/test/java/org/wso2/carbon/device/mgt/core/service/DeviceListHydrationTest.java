@@ -0,0 +1,156 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.service;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceFacet;
+import org.wso2.carbon.device.mgt.common.app.mgt.Application;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.StatementCounter;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
+import org.wso2.carbon.device.mgt.core.search.util.Utils;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Verifies that listing devices populates their details using a constant number of statements, no matter how many
+ * devices are listed, and that only the requested facets are populated.
+ */
+public class DeviceListHydrationTest extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "DeviceListHydrationTest";
+    private static final int DEVICE_COUNT = 25;
+    private static final int APPLICATION_COUNT = 2;
+
+    private StatementCounter statementCounter;
+    private DeviceManagementProviderService providerService;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        statementCounter = new StatementCounter();
+        DeviceManagementDAOFactory.init(statementCounter.wrap(this.getDataSource()));
+        providerService = new DeviceManagementProviderServiceImpl();
+        this.addDevices();
+    }
+
+    @AfterClass
+    public void restoreDataSource() throws Exception {
+        this.initDataSource();
+    }
+
+    @Test
+    public void testDevicesAreHydratedInConstantStatements() throws Exception {
+        statementCounter.reset();
+        List<Device> devices = providerService.getAllDevices(DEVICE_TYPE,
+                EnumSet.of(DeviceFacet.INFO, DeviceFacet.APPLICATIONS));
+        // One statement lists the devices, two fetch their information and locations and one their applications.
+        Assert.assertEquals(statementCounter.getCount(), 4, "Device details were not fetched in bulk");
+
+        Assert.assertEquals(devices.size(), DEVICE_COUNT);
+        for (Device device : devices) {
+            int index = Integer.parseInt(device.getDeviceIdentifier().substring(DEVICE_TYPE.length()));
+            DeviceInfo info = device.getDeviceInfo();
+            if (index % 2 == 0) {
+                Assert.assertNotNull(info, "Information of device " + index + " is missing");
+                Assert.assertEquals(info.getDeviceModel(), "model-" + index);
+                Assert.assertNotNull(info.getLocation());
+                Assert.assertEquals(info.getLocation().getDeviceId(), device.getId());
+                if (index % 4 == 0) {
+                    Assert.assertEquals(info.getLocation().getCity(), "city-" + index);
+                } else {
+                    Assert.assertNull(info.getLocation().getCity());
+                }
+            } else {
+                Assert.assertNull(info, "Device " + index + " did not report any information");
+            }
+            Assert.assertEquals(device.getApplications().size(), APPLICATION_COUNT);
+        }
+    }
+
+    @Test
+    public void testUnrequestedFacetsAreSkipped() throws Exception {
+        statementCounter.reset();
+        List<Device> devices = providerService.getAllDevices(DEVICE_TYPE, EnumSet.noneOf(DeviceFacet.class));
+        Assert.assertEquals(statementCounter.getCount(), 1, "Unrequested device details were fetched");
+
+        Assert.assertEquals(devices.size(), DEVICE_COUNT);
+        for (Device device : devices) {
+            Assert.assertNull(device.getDeviceInfo());
+            Assert.assertNull(device.getApplications());
+        }
+    }
+
+    private void addDevices() throws Exception {
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        DeviceDetailsDAO deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(DEVICE_TYPE),
+                                        TestDataHolder.SUPER_TENANT_ID, true);
+            int typeId = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TestDataHolder.SUPER_TENANT_ID).getId();
+
+            List<Application> applications = new ArrayList<>();
+            for (int i = 0; i < APPLICATION_COUNT; i++) {
+                applications.add(TestDataHolder.generateApplicationDummyData(DEVICE_TYPE + "-app-" + i));
+            }
+            List<Integer> applicationIds = DeviceManagementDAOFactory.getApplicationDAO().addApplications(
+                    applications, TestDataHolder.SUPER_TENANT_ID);
+
+            for (int i = 0; i < DEVICE_COUNT; i++) {
+                Device device = TestDataHolder.generateDummyDeviceData(DEVICE_TYPE);
+                device.setDeviceIdentifier(DEVICE_TYPE + i);
+                int deviceId = deviceDAO.addDevice(typeId, device, TestDataHolder.SUPER_TENANT_ID);
+                device.setId(deviceId);
+                deviceDAO.addEnrollment(device, TestDataHolder.SUPER_TENANT_ID);
+                DeviceManagementDAOFactory.getApplicationMappingDAO().addApplicationMappings(
+                        deviceId, applicationIds, TestDataHolder.SUPER_TENANT_ID);
+                if (i % 2 == 0) {
+                    DeviceInfo info = Utils.getDeviceInfo();
+                    info.setDeviceModel("model-" + i);
+                    deviceDetailsDAO.addDeviceInformation(deviceId, info);
+                }
+                if (i % 4 == 0) {
+                    DeviceLocation location = Utils.getSampleDeviceLocation();
+                    location.setDeviceId(deviceId);
+                    location.setCity("city-" + i);
+                    deviceDetailsDAO.addDeviceLocation(location);
+                }
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+}
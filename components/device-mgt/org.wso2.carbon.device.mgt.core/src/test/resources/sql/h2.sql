@@ -112,6 +112,8 @@ CREATE TABLE IF NOT EXISTS DM_ENROLMENT_OP_MAPPING (
     ENROLMENT_ID INTEGER NOT NULL,
     OPERATION_ID INTEGER NOT NULL,
     STATUS VARCHAR(50) NULL,
+    CREATED_TIMESTAMP INT NOT NULL,
+    UPDATED_TIMESTAMP INT NOT NULL,
     PRIMARY KEY (ID),
     CONSTRAINT fk_dm_device_operation_mapping_device FOREIGN KEY (ENROLMENT_ID) REFERENCES
     DM_ENROLMENT (ID) ON DELETE NO ACTION ON UPDATE NO ACTION,
@@ -124,6 +126,7 @@ CREATE TABLE IF NOT EXISTS DM_DEVICE_OPERATION_RESPONSE (
     ENROLMENT_ID INTEGER NOT NULL,
     OPERATION_ID INTEGER NOT NULL,
     OPERATION_RESPONSE LONGBLOB DEFAULT NULL,
+    RECEIVED_TIMESTAMP TIMESTAMP NULL,
     PRIMARY KEY (ID),
     CONSTRAINT fk_dm_device_operation_response_enrollment FOREIGN KEY (ENROLMENT_ID) REFERENCES
     DM_ENROLMENT (ID) ON DELETE NO ACTION ON UPDATE NO ACTION,
@@ -348,6 +351,14 @@ CREATE TABLE IF NOT EXISTS DM_POLICY_CHANGE_MGT (
 );
 
 
+CREATE TABLE IF NOT EXISTS DM_POLICY_DELEGATION_CHECKPOINT (
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  TENANT_ID INT(11) NOT NULL,
+  LAST_DEVICE_ID INT NOT NULL,
+  PRIMARY KEY (DEVICE_TYPE, TENANT_ID)
+);
+
+
 CREATE TABLE IF NOT EXISTS DM_POLICY_COMPLIANCE_FEATURES (
   ID INT NOT NULL AUTO_INCREMENT,
   COMPLIANCE_STATUS_ID INT NOT NULL,
@@ -32,6 +32,11 @@ public class PolicyInformationServiceImpl implements PolicyInformationPoint {
         return null;
     }
 
+    @Override
+    public List<PIPDevice> getDeviceData(List<DeviceIdentifier> deviceIdentifiers) {
+        return null;
+    }
+
     @Override
     public List<Policy> getRelatedPolicies(PIPDevice pipDevice) {
         return null;
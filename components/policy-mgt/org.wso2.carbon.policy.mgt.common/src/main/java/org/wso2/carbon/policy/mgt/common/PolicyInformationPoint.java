@@ -37,6 +37,14 @@ public interface PolicyInformationPoint {
      */
     PIPDevice getDeviceData(DeviceIdentifier deviceIdentifier) throws PolicyManagementException;
 
+    /**
+     * This method will return the data related to each of the given devices, as getDeviceData does for a single
+     * device, but fetching the devices and the memberships of their owners together instead of once per device.
+     * @param deviceIdentifiers identifiers of the devices.
+     * @return PIPDevices of the devices which were found, in the order of the given identifiers.
+     */
+    List<PIPDevice> getDeviceData(List<DeviceIdentifier> deviceIdentifiers) throws PolicyManagementException;
+
     /**
      * This method will retrieve the policies related given device Data.
      * @param pipDevice
@@ -53,6 +53,14 @@ public interface PolicyManagerService {
 
     List<ProfileFeature> getEffectiveFeatures(DeviceIdentifier deviceIdentifier) throws FeatureManagementException;
 
+    /**
+     * Verifies the stored effective policies of the devices of the tenant against a live evaluation of their
+     * effective policies, and drops the stored policies which differ.
+     * @return identifiers of the devices whose stored effective policies differed from their evaluated policies.
+     * @throws PolicyManagementException
+     */
+    List<DeviceIdentifier> checkEffectivePolicies() throws PolicyManagementException;
+
     List<Policy> getPolicies(String deviceType) throws PolicyManagementException;
 
     List<Feature> getFeatures() throws FeatureManagementException;
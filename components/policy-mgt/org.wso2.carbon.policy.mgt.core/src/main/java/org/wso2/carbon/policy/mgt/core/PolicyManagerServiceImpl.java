@@ -20,6 +20,7 @@ package org.wso2.carbon.policy.mgt.core;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.Feature;
 import org.wso2.carbon.device.mgt.common.InvalidDeviceException;
@@ -28,6 +29,9 @@ import org.wso2.carbon.policy.mgt.common.*;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceData;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceFeature;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyComplianceException;
+import org.wso2.carbon.policy.mgt.core.cache.impl.EffectivePolicyConsistencyChecker;
+import org.wso2.carbon.policy.mgt.core.cache.impl.EffectivePolicyStore;
+import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
 import org.wso2.carbon.policy.mgt.core.impl.PolicyAdministratorPointImpl;
 import org.wso2.carbon.policy.mgt.core.impl.PolicyInformationPointImpl;
 import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
@@ -49,8 +53,17 @@ public class PolicyManagerServiceImpl implements PolicyManagerService {
     PolicyAdministratorPoint policyAdministratorPoint;
     MonitoringManager monitoringManager;
     private PolicyManager policyManager;
+    private EffectivePolicyStore effectivePolicyStore;
 
     public PolicyManagerServiceImpl() {
+        this(null);
+    }
+
+    /**
+     * @param effectivePolicyStore store of the effective policies, or null to use the configured store.
+     */
+    PolicyManagerServiceImpl(EffectivePolicyStore effectivePolicyStore) {
+        this.effectivePolicyStore = effectivePolicyStore;
         policyAdministratorPoint = new PolicyAdministratorPointImpl();
         monitoringManager = new MonitoringManagerImpl();
         policyManager = new PolicyManagerImpl();
@@ -91,8 +104,7 @@ public class PolicyManagerServiceImpl implements PolicyManagerService {
     @Override
     public Policy getEffectivePolicy(DeviceIdentifier deviceIdentifier) throws PolicyManagementException {
         try {
-            Policy policy = PolicyManagementDataHolder.getInstance().getPolicyEvaluationPoint().
-                    getEffectivePolicy(deviceIdentifier);
+            Policy policy = this.getStoredOrEvaluatedPolicy(deviceIdentifier);
 
             if (policy == null) {
                 return null;
@@ -139,6 +151,43 @@ public class PolicyManagerServiceImpl implements PolicyManagerService {
         }
     }
 
+    @Override
+    public List<DeviceIdentifier> checkEffectivePolicies() throws PolicyManagementException {
+        return new EffectivePolicyConsistencyChecker(getEffectivePolicyStore()).check();
+    }
+
+    private EffectivePolicyStore getEffectivePolicyStore() {
+        return (effectivePolicyStore != null) ? effectivePolicyStore : EffectivePolicyStore.getInstance();
+    }
+
+    /**
+     * Looks up the effective policy of the device in the effective policy store, and evaluates it only if it is not
+     * stored, or an input of it changed since it was. A stored policy is recorded as the policy used by the device,
+     * as the PEP does for an evaluated one, since the operation of the policy is added to the device again.
+     */
+    private Policy getStoredOrEvaluatedPolicy(DeviceIdentifier deviceIdentifier)
+            throws PolicyManagementException, PolicyEvaluationException {
+        PolicyEvaluationPoint policyEvaluationPoint =
+                PolicyManagementDataHolder.getInstance().getPolicyEvaluationPoint();
+        EffectivePolicyStore store = getEffectivePolicyStore();
+        if (!store.isEnabled()) {
+            return policyEvaluationPoint.getEffectivePolicy(deviceIdentifier);
+        }
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        EffectivePolicyStore.StoredPolicy storedPolicy =
+                store.get(tenantId, deviceIdentifier, PolicyCacheManagerImpl.getInstance().getPolicyMatcher());
+        if (storedPolicy != null) {
+            if (storedPolicy.getPolicy() != null) {
+                policyAdministratorPoint.setPolicyUsed(deviceIdentifier, storedPolicy.getPolicy());
+            }
+            return storedPolicy.getPolicy();
+        }
+        long clock = store.getClock(tenantId);
+        Policy policy = policyEvaluationPoint.getEffectivePolicy(deviceIdentifier);
+        store.put(tenantId, deviceIdentifier, policy, clock);
+        return policy;
+    }
+
     @Override
     public List<Policy> getPolicies(String deviceType) throws PolicyManagementException {
         return policyAdministratorPoint.getPoliciesOfDeviceType(deviceType);
@@ -156,7 +205,7 @@ public class PolicyManagerServiceImpl implements PolicyManagerService {
 
     @Override
     public PolicyInformationPoint getPIP() throws PolicyManagementException {
-        return new PolicyInformationPointImpl();
+        return PolicyInformationPointImpl.getInstance();
     }
 
     @Override
@@ -21,6 +21,7 @@ package org.wso2.carbon.policy.mgt.core.cache;
 
 import org.wso2.carbon.policy.mgt.common.Policy;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyMatcher;
 
 import java.util.List;
 
@@ -44,11 +45,26 @@ public interface PolicyCacheManager {
 
     /**
      * This method will return the all policies.
-     * @return - list of policies
+     * @return - list of policies, in the order of their priorities.
      * @throws PolicyManagementException
      */
     List<Policy> getAllPolicies() throws PolicyManagementException;
 
+    /**
+     * This method will return the policies of a device type.
+     * @param deviceType - name of the device type.
+     * @return - list of policies, in the order of their priorities.
+     * @throws PolicyManagementException
+     */
+    List<Policy> getPoliciesOfDeviceType(String deviceType) throws PolicyManagementException;
+
+    /**
+     * This method will return the matcher of the cached policies, which is compiled again when they change.
+     * @return - matcher of the active policies.
+     * @throws PolicyManagementException
+     */
+    PolicyMatcher getPolicyMatcher() throws PolicyManagementException;
+
     /**
      * This method will repopulate the cache, this will be called when there is a change of the policies.
      * @throws PolicyManagementException
@@ -101,16 +117,20 @@ public interface PolicyCacheManager {
     void addPolicyToDevice(int deviceId, int policyId);
 
     /**
-     * This method will return the device ids, a certain policy is applied.
-     * @param policyId  - Id of the policu.
+     * This method will return the device ids, a certain policy is applied. If they are not available in the cache,
+     * they are read from the database.
+     * @param policyId  - Id of the policy.
      * @return - List of device ids.
+     * @throws PolicyManagementException
      */
-    List<Integer> getPolicyAppliedDeviceIds(int policyId);
+    List<Integer> getPolicyAppliedDeviceIds(int policyId) throws PolicyManagementException;
 
     /**
-     * This method will return the applied policy id of the device.
+     * This method will return the applied policy id of the device. If it is not available in the cache, it is read
+     * from the database.
      * @param deviceId - Id of the device
-     * @return - Id of the policy.
+     * @return - Id of the policy, or -1 if no policy has been applied to the device.
+     * @throws PolicyManagementException
      */
-    int getPolicyIdOfDevice(int deviceId);
+    int getPolicyIdOfDevice(int deviceId) throws PolicyManagementException;
 }
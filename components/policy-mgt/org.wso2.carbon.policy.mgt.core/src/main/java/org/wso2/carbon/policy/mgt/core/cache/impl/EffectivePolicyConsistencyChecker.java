@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.policy.mgt.core.cache.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.policy.mgt.common.PIPDevice;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.PolicyInformationPoint;
+import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyInformationPointImpl;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyMatcher;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies the policies stored in an {@link EffectivePolicyStore} against a live evaluation of the effective policies
+ * of the devices, which reads the devices, their groups and the roles of their owners as they are now.
+ */
+public class EffectivePolicyConsistencyChecker {
+
+    private static final Log log = LogFactory.getLog(EffectivePolicyConsistencyChecker.class);
+
+    private final EffectivePolicyStore store;
+
+    public EffectivePolicyConsistencyChecker(EffectivePolicyStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Evaluates the effective policies of the devices of the current tenant having stored policies, in partitions,
+     * and compares them with the stored ones. Stored policies which differ are dropped, so that they are evaluated
+     * again when they are looked up next.
+     *
+     * @return identifiers of the devices whose stored policies differ from their evaluated policies.
+     * @throws PolicyManagementException
+     */
+    public List<DeviceIdentifier> check() throws PolicyManagementException {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        List<DeviceIdentifier> inconsistentDevices = new ArrayList<>();
+        if (!store.isEnabled()) {
+            return inconsistentDevices;
+        }
+        PolicyMatcher matcher = PolicyCacheManagerImpl.getInstance().getPolicyMatcher();
+        List<DeviceIdentifier> deviceIds = store.getStoredDevices(tenantId);
+        int partitionSize = PolicyManagerUtil.getDelegationPartitionSize();
+        for (int from = 0; from < deviceIds.size(); from += partitionSize) {
+            List<DeviceIdentifier> partition =
+                    deviceIds.subList(from, Math.min(from + partitionSize, deviceIds.size()));
+            inconsistentDevices.addAll(this.check(tenantId, partition, matcher));
+        }
+        if (!inconsistentDevices.isEmpty()) {
+            store.devicesChanged(tenantId, inconsistentDevices);
+            log.warn(inconsistentDevices.size() + " of " + deviceIds.size() + " stored effective policies of tenant " +
+                    tenantId + " differ from their evaluated policies, and were dropped");
+        }
+        return inconsistentDevices;
+    }
+
+    private List<DeviceIdentifier> check(int tenantId, List<DeviceIdentifier> deviceIds, PolicyMatcher matcher)
+            throws PolicyManagementException {
+        // The stored policies are read before the evaluation, so that a policy stored after an input changed is not
+        // mistaken for an inconsistent one.
+        Map<DeviceIdentifier, EffectivePolicyStore.StoredPolicy> storedPolicies = new LinkedHashMap<>();
+        for (DeviceIdentifier deviceId : deviceIds) {
+            EffectivePolicyStore.StoredPolicy storedPolicy = store.get(tenantId, deviceId, matcher);
+            if (storedPolicy != null) {
+                storedPolicies.put(deviceId, storedPolicy);
+            }
+        }
+
+        // A PIP per partition, so that the devices it keeps for the evaluation are not kept for all the partitions.
+        PolicyInformationPoint policyInformationPoint = new PolicyInformationPointImpl();
+        Map<String, PIPDevice> pipDevices = new HashMap<>();
+        for (PIPDevice pipDevice : policyInformationPoint.getDeviceData(new ArrayList<>(storedPolicies.keySet()))) {
+            pipDevices.put(getKey(pipDevice.getDeviceIdentifier()), pipDevice);
+        }
+
+        List<DeviceIdentifier> inconsistentDevices = new ArrayList<>();
+        for (Map.Entry<DeviceIdentifier, EffectivePolicyStore.StoredPolicy> storedPolicy : storedPolicies.entrySet()) {
+            PIPDevice pipDevice = pipDevices.get(getKey(storedPolicy.getKey()));
+            // Devices which are no longer found have no effective policy.
+            Policy evaluatedPolicy = (pipDevice != null) ? matcher.getEffectivePolicy(pipDevice) : null;
+            if (getPolicyId(evaluatedPolicy) != getPolicyId(storedPolicy.getValue().getPolicy())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Stored effective policy " + getPolicyId(storedPolicy.getValue().getPolicy()) +
+                            " of device " + storedPolicy.getKey().getId() + " - " + storedPolicy.getKey().getType() +
+                            " differs from its evaluated policy " + getPolicyId(evaluatedPolicy));
+                }
+                inconsistentDevices.add(storedPolicy.getKey());
+            }
+        }
+        return inconsistentDevices;
+    }
+
+    private static int getPolicyId(Policy policy) {
+        return (policy != null) ? policy.getId() : -1;
+    }
+
+    private static String getKey(DeviceIdentifier deviceId) {
+        return deviceId.getType() + '\n' + deviceId.getId();
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.policy.mgt.core.cache.impl;
+
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.core.service.DeviceChangeListener;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyMatcher;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the effective policy of each device once evaluated, so that it is looked up instead of evaluated again until
+ * one of its inputs changes. The policies of a tenant are dropped when the matcher of its policies is replaced, i.e.
+ * when a policy changes, or when the groups or group roles of the tenant change. The policy of a device is dropped
+ * when its enrolment, owner, ownership, status or groups change. Changes of the roles of the owners in the user store
+ * are not notified, hence policies are also evaluated again once older than the expiry time. Only the changes made
+ * on the current node are notified, hence the store is disabled unless enabled in the policy configuration.
+ * <p/>
+ * Every change is stamped with the next value of a clock of the tenant. An evaluation passes the value of the clock
+ * read before it started to put, so that its policy is not stored if an input changed since.
+ */
+public class EffectivePolicyStore implements DeviceChangeListener {
+
+    private static volatile EffectivePolicyStore effectivePolicyStore;
+
+    private final long expiryTime;
+    private final int capacity;
+    private final ConcurrentMap<Integer, TenantPolicies> tenantPolicies = new ConcurrentHashMap<>();
+
+    /**
+     * @param expiryTime time in milliseconds a policy is served for, 0 to disable the store.
+     * @param capacity   number of policies stored for a tenant, after which the policies of the tenant are dropped.
+     */
+    public EffectivePolicyStore(long expiryTime, int capacity) {
+        this.expiryTime = expiryTime;
+        this.capacity = capacity;
+    }
+
+    public static EffectivePolicyStore getInstance() {
+        if (effectivePolicyStore == null) {
+            synchronized (EffectivePolicyStore.class) {
+                if (effectivePolicyStore == null) {
+                    effectivePolicyStore = new EffectivePolicyStore(
+                            PolicyManagerUtil.getEffectivePolicyStoreExpiryTime(),
+                            PolicyManagerUtil.getEffectivePolicyStoreCapacity());
+                }
+            }
+        }
+        return effectivePolicyStore;
+    }
+
+    public boolean isEnabled() {
+        return expiryTime > 0;
+    }
+
+    /**
+     * @param matcher the current matcher of the policies of the tenant.
+     * @return the stored effective policy of the device, or null if it has to be evaluated.
+     */
+    public StoredPolicy get(int tenantId, DeviceIdentifier deviceId, PolicyMatcher matcher) {
+        if (!this.isEnabled()) {
+            return null;
+        }
+        TenantPolicies policies = this.getTenantPolicies(tenantId);
+        if (policies.matcher != matcher) {
+            synchronized (policies) {
+                if (policies.matcher != matcher) {
+                    policies.invalidate();
+                    policies.matcher = matcher;
+                }
+            }
+            return null;
+        }
+        StoredPolicy storedPolicy = policies.policies.get(getKey(deviceId));
+        if (storedPolicy == null || storedPolicy.changed || storedPolicy.clock < policies.validSince ||
+                System.currentTimeMillis() - storedPolicy.storedTime >= expiryTime) {
+            return null;
+        }
+        return storedPolicy;
+    }
+
+    /**
+     * @return the current value of the clock of the tenant, to be passed to put along with the policy evaluated
+     * after reading it.
+     */
+    public long getClock(int tenantId) {
+        return this.getTenantPolicies(tenantId).clock.get();
+    }
+
+    /**
+     * Stores the effective policy of the device, unless an input of the policy changed since the clock was read.
+     *
+     * @param policy effective policy of the device, null if no policy applies to it.
+     * @param clock  value of the clock of the tenant read before the policy was evaluated.
+     */
+    public void put(int tenantId, DeviceIdentifier deviceId, Policy policy, long clock) {
+        if (!this.isEnabled()) {
+            return;
+        }
+        TenantPolicies policies = this.getTenantPolicies(tenantId);
+        if (policies.policies.size() >= capacity) {
+            policies.invalidate();
+        }
+        if (clock < policies.validSince) {
+            return;
+        }
+        String key = getKey(deviceId);
+        StoredPolicy storedPolicy = new StoredPolicy(deviceId, policy, clock, false);
+        while (true) {
+            StoredPolicy existing = policies.policies.get(key);
+            if (existing == null) {
+                if (policies.policies.putIfAbsent(key, storedPolicy) == null) {
+                    return;
+                }
+            } else if (existing.clock > clock) {
+                // Either the device changed, or a more recent evaluation was stored, since the clock was read.
+                return;
+            } else if (policies.policies.replace(key, existing, storedPolicy)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the identifiers of the devices of the tenant having stored policies.
+     */
+    public List<DeviceIdentifier> getStoredDevices(int tenantId) {
+        TenantPolicies policies = this.getTenantPolicies(tenantId);
+        List<DeviceIdentifier> deviceIds = new ArrayList<>();
+        for (StoredPolicy storedPolicy : policies.policies.values()) {
+            if (!storedPolicy.changed && storedPolicy.clock >= policies.validSince) {
+                deviceIds.add(storedPolicy.deviceId);
+            }
+        }
+        return deviceIds;
+    }
+
+    @Override
+    public void devicesChanged(int tenantId, List<DeviceIdentifier> deviceIds) {
+        TenantPolicies policies = this.getTenantPolicies(tenantId);
+        for (DeviceIdentifier deviceId : deviceIds) {
+            // Kept as a marker rather than removed, so that evaluations started before the change are not stored.
+            policies.policies.put(getKey(deviceId), new StoredPolicy(deviceId, null, policies.clock.incrementAndGet(),
+                    true));
+        }
+    }
+
+    @Override
+    public void allDevicesChanged(int tenantId) {
+        this.getTenantPolicies(tenantId).invalidate();
+    }
+
+    private TenantPolicies getTenantPolicies(int tenantId) {
+        TenantPolicies policies = tenantPolicies.get(tenantId);
+        if (policies == null) {
+            policies = new TenantPolicies();
+            TenantPolicies existing = tenantPolicies.putIfAbsent(tenantId, policies);
+            if (existing != null) {
+                policies = existing;
+            }
+        }
+        return policies;
+    }
+
+    private static String getKey(DeviceIdentifier deviceId) {
+        return deviceId.getType() + '\n' + deviceId.getId();
+    }
+
+    /**
+     * The effective policy of a device, null if no policy applies to the device.
+     */
+    public static class StoredPolicy {
+
+        private final DeviceIdentifier deviceId;
+        private final Policy policy;
+        private final long clock;
+        private final boolean changed;
+        private final long storedTime = System.currentTimeMillis();
+
+        StoredPolicy(DeviceIdentifier deviceId, Policy policy, long clock, boolean changed) {
+            this.deviceId = deviceId;
+            this.policy = policy;
+            this.clock = clock;
+            this.changed = changed;
+        }
+
+        public Policy getPolicy() {
+            return policy;
+        }
+
+    }
+
+    private static class TenantPolicies {
+
+        private final AtomicLong clock = new AtomicLong();
+        /* Policies stored before this value of the clock are not used. */
+        private volatile long validSince;
+        private volatile PolicyMatcher matcher;
+        private final ConcurrentMap<String, StoredPolicy> policies = new ConcurrentHashMap<>();
+
+        void invalidate() {
+            validSince = clock.incrementAndGet();
+            policies.clear();
+        }
+
+    }
+
+}
@@ -21,26 +21,49 @@ package org.wso2.carbon.policy.mgt.core.cache.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.policy.mgt.common.Policy;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.core.cache.PolicyCacheManager;
+import org.wso2.carbon.policy.mgt.core.dao.PolicyManagementDAOFactory;
+import org.wso2.carbon.policy.mgt.core.dao.PolicyManagerDAOException;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyMatcher;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
 import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
 import org.wso2.carbon.policy.mgt.core.util.PolicyManagementConstants;
 import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
 
 import javax.cache.Cache;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caches the policies of each tenant as an immutable {@link PolicyCacheSnapshot}, so that policies are read without
+ * locking. Changes are applied by publishing a new snapshot; changes of a tenant are serialized on this node, and a
+ * snapshot is loaded from the database only when the cache does not have one.
+ */
 public class PolicyCacheManagerImpl implements PolicyCacheManager {
 
     private static final Log log = LogFactory.getLog(PolicyCacheManagerImpl.class);
 
+    private static final int SNAPSHOT_KEY = 1;
+
     private static PolicyCacheManagerImpl policyCacheManager;
 
-    private static Cache<Integer, List<Policy>> getPolicyListCache() {
-        return PolicyManagerUtil.getPolicyListCache(PolicyManagementConstants.DM_CACHE_LIST);
+    private final ConcurrentMap<Integer, Lock> updateLocks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, AppliedPolicies> appliedPolicies = new ConcurrentHashMap<>();
+
+    private static Cache<Integer, PolicyCacheSnapshot> getPolicySnapshotCache() {
+        return PolicyManagerUtil.getPolicySnapshotCache(PolicyManagementConstants.DM_CACHE_POLICY_SNAPSHOT);
     }
 
     private PolicyCacheManagerImpl() {
@@ -59,30 +82,25 @@ public class PolicyCacheManagerImpl implements PolicyCacheManager {
 
     @Override
     public void addAllPolicies(List<Policy> policies) {
-
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        lCache.put(1, policies);
+        Lock lock = this.getUpdateLock();
+        lock.lock();
+        try {
+            getPolicySnapshotCache().put(SNAPSHOT_KEY, new PolicyCacheSnapshot(policies));
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void updateAllPolicies(List<Policy> policies) {
-
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        lCache.removeAll();
-        lCache.put(1, policies);
+        this.addAllPolicies(policies);
     }
 
     @Override
     public List<Policy> getAllPolicies() throws PolicyManagementException {
-
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (!lCache.containsKey(1)) {
-            PolicyManager policyManager = new PolicyManagerImpl();
-            this.addAllPolicies(policyManager.getPolicies());
-        }
+        List<Policy> cachedPolicies = this.getSnapshot().getPolicies();
         if (log.isDebugEnabled()) {
-            List<Policy> cachedPolicy = lCache.get(1);
-            for (Policy policy : cachedPolicy) {
+            for (Policy policy : cachedPolicies) {
                 log.debug("Policy id in cache .. : " + policy.getId() + " policy name : " + policy.
                         getPolicyName() + " Activated : " + policy.isActive());
 
@@ -95,127 +113,287 @@ public class PolicyCacheManagerImpl implements PolicyCacheManager {
                     log.debug("Roles in cached policy : " + role);
                 }
             }
-
         }
-        return lCache.get(1);
+        // Callers are free to reorder the returned list.
+        return new ArrayList<>(cachedPolicies);
+    }
 
+    @Override
+    public List<Policy> getPoliciesOfDeviceType(String deviceType) throws PolicyManagementException {
+        return new ArrayList<>(this.getSnapshot().getPoliciesOfDeviceType(deviceType));
     }
 
     @Override
-    public void rePopulateCache() throws PolicyManagementException {
+    public PolicyMatcher getPolicyMatcher() throws PolicyManagementException {
+        return this.getSnapshot().getMatcher();
+    }
 
-        this.removeAllPolicies();
-        this.getAllPolicies();
+    @Override
+    public void rePopulateCache() throws PolicyManagementException {
+        Lock lock = this.getUpdateLock();
+        lock.lock();
+        try {
+            // The previous snapshot is served until the new one is loaded.
+            this.loadSnapshot(getPolicySnapshotCache());
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void removeAllPolicies() {
-
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        lCache.removeAll();
+        Lock lock = this.getUpdateLock();
+        lock.lock();
+        try {
+            getPolicySnapshotCache().removeAll();
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public void addPolicy(Policy policy) {
-
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (lCache.containsKey(1)) {
-            List<Policy> cachedPolicy = lCache.get(1);
-
-            for (Policy pol : cachedPolicy) {
-                if (pol.getId() == policy.getId()) {
-                    return;
-                }
+        Lock lock = this.getUpdateLock();
+        lock.lock();
+        try {
+            Cache<Integer, PolicyCacheSnapshot> cache = getPolicySnapshotCache();
+            PolicyCacheSnapshot snapshot = cache.get(SNAPSHOT_KEY);
+            if (snapshot != null && snapshot.getPolicy(policy.getId()) == null) {
+                cache.put(SNAPSHOT_KEY, snapshot.withPolicy(policy));
             }
-            cachedPolicy.add(policy);
+        } finally {
+            lock.unlock();
         }
-
     }
 
     @Override
     public void updatePolicy(Policy policy) {
-
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (lCache.containsKey(1)) {
-            List<Policy> cachedPolicy = lCache.get(1);
-            Iterator iterator = cachedPolicy.iterator();
-            while (iterator.hasNext()) {
-                Policy pol = (Policy) iterator.next();
-                if (pol.getId() == policy.getId()) {
-                    iterator.remove();
-                    break;
-                }
+        Lock lock = this.getUpdateLock();
+        lock.lock();
+        try {
+            Cache<Integer, PolicyCacheSnapshot> cache = getPolicySnapshotCache();
+            PolicyCacheSnapshot snapshot = cache.get(SNAPSHOT_KEY);
+            if (snapshot != null) {
+                cache.put(SNAPSHOT_KEY, snapshot.withPolicy(policy));
             }
-            cachedPolicy.add(policy);
-            lCache.replace(1, cachedPolicy);
+        } finally {
+            lock.unlock();
         }
-
     }
 
     @Override
     public void updatePolicy(int policyId) throws PolicyManagementException {
-
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (lCache.containsKey(1)) {
-            PolicyManager policyManager = new PolicyManagerImpl();
-            Policy policy = policyManager.getPolicy(policyId);
-            this.updatePolicy(policy);
+        Lock lock = this.getUpdateLock();
+        lock.lock();
+        try {
+            Cache<Integer, PolicyCacheSnapshot> cache = getPolicySnapshotCache();
+            PolicyCacheSnapshot snapshot = cache.get(SNAPSHOT_KEY);
+            if (snapshot != null) {
+                // Loaded while holding the lock, so that concurrent changes of a policy are applied in order.
+                PolicyManager policyManager = new PolicyManagerImpl();
+                Policy policy = policyManager.getPolicy(policyId);
+                cache.put(SNAPSHOT_KEY, (policy != null) ? snapshot.withPolicy(policy) :
+                        snapshot.withoutPolicy(policyId));
+            }
+        } finally {
+            lock.unlock();
         }
-
     }
 
     @Override
     public void removePolicy(int policyId) {
-
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (lCache.containsKey(1)) {
-            List<Policy> cachedPolicy = lCache.get(1);
-            Iterator iterator = cachedPolicy.iterator();
-            while (iterator.hasNext()) {
-                Policy pol = (Policy) iterator.next();
-                if (pol.getId() == policyId) {
-                    iterator.remove();
-                    break;
-                }
+        Lock lock = this.getUpdateLock();
+        lock.lock();
+        try {
+            Cache<Integer, PolicyCacheSnapshot> cache = getPolicySnapshotCache();
+            PolicyCacheSnapshot snapshot = cache.get(SNAPSHOT_KEY);
+            if (snapshot != null) {
+                cache.put(SNAPSHOT_KEY, snapshot.withoutPolicy(policyId));
             }
-            lCache.replace(1, cachedPolicy);
+        } finally {
+            lock.unlock();
         }
+        this.getAppliedPolicies().removePolicy(policyId);
     }
 
     @Override
     public Policy getPolicy(int policyId) throws PolicyManagementException {
+        return this.getSnapshot().getPolicy(policyId);
+    }
 
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (!lCache.containsKey(1)) {
-            this.removeAllPolicies();
-            this.getAllPolicies();
-        }
+    @Override
+    public void addPolicyToDevice(int deviceId, int policyId) {
+        this.getAppliedPolicies().addPolicyToDevice(deviceId, policyId);
+    }
 
-        Policy policy = null;
-        List<Policy> cachedPolicy = lCache.get(1);
-        Iterator iterator = cachedPolicy.iterator();
-        while (iterator.hasNext()) {
-            Policy pol = (Policy) iterator.next();
-            if (pol.getId() == policyId) {
-                policy = pol;
-            }
+    @Override
+    public List<Integer> getPolicyAppliedDeviceIds(int policyId) throws PolicyManagementException {
+        AppliedPolicies tenantAppliedPolicies = this.getAppliedPolicies();
+        List<Integer> deviceIds = tenantAppliedPolicies.getDeviceIds(policyId);
+        if (deviceIds != null) {
+            return deviceIds;
+        }
+        long version = tenantAppliedPolicies.getVersion();
+        try {
+            PolicyManagementDAOFactory.openConnection();
+            deviceIds = PolicyManagementDAOFactory.getPolicyDAO().getEffectivePolicyAppliedDeviceIds(policyId);
+        } catch (PolicyManagerDAOException | SQLException e) {
+            throw new PolicyManagementException("Error occurred while getting the devices having the effective " +
+                    "policy (" + policyId + ")", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
         }
-        return policy;
+        tenantAppliedPolicies.putDeviceIds(policyId, deviceIds, version);
+        return deviceIds;
     }
 
     @Override
-    public void addPolicyToDevice(int deviceId, int policyId) {
+    public int getPolicyIdOfDevice(int deviceId) throws PolicyManagementException {
+        AppliedPolicies tenantAppliedPolicies = this.getAppliedPolicies();
+        Integer policyId = tenantAppliedPolicies.getPolicyId(deviceId);
+        if (policyId != null) {
+            return policyId;
+        }
+        long version = tenantAppliedPolicies.getVersion();
+        int loadedPolicyId;
+        try {
+            PolicyManagementDAOFactory.openConnection();
+            loadedPolicyId = PolicyManagementDAOFactory.getPolicyDAO().getEffectivePolicyIdOfDevice(deviceId);
+        } catch (PolicyManagerDAOException | SQLException e) {
+            throw new PolicyManagementException("Error occurred while getting the effective policy of device (" +
+                    deviceId + ")", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+        if (loadedPolicyId != -1) {
+            tenantAppliedPolicies.putPolicyId(deviceId, loadedPolicyId, version);
+        }
+        return loadedPolicyId;
+    }
 
+    private PolicyCacheSnapshot getSnapshot() throws PolicyManagementException {
+        Cache<Integer, PolicyCacheSnapshot> cache = getPolicySnapshotCache();
+        PolicyCacheSnapshot snapshot = cache.get(SNAPSHOT_KEY);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        // Loaded while holding the lock, so that a change made during the load is applied on top of it.
+        Lock lock = this.getUpdateLock();
+        lock.lock();
+        try {
+            snapshot = cache.get(SNAPSHOT_KEY);
+            return (snapshot != null) ? snapshot : this.loadSnapshot(cache);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    @Override
-    public List<Integer> getPolicyAppliedDeviceIds(int policyId) {
-        return null;
+    private PolicyCacheSnapshot loadSnapshot(Cache<Integer, PolicyCacheSnapshot> cache)
+            throws PolicyManagementException {
+        PolicyManager policyManager = new PolicyManagerImpl();
+        PolicyCacheSnapshot snapshot = new PolicyCacheSnapshot(policyManager.getPolicies());
+        cache.put(SNAPSHOT_KEY, snapshot);
+        return snapshot;
     }
 
-    @Override
-    public int getPolicyIdOfDevice(int deviceId) {
-        return 0;
+    private Lock getUpdateLock() {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        Lock lock = updateLocks.get(tenantId);
+        if (lock == null) {
+            lock = new ReentrantLock();
+            Lock existing = updateLocks.putIfAbsent(tenantId, lock);
+            if (existing != null) {
+                lock = existing;
+            }
+        }
+        return lock;
+    }
+
+    private AppliedPolicies getAppliedPolicies() {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        AppliedPolicies tenantAppliedPolicies = appliedPolicies.get(tenantId);
+        if (tenantAppliedPolicies == null) {
+            tenantAppliedPolicies = new AppliedPolicies();
+            AppliedPolicies existing = appliedPolicies.putIfAbsent(tenantId, tenantAppliedPolicies);
+            if (existing != null) {
+                tenantAppliedPolicies = existing;
+            }
+        }
+        return tenantAppliedPolicies;
+    }
+
+    /**
+     * The policies applied to the devices of a tenant, looked up either way. Entries are loaded from the database
+     * when they are missing and kept up to date with the policies applied on this node. The device ids of a policy
+     * are held only once all of them have been loaded.
+     */
+    private static class AppliedPolicies {
+
+        private final ConcurrentMap<Integer, Integer> policyIdsOfDevices = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Integer, Set<Integer>> deviceIdsOfPolicies = new ConcurrentHashMap<>();
+        // Incremented on every change, so that entries loaded while a change was made are not cached.
+        private volatile long version;
+
+        synchronized void addPolicyToDevice(int deviceId, int policyId) {
+            version++;
+            policyIdsOfDevices.put(deviceId, policyId);
+            // The previous policy of the device may not be cached, hence it is removed from all the policies.
+            for (Map.Entry<Integer, Set<Integer>> entry : deviceIdsOfPolicies.entrySet()) {
+                if (entry.getKey() != policyId) {
+                    entry.getValue().remove(deviceId);
+                }
+            }
+            // Device ids of a policy which have not been loaded are left to be loaded on their first lookup.
+            Set<Integer> deviceIds = deviceIdsOfPolicies.get(policyId);
+            if (deviceIds != null) {
+                deviceIds.add(deviceId);
+            }
+        }
+
+        synchronized void removePolicy(int policyId) {
+            version++;
+            deviceIdsOfPolicies.remove(policyId);
+            Iterator<Integer> policyIds = policyIdsOfDevices.values().iterator();
+            while (policyIds.hasNext()) {
+                if (policyIds.next() == policyId) {
+                    policyIds.remove();
+                }
+            }
+        }
+
+        synchronized void putDeviceIds(int policyId, List<Integer> deviceIds, long loadedVersion) {
+            if (version == loadedVersion) {
+                Set<Integer> loadedDeviceIds = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+                loadedDeviceIds.addAll(deviceIds);
+                deviceIdsOfPolicies.put(policyId, loadedDeviceIds);
+            }
+        }
+
+        synchronized void putPolicyId(int deviceId, int policyId, long loadedVersion) {
+            if (version == loadedVersion) {
+                policyIdsOfDevices.put(deviceId, policyId);
+            }
+        }
+
+        long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the device ids of the policy, or null if they have not been loaded.
+         */
+        List<Integer> getDeviceIds(int policyId) {
+            Set<Integer> deviceIds = deviceIdsOfPolicies.get(policyId);
+            return (deviceIds != null) ? new ArrayList<>(deviceIds) : null;
+        }
+
+        /**
+         * @return the policy id of the device, or null if it has not been loaded.
+         */
+        Integer getPolicyId(int deviceId) {
+            return policyIdsOfDevices.get(deviceId);
+        }
+
     }
 
 }
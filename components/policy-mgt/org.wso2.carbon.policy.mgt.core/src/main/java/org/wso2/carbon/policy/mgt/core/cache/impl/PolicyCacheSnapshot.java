@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.cache.impl;
+
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyMatcher;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable view of the policies of a tenant, ordered by priority and indexed by policy id and by device type.
+ * Changes are applied by deriving a new snapshot, so that a snapshot can be read without any locking.
+ */
+public class PolicyCacheSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 7452893178623455931L;
+
+    private final List<Policy> policies;
+    private final Map<Integer, Policy> policiesById;
+    private final Map<String, List<Policy>> policiesByDeviceType;
+    // Compiled on first use, at most once per node, since a snapshot never changes.
+    private transient volatile PolicyMatcher matcher;
+
+    public PolicyCacheSnapshot(Collection<Policy> policies) {
+        List<Policy> sortedPolicies = new ArrayList<>(policies);
+        Collections.sort(sortedPolicies);
+        Map<Integer, Policy> policiesById = new HashMap<>();
+        Map<String, List<Policy>> policiesByDeviceType = new HashMap<>();
+        for (Policy policy : sortedPolicies) {
+            policiesById.put(policy.getId(), policy);
+            String deviceType = getDeviceType(policy);
+            if (deviceType != null) {
+                List<Policy> deviceTypePolicies = policiesByDeviceType.get(deviceType);
+                if (deviceTypePolicies == null) {
+                    deviceTypePolicies = new ArrayList<>();
+                    policiesByDeviceType.put(deviceType, deviceTypePolicies);
+                }
+                deviceTypePolicies.add(policy);
+            }
+        }
+        for (Map.Entry<String, List<Policy>> entry : policiesByDeviceType.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.policies = Collections.unmodifiableList(sortedPolicies);
+        this.policiesById = Collections.unmodifiableMap(policiesById);
+        this.policiesByDeviceType = Collections.unmodifiableMap(policiesByDeviceType);
+    }
+
+    /**
+     * @return all the policies, in the order of their priorities.
+     */
+    public List<Policy> getPolicies() {
+        return policies;
+    }
+
+    public Policy getPolicy(int policyId) {
+        return policiesById.get(policyId);
+    }
+
+    /**
+     * @return the policies of the device type, in the order of their priorities.
+     */
+    public List<Policy> getPoliciesOfDeviceType(String deviceType) {
+        List<Policy> deviceTypePolicies = (deviceType != null) ?
+                policiesByDeviceType.get(deviceType.toLowerCase()) : null;
+        return (deviceTypePolicies != null) ? deviceTypePolicies : Collections.<Policy>emptyList();
+    }
+
+    /**
+     * @return the matcher of the policies of this snapshot.
+     */
+    public PolicyMatcher getMatcher() {
+        PolicyMatcher compiledMatcher = matcher;
+        if (compiledMatcher == null) {
+            compiledMatcher = new PolicyMatcher(policies);
+            matcher = compiledMatcher;
+        }
+        return compiledMatcher;
+    }
+
+    /**
+     * @return a snapshot in which the policy having the same id as the given one, if any, is replaced by it.
+     */
+    public PolicyCacheSnapshot withPolicy(Policy policy) {
+        List<Policy> newPolicies = new ArrayList<>(policies.size() + 1);
+        for (Policy existing : policies) {
+            if (existing.getId() != policy.getId()) {
+                newPolicies.add(existing);
+            }
+        }
+        newPolicies.add(policy);
+        return new PolicyCacheSnapshot(newPolicies);
+    }
+
+    /**
+     * @return a snapshot without the given policy, or this snapshot if it does not have the policy.
+     */
+    public PolicyCacheSnapshot withoutPolicy(int policyId) {
+        if (!policiesById.containsKey(policyId)) {
+            return this;
+        }
+        List<Policy> newPolicies = new ArrayList<>(policies.size());
+        for (Policy existing : policies) {
+            if (existing.getId() != policyId) {
+                newPolicies.add(existing);
+            }
+        }
+        return new PolicyCacheSnapshot(newPolicies);
+    }
+
+    private static String getDeviceType(Policy policy) {
+        if (policy.getProfile() == null || policy.getProfile().getDeviceType() == null) {
+            return null;
+        }
+        return policy.getProfile().getDeviceType().toLowerCase();
+    }
+
+}
@@ -19,10 +19,13 @@
 
 package org.wso2.carbon.policy.mgt.core.dao;
 
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceData;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceFeature;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyDeviceWrapper;
 
+import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +59,15 @@ public interface MonitoringDAO {
 
     List<ComplianceData> getCompliance() throws MonitoringDAOException;
 
+    /**
+     * This is getting the compliance statuses of a batch of enrolments, which are looked up in chunks no larger than
+     * an IN clause can hold.
+     * @param enrolmentIds ids of the enrolments
+     * @return compliance statuses keyed by enrolment id
+     * @throws MonitoringDAOException
+     */
+    Map<Integer, ComplianceData> getComplianceOfEnrolments(List<Integer> enrolmentIds) throws MonitoringDAOException;
+
     List<ComplianceFeature> getNoneComplianceFeatures(int policyComplianceStatusId) throws MonitoringDAOException;
 
     void deleteNoneComplianceData(int policyComplianceStatusId) throws MonitoringDAOException;
@@ -64,4 +76,28 @@ public interface MonitoringDAO {
 
     void updateAttempts(List<Integer> deviceId, boolean reset) throws MonitoringDAOException;
 
-}
\ No newline at end of file
+    /**
+     * This is incrementing the attempts of compliance statuses, as a single batch.
+     * @param complianceStatusIds ids of the compliance statuses
+     * @throws MonitoringDAOException
+     */
+    void incrementAttempts(List<Integer> complianceStatusIds) throws MonitoringDAOException;
+
+    /**
+     * This is getting a page of the devices of a device type which are due for a compliance check, i.e. the devices
+     * whose compliance has not been checked yet, which are not compliant, which were applied a policy after they were
+     * last found compliant, or which were last found compliant before the given time. The devices are ordered by
+     * their enrolment ids.
+     * @param deviceType type of the devices
+     * @param compliantSince time after which devices found compliant are not due
+     * @param excludedStatuses statuses of the enrolments which are not monitored
+     * @param lastEnrolmentId enrolment id of the last device of the previous page, 0 for the first page
+     * @param pageSize maximum number of devices in the page
+     * @return devices along with their enrolments
+     * @throws MonitoringDAOException
+     */
+    List<Device> getDevicesDueForMonitoring(String deviceType, Timestamp compliantSince,
+                                            List<EnrolmentInfo.Status> excludedStatuses, int lastEnrolmentId,
+                                            int pageSize) throws MonitoringDAOException;
+
+}
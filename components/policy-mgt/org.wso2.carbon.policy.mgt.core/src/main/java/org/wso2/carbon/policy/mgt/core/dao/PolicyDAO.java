@@ -26,6 +26,7 @@ import org.wso2.carbon.policy.mgt.common.PolicyCriterion;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface PolicyDAO {
 
@@ -61,6 +62,14 @@ public interface PolicyDAO {
 
     List<DeviceGroupWrapper> getDeviceGroupsOfPolicy(int policyId) throws PolicyManagerDAOException;
 
+    /**
+     * This method returns the device groups of all the policies of the tenant, in a single query.
+     * @return - device groups, along with their names and owners, keyed by policy id. Policies without device groups
+     * are not included.
+     * @throws PolicyManagerDAOException
+     */
+    Map<Integer, List<DeviceGroupWrapper>> getDeviceGroupsOfPolicies() throws PolicyManagerDAOException;
+
     boolean updatePolicyPriorities(List<Policy> policies) throws PolicyManagerDAOException;
 
     void activatePolicy(int policyId) throws PolicyManagerDAOException;
@@ -93,6 +102,13 @@ public interface PolicyDAO {
 
     List<PolicyCriterion> getPolicyCriteria(int policyId) throws PolicyManagerDAOException;
 
+    /**
+     * This method returns the criteria of all the policies of the tenant, in a single query.
+     * @return - criteria keyed by policy id. Policies without criteria are not included.
+     * @throws PolicyManagerDAOException
+     */
+    Map<Integer, List<PolicyCriterion>> getCriteriaOfPolicies() throws PolicyManagerDAOException;
+
     Policy updatePolicy(Policy policy) throws PolicyManagerDAOException;
 
     void recordUpdatedPolicy(Policy policy) throws PolicyManagerDAOException;
@@ -107,6 +123,13 @@ public interface PolicyDAO {
 
     List<Integer> getPolicyAppliedDevicesIds(int policyId) throws PolicyManagerDAOException;
 
+    /**
+     * This method returns the ids of the devices each policy of the tenant is applied to, in a single query.
+     * @return - device ids keyed by policy id. Policies not applied to any device are not included.
+     * @throws PolicyManagerDAOException
+     */
+    Map<Integer, List<Integer>> getAppliedDeviceIdsOfPolicies() throws PolicyManagerDAOException;
+
     List<Policy> getAllPolicies() throws PolicyManagerDAOException;
 
     List<Policy> getPolicyOfDeviceType(String deviceType) throws PolicyManagerDAOException;
@@ -129,6 +152,20 @@ public interface PolicyDAO {
 
     List<String> getPolicyAppliedUsers(int policyId) throws PolicyManagerDAOException;
 
+    /**
+     * This method returns the roles each policy of the tenant is applied to, in a single query.
+     * @return - role names keyed by policy id. Policies not applied to any role are not included.
+     * @throws PolicyManagerDAOException
+     */
+    Map<Integer, List<String>> getAppliedRolesOfPolicies() throws PolicyManagerDAOException;
+
+    /**
+     * This method returns the users each policy of the tenant is applied to, in a single query.
+     * @return - usernames keyed by policy id. Policies not applied to any user are not included.
+     * @throws PolicyManagerDAOException
+     */
+    Map<Integer, List<String>> getAppliedUsersOfPolicies() throws PolicyManagerDAOException;
+
     void addEffectivePolicyToDevice(int deviceId, int enrolmentId, Policy policy)
             throws PolicyManagerDAOException;
 
@@ -137,6 +174,30 @@ public interface PolicyDAO {
     void updateEffectivePolicyToDevice(int deviceId, int enrolmentId, Policy policy)
             throws PolicyManagerDAOException;
 
+    /**
+     * This method returns the enrolments of the given devices which already have an effective policy.
+     * @param devices - devices, which are looked up in chunks no larger than an IN clause can hold.
+     * @return - enrolment ids.
+     * @throws PolicyManagerDAOException
+     */
+    List<Integer> getEnrolmentIdsHavingEffectivePolicy(List<Device> devices) throws PolicyManagerDAOException;
+
+    /**
+     * This method adds the effective policy of the given devices, none of which has one yet, in a single batch.
+     * @param devices - devices along with their enrolments.
+     * @param policy - effective policy of all the devices.
+     * @throws PolicyManagerDAOException
+     */
+    void addEffectivePolicyToDevices(List<Device> devices, Policy policy) throws PolicyManagerDAOException;
+
+    /**
+     * This method replaces the effective policy of the given devices in a single batch.
+     * @param devices - devices along with their enrolments.
+     * @param policy - effective policy of all the devices.
+     * @throws PolicyManagerDAOException
+     */
+    void updateEffectivePolicyToDevices(List<Device> devices, Policy policy) throws PolicyManagerDAOException;
+
     boolean checkPolicyAvailable(int deviceId, int enrollmentId) throws PolicyManagerDAOException;
 
     int getPolicyCount() throws PolicyManagerDAOException;
@@ -147,5 +208,52 @@ public interface PolicyDAO {
 
     HashMap<Integer, Integer> getAppliedPolicyIds() throws PolicyManagerDAOException;
 
+    /**
+     * This method returns the ids of the policies applied to a batch of enrolments.
+     * @param enrolmentIds - ids of the enrolments, which are looked up in chunks no larger than an IN clause can hold.
+     * @return - policy ids keyed by enrolment id.
+     * @throws PolicyManagerDAOException
+     */
+    Map<Integer, Integer> getAppliedPolicyIdsOfEnrolments(List<Integer> enrolmentIds) throws PolicyManagerDAOException;
+
     HashMap<Integer, Integer> getAppliedPolicyIdsDeviceIds() throws PolicyManagerDAOException;
+
+    /**
+     * This method returns the ids of the devices having the given policy as their effective policy.
+     * @param policyId - id of the policy.
+     * @return - ids of the devices, without duplicates.
+     * @throws PolicyManagerDAOException
+     */
+    List<Integer> getEffectivePolicyAppliedDeviceIds(int policyId) throws PolicyManagerDAOException;
+
+    /**
+     * This method returns the id of the effective policy of a device.
+     * @param deviceId - id of the device.
+     * @return - id of the policy, or -1 if no policy has been applied to the device.
+     * @throws PolicyManagerDAOException
+     */
+    int getEffectivePolicyIdOfDevice(int deviceId) throws PolicyManagerDAOException;
+
+    /**
+     * This method returns the device types of the tenant whose devices are yet to be delegated their policies.
+     * @return - the id of the last device delegated so far, keyed by device type. Devices are delegated in the
+     * order of their ids.
+     * @throws PolicyManagerDAOException
+     */
+    Map<String, Integer> getDelegationCheckpoints() throws PolicyManagerDAOException;
+
+    /**
+     * This method records the progress of delegating the policies to the devices of a device type.
+     * @param deviceType - name of the device type.
+     * @param lastDeviceId - id of the last device delegated so far, or 0 to delegate all the devices.
+     * @throws PolicyManagerDAOException
+     */
+    void setDelegationCheckpoint(String deviceType, int lastDeviceId) throws PolicyManagerDAOException;
+
+    /**
+     * This method records that the policies are delegated to all the devices of a device type.
+     * @param deviceType - name of the device type.
+     * @throws PolicyManagerDAOException
+     */
+    void removeDelegationCheckpoint(String deviceType) throws PolicyManagerDAOException;
 }
@@ -22,6 +22,10 @@ package org.wso2.carbon.policy.mgt.core.dao.impl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
+import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceData;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceFeature;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyDeviceWrapper;
@@ -347,6 +351,58 @@ public class MonitoringDAOImpl implements MonitoringDAO {
         }
     }
 
+    @Override
+    public Map<Integer, ComplianceData> getComplianceOfEnrolments(List<Integer> enrolmentIds)
+            throws MonitoringDAOException {
+        Map<Integer, ComplianceData> complianceDataOfEnrolments = new HashMap<>();
+        for (int from = 0; from < enrolmentIds.size();
+             from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+            int to = Math.min(from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE, enrolmentIds.size());
+            this.loadComplianceOfEnrolments(enrolmentIds.subList(from, to), complianceDataOfEnrolments);
+        }
+        return complianceDataOfEnrolments;
+    }
+
+    private void loadComplianceOfEnrolments(List<Integer> enrolmentIds,
+                                            Map<Integer, ComplianceData> complianceDataOfEnrolments)
+            throws MonitoringDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "SELECT * FROM DM_POLICY_COMPLIANCE_STATUS WHERE TENANT_ID = ? AND ENROLMENT_ID IN (" +
+                    DeviceManagementDAOUtil.getInClause(enrolmentIds.size()) + ")";
+            stmt = conn.prepareStatement(query);
+            int index = 1;
+            stmt.setInt(index++, tenantId);
+            for (Integer enrolmentId : enrolmentIds) {
+                stmt.setInt(index++, enrolmentId);
+            }
+
+            resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                ComplianceData complianceData = new ComplianceData();
+                complianceData.setId(resultSet.getInt("ID"));
+                complianceData.setDeviceId(resultSet.getInt("DEVICE_ID"));
+                complianceData.setEnrolmentId(resultSet.getInt("ENROLMENT_ID"));
+                complianceData.setPolicyId(resultSet.getInt("POLICY_ID"));
+                complianceData.setStatus(resultSet.getBoolean("STATUS"));
+                complianceData.setAttempts(resultSet.getInt("ATTEMPTS"));
+                complianceData.setLastRequestedTime(resultSet.getTimestamp("LAST_REQUESTED_TIME"));
+                complianceData.setLastSucceededTime(resultSet.getTimestamp("LAST_SUCCESS_TIME"));
+                complianceData.setLastFailedTime(resultSet.getTimestamp("LAST_FAILED_TIME"));
+
+                complianceDataOfEnrolments.put(complianceData.getEnrolmentId(), complianceData);
+            }
+        } catch (SQLException e) {
+            throw new MonitoringDAOException("Unable to retrieve compliance data of enrolments from database.", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
     @Override
     public List<ComplianceFeature> getNoneComplianceFeatures(int policyComplianceStatusId) throws
             MonitoringDAOException {
@@ -461,6 +517,83 @@ public class MonitoringDAOImpl implements MonitoringDAO {
         }
     }
 
+    @Override
+    public void incrementAttempts(List<Integer> complianceStatusIds) throws MonitoringDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        Timestamp currentTimestamp = new Timestamp(Calendar.getInstance().getTime().getTime());
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "UPDATE DM_POLICY_COMPLIANCE_STATUS SET ATTEMPTS = ATTEMPTS + 1, LAST_REQUESTED_TIME = ? " +
+                    "WHERE ID = ? AND TENANT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            for (int complianceStatusId : complianceStatusIds) {
+                stmt.setTimestamp(1, currentTimestamp);
+                stmt.setInt(2, complianceStatusId);
+                stmt.setInt(3, tenantId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new MonitoringDAOException("Unable to update the attempts  data in database.", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    @Override
+    public List<Device> getDevicesDueForMonitoring(String deviceType, Timestamp compliantSince,
+                                                   List<EnrolmentInfo.Status> excludedStatuses, int lastEnrolmentId,
+                                                   int pageSize) throws MonitoringDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        List<Device> devices = new ArrayList<>();
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            StringBuilder query = new StringBuilder("SELECT d.ID AS DEVICE_ID, d.DESCRIPTION, d.NAME AS DEVICE_NAME, " +
+                    "t.NAME AS DEVICE_TYPE, d.DEVICE_IDENTIFICATION, e.ID AS ENROLMENT_ID, e.OWNER, e.OWNERSHIP, " +
+                    "e.STATUS, e.DATE_OF_ENROLMENT, e.DATE_OF_LAST_UPDATE FROM DM_DEVICE d " +
+                    "INNER JOIN DM_DEVICE_TYPE t ON d.DEVICE_TYPE_ID = t.ID " +
+                    "INNER JOIN DM_ENROLMENT e ON e.DEVICE_ID = d.ID " +
+                    "LEFT JOIN DM_POLICY_COMPLIANCE_STATUS cs ON cs.ENROLMENT_ID = e.ID AND cs.TENANT_ID = ? " +
+                    "LEFT JOIN DM_DEVICE_POLICY_APPLIED pa ON pa.ENROLMENT_ID = e.ID AND pa.TENANT_ID = ? " +
+                    "WHERE t.NAME = ? AND d.TENANT_ID = ? AND e.TENANT_ID = ? AND e.ID > ?");
+            for (int i = 0; i < excludedStatuses.size(); i++) {
+                query.append(" AND e.STATUS <> ?");
+            }
+            query.append(" AND (cs.ID IS NULL OR cs.STATUS = 0 OR cs.LAST_SUCCESS_TIME IS NULL OR " +
+                    "cs.LAST_SUCCESS_TIME < ? OR pa.UPDATED_TIME > cs.LAST_SUCCESS_TIME) ORDER BY e.ID");
+            stmt = conn.prepareStatement(query.toString());
+            // Keyset paging, which unlike LIMIT and OFFSET is supported by all the databases alike.
+            stmt.setMaxRows(pageSize);
+            int index = 1;
+            stmt.setInt(index++, tenantId);
+            stmt.setInt(index++, tenantId);
+            stmt.setString(index++, deviceType);
+            stmt.setInt(index++, tenantId);
+            stmt.setInt(index++, tenantId);
+            stmt.setInt(index++, lastEnrolmentId);
+            for (EnrolmentInfo.Status status : excludedStatuses) {
+                stmt.setString(index++, status.toString());
+            }
+            stmt.setTimestamp(index, compliantSince);
+
+            resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                devices.add(DeviceManagementDAOUtil.loadDevice(resultSet));
+            }
+            return devices;
+        } catch (SQLException e) {
+            throw new MonitoringDAOException("Unable to retrieve the devices of type '" + deviceType +
+                    "' due for a compliance check from database.", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
     private Connection getConnection() throws MonitoringDAOException {
         return PolicyManagementDAOFactory.getConnection();
     }
@@ -22,6 +22,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
+import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
 import org.wso2.carbon.policy.mgt.common.Criterion;
 import org.wso2.carbon.policy.mgt.common.DeviceGroupWrapper;
 import org.wso2.carbon.policy.mgt.common.Policy;
@@ -331,6 +333,39 @@ public class PolicyDAOImpl implements PolicyDAO {
         return deviceGroupWrappers;
     }
 
+    @Override
+    public Map<Integer, List<DeviceGroupWrapper>> getDeviceGroupsOfPolicies() throws PolicyManagerDAOException {
+        Map<Integer, List<DeviceGroupWrapper>> deviceGroupWrappers = new HashMap<>();
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "SELECT DGP.POLICY_ID, DGP.DEVICE_GROUP_ID, G.GROUP_NAME, G.OWNER FROM " +
+                    "DM_DEVICE_GROUP_POLICY DGP LEFT JOIN DM_GROUP G ON G.ID = DGP.DEVICE_GROUP_ID " +
+                    "WHERE DGP.TENANT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, tenantId);
+            resultSet = stmt.executeQuery();
+
+            while (resultSet.next()) {
+                DeviceGroupWrapper dgw = new DeviceGroupWrapper();
+                dgw.setId(resultSet.getInt("DEVICE_GROUP_ID"));
+                dgw.setName(resultSet.getString("GROUP_NAME"));
+                dgw.setOwner(resultSet.getString("OWNER"));
+                dgw.setTenantId(tenantId);
+                getValues(deviceGroupWrappers, resultSet.getInt("POLICY_ID")).add(dgw);
+            }
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while reading the device groups of policies from " +
+                    "database.", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+        return deviceGroupWrappers;
+    }
+
     @Override
     public boolean updatePolicyPriorities(List<Policy> policies) throws PolicyManagerDAOException {
         Connection conn;
@@ -750,44 +785,72 @@ public class PolicyDAOImpl implements PolicyDAO {
         Connection conn;
         PreparedStatement stmt = null;
         ResultSet resultSet = null;
-        List<PolicyCriterion> criteria = new ArrayList<PolicyCriterion>();
         try {
             conn = this.getConnection();
-            String query = "SELECT DPC.ID, DPC.CRITERIA_ID, DPCP.PROP_KEY, DPCP.PROP_VALUE, DPCP.CONTENT FROM " +
-                    "DM_POLICY_CRITERIA DPC LEFT JOIN DM_POLICY_CRITERIA_PROPERTIES DPCP " +
-                    "ON DPCP.POLICY_CRITERION_ID = DPC.ID RIGHT JOIN DM_CRITERIA DC " +
-                    "ON DC.ID=DPC.CRITERIA_ID WHERE DPC.POLICY_ID = ?";
+            String query = "SELECT DPC.ID, DPC.CRITERIA_ID, DPC.POLICY_ID, DC.NAME, DPCP.PROP_KEY, DPCP.PROP_VALUE " +
+                    "FROM DM_POLICY_CRITERIA DPC INNER JOIN DM_CRITERIA DC ON DC.ID = DPC.CRITERIA_ID " +
+                    "LEFT JOIN DM_POLICY_CRITERIA_PROPERTIES DPCP ON DPCP.POLICY_CRITERION_ID = DPC.ID " +
+                    "WHERE DPC.POLICY_ID = ? ORDER BY DPC.ID";
             stmt = conn.prepareStatement(query);
             stmt.setInt(1, policyId);
             resultSet = stmt.executeQuery();
 
-            int criteriaId = 0;
-
-            PolicyCriterion policyCriterion = null;
-            Properties prop = null;
-            while (resultSet.next()) {
+            List<PolicyCriterion> criteria = this.readPolicyCriteria(resultSet).get(policyId);
+            return (criteria != null) ? criteria : new ArrayList<PolicyCriterion>();
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while reading the criteria related to policies from " +
+                    "the database", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
 
-                if (criteriaId != resultSet.getInt("ID")) {
-                    if (policyCriterion != null) {
-                        policyCriterion.setProperties(prop);
-                        criteria.add(policyCriterion);
-                    }
-                    policyCriterion = new PolicyCriterion();
-                    prop = new Properties();
-                    criteriaId = resultSet.getInt("ID");
-
-                    policyCriterion.setId(resultSet.getInt("ID"));
-                    policyCriterion.setCriteriaId(resultSet.getInt("CRITERIA_ID"));
-                } else {
-                    prop.setProperty(resultSet.getString("PROP_KEY"), resultSet.getString("PROP_VALUE"));
-                }
-            }
+    @Override
+    public Map<Integer, List<PolicyCriterion>> getCriteriaOfPolicies() throws PolicyManagerDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        try {
+            conn = this.getConnection();
+            String query = "SELECT DPC.ID, DPC.CRITERIA_ID, DPC.POLICY_ID, DC.NAME, DPCP.PROP_KEY, DPCP.PROP_VALUE " +
+                    "FROM DM_POLICY_CRITERIA DPC INNER JOIN DM_POLICY P ON P.ID = DPC.POLICY_ID " +
+                    "INNER JOIN DM_CRITERIA DC ON DC.ID = DPC.CRITERIA_ID " +
+                    "LEFT JOIN DM_POLICY_CRITERIA_PROPERTIES DPCP ON DPCP.POLICY_CRITERION_ID = DPC.ID " +
+                    "WHERE P.TENANT_ID = ? ORDER BY DPC.ID";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
+            resultSet = stmt.executeQuery();
+            return this.readPolicyCriteria(resultSet);
         } catch (SQLException e) {
             throw new PolicyManagerDAOException("Error occurred while reading the criteria related to policies from " +
                     "the database", e);
         } finally {
             PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
         }
+    }
+
+    /**
+     * Reads policy criteria from rows ordered by criterion, having a row per property of a criterion.
+     */
+    private Map<Integer, List<PolicyCriterion>> readPolicyCriteria(ResultSet resultSet) throws SQLException {
+        Map<Integer, List<PolicyCriterion>> criteria = new HashMap<>();
+        PolicyCriterion policyCriterion = null;
+        while (resultSet.next()) {
+            int id = resultSet.getInt("ID");
+            if (policyCriterion == null || policyCriterion.getId() != id) {
+                policyCriterion = new PolicyCriterion();
+                policyCriterion.setId(id);
+                policyCriterion.setCriteriaId(resultSet.getInt("CRITERIA_ID"));
+                policyCriterion.setName(resultSet.getString("NAME"));
+                policyCriterion.setProperties(new Properties());
+                getValues(criteria, resultSet.getInt("POLICY_ID")).add(policyCriterion);
+            }
+            String key = resultSet.getString("PROP_KEY");
+            String value = resultSet.getString("PROP_VALUE");
+            if (key != null && value != null) {
+                policyCriterion.getProperties().setProperty(key, value);
+            }
+        }
         return criteria;
     }
 
@@ -1030,6 +1093,31 @@ public class PolicyDAOImpl implements PolicyDAO {
         }
     }
 
+    @Override
+    public Map<Integer, List<Integer>> getAppliedDeviceIdsOfPolicies() throws PolicyManagerDAOException {
+        Map<Integer, List<Integer>> deviceIds = new HashMap<>();
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        try {
+            conn = this.getConnection();
+            String query = "SELECT DP.POLICY_ID, DP.DEVICE_ID FROM DM_DEVICE_POLICY DP " +
+                    "INNER JOIN DM_POLICY P ON P.ID = DP.POLICY_ID WHERE P.TENANT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
+            resultSet = stmt.executeQuery();
+
+            while (resultSet.next()) {
+                getValues(deviceIds, resultSet.getInt("POLICY_ID")).add(resultSet.getInt("DEVICE_ID"));
+            }
+            return deviceIds;
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while getting the devices related to policies", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
 
     public List<String> getPolicyAppliedRoles(int policyId) throws PolicyManagerDAOException {
         Connection conn;
@@ -1054,6 +1142,31 @@ public class PolicyDAOImpl implements PolicyDAO {
         }
     }
 
+    @Override
+    public Map<Integer, List<String>> getAppliedRolesOfPolicies() throws PolicyManagerDAOException {
+        Map<Integer, List<String>> roleNames = new HashMap<>();
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        try {
+            conn = this.getConnection();
+            String query = "SELECT RP.POLICY_ID, RP.ROLE_NAME FROM DM_ROLE_POLICY RP " +
+                    "INNER JOIN DM_POLICY P ON P.ID = RP.POLICY_ID WHERE P.TENANT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
+            resultSet = stmt.executeQuery();
+
+            while (resultSet.next()) {
+                getValues(roleNames, resultSet.getInt("POLICY_ID")).add(resultSet.getString("ROLE_NAME"));
+            }
+            return roleNames;
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while getting the roles related to policies", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
     @Override
     public List<String> getPolicyAppliedUsers(int policyId) throws PolicyManagerDAOException {
         Connection conn;
@@ -1079,6 +1192,31 @@ public class PolicyDAOImpl implements PolicyDAO {
         }
     }
 
+    @Override
+    public Map<Integer, List<String>> getAppliedUsersOfPolicies() throws PolicyManagerDAOException {
+        Map<Integer, List<String>> users = new HashMap<>();
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        try {
+            conn = this.getConnection();
+            String query = "SELECT UP.POLICY_ID, UP.USERNAME FROM DM_USER_POLICY UP " +
+                    "INNER JOIN DM_POLICY P ON P.ID = UP.POLICY_ID WHERE P.TENANT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
+            resultSet = stmt.executeQuery();
+
+            while (resultSet.next()) {
+                getValues(users, resultSet.getInt("POLICY_ID")).add(resultSet.getString("USERNAME"));
+            }
+            return users;
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while getting the users related to policies", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
 
     @Override
     public void addEffectivePolicyToDevice(int deviceId, int enrolmentId, Policy policy) throws
@@ -1163,6 +1301,111 @@ public class PolicyDAOImpl implements PolicyDAO {
         }
     }
 
+    @Override
+    public List<Integer> getEnrolmentIdsHavingEffectivePolicy(List<Device> devices) throws PolicyManagerDAOException {
+        List<Integer> enrolmentIds = new ArrayList<>();
+        for (int from = 0; from < devices.size(); from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+            int to = Math.min(from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE, devices.size());
+            this.loadEnrolmentIdsHavingEffectivePolicy(devices.subList(from, to), enrolmentIds);
+        }
+        return enrolmentIds;
+    }
+
+    private void loadEnrolmentIdsHavingEffectivePolicy(List<Device> devices, List<Integer> enrolmentIds)
+            throws PolicyManagerDAOException {
+        StringBuilder query = new StringBuilder("SELECT ENROLMENT_ID FROM DM_DEVICE_POLICY_APPLIED WHERE " +
+                "TENANT_ID = ? AND ENROLMENT_ID IN (");
+        for (int i = 0; i < devices.size(); i++) {
+            query.append((i == 0) ? "?" : ", ?");
+        }
+        query.append(")");
+
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            stmt = conn.prepareStatement(query.toString());
+            int index = 1;
+            stmt.setInt(index++, tenantId);
+            for (Device device : devices) {
+                stmt.setInt(index++, device.getEnrolmentInfo().getId());
+            }
+            resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                enrolmentIds.add(resultSet.getInt("ENROLMENT_ID"));
+            }
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while getting the devices having an effective policy",
+                    e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
+    @Override
+    public void addEffectivePolicyToDevices(List<Device> devices, Policy policy) throws PolicyManagerDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        Timestamp currentTimestamp = new Timestamp(Calendar.getInstance().getTime().getTime());
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "INSERT INTO DM_DEVICE_POLICY_APPLIED (DEVICE_ID, POLICY_ID, POLICY_CONTENT, " +
+                    "CREATED_TIME, UPDATED_TIME, TENANT_ID, ENROLMENT_ID) VALUES (?, ?, ?, ?, ?, ?, ?)";
+            stmt = conn.prepareStatement(query);
+            // Serialized once, since it is the same for all the devices.
+            byte[] policyContent = PolicyManagerUtil.getBytes(policy);
+            for (Device device : devices) {
+                stmt.setInt(1, device.getId());
+                stmt.setInt(2, policy.getId());
+                stmt.setBytes(3, policyContent);
+                stmt.setTimestamp(4, currentTimestamp);
+                stmt.setTimestamp(5, currentTimestamp);
+                stmt.setInt(6, tenantId);
+                stmt.setInt(7, device.getEnrolmentInfo().getId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException | IOException e) {
+            throw new PolicyManagerDAOException("Error occurred while adding the evaluated feature list to devices", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    @Override
+    public void updateEffectivePolicyToDevices(List<Device> devices, Policy policy) throws PolicyManagerDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        Timestamp currentTimestamp = new Timestamp(Calendar.getInstance().getTime().getTime());
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "UPDATE DM_DEVICE_POLICY_APPLIED SET POLICY_ID = ?, POLICY_CONTENT = ?, UPDATED_TIME = ?, " +
+                    "APPLIED = ? WHERE DEVICE_ID = ? AND TENANT_ID = ? AND ENROLMENT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            byte[] policyContent = PolicyManagerUtil.getBytes(policy);
+            for (Device device : devices) {
+                stmt.setInt(1, policy.getId());
+                stmt.setBytes(2, policyContent);
+                stmt.setTimestamp(3, currentTimestamp);
+                stmt.setBoolean(4, false);
+                stmt.setInt(5, device.getId());
+                stmt.setInt(6, tenantId);
+                stmt.setInt(7, device.getEnrolmentInfo().getId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException | IOException e) {
+            throw new PolicyManagerDAOException("Error occurred while updating the evaluated feature list " +
+                    "to devices", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
     @Override
     public boolean checkPolicyAvailable(int deviceId, int enrollmentId) throws PolicyManagerDAOException {
         Connection conn;
@@ -1399,6 +1642,15 @@ public class PolicyDAOImpl implements PolicyDAO {
         return PolicyManagementDAOFactory.getConnection();
     }
 
+    private static <T> List<T> getValues(Map<Integer, List<T>> valuesOfPolicies, int policyId) {
+        List<T> values = valuesOfPolicies.get(policyId);
+        if (values == null) {
+            values = new ArrayList<>();
+            valuesOfPolicies.put(policyId, values);
+        }
+        return values;
+    }
+
     private Policy persistPolicy(Policy policy) throws PolicyManagerDAOException {
         Connection conn;
         PreparedStatement stmt = null;
@@ -1648,6 +1900,46 @@ public class PolicyDAOImpl implements PolicyDAO {
         return devicePolicyIds;
     }
 
+    @Override
+    public Map<Integer, Integer> getAppliedPolicyIdsOfEnrolments(List<Integer> enrolmentIds)
+            throws PolicyManagerDAOException {
+        Map<Integer, Integer> enrolmentPolicyIds = new HashMap<>();
+        for (int from = 0; from < enrolmentIds.size();
+             from += DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE) {
+            int to = Math.min(from + DeviceManagementConstants.BulkOperations.MAX_IN_CLAUSE_SIZE, enrolmentIds.size());
+            this.loadAppliedPolicyIdsOfEnrolments(enrolmentIds.subList(from, to), enrolmentPolicyIds);
+        }
+        return enrolmentPolicyIds;
+    }
+
+    private void loadAppliedPolicyIdsOfEnrolments(List<Integer> enrolmentIds, Map<Integer, Integer> enrolmentPolicyIds)
+            throws PolicyManagerDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "SELECT ENROLMENT_ID, POLICY_ID FROM DM_DEVICE_POLICY_APPLIED WHERE TENANT_ID = ? AND " +
+                    "ENROLMENT_ID IN (" + DeviceManagementDAOUtil.getInClause(enrolmentIds.size()) + ")";
+            stmt = conn.prepareStatement(query);
+            int index = 1;
+            stmt.setInt(index++, tenantId);
+            for (Integer enrolmentId : enrolmentIds) {
+                stmt.setInt(index++, enrolmentId);
+            }
+            resultSet = stmt.executeQuery();
+
+            while (resultSet.next()) {
+                enrolmentPolicyIds.put(resultSet.getInt("ENROLMENT_ID"), resultSet.getInt("POLICY_ID"));
+            }
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while getting the policies applied to enrolments", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
     @Override
     public HashMap<Integer, Integer> getAppliedPolicyIdsDeviceIds() throws PolicyManagerDAOException {
 
@@ -1675,4 +1967,135 @@ public class PolicyDAOImpl implements PolicyDAO {
         return devicePolicyIds;
     }
 
+    @Override
+    public List<Integer> getEffectivePolicyAppliedDeviceIds(int policyId) throws PolicyManagerDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        List<Integer> deviceIds = new ArrayList<>();
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "SELECT DISTINCT DEVICE_ID FROM DM_DEVICE_POLICY_APPLIED WHERE POLICY_ID = ? AND " +
+                    "TENANT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, policyId);
+            stmt.setInt(2, tenantId);
+            resultSet = stmt.executeQuery();
+
+            while (resultSet.next()) {
+                deviceIds.add(resultSet.getInt("DEVICE_ID"));
+            }
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while getting the devices having the effective " +
+                    "policy (" + policyId + ")", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+        return deviceIds;
+    }
+
+    @Override
+    public int getEffectivePolicyIdOfDevice(int deviceId) throws PolicyManagerDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            // A device re-enrolled keeps a row per enrolment, of which the latest one holds its current policy.
+            String query = "SELECT POLICY_ID FROM DM_DEVICE_POLICY_APPLIED WHERE DEVICE_ID = ? AND TENANT_ID = ? " +
+                    "ORDER BY ENROLMENT_ID DESC";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, deviceId);
+            stmt.setInt(2, tenantId);
+            resultSet = stmt.executeQuery();
+
+            if (resultSet.next()) {
+                return resultSet.getInt("POLICY_ID");
+            }
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while getting the effective policy of device (" +
+                    deviceId + ")", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+        return -1;
+    }
+
+    @Override
+    public Map<String, Integer> getDelegationCheckpoints() throws PolicyManagerDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        Map<String, Integer> checkpoints = new HashMap<>();
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "SELECT DEVICE_TYPE, LAST_DEVICE_ID FROM DM_POLICY_DELEGATION_CHECKPOINT WHERE TENANT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, tenantId);
+            resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                checkpoints.put(resultSet.getString("DEVICE_TYPE"), resultSet.getInt("LAST_DEVICE_ID"));
+            }
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while reading the progress of policy delegation", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+        return checkpoints;
+    }
+
+    @Override
+    public void setDelegationCheckpoint(String deviceType, int lastDeviceId) throws PolicyManagerDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "UPDATE DM_POLICY_DELEGATION_CHECKPOINT SET LAST_DEVICE_ID = ? WHERE DEVICE_TYPE = ? AND " +
+                    "TENANT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, lastDeviceId);
+            stmt.setString(2, deviceType);
+            stmt.setInt(3, tenantId);
+            if (stmt.executeUpdate() == 0) {
+                PolicyManagementDAOUtil.cleanupResources(stmt, null);
+                query = "INSERT INTO DM_POLICY_DELEGATION_CHECKPOINT (DEVICE_TYPE, TENANT_ID, LAST_DEVICE_ID) " +
+                        "VALUES (?, ?, ?)";
+                stmt = conn.prepareStatement(query);
+                stmt.setString(1, deviceType);
+                stmt.setInt(2, tenantId);
+                stmt.setInt(3, lastDeviceId);
+                stmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while recording the progress of policy delegation " +
+                    "to the devices of type " + deviceType, e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    @Override
+    public void removeDelegationCheckpoint(String deviceType) throws PolicyManagerDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "DELETE FROM DM_POLICY_DELEGATION_CHECKPOINT WHERE DEVICE_TYPE = ? AND TENANT_ID = ?";
+            stmt = conn.prepareStatement(query);
+            stmt.setString(1, deviceType);
+            stmt.setInt(2, tenantId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new PolicyManagerDAOException("Error occurred while removing the progress of policy delegation " +
+                    "to the devices of type " + deviceType, e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
 }
@@ -20,9 +20,7 @@ package org.wso2.carbon.policy.mgt.core.enforcement;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
-import org.wso2.carbon.device.mgt.core.dto.DeviceType;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.ntask.core.Task;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
@@ -30,8 +28,8 @@ import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
 import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
 import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -61,26 +59,19 @@ public class DelegationTask implements Task {
             if (log.isDebugEnabled()) {
                 log.debug("Number of device types which policies are changed .......... : " + deviceTypes.size());
             }
-            if (!deviceTypes.isEmpty()) {
+            // Applying the changes checkpoints the changed device types at their first devices, so the checkpoints
+            // hold both those and the device types of any delegation which was interrupted before completing.
+            Map<String, Integer> checkpoints = policyManager.getDelegationCheckpoints();
+            if (!checkpoints.isEmpty()) {
                 DeviceManagementProviderService service = PolicyManagementDataHolder.getInstance()
                         .getDeviceManagementService();
-                List<Device> devices;
-                List<Device> toBeNotified;
-                for (String deviceType : deviceTypes) {
+                PartitionedPolicyDelegator delegator = new PartitionedPolicyDelegator(policyManager,
+                        PolicyManagerUtil.getDelegationPartitionSize(),
+                        PolicyManagerUtil.getDelegationThreadPoolSize());
+                for (Map.Entry<String, Integer> checkpoint : checkpoints.entrySet()) {
+                    String deviceType = checkpoint.getKey();
                     try {
-                        devices = new ArrayList<>();
-                        toBeNotified = new ArrayList<>();
-                        devices.addAll(service.getAllDevices(deviceType));
-                        //HashMap<Integer, Integer> deviceIdPolicy = policyManager.getAppliedPolicyIdsDeviceIds();
-                        for (Device device : devices) {
-                            // if (deviceIdPolicy.containsKey(device.getId())) {
-                            toBeNotified.add(device);
-                            // }
-                        }
-                        if (!toBeNotified.isEmpty()) {
-                            PolicyEnforcementDelegator enforcementDelegator = new PolicyEnforcementDelegatorImpl(toBeNotified);
-                            enforcementDelegator.delegate();
-                        }
+                        delegator.delegate(deviceType, service.getAllDevices(deviceType), checkpoint.getValue());
                     } catch (DeviceManagementException e) {
                         throw new PolicyManagementException("Error occurred while fetching the devices", e);
                     } catch (PolicyDelegationException e) {
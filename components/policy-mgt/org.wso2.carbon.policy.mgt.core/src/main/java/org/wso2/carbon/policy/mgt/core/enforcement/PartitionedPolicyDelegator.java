@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.enforcement;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
+import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Delegates the effective policies to the devices of a device type in partitions of devices ordered by their ids,
+ * on a bounded pool of threads. After each partition, along with all the ones before it, has been delegated, the id
+ * of its last device is saved as the checkpoint of the device type, so that a delegation which was interrupted
+ * resumes from the devices following the checkpoint. The checkpoint is removed once all the devices are delegated.
+ */
+public class PartitionedPolicyDelegator {
+
+    private static final Log log = LogFactory.getLog(PartitionedPolicyDelegator.class);
+
+    private final PolicyManager policyManager;
+    private final int partitionSize;
+    private final int threadPoolSize;
+
+    public PartitionedPolicyDelegator(PolicyManager policyManager, int partitionSize, int threadPoolSize) {
+        this.policyManager = policyManager;
+        this.partitionSize = partitionSize;
+        this.threadPoolSize = threadPoolSize;
+    }
+
+    /**
+     * Delegates the effective policies to the devices of the device type having ids greater than the given one.
+     *
+     * @param deviceType            type of the devices.
+     * @param devices               all the devices of the device type.
+     * @param lastDelegatedDeviceId checkpoint of the device type, 0 to delegate to all the devices.
+     * @throws PolicyDelegationException if a partition could not be delegated. The checkpoint is left at the last
+     *                                   partition delegated before it.
+     */
+    public void delegate(final String deviceType, List<Device> devices, int lastDelegatedDeviceId)
+            throws PolicyDelegationException {
+        List<List<Device>> partitions = this.partition(devices, lastDelegatedDeviceId);
+        if (log.isDebugEnabled()) {
+            log.debug("Delegating policies to devices of type '" + deviceType + "' after device " +
+                    lastDelegatedDeviceId + " in " + partitions.size() + " partitions");
+        }
+
+        if (!partitions.isEmpty()) {
+            final int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+            final String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadPoolSize, partitions.size()),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "policy-delegation-" + deviceType);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            try {
+                List<Future<Void>> futures = new ArrayList<>(partitions.size());
+                for (final List<Device> partition : partitions) {
+                    futures.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws PolicyDelegationException {
+                            PrivilegedCarbonContext.startTenantFlow();
+                            try {
+                                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId);
+                                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain);
+                                new PolicyEnforcementDelegatorImpl(partition).delegate();
+                                return null;
+                            } finally {
+                                PrivilegedCarbonContext.endTenantFlow();
+                            }
+                        }
+                    }));
+                }
+                // Partitions complete in any order, but the checkpoint only moves past a partition once all the
+                // partitions before it are complete as well.
+                for (int i = 0; i < futures.size(); i++) {
+                    futures.get(i).get();
+                    List<Device> partition = partitions.get(i);
+                    policyManager.setDelegationCheckpoint(deviceType, partition.get(partition.size() - 1).getId());
+                }
+            } catch (ExecutionException e) {
+                String msg = "Error occurred while delegating policies to devices of type '" + deviceType + "'";
+                log.error(msg, e.getCause());
+                throw new PolicyDelegationException(msg, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PolicyDelegationException("Delegating policies to devices of type '" + deviceType +
+                        "' was interrupted", e);
+            } catch (PolicyManagementException e) {
+                String msg = "Error occurred while saving the delegation checkpoint of device type '" +
+                        deviceType + "'";
+                log.error(msg, e);
+                throw new PolicyDelegationException(msg, e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        try {
+            policyManager.removeDelegationCheckpoint(deviceType);
+        } catch (PolicyManagementException e) {
+            String msg = "Error occurred while removing the delegation checkpoint of device type '" + deviceType + "'";
+            log.error(msg, e);
+            throw new PolicyDelegationException(msg, e);
+        }
+    }
+
+    private List<List<Device>> partition(List<Device> devices, int lastDelegatedDeviceId) {
+        List<Device> pending = new ArrayList<>();
+        for (Device device : devices) {
+            if (device.getId() > lastDelegatedDeviceId) {
+                pending.add(device);
+            }
+        }
+        Collections.sort(pending, new Comparator<Device>() {
+            @Override
+            public int compare(Device device, Device other) {
+                return (device.getId() < other.getId()) ? -1 : ((device.getId() == other.getId()) ? 0 : 1);
+            }
+        });
+        List<List<Device>> partitions = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += partitionSize) {
+            partitions.add(pending.subList(from, Math.min(from + partitionSize, pending.size())));
+        }
+        return partitions;
+    }
+
+}
@@ -29,16 +29,28 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManager;
 import org.wso2.carbon.device.mgt.core.operation.mgt.CommandOperation;
 import org.wso2.carbon.device.mgt.core.operation.mgt.OperationManagerImpl;
 import org.wso2.carbon.device.mgt.core.operation.mgt.OperationMgtConstants;
+import org.wso2.carbon.policy.mgt.common.PIPDevice;
 import org.wso2.carbon.policy.mgt.common.Policy;
 import org.wso2.carbon.policy.mgt.common.PolicyEvaluationException;
+import org.wso2.carbon.policy.mgt.common.PolicyEvaluationPoint;
+import org.wso2.carbon.policy.mgt.common.PolicyInformationPoint;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerService;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerServiceImpl;
+import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyInformationPointImpl;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyMatcher;
+import org.wso2.carbon.policy.mgt.core.impl.SimplePolicyEvaluationPoint;
 import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
+import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
+import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
 import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class PolicyEnforcementDelegatorImpl implements PolicyEnforcementDelegator{
 
@@ -62,21 +74,95 @@ public class PolicyEnforcementDelegatorImpl implements PolicyEnforcementDelegato
 
     @Override
     public void delegate() throws PolicyDelegationException {
-        for (Device device : devices) {
-            DeviceIdentifier identifier = new DeviceIdentifier();
-            identifier.setId(device.getDeviceIdentifier());
-            identifier.setType(device.getType());
-
-            Policy policy = this.getEffectivePolicy(identifier);
-            List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
-            deviceIdentifiers.add(identifier);
-            if (policy != null) {
-                this.addPolicyRevokeOperation(deviceIdentifiers);
-                this.addPolicyOperation(deviceIdentifiers, policy);
-            } else {
-                //This means all the applicable policies have been removed from device. Hence calling a policy revoke.
-                this.addPolicyRevokeOperation(deviceIdentifiers);
+        // One PIP is shared by the whole run, so that the data of the devices is fetched with a single bulk lookup
+        // and reused by any evaluation made during the run.
+        PolicyInformationPoint policyInformationPoint = PolicyInformationPointImpl.beginRun();
+        try {
+            // The devices are grouped by their effective policies, so that the policy of each group is recorded and
+            // its operations are added for all the devices of the group at once, instead of one device at a time.
+            // The policies are matched without the PEP only when it evaluates them the same as the matcher.
+            PolicyEvaluationPoint policyEvaluationPoint =
+                    PolicyManagementDataHolder.getInstance().getPolicyEvaluationPoint();
+            PolicyMatcher matcher = (policyEvaluationPoint instanceof SimplePolicyEvaluationPoint) ?
+                    PolicyCacheManagerImpl.getInstance().getPolicyMatcher() : null;
+            List<DeviceIdentifier> allIdentifiers = new ArrayList<>(devices.size());
+            Map<String, List<DeviceIdentifier>> identifiersByType = new HashMap<>();
+            Map<Integer, Policy> policies = new HashMap<>();
+            Map<Integer, List<Device>> devicesByPolicy = new LinkedHashMap<>();
+
+            for (Device device : devices) {
+                DeviceIdentifier identifier = new DeviceIdentifier();
+                identifier.setId(device.getDeviceIdentifier());
+                identifier.setType(device.getType());
+                allIdentifiers.add(identifier);
+
+                List<DeviceIdentifier> identifiers = identifiersByType.get(device.getType());
+                if (identifiers == null) {
+                    identifiers = new ArrayList<>();
+                    identifiersByType.put(device.getType(), identifiers);
+                }
+                identifiers.add(identifier);
+            }
+
+            Map<String, PIPDevice> pipDevices = new HashMap<>();
+            for (PIPDevice pipDevice : policyInformationPoint.getDeviceData(allIdentifiers)) {
+                pipDevices.put(getKey(pipDevice.getDeviceIdentifier()), pipDevice);
+            }
+
+            for (int i = 0; i < devices.size(); i++) {
+                PIPDevice pipDevice = pipDevices.get(getKey(allIdentifiers.get(i)));
+                // Devices which are no longer found have no effective policy.
+                Policy policy = null;
+                if (pipDevice != null) {
+                    policy = (matcher != null) ? matcher.getEffectivePolicy(pipDevice) :
+                            this.getEffectivePolicy(allIdentifiers.get(i));
+                }
+                if (policy != null) {
+                    List<Device> policyDevices = devicesByPolicy.get(policy.getId());
+                    if (policyDevices == null) {
+                        policyDevices = new ArrayList<>();
+                        devicesByPolicy.put(policy.getId(), policyDevices);
+                        policies.put(policy.getId(), policy);
+                    }
+                    policyDevices.add(devices.get(i));
+                }
+            }
+
+            // Devices left without any applicable policy are only revoked their previous policies.
+            for (List<DeviceIdentifier> identifiers : identifiersByType.values()) {
+                this.addPolicyRevokeOperation(identifiers);
             }
+
+            PolicyManager policyManager = new PolicyManagerImpl();
+            for (Map.Entry<Integer, List<Device>> entry : devicesByPolicy.entrySet()) {
+                Policy policy = policies.get(entry.getKey());
+                policyManager.addAppliedPolicyToDevices(entry.getValue(), policy);
+
+                Map<String, List<DeviceIdentifier>> policyIdentifiersByType = new HashMap<>();
+                for (Device device : entry.getValue()) {
+                    List<DeviceIdentifier> identifiers = policyIdentifiersByType.get(device.getType());
+                    if (identifiers == null) {
+                        identifiers = new ArrayList<>();
+                        policyIdentifiersByType.put(device.getType(), identifiers);
+                    }
+                    DeviceIdentifier identifier = new DeviceIdentifier();
+                    identifier.setId(device.getDeviceIdentifier());
+                    identifier.setType(device.getType());
+                    identifiers.add(identifier);
+                }
+                for (List<DeviceIdentifier> identifiers : policyIdentifiersByType.values()) {
+                    this.addPolicyOperation(identifiers, policy);
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Policy " + policy.getId() + " delegated to " + entry.getValue().size() + " devices.");
+                }
+            }
+        } catch (PolicyManagementException e) {
+            String msg = "Error occurred while delegating the effective policies to devices.";
+            log.error(msg, e);
+            throw new PolicyDelegationException(msg, e);
+        } finally {
+            PolicyInformationPointImpl.endRun();
         }
     }
 
@@ -138,6 +224,10 @@ public class PolicyEnforcementDelegatorImpl implements PolicyEnforcementDelegato
         }
     }
 
+    private static String getKey(DeviceIdentifier identifier) {
+        return identifier.getType() + '\n' + identifier.getId();
+    }
+
     private Operation getPolicyRevokeOperation() {
         CommandOperation policyRevokeOperation = new CommandOperation();
         policyRevokeOperation.setEnabled(true);
@@ -69,7 +69,7 @@ public class PolicyAdministratorPointImpl implements PolicyAdministratorPoint {
 //        } catch (PolicyDelegationException e) {
 //            throw new PolicyManagementException("Error occurred while delegating policy operation to the devices", e);
 //        }
-        PolicyCacheManagerImpl.getInstance().rePopulateCache();
+        PolicyCacheManagerImpl.getInstance().updatePolicy(resultantPolicy.getId());
         return resultantPolicy;
     }
 
@@ -81,7 +81,7 @@ public class PolicyAdministratorPointImpl implements PolicyAdministratorPoint {
 //        } catch (PolicyDelegationException e) {
 //            throw new PolicyManagementException("Error occurred while delegating policy operation to the devices", e);
 //        }
-        PolicyCacheManagerImpl.getInstance().rePopulateCache();
+        PolicyCacheManagerImpl.getInstance().updatePolicy(resultantPolicy.getId());
         return resultantPolicy;
     }
 
@@ -95,20 +95,20 @@ public class PolicyAdministratorPointImpl implements PolicyAdministratorPoint {
     @Override
     public void activatePolicy(int policyId) throws PolicyManagementException {
         policyManager.activatePolicy(policyId);
-        PolicyCacheManagerImpl.getInstance().rePopulateCache();
+        PolicyCacheManagerImpl.getInstance().updatePolicy(policyId);
     }
 
     @Override
     public void inactivatePolicy(int policyId) throws PolicyManagementException {
         policyManager.inactivatePolicy(policyId);
-        PolicyCacheManagerImpl.getInstance().rePopulateCache();
+        PolicyCacheManagerImpl.getInstance().updatePolicy(policyId);
     }
 
     @Override
     public boolean deletePolicy(Policy policy) throws PolicyManagementException {
         boolean bool = policyManager.deletePolicy(policy);
         PolicyCacheManager policyCacheManager = PolicyCacheManagerImpl.getInstance();
-        policyCacheManager.rePopulateCache();
+        policyCacheManager.removePolicy(policy.getId());
         return bool;
     }
 
@@ -116,7 +116,7 @@ public class PolicyAdministratorPointImpl implements PolicyAdministratorPoint {
     public boolean deletePolicy(int policyId) throws PolicyManagementException {
         boolean bool = policyManager.deletePolicy(policyId);
         PolicyCacheManager policyCacheManager = PolicyCacheManagerImpl.getInstance();
-        policyCacheManager.rePopulateCache();
+        policyCacheManager.removePolicy(policyId);
         return bool;
     }
 
@@ -218,14 +218,14 @@ public class PolicyAdministratorPointImpl implements PolicyAdministratorPoint {
     public Policy addPolicyToDevice(List<DeviceIdentifier> deviceIdentifierList, Policy policy) throws
             PolicyManagementException {
         policy = policyManager.addPolicyToDevice(deviceIdentifierList, policy);
-        PolicyCacheManagerImpl.getInstance().rePopulateCache();
+        PolicyCacheManagerImpl.getInstance().updatePolicy(policy.getId());
         return policy;
     }
 
     @Override
     public Policy addPolicyToRole(List<String> roleNames, Policy policy) throws PolicyManagementException {
         policy = policyManager.addPolicyToRole(roleNames, policy);
-        PolicyCacheManagerImpl.getInstance().rePopulateCache();
+        PolicyCacheManagerImpl.getInstance().updatePolicy(policy.getId());
         return policy;
     }
 
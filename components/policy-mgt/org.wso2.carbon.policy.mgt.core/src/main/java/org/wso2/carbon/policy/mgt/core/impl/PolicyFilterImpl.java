@@ -28,7 +28,6 @@ import org.wso2.carbon.policy.mgt.common.PolicyFilter;
 import org.wso2.carbon.policy.mgt.core.util.PolicyManagementConstants;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -67,19 +66,17 @@ public class PolicyFilterImpl implements PolicyFilter {
     public List<Policy> filterDeviceGroupsPolicies(Map<Integer, DeviceGroup> groupMap, List<Policy> policies) {
 
         List<Policy> temp = new ArrayList<Policy>();
-        Map<Integer, Policy> policyMap = new HashMap<>();
         for (Policy policy : policies) {
             List<DeviceGroupWrapper> wrappers = policy.getDeviceGroups();
-            if (PolicyManagementConstants.ANY.equalsIgnoreCase(wrappers.get(0).getName())) {
+            if (wrappers == null || wrappers.isEmpty() ||
+                    PolicyManagementConstants.ANY.equalsIgnoreCase(wrappers.get(0).getName())) {
                 temp.add(policy);
-                policyMap.put(policy.getId(), policy);
                 continue;
-            } else {
-                for (DeviceGroupWrapper deviceGroupWrapper : wrappers) {
-                    if (groupMap.containsKey(deviceGroupWrapper.getId()) && policyMap.containsKey(policy.getId())) {
-                        temp.add(policy);
-                        policyMap.put(policy.getId(), policy);
-                    }
+            }
+            for (DeviceGroupWrapper deviceGroupWrapper : wrappers) {
+                if (groupMap.containsKey(deviceGroupWrapper.getId())) {
+                    temp.add(policy);
+                    break;
                 }
             }
         }
@@ -117,13 +114,8 @@ public class PolicyFilterImpl implements PolicyFilter {
                 continue;
             }
 
-            for (String role : roles) {
-                for (String policyRole : tempRoles) {
-                    if (role.equalsIgnoreCase(policyRole)) {
-                        temp.add(policy);
-                        continue;
-                    }
-                }
+            if (this.containsAnyRole(tempRoles, roles)) {
+                temp.add(policy);
             }
         }
 
@@ -222,6 +214,7 @@ public class PolicyFilterImpl implements PolicyFilter {
             for (String user : users) {
                 if (username.equalsIgnoreCase(user)) {
                     temp.add(policy);
+                    break;
                 }
             }
         }
@@ -235,4 +228,16 @@ public class PolicyFilterImpl implements PolicyFilter {
 
         return temp;
     }
+
+    private boolean containsAnyRole(List<String> policyRoles, String[] roles) {
+        for (String role : roles) {
+            for (String policyRole : policyRoles) {
+                if (role.equalsIgnoreCase(policyRole)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
 }
@@ -33,6 +33,7 @@ import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderServiceIm
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderServiceImpl;
 import org.wso2.carbon.policy.mgt.common.*;
+import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
 import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
 import org.wso2.carbon.policy.mgt.core.mgt.FeatureManager;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
@@ -40,9 +41,10 @@ import org.wso2.carbon.policy.mgt.core.mgt.impl.FeatureManagerImpl;
 import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
-import org.wso2.carbon.user.api.UserStoreManager;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,40 +53,136 @@ public class PolicyInformationPointImpl implements PolicyInformationPoint {
 
     private static final Log log = LogFactory.getLog(PolicyInformationPointImpl.class);
 
+    /* The PIP shared by the evaluation or delegation run in progress on the current thread, if any. */
+    private static final ThreadLocal<PolicyInformationPointImpl> currentRun = new ThreadLocal<>();
+
     PolicyManager policyManager;
     FeatureManager featureManager;
     DeviceManagementProviderService deviceManagementService;
+    GroupManagementProviderService groupManagementService;
+
+    /* Snapshots of the devices and the roles of their owners, kept for the lifetime of this PIP, i.e. one
+       evaluation run, so that a device is fetched once however many times it is evaluated in the run. */
+    private final Map<String, PIPDevice> pipDevices = new HashMap<>();
+    private final Map<String, String[]> rolesOfOwners = new HashMap<>();
+    private int snapshotTenantId = MultitenantConstants.INVALID_TENANT_ID;
+    private int runDepth;
 
     public PolicyInformationPointImpl() {
         deviceManagementService =
                 PolicyManagementDataHolder.getInstance().getDeviceManagementService();
+        if (deviceManagementService == null) {
+            deviceManagementService = new DeviceManagementProviderServiceImpl();
+        }
+        groupManagementService = PolicyManagementDataHolder.getInstance().getGroupManagementService();
+        if (groupManagementService == null) {
+            groupManagementService = new GroupManagementProviderServiceImpl();
+        }
         policyManager = new PolicyManagerImpl();
         featureManager = new FeatureManagerImpl();
     }
 
+    /**
+     * Starts a run on the current thread, during which getInstance returns the same PIP, so that each device and the
+     * roles of each owner are fetched only once for the whole run. Runs may be nested, and each call must be paired
+     * with a call to endRun.
+     *
+     * @return the PIP shared by the run.
+     */
+    public static PolicyInformationPoint beginRun() {
+        PolicyInformationPointImpl policyInformationPoint = currentRun.get();
+        if (policyInformationPoint == null) {
+            policyInformationPoint = new PolicyInformationPointImpl();
+            currentRun.set(policyInformationPoint);
+        }
+        policyInformationPoint.runDepth++;
+        return policyInformationPoint;
+    }
+
+    /**
+     * Ends the run started by the matching call to beginRun. The shared PIP, along with the devices it keeps, is
+     * released once the outermost run ends.
+     */
+    public static void endRun() {
+        PolicyInformationPointImpl policyInformationPoint = currentRun.get();
+        if (policyInformationPoint != null && --policyInformationPoint.runDepth == 0) {
+            currentRun.remove();
+        }
+    }
+
+    /**
+     * @return the PIP of the run in progress on the current thread, or a new PIP when no run is in progress.
+     */
+    public static PolicyInformationPoint getInstance() {
+        PolicyInformationPointImpl policyInformationPoint = currentRun.get();
+        return (policyInformationPoint != null) ? policyInformationPoint : new PolicyInformationPointImpl();
+    }
+
     @Override
     public PIPDevice getDeviceData(DeviceIdentifier deviceIdentifier) throws PolicyManagementException {
-        PIPDevice pipDevice = new PIPDevice();
-        Device device;
-        DeviceType deviceType = new DeviceType();
-        deviceType.setName(deviceIdentifier.getType());
-        DeviceManagementProviderService deviceManagementService = new DeviceManagementProviderServiceImpl();
-        GroupManagementProviderService groupManagementProviderService = new GroupManagementProviderServiceImpl();
+        List<PIPDevice> pipDevices = this.getDeviceData(Collections.singletonList(deviceIdentifier));
+        if (pipDevices.isEmpty()) {
+            throw new PolicyManagementException("Device details cannot be null.");
+        }
+        return pipDevices.get(0);
+    }
 
-        try {
-            device = deviceManagementService.getDevice(deviceIdentifier);
+    @Override
+    public List<PIPDevice> getDeviceData(List<DeviceIdentifier> deviceIdentifiers) throws PolicyManagementException {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        if (tenantId != snapshotTenantId) {
+            pipDevices.clear();
+            rolesOfOwners.clear();
+            snapshotTenantId = tenantId;
+        }
+
+        List<DeviceIdentifier> missingIdentifiers = new ArrayList<>();
+        for (DeviceIdentifier identifier : deviceIdentifiers) {
+            if (!pipDevices.containsKey(getKey(identifier))) {
+                missingIdentifiers.add(identifier);
+            }
+        }
+        if (!missingIdentifiers.isEmpty()) {
+            this.loadDeviceData(missingIdentifiers);
+        }
+
+        List<PIPDevice> deviceData = new ArrayList<>(deviceIdentifiers.size());
+        for (DeviceIdentifier identifier : deviceIdentifiers) {
+            PIPDevice pipDevice = pipDevices.get(getKey(identifier));
+            if (pipDevice != null) {
+                deviceData.add(pipDevice);
+            }
+        }
+        return deviceData;
+    }
 
-            if (device != null) {
+    private void loadDeviceData(List<DeviceIdentifier> deviceIdentifiers) throws PolicyManagementException {
+        try {
+            List<Device> devices = deviceManagementService.getDevices(deviceIdentifiers);
+            List<Integer> deviceIds = new ArrayList<>(devices.size());
+            for (Device device : devices) {
+                deviceIds.add(device.getId());
+            }
+            Map<Integer, List<DeviceGroup>> groupsOfDevices = deviceIds.isEmpty() ?
+                    new HashMap<Integer, List<DeviceGroup>>() : groupManagementService.getGroupsOfDevices(deviceIds);
+
+            for (Device device : devices) {
+                DeviceType deviceType = new DeviceType();
+                deviceType.setName(device.getType());
+                DeviceIdentifier identifier = new DeviceIdentifier();
+                identifier.setType(device.getType());
+                identifier.setId(device.getDeviceIdentifier());
+                List<DeviceGroup> deviceGroups = groupsOfDevices.get(device.getId());
+
+                PIPDevice pipDevice = new PIPDevice();
                 pipDevice.setDevice(device);
-                pipDevice.setRoles(getRoleOfDevice(device));
+                pipDevice.setRoles(this.getRolesOfOwner(device.getEnrolmentInfo().getOwner()));
                 pipDevice.setDeviceType(deviceType);
-                pipDevice.setDeviceIdentifier(deviceIdentifier);
+                pipDevice.setDeviceIdentifier(identifier);
                 pipDevice.setUserId(device.getEnrolmentInfo().getOwner());
                 pipDevice.setOwnershipType(device.getEnrolmentInfo().getOwnership().toString());
-                pipDevice.setDeviceGroups(groupManagementProviderService.getGroups(pipDevice.getDeviceIdentifier()));
-
-            } else {
-                throw new PolicyManagementException("Device details cannot be null.");
+                pipDevice.setDeviceGroups((deviceGroups != null) ? deviceGroups : new ArrayList<DeviceGroup>());
+                pipDevices.put(getKey(identifier), pipDevice);
             }
         } catch (DeviceManagementException e) {
             String msg = "Error occurred when retrieving the data related to device from the database.";
@@ -95,40 +193,15 @@ public class PolicyInformationPointImpl implements PolicyInformationPoint {
             log.error(msg, e);
             throw new PolicyManagementException(msg, e);
         }
-        return pipDevice;
     }
 
     @Override
     public List<Policy> getRelatedPolicies(PIPDevice pipDevice) throws PolicyManagementException {
 
-        List<Policy> policies = policyManager.getPoliciesOfDeviceType(pipDevice.getDeviceType().getName());
-        PolicyFilter policyFilter = new PolicyFilterImpl();
-
-        if (log.isDebugEnabled()) {
-            log.debug("No of policies for the device type : " + pipDevice.getDeviceType().getName() + " : " +
-                    policies.size());
-            for (Policy policy : policies) {
-                log.debug("Names of policy for above device type : " + policy.getPolicyName());
-            }
-        }
-
-        policies = policyFilter.filterActivePolicies(policies);
-
-        if (pipDevice.getDeviceType() != null) {
-            policies = policyFilter.filterDeviceTypeBasedPolicies(pipDevice.getDeviceType().getName(), policies);
-        }
-        if (pipDevice.getOwnershipType() != null && !pipDevice.getOwnershipType().isEmpty()) {
-            policies = policyFilter.filterOwnershipTypeBasedPolicies(pipDevice.getOwnershipType(), policies);
-        }
-        if (pipDevice.getRoles() != null) {
-            policies = policyFilter.filterRolesBasedPolicies(pipDevice.getRoles(), policies);
-        }
-        if (pipDevice.getUserId() != null && !pipDevice.getUserId().isEmpty()) {
-            policies = policyFilter.filterUserBasedPolicies(pipDevice.getUserId(), policies);
-        }
-        if (pipDevice.getDeviceGroups() != null && !pipDevice.getDeviceGroups().isEmpty()) {
-
-        }
+        // Active flag, device type, ownership, roles, users and device groups are all matched by the compiled
+        // policies, instead of filtering the policies of the device type once for each of them.
+        List<Policy> policies =
+                PolicyCacheManagerImpl.getInstance().getPolicyMatcher().getMatchingPolicies(pipDevice);
 
         if (log.isDebugEnabled()) {
             log.debug("No of policies selected for the device type : " + pipDevice.getDeviceType().getName() + " : " +
@@ -147,37 +220,25 @@ public class PolicyInformationPointImpl implements PolicyInformationPoint {
 
     }
 
-    private String[] getRoleOfDevice(Device device) throws PolicyManagementException {
+    private String[] getRolesOfOwner(String owner) throws PolicyManagementException {
+        if (rolesOfOwners.containsKey(owner)) {
+            return rolesOfOwners.get(owner);
+        }
         try {
+            String[] roles = null;
             UserRealm userRealm = CarbonContext.getThreadLocalCarbonContext().getUserRealm();
             if (userRealm != null) {
-                return userRealm.getUserStoreManager().getRoleListOfUser(device.getEnrolmentInfo().getOwner());
-            } else {
-                return null;
+                roles = userRealm.getUserStoreManager().getRoleListOfUser(owner);
             }
+            rolesOfOwners.put(owner, roles);
+            return roles;
         } catch (UserStoreException e) {
             throw new PolicyManagementException("Error occurred when retrieving roles related to user name.", e);
         }
     }
 
-
-    private List<Policy> removeDuplicatePolicies(List<List<Policy>> policies) {
-
-        Map<Integer, Policy> map = new HashMap<Integer, Policy>();
-        List<Policy> finalPolicies = new ArrayList<Policy>();
-        for (List<Policy> policyList : policies) {
-            for (Policy policy : policyList) {
-                if (!map.containsKey(policy.getId())) {
-                    map.put(policy.getId(), policy);
-                    finalPolicies.add(policy);
-                }
-            }
-        }
-        return finalPolicies;
-    }
-
-    private DeviceManagementProviderService getDeviceManagementService() {
-        return new DeviceManagementProviderServiceImpl();
+    private static String getKey(DeviceIdentifier identifier) {
+        return identifier.getType() + '\n' + identifier.getId();
     }
 
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.impl;
+
+import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
+import org.wso2.carbon.policy.mgt.common.DeviceGroupWrapper;
+import org.wso2.carbon.policy.mgt.common.PIPDevice;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagementConstants;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches devices against a set of policies compiled ahead of time. The active policies of each device type are
+ * numbered in the order of their priorities, and for every ownership type, role, user and device group the policies
+ * applicable to it are kept as a bit set. Matching a device is then a few bit set unions and intersections, and its
+ * effective policy is the lowest set bit.
+ *
+ * A policy applies to a device when all of the following hold, the same as the chain of filters of
+ * {@link PolicyFilterImpl}:
+ * <ul>
+ * <li>its ownership type is the one of the device, or ANY;</li>
+ * <li>it has no roles, its first role is ANY, or one of its roles is a role of the device owner;</li>
+ * <li>it has no users, one of its users is ANY, or one of its users is the device owner;</li>
+ * <li>it has no device groups, its first group is ANY, or one of its groups is a group of the device.</li>
+ * </ul>
+ * Instances are immutable, and are compiled again when the policies change.
+ */
+public class PolicyMatcher {
+
+    private final Map<String, CompiledPolicies> policiesByDeviceType;
+
+    public PolicyMatcher(Collection<Policy> policies) {
+        Map<String, List<Policy>> activePolicies = new HashMap<>();
+        for (Policy policy : policies) {
+            if (!policy.isActive() || policy.getProfile() == null || policy.getProfile().getDeviceType() == null) {
+                continue;
+            }
+            String deviceType = policy.getProfile().getDeviceType().toLowerCase();
+            List<Policy> deviceTypePolicies = activePolicies.get(deviceType);
+            if (deviceTypePolicies == null) {
+                deviceTypePolicies = new ArrayList<>();
+                activePolicies.put(deviceType, deviceTypePolicies);
+            }
+            deviceTypePolicies.add(policy);
+        }
+        policiesByDeviceType = new HashMap<>();
+        for (Map.Entry<String, List<Policy>> entry : activePolicies.entrySet()) {
+            policiesByDeviceType.put(entry.getKey(), new CompiledPolicies(entry.getValue()));
+        }
+    }
+
+    /**
+     * @return the policies applicable to the device, in the order of their priorities.
+     */
+    public List<Policy> getMatchingPolicies(PIPDevice pipDevice) {
+        CompiledPolicies compiledPolicies = this.getCompiledPolicies(pipDevice);
+        if (compiledPolicies == null) {
+            return new ArrayList<>();
+        }
+        BitSet matches = compiledPolicies.match(pipDevice);
+        List<Policy> policies = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            policies.add(compiledPolicies.policies[i]);
+        }
+        return policies;
+    }
+
+    /**
+     * @return the applicable policy having the highest priority, or null if no policy applies to the device.
+     */
+    public Policy getEffectivePolicy(PIPDevice pipDevice) {
+        CompiledPolicies compiledPolicies = this.getCompiledPolicies(pipDevice);
+        if (compiledPolicies == null) {
+            return null;
+        }
+        int first = compiledPolicies.match(pipDevice).nextSetBit(0);
+        return (first >= 0) ? compiledPolicies.policies[first] : null;
+    }
+
+    private CompiledPolicies getCompiledPolicies(PIPDevice pipDevice) {
+        if (pipDevice.getDeviceType() == null || pipDevice.getDeviceType().getName() == null) {
+            return null;
+        }
+        return policiesByDeviceType.get(pipDevice.getDeviceType().getName().toLowerCase());
+    }
+
+    private static class CompiledPolicies {
+
+        private final Policy[] policies;
+        private final BitSet all;
+        private final BitSet anyOwnership = new BitSet();
+        private final Map<String, BitSet> byOwnership = new HashMap<>();
+        private final BitSet anyRole = new BitSet();
+        private final Map<String, BitSet> byRole = new HashMap<>();
+        private final BitSet anyUser = new BitSet();
+        private final Map<String, BitSet> byUser = new HashMap<>();
+        private final BitSet anyGroup = new BitSet();
+        private final Map<Integer, BitSet> byGroup = new HashMap<>();
+
+        CompiledPolicies(List<Policy> deviceTypePolicies) {
+            List<Policy> sortedPolicies = new ArrayList<>(deviceTypePolicies);
+            Collections.sort(sortedPolicies);
+            policies = sortedPolicies.toArray(new Policy[sortedPolicies.size()]);
+            all = new BitSet(policies.length);
+            all.set(0, policies.length);
+
+            for (int i = 0; i < policies.length; i++) {
+                Policy policy = policies[i];
+                String ownershipType = policy.getOwnershipType();
+                if (PolicyManagementConstants.ANY.equalsIgnoreCase(ownershipType)) {
+                    anyOwnership.set(i);
+                } else if (ownershipType != null) {
+                    getBits(byOwnership, ownershipType.toLowerCase()).set(i);
+                }
+
+                List<String> roles = policy.getRoles();
+                if (roles == null || roles.isEmpty() || PolicyManagementConstants.ANY.equalsIgnoreCase(roles.get(0))) {
+                    anyRole.set(i);
+                } else {
+                    for (String role : roles) {
+                        getBits(byRole, role.toLowerCase()).set(i);
+                    }
+                }
+
+                List<String> users = policy.getUsers();
+                if (users == null || users.isEmpty() || users.contains(PolicyManagementConstants.ANY)) {
+                    anyUser.set(i);
+                } else {
+                    for (String user : users) {
+                        getBits(byUser, user.toLowerCase()).set(i);
+                    }
+                }
+
+                List<DeviceGroupWrapper> groups = policy.getDeviceGroups();
+                if (groups == null || groups.isEmpty() ||
+                        PolicyManagementConstants.ANY.equalsIgnoreCase(groups.get(0).getName())) {
+                    anyGroup.set(i);
+                } else {
+                    for (DeviceGroupWrapper group : groups) {
+                        getBits(byGroup, group.getId()).set(i);
+                    }
+                }
+            }
+        }
+
+        BitSet match(PIPDevice pipDevice) {
+            BitSet matches = (BitSet) all.clone();
+
+            String ownershipType = pipDevice.getOwnershipType();
+            if (ownershipType != null && !ownershipType.isEmpty()) {
+                BitSet ownershipMatches = (BitSet) anyOwnership.clone();
+                or(ownershipMatches, byOwnership.get(ownershipType.toLowerCase()));
+                matches.and(ownershipMatches);
+            }
+
+            String[] roles = pipDevice.getRoles();
+            if (roles != null) {
+                BitSet roleMatches = (BitSet) anyRole.clone();
+                for (String role : roles) {
+                    or(roleMatches, byRole.get(role.toLowerCase()));
+                }
+                matches.and(roleMatches);
+            }
+
+            String userId = pipDevice.getUserId();
+            if (userId != null && !userId.isEmpty()) {
+                BitSet userMatches = (BitSet) anyUser.clone();
+                or(userMatches, byUser.get(userId.toLowerCase()));
+                matches.and(userMatches);
+            }
+
+            BitSet groupMatches = (BitSet) anyGroup.clone();
+            if (pipDevice.getDeviceGroups() != null) {
+                for (DeviceGroup group : pipDevice.getDeviceGroups()) {
+                    or(groupMatches, byGroup.get(group.getId()));
+                }
+            }
+            matches.and(groupMatches);
+            return matches;
+        }
+
+        private static <K> BitSet getBits(Map<K, BitSet> bitSets, K key) {
+            BitSet bits = bitSets.get(key);
+            if (bits == null) {
+                bits = new BitSet();
+                bitSets.put(key, bits);
+            }
+            return bits;
+        }
+
+        private static void or(BitSet target, BitSet bits) {
+            if (bits != null) {
+                target.or(bits);
+            }
+        }
+
+    }
+
+}
@@ -16,16 +16,15 @@
  * under the License.
  */
 
+package org.wso2.carbon.policy.mgt.core.impl;
 
-package org.wso2.carbon.device.mgt.core.search.mgt;
+import org.wso2.carbon.policy.mgt.common.PolicyEvaluationPoint;
 
-import org.wso2.carbon.device.mgt.common.Device;
-
-import java.util.List;
-import java.util.Map;
-
-public interface ResultSetAggregator {
-
-    List<Device> aggregate(Map<String, List<Device>> devices);
+/**
+ * A PEP whose effective policy of a device is the related policy having the highest priority, the same as
+ * {@link PolicyMatcher#getEffectivePolicy}. The effective policies are evaluated with the policy matcher instead of
+ * the PEP only when the registered PEP is one of these.
+ */
+public interface SimplePolicyEvaluationPoint extends PolicyEvaluationPoint {
 
 }
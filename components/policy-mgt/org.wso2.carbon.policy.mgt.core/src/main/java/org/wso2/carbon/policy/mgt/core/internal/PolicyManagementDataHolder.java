@@ -19,6 +19,7 @@
 package org.wso2.carbon.policy.mgt.core.internal;
 
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
 import org.wso2.carbon.ntask.core.service.TaskService;
 import org.wso2.carbon.policy.mgt.common.PolicyEvaluationPoint;
 import org.wso2.carbon.policy.mgt.common.PolicyInformationPoint;
@@ -38,6 +39,7 @@ public class PolicyManagementDataHolder {
     private PolicyEvaluationPoint policyEvaluationPoint;
     private PolicyInformationPoint policyInformationPoint;
     private DeviceManagementProviderService deviceManagementService;
+    private GroupManagementProviderService groupManagementService;
     private MonitoringManager monitoringManager;
     private PolicyManager policyManager;
     private Map<String, PolicyMonitoringService> policyMonitoringServiceMap = new HashMap<>();
@@ -111,6 +113,14 @@ public class PolicyManagementDataHolder {
         this.deviceManagementService = deviceManagementService;
     }
 
+    public GroupManagementProviderService getGroupManagementService() {
+        return groupManagementService;
+    }
+
+    public void setGroupManagementService(GroupManagementProviderService groupManagementService) {
+        this.groupManagementService = groupManagementService;
+    }
+
     public PolicyMonitoringService getPolicyMonitoringService(String deviceType) {
         return policyMonitoringServiceMap.get(deviceType);
     }
@@ -23,16 +23,20 @@ import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
 import org.wso2.carbon.device.mgt.core.config.policy.PolicyConfiguration;
+import org.wso2.carbon.device.mgt.core.service.DeviceChangeListener;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
 import org.wso2.carbon.ntask.core.service.TaskService;
 import org.wso2.carbon.policy.mgt.common.PolicyEvaluationPoint;
 import org.wso2.carbon.policy.mgt.common.spi.PolicyMonitoringService;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerService;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerServiceImpl;
+import org.wso2.carbon.policy.mgt.core.cache.impl.EffectivePolicyStore;
 import org.wso2.carbon.policy.mgt.core.config.PolicyConfigurationManager;
 import org.wso2.carbon.policy.mgt.core.config.PolicyManagementConfig;
 import org.wso2.carbon.policy.mgt.core.config.datasource.DataSourceConfig;
 import org.wso2.carbon.policy.mgt.core.dao.PolicyManagementDAOFactory;
+import org.wso2.carbon.policy.mgt.core.task.MonitoringScheduler;
 import org.wso2.carbon.policy.mgt.core.task.TaskScheduleService;
 import org.wso2.carbon.policy.mgt.core.task.TaskScheduleServiceImpl;
 import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
@@ -58,6 +62,12 @@ import org.wso2.carbon.user.core.service.RealmService;
  * policy="dynamic"
  * bind="setDeviceManagementService"
  * unbind="unsetDeviceManagementService"
+ * @scr.reference name="org.wso2.carbon.device.group.manager"
+ * interface="org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService"
+ * cardinality="0..1"
+ * policy="dynamic"
+ * bind="setGroupManagementService"
+ * unbind="unsetGroupManagementService"
  * @scr.reference name="org.wso2.carbon.policy.mgt.common.policy.monitor"
  * interface="org.wso2.carbon.policy.mgt.common.spi.PolicyMonitoringService"
  * cardinality="0..n"
@@ -86,6 +96,8 @@ public class PolicyManagementServiceComponent {
 
             componentContext.getBundleContext().registerService(
                     PolicyManagerService.class.getName(), new PolicyManagerServiceImpl(), null);
+            componentContext.getBundleContext().registerService(
+                    DeviceChangeListener.class.getName(), EffectivePolicyStore.getInstance(), null);
 
             PolicyConfiguration policyConfiguration =
                     DeviceConfigurationManager.getInstance().getDeviceManagementConfig().getPolicyConfiguration();
@@ -108,6 +120,7 @@ public class PolicyManagementServiceComponent {
                 TaskScheduleService taskScheduleService = new TaskScheduleServiceImpl();
                 taskScheduleService.stopTask();
             }
+            MonitoringScheduler.shutdown();
         } catch (Throwable t) {
             log.error("Error occurred while destroying the Policy management core.", t);
         }
@@ -183,6 +196,20 @@ public class PolicyManagementServiceComponent {
         PolicyManagementDataHolder.getInstance().setDeviceManagementService(null);
     }
 
+    protected void setGroupManagementService(GroupManagementProviderService groupManagementService) {
+        if (log.isDebugEnabled()) {
+            log.debug("Setting Group Management Service");
+        }
+        PolicyManagementDataHolder.getInstance().setGroupManagementService(groupManagementService);
+    }
+
+    protected void unsetGroupManagementService(GroupManagementProviderService groupManagementService) {
+        if (log.isDebugEnabled()) {
+            log.debug("Removing Group Management Service");
+        }
+        PolicyManagementDataHolder.getInstance().setGroupManagementService(null);
+    }
+
 
     protected void setPolicyMonitoringService(PolicyMonitoringService policyMonitoringService) {
         if (log.isDebugEnabled()) {
@@ -41,4 +41,18 @@ public interface MonitoringManager {
 
     List<String> getDeviceTypes() throws PolicyComplianceException;
 
+    /**
+     * Returns a page of the monitored devices of a device type which are due for a compliance check, i.e. which have
+     * not been checked yet, are not compliant, were applied a policy after they were last found compliant, or were
+     * last found compliant longer than the recheck interval ago.
+     *
+     * @param deviceType      type of the devices.
+     * @param recheckInterval milliseconds after which a compliant device is checked again.
+     * @param lastEnrolmentId enrolment id of the last device of the previous page, 0 for the first page.
+     * @param pageSize        maximum number of devices returned.
+     * @return the devices, in the order of their enrolment ids.
+     */
+    List<Device> getDevicesDueForMonitoring(String deviceType, long recheckInterval, int lastEnrolmentId,
+                                            int pageSize) throws PolicyComplianceException;
+
 }
@@ -25,6 +25,7 @@ import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface PolicyManager {
 
@@ -72,6 +73,11 @@ public interface PolicyManager {
 
     void addAppliedPolicyToDevice(DeviceIdentifier deviceIdentifier, Policy policy) throws PolicyManagementException;
 
+    /**
+     * Records the given policy as the effective policy of all the given devices, in a single transaction.
+     */
+    void addAppliedPolicyToDevices(List<Device> devices, Policy policy) throws PolicyManagementException;
+
     boolean checkPolicyAvailable(DeviceIdentifier deviceIdentifier) throws PolicyManagementException;
 
     boolean setPolicyApplied(DeviceIdentifier deviceIdentifier) throws PolicyManagementException;
@@ -81,4 +87,14 @@ public interface PolicyManager {
     Policy getAppliedPolicyToDevice(DeviceIdentifier deviceIdentifier) throws PolicyManagementException;
 
     HashMap<Integer, Integer> getAppliedPolicyIdsDeviceIds() throws PolicyManagementException;
+
+    /**
+     * @return the id of the last device delegated its policy so far, keyed by the device types whose devices are
+     * yet to be delegated their policies.
+     */
+    Map<String, Integer> getDelegationCheckpoints() throws PolicyManagementException;
+
+    void setDelegationCheckpoint(String deviceType, int lastDeviceId) throws PolicyManagementException;
+
+    void removeDelegationCheckpoint(String deviceType) throws PolicyManagementException;
 }
@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.common.InvalidDeviceException;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
@@ -42,7 +43,9 @@ import org.wso2.carbon.policy.mgt.core.mgt.MonitoringManager;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
 
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +61,9 @@ public class MonitoringManagerImpl implements MonitoringManager {
     private static final String OPERATION_MONITOR = "MONITOR";
     private static final String OPERATION_INFO = "DEVICE_INFO";
     private static final String OPERATION_APP_LIST = "APPLICATION_LIST";
+    private static final List<EnrolmentInfo.Status> UNMONITORED_STATUSES = Arrays.asList(
+            EnrolmentInfo.Status.BLOCKED, EnrolmentInfo.Status.REMOVED, EnrolmentInfo.Status.UNCLAIMED,
+            EnrolmentInfo.Status.DISENROLLMENT_REQUESTED, EnrolmentInfo.Status.SUSPENDED);
 
     public MonitoringManagerImpl() {
         this.policyDAO = PolicyManagementDAOFactory.getPolicyDAO();
@@ -83,53 +89,45 @@ public class MonitoringManagerImpl implements MonitoringManager {
                 PolicyMonitoringService monitoringService = PolicyManagementDataHolder.getInstance().
                         getPolicyMonitoringService(deviceIdentifier.getType());
 
-                ComplianceData complianceData;
-                // This was retrieved from database because compliance id must be present for other dao operations to
-                // run.
+                ComplianceData complianceData = monitoringService.checkPolicyCompliance(deviceIdentifier, policy,
+                                                                                        deviceResponse);
+                complianceData.setPolicy(policy);
+                complianceFeatures = complianceData.getComplianceFeatures();
+                complianceData.setDeviceId(device.getId());
+                complianceData.setPolicyId(policy.getId());
+                boolean compliant = (complianceFeatures == null || complianceFeatures.isEmpty());
+
+                // The compliance status is read in the same transaction it is updated in, as its primary key is
+                // needed to replace the none compliance features of the device.
                 try {
-                    PolicyManagementDAOFactory.openConnection();
+                    PolicyManagementDAOFactory.beginTransaction();
                     ComplianceData cmd = monitoringDAO.getCompliance(device.getId(), device.getEnrolmentInfo().getId());
-                    complianceData = monitoringService.checkPolicyCompliance(deviceIdentifier,
-                                                                             policy, deviceResponse);
-
                     complianceData.setId(cmd.getId());
-                    complianceData.setPolicy(policy);
-                    complianceFeatures = complianceData.getComplianceFeatures();
-                    complianceData.setDeviceId(device.getId());
-                    complianceData.setPolicyId(policy.getId());
-                } catch (SQLException e) {
-                    throw new PolicyComplianceException("Error occurred while opening a data source connection", e);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Compliance status primary key " + complianceData.getId());
+                    }
+                    if (compliant) {
+                        monitoringDAO.setDeviceAsCompliance(device.getId(), device.getEnrolmentInfo().getId(),
+                                                            policy.getId());
+                        monitoringDAO.deleteNoneComplianceData(complianceData.getId());
+                    } else {
+                        monitoringDAO.setDeviceAsNoneCompliance(device.getId(), device.getEnrolmentInfo().getId(),
+                                                                policy.getId());
+                        monitoringDAO.deleteNoneComplianceData(complianceData.getId());
+                        monitoringDAO.addNonComplianceFeatures(complianceData.getId(), device.getId(),
+                                                               complianceFeatures);
+                    }
+                    PolicyManagementDAOFactory.commitTransaction();
                 } catch (MonitoringDAOException e) {
+                    PolicyManagementDAOFactory.rollbackTransaction();
                     throw new PolicyComplianceException(
-                            "Unable to add the none compliance features to database for device " +
+                            "Unable to update the compliance status in database for device " +
                             deviceIdentifier.getId() + " - " + deviceIdentifier.getType(), e);
                 } finally {
                     PolicyManagementDAOFactory.closeConnection();
                 }
 
-                //This was added because update query below that did not return the update table primary key.
-
-                if (complianceFeatures != null && !complianceFeatures.isEmpty()) {
-                    try {
-                        PolicyManagementDAOFactory.beginTransaction();
-                        monitoringDAO.setDeviceAsNoneCompliance(device.getId(), device.getEnrolmentInfo().getId(),
-                                                                policy.getId());
-                        if (log.isDebugEnabled()) {
-                            log.debug("Compliance status primary key " + complianceData.getId());
-                        }
-                        monitoringDAO.deleteNoneComplianceData(complianceData.getId());
-                        monitoringDAO.addNonComplianceFeatures(complianceData.getId(), device.getId(),
-                                                               complianceFeatures);
-
-                        PolicyManagementDAOFactory.commitTransaction();
-                    } catch (MonitoringDAOException e) {
-                        PolicyManagementDAOFactory.rollbackTransaction();
-                        throw new PolicyComplianceException(
-                                "Unable to add the none compliance features to database for device " +
-                                deviceIdentifier.getId() + " - " + deviceIdentifier.getType(), e);
-                    } finally {
-                        PolicyManagementDAOFactory.closeConnection();
-                    }
+                if (!compliant) {
                     complianceDecisionPoint.validateDevicePolicyCompliance(deviceIdentifier, complianceData);
                     List<ProfileFeature> profileFeatures = policy.getProfile().getProfileFeaturesList();
                     for (ComplianceFeature compFeature : complianceFeatures) {
@@ -139,21 +137,6 @@ public class MonitoringManagerImpl implements MonitoringManager {
                             }
                         }
                     }
-                } else {
-                    try {
-                        PolicyManagementDAOFactory.beginTransaction();
-                        monitoringDAO.setDeviceAsCompliance(device.getId(), device.getEnrolmentInfo().getId(), policy
-                                .getId());
-                        monitoringDAO.deleteNoneComplianceData(complianceData.getId());
-                        PolicyManagementDAOFactory.commitTransaction();
-                    } catch (MonitoringDAOException e) {
-                        PolicyManagementDAOFactory.rollbackTransaction();
-                        throw new PolicyComplianceException(
-                                "Unable to remove the none compliance features from database for device " +
-                                deviceIdentifier.getId() + " - " + deviceIdentifier.getType(), e);
-                    } finally {
-                        PolicyManagementDAOFactory.closeConnection();
-                    }
                 }
             } else {
                 if (log.isDebugEnabled()) {
@@ -229,35 +212,18 @@ public class MonitoringManagerImpl implements MonitoringManager {
     @Override
     public void addMonitoringOperation(List<Device> devices) throws PolicyComplianceException {
 
-        //int tenantId = PolicyManagerUtil.getTenantId();
-        Map<Integer, Device> deviceIds = new HashMap<>();
-        List<ComplianceData> complianceDatas = new ArrayList<>();
-        HashMap<Integer, Integer> devicePolicyIdMap = new HashMap<>();
-
+        // The compliance statuses and the applied policies of the enrolments of the batch are read at once, and
+        // joined with the devices over their enrolment ids.
+        List<Integer> enrolmentIds = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            enrolmentIds.add(device.getEnrolmentInfo().getId());
+        }
+        Map<Integer, ComplianceData> complianceDataOfEnrolments;
+        Map<Integer, Integer> policyIdsOfEnrolments;
         try {
             PolicyManagementDAOFactory.openConnection();
-            //TODO: Return a map from getCompliance to reduce O(n^2) -> O(n)
-            List<ComplianceData> cd = monitoringDAO.getCompliance();
-
-            for (Device device : devices) {
-                deviceIds.put(device.getId(), device);
-
-                for (ComplianceData data : cd) {
-                    if (device.getId() == data.getDeviceId() && device.getEnrolmentInfo().getId() == data
-                            .getEnrolmentId()) {
-                        complianceDatas.add(data);
-                    }
-                }
-            }
-            List<Integer> deviceIDs = new ArrayList<>(deviceIds.keySet());
-
-            HashMap<Integer, Integer> temp = policyDAO.getAppliedPolicyIds();
-            for (Integer id : deviceIDs) {
-                if (temp != null && !temp.isEmpty() && temp.containsKey(id)) {
-                    devicePolicyIdMap.put(id, temp.get(id));
-                }
-            }
-
+            complianceDataOfEnrolments = monitoringDAO.getComplianceOfEnrolments(enrolmentIds);
+            policyIdsOfEnrolments = policyDAO.getAppliedPolicyIdsOfEnrolments(enrolmentIds);
         } catch (SQLException e) {
             throw new PolicyComplianceException("SQL error occurred while getting monitoring details.", e);
         } catch (MonitoringDAOException e) {
@@ -269,83 +235,64 @@ public class MonitoringManagerImpl implements MonitoringManager {
         }
 
         Map<Integer, Device> deviceIdsToAddOperation = new HashMap<>();
-        Map<Integer, Device> deviceIdsWithExistingOperation = new HashMap<>();
         Map<Integer, Device> inactiveDeviceIds = new HashMap<>();
         Map<Integer, Device> devicesToMarkUnreachable = new HashMap<>();
-        //Map<Integer, Integer> firstTimeDeviceIdsWithPolicyIds = new HashMap<>();
-
+        List<Integer> complianceStatusIdsToUpdate = new ArrayList<>();
         List<PolicyDeviceWrapper> firstTimeDevices = new ArrayList<>();
 
-        Map<Integer, ComplianceData> tempMap = new HashMap<>();
-
-        try {
-            if (complianceDatas != null || !complianceDatas.isEmpty()) {
-                for (ComplianceData complianceData : complianceDatas) {
-
-                    tempMap.put(complianceData.getDeviceId(), complianceData);
-
-                    if (complianceData.getAttempts() == 0) {
-                        deviceIdsToAddOperation.put(complianceData.getDeviceId(),
-                                                    deviceIds.get(complianceData.getDeviceId()));
-                    } else {
-                        deviceIdsWithExistingOperation.put(complianceData.getDeviceId(),
-                                                           deviceIds.get(complianceData.getDeviceId()));
-                        if (complianceData.getAttempts() >= policyConfiguration.getMinRetriesToMarkUnreachable()) {
-                            devicesToMarkUnreachable.put(complianceData.getDeviceId(),
-                                                        deviceIds.get(complianceData.getDeviceId()));
-                        }
-                    }
-                    if (complianceData.getAttempts() >= policyConfiguration.getMinRetriesToMarkInactive()) {
-                        inactiveDeviceIds.put(complianceData.getDeviceId(),
-                                              deviceIds.get(complianceData.getDeviceId()));
-                    }
-                }
-            }
-
-            for (Device device : devices) {
-                if ((!tempMap.containsKey(device.getId())) && (devicePolicyIdMap.containsKey(device.getId()))) {
+        for (Device device : devices) {
+            int enrolmentId = device.getEnrolmentInfo().getId();
+            ComplianceData complianceData = complianceDataOfEnrolments.get(enrolmentId);
+            if (complianceData != null) {
+                complianceStatusIdsToUpdate.add(complianceData.getId());
+                if (complianceData.getAttempts() == 0) {
                     deviceIdsToAddOperation.put(device.getId(), device);
-
-                    PolicyDeviceWrapper policyDeviceWrapper = new PolicyDeviceWrapper();
-                    policyDeviceWrapper.setDeviceId(device.getId());
-                    policyDeviceWrapper.setEnrolmentId(device.getEnrolmentInfo().getId());
-                    policyDeviceWrapper.setPolicyId(devicePolicyIdMap.get(device.getId()));
-
-                    firstTimeDevices.add(policyDeviceWrapper);
-
-                    // firstTimeDeviceIdsWithPolicyIds.put(device.getId(), devicePolicyIdMap.get(device.getId()));
+                } else if (complianceData.getAttempts() >= policyConfiguration.getMinRetriesToMarkUnreachable()) {
+                    devicesToMarkUnreachable.put(device.getId(), device);
                 }
-            }
-
-            if (log.isDebugEnabled()) {
-                log.debug("These devices are in the system for the first time");
-                for (PolicyDeviceWrapper wrapper : firstTimeDevices) {
-                    log.debug("First time device primary key : " + wrapper.getDeviceId() + " & policy id " +
-                              wrapper.getPolicyId());
+                if (complianceData.getAttempts() >= policyConfiguration.getMinRetriesToMarkInactive()) {
+                    inactiveDeviceIds.put(device.getId(), device);
                 }
+            } else if (policyIdsOfEnrolments.containsKey(enrolmentId)) {
+                deviceIdsToAddOperation.put(device.getId(), device);
+
+                PolicyDeviceWrapper policyDeviceWrapper = new PolicyDeviceWrapper();
+                policyDeviceWrapper.setDeviceId(device.getId());
+                policyDeviceWrapper.setEnrolmentId(enrolmentId);
+                policyDeviceWrapper.setPolicyId(policyIdsOfEnrolments.get(enrolmentId));
+                firstTimeDevices.add(policyDeviceWrapper);
             }
+        }
 
-            PolicyManagementDAOFactory.beginTransaction();
-
-            if (!deviceIdsToAddOperation.isEmpty()) {
-                //                monitoringDAO.addComplianceDetails(firstTimeDeviceIdsWithPolicyIds);
-                monitoringDAO.addComplianceDetails(firstTimeDevices);
-                monitoringDAO.updateAttempts(new ArrayList<>(deviceIdsToAddOperation.keySet()), false);
+        if (log.isDebugEnabled()) {
+            log.debug("These devices are in the system for the first time");
+            for (PolicyDeviceWrapper wrapper : firstTimeDevices) {
+                log.debug("First time device primary key : " + wrapper.getDeviceId() + " & policy id " +
+                          wrapper.getPolicyId());
             }
+        }
 
-            if (!deviceIdsWithExistingOperation.isEmpty()) {
-                monitoringDAO.updateAttempts(new ArrayList<>(deviceIdsWithExistingOperation.keySet()), false);
+        if (!firstTimeDevices.isEmpty() || !complianceStatusIdsToUpdate.isEmpty()) {
+            try {
+                PolicyManagementDAOFactory.beginTransaction();
+                // The compliance statuses of devices in the system for the first time are added with their first
+                // attempt, and the attempts of all the others are incremented.
+                if (!firstTimeDevices.isEmpty()) {
+                    monitoringDAO.addComplianceDetails(firstTimeDevices);
+                }
+                if (!complianceStatusIdsToUpdate.isEmpty()) {
+                    monitoringDAO.incrementAttempts(complianceStatusIdsToUpdate);
+                }
+                PolicyManagementDAOFactory.commitTransaction();
+            } catch (MonitoringDAOException e) {
+                PolicyManagementDAOFactory.rollbackTransaction();
+                throw new PolicyComplianceException("Error occurred from monitoring dao.", e);
+            } catch (PolicyManagerDAOException e) {
+                PolicyManagementDAOFactory.rollbackTransaction();
+                throw new PolicyComplianceException("Error occurred reading the applied policies to devices.", e);
+            } finally {
+                PolicyManagementDAOFactory.closeConnection();
             }
-            PolicyManagementDAOFactory.commitTransaction();
-
-        } catch (MonitoringDAOException e) {
-            PolicyManagementDAOFactory.rollbackTransaction();
-            throw new PolicyComplianceException("Error occurred from monitoring dao.", e);
-        } catch (PolicyManagerDAOException e) {
-            PolicyManagementDAOFactory.rollbackTransaction();
-            throw new PolicyComplianceException("Error occurred reading the applied policies to devices.", e);
-        } finally {
-            PolicyManagementDAOFactory.closeConnection();
         }
 
         if (!deviceIdsToAddOperation.isEmpty()) {
@@ -391,6 +338,24 @@ public class MonitoringManagerImpl implements MonitoringManager {
         return deviceTypes;
     }
 
+    @Override
+    public List<Device> getDevicesDueForMonitoring(String deviceType, long recheckInterval, int lastEnrolmentId,
+                                                   int pageSize) throws PolicyComplianceException {
+        Timestamp compliantSince = new Timestamp(System.currentTimeMillis() - recheckInterval);
+        try {
+            PolicyManagementDAOFactory.openConnection();
+            return monitoringDAO.getDevicesDueForMonitoring(deviceType, compliantSince, UNMONITORED_STATUSES,
+                                                            lastEnrolmentId, pageSize);
+        } catch (MonitoringDAOException e) {
+            throw new PolicyComplianceException("Unable to retrieve the devices of type '" + deviceType +
+                                                "' due for a compliance check", e);
+        } catch (SQLException e) {
+            throw new PolicyComplianceException("Error occurred while opening a connection to the data source", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
     private void addMonitoringOperationsToDatabase(List<Device> devices)
             throws PolicyComplianceException, OperationManagementException, InvalidDeviceException {
 
@@ -541,10 +541,20 @@ public class PolicyManagerImpl implements PolicyManager {
 
             policy.setRoles(roleNames);
             policy.setUsers(userNames);
+            // As loaded by getPolicies, so that a policy reloaded into the cache can be evaluated.
+            policy.setPolicyCriterias(policyDAO.getPolicyCriteria(policyId));
+            List<DeviceGroupWrapper> deviceGroupWrappers = policyDAO.getDeviceGroupsOfPolicy(policyId);
+            if (!deviceGroupWrappers.isEmpty()) {
+                deviceGroupWrappers = this.getDeviceGroupNames(deviceGroupWrappers);
+            }
+            policy.setDeviceGroups(deviceGroupWrappers);
 
         } catch (PolicyManagerDAOException e) {
             throw new PolicyManagementException("Error occurred while getting the policy related to policy ID (" +
                     policyId + ")", e);
+        } catch (GroupManagementException e) {
+            throw new PolicyManagementException("Error occurred while getting device groups of the policy (" +
+                    policyId + ")", e);
 //        } catch (ProfileManagerDAOException e) {
 //            throw new PolicyManagementException("Error occurred while getting the profile related to policy ID (" +
 //                    policyId + ")", e);
@@ -587,47 +597,67 @@ public class PolicyManagerImpl implements PolicyManager {
         } catch (ProfileManagementException e) {
             throw new PolicyManagementException("Error occurred while getting all the profiles.", e);
         }
+        Map<Integer, List<Integer>> deviceIdsOfPolicies;
         try {
             PolicyManagementDAOFactory.openConnection();
             policyList = policyDAO.getAllPolicies();
 
-            for (Policy policy : policyList) {
-                for (Profile profile : profileList) {
-                    if (policy.getProfileId() == profile.getProfileId()) {
-                        policy.setProfile(profile);
-                    }
-                }
-                policy.setRoles(policyDAO.getPolicyAppliedRoles(policy.getId()));
-                policy.setUsers(policyDAO.getPolicyAppliedUsers(policy.getId()));
-                policy.setPolicyCriterias(policyDAO.getPolicyCriteria(policy.getId()));
-
-                List<DeviceGroupWrapper> deviceGroupWrappers = policyDAO.getDeviceGroupsOfPolicy(policy.getId());
-                if (!deviceGroupWrappers.isEmpty()) {
-                    deviceGroupWrappers = this.getDeviceGroupNames(deviceGroupWrappers);
-                }
-                policy.setDeviceGroups(deviceGroupWrappers);
+            // Each association is loaded for all the policies at once, so that the number of queries does not
+            // depend on the number of policies.
+            Map<Integer, Profile> profiles = new HashMap<>();
+            for (Profile profile : profileList) {
+                profiles.put(profile.getProfileId(), profile);
+            }
+            Map<Integer, List<String>> rolesOfPolicies = policyDAO.getAppliedRolesOfPolicies();
+            Map<Integer, List<String>> usersOfPolicies = policyDAO.getAppliedUsersOfPolicies();
+            Map<Integer, List<PolicyCriterion>> criteriaOfPolicies = policyDAO.getCriteriaOfPolicies();
+            Map<Integer, List<DeviceGroupWrapper>> deviceGroupsOfPolicies = policyDAO.getDeviceGroupsOfPolicies();
+            deviceIdsOfPolicies = policyDAO.getAppliedDeviceIdsOfPolicies();
 
+            for (Policy policy : policyList) {
+                policy.setProfile(profiles.get(policy.getProfileId()));
+                policy.setRoles(getValues(rolesOfPolicies, policy.getId()));
+                policy.setUsers(getValues(usersOfPolicies, policy.getId()));
+                policy.setPolicyCriterias(getValues(criteriaOfPolicies, policy.getId()));
+                policy.setDeviceGroups(getValues(deviceGroupsOfPolicies, policy.getId()));
             }
             Collections.sort(policyList);
         } catch (PolicyManagerDAOException e) {
             throw new PolicyManagementException("Error occurred while getting all the policies.", e);
         } catch (SQLException e) {
             throw new PolicyManagementException("Error occurred while opening a connection to the data source", e);
-        } catch (GroupManagementException e) {
-            throw new PolicyManagementException("Error occurred while getting device groups.", e);
         } finally {
             PolicyManagementDAOFactory.closeConnection();
         }
 
-        // Following is done because connection close has been implemented in every method.
-
+        Map<Integer, Device> devices = new HashMap<>();
+        if (!deviceIdsOfPolicies.isEmpty()) {
+            try {
+                DeviceManagementProviderService service = new DeviceManagementProviderServiceImpl();
+                devices = PolicyManagerUtil.covertDeviceListToMap(service.getAllDevices());
+            } catch (DeviceManagementException e) {
+                throw new PolicyManagementException("Error occurred while getting the devices related to policies", e);
+            }
+        }
         for (Policy policy : policyList) {
-            policy.setDevices(this.getPolicyAppliedDevicesIds(policy.getId()));
+            List<Device> deviceList = new ArrayList<>();
+            for (Integer deviceId : getValues(deviceIdsOfPolicies, policy.getId())) {
+                Device device = devices.get(deviceId);
+                if (device != null) {
+                    deviceList.add(device);
+                }
+            }
+            policy.setDevices(deviceList);
         }
 
         return policyList;
     }
 
+    private static <T> List<T> getValues(Map<Integer, List<T>> valuesOfPolicies, int policyId) {
+        List<T> values = valuesOfPolicies.get(policyId);
+        return (values != null) ? values : new ArrayList<T>();
+    }
+
     @Override
     public List<Policy> getPoliciesOfDevice(DeviceIdentifier deviceIdentifier) throws PolicyManagementException {
 
@@ -669,17 +699,10 @@ public class PolicyManagerImpl implements PolicyManager {
 
     @Override
     public List<Policy> getPoliciesOfDeviceType(String deviceTypeName) throws PolicyManagementException {
-        List<Policy> policies = new ArrayList<>();
 //        try {
         // List<Profile> profileList = profileManager.getProfilesOfDeviceType(deviceTypeName);
 //            List<Policy> allPolicies = this.getPolicies();
-        List<Policy> allPolicies = PolicyCacheManagerImpl.getInstance().getAllPolicies();
-
-        for (Policy policy : allPolicies) {
-            if (policy.getProfile().getDeviceType().equalsIgnoreCase(deviceTypeName)) {
-                policies.add(policy);
-            }
-        }
+        List<Policy> policies = PolicyCacheManagerImpl.getInstance().getPoliciesOfDeviceType(deviceTypeName);
 
 //            for (Profile profile : profileList) {
 //                for (Policy policy : allPolicies) {
@@ -825,6 +848,7 @@ public class PolicyManagerImpl implements PolicyManager {
                 policyDAO.addEffectivePolicyToDevice(deviceId, device.getEnrolmentInfo().getId(), policy);
             }
             PolicyManagementDAOFactory.commitTransaction();
+            PolicyCacheManagerImpl.getInstance().addPolicyToDevice(deviceId, policy.getId());
         } catch (PolicyManagerDAOException e) {
             PolicyManagementDAOFactory.rollbackTransaction();
             throw new PolicyManagementException("Error occurred while adding the evaluated policy to device (" +
@@ -868,6 +892,11 @@ public class PolicyManagerImpl implements PolicyManager {
             PolicyManagementDAOFactory.beginTransaction();
             policyDAO.markPoliciesAsUpdated(updatedPolicyIds);
             policyDAO.removeRecordsAboutUpdatedPolicies();
+            // Recorded along with the changes, so that the devices are delegated their policies even if the
+            // delegation is interrupted.
+            for (String deviceType : changedDeviceTypes) {
+                policyDAO.setDelegationCheckpoint(deviceType, 0);
+            }
             PolicyManagementDAOFactory.commitTransaction();
         } catch (PolicyManagerDAOException e) {
             PolicyManagementDAOFactory.rollbackTransaction();
@@ -899,6 +928,7 @@ public class PolicyManagerImpl implements PolicyManager {
                 policyDAO.addEffectivePolicyToDevice(deviceId, device.getEnrolmentInfo().getId(), policy);
             }
             PolicyManagementDAOFactory.commitTransaction();
+            PolicyCacheManagerImpl.getInstance().addPolicyToDevice(deviceId, policy.getId());
         } catch (PolicyManagerDAOException e) {
             PolicyManagementDAOFactory.rollbackTransaction();
             throw new PolicyManagementException("Error occurred while adding the evaluated policy to device (" +
@@ -912,6 +942,42 @@ public class PolicyManagerImpl implements PolicyManager {
         }
     }
 
+    @Override
+    public void addAppliedPolicyToDevices(List<Device> devices, Policy policy) throws PolicyManagementException {
+        if (devices.isEmpty()) {
+            return;
+        }
+        try {
+            PolicyManagementDAOFactory.beginTransaction();
+            Set<Integer> enrolmentIds = new HashSet<>(policyDAO.getEnrolmentIdsHavingEffectivePolicy(devices));
+            List<Device> newDevices = new ArrayList<>();
+            List<Device> existingDevices = new ArrayList<>();
+            for (Device device : devices) {
+                if (enrolmentIds.contains(device.getEnrolmentInfo().getId())) {
+                    existingDevices.add(device);
+                } else {
+                    newDevices.add(device);
+                }
+            }
+            if (!existingDevices.isEmpty()) {
+                policyDAO.updateEffectivePolicyToDevices(existingDevices, policy);
+            }
+            if (!newDevices.isEmpty()) {
+                policyDAO.addEffectivePolicyToDevices(newDevices, policy);
+            }
+            PolicyManagementDAOFactory.commitTransaction();
+        } catch (PolicyManagerDAOException e) {
+            PolicyManagementDAOFactory.rollbackTransaction();
+            throw new PolicyManagementException("Error occurred while adding the evaluated policy to devices (" +
+                    policy.getId() + ")", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+        for (Device device : devices) {
+            PolicyCacheManagerImpl.getInstance().addPolicyToDevice(device.getId(), policy.getId());
+        }
+    }
+
     @Override
     public boolean checkPolicyAvailable(DeviceIdentifier deviceIdentifier) throws PolicyManagementException {
 
@@ -1016,6 +1082,50 @@ public class PolicyManagerImpl implements PolicyManager {
         }
     }
 
+    @Override
+    public Map<String, Integer> getDelegationCheckpoints() throws PolicyManagementException {
+        try {
+            PolicyManagementDAOFactory.openConnection();
+            return policyDAO.getDelegationCheckpoints();
+        } catch (PolicyManagerDAOException e) {
+            throw new PolicyManagementException("Error occurred while reading the progress of policy delegation.", e);
+        } catch (SQLException e) {
+            throw new PolicyManagementException("Error occurred while opening a connection to the data source", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Override
+    public void setDelegationCheckpoint(String deviceType, int lastDeviceId) throws PolicyManagementException {
+        try {
+            PolicyManagementDAOFactory.beginTransaction();
+            policyDAO.setDelegationCheckpoint(deviceType, lastDeviceId);
+            PolicyManagementDAOFactory.commitTransaction();
+        } catch (PolicyManagerDAOException e) {
+            PolicyManagementDAOFactory.rollbackTransaction();
+            throw new PolicyManagementException("Error occurred while recording the progress of policy delegation " +
+                    "to the devices of type " + deviceType, e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Override
+    public void removeDelegationCheckpoint(String deviceType) throws PolicyManagementException {
+        try {
+            PolicyManagementDAOFactory.beginTransaction();
+            policyDAO.removeDelegationCheckpoint(deviceType);
+            PolicyManagementDAOFactory.commitTransaction();
+        } catch (PolicyManagerDAOException e) {
+            PolicyManagementDAOFactory.rollbackTransaction();
+            throw new PolicyManagementException("Error occurred while removing the progress of policy delegation " +
+                    "to the devices of type " + deviceType, e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
     private List<DeviceGroupWrapper> getDeviceGroupNames(List<DeviceGroupWrapper> groupWrappers) throws GroupManagementException {
         GroupManagementProviderService groupManagementProviderService = new GroupManagementProviderServiceImpl();
         for (DeviceGroupWrapper wrapper : groupWrappers) {
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.task;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.policy.mgt.common.monitor.PolicyComplianceException;
+import org.wso2.carbon.policy.mgt.common.spi.PolicyMonitoringService;
+import org.wso2.carbon.policy.mgt.core.mgt.MonitoringManager;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monitors only the devices due for a compliance check, and spreads them over the monitoring interval instead of
+ * notifying them all at once. The due devices are read in pages ordered by their enrolment ids, and divided into
+ * buckets by their device ids, so that a device is always in the same bucket. The interval is divided into as many
+ * slots as buckets, and each bucket is monitored at a random time within its own slot.
+ * <p>
+ * The buckets are monitored on a shared pool of threads, one bucket of a tenant at a time, so that a tenant whose
+ * buckets are slow to monitor delays only its own buckets. Buckets are not cancelled when the monitoring of the
+ * tenant runs again, however late they are; the devices still pending in them are skipped by the new run instead.
+ */
+public class MonitoringScheduler {
+
+    private static final Log log = LogFactory.getLog(MonitoringScheduler.class);
+
+    // Created on first use, and again if the component is activated after it has been shut down.
+    private static ScheduledExecutorService timer;
+    private static ExecutorService workers;
+    private static final Map<Integer, TenantBuckets> tenantBuckets = new ConcurrentHashMap<>();
+
+    private final MonitoringManager monitoringManager;
+    private final int buckets;
+    private final int pageSize;
+    private final long recheckInterval;
+
+    public MonitoringScheduler(MonitoringManager monitoringManager, int buckets, int pageSize,
+                               long recheckInterval) {
+        this.monitoringManager = monitoringManager;
+        this.buckets = buckets;
+        this.pageSize = pageSize;
+        this.recheckInterval = recheckInterval;
+    }
+
+    /**
+     * @return all the devices of the device type due for a compliance check, in the order of their enrolment ids.
+     */
+    public List<Device> getDueDevices(String deviceType) throws PolicyComplianceException {
+        List<Device> dueDevices = new ArrayList<>();
+        int lastEnrolmentId = 0;
+        List<Device> page;
+        do {
+            page = monitoringManager.getDevicesDueForMonitoring(deviceType, recheckInterval, lastEnrolmentId,
+                                                                pageSize);
+            if (!page.isEmpty()) {
+                dueDevices.addAll(page);
+                lastEnrolmentId = page.get(page.size() - 1).getEnrolmentInfo().getId();
+            }
+        } while (page.size() == pageSize);
+        return dueDevices;
+    }
+
+    /**
+     * @return the devices divided into buckets by their ids, some of which may be empty.
+     */
+    public List<List<Device>> getBuckets(List<Device> devices) {
+        List<List<Device>> deviceBuckets = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            deviceBuckets.add(new ArrayList<Device>());
+        }
+        for (Device device : devices) {
+            deviceBuckets.get(Math.abs(device.getId() % buckets)).add(device);
+        }
+        return deviceBuckets;
+    }
+
+    /**
+     * @return milliseconds after which the bucket is monitored, a random time within its slot of the interval.
+     */
+    public long getDelay(int bucket, long interval) {
+        long slot = Math.max(interval, 0) / buckets;
+        return bucket * slot + ((slot > 0) ? ThreadLocalRandom.current().nextLong(slot) : 0);
+    }
+
+    /**
+     * Schedules the monitoring of the buckets of devices over the interval. The monitoring operations are added to
+     * the devices of a bucket, and the devices notified, at a random time within the slot of the bucket. Devices
+     * which are still pending in a bucket scheduled earlier are not scheduled again.
+     *
+     * @param deviceType        type of the devices.
+     * @param monitoringService monitoring service of the device type.
+     * @param devices           devices due for a compliance check.
+     * @param interval          milliseconds the buckets are spread over.
+     * @return the monitoring of the buckets which are not empty, done once the devices of a bucket are notified.
+     */
+    public List<Future<?>> schedule(final String deviceType, final PolicyMonitoringService monitoringService,
+                                    List<Device> devices, long interval) {
+        final int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        final String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        final TenantBuckets tenant = getTenantBuckets(tenantId);
+        List<Device> scheduledDevices = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            if (tenant.pendingDevices.add(device.getId())) {
+                scheduledDevices.add(device);
+            }
+        }
+        if (scheduledDevices.size() < devices.size()) {
+            log.warn((devices.size() - scheduledDevices.size()) + " devices of type '" + deviceType + "' of tenant " +
+                     tenantId + " are still pending from an earlier run, and were not monitored within the " +
+                     "monitoring interval");
+        }
+
+        List<List<Device>> deviceBuckets = this.getBuckets(scheduledDevices);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < deviceBuckets.size(); i++) {
+            final List<Device> bucket = deviceBuckets.get(i);
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            final MonitoredBucket monitoredBucket = new MonitoredBucket(tenant, bucket, new Runnable() {
+                @Override
+                public void run() {
+                    PrivilegedCarbonContext.startTenantFlow();
+                    try {
+                        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId);
+                        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain);
+                        monitoringManager.addMonitoringOperation(bucket);
+                        monitoringService.notifyDevices(bucket);
+                    } catch (Exception e) {
+                        log.error("Error occurred while monitoring " + bucket.size() + " devices of type '" +
+                                  deviceType + "'", e);
+                    } finally {
+                        PrivilegedCarbonContext.endTenantFlow();
+                        // Released before the bucket is done, so that a run waiting for it can schedule them again.
+                        tenant.release(bucket);
+                    }
+                }
+            });
+            tenant.scheduledBuckets.add(monitoredBucket);
+            getTimer().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    tenant.enqueue(monitoredBucket);
+                }
+            }, this.getDelay(i, interval), TimeUnit.MILLISECONDS);
+            futures.add(monitoredBucket);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Scheduled monitoring " + scheduledDevices.size() + " devices of type '" + deviceType +
+                      "' in " + futures.size() + " buckets over " + interval + " ms");
+        }
+        return futures;
+    }
+
+    private static TenantBuckets getTenantBuckets(int tenantId) {
+        TenantBuckets tenant = tenantBuckets.get(tenantId);
+        if (tenant == null) {
+            tenantBuckets.putIfAbsent(tenantId, new TenantBuckets());
+            tenant = tenantBuckets.get(tenantId);
+        }
+        return tenant;
+    }
+
+    private static synchronized ScheduledExecutorService getTimer() {
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, new MonitoringThreadFactory("policy-monitoring-scheduler"));
+        }
+        return timer;
+    }
+
+    private static synchronized ExecutorService getWorkers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(PolicyManagerUtil.getMonitoringThreadPoolSize(),
+                                                   new MonitoringThreadFactory("policy-monitoring-worker"));
+        }
+        return workers;
+    }
+
+    /**
+     * Cancels the buckets of all tenants which are yet to be monitored and stops the scheduler threads. Called when
+     * the policy management component is deactivated.
+     */
+    public static synchronized void shutdown() {
+        for (TenantBuckets tenant : tenantBuckets.values()) {
+            for (MonitoredBucket bucket : tenant.scheduledBuckets) {
+                bucket.cancel(false);
+            }
+        }
+        tenantBuckets.clear();
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    /**
+     * Buckets of a tenant, which are handed to the workers one at a time as they become due.
+     */
+    private static class TenantBuckets {
+
+        private final Set<Integer> pendingDevices =
+                Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+        private final Set<MonitoredBucket> scheduledBuckets =
+                Collections.newSetFromMap(new ConcurrentHashMap<MonitoredBucket, Boolean>());
+        private final Queue<MonitoredBucket> dueBuckets = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private void release(List<Device> devices) {
+            for (Device device : devices) {
+                pendingDevices.remove(device.getId());
+            }
+        }
+
+        private void enqueue(MonitoredBucket bucket) {
+            // Buckets are cancelled when the scheduler is shut down.
+            if (bucket.isDone()) {
+                return;
+            }
+            dueBuckets.add(bucket);
+            this.submitNext();
+        }
+
+        // The next bucket is submitted behind the buckets of the other tenants, rather than run on the same thread.
+        private void submitNext() {
+            if (!dueBuckets.isEmpty() && running.compareAndSet(false, true)) {
+                getWorkers().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            MonitoredBucket bucket = dueBuckets.poll();
+                            if (bucket != null) {
+                                bucket.run();
+                            }
+                        } finally {
+                            running.set(false);
+                            submitNext();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Monitoring of a bucket, which releases the devices of the bucket once they are monitored or it is cancelled.
+     */
+    private static class MonitoredBucket extends FutureTask<Void> {
+
+        private final TenantBuckets tenant;
+        private final List<Device> devices;
+
+        private MonitoredBucket(TenantBuckets tenant, List<Device> devices, Runnable monitoring) {
+            super(monitoring, null);
+            this.tenant = tenant;
+            this.devices = devices;
+        }
+
+        @Override
+        protected void done() {
+            tenant.release(devices);
+            tenant.scheduledBuckets.remove(this);
+        }
+    }
+
+    private static class MonitoringThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private MonitoringThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
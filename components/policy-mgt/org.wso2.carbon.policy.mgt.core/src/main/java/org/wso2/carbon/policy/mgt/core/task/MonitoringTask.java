@@ -27,10 +27,12 @@ import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
 import org.wso2.carbon.device.mgt.core.config.policy.PolicyConfiguration;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.ntask.core.Task;
+import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyComplianceException;
 import org.wso2.carbon.policy.mgt.common.spi.PolicyMonitoringService;
 import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
 import org.wso2.carbon.policy.mgt.core.mgt.MonitoringManager;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -72,7 +74,9 @@ public class MonitoringTask implements Task {
         } catch (PolicyComplianceException e) {
             log.error("Error occurred while getting the device types.");
         }
-        if (!deviceTypes.isEmpty()) {
+        if (!deviceTypes.isEmpty() && PolicyManagerUtil.isIncrementalMonitoring()) {
+            this.monitorDueDevices(monitoringManager, configDeviceTypes);
+        } else if (!deviceTypes.isEmpty()) {
             try {
                 DeviceManagementProviderService deviceManagementProviderService =
                         PolicyManagementDataHolder.getInstance().getDeviceManagementService();
@@ -126,6 +130,39 @@ public class MonitoringTask implements Task {
 
     }
 
+    /**
+     * Monitors only the devices due for a compliance check, spread over the monitoring frequency.
+     */
+    private void monitorDueDevices(MonitoringManager monitoringManager, List<String> deviceTypes) {
+        long interval = 0;
+        try {
+            interval = PolicyManagerUtil.getMonitoringFrequency();
+        } catch (PolicyManagementException e) {
+            log.error("Error occurred while getting the monitoring frequency. Devices are monitored at once.", e);
+        }
+        MonitoringScheduler scheduler = new MonitoringScheduler(monitoringManager,
+                PolicyManagerUtil.getMonitoringBuckets(), PolicyManagerUtil.getMonitoringPageSize(),
+                PolicyManagerUtil.getComplianceRecheckInterval());
+        for (String deviceType : deviceTypes) {
+            PolicyMonitoringService monitoringService =
+                    PolicyManagementDataHolder.getInstance().getPolicyMonitoringService(deviceType);
+            if (monitoringService == null) {
+                continue;
+            }
+            try {
+                List<Device> dueDevices = scheduler.getDueDevices(deviceType);
+                if (log.isDebugEnabled()) {
+                    log.debug(dueDevices.size() + " devices of type " + deviceType + " are due for monitoring.");
+                }
+                if (!dueDevices.isEmpty()) {
+                    scheduler.schedule(deviceType, monitoringService, dueDevices, interval);
+                }
+            } catch (PolicyComplianceException e) {
+                log.error("Error occurred while selecting the devices of type " + deviceType + " to monitor.", e);
+            }
+        }
+    }
+
     /**
      * Check whether Device platform (ex: android) is exist in the cdm-config.xml file before adding a
      * Monitoring operation to a specific device type.
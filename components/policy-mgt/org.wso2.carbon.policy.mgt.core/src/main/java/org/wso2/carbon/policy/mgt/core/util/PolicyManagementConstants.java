@@ -35,9 +35,18 @@ public final class PolicyManagementConstants {
     public static final String MONITORING_TASK_NAME = "MONITORING";
     public static final String MONITORING_TASK_CLAZZ = "org.wso2.carbon.policy.mgt.core.task.MonitoringTask";
 
+    public static final int DEFAULT_DELEGATION_PARTITION_SIZE = 500;
+    public static final int DEFAULT_DELEGATION_THREAD_POOL_SIZE = 4;
+    public static final int DEFAULT_MONITORING_BUCKETS = 10;
+    public static final int DEFAULT_MONITORING_PAGE_SIZE = 500;
+    public static final int DEFAULT_MONITORING_THREAD_POOL_SIZE = 4;
+    public static final long DEFAULT_COMPLIANCE_RECHECK_INTERVAL = 3600000L;
+    public static final long DEFAULT_EFFECTIVE_POLICY_STORE_EXPIRY_TIME = 3600000L;
+    public static final int DEFAULT_EFFECTIVE_POLICY_STORE_CAPACITY = 100000;
+
     public static final String DM_CACHE_MANAGER = "DM_CACHE_MANAGER";
     // public static final String DM_CACHE = "DM_CACHE";
-    public static final String DM_CACHE_LIST = "DM_CACHE_LIST";
+    public static final String DM_CACHE_POLICY_SNAPSHOT = "DM_CACHE_POLICY_SNAPSHOT";
 
     public static final String DELEGATION_TASK_TYPE = "DELEGATION__TASK";
     public static final String DELEGATION_TASK_NAME = "DELEGATION";
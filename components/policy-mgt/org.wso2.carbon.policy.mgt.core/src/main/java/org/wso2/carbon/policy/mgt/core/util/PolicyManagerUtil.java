@@ -30,6 +30,7 @@ import org.wso2.carbon.device.mgt.common.configuration.mgt.PlatformConfiguration
 import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
 import org.wso2.carbon.device.mgt.core.config.policy.PolicyConfiguration;
 import org.wso2.carbon.device.mgt.core.config.tenant.PlatformConfigurationManagementServiceImpl;
 import org.wso2.carbon.device.mgt.core.operation.mgt.PolicyOperation;
@@ -37,6 +38,7 @@ import org.wso2.carbon.device.mgt.core.operation.mgt.ProfileOperation;
 import org.wso2.carbon.policy.mgt.common.Policy;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.common.ProfileFeature;
+import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheSnapshot;
 import org.wso2.carbon.policy.mgt.core.config.datasource.DataSourceConfig;
 import org.wso2.carbon.policy.mgt.core.config.datasource.JNDILookupDefinition;
 import org.wso2.carbon.policy.mgt.core.dao.util.PolicyManagementDAOUtil;
@@ -171,10 +173,10 @@ public class PolicyManagerUtil {
                 Caching.getCacheManager().<Integer, Policy>getCache(name);
     }
 
-    public static Cache<Integer, List<Policy>> getPolicyListCache(String name) {
+    public static Cache<Integer, PolicyCacheSnapshot> getPolicySnapshotCache(String name) {
         CacheManager manager = getCacheManager();
-        return (manager != null) ? manager.<Integer, List<Policy>>getCache(name) :
-                Caching.getCacheManager().<Integer, List<Policy>>getCache(name);
+        return (manager != null) ? manager.<Integer, PolicyCacheSnapshot>getCache(name) :
+                Caching.getCacheManager().<Integer, PolicyCacheSnapshot>getCache(name);
     }
 
     private static CacheManager getCacheManager() {
@@ -228,6 +230,98 @@ public class PolicyManagerUtil {
     }
 
 
+    /**
+     * @return the number of devices delegated their policies in one partition, as configured in cdm-config.xml.
+     */
+    public static int getDelegationPartitionSize() {
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration();
+        int partitionSize = (policyConfiguration != null) ? policyConfiguration.getDelegationPartitionSize() : 0;
+        return (partitionSize > 0) ? partitionSize : PolicyManagementConstants.DEFAULT_DELEGATION_PARTITION_SIZE;
+    }
+
+    /**
+     * @return the number of threads delegating partitions of devices in parallel, as configured in cdm-config.xml.
+     */
+    public static int getDelegationThreadPoolSize() {
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration();
+        int threadPoolSize = (policyConfiguration != null) ? policyConfiguration.getDelegationThreadPoolSize() : 0;
+        return (threadPoolSize > 0) ? threadPoolSize : PolicyManagementConstants.DEFAULT_DELEGATION_THREAD_POOL_SIZE;
+    }
+
+    /**
+     * @return whether the monitoring task monitors only the devices due for a compliance check.
+     */
+    public static boolean isIncrementalMonitoring() {
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration();
+        return policyConfiguration != null && policyConfiguration.getIncrementalMonitoring();
+    }
+
+    /**
+     * @return the number of buckets the devices monitored in a run are notified in, spread over the monitoring
+     * frequency.
+     */
+    public static int getMonitoringBuckets() {
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration();
+        int buckets = (policyConfiguration != null) ? policyConfiguration.getMonitoringBuckets() : 0;
+        return (buckets > 0) ? buckets : PolicyManagementConstants.DEFAULT_MONITORING_BUCKETS;
+    }
+
+    /**
+     * @return the number of devices due for a compliance check read in one page.
+     */
+    public static int getMonitoringPageSize() {
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration();
+        int pageSize = (policyConfiguration != null) ? policyConfiguration.getMonitoringPageSize() : 0;
+        return (pageSize > 0) ? pageSize : PolicyManagementConstants.DEFAULT_MONITORING_PAGE_SIZE;
+    }
+
+    /**
+     * @return the number of threads the buckets of devices of all the tenants are monitored on.
+     */
+    public static int getMonitoringThreadPoolSize() {
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration();
+        int threadPoolSize = (policyConfiguration != null) ? policyConfiguration.getMonitoringThreadPoolSize() : 0;
+        return (threadPoolSize > 0) ? threadPoolSize : PolicyManagementConstants.DEFAULT_MONITORING_THREAD_POOL_SIZE;
+    }
+
+    /**
+     * @return the milliseconds after which a compliant device, which was not applied a new policy, is checked again.
+     */
+    public static long getComplianceRecheckInterval() {
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration();
+        long recheckInterval = (policyConfiguration != null) ? policyConfiguration.getComplianceRecheckInterval() : 0;
+        return (recheckInterval > 0) ? recheckInterval : PolicyManagementConstants.DEFAULT_COMPLIANCE_RECHECK_INTERVAL;
+    }
+
+    /**
+     * @return the milliseconds an evaluated effective policy is served from the effective policy store, or 0 if the
+     * store is disabled.
+     */
+    public static long getEffectivePolicyStoreExpiryTime() {
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration();
+        if (policyConfiguration == null || !policyConfiguration.getEffectivePolicyStoreEnabled()) {
+            return 0;
+        }
+        long expiryTime = policyConfiguration.getEffectivePolicyStoreExpiryTime();
+        return (expiryTime > 0) ? expiryTime : PolicyManagementConstants.DEFAULT_EFFECTIVE_POLICY_STORE_EXPIRY_TIME;
+    }
+
+    /**
+     * @return the number of effective policies stored for a tenant, after which the stored policies are dropped.
+     */
+    public static int getEffectivePolicyStoreCapacity() {
+        PolicyConfiguration policyConfiguration = getPolicyConfiguration();
+        int capacity = (policyConfiguration != null) ? policyConfiguration.getEffectivePolicyStoreCapacity() : 0;
+        return (capacity > 0) ? capacity : PolicyManagementConstants.DEFAULT_EFFECTIVE_POLICY_STORE_CAPACITY;
+    }
+
+    private static PolicyConfiguration getPolicyConfiguration() {
+        DeviceManagementConfig deviceManagementConfig = DeviceConfigurationManager.getInstance().
+                getDeviceManagementConfig();
+        return (deviceManagementConfig != null) ? deviceManagementConfig.getPolicyConfiguration() : null;
+    }
+
+
     public static Map<Integer, DeviceGroup> convertDeviceGroupMap(List<DeviceGroup> deviceGroups) {
         Map<Integer, DeviceGroup> groupMap = new HashMap<>();
         for (DeviceGroup dg: deviceGroups){
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dao.EnrollmentDAO;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.Profile;
+import org.wso2.carbon.policy.mgt.common.monitor.ComplianceData;
+import org.wso2.carbon.policy.mgt.core.common.StatementCounter;
+import org.wso2.carbon.policy.mgt.core.dao.MonitoringDAO;
+import org.wso2.carbon.policy.mgt.core.dao.PolicyManagementDAOFactory;
+import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
+import org.wso2.carbon.policy.mgt.core.mgt.MonitoringManager;
+import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
+import org.wso2.carbon.policy.mgt.core.mgt.impl.MonitoringManagerImpl;
+import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
+import org.wso2.carbon.policy.mgt.core.util.FeatureCreator;
+import org.wso2.carbon.policy.mgt.core.util.ProfileFeatureCreator;
+import org.wso2.carbon.policy.mgt.core.util.RecordingDeviceManagementService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies that adding the monitoring operations of a batch of devices takes a number of statements which does not
+ * depend on the number of devices, and that their compliance statuses are added and their attempts counted.
+ */
+public class ComplianceMonitoringTestCase extends BasePolicyManagementDAOTest {
+
+    private static final String DEVICE_TYPE = "monitoring-test";
+    private static final int SMALL_BATCH = 100;
+    private static final int LARGE_BATCH = 1000;
+    private static final String OPERATION_MONITOR = "MONITOR";
+
+    private StatementCounter counter;
+    private RecordingDeviceManagementService deviceManagementService;
+    private DeviceManagementProviderService previousDeviceManagementService;
+    private MonitoringManager monitoringManager;
+    private List<Device> smallBatch;
+    private List<Device> largeBatch;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        initiatePrivilegedCaronContext();
+        previousDeviceManagementService = PolicyManagementDataHolder.getInstance().getDeviceManagementService();
+        deviceManagementService = new RecordingDeviceManagementService();
+        PolicyManagementDataHolder.getInstance().setDeviceManagementService(deviceManagementService);
+
+        List<Device> devices = this.addDevices();
+        PolicyManager policyManager = new PolicyManagerImpl();
+        Policy policy = policyManager.addPolicy(this.createPolicy());
+        policyManager.addAppliedPolicyToDevices(devices, policy);
+        smallBatch = devices.subList(0, SMALL_BATCH);
+        largeBatch = devices.subList(SMALL_BATCH, devices.size());
+
+        counter = new StatementCounter();
+        PolicyManagementDAOFactory.init(counter.wrap(this.getDataSource()));
+        monitoringManager = new MonitoringManagerImpl();
+    }
+
+    @AfterClass
+    public void restore() throws Exception {
+        PolicyManagementDataHolder.getInstance().setDeviceManagementService(previousDeviceManagementService);
+        this.initDatSource();
+    }
+
+    @Test
+    public void testFirstMonitoringRound() throws Exception {
+        deviceManagementService.reset();
+        this.assertSameStatementCount();
+        Assert.assertEquals(deviceManagementService.getOperationDevices(OPERATION_MONITOR),
+                            SMALL_BATCH + LARGE_BATCH);
+        this.assertAttempts(1);
+    }
+
+    @Test(dependsOnMethods = "testFirstMonitoringRound")
+    public void testSecondMonitoringRound() throws Exception {
+        deviceManagementService.reset();
+        this.assertSameStatementCount();
+        // The devices have not responded to the operations of the first round, so none are added again.
+        Assert.assertEquals(deviceManagementService.getOperationDevices(OPERATION_MONITOR), 0);
+        this.assertAttempts(2);
+    }
+
+    @Test
+    public void testEnrolmentsHavingEffectivePolicyOfManyDevices() throws Exception {
+        List<Device> devices = new ArrayList<>(smallBatch);
+        devices.addAll(largeBatch);
+        List<Integer> enrolmentIds;
+        counter.reset();
+        try {
+            PolicyManagementDAOFactory.openConnection();
+            enrolmentIds = PolicyManagementDAOFactory.getPolicyDAO().getEnrolmentIdsHavingEffectivePolicy(devices);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(new HashSet<>(enrolmentIds).size(), SMALL_BATCH + LARGE_BATCH);
+        // More devices than an IN clause can hold on Oracle are looked up in chunks.
+        Assert.assertEquals(counter.getCount(), 2);
+    }
+
+    private void assertSameStatementCount() throws Exception {
+        counter.reset();
+        monitoringManager.addMonitoringOperation(smallBatch);
+        int statements = counter.getCount();
+
+        counter.reset();
+        monitoringManager.addMonitoringOperation(largeBatch);
+        Assert.assertEquals(counter.getCount(), statements,
+                            "Monitoring more devices took a different number of statements");
+    }
+
+    private void assertAttempts(int attempts) throws Exception {
+        MonitoringDAO monitoringDAO = PolicyManagementDAOFactory.getMonitoringDAO();
+        List<Integer> enrolmentIds = new ArrayList<>();
+        for (Device device : smallBatch) {
+            enrolmentIds.add(device.getEnrolmentInfo().getId());
+        }
+        for (Device device : largeBatch) {
+            enrolmentIds.add(device.getEnrolmentInfo().getId());
+        }
+        Map<Integer, ComplianceData> complianceData;
+        try {
+            PolicyManagementDAOFactory.openConnection();
+            complianceData = monitoringDAO.getComplianceOfEnrolments(enrolmentIds);
+            // Only the compliance statuses of the given enrolments are read.
+            Assert.assertEquals(monitoringDAO.getComplianceOfEnrolments(enrolmentIds.subList(0, SMALL_BATCH)).size(),
+                                SMALL_BATCH);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(complianceData.size(), SMALL_BATCH + LARGE_BATCH);
+        for (ComplianceData data : complianceData.values()) {
+            Assert.assertEquals(data.getAttempts(), attempts,
+                                "Unexpected attempts for enrolment " + data.getEnrolmentId());
+        }
+    }
+
+    private List<Device> addDevices() throws Exception {
+        DeviceType deviceType = new DeviceType();
+        deviceType.setName(DEVICE_TYPE);
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        EnrollmentDAO enrollmentDAO = DeviceManagementDAOFactory.getEnrollmentDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(deviceType, -1234, true);
+            deviceType = deviceTypeDAO.getDeviceType(DEVICE_TYPE, -1234);
+            for (int i = 0; i < SMALL_BATCH + LARGE_BATCH; i++) {
+                Device device = new Device();
+                device.setType(DEVICE_TYPE);
+                device.setName("Monitoring Device " + i);
+                device.setDeviceIdentifier("monitoring-" + i);
+                EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+                enrolmentInfo.setOwner("monitoring-owner");
+                enrolmentInfo.setOwnership(EnrolmentInfo.OwnerShip.BYOD);
+                enrolmentInfo.setStatus(EnrolmentInfo.Status.ACTIVE);
+                device.setEnrolmentInfo(enrolmentInfo);
+                int id = deviceDAO.addDevice(deviceType.getId(), device, -1234);
+                enrollmentDAO.addEnrollment(id, enrolmentInfo, -1234);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            return deviceDAO.getDevices(DEVICE_TYPE, -1234);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private Policy createPolicy() {
+        Profile profile = new Profile();
+        profile.setProfileFeaturesList(ProfileFeatureCreator.getProfileFeature(FeatureCreator.getFeatureList5()));
+        profile.setProfileName("Monitoring Profile");
+        profile.setTenantId(-1234);
+        profile.setDeviceType(DEVICE_TYPE);
+
+        Policy policy = new Policy();
+        policy.setPolicyName("Monitoring_Policy");
+        policy.setGeneric(true);
+        policy.setProfile(profile);
+        policy.setCompliance("MONITOR");
+        policy.setOwnershipType("ANY");
+        return policy;
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.policy.mgt.core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dao.EnrollmentDAO;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.device.mgt.core.operation.mgt.PolicyOperation;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderServiceImpl;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.Profile;
+import org.wso2.carbon.policy.mgt.core.cache.impl.EffectivePolicyConsistencyChecker;
+import org.wso2.carbon.policy.mgt.core.cache.impl.EffectivePolicyStore;
+import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyMatcher;
+import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
+import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
+import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
+import org.wso2.carbon.policy.mgt.core.util.FeatureCreator;
+import org.wso2.carbon.policy.mgt.core.util.ProfileFeatureCreator;
+import org.wso2.carbon.policy.mgt.core.util.RecordingDeviceManagementService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Verifies that the effective policy store serves the stored policies until their inputs change, does not store the
+ * policies evaluated before a change, and that the consistency checker finds the stored policies which differ from
+ * their evaluated policies. A stored policy served to a device is recorded as the policy applied to it.
+ */
+public class EffectivePolicyStoreTestCase extends BasePolicyManagementDAOTest {
+
+    private static final String DEVICE_TYPE = "store-test";
+    private static final int TENANT_ID = -1234;
+
+    private List<DeviceIdentifier> identifiers;
+    private PolicyMatcher matcher;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        initiatePrivilegedCaronContext();
+        identifiers = this.addDevices(3);
+        matcher = PolicyCacheManagerImpl.getInstance().getPolicyMatcher();
+    }
+
+    @Test
+    public void testStoredPolicyIsServed() {
+        EffectivePolicyStore store = this.createStore();
+        DeviceIdentifier identifier = identifiers.get(0);
+        Assert.assertNull(store.get(TENANT_ID, identifier, matcher));
+
+        Policy policy = this.createPolicy(1);
+        store.put(TENANT_ID, identifier, policy, store.getClock(TENANT_ID));
+        Assert.assertSame(store.get(TENANT_ID, identifier, matcher).getPolicy(), policy);
+
+        // Devices without an applicable policy are stored as well.
+        store.put(TENANT_ID, identifiers.get(1), null, store.getClock(TENANT_ID));
+        Assert.assertNotNull(store.get(TENANT_ID, identifiers.get(1), matcher));
+        Assert.assertNull(store.get(TENANT_ID, identifiers.get(1), matcher).getPolicy());
+    }
+
+    @Test
+    public void testDeviceChangeDropsPolicy() {
+        EffectivePolicyStore store = this.createStore();
+        DeviceIdentifier identifier = identifiers.get(0);
+        store.get(TENANT_ID, identifier, matcher);
+        store.put(TENANT_ID, identifier, this.createPolicy(1), store.getClock(TENANT_ID));
+        store.put(TENANT_ID, identifiers.get(1), this.createPolicy(1), store.getClock(TENANT_ID));
+
+        long clock = store.getClock(TENANT_ID);
+        store.devicesChanged(TENANT_ID, Collections.singletonList(identifier));
+        Assert.assertNull(store.get(TENANT_ID, identifier, matcher));
+        Assert.assertNotNull(store.get(TENANT_ID, identifiers.get(1), matcher));
+
+        // A policy evaluated before the change is not stored, while one evaluated after it is.
+        store.put(TENANT_ID, identifier, this.createPolicy(1), clock);
+        Assert.assertNull(store.get(TENANT_ID, identifier, matcher));
+        store.put(TENANT_ID, identifier, this.createPolicy(2), store.getClock(TENANT_ID));
+        Assert.assertEquals(store.get(TENANT_ID, identifier, matcher).getPolicy().getId(), 2);
+    }
+
+    @Test
+    public void testTenantChangeDropsPolicies() {
+        EffectivePolicyStore store = this.createStore();
+        store.get(TENANT_ID, identifiers.get(0), matcher);
+        long clock = store.getClock(TENANT_ID);
+        store.put(TENANT_ID, identifiers.get(0), this.createPolicy(1), clock);
+        store.allDevicesChanged(TENANT_ID);
+        Assert.assertNull(store.get(TENANT_ID, identifiers.get(0), matcher));
+        store.put(TENANT_ID, identifiers.get(0), this.createPolicy(1), clock);
+        Assert.assertNull(store.get(TENANT_ID, identifiers.get(0), matcher));
+    }
+
+    @Test
+    public void testPolicyChangeDropsPolicies() throws Exception {
+        EffectivePolicyStore store = this.createStore();
+        store.get(TENANT_ID, identifiers.get(0), matcher);
+        store.put(TENANT_ID, identifiers.get(0), this.createPolicy(1), store.getClock(TENANT_ID));
+
+        // The policies are compiled into a new matcher whenever they change.
+        PolicyCacheManagerImpl.getInstance().rePopulateCache();
+        PolicyMatcher newMatcher = PolicyCacheManagerImpl.getInstance().getPolicyMatcher();
+        Assert.assertNotSame(newMatcher, matcher);
+        Assert.assertNull(store.get(TENANT_ID, identifiers.get(0), newMatcher));
+        matcher = newMatcher;
+    }
+
+    @Test
+    public void testDisabledStore() {
+        EffectivePolicyStore store = new EffectivePolicyStore(0, 10);
+        Assert.assertFalse(store.isEnabled());
+        store.put(TENANT_ID, identifiers.get(0), this.createPolicy(1), store.getClock(TENANT_ID));
+        Assert.assertNull(store.get(TENANT_ID, identifiers.get(0), matcher));
+    }
+
+    @Test
+    public void testCapacity() {
+        EffectivePolicyStore store = new EffectivePolicyStore(60000, 2);
+        store.get(TENANT_ID, identifiers.get(0), matcher);
+        for (DeviceIdentifier identifier : identifiers) {
+            store.put(TENANT_ID, identifier, this.createPolicy(1), store.getClock(TENANT_ID));
+        }
+        Assert.assertTrue(store.getStoredDevices(TENANT_ID).size() <= 2);
+
+        // The policies are dropped once the capacity is reached, and stored again afterwards.
+        store.put(TENANT_ID, identifiers.get(2), this.createPolicy(1), store.getClock(TENANT_ID));
+        Assert.assertNotNull(store.get(TENANT_ID, identifiers.get(2), matcher));
+    }
+
+    @Test(dependsOnMethods = "testPolicyChangeDropsPolicies")
+    public void testConsistencyChecker() throws Exception {
+        EffectivePolicyStore store = this.createStore();
+        store.get(TENANT_ID, identifiers.get(0), matcher);
+        // No policy applies to the devices of the type, hence only the stored policy is inconsistent.
+        store.put(TENANT_ID, identifiers.get(0), this.createPolicy(1), store.getClock(TENANT_ID));
+        store.put(TENANT_ID, identifiers.get(1), null, store.getClock(TENANT_ID));
+
+        List<DeviceIdentifier> inconsistentDevices = new EffectivePolicyConsistencyChecker(store).check();
+        Assert.assertEquals(inconsistentDevices.size(), 1);
+        Assert.assertEquals(inconsistentDevices.get(0).getId(), identifiers.get(0).getId());
+        Assert.assertNull(store.get(TENANT_ID, identifiers.get(0), matcher));
+        Assert.assertNotNull(store.get(TENANT_ID, identifiers.get(1), matcher));
+        Assert.assertTrue(new EffectivePolicyConsistencyChecker(store).check().isEmpty());
+    }
+
+    @Test
+    public void testStoredPolicyIsRecordedAsApplied() throws Exception {
+        DeviceIdentifier identifier = identifiers.get(2);
+        int deviceId = new DeviceManagementProviderServiceImpl().getDevice(identifier).getId();
+        Policy policy = this.createPolicy(3);
+        Profile profile = new Profile();
+        profile.setProfileFeaturesList(ProfileFeatureCreator.getProfileFeature(FeatureCreator.getFeatureList5()));
+        policy.setProfile(profile);
+        PolicyManager policyManager = new PolicyManagerImpl();
+        policyManager.addAppliedPolicyToDevice(identifier, policy);
+        policyManager.setPolicyApplied(identifier);
+        Assert.assertTrue(this.isPolicyApplied(deviceId));
+
+        EffectivePolicyStore store = this.createStore();
+        store.get(TENANT_ID, identifier, matcher);
+        store.put(TENANT_ID, identifier, policy, store.getClock(TENANT_ID));
+
+        DeviceManagementProviderService previousDeviceManagementService =
+                PolicyManagementDataHolder.getInstance().getDeviceManagementService();
+        RecordingDeviceManagementService deviceManagementService = new RecordingDeviceManagementService();
+        PolicyManagementDataHolder.getInstance().setDeviceManagementService(deviceManagementService);
+        try {
+            Policy effectivePolicy = new PolicyManagerServiceImpl(store).getEffectivePolicy(identifier);
+            Assert.assertSame(effectivePolicy, policy);
+            Assert.assertEquals(deviceManagementService.getOperationDevices(PolicyOperation.POLICY_OPERATION_CODE), 1);
+            // The policy operation is added again, hence the policy is pending until the device applies it.
+            Assert.assertFalse(this.isPolicyApplied(deviceId));
+        } finally {
+            PolicyManagementDataHolder.getInstance().setDeviceManagementService(previousDeviceManagementService);
+        }
+    }
+
+    private boolean isPolicyApplied(int deviceId) throws SQLException {
+        Connection conn = this.getDataSource().getConnection();
+        try {
+            PreparedStatement stmt = conn.prepareStatement("SELECT APPLIED FROM DM_DEVICE_POLICY_APPLIED " +
+                    "WHERE DEVICE_ID = ? AND TENANT_ID = ?");
+            stmt.setInt(1, deviceId);
+            stmt.setInt(2, TENANT_ID);
+            ResultSet rs = stmt.executeQuery();
+            Assert.assertTrue(rs.next());
+            return rs.getBoolean("APPLIED");
+        } finally {
+            conn.close();
+        }
+    }
+
+    private EffectivePolicyStore createStore() {
+        return new EffectivePolicyStore(60000, 1000);
+    }
+
+    private Policy createPolicy(int id) {
+        Policy policy = new Policy();
+        policy.setId(id);
+        policy.setPolicyName("Store_Policy_" + id);
+        return policy;
+    }
+
+    private List<DeviceIdentifier> addDevices(int count) throws Exception {
+        DeviceType deviceType = new DeviceType();
+        deviceType.setName(DEVICE_TYPE);
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        EnrollmentDAO enrollmentDAO = DeviceManagementDAOFactory.getEnrollmentDAO();
+        List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>(count);
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(deviceType, TENANT_ID, true);
+            deviceType = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TENANT_ID);
+            for (int i = 0; i < count; i++) {
+                Device device = new Device();
+                device.setType(DEVICE_TYPE);
+                device.setName("Store Device " + i);
+                device.setDeviceIdentifier("store-" + i);
+                EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+                enrolmentInfo.setOwner("store-owner");
+                enrolmentInfo.setOwnership(EnrolmentInfo.OwnerShip.BYOD);
+                enrolmentInfo.setStatus(EnrolmentInfo.Status.ACTIVE);
+                device.setEnrolmentInfo(enrolmentInfo);
+                int id = deviceDAO.addDevice(deviceType.getId(), device, TENANT_ID);
+                enrollmentDAO.addEnrollment(id, enrolmentInfo, TENANT_ID);
+
+                DeviceIdentifier identifier = new DeviceIdentifier();
+                identifier.setType(DEVICE_TYPE);
+                identifier.setId(device.getDeviceIdentifier());
+                deviceIdentifiers.add(identifier);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        return deviceIdentifiers;
+    }
+
+}
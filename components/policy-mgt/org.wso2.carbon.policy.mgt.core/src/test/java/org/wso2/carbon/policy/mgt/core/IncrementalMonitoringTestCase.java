@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dao.EnrollmentDAO;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.Profile;
+import org.wso2.carbon.policy.mgt.common.monitor.ComplianceData;
+import org.wso2.carbon.policy.mgt.common.monitor.PolicyComplianceException;
+import org.wso2.carbon.policy.mgt.common.spi.PolicyMonitoringService;
+import org.wso2.carbon.policy.mgt.core.dao.MonitoringDAO;
+import org.wso2.carbon.policy.mgt.core.dao.PolicyManagementDAOFactory;
+import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
+import org.wso2.carbon.policy.mgt.core.mgt.MonitoringManager;
+import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
+import org.wso2.carbon.policy.mgt.core.mgt.impl.MonitoringManagerImpl;
+import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
+import org.wso2.carbon.policy.mgt.core.task.MonitoringScheduler;
+import org.wso2.carbon.policy.mgt.core.util.FeatureCreator;
+import org.wso2.carbon.policy.mgt.core.util.ProfileFeatureCreator;
+import org.wso2.carbon.policy.mgt.core.util.RecordingDeviceManagementService;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects the devices due for a compliance check in pages, and verifies that compliant devices are skipped until
+ * they are applied a policy or their compliance gets stale, that the buckets of due devices are monitored within
+ * their slots of the interval, and that devices pending in a bucket are not scheduled again.
+ */
+public class IncrementalMonitoringTestCase extends BasePolicyManagementDAOTest {
+
+    private static final String DEVICE_TYPE = "incremental-test";
+    private static final int ACTIVE_DEVICES = 200;
+    private static final int BLOCKED_DEVICES = 10;
+    private static final int COMPLIANT_DEVICES = 120;
+    private static final int REAPPLIED_DEVICES = 20;
+    private static final int BUCKETS = 4;
+    private static final int PAGE_SIZE = 30;
+    private static final long RECHECK_INTERVAL = 3600000L;
+    private static final long INTERVAL = 2000L;
+    private static final String OPERATION_MONITOR = "MONITOR";
+
+    private RecordingDeviceManagementService deviceManagementService;
+    private DeviceManagementProviderService previousDeviceManagementService;
+    private MonitoringManager monitoringManager;
+    private PolicyManager policyManager;
+    private Policy policy;
+    private List<Device> devices;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        initiatePrivilegedCaronContext();
+        previousDeviceManagementService = PolicyManagementDataHolder.getInstance().getDeviceManagementService();
+        deviceManagementService = new RecordingDeviceManagementService();
+        PolicyManagementDataHolder.getInstance().setDeviceManagementService(deviceManagementService);
+
+        devices = this.addDevices();
+        policyManager = new PolicyManagerImpl();
+        policy = policyManager.addPolicy(this.createPolicy());
+        policyManager.addAppliedPolicyToDevices(devices, policy);
+        monitoringManager = new MonitoringManagerImpl();
+    }
+
+    @AfterClass
+    public void restoreDeviceManagementService() {
+        PolicyManagementDataHolder.getInstance().setDeviceManagementService(previousDeviceManagementService);
+    }
+
+    @Test
+    public void testAllDevicesDueInitially() throws Exception {
+        MonitoringScheduler scheduler = new MonitoringScheduler(monitoringManager, BUCKETS, PAGE_SIZE,
+                                                                RECHECK_INTERVAL);
+        List<Device> dueDevices = scheduler.getDueDevices(DEVICE_TYPE);
+        Assert.assertEquals(dueDevices.size(), ACTIVE_DEVICES, "Blocked devices were selected, or pages were lost");
+        Set<Integer> enrolmentIds = new HashSet<>();
+        for (Device device : dueDevices) {
+            Assert.assertEquals(device.getEnrolmentInfo().getStatus(), EnrolmentInfo.Status.ACTIVE);
+            Assert.assertTrue(enrolmentIds.add(device.getEnrolmentInfo().getId()),
+                              "Enrolment " + device.getEnrolmentInfo().getId() + " was selected twice");
+        }
+
+        List<List<Device>> buckets = scheduler.getBuckets(dueDevices);
+        Assert.assertEquals(buckets.size(), BUCKETS);
+        for (int i = 0; i < buckets.size(); i++) {
+            for (Device device : buckets.get(i)) {
+                Assert.assertEquals(device.getId() % BUCKETS, i);
+            }
+        }
+    }
+
+    @Test(dependsOnMethods = "testAllDevicesDueInitially")
+    public void testCompliantDevicesAreSkipped() throws Exception {
+        monitoringManager.addMonitoringOperation(devices);
+        this.setCompliant(devices.subList(0, COMPLIANT_DEVICES));
+
+        MonitoringScheduler scheduler = new MonitoringScheduler(monitoringManager, BUCKETS, PAGE_SIZE,
+                                                                RECHECK_INTERVAL);
+        Assert.assertEquals(scheduler.getDueDevices(DEVICE_TYPE).size(), ACTIVE_DEVICES - COMPLIANT_DEVICES);
+    }
+
+    @Test(dependsOnMethods = "testCompliantDevicesAreSkipped")
+    public void testReappliedDevicesAreDue() throws Exception {
+        // Timestamps are compared, so the policy must be applied after the devices were found compliant.
+        Thread.sleep(10);
+        policyManager.addAppliedPolicyToDevices(devices.subList(0, REAPPLIED_DEVICES), policy);
+
+        MonitoringScheduler scheduler = new MonitoringScheduler(monitoringManager, BUCKETS, PAGE_SIZE,
+                                                                RECHECK_INTERVAL);
+        Assert.assertEquals(scheduler.getDueDevices(DEVICE_TYPE).size(),
+                            ACTIVE_DEVICES - COMPLIANT_DEVICES + REAPPLIED_DEVICES);
+    }
+
+    @Test(dependsOnMethods = "testReappliedDevicesAreDue")
+    public void testStaleComplianceIsDue() throws Exception {
+        Thread.sleep(10);
+        MonitoringScheduler scheduler = new MonitoringScheduler(monitoringManager, BUCKETS, PAGE_SIZE, 1);
+        Assert.assertEquals(scheduler.getDueDevices(DEVICE_TYPE).size(), ACTIVE_DEVICES);
+    }
+
+    @Test(dependsOnMethods = "testStaleComplianceIsDue")
+    public void testBucketsAreSpreadOverInterval() throws Exception {
+        deviceManagementService.reset();
+        CountingMonitoringService monitoringService = new CountingMonitoringService();
+        MonitoringScheduler scheduler = new MonitoringScheduler(monitoringManager, BUCKETS, PAGE_SIZE, 1);
+        long slot = INTERVAL / BUCKETS;
+        for (int i = 0; i < BUCKETS; i++) {
+            long delay = scheduler.getDelay(i, INTERVAL);
+            Assert.assertTrue(delay >= i * slot && delay < (i + 1) * slot, "Bucket " + i + " is not in its slot");
+        }
+
+        List<Device> dueDevices = scheduler.getDueDevices(DEVICE_TYPE);
+        List<Future<?>> futures = scheduler.schedule(DEVICE_TYPE, monitoringService, dueDevices, INTERVAL);
+        Assert.assertEquals(futures.size(), BUCKETS);
+        for (Future<?> future : futures) {
+            future.get(INTERVAL * 2, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertEquals(monitoringService.getNotifiedDevices(), ACTIVE_DEVICES);
+    }
+
+    @Test(dependsOnMethods = "testBucketsAreSpreadOverInterval")
+    public void testPendingDevicesAreNotScheduledAgain() throws Exception {
+        deviceManagementService.reset();
+        CountingMonitoringService monitoringService = new CountingMonitoringService();
+        MonitoringScheduler scheduler = new MonitoringScheduler(monitoringManager, BUCKETS, PAGE_SIZE, 1);
+        List<Device> dueDevices = scheduler.getDueDevices(DEVICE_TYPE);
+        // Spread over an interval long enough for the buckets to be still pending when the next runs are scheduled.
+        List<Future<?>> pendingFutures = scheduler.schedule(DEVICE_TYPE, monitoringService,
+                                                            dueDevices.subList(0, ACTIVE_DEVICES / 2),
+                                                            INTERVAL * 1000);
+
+        // Only the devices which are not pending are scheduled, and they are scheduled again once monitored.
+        for (int run = 1; run <= 2; run++) {
+            for (Future<?> future : scheduler.schedule(DEVICE_TYPE, monitoringService, dueDevices, 0)) {
+                future.get(INTERVAL * 2, TimeUnit.MILLISECONDS);
+            }
+            Assert.assertEquals(monitoringService.getNotifiedDevices(), run * (ACTIVE_DEVICES / 2));
+        }
+        for (Future<?> future : pendingFutures) {
+            Assert.assertFalse(future.isDone(), "A pending bucket was cancelled or monitored early");
+        }
+        MonitoringScheduler.shutdown();
+    }
+
+    @Test(dependsOnMethods = "testPendingDevicesAreNotScheduledAgain")
+    public void testShutdownCancelsPendingBuckets() throws Exception {
+        deviceManagementService.reset();
+        CountingMonitoringService monitoringService = new CountingMonitoringService();
+        MonitoringScheduler scheduler = new MonitoringScheduler(monitoringManager, BUCKETS, PAGE_SIZE, 1);
+        List<Device> dueDevices = scheduler.getDueDevices(DEVICE_TYPE);
+        // Spread over an interval long enough for none of the buckets to be monitored before the shutdown.
+        List<Future<?>> futures = scheduler.schedule(DEVICE_TYPE, monitoringService, dueDevices, INTERVAL * 1000);
+        MonitoringScheduler.shutdown();
+        for (Future<?> future : futures) {
+            Assert.assertTrue(future.isCancelled());
+        }
+
+        // Buckets are scheduled again once the component is activated again.
+        futures = scheduler.schedule(DEVICE_TYPE, monitoringService, dueDevices, 0);
+        for (Future<?> future : futures) {
+            future.get(INTERVAL * 2, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertEquals(monitoringService.getNotifiedDevices(), ACTIVE_DEVICES);
+    }
+
+    private void setCompliant(List<Device> compliantDevices) throws Exception {
+        MonitoringDAO monitoringDAO = PolicyManagementDAOFactory.getMonitoringDAO();
+        try {
+            PolicyManagementDAOFactory.beginTransaction();
+            for (Device device : compliantDevices) {
+                monitoringDAO.setDeviceAsCompliance(device.getId(), device.getEnrolmentInfo().getId(),
+                                                    policy.getId());
+            }
+            PolicyManagementDAOFactory.commitTransaction();
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private List<Device> addDevices() throws Exception {
+        DeviceType deviceType = new DeviceType();
+        deviceType.setName(DEVICE_TYPE);
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        EnrollmentDAO enrollmentDAO = DeviceManagementDAOFactory.getEnrollmentDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(deviceType, -1234, true);
+            deviceType = deviceTypeDAO.getDeviceType(DEVICE_TYPE, -1234);
+            for (int i = 0; i < ACTIVE_DEVICES + BLOCKED_DEVICES; i++) {
+                Device device = new Device();
+                device.setType(DEVICE_TYPE);
+                device.setName("Incremental Device " + i);
+                device.setDeviceIdentifier("incremental-" + i);
+                EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+                enrolmentInfo.setOwner("incremental-owner");
+                enrolmentInfo.setOwnership(EnrolmentInfo.OwnerShip.BYOD);
+                enrolmentInfo.setStatus((i < ACTIVE_DEVICES) ? EnrolmentInfo.Status.ACTIVE :
+                                        EnrolmentInfo.Status.BLOCKED);
+                device.setEnrolmentInfo(enrolmentInfo);
+                int id = deviceDAO.addDevice(deviceType.getId(), device, -1234);
+                enrollmentDAO.addEnrollment(id, enrolmentInfo, -1234);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            List<Device> addedDevices = deviceDAO.getDevices(DEVICE_TYPE, -1234);
+            Collections.sort(addedDevices, new Comparator<Device>() {
+                @Override
+                public int compare(Device device, Device other) {
+                    return Integer.compare(device.getId(), other.getId());
+                }
+            });
+            return addedDevices;
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private Policy createPolicy() {
+        Profile profile = new Profile();
+        profile.setProfileFeaturesList(ProfileFeatureCreator.getProfileFeature(FeatureCreator.getFeatureList5()));
+        profile.setProfileName("Incremental Profile");
+        profile.setTenantId(-1234);
+        profile.setDeviceType(DEVICE_TYPE);
+
+        Policy policy = new Policy();
+        policy.setPolicyName("Incremental_Policy");
+        policy.setGeneric(true);
+        policy.setProfile(profile);
+        policy.setCompliance("MONITOR");
+        policy.setOwnershipType("ANY");
+        return policy;
+    }
+
+    private static class CountingMonitoringService implements PolicyMonitoringService {
+
+        private final AtomicInteger notifiedDevices = new AtomicInteger();
+
+        int getNotifiedDevices() {
+            return notifiedDevices.get();
+        }
+
+        @Override
+        public void notifyDevices(List<Device> devices) throws PolicyComplianceException {
+            notifiedDevices.addAndGet(devices.size());
+        }
+
+        @Override
+        public ComplianceData checkPolicyCompliance(DeviceIdentifier deviceIdentifier, Policy policy,
+                                                    Object response) throws PolicyComplianceException {
+            return new ComplianceData();
+        }
+
+        @Override
+        public String getType() {
+            return DEVICE_TYPE;
+        }
+
+    }
+
+}
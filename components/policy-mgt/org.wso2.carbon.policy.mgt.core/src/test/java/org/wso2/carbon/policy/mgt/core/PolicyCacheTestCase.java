@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.Profile;
+import org.wso2.carbon.policy.mgt.core.cache.PolicyCacheManager;
+import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
+import org.wso2.carbon.policy.mgt.core.dao.PolicyManagementDAOFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies the lookups of the policy cache, and that readers always see a consistent set of policies while the
+ * cache is being updated.
+ */
+public class PolicyCacheTestCase extends BasePolicyManagementDAOTest {
+
+    private static final String ANDROID = "android";
+    private static final String IOS = "ios";
+    // Ids well above the ones of the policies added by the other tests.
+    private static final int FIRST_POLICY_ID = 10000;
+    private static final int STABLE_POLICY_COUNT = 40;
+    private static final int VOLATILE_POLICY_COUNT = 10;
+    private static final int READERS = 4;
+    private static final int UPDATES = 2000;
+    // Ids of devices which do not exist in the database.
+    private static final int UNKNOWN_DEVICE_ID = 1000000;
+    private static final String DEVICE_TYPE = "cache-test";
+
+    private PolicyCacheManager cacheManager;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        cacheManager = PolicyCacheManagerImpl.getInstance();
+        List<Policy> policies = new ArrayList<>();
+        for (int i = 0; i < STABLE_POLICY_COUNT; i++) {
+            policies.add(this.createPolicy(FIRST_POLICY_ID + i, STABLE_POLICY_COUNT - i, (i % 2 == 0) ? ANDROID : IOS));
+        }
+        cacheManager.addAllPolicies(policies);
+    }
+
+    @AfterClass
+    public void clearCache() {
+        // Policies are loaded again from the database on the next lookup.
+        cacheManager.removeAllPolicies();
+    }
+
+    @Test
+    public void testLookups() throws Exception {
+        Policy policy = cacheManager.getPolicy(FIRST_POLICY_ID + 3);
+        Assert.assertNotNull(policy);
+        Assert.assertEquals(policy.getProfile().getDeviceType(), IOS);
+        Assert.assertNull(cacheManager.getPolicy(FIRST_POLICY_ID - 1));
+
+        List<Policy> androidPolicies = cacheManager.getPoliciesOfDeviceType("ANDROID");
+        Assert.assertEquals(androidPolicies.size(), STABLE_POLICY_COUNT / 2);
+        this.assertOrderedByPriority(androidPolicies);
+        for (Policy androidPolicy : androidPolicies) {
+            Assert.assertEquals(androidPolicy.getProfile().getDeviceType(), ANDROID);
+        }
+        this.assertOrderedByPriority(cacheManager.getAllPolicies());
+        Assert.assertTrue(cacheManager.getPoliciesOfDeviceType("windows").isEmpty());
+    }
+
+    @Test
+    public void testIncrementalUpdates() throws Exception {
+        int policyId = FIRST_POLICY_ID + STABLE_POLICY_COUNT + VOLATILE_POLICY_COUNT;
+        cacheManager.addPolicy(this.createPolicy(policyId, 0, ANDROID));
+        Assert.assertEquals(cacheManager.getPoliciesOfDeviceType(ANDROID).get(0).getId(), policyId);
+
+        cacheManager.updatePolicy(this.createPolicy(policyId, STABLE_POLICY_COUNT + 1, IOS));
+        List<Policy> iosPolicies = cacheManager.getPoliciesOfDeviceType(IOS);
+        Assert.assertEquals(iosPolicies.get(iosPolicies.size() - 1).getId(), policyId);
+        Assert.assertFalse(this.getIds(cacheManager.getPoliciesOfDeviceType(ANDROID)).contains(policyId));
+
+        cacheManager.removePolicy(policyId);
+        Assert.assertNull(cacheManager.getPolicy(policyId));
+        Assert.assertEquals(cacheManager.getAllPolicies().size(), STABLE_POLICY_COUNT);
+    }
+
+    @Test
+    public void testDevicePolicyMappings() throws Exception {
+        int policyId = FIRST_POLICY_ID + STABLE_POLICY_COUNT + VOLATILE_POLICY_COUNT + 1;
+        cacheManager.addPolicy(this.createPolicy(policyId, 1, ANDROID));
+        // Neither policy has been applied to a device in the database, which is loaded and cached.
+        Assert.assertTrue(cacheManager.getPolicyAppliedDeviceIds(policyId).isEmpty());
+        Assert.assertTrue(cacheManager.getPolicyAppliedDeviceIds(FIRST_POLICY_ID).isEmpty());
+
+        cacheManager.addPolicyToDevice(UNKNOWN_DEVICE_ID, policyId);
+        cacheManager.addPolicyToDevice(UNKNOWN_DEVICE_ID + 1, policyId);
+        cacheManager.addPolicyToDevice(UNKNOWN_DEVICE_ID + 2, FIRST_POLICY_ID);
+        Assert.assertEquals(cacheManager.getPolicyIdOfDevice(UNKNOWN_DEVICE_ID), policyId);
+        Assert.assertEquals(new HashSet<>(cacheManager.getPolicyAppliedDeviceIds(policyId)),
+                            new HashSet<>(Arrays.asList(UNKNOWN_DEVICE_ID, UNKNOWN_DEVICE_ID + 1)));
+
+        // A device has a single effective policy.
+        cacheManager.addPolicyToDevice(UNKNOWN_DEVICE_ID + 1, FIRST_POLICY_ID);
+        Assert.assertEquals(cacheManager.getPolicyAppliedDeviceIds(policyId), Arrays.asList(UNKNOWN_DEVICE_ID));
+        Assert.assertEquals(new HashSet<>(cacheManager.getPolicyAppliedDeviceIds(FIRST_POLICY_ID)),
+                            new HashSet<>(Arrays.asList(UNKNOWN_DEVICE_ID + 1, UNKNOWN_DEVICE_ID + 2)));
+
+        // The devices of a removed policy are looked up in the database again.
+        cacheManager.removePolicy(policyId);
+        Assert.assertEquals(cacheManager.getPolicyIdOfDevice(UNKNOWN_DEVICE_ID), -1);
+        Assert.assertTrue(cacheManager.getPolicyAppliedDeviceIds(policyId).isEmpty());
+        Assert.assertEquals(cacheManager.getPolicyIdOfDevice(UNKNOWN_DEVICE_ID + 2), FIRST_POLICY_ID);
+    }
+
+    @Test
+    public void testDevicePolicyMappingsAreLoaded() throws Exception {
+        int policyId = FIRST_POLICY_ID + STABLE_POLICY_COUNT + VOLATILE_POLICY_COUNT + 2;
+        // Applied by another node, hence only recorded in the database.
+        int deviceId = this.addDeviceHavingPolicy(policyId);
+        Assert.assertEquals(cacheManager.getPolicyIdOfDevice(deviceId), policyId);
+        Assert.assertEquals(cacheManager.getPolicyAppliedDeviceIds(policyId), Arrays.asList(deviceId));
+
+        // Applied on this node afterwards, which updates the loaded mappings.
+        cacheManager.addPolicyToDevice(deviceId, FIRST_POLICY_ID + 1);
+        Assert.assertEquals(cacheManager.getPolicyIdOfDevice(deviceId), FIRST_POLICY_ID + 1);
+        Assert.assertTrue(cacheManager.getPolicyAppliedDeviceIds(policyId).isEmpty());
+    }
+
+    @Test(dependsOnMethods = {"testLookups", "testIncrementalUpdates", "testDevicePolicyMappings",
+            "testDevicePolicyMappingsAreLoaded"})
+    public void testReadsDuringUpdates() throws Exception {
+        final AtomicBoolean updating = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+        List<Future<Integer>> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(this.asTenant(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        int reads = 0;
+                        while (updating.get()) {
+                            List<Policy> policies = cacheManager.getAllPolicies();
+                            assertOrderedByPriority(policies);
+                            Set<Integer> ids = getIds(policies);
+                            Assert.assertEquals(ids.size(), policies.size(), "A policy is cached twice");
+                            for (int id = FIRST_POLICY_ID; id < FIRST_POLICY_ID + STABLE_POLICY_COUNT; id++) {
+                                Assert.assertTrue(ids.contains(id), "Policy " + id + " is missing");
+                            }
+                            Assert.assertNotNull(cacheManager.getPolicy(FIRST_POLICY_ID + reads %
+                                    STABLE_POLICY_COUNT));
+                            assertOrderedByPriority(cacheManager.getPoliciesOfDeviceType(ANDROID));
+                            reads++;
+                        }
+                        return reads;
+                    }
+                })));
+            }
+            Future<Integer> writer = executor.submit(this.asTenant(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    for (int i = 0; i < UPDATES; i++) {
+                        int stableId = FIRST_POLICY_ID + i % STABLE_POLICY_COUNT;
+                        cacheManager.updatePolicy(createPolicy(stableId, i % 100, (i % 2 == 0) ? ANDROID : IOS));
+                        int volatileId = FIRST_POLICY_ID + STABLE_POLICY_COUNT + i % VOLATILE_POLICY_COUNT;
+                        if (i % 3 == 0) {
+                            cacheManager.removePolicy(volatileId);
+                        } else {
+                            cacheManager.addPolicy(createPolicy(volatileId, i % 100, ANDROID));
+                        }
+                    }
+                    return UPDATES;
+                }
+            }));
+            try {
+                writer.get();
+            } finally {
+                updating.set(false);
+            }
+            for (Future<Integer> reader : readers) {
+                Assert.assertTrue(reader.get() > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> Callable<T> asTenant(final Callable<T> callable) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                PrivilegedCarbonContext.startTenantFlow();
+                try {
+                    PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
+                            MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+                    PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(
+                            MultitenantConstants.SUPER_TENANT_ID);
+                    return callable.call();
+                } finally {
+                    PrivilegedCarbonContext.endTenantFlow();
+                }
+            }
+        };
+    }
+
+    private int addDeviceHavingPolicy(int policyId) throws Exception {
+        DeviceType deviceType = new DeviceType();
+        deviceType.setName(DEVICE_TYPE);
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        int deviceId;
+        int enrolmentId;
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(deviceType, MultitenantConstants.SUPER_TENANT_ID, true);
+            deviceType = deviceTypeDAO.getDeviceType(DEVICE_TYPE, MultitenantConstants.SUPER_TENANT_ID);
+            Device device = new Device();
+            device.setType(DEVICE_TYPE);
+            device.setName("Cache Device");
+            device.setDeviceIdentifier("cache-0");
+            EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+            enrolmentInfo.setOwner("cache-owner");
+            enrolmentInfo.setOwnership(EnrolmentInfo.OwnerShip.BYOD);
+            enrolmentInfo.setStatus(EnrolmentInfo.Status.ACTIVE);
+            device.setEnrolmentInfo(enrolmentInfo);
+            deviceId = DeviceManagementDAOFactory.getDeviceDAO().addDevice(deviceType.getId(), device,
+                    MultitenantConstants.SUPER_TENANT_ID);
+            enrolmentId = DeviceManagementDAOFactory.getEnrollmentDAO().addEnrollment(deviceId, enrolmentInfo,
+                    MultitenantConstants.SUPER_TENANT_ID);
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        try {
+            PolicyManagementDAOFactory.beginTransaction();
+            PolicyManagementDAOFactory.getPolicyDAO().addEffectivePolicyToDevice(deviceId, enrolmentId,
+                    this.createPolicy(policyId, 1, DEVICE_TYPE));
+            PolicyManagementDAOFactory.commitTransaction();
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+        return deviceId;
+    }
+
+    private void assertOrderedByPriority(List<Policy> policies) {
+        for (int i = 1; i < policies.size(); i++) {
+            Assert.assertTrue(policies.get(i - 1).getPriorityId() <= policies.get(i).getPriorityId(),
+                              "Policies are not ordered by priority");
+        }
+    }
+
+    private Set<Integer> getIds(List<Policy> policies) {
+        Set<Integer> ids = new HashSet<>();
+        for (Policy policy : policies) {
+            ids.add(policy.getId());
+        }
+        return ids;
+    }
+
+    private Policy createPolicy(int id, int priority, String deviceType) {
+        Profile profile = new Profile();
+        profile.setProfileId(id);
+        profile.setProfileName("Cache test profile " + id);
+        profile.setDeviceType(deviceType);
+
+        Policy policy = new Policy();
+        policy.setId(id);
+        policy.setPolicyName("Cache test policy " + id);
+        policy.setPriorityId(priority);
+        policy.setProfile(profile);
+        policy.setUsers(new ArrayList<String>());
+        policy.setRoles(new ArrayList<String>());
+        return policy;
+    }
+
+}
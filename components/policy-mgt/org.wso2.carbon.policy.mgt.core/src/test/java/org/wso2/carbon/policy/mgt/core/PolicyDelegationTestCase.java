@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dao.EnrollmentDAO;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.device.mgt.core.operation.mgt.OperationMgtConstants;
+import org.wso2.carbon.device.mgt.core.operation.mgt.PolicyOperation;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.PolicyEvaluationPoint;
+import org.wso2.carbon.policy.mgt.common.Profile;
+import org.wso2.carbon.policy.mgt.common.ProfileFeature;
+import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
+import org.wso2.carbon.policy.mgt.core.enforcement.PartitionedPolicyDelegator;
+import org.wso2.carbon.policy.mgt.core.enforcement.PolicyDelegationException;
+import org.wso2.carbon.policy.mgt.core.enforcement.PolicyEnforcementDelegatorImpl;
+import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
+import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
+import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
+import org.wso2.carbon.policy.mgt.core.services.SimplePolicyEvaluationTest;
+import org.wso2.carbon.policy.mgt.core.util.FeatureCreator;
+import org.wso2.carbon.policy.mgt.core.util.ProfileFeatureCreator;
+import org.wso2.carbon.policy.mgt.core.util.RecordingDeviceManagementService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delegates policies to a synthetic set of devices in partitions, and verifies that every device is recorded its
+ * effective policy, that the operations are added for groups of devices, that an interrupted delegation resumes
+ * from its checkpoint, and that the effective policies are evaluated by the registered PEP unless it is the simple one.
+ */
+public class PolicyDelegationTestCase extends BasePolicyManagementDAOTest {
+
+    private static final String DEVICE_TYPE = "delegation-test";
+    private static final int DEVICES = 10000;
+    private static final int PARTITION_SIZE = 500;
+    private static final int THREAD_POOL_SIZE = 4;
+    private static final String[] OWNERS = {"delegation-owner-0", "delegation-owner-1"};
+
+    private RecordingDeviceManagementService deviceManagementService;
+    private DeviceManagementProviderService previousDeviceManagementService;
+    private PolicyEvaluationPoint previousPolicyEvaluationPoint;
+    private PolicyManager policyManager;
+    private List<Device> devices;
+    private Map<String, Integer> policyIdsOfOwners = new HashMap<>();
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        initiatePrivilegedCaronContext();
+        previousDeviceManagementService = PolicyManagementDataHolder.getInstance().getDeviceManagementService();
+        deviceManagementService = new RecordingDeviceManagementService();
+        PolicyManagementDataHolder.getInstance().setDeviceManagementService(deviceManagementService);
+        previousPolicyEvaluationPoint = PolicyManagementDataHolder.getInstance().getPolicyEvaluationPoint();
+        PolicyManagementDataHolder.getInstance().setPolicyEvaluationPoint(new SimplePolicyEvaluationTest());
+        policyManager = new PolicyManagerImpl();
+
+        devices = this.addDevices();
+        for (String owner : OWNERS) {
+            Policy policy = policyManager.addPolicy(this.createPolicy(owner));
+            policyManager.activatePolicy(policy.getId());
+            policyIdsOfOwners.put(owner, policy.getId());
+        }
+        PolicyCacheManagerImpl.getInstance().rePopulateCache();
+    }
+
+    @AfterClass
+    public void restoreDeviceManagementService() {
+        PolicyManagementDataHolder.getInstance().setDeviceManagementService(previousDeviceManagementService);
+        PolicyManagementDataHolder.getInstance().setPolicyEvaluationPoint(previousPolicyEvaluationPoint);
+    }
+
+    @Test
+    public void testDelegateToAllDevices() throws Exception {
+        deviceManagementService.reset();
+        PartitionedPolicyDelegator delegator =
+                new PartitionedPolicyDelegator(policyManager, PARTITION_SIZE, THREAD_POOL_SIZE);
+        delegator.delegate(DEVICE_TYPE, devices, 0);
+
+        Map<Integer, Integer> appliedPolicies = policyManager.getAppliedPolicyIdsDeviceIds();
+        for (Device device : devices) {
+            Assert.assertEquals(appliedPolicies.get(device.getId()),
+                                policyIdsOfOwners.get(device.getEnrolmentInfo().getOwner()),
+                                "Device " + device.getId() + " was not applied the policy of its owner");
+        }
+        Assert.assertEquals(this.getRevokedDevices(), DEVICES);
+        Assert.assertEquals(this.getAppliedDevices(), DEVICES);
+
+        // One revoke operation per partition, and one policy operation per policy and partition.
+        int partitions = DEVICES / PARTITION_SIZE;
+        Assert.assertTrue(deviceManagementService.getCalls() <= partitions * (1 + OWNERS.length),
+                          "Operations were added for " + deviceManagementService.getCalls() + " device groups");
+        // The devices of each partition are looked up together by the PIP shared by the partition.
+        Assert.assertEquals(deviceManagementService.getDeviceLookups(), partitions);
+        Assert.assertFalse(policyManager.getDelegationCheckpoints().containsKey(DEVICE_TYPE),
+                           "Checkpoint was left behind after delegating to all the devices");
+    }
+
+    @Test(dependsOnMethods = "testDelegateToAllDevices")
+    public void testResumeFromCheckpoint() throws Exception {
+        deviceManagementService.reset();
+        int checkpoint = devices.get(DEVICES - 3 * PARTITION_SIZE - 1).getId();
+        PartitionedPolicyDelegator delegator =
+                new PartitionedPolicyDelegator(policyManager, PARTITION_SIZE, THREAD_POOL_SIZE);
+        delegator.delegate(DEVICE_TYPE, devices, checkpoint);
+
+        Assert.assertEquals(this.getRevokedDevices(), 3 * PARTITION_SIZE);
+        Assert.assertEquals(this.getAppliedDevices(), 3 * PARTITION_SIZE);
+    }
+
+    @Test(dependsOnMethods = "testResumeFromCheckpoint")
+    public void testCheckpointIsKeptOnFailure() throws Exception {
+        deviceManagementService.reset();
+        int failingPartition = 5;
+        deviceManagementService.setFailingDevice(
+                devices.get(failingPartition * PARTITION_SIZE + 1).getDeviceIdentifier());
+        PartitionedPolicyDelegator delegator =
+                new PartitionedPolicyDelegator(policyManager, PARTITION_SIZE, THREAD_POOL_SIZE);
+        try {
+            delegator.delegate(DEVICE_TYPE, devices, 0);
+            Assert.fail("Delegation did not fail");
+        } catch (PolicyDelegationException e) {
+            // The partitions before the failing one are complete, and the checkpoint is at the last of them.
+            Assert.assertEquals(policyManager.getDelegationCheckpoints().get(DEVICE_TYPE),
+                                Integer.valueOf(devices.get(failingPartition * PARTITION_SIZE - 1).getId()));
+        } finally {
+            deviceManagementService.setFailingDevice(null);
+        }
+
+        deviceManagementService.reset();
+        int checkpoint = policyManager.getDelegationCheckpoints().get(DEVICE_TYPE);
+        new PartitionedPolicyDelegator(policyManager, PARTITION_SIZE, THREAD_POOL_SIZE)
+                .delegate(DEVICE_TYPE, devices, checkpoint);
+        Assert.assertEquals(this.getRevokedDevices(), DEVICES - failingPartition * PARTITION_SIZE);
+        Assert.assertFalse(policyManager.getDelegationCheckpoints().containsKey(DEVICE_TYPE));
+    }
+
+    @Test(dependsOnMethods = "testCheckpointIsKeptOnFailure")
+    public void testDelegateWithOtherEvaluationPoint() throws Exception {
+        deviceManagementService.reset();
+        // A PEP other than the simple one, which applies the policy of the last owner to all the devices.
+        final Policy policy =
+                PolicyCacheManagerImpl.getInstance().getPolicy(policyIdsOfOwners.get(OWNERS[OWNERS.length - 1]));
+        PolicyManagementDataHolder.getInstance().setPolicyEvaluationPoint(new PolicyEvaluationPoint() {
+            @Override
+            public Policy getEffectivePolicy(DeviceIdentifier deviceIdentifier) {
+                return policy;
+            }
+
+            @Override
+            public List<ProfileFeature> getEffectiveFeatures(DeviceIdentifier deviceIdentifier) {
+                return policy.getProfile().getProfileFeaturesList();
+            }
+        });
+        List<Device> delegatedDevices = devices.subList(0, PARTITION_SIZE);
+        try {
+            new PolicyEnforcementDelegatorImpl(delegatedDevices).delegate();
+        } finally {
+            PolicyManagementDataHolder.getInstance().setPolicyEvaluationPoint(new SimplePolicyEvaluationTest());
+        }
+
+        Map<Integer, Integer> appliedPolicies = policyManager.getAppliedPolicyIdsDeviceIds();
+        for (Device device : delegatedDevices) {
+            Assert.assertEquals(appliedPolicies.get(device.getId()), Integer.valueOf(policy.getId()),
+                                "Device " + device.getId() + " was not applied the policy of the PEP");
+        }
+        Assert.assertEquals(this.getAppliedDevices(), PARTITION_SIZE);
+    }
+
+    private List<Device> addDevices() throws Exception {
+        DeviceType deviceType = new DeviceType();
+        deviceType.setName(DEVICE_TYPE);
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        EnrollmentDAO enrollmentDAO = DeviceManagementDAOFactory.getEnrollmentDAO();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(deviceType, -1234, true);
+            deviceType = deviceTypeDAO.getDeviceType(DEVICE_TYPE, -1234);
+            for (int i = 0; i < DEVICES; i++) {
+                Device device = new Device();
+                device.setType(DEVICE_TYPE);
+                device.setName("Delegation Device " + i);
+                device.setDeviceIdentifier("delegation-" + i);
+                EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+                enrolmentInfo.setOwner(OWNERS[i % OWNERS.length]);
+                enrolmentInfo.setOwnership(EnrolmentInfo.OwnerShip.BYOD);
+                enrolmentInfo.setStatus(EnrolmentInfo.Status.ACTIVE);
+                device.setEnrolmentInfo(enrolmentInfo);
+                int id = deviceDAO.addDevice(deviceType.getId(), device, -1234);
+                enrollmentDAO.addEnrollment(id, enrolmentInfo, -1234);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            List<Device> addedDevices = deviceDAO.getDevices(DEVICE_TYPE, -1234);
+            Assert.assertEquals(addedDevices.size(), DEVICES);
+            // Kept in the order of the ids, the same as the delegator partitions them.
+            Collections.sort(addedDevices, new Comparator<Device>() {
+                @Override
+                public int compare(Device device, Device other) {
+                    return Integer.compare(device.getId(), other.getId());
+                }
+            });
+            return addedDevices;
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private int getRevokedDevices() {
+        return deviceManagementService.getOperationDevices(OperationMgtConstants.OperationCodes.POLICY_REVOKE);
+    }
+
+    private int getAppliedDevices() {
+        return deviceManagementService.getOperationDevices(PolicyOperation.POLICY_OPERATION_CODE);
+    }
+
+    private Policy createPolicy(String owner) {
+        Profile profile = new Profile();
+        profile.setProfileFeaturesList(ProfileFeatureCreator.getProfileFeature(FeatureCreator.getFeatureList5()));
+        profile.setProfileName("Delegation Profile " + owner);
+        profile.setTenantId(-1234);
+        profile.setDeviceType(DEVICE_TYPE);
+
+        Policy policy = new Policy();
+        policy.setPolicyName("Delegation_Policy_" + owner);
+        policy.setGeneric(true);
+        policy.setProfile(profile);
+        policy.setCompliance("ENFORCE");
+        policy.setOwnershipType("ANY");
+        policy.setUsers(new ArrayList<>(Arrays.asList(owner)));
+        return policy;
+    }
+
+}
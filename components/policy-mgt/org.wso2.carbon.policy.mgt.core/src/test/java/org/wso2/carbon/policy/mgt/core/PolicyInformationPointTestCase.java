@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.policy.mgt.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dao.EnrollmentDAO;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.policy.mgt.common.PIPDevice;
+import org.wso2.carbon.policy.mgt.common.PolicyInformationPoint;
+import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyInformationPointImpl;
+import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
+import org.wso2.carbon.policy.mgt.core.util.RecordingDeviceManagementService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies that the PIP fetches the data of a list of devices with a single device lookup, that it fetches a device
+ * only once during its lifetime, and that one PIP is shared by a run.
+ */
+public class PolicyInformationPointTestCase extends BasePolicyManagementDAOTest {
+
+    private static final String DEVICE_TYPE = "pip-test";
+    private static final int DEVICES = 20;
+    private static final int OWNERS = 3;
+
+    private RecordingDeviceManagementService deviceManagementService;
+    private DeviceManagementProviderService previousDeviceManagementService;
+    private List<DeviceIdentifier> identifiers;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        initiatePrivilegedCaronContext();
+        previousDeviceManagementService = PolicyManagementDataHolder.getInstance().getDeviceManagementService();
+        deviceManagementService = new RecordingDeviceManagementService();
+        PolicyManagementDataHolder.getInstance().setDeviceManagementService(deviceManagementService);
+        identifiers = this.addDevices();
+    }
+
+    @AfterClass
+    public void restore() throws Exception {
+        PolicyManagementDataHolder.getInstance().setDeviceManagementService(previousDeviceManagementService);
+    }
+
+    @Test
+    public void testBulkDeviceData() throws Exception {
+        deviceManagementService.reset();
+        PolicyInformationPoint pip = new PolicyInformationPointImpl();
+        List<PIPDevice> pipDevices = pip.getDeviceData(identifiers);
+
+        Assert.assertEquals(deviceManagementService.getDeviceLookups(), 1);
+        Assert.assertEquals(pipDevices.size(), DEVICES);
+        for (int i = 0; i < DEVICES; i++) {
+            PIPDevice pipDevice = pipDevices.get(i);
+            Assert.assertEquals(pipDevice.getDeviceIdentifier().getId(), identifiers.get(i).getId());
+            Assert.assertEquals(pipDevice.getUserId(), "pip-owner-" + (i % OWNERS));
+            Assert.assertEquals(pipDevice.getOwnershipType(), EnrolmentInfo.OwnerShip.BYOD.toString());
+            Assert.assertEquals(pipDevice.getDeviceType().getName(), DEVICE_TYPE);
+            Assert.assertNotNull(pipDevice.getDeviceGroups());
+        }
+    }
+
+    @Test
+    public void testDeviceDataIsMemoized() throws Exception {
+        deviceManagementService.reset();
+        PolicyInformationPoint pip = new PolicyInformationPointImpl();
+        List<PIPDevice> pipDevices = pip.getDeviceData(identifiers.subList(0, DEVICES / 2));
+        PIPDevice pipDevice = pip.getDeviceData(identifiers.get(0));
+        Assert.assertSame(pipDevice, pipDevices.get(0));
+        Assert.assertEquals(deviceManagementService.getDeviceLookups(), 1);
+
+        // Only the devices which were not fetched yet are looked up.
+        Assert.assertEquals(pip.getDeviceData(identifiers).size(), DEVICES);
+        Assert.assertEquals(deviceManagementService.getDeviceLookups(), 2);
+        Assert.assertEquals(pip.getDeviceData(identifiers).size(), DEVICES);
+        Assert.assertEquals(deviceManagementService.getDeviceLookups(), 2);
+    }
+
+    @Test
+    public void testPIPIsSharedByRun() throws Exception {
+        deviceManagementService.reset();
+        PolicyManagerService policyManagerService = new PolicyManagerServiceImpl();
+        Assert.assertNotSame(policyManagerService.getPIP(), policyManagerService.getPIP());
+
+        PolicyInformationPoint pip = PolicyInformationPointImpl.beginRun();
+        try {
+            pip.getDeviceData(identifiers);
+            Assert.assertSame(policyManagerService.getPIP(), pip);
+            PolicyInformationPointImpl.beginRun();
+            try {
+                Assert.assertSame(policyManagerService.getPIP(), pip);
+            } finally {
+                PolicyInformationPointImpl.endRun();
+            }
+            // Evaluations made during the run reuse the devices fetched for the run.
+            for (DeviceIdentifier identifier : identifiers) {
+                policyManagerService.getPIP().getDeviceData(identifier);
+            }
+            Assert.assertEquals(deviceManagementService.getDeviceLookups(), 1);
+        } finally {
+            PolicyInformationPointImpl.endRun();
+        }
+        Assert.assertNotSame(policyManagerService.getPIP(), pip);
+    }
+
+    @Test(expectedExceptions = PolicyManagementException.class)
+    public void testUnknownDevice() throws Exception {
+        DeviceIdentifier identifier = new DeviceIdentifier();
+        identifier.setType(DEVICE_TYPE);
+        identifier.setId("pip-unknown");
+        new PolicyInformationPointImpl().getDeviceData(identifier);
+    }
+
+    private List<DeviceIdentifier> addDevices() throws Exception {
+        DeviceType deviceType = new DeviceType();
+        deviceType.setName(DEVICE_TYPE);
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        EnrollmentDAO enrollmentDAO = DeviceManagementDAOFactory.getEnrollmentDAO();
+        List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>(DEVICES);
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(deviceType, -1234, true);
+            deviceType = deviceTypeDAO.getDeviceType(DEVICE_TYPE, -1234);
+            for (int i = 0; i < DEVICES; i++) {
+                Device device = new Device();
+                device.setType(DEVICE_TYPE);
+                device.setName("PIP Device " + i);
+                device.setDeviceIdentifier("pip-" + i);
+                EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+                enrolmentInfo.setOwner("pip-owner-" + (i % OWNERS));
+                enrolmentInfo.setOwnership(EnrolmentInfo.OwnerShip.BYOD);
+                enrolmentInfo.setStatus(EnrolmentInfo.Status.ACTIVE);
+                device.setEnrolmentInfo(enrolmentInfo);
+                int id = deviceDAO.addDevice(deviceType.getId(), device, -1234);
+                enrollmentDAO.addEnrollment(id, enrolmentInfo, -1234);
+
+                DeviceIdentifier identifier = new DeviceIdentifier();
+                identifier.setType(DEVICE_TYPE);
+                identifier.setId(device.getDeviceIdentifier());
+                deviceIdentifiers.add(identifier);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        return deviceIdentifiers;
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.PolicyCriterion;
+import org.wso2.carbon.policy.mgt.core.common.StatementCounter;
+import org.wso2.carbon.policy.mgt.core.dao.PolicyManagementDAOFactory;
+import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
+import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
+import org.wso2.carbon.policy.mgt.core.util.FeatureCreator;
+import org.wso2.carbon.policy.mgt.core.util.ProfileCreator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Verifies that the policies are loaded along with all their associations in a number of queries that does not
+ * depend on the number of policies.
+ */
+public class PolicyLoadingTestCase extends BasePolicyManagementDAOTest {
+
+    private static final int ADDED_POLICIES = 5;
+
+    private StatementCounter counter;
+    private PolicyManager policyManager;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        initiatePrivilegedCaronContext();
+        counter = new StatementCounter();
+        DataSource dataSource = counter.wrap(this.getDataSource());
+        PolicyManagementDAOFactory.init(dataSource);
+        DeviceManagementDAOFactory.init(dataSource);
+        policyManager = new PolicyManagerImpl();
+    }
+
+    @AfterClass
+    public void restoreDataSource() throws Exception {
+        this.initDatSource();
+    }
+
+    @Test
+    public void testStatementCountDoesNotDependOnPolicies() throws Exception {
+        counter.reset();
+        int policyCount = policyManager.getPolicies().size();
+        int statements = counter.getCount();
+
+        for (int i = 0; i < ADDED_POLICIES; i++) {
+            policyManager.addPolicy(this.createPolicy(i));
+        }
+
+        counter.reset();
+        List<Policy> policies = policyManager.getPolicies();
+        Assert.assertEquals(policies.size(), policyCount + ADDED_POLICIES);
+        Assert.assertEquals(counter.getCount(), statements,
+                            "Loading more policies took a different number of statements");
+    }
+
+    @Test(dependsOnMethods = "testStatementCountDoesNotDependOnPolicies")
+    public void testAssociationsAreLoaded() throws Exception {
+        int found = 0;
+        for (Policy policy : policyManager.getPolicies()) {
+            if (!policy.getPolicyName().startsWith("Loading_Policy_")) {
+                continue;
+            }
+            found++;
+            int index = Integer.parseInt(policy.getPolicyName().substring("Loading_Policy_".length()));
+            Assert.assertNotNull(policy.getProfile());
+            Assert.assertEquals(policy.getRoles(), Arrays.asList("Loading_Role_" + index));
+            Assert.assertEquals(policy.getUsers(), Arrays.asList("loading-user-" + index));
+            Assert.assertTrue(policy.getDevices().isEmpty());
+
+            List<PolicyCriterion> criteria = policy.getPolicyCriterias();
+            Assert.assertEquals(criteria.size(), 2);
+            for (PolicyCriterion criterion : criteria) {
+                if ("Time".equals(criterion.getName())) {
+                    Assert.assertEquals(criterion.getProperties().getProperty("Start_time"), "10.00 AM");
+                    Assert.assertEquals(criterion.getProperties().getProperty("End_time"), index + ".00 PM");
+                } else {
+                    Assert.assertEquals(criterion.getName(), "Location");
+                    Assert.assertEquals(criterion.getProperties().getProperty("City"), "City " + index);
+                }
+            }
+        }
+        Assert.assertEquals(found, ADDED_POLICIES);
+    }
+
+    private Policy createPolicy(int index) {
+        Policy policy = new Policy();
+        policy.setPolicyName("Loading_Policy_" + index);
+        policy.setGeneric(true);
+        policy.setProfile(ProfileCreator.getProfile5(FeatureCreator.getFeatureList5()));
+        policy.setCompliance("NOTIFY");
+        policy.setOwnershipType("BYOD");
+        policy.setRoles(new ArrayList<>(Arrays.asList("Loading_Role_" + index)));
+        policy.setUsers(new ArrayList<>(Arrays.asList("loading-user-" + index)));
+
+        PolicyCriterion time = new PolicyCriterion();
+        time.setName("Time");
+        Properties timeProperties = new Properties();
+        timeProperties.put("Start_time", "10.00 AM");
+        timeProperties.put("End_time", index + ".00 PM");
+        time.setProperties(timeProperties);
+
+        PolicyCriterion location = new PolicyCriterion();
+        location.setName("Location");
+        Properties locationProperties = new Properties();
+        locationProperties.put("City", "City " + index);
+        location.setProperties(locationProperties);
+
+        policy.setPolicyCriterias(new ArrayList<>(Arrays.asList(time, location)));
+        return policy;
+    }
+
+}
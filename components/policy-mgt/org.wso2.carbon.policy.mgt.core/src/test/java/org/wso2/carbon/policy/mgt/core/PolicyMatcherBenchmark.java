@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core;
+
+import org.wso2.carbon.policy.mgt.common.PIPDevice;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.PolicyFilter;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyFilterImpl;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyMatcher;
+import org.wso2.carbon.policy.mgt.core.util.PolicyMatchingDataCreator;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the effective policy evaluations per second of the policy matcher and of the chain of policy filters,
+ * over a configurable number of policies (-Dpolicies, 500 by default).
+ * This is not part of the test suite; run it on demand with the test classpath, e.g.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.wso2.carbon.policy.mgt.core.PolicyMatcherBenchmark -Dpolicies=500
+ * </pre>
+ */
+public class PolicyMatcherBenchmark {
+
+    private static final int DEVICES = 10000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASUREMENT_ROUNDS = 5;
+
+    private static volatile int sink;
+
+    public static void main(String[] args) {
+        int policyCount = Integer.getInteger("policies", 500);
+        List<Policy> policies = PolicyMatchingDataCreator.createPolicies(policyCount, new Random(42));
+        List<PIPDevice> devices = PolicyMatchingDataCreator.createDevices(DEVICES, new Random(7));
+        PolicyFilter policyFilter = new PolicyFilterImpl();
+
+        long start = System.nanoTime();
+        PolicyMatcher matcher = new PolicyMatcher(policies);
+        System.out.println(String.format("Compiled %d policies in %d us", policyCount,
+                                         (System.nanoTime() - start) / 1000));
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = runFilters(policyFilter, policies, devices) + runMatcher(matcher, devices);
+        }
+        long filterTime = 0;
+        long matcherTime = 0;
+        for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
+            start = System.nanoTime();
+            sink = runFilters(policyFilter, policies, devices);
+            filterTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            sink = runMatcher(matcher, devices);
+            matcherTime += System.nanoTime() - start;
+        }
+        long evaluations = (long) DEVICES * MEASUREMENT_ROUNDS;
+        System.out.println(String.format("%-10s %20s", "evaluator", "evaluations/second"));
+        System.out.println(String.format("%-10s %20d", "filters", evaluations * 1000000000L / filterTime));
+        System.out.println(String.format("%-10s %20d", "matcher", evaluations * 1000000000L / matcherTime));
+    }
+
+    private static int runFilters(PolicyFilter policyFilter, List<Policy> policies, List<PIPDevice> devices) {
+        int matched = 0;
+        for (PIPDevice device : devices) {
+            if (!PolicyMatchingDataCreator.filter(policyFilter, policies, device).isEmpty()) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private static int runMatcher(PolicyMatcher matcher, List<PIPDevice> devices) {
+        int matched = 0;
+        for (PIPDevice device : devices) {
+            if (matcher.getEffectivePolicy(device) != null) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+}
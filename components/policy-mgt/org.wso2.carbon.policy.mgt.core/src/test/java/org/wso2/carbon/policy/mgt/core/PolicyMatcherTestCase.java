@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
+import org.wso2.carbon.policy.mgt.common.DeviceGroupWrapper;
+import org.wso2.carbon.policy.mgt.common.PIPDevice;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.PolicyFilter;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyFilterImpl;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyMatcher;
+import org.wso2.carbon.policy.mgt.core.util.PolicyMatchingDataCreator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Verifies that the policy matcher selects the same policies as the chain of policy filters.
+ */
+public class PolicyMatcherTestCase extends BasePolicyManagementDAOTest {
+
+    private static final int POLICIES = 300;
+    private static final int DEVICES = 2000;
+
+    private List<Policy> policies;
+    private PolicyMatcher matcher;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        policies = PolicyMatchingDataCreator.createPolicies(POLICIES, new Random(42));
+        matcher = new PolicyMatcher(policies);
+    }
+
+    @Test
+    public void testMatcherAgreesWithFilters() throws Exception {
+        PolicyFilter policyFilter = new PolicyFilterImpl();
+        int matched = 0;
+        for (PIPDevice device : PolicyMatchingDataCreator.createDevices(DEVICES, new Random(7))) {
+            List<Integer> expected = this.getIds(PolicyMatchingDataCreator.filter(policyFilter, policies, device));
+            List<Policy> matches = matcher.getMatchingPolicies(device);
+            Assert.assertEquals(this.getIds(matches), expected);
+
+            Policy effectivePolicy = matcher.getEffectivePolicy(device);
+            if (expected.isEmpty()) {
+                Assert.assertNull(effectivePolicy);
+            } else {
+                Assert.assertEquals(effectivePolicy.getId(), (int) expected.get(0));
+                matched++;
+            }
+        }
+        Assert.assertTrue(matched > 0, "No device matched any policy");
+    }
+
+    @Test
+    public void testGroupMatching() throws Exception {
+        List<Policy> groupPolicies = PolicyMatchingDataCreator.createPolicies(1, new Random(1));
+        Policy policy = groupPolicies.get(0);
+        policy.setActive(true);
+        policy.setPriorityId(1);
+        policy.setOwnershipType("ANY");
+        policy.setRoles(new ArrayList<String>());
+        policy.setUsers(new ArrayList<String>());
+        DeviceGroupWrapper wrapper = new DeviceGroupWrapper();
+        wrapper.setId(5);
+        wrapper.setName("Group_4");
+        policy.setDeviceGroups(Arrays.asList(wrapper));
+        PolicyMatcher groupMatcher = new PolicyMatcher(groupPolicies);
+
+        PIPDevice device = PolicyMatchingDataCreator.createDevices(1, new Random(1)).get(0);
+        device.getDeviceType().setName(policy.getProfile().getDeviceType());
+        device.setDeviceGroups(new ArrayList<DeviceGroup>());
+        Assert.assertNull(groupMatcher.getEffectivePolicy(device), "Matched a device outside the group");
+
+        DeviceGroup group = new DeviceGroup();
+        group.setId(5);
+        device.getDeviceGroups().add(group);
+        Assert.assertEquals(groupMatcher.getEffectivePolicy(device).getId(), policy.getId());
+    }
+
+    private List<Integer> getIds(List<Policy> policies) {
+        List<Integer> ids = new ArrayList<>();
+        for (Policy policy : policies) {
+            ids.add(policy.getId());
+        }
+        return ids;
+    }
+
+}
@@ -25,11 +25,12 @@ import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.policy.mgt.common.*;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerService;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerServiceImpl;
+import org.wso2.carbon.policy.mgt.core.impl.SimplePolicyEvaluationPoint;
 
 import java.util.Collections;
 import java.util.List;
 
-public class SimplePolicyEvaluationTest implements PolicyEvaluationPoint {
+public class SimplePolicyEvaluationTest implements SimplePolicyEvaluationPoint {
 
     private static final Log log = LogFactory.getLog(SimplePolicyEvaluationTest.class);
 
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.util;
+
+import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.policy.mgt.common.DeviceGroupWrapper;
+import org.wso2.carbon.policy.mgt.common.PIPDevice;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.PolicyFilter;
+import org.wso2.carbon.policy.mgt.common.Profile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Creates policies and devices with random ownership types, roles, users and groups, for comparing the policy
+ * matcher with the chain of policy filters.
+ */
+public class PolicyMatchingDataCreator {
+
+    private static final String[] DEVICE_TYPES = {"android", "ios", "windows"};
+    private static final String[] OWNERSHIP_TYPES = {"BYOD", "COPE"};
+    private static final int ROLES = 20;
+    private static final int USERS = 50;
+    private static final int GROUPS = 10;
+
+    public static List<Policy> createPolicies(int count, Random random) {
+        List<Policy> policies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Profile profile = new Profile();
+            profile.setProfileId(i + 1);
+            profile.setDeviceType(DEVICE_TYPES[random.nextInt(DEVICE_TYPES.length)]);
+
+            Policy policy = new Policy();
+            policy.setId(i + 1);
+            policy.setPolicyName("Matching_Policy_" + i);
+            policy.setPriorityId(random.nextInt(count));
+            policy.setProfile(profile);
+            policy.setActive(random.nextInt(10) != 0);
+            policy.setOwnershipType((random.nextInt(3) == 0) ? PolicyManagementConstants.ANY :
+                                    OWNERSHIP_TYPES[random.nextInt(OWNERSHIP_TYPES.length)]);
+            policy.setRoles(pick(random, "Role_", ROLES));
+            policy.setUsers(pick(random, "user", USERS));
+
+            List<DeviceGroupWrapper> groups = new ArrayList<>();
+            for (String name : pick(random, "Group_", GROUPS)) {
+                DeviceGroupWrapper group = new DeviceGroupWrapper();
+                if (!PolicyManagementConstants.ANY.equals(name)) {
+                    group.setId(Integer.parseInt(name.substring("Group_".length())) + 1);
+                }
+                group.setName(name);
+                groups.add(group);
+            }
+            policy.setDeviceGroups(groups);
+            policies.add(policy);
+        }
+        return policies;
+    }
+
+    public static List<PIPDevice> createDevices(int count, Random random) {
+        List<PIPDevice> devices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PIPDevice device = new PIPDevice();
+            DeviceType deviceType = new DeviceType();
+            deviceType.setName(DEVICE_TYPES[random.nextInt(DEVICE_TYPES.length)].toUpperCase());
+            device.setDeviceType(deviceType);
+            device.setOwnershipType(OWNERSHIP_TYPES[random.nextInt(OWNERSHIP_TYPES.length)]);
+            device.setUserId("USER" + random.nextInt(USERS));
+
+            String[] roles = new String[random.nextInt(4)];
+            for (int j = 0; j < roles.length; j++) {
+                roles[j] = "role_" + random.nextInt(ROLES);
+            }
+            device.setRoles(roles);
+
+            List<DeviceGroup> groups = new ArrayList<>();
+            for (int j = random.nextInt(3); j > 0; j--) {
+                DeviceGroup group = new DeviceGroup();
+                group.setId(random.nextInt(GROUPS) + 1);
+                groups.add(group);
+            }
+            device.setDeviceGroups(groups);
+            devices.add(device);
+        }
+        return devices;
+    }
+
+    /**
+     * @return the policies applicable to the device, found by running the policies through the chain of filters.
+     */
+    public static List<Policy> filter(PolicyFilter policyFilter, List<Policy> policies, PIPDevice device) {
+        List<Policy> filtered = policyFilter.filterActivePolicies(policies);
+        filtered = policyFilter.filterDeviceTypeBasedPolicies(device.getDeviceType().getName(), filtered);
+        filtered = policyFilter.filterOwnershipTypeBasedPolicies(device.getOwnershipType(), filtered);
+        filtered = policyFilter.filterRolesBasedPolicies(device.getRoles(), filtered);
+        filtered = policyFilter.filterUserBasedPolicies(device.getUserId(), filtered);
+        Map<Integer, DeviceGroup> groups = new HashMap<>();
+        for (DeviceGroup group : device.getDeviceGroups()) {
+            groups.put(group.getId(), group);
+        }
+        filtered = policyFilter.filterDeviceGroupsPolicies(groups, filtered);
+        Collections.sort(filtered);
+        return filtered;
+    }
+
+    private static List<String> pick(Random random, String prefix, int bound) {
+        List<String> values = new ArrayList<>();
+        int kind = random.nextInt(4);
+        if (kind == 1) {
+            values.add(PolicyManagementConstants.ANY);
+        } else if (kind > 1) {
+            for (int i = random.nextInt(3); i >= 0; i--) {
+                values.add(prefix + random.nextInt(bound));
+            }
+        }
+        return values;
+    }
+
+}
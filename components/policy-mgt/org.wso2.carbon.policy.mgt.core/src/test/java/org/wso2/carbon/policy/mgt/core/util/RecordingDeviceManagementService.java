@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.util;
+
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.common.InvalidDeviceException;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderServiceImpl;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the devices which operations are added to and statuses are set for, instead of adding and setting them,
+ * so that the policy components can be tested against device types without a registered plugin. Adding operations
+ * to a given device fails.
+ */
+public class RecordingDeviceManagementService extends DeviceManagementProviderServiceImpl {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final ConcurrentMap<String, AtomicInteger> operationDevices = new ConcurrentHashMap<>();
+    private final AtomicInteger statusChanges = new AtomicInteger();
+    private final AtomicInteger deviceLookups = new AtomicInteger();
+    private volatile String failingDevice;
+
+    public void reset() {
+        calls.set(0);
+        operationDevices.clear();
+        statusChanges.set(0);
+        deviceLookups.set(0);
+    }
+
+    /**
+     * @return the number of times operations were added.
+     */
+    public int getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return the number of devices operations having the code were added to.
+     */
+    public int getOperationDevices(String operationCode) {
+        AtomicInteger count = operationDevices.get(operationCode);
+        return (count != null) ? count.get() : 0;
+    }
+
+    public int getStatusChanges() {
+        return statusChanges.get();
+    }
+
+    /**
+     * @return the number of times lists of devices were looked up.
+     */
+    public int getDeviceLookups() {
+        return deviceLookups.get();
+    }
+
+    public void setFailingDevice(String failingDevice) {
+        this.failingDevice = failingDevice;
+    }
+
+    @Override
+    public Activity addOperation(String type, Operation operation, List<DeviceIdentifier> deviceIds)
+            throws OperationManagementException, InvalidDeviceException {
+        for (DeviceIdentifier identifier : deviceIds) {
+            if (identifier.getId().equals(failingDevice)) {
+                throw new OperationManagementException("Failing device " + identifier.getId());
+            }
+        }
+        calls.incrementAndGet();
+        AtomicInteger count = operationDevices.get(operation.getCode());
+        if (count == null) {
+            operationDevices.putIfAbsent(operation.getCode(), new AtomicInteger());
+            count = operationDevices.get(operation.getCode());
+        }
+        count.addAndGet(deviceIds.size());
+        return null;
+    }
+
+    @Override
+    public List<Device> getDevices(List<DeviceIdentifier> deviceIds) throws DeviceManagementException {
+        deviceLookups.incrementAndGet();
+        return super.getDevices(deviceIds);
+    }
+
+    @Override
+    public boolean setStatus(DeviceIdentifier deviceId, String currentOwner, EnrolmentInfo.Status status)
+            throws DeviceManagementException {
+        statusChanges.incrementAndGet();
+        return true;
+    }
+
+}
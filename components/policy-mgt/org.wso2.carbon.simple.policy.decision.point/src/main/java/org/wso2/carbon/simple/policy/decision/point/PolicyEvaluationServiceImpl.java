@@ -21,12 +21,12 @@ package org.wso2.carbon.simple.policy.decision.point;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.policy.mgt.common.Policy;
 import org.wso2.carbon.policy.mgt.common.PolicyEvaluationException;
-import org.wso2.carbon.policy.mgt.common.PolicyEvaluationPoint;
 import org.wso2.carbon.policy.mgt.common.ProfileFeature;
+import org.wso2.carbon.policy.mgt.core.impl.SimplePolicyEvaluationPoint;
 
 import java.util.List;
 
-public class PolicyEvaluationServiceImpl implements PolicyEvaluationPoint {
+public class PolicyEvaluationServiceImpl implements SimplePolicyEvaluationPoint {
 
     private SimpleEvaluationImpl evaluation;
 
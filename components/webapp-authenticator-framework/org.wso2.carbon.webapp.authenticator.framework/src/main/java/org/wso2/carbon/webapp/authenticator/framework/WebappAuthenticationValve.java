@@ -28,33 +28,36 @@ import org.wso2.carbon.tomcat.ext.valves.CarbonTomcatValve;
 import org.wso2.carbon.tomcat.ext.valves.CompositeValve;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.WebappAuthenticator;
 import org.wso2.carbon.webapp.authenticator.framework.authorizer.WebappTenantAuthorizer;
+import org.wso2.carbon.webapp.authenticator.framework.route.ContextRoutes;
+import org.wso2.carbon.webapp.authenticator.framework.route.Route;
 
 import javax.servlet.http.HttpServletResponse;
-import java.util.HashMap;
-import java.util.StringTokenizer;
 
 public class WebappAuthenticationValve extends CarbonTomcatValve {
 
     private static final Log log = LogFactory.getLog(WebappAuthenticationValve.class);
-    private static HashMap<String, String> nonSecuredEndpoints = new HashMap<>();
 
     @Override
     public void invoke(Request request, Response response, CompositeValve compositeValve) {
 
-        if (this.isContextSkipped(request) || (!this.isAdminService(request) && this.skipAuthentication(request))) {
+        ContextRoutes contextRoutes = ContextRoutes.getContextRoutes(request.getContext());
+        Route route = contextRoutes.getRoute(request);
+        if (contextRoutes.isContextSkipped(request) || (!contextRoutes.isAdminService() &&
+                (!contextRoutes.isAuthenticationEnabled() || route.isNonSecured()))) {
             this.getNext().invoke(request, response, compositeValve);
             return;
         }
 
-        WebappAuthenticator authenticator = WebappAuthenticatorFactory.getAuthenticator(request);
+        WebappAuthenticator authenticator = route.getAuthenticator(request);
         if (authenticator == null) {
             String msg = "Failed to load an appropriate authenticator to authenticate the request";
             AuthenticationFrameworkUtil.handleResponse(request, response, HttpServletResponse.SC_UNAUTHORIZED, msg);
             return;
         }
         AuthenticationInfo authenticationInfo = authenticator.authenticate(request, response);
-        if (isManagedAPI(request) && (authenticationInfo.getStatus() == WebappAuthenticator.Status.CONTINUE ||
-                authenticationInfo.getStatus() == WebappAuthenticator.Status.SUCCESS)) {
+        if (contextRoutes.isManagedApi() &&
+                (authenticationInfo.getStatus() == WebappAuthenticator.Status.CONTINUE ||
+                        authenticationInfo.getStatus() == WebappAuthenticator.Status.SUCCESS)) {
             WebappAuthenticator.Status status = WebappTenantAuthorizer.authorize(request, authenticationInfo);
             authenticationInfo.setStatus(status);
         }
@@ -74,67 +77,6 @@ public class WebappAuthenticationValve extends CarbonTomcatValve {
         }
     }
 
-    private boolean isAdminService(Request request) {
-        String param = request.getContext().findParameter("isAdminService");
-        return (param != null && Boolean.parseBoolean(param));
-    }
-
-    private boolean skipAuthentication(Request request) {
-        String param = request.getContext().findParameter("doAuthentication");
-        return (param == null || !Boolean.parseBoolean(param) || isNonSecuredEndPoint(request));
-    }
-
-    private boolean isManagedAPI(Request request) {
-        String param = request.getContext().findParameter("managed-api-enabled");
-        return (param != null && Boolean.parseBoolean(param));
-    }
-
-    private boolean isContextSkipped(Request request) {
-        String ctx = request.getContext().getPath();
-        if (ctx == null || "".equals(ctx)) {
-            ctx = request.getContextPath();
-            if (ctx == null || "".equals(ctx)) {
-                String requestUri = request.getRequestURI();
-                if ("/".equals(requestUri)) {
-                    return true;
-                }
-                StringTokenizer tokenizer = new StringTokenizer(request.getRequestURI(), "/");
-                if (!tokenizer.hasMoreTokens()) {
-                    return false;
-                }
-                ctx = tokenizer.nextToken();
-            }
-        }
-        return ("carbon".equalsIgnoreCase(ctx) || "services".equalsIgnoreCase(ctx));
-    }
-
-    private boolean isNonSecuredEndPoint(Request request) {
-        String uri = request.getRequestURI();
-        if(!uri.endsWith("/")) {
-            uri = uri + "/";
-        }
-        String contextPath = request.getContextPath();
-        //Check the contextPath in nonSecuredEndpoints. If so it means cache is not populated for this web-app.
-        if (!nonSecuredEndpoints.containsKey(contextPath)) {
-            String param = request.getContext().findParameter("nonSecuredEndPoints");
-            String skippedEndPoint;
-            if (param != null && !param.isEmpty()) {
-                //Add the nonSecured end-points to cache
-                StringTokenizer tokenizer = new StringTokenizer(param, ",");
-                nonSecuredEndpoints.put(contextPath, "true");
-                while (tokenizer.hasMoreTokens()) {
-                    skippedEndPoint = contextPath + tokenizer.nextToken();
-                    skippedEndPoint = skippedEndPoint.replace("\n", "").replace("\r", "").trim();
-                    if(!skippedEndPoint.endsWith("/")) {
-                        skippedEndPoint = skippedEndPoint + "/";
-                    }
-                    nonSecuredEndpoints.put(skippedEndPoint, "true");
-                }
-            }
-        }
-        return nonSecuredEndpoints.containsKey(uri);
-    }
-
     private void processRequest(Request request, Response response, CompositeValve compositeValve,
                                 AuthenticationInfo authenticationInfo) {
         switch (authenticationInfo.getStatus()) {
@@ -38,21 +38,21 @@ import org.wso2.carbon.utils.CarbonUtils;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 import org.wso2.carbon.webapp.authenticator.framework.AuthenticationInfo;
 import org.wso2.carbon.webapp.authenticator.framework.AuthenticatorFrameworkDataHolder;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.jwt.JWTPublicKeyRegistry;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.jwt.VerifiedJWTCache;
 
 import java.io.FileInputStream;
 import java.security.KeyStore;
 import java.security.PublicKey;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Properties;
 import java.util.StringTokenizer;
 
 /**
  * This authenticator authenticates HTTP requests using JWT header.
  */
-public class JWTAuthenticator implements WebappAuthenticator {
+public class JWTAuthenticator implements WebappAuthenticator, JWTPublicKeyRegistry.PublicKeyLoader {
 
     private static final Log log = LogFactory.getLog(JWTAuthenticator.class);
     private static final String SIGNED_JWT_AUTH_USERNAME = "http://wso2.org/claims/enduser";
@@ -62,8 +62,15 @@ public class JWTAuthenticator implements WebappAuthenticator {
     private static final String DEFAULT_TRUST_STORE_LOCATION = "Security.TrustStore.Location";
     private static final String DEFAULT_TRUST_STORE_PASSWORD = "Security.TrustStore.Password";
 
-    private static final Map<String, PublicKey> publicKeyHolder = new HashMap<>();
+    private static final String VERIFIED_TOKEN_CACHE_MAX_TTL = "VerifiedTokenCacheMaxTTL";
+    private static final String VERIFIED_TOKEN_CACHE_CAPACITY = "VerifiedTokenCacheCapacity";
+    private static final long DEFAULT_VERIFIED_TOKEN_CACHE_MAX_TTL = 300000L;
+    private static final int DEFAULT_VERIFIED_TOKEN_CACHE_CAPACITY = 10000;
+
+    private static final JWTPublicKeyRegistry publicKeyRegistry = new JWTPublicKeyRegistry();
     private Properties properties;
+    private VerifiedJWTCache verifiedTokenCache =
+            new VerifiedJWTCache(DEFAULT_VERIFIED_TOKEN_CACHE_MAX_TTL, DEFAULT_VERIFIED_TOKEN_CACHE_CAPACITY);
 
     private static void loadTenantRegistry(int tenantId) throws RegistryException {
         TenantRegistryLoader tenantRegistryLoader = AuthenticatorFrameworkDataHolder.getInstance().
@@ -74,7 +81,11 @@ public class JWTAuthenticator implements WebappAuthenticator {
 
     @Override
     public void init() {
-
+        String maxTimeToLive = this.getProperty(VERIFIED_TOKEN_CACHE_MAX_TTL);
+        String capacity = this.getProperty(VERIFIED_TOKEN_CACHE_CAPACITY);
+        verifiedTokenCache = new VerifiedJWTCache(
+                (maxTimeToLive != null) ? Long.parseLong(maxTimeToLive) : DEFAULT_VERIFIED_TOKEN_CACHE_MAX_TTL,
+                (capacity != null) ? Integer.parseInt(capacity) : DEFAULT_VERIFIED_TOKEN_CACHE_CAPACITY);
     }
 
     @Override
@@ -96,9 +107,18 @@ public class JWTAuthenticator implements WebappAuthenticator {
             authenticationInfo.setStatus(Status.CONTINUE);
         }
 
-        try {
-            String authorizationHeader = request.getHeader(JWT_ASSERTION_HEADER);
+        String authorizationHeader = request.getHeader(JWT_ASSERTION_HEADER);
+        // A token verified before is neither verified again, nor is its user looked up again.
+        VerifiedJWTCache.VerifiedJWT verifiedToken = verifiedTokenCache.get(authorizationHeader);
+        if (verifiedToken != null) {
+            authenticationInfo.setTenantId(verifiedToken.getTenantId());
+            authenticationInfo.setUsername(verifiedToken.getUsername());
+            authenticationInfo.setTenantDomain(verifiedToken.getTenantDomain());
+            authenticationInfo.setStatus(Status.CONTINUE);
+            return authenticationInfo;
+        }
 
+        try {
             SignedJWT jwsObject = SignedJWT.parse(authorizationHeader);
             String username = jwsObject.getJWTClaimsSet().getStringClaim(SIGNED_JWT_AUTH_USERNAME);
             String tenantDomain = MultitenantUtils.getTenantDomain(username);
@@ -106,44 +126,10 @@ public class JWTAuthenticator implements WebappAuthenticator {
             PrivilegedCarbonContext.startTenantFlow();
             PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain);
             PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId);
-            PublicKey publicKey =  publicKeyHolder.get(tenantDomain);
+            PublicKey publicKey = publicKeyRegistry.getPublicKey(tenantDomain, tenantId, this);
             if (publicKey == null) {
-                loadTenantRegistry(tenantId);
-                KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
-                if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
-                    String defaultPublicKey = properties.getProperty("DefaultPublicKey");
-                    if (defaultPublicKey != null && !defaultPublicKey.isEmpty()) {
-                        boolean isDefaultPublicKey = Boolean.parseBoolean(defaultPublicKey);
-                        if (isDefaultPublicKey) {
-                            publicKey = keyStoreManager.getDefaultPublicKey();
-                        } else {
-                            String alias = properties.getProperty("KeyAlias");
-                            if (alias != null && !alias.isEmpty()) {
-                                ServerConfiguration serverConfig = CarbonUtils.getServerConfiguration();
-                                KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
-                                String trustStorePath = serverConfig.getFirstProperty(DEFAULT_TRUST_STORE_LOCATION);
-                                String trustStorePassword = serverConfig.getFirstProperty(
-                                        DEFAULT_TRUST_STORE_PASSWORD);
-                                keyStore.load(new FileInputStream(trustStorePath), trustStorePassword.toCharArray());
-                                publicKey = keyStore.getCertificate(alias).getPublicKey();
-                            } else {
-                                authenticationInfo.setStatus(Status.FAILURE);
-                                return  authenticationInfo;
-                            }
-                        }
-
-                    } else {
-                        publicKey = keyStoreManager.getDefaultPublicKey();
-                    }
-
-                } else {
-                    String ksName = tenantDomain.trim().replace('.', '-');
-                    String jksName = ksName + ".jks";
-                    publicKey = keyStoreManager.getKeyStore(jksName).getCertificate(tenantDomain).getPublicKey();
-                }
-                if (publicKey != null) {
-                    publicKeyHolder.put(tenantDomain, publicKey);
-                }
+                authenticationInfo.setStatus(Status.FAILURE);
+                return authenticationInfo;
             }
 
             //Get the filesystem keystore default primary certificate
@@ -161,6 +147,8 @@ public class JWTAuthenticator implements WebappAuthenticator {
                         authenticationInfo.setUsername(username);
                         authenticationInfo.setTenantDomain(tenantDomain);
                         authenticationInfo.setStatus(Status.CONTINUE);
+                        verifiedTokenCache.put(authorizationHeader, username, tenantDomain, tenantId,
+                                               jwsObject.getJWTClaimsSet().getExpirationTime());
                     }
                 }
             } else {
@@ -180,6 +168,39 @@ public class JWTAuthenticator implements WebappAuthenticator {
         return authenticationInfo;
     }
 
+    /**
+     * Loads the public key JWTs of the tenant are signed with, from the key store of the tenant, or as configured for
+     * the super tenant.
+     */
+    @Override
+    public PublicKey loadPublicKey(String tenantDomain, int tenantId) throws Exception {
+        loadTenantRegistry(tenantId);
+        KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
+            String defaultPublicKey = properties.getProperty("DefaultPublicKey");
+            if (defaultPublicKey != null && !defaultPublicKey.isEmpty()) {
+                boolean isDefaultPublicKey = Boolean.parseBoolean(defaultPublicKey);
+                if (isDefaultPublicKey) {
+                    return keyStoreManager.getDefaultPublicKey();
+                }
+                String alias = properties.getProperty("KeyAlias");
+                if (alias == null || alias.isEmpty()) {
+                    return null;
+                }
+                ServerConfiguration serverConfig = CarbonUtils.getServerConfiguration();
+                KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+                String trustStorePath = serverConfig.getFirstProperty(DEFAULT_TRUST_STORE_LOCATION);
+                String trustStorePassword = serverConfig.getFirstProperty(DEFAULT_TRUST_STORE_PASSWORD);
+                keyStore.load(new FileInputStream(trustStorePath), trustStorePassword.toCharArray());
+                return keyStore.getCertificate(alias).getPublicKey();
+            }
+            return keyStoreManager.getDefaultPublicKey();
+        }
+        String ksName = tenantDomain.trim().replace('.', '-');
+        String jksName = ksName + ".jks";
+        return keyStoreManager.getKeyStore(jksName).getCertificate(tenantDomain).getPublicKey();
+    }
+
     @Override
     public String getName() {
         return JWTAuthenticator.JWT_AUTHENTICATOR;
@@ -29,6 +29,7 @@ import org.wso2.carbon.webapp.authenticator.framework.AuthenticationFrameworkUti
 import org.wso2.carbon.webapp.authenticator.framework.AuthenticationInfo;
 import org.wso2.carbon.webapp.authenticator.framework.Utils.Utils;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuth2TokenValidator;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthConstants;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthTokenValidationException;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthValidationResponse;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthValidatorFactory;
@@ -76,6 +77,13 @@ public class OAuthAuthenticator implements WebappAuthenticator {
         Properties validatorProperties = new Properties();
         validatorProperties.setProperty("MaxTotalConnections", this.properties.getProperty("MaxTotalConnections"));
         validatorProperties.setProperty("MaxConnectionsPerHost", this.properties.getProperty("MaxConnectionsPerHost"));
+        for (String cacheProperty : new String[]{OAuthConstants.TOKEN_CACHE_MAX_TTL,
+                OAuthConstants.INVALID_TOKEN_CACHE_TTL, OAuthConstants.TOKEN_CACHE_CAPACITY}) {
+            String value = this.properties.getProperty(cacheProperty);
+            if (value != null) {
+                validatorProperties.setProperty(cacheProperty, value);
+            }
+        }
         this.tokenValidator =
                 OAuthValidatorFactory.getValidator(url, adminUsername, adminPassword, isRemote, validatorProperties);
     }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.webapp.authenticator.framework.authenticator.jwt;
+
+import java.security.PublicKey;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the public keys JWTs of each tenant are verified with. The key of a tenant is loaded when it is first needed,
+ * once, however many requests of the tenant arrive at the same time.
+ */
+public class JWTPublicKeyRegistry {
+
+    private final ConcurrentMap<String, PublicKey> publicKeys = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> loadLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the public key of a tenant.
+     */
+    public interface PublicKeyLoader {
+
+        /**
+         * @return the public key of the tenant, or null if it cannot be found.
+         */
+        PublicKey loadPublicKey(String tenantDomain, int tenantId) throws Exception;
+
+    }
+
+    /**
+     * @return the public key of the tenant, loaded with the loader if it has not been loaded yet, or null if it cannot
+     * be found.
+     */
+    public PublicKey getPublicKey(String tenantDomain, int tenantId, PublicKeyLoader loader) throws Exception {
+        PublicKey publicKey = publicKeys.get(tenantDomain);
+        if (publicKey != null) {
+            return publicKey;
+        }
+        synchronized (this.getLoadLock(tenantDomain)) {
+            publicKey = publicKeys.get(tenantDomain);
+            if (publicKey == null) {
+                publicKey = loader.loadPublicKey(tenantDomain, tenantId);
+                if (publicKey != null) {
+                    publicKeys.put(tenantDomain, publicKey);
+                }
+            }
+        }
+        return publicKey;
+    }
+
+    /**
+     * Drops the public key of the tenant, so that it is loaded again when it is next needed.
+     */
+    public void removePublicKey(String tenantDomain) {
+        publicKeys.remove(tenantDomain);
+    }
+
+    private Object getLoadLock(String tenantDomain) {
+        Object lock = loadLocks.get(tenantDomain);
+        if (lock == null) {
+            lock = new Object();
+            Object existing = loadLocks.putIfAbsent(tenantDomain, lock);
+            if (existing != null) {
+                lock = existing;
+            }
+        }
+        return lock;
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.webapp.authenticator.framework.authenticator.jwt;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the users JWTs were verified for, so that a token sent again is neither verified nor its user looked up
+ * again. Tokens are keyed by their SHA-256 digests rather than kept themselves. A token is cached until it expires,
+ * but no longer than the maximum time to live, which bounds how long a removed user stays authenticated. The cache is
+ * cleared when a token not cached yet is added after it reaches its capacity.
+ */
+public class VerifiedJWTCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final long maxTimeToLive;
+    private final int capacity;
+    private final ConcurrentMap<String, VerifiedJWT> verifiedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxTimeToLive time in milliseconds a token is cached for at most, 0 to disable the cache.
+     * @param capacity      number of tokens cached, after which the cache is cleared.
+     */
+    public VerifiedJWTCache(long maxTimeToLive, int capacity) {
+        this.maxTimeToLive = maxTimeToLive;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the user the token was verified for, or null if the token has to be verified.
+     */
+    public VerifiedJWT get(String token) {
+        if (maxTimeToLive <= 0) {
+            return null;
+        }
+        String digest = getDigest(token);
+        VerifiedJWT verifiedToken = verifiedTokens.get(digest);
+        if (verifiedToken == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= verifiedToken.expiryTime) {
+            verifiedTokens.remove(digest, verifiedToken);
+            return null;
+        }
+        return verifiedToken;
+    }
+
+    /**
+     * Caches the user a token was verified for.
+     *
+     * @param expirationTime the expiration time claim of the token, null if it has none.
+     */
+    public void put(String token, String username, String tenantDomain, int tenantId, Date expirationTime) {
+        if (maxTimeToLive <= 0) {
+            return;
+        }
+        long expiryTime = System.currentTimeMillis() + maxTimeToLive;
+        if (expirationTime != null) {
+            expiryTime = Math.min(expiryTime, expirationTime.getTime());
+        }
+        if (expiryTime <= System.currentTimeMillis()) {
+            return;
+        }
+        String digest = getDigest(token);
+        if (verifiedTokens.size() >= capacity && !verifiedTokens.containsKey(digest)) {
+            verifiedTokens.clear();
+        }
+        verifiedTokens.put(digest, new VerifiedJWT(username, tenantDomain, tenantId, expiryTime));
+    }
+
+    public int size() {
+        return verifiedTokens.size();
+    }
+
+    private static String getDigest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            return Hex.encodeHexString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported", e);
+        }
+    }
+
+    /**
+     * The user a JWT was verified for.
+     */
+    public static class VerifiedJWT {
+
+        private final String username;
+        private final String tenantDomain;
+        private final int tenantId;
+        private final long expiryTime;
+
+        VerifiedJWT(String username, String tenantDomain, int tenantId, long expiryTime) {
+            this.username = username;
+            this.tenantDomain = tenantDomain;
+            this.tenantId = tenantId;
+            this.expiryTime = expiryTime;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getTenantDomain() {
+            return tenantDomain;
+        }
+
+        public int getTenantId() {
+            return tenantId;
+        }
+
+    }
+
+}
@@ -29,5 +29,8 @@ public class OAuthConstants {
     public static final String BEARER_TOKEN_IDENTIFIER = "token";
     public static final String AUTHENTICATOR_NAME = "OAuthAuthenticator";
     public static final String RESOURCE_KEY = "resource";
+    public static final String TOKEN_CACHE_MAX_TTL = "TokenCacheMaxTTL";
+    public static final String INVALID_TOKEN_CACHE_TTL = "InvalidTokenCacheTTL";
+    public static final String TOKEN_CACHE_CAPACITY = "TokenCacheCapacity";
 
 }
@@ -28,28 +28,112 @@ import org.wso2.carbon.identity.oauth2.stub.dto.OAuth2TokenValidationResponseDTO
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 import org.wso2.carbon.webapp.authenticator.framework.Utils.OAuthTokenValidationStubFactory;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuth2TokenValidator;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthConstants;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthTokenValidationException;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthValidationResponse;
 
 import java.rmi.RemoteException;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
- * Handles the OAuth2 token validation from remote IS servers using remote OAuthValidation service-stub.
+ * Handles the OAuth2 token validation from remote IS servers using remote OAuthValidation service-stub. The results
+ * of validating tokens are cached, valid tokens until they expire and invalid tokens for a shorter time, and
+ * concurrent validations of the same token share a single call to the remote server.
  */
 public class RemoteOAuthValidator implements OAuth2TokenValidator {
 
+    private static final long DEFAULT_TOKEN_CACHE_MAX_TTL = 300000L;
+    private static final long DEFAULT_INVALID_TOKEN_CACHE_TTL = 30000L;
+    private static final int DEFAULT_TOKEN_CACHE_CAPACITY = 10000;
+
     private GenericObjectPool stubs;
+    private final long tokenCacheMaxTTL;
+    private final long invalidTokenCacheTTL;
+    private final TokenValidationCache tokenCache;
+    private final ConcurrentMap<String, FutureTask<OAuthValidationResponse>> pendingValidations =
+            new ConcurrentHashMap<>();
     private static final Log log = LogFactory.getLog(RemoteOAuthValidator.class);
 
     public RemoteOAuthValidator(String hostURL, String adminUserName, String adminPassword, Properties properties) {
-        this.stubs =
-                new GenericObjectPool(new OAuthTokenValidationStubFactory(
-                        hostURL, adminUserName, adminPassword, properties));
+        this(new GenericObjectPool(new OAuthTokenValidationStubFactory(
+                hostURL, adminUserName, adminPassword, properties)), properties);
+    }
+
+    /**
+     * @param stubs      pool of the stubs of the OAuth2 token validation service.
+     * @param properties the TokenCacheMaxTTL, InvalidTokenCacheTTL and TokenCacheCapacity of the token cache, a
+     *                   TokenCacheMaxTTL of 0 disabling it.
+     */
+    public RemoteOAuthValidator(GenericObjectPool stubs, Properties properties) {
+        this.stubs = stubs;
+        this.tokenCacheMaxTTL =
+                getLongProperty(properties, OAuthConstants.TOKEN_CACHE_MAX_TTL, DEFAULT_TOKEN_CACHE_MAX_TTL);
+        this.invalidTokenCacheTTL =
+                getLongProperty(properties, OAuthConstants.INVALID_TOKEN_CACHE_TTL, DEFAULT_INVALID_TOKEN_CACHE_TTL);
+        this.tokenCache = new TokenValidationCache((int) getLongProperty(
+                properties, OAuthConstants.TOKEN_CACHE_CAPACITY, DEFAULT_TOKEN_CACHE_CAPACITY));
+    }
+
+    public OAuthValidationResponse validateToken(final String accessToken,
+                                                 final String resource) throws OAuthTokenValidationException {
+        if (tokenCacheMaxTTL <= 0) {
+            return this.validateRemotely(accessToken, resource, null);
+        }
+        final String key = TokenValidationCache.getKey(accessToken, resource);
+        OAuthValidationResponse response = tokenCache.get(key);
+        if (response != null) {
+            return response;
+        }
+
+        // Validations of the same token which run concurrently wait for the first one, instead of calling the
+        // remote server again.
+        FutureTask<OAuthValidationResponse> validation =
+                new FutureTask<>(new Callable<OAuthValidationResponse>() {
+                    @Override
+                    public OAuthValidationResponse call() throws Exception {
+                        // The result is cached before the validation stops being pending, so a validation which
+                        // started after another finished finds its result here.
+                        OAuthValidationResponse cachedResponse = tokenCache.get(key);
+                        if (cachedResponse != null) {
+                            return cachedResponse;
+                        }
+                        return validateRemotely(accessToken, resource, key);
+                    }
+                });
+        FutureTask<OAuthValidationResponse> pendingValidation = pendingValidations.putIfAbsent(key, validation);
+        if (pendingValidation == null) {
+            try {
+                validation.run();
+            } finally {
+                pendingValidations.remove(key, validation);
+            }
+            pendingValidation = validation;
+        }
+        try {
+            return pendingValidation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OAuthTokenValidationException("Interrupted while waiting for the OAuth2 token to be " +
+                    "validated.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OAuthTokenValidationException) {
+                throw (OAuthTokenValidationException) e.getCause();
+            }
+            throw new OAuthTokenValidationException("Error occurred while validating the OAuth2 token.",
+                                                    e.getCause());
+        }
     }
 
-    public OAuthValidationResponse validateToken(String accessToken,
-                                                 String resource) throws OAuthTokenValidationException {
+    /**
+     * Validates the token with the remote IS server, and caches the result with the key unless the key is null.
+     */
+    private OAuthValidationResponse validateRemotely(String accessToken, String resource, String key)
+            throws OAuthTokenValidationException {
         OAuth2TokenValidationServiceStub stub = null;
         OAuth2TokenValidationResponseDTO validationResponse;
         try {
@@ -82,15 +166,31 @@ public class RemoteOAuthValidator implements OAuth2TokenValidator {
         boolean isValid = validationResponse.getValid();
         String tenantDomain;
         String username;
+        OAuthValidationResponse oAuthValidationResponse;
+        long timeToLive;
         if (isValid) {
             username = MultitenantUtils.getTenantAwareUsername(validationResponse.getAuthorizedUser());
             tenantDomain = MultitenantUtils.getTenantDomain(validationResponse.getAuthorizedUser());
+            oAuthValidationResponse = new OAuthValidationResponse(username, tenantDomain, isValid);
+            // The expiry time of the response is the validity of the token remaining, in seconds.
+            timeToLive = Math.min(tokenCacheMaxTTL, validationResponse.getExpiryTime() * 1000);
         } else {
-            OAuthValidationResponse oAuthValidationResponse = new OAuthValidationResponse();
+            oAuthValidationResponse = new OAuthValidationResponse();
             oAuthValidationResponse.setErrorMsg(validationResponse.getErrorMsg());
-            return oAuthValidationResponse;
+            timeToLive = invalidTokenCacheTTL;
+        }
+        if (key != null) {
+            tokenCache.put(key, oAuthValidationResponse, timeToLive);
+        }
+        return oAuthValidationResponse;
+    }
+
+    private static long getLongProperty(Properties properties, String name, long defaultValue) {
+        String value = (properties != null) ? properties.getProperty(name) : null;
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
         }
-        return new OAuthValidationResponse(username, tenantDomain, isValid);
+        return Long.parseLong(value);
     }
 
     private OAuth2TokenValidationRequestDTO createValidationRequest(String accessToken, String resource) {
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.impl;
+
+import org.apache.commons.codec.binary.Hex;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthValidationResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the results of validating OAuth2 tokens for resources, both valid and invalid ones, so that a token sent
+ * again is not validated again until its result expires. Results are keyed by the SHA-256 digests of the tokens and
+ * resources rather than the tokens themselves. The cache is cleared when it reaches its capacity.
+ */
+public class TokenValidationCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final int capacity;
+    private final ConcurrentMap<String, Entry> results = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacity number of results cached, after which the cache is cleared.
+     */
+    public TokenValidationCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return a copy of the cached result with the key, or null if the token has to be validated.
+     */
+    public OAuthValidationResponse get(String key) {
+        Entry entry = results.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiryTime) {
+            results.remove(key, entry);
+            return null;
+        }
+        OAuthValidationResponse response =
+                new OAuthValidationResponse(entry.userName, entry.tenantDomain, entry.isValid);
+        response.setErrorMsg(entry.errorMsg);
+        return response;
+    }
+
+    /**
+     * Caches the result of validating a token for a resource.
+     *
+     * @param timeToLive time in milliseconds the result is used for.
+     */
+    public void put(String key, OAuthValidationResponse response, long timeToLive) {
+        if (timeToLive <= 0) {
+            return;
+        }
+        if (results.size() >= capacity) {
+            results.clear();
+        }
+        results.put(key, new Entry(response, System.currentTimeMillis() + timeToLive));
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * @return the key the result of validating the token for the resource is cached with.
+     */
+    public static String getKey(String accessToken, String resource) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            messageDigest.update(accessToken.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) '\n');
+            if (resource != null) {
+                messageDigest.update(resource.getBytes(StandardCharsets.UTF_8));
+            }
+            return Hex.encodeHexString(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported", e);
+        }
+    }
+
+    private static class Entry {
+
+        private final String userName;
+        private final String tenantDomain;
+        private final boolean isValid;
+        private final String errorMsg;
+        private final long expiryTime;
+
+        Entry(OAuthValidationResponse response, long expiryTime) {
+            this.userName = response.getUserName();
+            this.tenantDomain = response.getTenantDomain();
+            this.isValid = response.isValid();
+            this.errorMsg = response.getErrorMsg();
+            this.expiryTime = expiryTime;
+        }
+
+    }
+
+}
@@ -22,38 +22,35 @@ import org.apache.catalina.connector.Request;
 import org.apache.catalina.connector.Response;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.permission.mgt.Permission;
 import org.wso2.carbon.tomcat.ext.valves.CarbonTomcatValve;
 import org.wso2.carbon.tomcat.ext.valves.CompositeValve;
 import org.wso2.carbon.webapp.authenticator.framework.AuthenticationFrameworkUtil;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.WebappAuthenticator;
+import org.wso2.carbon.webapp.authenticator.framework.route.ContextRoutes;
 
 import javax.servlet.http.HttpServletResponse;
 
 public class PermissionAuthorizationValve extends CarbonTomcatValve {
 
     private static final Log log = LogFactory.getLog(PermissionAuthorizationValve.class);
-    private static final String AUTHORIZATION_ENABLED = "authorization-enabled";
-
+    private static final PermissionAuthorizer permissionAuthorizer = new PermissionAuthorizer();
 
     @Override
     public void invoke(Request request, Response response, CompositeValve compositeValve) {
 
-        String permissionStatus = request.getContext().findParameter(AUTHORIZATION_ENABLED);
-        if (permissionStatus == null || permissionStatus.isEmpty()) {
-            this.processResponse(request, response, compositeValve, WebappAuthenticator.Status.CONTINUE);
-            return;
-        }
         // check whether the permission checking function is enabled in web.xml
-        boolean isEnabled = Boolean.valueOf(permissionStatus);
-        if (!isEnabled) {
+        ContextRoutes contextRoutes = ContextRoutes.getContextRoutes(request.getContext());
+        if (!contextRoutes.isAuthorizationEnabled()) {
             this.processResponse(request, response, compositeValve, WebappAuthenticator.Status.CONTINUE);
             return;
         }
 
         if (log.isDebugEnabled()) {
-            log.debug("Checking permission of request: " + request.getRequestURI());
+            Permission permission = contextRoutes.getRoute(request).getPermission(request.getMethod());
+            log.debug("Checking permission of request: " + request.getRequestURI() + ", required permission: " +
+                    ((permission != null) ? permission.getPath() : null));
         }
-        PermissionAuthorizer permissionAuthorizer = new PermissionAuthorizer();
         WebappAuthenticator.Status status = permissionAuthorizer.authorize(request, response);
         this.processResponse(request, response, compositeValve, status);
     }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.webapp.authenticator.framework.route;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleEvent;
+import org.apache.catalina.LifecycleListener;
+import org.apache.catalina.connector.Request;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.permission.mgt.Permission;
+import org.wso2.carbon.device.mgt.core.permission.mgt.PermissionManagerServiceImpl;
+import org.wso2.carbon.webapp.authenticator.framework.AuthenticatorFrameworkDataHolder;
+import org.wso2.carbon.webapp.authenticator.framework.WebappAuthenticatorRepository;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.WebappAuthenticator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The settings and the route table of a web app, read from its context parameters, the permissions of its APIs and
+ * the authenticators once, when the first request to the web app arrives, instead of on every request. They are
+ * dropped when the web app is stopped, so that they are read again once it is reloaded or redeployed.
+ */
+public class ContextRoutes {
+
+    private static final Log log = LogFactory.getLog(ContextRoutes.class);
+
+    private static final String PARAM_ADMIN_SERVICE = "isAdminService";
+    private static final String PARAM_DO_AUTHENTICATION = "doAuthentication";
+    private static final String PARAM_MANAGED_API_ENABLED = "managed-api-enabled";
+    private static final String PARAM_AUTHORIZATION_ENABLED = "authorization-enabled";
+    private static final String PARAM_NON_SECURED_END_POINTS = "nonSecuredEndPoints";
+
+    private static final ConcurrentMap<String, ContextRoutes> contextRoutes = new ConcurrentHashMap<>();
+
+    private final String contextPath;
+    private final boolean contextSkipped;
+    private final boolean adminService;
+    private final boolean authenticationEnabled;
+    private final boolean managedApi;
+    private final boolean authorizationEnabled;
+    private final RouteTable routeTable;
+
+    private ContextRoutes(Context context) {
+        this.contextPath = (context.getPath() != null) ? context.getPath() : "";
+        this.contextSkipped = isSkippedContext(contextPath);
+        this.adminService = Boolean.parseBoolean(context.findParameter(PARAM_ADMIN_SERVICE));
+        this.authenticationEnabled = Boolean.parseBoolean(context.findParameter(PARAM_DO_AUTHENTICATION));
+        this.managedApi = Boolean.parseBoolean(context.findParameter(PARAM_MANAGED_API_ENABLED));
+        this.authorizationEnabled = Boolean.parseBoolean(context.findParameter(PARAM_AUTHORIZATION_ENABLED));
+        this.routeTable = new RouteTable(contextPath, context.findParameter(PARAM_NON_SECURED_END_POINTS),
+                                         getPermissions(contextPath), getAuthenticators());
+    }
+
+    /**
+     * @return the routes of the web app, compiled if the web app has not been requested since it was deployed.
+     */
+    public static ContextRoutes getContextRoutes(Context context) {
+        String contextPath = (context.getPath() != null) ? context.getPath() : "";
+        ContextRoutes routes = contextRoutes.get(contextPath);
+        if (routes == null) {
+            routes = new ContextRoutes(context);
+            ContextRoutes existingRoutes = contextRoutes.putIfAbsent(contextPath, routes);
+            if (existingRoutes != null) {
+                return existingRoutes;
+            }
+            // A reload keeps the same context, hence the routes are dropped whenever the context stops.
+            context.addLifecycleListener(new RoutesRemover(context, routes));
+            if (log.isDebugEnabled()) {
+                log.debug("Compiled the routes of web app '" + contextPath + "'");
+            }
+        }
+        return routes;
+    }
+
+    public boolean isContextSkipped(Request request) {
+        if (!contextPath.isEmpty()) {
+            return contextSkipped;
+        }
+        // The root web app serves the requests to the contexts which are not deployed as web apps.
+        String ctx = request.getContextPath();
+        if (ctx == null || "".equals(ctx)) {
+            String requestUri = request.getRequestURI();
+            if ("/".equals(requestUri)) {
+                return true;
+            }
+            StringTokenizer tokenizer = new StringTokenizer(requestUri, "/");
+            if (!tokenizer.hasMoreTokens()) {
+                return false;
+            }
+            ctx = tokenizer.nextToken();
+        }
+        return isSkippedContext(ctx);
+    }
+
+    public boolean isAdminService() {
+        return adminService;
+    }
+
+    public boolean isAuthenticationEnabled() {
+        return authenticationEnabled;
+    }
+
+    public boolean isManagedApi() {
+        return managedApi;
+    }
+
+    public boolean isAuthorizationEnabled() {
+        return authorizationEnabled;
+    }
+
+    public Route getRoute(Request request) {
+        return routeTable.getRoute(request.getRequestURI());
+    }
+
+    private static boolean isSkippedContext(String ctx) {
+        return ("carbon".equalsIgnoreCase(ctx) || "services".equalsIgnoreCase(ctx));
+    }
+
+    private static List<Permission> getPermissions(String contextPath) {
+        List<Permission> permissions = new ArrayList<>();
+        for (Permission permission : PermissionManagerServiceImpl.getInstance().getPermissions()) {
+            String url = permission.getUrl();
+            if (url != null && (contextPath.isEmpty() || url.equals(contextPath) ||
+                    url.startsWith(contextPath + "/"))) {
+                permissions.add(permission);
+            }
+        }
+        return permissions;
+    }
+
+    private static Collection<WebappAuthenticator> getAuthenticators() {
+        WebappAuthenticatorRepository repository =
+                AuthenticatorFrameworkDataHolder.getInstance().getWebappAuthenticatorRepository();
+        if (repository == null) {
+            return Collections.emptyList();
+        }
+        return repository.getAuthenticators().values();
+    }
+
+    /**
+     * Drops the routes of a web app once it stops.
+     */
+    private static class RoutesRemover implements LifecycleListener {
+
+        private final Context context;
+        private final ContextRoutes routes;
+
+        RoutesRemover(Context context, ContextRoutes routes) {
+            this.context = context;
+            this.routes = routes;
+        }
+
+        @Override
+        public void lifecycleEvent(LifecycleEvent event) {
+            if (Lifecycle.AFTER_STOP_EVENT.equals(event.getType())) {
+                contextRoutes.remove(routes.contextPath, routes);
+                context.removeLifecycleListener(this);
+                if (log.isDebugEnabled()) {
+                    log.debug("Dropped the routes of web app '" + routes.contextPath + "'");
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.webapp.authenticator.framework.route;
+
+import org.apache.catalina.connector.Request;
+import org.wso2.carbon.device.mgt.common.permission.mgt.Permission;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.WebappAuthenticator;
+
+import java.util.Map;
+
+/**
+ * What is known about requests to a path of a web app before they arrive, i.e. whether they are to be authenticated,
+ * the authenticators which may authenticate them, and the permissions they require by their HTTP methods.
+ */
+public class Route {
+
+    private final boolean nonSecured;
+    private final WebappAuthenticator[] authenticators;
+    private final String[] methods;
+    private final Permission[] permissions;
+
+    Route(boolean nonSecured, WebappAuthenticator[] authenticators, Map<String, Permission> permissions) {
+        this.nonSecured = nonSecured;
+        this.authenticators = authenticators;
+        this.methods = permissions.keySet().toArray(new String[permissions.size()]);
+        this.permissions = permissions.values().toArray(new Permission[permissions.size()]);
+    }
+
+    /**
+     * @return whether the requests are let through without being authenticated, unless the web app is an admin
+     * service.
+     */
+    public boolean isNonSecured() {
+        return nonSecured;
+    }
+
+    /**
+     * @return the first of the authenticators of the route which can handle the request, or null if none can.
+     */
+    public WebappAuthenticator getAuthenticator(Request request) {
+        for (WebappAuthenticator authenticator : authenticators) {
+            if (authenticator.canHandle(request)) {
+                return authenticator;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the permission requests with the HTTP method require, or null if they require none.
+     */
+    public Permission getPermission(String method) {
+        for (int i = 0; i < methods.length; i++) {
+            if (methods[i].equals(method)) {
+                return permissions[i];
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.webapp.authenticator.framework.route;
+
+import org.wso2.carbon.device.mgt.common.permission.mgt.Permission;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.WebappAuthenticator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * The routes of a web app, compiled into a trie of the segments of their paths, so that the route of a request is
+ * found by a single walk over its URI which does not allocate. As in the permission tree, a segment '*' of a
+ * permission matches any segment, but only when no literal segment matches the rest of the URI. The non-secured
+ * endpoints are matched literally, the same as before the routes were compiled.
+ */
+public class RouteTable {
+
+    private static final String DYNAMIC_PATH_NOTATION = "*";
+    private static final String PATH_SEPARATOR = "/";
+    private static final char PATH_SEPARATOR_CHAR = '/';
+
+    private final Node root;
+    private final Route defaultRoute;
+
+    /**
+     * @param contextPath         context path of the web app.
+     * @param nonSecuredEndpoints comma separated paths, relative to the context path, requests to which are not
+     *                            authenticated. A '*' segment only matches a literal '*'.
+     * @param permissions         permissions of the request paths, including the context path, with '*' for their
+     *                            dynamic path variables.
+     * @param authenticators      authenticators which may authenticate the requests, in the order they are tried.
+     */
+    public RouteTable(String contextPath, String nonSecuredEndpoints, Collection<Permission> permissions,
+                      Collection<WebappAuthenticator> authenticators) {
+        WebappAuthenticator[] candidates = authenticators.toArray(new WebappAuthenticator[authenticators.size()]);
+        NodeBuilder rootBuilder = new NodeBuilder();
+        for (Permission permission : permissions) {
+            if (permission.getUrl() != null && permission.getMethod() != null) {
+                NodeBuilder node = rootBuilder.add(tokenize(permission.getUrl()), true);
+                node.permissions.put(permission.getMethod(), permission);
+            }
+        }
+        if (nonSecuredEndpoints != null && !nonSecuredEndpoints.isEmpty()) {
+            List<String[]> paths = new ArrayList<>();
+            StringTokenizer tokenizer = new StringTokenizer(nonSecuredEndpoints, ",");
+            while (tokenizer.hasMoreTokens()) {
+                String endpoint = tokenizer.nextToken().replace("\n", "").replace("\r", "").trim();
+                if (!endpoint.isEmpty()) {
+                    paths.add(tokenize(contextPath + endpoint));
+                }
+            }
+            // The permissions of the non-secured paths are resolved before their literal nodes are added, as those
+            // would otherwise hide the permissions of the dynamic paths they match.
+            List<Map<String, Permission>> pathPermissions = new ArrayList<>(paths.size());
+            for (String[] path : paths) {
+                NodeBuilder node = rootBuilder.find(path, 0);
+                pathPermissions.add((node != null) ? new LinkedHashMap<>(node.permissions) :
+                                    new LinkedHashMap<String, Permission>());
+            }
+            for (int i = 0; i < paths.size(); i++) {
+                NodeBuilder node = rootBuilder.add(paths.get(i), false);
+                node.nonSecured = true;
+                node.permissions = pathPermissions.get(i);
+            }
+        }
+        this.root = rootBuilder.build(candidates);
+        this.defaultRoute = new Route(false, candidates, Collections.<String, Permission>emptyMap());
+    }
+
+    /**
+     * @return the route of requests to the URI, a secured route without permissions if none of the paths match it.
+     */
+    public Route getRoute(String uri) {
+        Route route = (uri != null) ? match(root, uri, 0) : null;
+        return (route != null) ? route : defaultRoute;
+    }
+
+    private static Route match(Node node, String uri, int start) {
+        int length = uri.length();
+        while (start < length && uri.charAt(start) == PATH_SEPARATOR_CHAR) {
+            start++;
+        }
+        if (start == length) {
+            return node.route;
+        }
+        int end = uri.indexOf(PATH_SEPARATOR_CHAR, start);
+        if (end < 0) {
+            end = length;
+        }
+        int segmentLength = end - start;
+        for (int i = 0; i < node.segments.length; i++) {
+            String segment = node.segments[i];
+            if (segment.length() == segmentLength && uri.regionMatches(start, segment, 0, segmentLength)) {
+                Route route = match(node.children[i], uri, end);
+                if (route != null) {
+                    return route;
+                }
+                break;
+            }
+        }
+        return (node.wildcard != null) ? match(node.wildcard, uri, end) : null;
+    }
+
+    private static String[] tokenize(String path) {
+        StringTokenizer tokenizer = new StringTokenizer(path, PATH_SEPARATOR);
+        String[] segments = new String[tokenizer.countTokens()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = tokenizer.nextToken();
+        }
+        return segments;
+    }
+
+    /**
+     * A node of the compiled trie, with the literal segments and the nodes they lead to in parallel arrays.
+     */
+    private static class Node {
+
+        private final String[] segments;
+        private final Node[] children;
+        private final Node wildcard;
+        private final Route route;
+
+        Node(String[] segments, Node[] children, Node wildcard, Route route) {
+            this.segments = segments;
+            this.children = children;
+            this.wildcard = wildcard;
+            this.route = route;
+        }
+
+    }
+
+    /**
+     * A node of the trie while it is being compiled.
+     */
+    private static class NodeBuilder {
+
+        private final Map<String, NodeBuilder> children = new LinkedHashMap<>();
+        private NodeBuilder wildcard;
+        private Map<String, Permission> permissions = new LinkedHashMap<>();
+        private boolean nonSecured;
+
+        /**
+         * @param dynamic whether a segment '*' of the path matches any segment, rather than only a literal '*'.
+         */
+        NodeBuilder add(String[] path, boolean dynamic) {
+            NodeBuilder node = this;
+            for (String segment : path) {
+                if (dynamic && DYNAMIC_PATH_NOTATION.equals(segment)) {
+                    if (node.wildcard == null) {
+                        node.wildcard = new NodeBuilder();
+                    }
+                    node = node.wildcard;
+                    continue;
+                }
+                NodeBuilder child = node.children.get(segment);
+                if (child == null) {
+                    child = new NodeBuilder();
+                    node.children.put(segment, child);
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        /**
+         * @return the node matching the path the way the compiled trie does, or null if none does.
+         */
+        NodeBuilder find(String[] path, int index) {
+            if (index == path.length) {
+                return this.isRoute() ? this : null;
+            }
+            NodeBuilder child = children.get(path[index]);
+            if (child != null) {
+                NodeBuilder node = child.find(path, index + 1);
+                if (node != null) {
+                    return node;
+                }
+            }
+            return (wildcard != null) ? wildcard.find(path, index + 1) : null;
+        }
+
+        boolean isRoute() {
+            return nonSecured || !permissions.isEmpty();
+        }
+
+        Node build(WebappAuthenticator[] authenticators) {
+            String[] segments = new String[children.size()];
+            Node[] literalChildren = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<String, NodeBuilder> child : children.entrySet()) {
+                segments[i] = child.getKey();
+                literalChildren[i] = child.getValue().build(authenticators);
+                i++;
+            }
+            Route route = this.isRoute() ? new Route(nonSecured, authenticators, permissions) : null;
+            return new Node(segments, literalChildren, (wildcard != null) ? wildcard.build(authenticators) : null,
+                            route);
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ *   Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.webapp.authenticator.framework.test;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.jwt.JWTPublicKeyRegistry;
+
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JWTPublicKeyRegistryTest {
+
+    private static final int THREADS = 16;
+    private static final int LOOKUPS_PER_THREAD = 1000;
+    private static final String[] TENANT_DOMAINS = {"carbon.super", "tenant-a.com", "tenant-b.com"};
+
+    @Test
+    public void testConcurrentLookupsLoadEachTenantOnce() throws Exception {
+        final JWTPublicKeyRegistry registry = new JWTPublicKeyRegistry();
+        final CountingLoader loader = new CountingLoader();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        int found = 0;
+                        for (int j = 0; j < LOOKUPS_PER_THREAD; j++) {
+                            String tenantDomain = TENANT_DOMAINS[j % TENANT_DOMAINS.length];
+                            if (registry.getPublicKey(tenantDomain, j % TENANT_DOMAINS.length, loader) != null) {
+                                found++;
+                            }
+                        }
+                        return found;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                Assert.assertEquals(result.get().intValue(), LOOKUPS_PER_THREAD);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(loader.loads.get(), TENANT_DOMAINS.length,
+                            "The public key of a tenant was loaded more than once");
+    }
+
+    @Test
+    public void testMissingKeyIsLoadedAgain() throws Exception {
+        JWTPublicKeyRegistry registry = new JWTPublicKeyRegistry();
+        final AtomicInteger loads = new AtomicInteger();
+        JWTPublicKeyRegistry.PublicKeyLoader loader = new JWTPublicKeyRegistry.PublicKeyLoader() {
+            @Override
+            public PublicKey loadPublicKey(String tenantDomain, int tenantId) {
+                loads.incrementAndGet();
+                return null;
+            }
+        };
+        Assert.assertNull(registry.getPublicKey("carbon.super", -1234, loader));
+        Assert.assertNull(registry.getPublicKey("carbon.super", -1234, loader));
+        Assert.assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testRemovedKeyIsLoadedAgain() throws Exception {
+        JWTPublicKeyRegistry registry = new JWTPublicKeyRegistry();
+        CountingLoader loader = new CountingLoader();
+        registry.getPublicKey("carbon.super", -1234, loader);
+        registry.removePublicKey("carbon.super");
+        registry.getPublicKey("carbon.super", -1234, loader);
+        Assert.assertEquals(loader.loads.get(), 2);
+    }
+
+    private static class CountingLoader implements JWTPublicKeyRegistry.PublicKeyLoader {
+
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public PublicKey loadPublicKey(String tenantDomain, int tenantId) throws Exception {
+            loads.incrementAndGet();
+            // Slow enough for the other threads to ask for the key while it is being loaded.
+            Thread.sleep(50);
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(1024);
+            return generator.generateKeyPair().getPublic();
+        }
+
+    }
+
+}
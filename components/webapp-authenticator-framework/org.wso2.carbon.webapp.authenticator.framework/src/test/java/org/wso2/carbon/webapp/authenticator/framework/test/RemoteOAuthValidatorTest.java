@@ -0,0 +1,172 @@
+/*
+ *   Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.webapp.authenticator.framework.test;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthConstants;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthValidationResponse;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.impl.RemoteOAuthValidator;
+import org.wso2.carbon.webapp.authenticator.framework.test.util.LocalOAuth2TokenValidationServiceStub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RemoteOAuthValidatorTest {
+
+    private static final String RESOURCE = "/api/device-mgt/v1.0/devices GET";
+    private static final String VALID_TOKEN = LocalOAuth2TokenValidationServiceStub.VALID_TOKEN_PREFIX + "token";
+    private static final String INVALID_TOKEN = "invalid-token";
+    private static final long TOKEN_VALIDITY = 3600;
+    private static final int THREADS = 16;
+
+    @Test
+    public void testValidTokenIsCached() throws Exception {
+        AtomicInteger validations = new AtomicInteger();
+        RemoteOAuthValidator validator = this.createValidator(validations, 0, TOKEN_VALIDITY, null, null);
+        for (int i = 0; i < 3; i++) {
+            OAuthValidationResponse response = validator.validateToken(VALID_TOKEN, RESOURCE);
+            Assert.assertTrue(response.isValid());
+            Assert.assertEquals(response.getUserName(), "admin");
+            Assert.assertEquals(response.getTenantDomain(), "carbon.super");
+        }
+        Assert.assertEquals(validations.get(), 1);
+
+        validator.validateToken(VALID_TOKEN, "/api/device-mgt/v1.0/groups GET");
+        Assert.assertEquals(validations.get(), 2, "A token was not validated again for another resource");
+    }
+
+    @Test
+    public void testInvalidTokenIsCached() throws Exception {
+        AtomicInteger validations = new AtomicInteger();
+        RemoteOAuthValidator validator = this.createValidator(validations, 0, TOKEN_VALIDITY, null, "200");
+        for (int i = 0; i < 3; i++) {
+            OAuthValidationResponse response = validator.validateToken(INVALID_TOKEN, RESOURCE);
+            Assert.assertFalse(response.isValid());
+            Assert.assertEquals(response.getErrorMsg(), LocalOAuth2TokenValidationServiceStub.INVALID_TOKEN_ERROR);
+        }
+        Assert.assertEquals(validations.get(), 1);
+
+        Thread.sleep(400);
+        validator.validateToken(INVALID_TOKEN, RESOURCE);
+        Assert.assertEquals(validations.get(), 2, "An invalid token was cached longer than configured");
+    }
+
+    @Test
+    public void testCacheIsBoundedByTokenValidity() throws Exception {
+        AtomicInteger validations = new AtomicInteger();
+        RemoteOAuthValidator validator = this.createValidator(validations, 0, 1, "300000", null);
+        validator.validateToken(VALID_TOKEN, RESOURCE);
+        validator.validateToken(VALID_TOKEN, RESOURCE);
+        Assert.assertEquals(validations.get(), 1);
+
+        Thread.sleep(1200);
+        validator.validateToken(VALID_TOKEN, RESOURCE);
+        Assert.assertEquals(validations.get(), 2, "A token was cached after it expired");
+    }
+
+    @Test
+    public void testDisabledCache() throws Exception {
+        AtomicInteger validations = new AtomicInteger();
+        RemoteOAuthValidator validator = this.createValidator(validations, 0, TOKEN_VALIDITY, "0", null);
+        validator.validateToken(VALID_TOKEN, RESOURCE);
+        validator.validateToken(VALID_TOKEN, RESOURCE);
+        Assert.assertEquals(validations.get(), 2);
+    }
+
+    @Test
+    public void testConcurrentValidationsShareRemoteCall() throws Exception {
+        AtomicInteger validations = new AtomicInteger();
+        RemoteOAuthValidator validator = this.createValidator(validations, 200, TOKEN_VALIDITY, null, null);
+        List<OAuthValidationResponse> responses = this.validateConcurrently(validator, new String[]{VALID_TOKEN}, 1);
+        for (OAuthValidationResponse response : responses) {
+            Assert.assertTrue(response.isValid());
+        }
+        Assert.assertEquals(validations.get(), 1, "Concurrent validations of a token called the server again");
+    }
+
+    @Test
+    public void testConcurrentLoad() throws Exception {
+        AtomicInteger validations = new AtomicInteger();
+        RemoteOAuthValidator validator = this.createValidator(validations, 20, TOKEN_VALIDITY, null, null);
+        String[] tokens = {VALID_TOKEN + "-1", VALID_TOKEN + "-2", INVALID_TOKEN + "-1", INVALID_TOKEN + "-2"};
+        List<OAuthValidationResponse> responses = this.validateConcurrently(validator, tokens, 100);
+        Assert.assertEquals(responses.size(), THREADS * 100);
+        int valid = 0;
+        for (OAuthValidationResponse response : responses) {
+            if (response.isValid()) {
+                valid++;
+            }
+        }
+        Assert.assertEquals(valid, THREADS * 50);
+        Assert.assertEquals(validations.get(), tokens.length, "A token was validated with the server more than once");
+    }
+
+    private List<OAuthValidationResponse> validateConcurrently(final RemoteOAuthValidator validator,
+                                                               final String[] tokens, final int rounds)
+            throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<OAuthValidationResponse> responses = new ArrayList<>();
+        try {
+            List<Future<List<OAuthValidationResponse>>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<List<OAuthValidationResponse>>() {
+                    @Override
+                    public List<OAuthValidationResponse> call() throws Exception {
+                        start.await();
+                        List<OAuthValidationResponse> threadResponses = new ArrayList<>();
+                        for (int j = 0; j < rounds; j++) {
+                            threadResponses.add(validator.validateToken(tokens[j % tokens.length], RESOURCE));
+                        }
+                        return threadResponses;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<List<OAuthValidationResponse>> result : results) {
+                responses.addAll(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return responses;
+    }
+
+    private RemoteOAuthValidator createValidator(AtomicInteger validations, long latency, long tokenValidity,
+                                                 String tokenCacheMaxTTL, String invalidTokenCacheTTL) {
+        Properties properties = new Properties();
+        if (tokenCacheMaxTTL != null) {
+            properties.setProperty(OAuthConstants.TOKEN_CACHE_MAX_TTL, tokenCacheMaxTTL);
+        }
+        if (invalidTokenCacheTTL != null) {
+            properties.setProperty(OAuthConstants.INVALID_TOKEN_CACHE_TTL, invalidTokenCacheTTL);
+        }
+        return new RemoteOAuthValidator(
+                LocalOAuth2TokenValidationServiceStub.createPool(validations, latency, tokenValidity), properties);
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ *   Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.webapp.authenticator.framework.test;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.permission.mgt.Permission;
+import org.wso2.carbon.device.mgt.core.permission.mgt.PermissionTree;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.WebappAuthenticator;
+import org.wso2.carbon.webapp.authenticator.framework.route.Route;
+import org.wso2.carbon.webapp.authenticator.framework.route.RouteTable;
+import org.wso2.carbon.webapp.authenticator.framework.test.util.TestWebappAuthenticator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+public class RouteTableTest {
+
+    private static final Log log = LogFactory.getLog(RouteTableTest.class);
+    private static final String CONTEXT_PATH = "/api/device-mgt/v1.0";
+    private static final String NON_SECURED_END_POINTS =
+            "/devices/enroll,\n    /configuration/server-info/ ,/users/*/devices";
+    private static final int BENCHMARK_ROUNDS = 200000;
+    private static final String[][] REQUESTS = {
+            {CONTEXT_PATH + "/devices", "GET"},
+            {CONTEXT_PATH + "/devices/android/1234", "GET"},
+            {CONTEXT_PATH + "/devices/android/1234/operations", "POST"},
+            {CONTEXT_PATH + "/devices/enroll", "POST"},
+            {CONTEXT_PATH + "/groups/5/devices", "DELETE"},
+            {CONTEXT_PATH + "/unknown/path", "GET"}
+    };
+
+    private List<Permission> permissions;
+    private RouteTable routeTable;
+
+    @BeforeClass
+    public void init() {
+        permissions = new ArrayList<>();
+        permissions.add(createPermission("/devices", "GET", "/device-mgt/devices/list"));
+        permissions.add(createPermission("/devices/*/*", "GET", "/device-mgt/devices/view"));
+        permissions.add(createPermission("/devices/*/*", "DELETE", "/device-mgt/devices/remove"));
+        permissions.add(createPermission("/devices/*/*/operations", "POST", "/device-mgt/operations/add"));
+        permissions.add(createPermission("/devices/*", "POST", "/device-mgt/devices/add"));
+        permissions.add(createPermission("/groups/*/devices", "DELETE", "/device-mgt/groups/devices/remove"));
+        List<WebappAuthenticator> authenticators = new ArrayList<>();
+        authenticators.add(new TestWebappAuthenticator());
+        routeTable = new RouteTable(CONTEXT_PATH, NON_SECURED_END_POINTS, permissions, authenticators);
+    }
+
+    @Test
+    public void testPermissions() {
+        Assert.assertEquals(this.getPermissionPath(CONTEXT_PATH + "/devices", "GET"), "/device-mgt/devices/list");
+        Assert.assertEquals(this.getPermissionPath(CONTEXT_PATH + "/devices/", "GET"), "/device-mgt/devices/list");
+        Assert.assertEquals(this.getPermissionPath(CONTEXT_PATH + "/devices/android/1234", "GET"),
+                            "/device-mgt/devices/view");
+        Assert.assertEquals(this.getPermissionPath(CONTEXT_PATH + "/devices/android/1234", "DELETE"),
+                            "/device-mgt/devices/remove");
+        Assert.assertEquals(this.getPermissionPath(CONTEXT_PATH + "/devices/android/1234/operations", "POST"),
+                            "/device-mgt/operations/add");
+        Assert.assertNull(this.getPermissionPath(CONTEXT_PATH + "/devices/android/1234", "PUT"));
+        Assert.assertNull(this.getPermissionPath(CONTEXT_PATH + "/unknown/path", "GET"));
+    }
+
+    @Test
+    public void testNonSecuredEndpoints() {
+        Assert.assertTrue(routeTable.getRoute(CONTEXT_PATH + "/devices/enroll").isNonSecured());
+        Assert.assertTrue(routeTable.getRoute(CONTEXT_PATH + "/devices/enroll/").isNonSecured());
+        Assert.assertTrue(routeTable.getRoute(CONTEXT_PATH + "/configuration/server-info").isNonSecured());
+        // Non-secured endpoints are matched literally, unlike the paths of the permissions.
+        Assert.assertTrue(routeTable.getRoute(CONTEXT_PATH + "/users/*/devices").isNonSecured());
+        Assert.assertFalse(routeTable.getRoute(CONTEXT_PATH + "/users/admin/devices").isNonSecured());
+        Assert.assertFalse(routeTable.getRoute(CONTEXT_PATH + "/devices").isNonSecured());
+        Assert.assertFalse(routeTable.getRoute(CONTEXT_PATH + "/devices/enroll/1234").isNonSecured());
+        Assert.assertFalse(routeTable.getRoute("/api/other-app/devices/enroll").isNonSecured());
+        // A non-secured path keeps the permission of the dynamic path it matches.
+        Assert.assertEquals(this.getPermissionPath(CONTEXT_PATH + "/devices/enroll", "POST"),
+                            "/device-mgt/devices/add");
+    }
+
+    @Test
+    public void testLiteralSegmentsFallBackToDynamicSegments() {
+        // The literal 'enroll' segment of the non-secured path does not hide the dynamic paths beneath it.
+        Assert.assertEquals(this.getPermissionPath(CONTEXT_PATH + "/devices/enroll/1234", "GET"),
+                            "/device-mgt/devices/view");
+    }
+
+    @Test
+    public void testAuthenticators() {
+        Route route = routeTable.getRoute(CONTEXT_PATH + "/devices");
+        // The test authenticator can not handle any request.
+        Assert.assertNull(route.getAuthenticator(null));
+        RouteTable emptyTable = new RouteTable(CONTEXT_PATH, null, Collections.<Permission>emptyList(),
+                                               Collections.<WebappAuthenticator>emptyList());
+        Assert.assertFalse(emptyTable.getRoute(CONTEXT_PATH + "/devices").isNonSecured());
+        Assert.assertNull(emptyTable.getRoute(CONTEXT_PATH + "/devices").getPermission("GET"));
+    }
+
+    @Test
+    public void testLookupDoesNotAllocate() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            log.info("Allocation of route lookups is not measured, as the JVM does not report allocated bytes");
+            return;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        long threadId = Thread.currentThread().getId();
+        int found = this.lookUpRoutes(BENCHMARK_ROUNDS);
+        long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+        found += this.lookUpRoutes(BENCHMARK_ROUNDS);
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        Assert.assertTrue(found > 0);
+        Assert.assertTrue(allocated < BENCHMARK_ROUNDS,
+                          "Looking up " + BENCHMARK_ROUNDS + " routes allocated " + allocated + " bytes");
+    }
+
+    /**
+     * Compares the time the valves spend routing a request, i.e. finding whether it is to a non-secured endpoint and
+     * the permission it requires, with the route table and as it was done before the routes were compiled.
+     */
+    @Test
+    public void testRoutingOverhead() {
+        PermissionTree permissionTree = new PermissionTree();
+        for (Permission permission : permissions) {
+            permissionTree.addPermission(permission);
+        }
+        Map<String, String> nonSecuredEndpoints = new HashMap<>();
+        StringTokenizer tokenizer = new StringTokenizer(NON_SECURED_END_POINTS, ",");
+        while (tokenizer.hasMoreTokens()) {
+            String endpoint = CONTEXT_PATH + tokenizer.nextToken().replace("\n", "").replace("\r", "").trim();
+            nonSecuredEndpoints.put(endpoint.endsWith("/") ? endpoint : endpoint + "/", "true");
+        }
+
+        // Warm up both.
+        this.lookUpRoutes(BENCHMARK_ROUNDS);
+        this.lookUpRoutesUncompiled(BENCHMARK_ROUNDS, nonSecuredEndpoints, permissionTree);
+
+        long uncompiledStart = System.nanoTime();
+        int uncompiledFound = this.lookUpRoutesUncompiled(BENCHMARK_ROUNDS, nonSecuredEndpoints, permissionTree);
+        long uncompiledTime = System.nanoTime() - uncompiledStart;
+
+        long compiledStart = System.nanoTime();
+        int compiledFound = this.lookUpRoutes(BENCHMARK_ROUNDS);
+        long compiledTime = System.nanoTime() - compiledStart;
+
+        log.info("Routing overhead per request: " + compiledTime / BENCHMARK_ROUNDS + " ns with the route table, " +
+                 uncompiledTime / BENCHMARK_ROUNDS + " ns without");
+        Assert.assertEquals(compiledFound, uncompiledFound);
+        Assert.assertTrue(compiledTime < uncompiledTime, "Routing with the route table was slower");
+    }
+
+    private int lookUpRoutes(int rounds) {
+        int found = 0;
+        for (int i = 0; i < rounds; i++) {
+            String[] request = REQUESTS[i % REQUESTS.length];
+            Route route = routeTable.getRoute(request[0]);
+            if (route.isNonSecured() || route.getPermission(request[1]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private int lookUpRoutesUncompiled(int rounds, Map<String, String> nonSecuredEndpoints,
+                                       PermissionTree permissionTree) {
+        int found = 0;
+        for (int i = 0; i < rounds; i++) {
+            String[] request = REQUESTS[i % REQUESTS.length];
+            String uri = request[0];
+            if (!uri.endsWith("/")) {
+                uri = uri + "/";
+            }
+            if (nonSecuredEndpoints.containsKey(uri) || permissionTree.getPermission(request[0], request[1]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private String getPermissionPath(String uri, String method) {
+        Permission permission = routeTable.getRoute(uri).getPermission(method);
+        return (permission != null) ? permission.getPath() : null;
+    }
+
+    private static Permission createPermission(String url, String method, String path) {
+        Permission permission = new Permission();
+        permission.setUrl(CONTEXT_PATH + url);
+        permission.setMethod(method);
+        permission.setPath(path);
+        permission.setName(path);
+        return permission;
+    }
+
+}
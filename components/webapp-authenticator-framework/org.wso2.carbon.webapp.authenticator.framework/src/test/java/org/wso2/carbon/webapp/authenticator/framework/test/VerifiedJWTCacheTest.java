@@ -0,0 +1,200 @@
+/*
+ *   Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.webapp.authenticator.framework.test;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.jwt.VerifiedJWTCache;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class VerifiedJWTCacheTest {
+
+    private static final Log log = LogFactory.getLog(VerifiedJWTCacheTest.class);
+    private static final int THREADS = 8;
+    private static final int TOKENS = 100;
+    private static final int BENCHMARK_ROUNDS = 2000;
+    private static final long MAX_TIME_TO_LIVE = 60000;
+
+    private RSAPublicKey publicKey;
+    private List<String> tokens;
+
+    @BeforeClass
+    public void init() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        publicKey = (RSAPublicKey) keyPair.getPublic();
+        RSASSASigner signer = new RSASSASigner((RSAPrivateKey) keyPair.getPrivate());
+        tokens = new ArrayList<>(TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            JWTClaimsSet claimsSet = new JWTClaimsSet();
+            claimsSet.setSubject("user" + i + "@carbon.super");
+            claimsSet.setExpirationTime(new Date(System.currentTimeMillis() + 3600000));
+            SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claimsSet);
+            signedJWT.sign(signer);
+            tokens.add(signedJWT.serialize());
+        }
+    }
+
+    @Test
+    public void testVerifiedTokenIsCached() {
+        VerifiedJWTCache cache = new VerifiedJWTCache(MAX_TIME_TO_LIVE, TOKENS);
+        Assert.assertNull(cache.get(tokens.get(0)));
+        cache.put(tokens.get(0), "user0", "carbon.super", -1234, null);
+        VerifiedJWTCache.VerifiedJWT verifiedToken = cache.get(tokens.get(0));
+        Assert.assertNotNull(verifiedToken);
+        Assert.assertEquals(verifiedToken.getUsername(), "user0");
+        Assert.assertEquals(verifiedToken.getTenantDomain(), "carbon.super");
+        Assert.assertEquals(verifiedToken.getTenantId(), -1234);
+        Assert.assertNull(cache.get(tokens.get(1)));
+    }
+
+    @Test
+    public void testExpirationTimeIsHonoured() throws Exception {
+        VerifiedJWTCache cache = new VerifiedJWTCache(MAX_TIME_TO_LIVE, TOKENS);
+        cache.put(tokens.get(0), "user0", "carbon.super", -1234, new Date(System.currentTimeMillis() + 500));
+        cache.put(tokens.get(1), "user1", "carbon.super", -1234, new Date(System.currentTimeMillis() - 1));
+        Assert.assertNotNull(cache.get(tokens.get(0)));
+        Assert.assertNull(cache.get(tokens.get(1)), "An expired token was cached");
+        Thread.sleep(700);
+        Assert.assertNull(cache.get(tokens.get(0)), "A token was used after it expired");
+    }
+
+    @Test
+    public void testMaxTimeToLiveIsHonoured() throws Exception {
+        VerifiedJWTCache cache = new VerifiedJWTCache(500, TOKENS);
+        cache.put(tokens.get(0), "user0", "carbon.super", -1234, new Date(System.currentTimeMillis() + 3600000));
+        Assert.assertNotNull(cache.get(tokens.get(0)));
+        Thread.sleep(700);
+        Assert.assertNull(cache.get(tokens.get(0)), "A token was used after the maximum time to live");
+    }
+
+    @Test
+    public void testCapacityIsHonoured() {
+        VerifiedJWTCache cache = new VerifiedJWTCache(MAX_TIME_TO_LIVE, 10);
+        for (int i = 0; i < TOKENS; i++) {
+            cache.put(tokens.get(i), "user" + i, "carbon.super", -1234, null);
+            Assert.assertTrue(cache.size() <= 10);
+        }
+    }
+
+    @Test
+    public void testCachedTokenDoesNotClearFullCache() {
+        VerifiedJWTCache cache = new VerifiedJWTCache(MAX_TIME_TO_LIVE, 10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(tokens.get(i), "user" + i, "carbon.super", -1234, null);
+        }
+        cache.put(tokens.get(0), "user0", "carbon.super", -1234, null);
+        Assert.assertEquals(cache.size(), 10, "A full cache was cleared when a cached token was added again");
+    }
+
+    @Test
+    public void testDisabledCache() {
+        VerifiedJWTCache cache = new VerifiedJWTCache(0, TOKENS);
+        cache.put(tokens.get(0), "user0", "carbon.super", -1234, null);
+        Assert.assertNull(cache.get(tokens.get(0)));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final VerifiedJWTCache cache = new VerifiedJWTCache(MAX_TIME_TO_LIVE, TOKENS);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int j = 0; j < BENCHMARK_ROUNDS; j++) {
+                            int index = j % TOKENS;
+                            VerifiedJWTCache.VerifiedJWT verifiedToken = cache.get(tokens.get(index));
+                            if (verifiedToken == null) {
+                                cache.put(tokens.get(index), "user" + index, "carbon.super", -1234, null);
+                            } else {
+                                Assert.assertEquals(verifiedToken.getUsername(), "user" + index);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(cache.size(), TOKENS);
+    }
+
+    /**
+     * Compares the throughput of looking up verified tokens in the cache with that of verifying their signatures.
+     */
+    @Test
+    public void testThroughput() throws Exception {
+        VerifiedJWTCache cache = new VerifiedJWTCache(MAX_TIME_TO_LIVE, TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            cache.put(tokens.get(i), "user" + i, "carbon.super", -1234, null);
+        }
+        JWSVerifier verifier = new RSASSAVerifier(publicKey);
+
+        long verificationStart = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            Assert.assertTrue(SignedJWT.parse(tokens.get(i % TOKENS)).verify(verifier));
+        }
+        long verificationTime = System.nanoTime() - verificationStart;
+
+        long lookupStart = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            Assert.assertNotNull(cache.get(tokens.get(i % TOKENS)));
+        }
+        long lookupTime = System.nanoTime() - lookupStart;
+
+        log.info("Verified " + BENCHMARK_ROUNDS + " tokens in " + verificationTime / 1000000 + " ms, looked up " +
+                 BENCHMARK_ROUNDS + " verified tokens in " + lookupTime / 1000000 + " ms");
+        Assert.assertTrue(lookupTime < verificationTime,
+                          "Looking up verified tokens was slower than verifying them");
+    }
+
+}
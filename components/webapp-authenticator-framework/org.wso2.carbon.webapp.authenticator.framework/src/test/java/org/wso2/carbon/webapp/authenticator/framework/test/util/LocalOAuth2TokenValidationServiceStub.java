@@ -0,0 +1,99 @@
+/*
+ *   Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.webapp.authenticator.framework.test.util;
+
+import org.apache.axis2.AxisFault;
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.wso2.carbon.identity.oauth2.stub.OAuth2TokenValidationServiceStub;
+import org.wso2.carbon.identity.oauth2.stub.dto.OAuth2ClientApplicationDTO;
+import org.wso2.carbon.identity.oauth2.stub.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.stub.dto.OAuth2TokenValidationResponseDTO;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates OAuth2 tokens locally instead of calling a remote IS server, so that RemoteOAuthValidator can be tested
+ * offline. Tokens starting with "valid-" are valid for the admin user of the super tenant, the others are invalid.
+ * The validations done by all the stubs of a pool are counted.
+ */
+public class LocalOAuth2TokenValidationServiceStub extends OAuth2TokenValidationServiceStub {
+
+    public static final String VALID_TOKEN_PREFIX = "valid-";
+    public static final String AUTHORIZED_USER = "admin@carbon.super";
+    public static final String INVALID_TOKEN_ERROR = "Invalid access token";
+
+    private final AtomicInteger validations;
+    private final long latency;
+    private final long expiryTime;
+
+    /**
+     * @param validations counter of the validations done.
+     * @param latency     milliseconds a validation takes.
+     * @param expiryTime  seconds the valid tokens remain valid for.
+     */
+    public LocalOAuth2TokenValidationServiceStub(AtomicInteger validations, long latency, long expiryTime)
+            throws AxisFault {
+        super("https://localhost:9443/services/OAuth2TokenValidationService");
+        this.validations = validations;
+        this.latency = latency;
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * @return a pool of local stubs sharing the counter of validations.
+     */
+    public static GenericObjectPool createPool(final AtomicInteger validations, final long latency,
+                                               final long expiryTime) {
+        return new GenericObjectPool(new BasePoolableObjectFactory() {
+            @Override
+            public Object makeObject() throws Exception {
+                return new LocalOAuth2TokenValidationServiceStub(validations, latency, expiryTime);
+            }
+        });
+    }
+
+    @Override
+    public OAuth2ClientApplicationDTO findOAuthConsumerIfTokenIsValid(
+            OAuth2TokenValidationRequestDTO validationRequest) throws RemoteException {
+        validations.incrementAndGet();
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RemoteException("Interrupted while validating the token", e);
+            }
+        }
+        OAuth2TokenValidationResponseDTO validationResponse = new OAuth2TokenValidationResponseDTO();
+        if (validationRequest.getAccessToken().getIdentifier().startsWith(VALID_TOKEN_PREFIX)) {
+            validationResponse.setValid(true);
+            validationResponse.setAuthorizedUser(AUTHORIZED_USER);
+            validationResponse.setExpiryTime(expiryTime);
+        } else {
+            validationResponse.setValid(false);
+            validationResponse.setErrorMsg(INVALID_TOKEN_ERROR);
+        }
+        OAuth2ClientApplicationDTO clientApplication = new OAuth2ClientApplicationDTO();
+        clientApplication.setAccessTokenValidationResponse(validationResponse);
+        return clientApplication;
+    }
+
+}
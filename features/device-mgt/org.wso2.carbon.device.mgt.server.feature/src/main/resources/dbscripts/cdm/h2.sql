@@ -318,6 +318,13 @@ CREATE TABLE IF NOT EXISTS DM_POLICY_CHANGE_MGT (
   PRIMARY KEY (ID)
 );
 
+CREATE TABLE IF NOT EXISTS DM_POLICY_DELEGATION_CHECKPOINT (
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  TENANT_ID INT(11) NOT NULL,
+  LAST_DEVICE_ID INT NOT NULL,
+  PRIMARY KEY (DEVICE_TYPE, TENANT_ID)
+);
+
 CREATE TABLE IF NOT EXISTS DM_POLICY_COMPLIANCE_FEATURES (
   ID INT NOT NULL AUTO_INCREMENT,
   COMPLIANCE_STATUS_ID INT NOT NULL,
@@ -112,7 +112,7 @@ CREATE TABLE DM_ENROLMENT_OP_MAPPING (
 );
 
 IF NOT  EXISTS (SELECT * FROM SYS.INDEXES WHERE NAME = 'IDX_ENROLMENT_OP_MAPPING' AND  OBJECT_ID = OBJECT_ID('DM_ENROLMENT_OP_MAPPING'))
-CREATE INDEX IDX_ENROLMENT_OP_MAPPING ON DM_ENROLMENT_OP_MAPPING (UPDATED_TIMESTAMP);
+CREATE INDEX IDX_ENROLMENT_OP_MAPPING ON DM_ENROLMENT_OP_MAPPING (UPDATED_TIMESTAMP, ID);
 IF NOT  EXISTS (SELECT * FROM SYS.INDEXES WHERE NAME = 'IDX_EN_OP_MAPPING_EN_ID' AND  OBJECT_ID = OBJECT_ID('DM_ENROLMENT_OP_MAPPING'))
 CREATE INDEX IDX_EN_OP_MAPPING_EN_ID ON DM_ENROLMENT_OP_MAPPING(ENROLMENT_ID);
 IF NOT  EXISTS (SELECT * FROM SYS.INDEXES WHERE NAME = 'IDX_EN_OP_MAPPING_OP_ID' AND  OBJECT_ID = OBJECT_ID('DM_ENROLMENT_OP_MAPPING'))
@@ -299,6 +299,14 @@ CREATE TABLE DM_POLICY_CHANGE_MGT (
   PRIMARY KEY (ID)
 );
 
+IF NOT  EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[DM_POLICY_DELEGATION_CHECKPOINT]') AND TYPE IN (N'U'))
+CREATE TABLE DM_POLICY_DELEGATION_CHECKPOINT (
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  TENANT_ID INTEGER NOT NULL,
+  LAST_DEVICE_ID INTEGER NOT NULL,
+  PRIMARY KEY (DEVICE_TYPE, TENANT_ID)
+);
+
 IF NOT  EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[DM_POLICY_COMPLIANCE_FEATURES]') AND TYPE IN (N'U'))
 CREATE TABLE DM_POLICY_COMPLIANCE_FEATURES (
   ID INTEGER IDENTITY(1,1) NOT NULL,
@@ -100,7 +100,7 @@ CREATE TABLE IF NOT EXISTS DM_ENROLMENT_OP_MAPPING (
     DM_OPERATION (ID) ON DELETE NO ACTION ON UPDATE NO ACTION
 )ENGINE = InnoDB;
 
-CREATE INDEX IDX_ENROLMENT_OP_MAPPING ON DM_ENROLMENT_OP_MAPPING (UPDATED_TIMESTAMP);
+CREATE INDEX IDX_ENROLMENT_OP_MAPPING ON DM_ENROLMENT_OP_MAPPING (UPDATED_TIMESTAMP, ID);
 CREATE INDEX IDX_EN_OP_MAPPING_EN_ID ON DM_ENROLMENT_OP_MAPPING(ENROLMENT_ID);
 CREATE INDEX IDX_EN_OP_MAPPING_OP_ID ON DM_ENROLMENT_OP_MAPPING(OPERATION_ID);
 
@@ -322,6 +322,14 @@ CREATE TABLE IF NOT EXISTS DM_POLICY_CHANGE_MGT (
 )ENGINE = InnoDB;
 
 
+CREATE TABLE IF NOT EXISTS DM_POLICY_DELEGATION_CHECKPOINT (
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  TENANT_ID INT(11) NOT NULL,
+  LAST_DEVICE_ID INT NOT NULL,
+  PRIMARY KEY (DEVICE_TYPE, TENANT_ID)
+)ENGINE = InnoDB;
+
+
 CREATE TABLE IF NOT EXISTS DM_POLICY_COMPLIANCE_FEATURES (
   ID INT NOT NULL AUTO_INCREMENT,
   COMPLIANCE_STATUS_ID INT NOT NULL,
@@ -576,6 +576,14 @@ WHEN (NEW.ID IS NULL)
   END;
 /
 
+CREATE TABLE DM_POLICY_DELEGATION_CHECKPOINT (
+  DEVICE_TYPE VARCHAR2(300) NOT NULL,
+  TENANT_ID NUMBER(10) NOT NULL,
+  LAST_DEVICE_ID NUMBER(10) NOT NULL,
+  CONSTRAINT PK_DM_POLICY_DELEGATION_CP PRIMARY KEY (DEVICE_TYPE, TENANT_ID)
+)
+/
+
 CREATE TABLE DM_POLICY_COMPLIANCE_FEATURES (
   ID NUMBER(10) NOT NULL,
   COMPLIANCE_STATUS_ID NUMBER(10) NOT NULL,
@@ -93,7 +93,7 @@ CREATE TABLE IF NOT EXISTS  DM_ENROLMENT_OP_MAPPING (
     DM_OPERATION (ID) ON DELETE NO ACTION ON UPDATE NO ACTION
 );
 
-CREATE INDEX IDX_ENROLMENT_OP_MAPPING ON DM_ENROLMENT_OP_MAPPING (UPDATED_TIMESTAMP);
+CREATE INDEX IDX_ENROLMENT_OP_MAPPING ON DM_ENROLMENT_OP_MAPPING (UPDATED_TIMESTAMP, ID);
 CREATE INDEX IDX_EN_OP_MAPPING_EN_ID ON DM_ENROLMENT_OP_MAPPING(ENROLMENT_ID);
 CREATE INDEX IDX_EN_OP_MAPPING_OP_ID ON DM_ENROLMENT_OP_MAPPING(OPERATION_ID);
 
@@ -289,6 +289,13 @@ CREATE TABLE IF NOT EXISTS  DM_POLICY_CHANGE_MGT (
   TENANT_ID INTEGER NOT NULL
 );
 
+CREATE TABLE IF NOT EXISTS  DM_POLICY_DELEGATION_CHECKPOINT (
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  TENANT_ID INTEGER NOT NULL,
+  LAST_DEVICE_ID INTEGER NOT NULL,
+  PRIMARY KEY (DEVICE_TYPE, TENANT_ID)
+);
+
 CREATE TABLE IF NOT EXISTS  DM_POLICY_COMPLIANCE_FEATURES (
   ID BIGSERIAL NOT NULL PRIMARY KEY,
   COMPLIANCE_STATUS_ID INTEGER NOT NULL,